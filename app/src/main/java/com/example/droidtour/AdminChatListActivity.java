@@ -16,6 +16,7 @@ import com.google.android.material.appbar.MaterialToolbar;
 public class AdminChatListActivity extends AppCompatActivity {
     
     private RecyclerView rvClientChats;
+    private AdminClientChatsAdapter adapter;
     private com.example.droidtour.utils.PreferencesManager prefsManager;
 
     @Override
@@ -45,6 +46,7 @@ public class AdminChatListActivity extends AppCompatActivity {
         setupToolbar();
         initializeViews();
         setupRecyclerView();
+        loadConversations();
     }
     
     private void setupToolbar() {
@@ -60,12 +62,72 @@ public class AdminChatListActivity extends AppCompatActivity {
     
     private void setupRecyclerView() {
         rvClientChats.setLayoutManager(new LinearLayoutManager(this));
-        rvClientChats.setAdapter(new AdminClientChatsAdapter(client -> {
+        adapter = new AdminClientChatsAdapter(client -> {
             // Abrir chat con cliente específico
             Intent intent = new Intent(this, AdminChatDetailActivity.class);
             intent.putExtra("CLIENT_NAME", client.name);
+            if (client.conversationId != null) intent.putExtra("CONVERSATION_ID", client.conversationId);
             startActivity(intent);
-        }));
+        });
+        rvClientChats.setAdapter(adapter);
+    }
+
+    /**
+     * Los chats de la empresa se guardan con la empresa como participante: resolver su companyId
+     * y leer sus resúmenes de conversación (una consulta)
+     */
+    private void loadConversations() {
+        com.example.droidtour.firebase.FirestoreManager firestoreManager = com.example.droidtour.firebase.FirestoreManager.getInstance();
+        firestoreManager.getUserById(prefsManager.getUserId(), new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                com.example.droidtour.models.User user = (com.example.droidtour.models.User) result;
+                if (user == null || user.getCompanyId() == null) return;
+                firestoreManager.getConversationSummaries(user.getCompanyId(), 50, new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public void onSuccess(Object result) {
+                        java.util.List<com.example.droidtour.utils.ConversationSummary> summaries =
+                                (java.util.List<com.example.droidtour.utils.ConversationSummary>) result;
+                        if (summaries.isEmpty()) return; // Sin conversaciones todavía: se mantienen los ejemplos
+
+                        java.util.List<ClientChat> chats = new java.util.ArrayList<>();
+                        for (com.example.droidtour.utils.ConversationSummary summary : summaries) {
+                            ClientChat chat = new ClientChat(
+                                    summary.getOtherUserName() != null ? summary.getOtherUserName() : "Cliente",
+                                    summary.getLastMessageText() != null ? summary.getLastMessageText() : "",
+                                    formatTime(summary.getLastMessageAt()),
+                                    summary.hasUnread(),
+                                    (int) summary.getUnreadCount());
+                            chat.conversationId = summary.getConversationId();
+                            chats.add(chat);
+                        }
+                        adapter.setChats(chats);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        android.util.Log.e("AdminChatListActivity", "Error cargando conversaciones", e);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                android.util.Log.e("AdminChatListActivity", "Error obteniendo empresa del administrador", e);
+            }
+        });
+    }
+
+    private String formatTime(java.util.Date date) {
+        if (date == null) return "";
+        if (android.text.format.DateUtils.isToday(date.getTime())) {
+            return android.text.format.DateFormat.format("h:mm a", date).toString();
+        }
+        if (android.text.format.DateUtils.isToday(date.getTime() + android.text.format.DateUtils.DAY_IN_MILLIS)) {
+            return "Ayer";
+        }
+        return android.text.format.DateFormat.format("dd/MM", date).toString();
     }
     
     @Override
@@ -91,6 +153,7 @@ class ClientChat {
     public String timestamp;
     public boolean hasUnreadMessages;
     public int unreadCount;
+    public String conversationId;
 
     public ClientChat(String name, String lastMessage, String timestamp, boolean hasUnreadMessages, int unreadCount) {
         this.name = name;
@@ -106,17 +169,21 @@ class AdminClientChatsAdapter extends RecyclerView.Adapter<AdminClientChatsAdapt
     interface OnClientChatClick { void onClick(ClientChat client); }
     
     private final OnClientChatClick onClientChatClick;
-    private final ClientChat[] clientChats;
+    private final java.util.List<ClientChat> clientChats = new java.util.ArrayList<>();
 
     AdminClientChatsAdapter(OnClientChatClick listener) {
         this.onClientChatClick = listener;
         // Datos mock de chats con clientes
-        this.clientChats = new ClientChat[] {
-            new ClientChat("María González", "¿A qué hora es el punto de encuentro?", "2:30 PM", true, 2),
-            new ClientChat("Carlos López", "Muchas gracias por el tour, fue excelente", "1:15 PM", false, 0),
-            new ClientChat("Ana Martínez", "¿Incluye almuerzo el tour?", "11:45 AM", true, 1),
-            new ClientChat("Pedro Rojas", "¿Puedo cancelar mi reserva?", "Ayer", false, 0)
-        };
+        clientChats.add(new ClientChat("María González", "¿A qué hora es el punto de encuentro?", "2:30 PM", true, 2));
+        clientChats.add(new ClientChat("Carlos López", "Muchas gracias por el tour, fue excelente", "1:15 PM", false, 0));
+        clientChats.add(new ClientChat("Ana Martínez", "¿Incluye almuerzo el tour?", "11:45 AM", true, 1));
+        clientChats.add(new ClientChat("Pedro Rojas", "¿Puedo cancelar mi reserva?", "Ayer", false, 0));
+    }
+
+    void setChats(java.util.List<ClientChat> chats) {
+        clientChats.clear();
+        clientChats.addAll(chats);
+        notifyDataSetChanged();
     }
 
     @NonNull
@@ -129,7 +196,7 @@ class AdminClientChatsAdapter extends RecyclerView.Adapter<AdminClientChatsAdapt
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        ClientChat client = clientChats[position];
+        ClientChat client = clientChats.get(position);
         
         holder.tvClientName.setText(client.name);
         holder.tvLastMessage.setText(client.lastMessage);
@@ -147,7 +214,7 @@ class AdminClientChatsAdapter extends RecyclerView.Adapter<AdminClientChatsAdapt
 
     @Override
     public int getItemCount() {
-        return clientChats.length;
+        return clientChats.size();
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -4,6 +4,8 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.view.MenuItem;
 import android.view.LayoutInflater;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
@@ -15,18 +17,28 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import com.example.droidtour.analytics.RatingStats;
 import com.example.droidtour.database.DatabaseHelper;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.models.Review;
+import com.example.droidtour.models.Tour;
 
 public class AllReviewsActivity extends AppCompatActivity {
     
     private RecyclerView rvReviews;
     private AllReviewsAdapter reviewsAdapter;
     private ChipGroup chipGroupFilter;
+    private com.google.android.material.chip.Chip chipAll, chipBestRating, chipWorstRating;
     private TextView tvTourName, tvTotalReviews;
+    private LinearLayout llRatingBars;
     
-    private String tourName;
+    private String tourId, tourName;
+    private RatingStats ratingStats;
     private List<DatabaseHelper.Review> allReviews;
     private List<DatabaseHelper.Review> filteredReviews;
+    private String currentFilter = "all";
+    // La reparación del histograma se pide una sola vez por pantalla
+    private boolean ratingRebuildRequested;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -58,9 +70,12 @@ public class AllReviewsActivity extends AppCompatActivity {
         seedReviews();
         setupRecyclerView();
         setupFilters();
+        loadRatingStats();
+        loadReviews();
     }
 
     private void getIntentData() {
+        tourId = getIntent().getStringExtra("tour_id");
         tourName = getIntent().getStringExtra("tour_name");
         if (tourName == null) tourName = "Tour Increíble";
     }
@@ -77,12 +92,22 @@ public class AllReviewsActivity extends AppCompatActivity {
     private void initializeViews() {
         rvReviews = findViewById(R.id.rv_reviews);
         chipGroupFilter = findViewById(R.id.chip_group_filter);
+        chipAll = findViewById(R.id.chip_all);
+        chipBestRating = findViewById(R.id.chip_best_rating);
+        chipWorstRating = findViewById(R.id.chip_worst_rating);
         tvTourName = findViewById(R.id.tv_tour_name);
         tvTotalReviews = findViewById(R.id.tv_total_reviews);
+        llRatingBars = findViewById(R.id.ll_rating_bars);
     }
 
     private void seedReviews() {
         allReviews = new ArrayList<>();
+        filteredReviews = new ArrayList<>();
+        if (tourId != null) {
+            // Con un tour real la lista y los filtros usan solo sus reseñas (loadReviews)
+            updateTotalReviewsLabel();
+            return;
+        }
         
         // Reseñas para diferentes tours
         allReviews.add(new DatabaseHelper.Review("Ana García", "A", 5.0, 
@@ -142,9 +167,51 @@ public class AllReviewsActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Reseñas reales del tour: reemplazan a las de ejemplo y quedan indexadas para la búsqueda local
+     */
+    private void loadReviews() {
+        if (tourId == null) return;
+
+        FirestoreManager.getInstance().getReviewsByTour(tourId, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                @SuppressWarnings("unchecked")
+                List<Review> reviews = (List<Review>) result;
+                if (isDestroyed()) return;
+                com.example.droidtour.firebase.ReadModelSyncManager.getInstance(AllReviewsActivity.this).cacheReviews(reviews);
+
+                allReviews.clear();
+                for (Review review : reviews) {
+                    String userName = review.getUserName() != null && !review.getUserName().isEmpty() ? review.getUserName() : "Cliente";
+                    String initial = review.getUserInitial() != null ? review.getUserInitial() : userName.substring(0, 1);
+                    String date = review.getCreatedAt() != null
+                            ? android.text.format.DateUtils.getRelativeTimeSpanString(review.getCreatedAt().getTime()).toString()
+                            : "";
+                    allReviews.add(new DatabaseHelper.Review(userName, initial,
+                            review.getRating() != null ? review.getRating() : 0, review.getReviewText(), date, tourName));
+                }
+                applyFilter(currentFilter);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Toast.makeText(AllReviewsActivity.this, "No se pudieron cargar las reseñas", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     private void applyFilter(String filterType) {
+        currentFilter = filterType;
         filteredReviews.clear();
-        filteredReviews.addAll(allReviews);
+        
+        // Mismos cortes que los conteos de los chips (estrellas enteras del histograma)
+        for (DatabaseHelper.Review review : allReviews) {
+            int stars = RatingStats.starsOf((float) review.getRating());
+            if ("best_rating".equals(filterType) && stars < 4) continue;
+            if ("worst_rating".equals(filterType) && stars > 2) continue;
+            filteredReviews.add(review);
+        }
         
         if ("best_rating".equals(filterType)) {
             Collections.sort(filteredReviews, (r1, r2) -> Double.compare(r2.getRating(), r1.getRating()));
@@ -158,7 +225,125 @@ public class AllReviewsActivity extends AppCompatActivity {
 
     private void updateTotalReviewsLabel() {
         tvTourName.setText(tourName);
-        tvTotalReviews.setText(filteredReviews.size() + " reseñas encontradas");
+        if (ratingStats != null && ratingStats.getTotalReviews() > 0) {
+            tvTotalReviews.setText(String.format(java.util.Locale.getDefault(), "⭐ %.1f • %d reseñas",
+                    ratingStats.getAverage(), ratingStats.getTotalReviews()));
+        } else {
+            tvTotalReviews.setText(filteredReviews.size() + " reseñas encontradas");
+        }
+    }
+
+    /**
+     * Promedio e histograma desde el documento del tour (sin recorrer las reseñas)
+     */
+    private void loadRatingStats() {
+        if (tourId == null) return;
+
+        FirestoreManager.getInstance().getTour(tourId, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                Tour tour = (Tour) result;
+                ratingStats = RatingStats.fromFields(tour.getRatingSum(), tour.getTotalReviews(),
+                        tour.getAverageRating(), tour.getRatingHistogram());
+                onRatingStatsChanged();
+                if (!isHistogramComplete()) {
+                    rebuildRatingStats();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // Se mantiene el conteo de la lista
+            }
+        });
+    }
+
+    /**
+     * Tour anterior al histograma (o con datos desfasados): recalcularlo desde sus reseñas
+     */
+    private void rebuildRatingStats() {
+        if (ratingRebuildRequested) return;
+        ratingRebuildRequested = true;
+        FirestoreManager.getInstance().rebuildTourRatingStats(tourId, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                if (isDestroyed()) return;
+                ratingStats = (RatingStats) result;
+                onRatingStatsChanged();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // Sin barras: el histograma sigue incompleto
+            }
+        });
+    }
+
+    private void onRatingStatsChanged() {
+        updateTotalReviewsLabel();
+        updateFilterChips();
+        renderRatingBars();
+    }
+
+    /**
+     * El histograma cuenta todas las reseñas del tour (en tours antiguos empieza vacío)
+     */
+    private boolean isHistogramComplete() {
+        return ratingStats != null && ratingStats.getTotalReviews() > 0
+                && ratingStats.getHistogramTotal() == ratingStats.getTotalReviews();
+    }
+
+    /**
+     * Conteos de los filtros desde las estadísticas del tour
+     */
+    private void updateFilterChips() {
+        if (!isHistogramComplete()) {
+            chipAll.setText("Todas");
+            chipBestRating.setText("Mejor Calificación");
+            chipWorstRating.setText("Menor Calificación");
+            return;
+        }
+        chipAll.setText("Todas (" + ratingStats.getTotalReviews() + ")");
+        chipBestRating.setText("Mejor Calificación (" + ratingStats.getCountAtLeast(4) + ")");
+        chipWorstRating.setText("Menor Calificación (" + (ratingStats.getTotalReviews() - ratingStats.getCountAtLeast(3)) + ")");
+    }
+
+    private void renderRatingBars() {
+        llRatingBars.removeAllViews();
+        if (!isHistogramComplete()) {
+            llRatingBars.setVisibility(android.view.View.GONE);
+            return;
+        }
+
+        for (int stars = RatingStats.MAX_STARS; stars >= RatingStats.MIN_STARS; stars--) {
+            LinearLayout row = new LinearLayout(this);
+            row.setOrientation(LinearLayout.HORIZONTAL);
+            row.setGravity(android.view.Gravity.CENTER_VERTICAL);
+
+            TextView label = new TextView(this);
+            label.setText(stars + " ★");
+            label.setMinWidth(dp(36));
+
+            ProgressBar bar = new ProgressBar(this, null, android.R.attr.progressBarStyleHorizontal);
+            bar.setMax(100);
+            bar.setProgress((int) Math.round(ratingStats.getShare(stars) * 100));
+            LinearLayout.LayoutParams barParams = new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.WRAP_CONTENT, 1f);
+            barParams.setMarginEnd(dp(8));
+
+            TextView count = new TextView(this);
+            count.setText(String.valueOf(ratingStats.getCount(stars)));
+            count.setMinWidth(dp(32));
+
+            row.addView(label);
+            row.addView(bar, barParams);
+            row.addView(count);
+            llRatingBars.addView(row);
+        }
+        llRatingBars.setVisibility(android.view.View.VISIBLE);
+    }
+
+    private int dp(int value) {
+        return Math.round(value * getResources().getDisplayMetrics().density);
     }
 
     @Override
@@ -2,6 +2,8 @@ package com.example.droidtour;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.MenuItem;
 import android.view.LayoutInflater;
 import android.widget.TextView;
@@ -16,10 +18,14 @@ import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.textfield.TextInputEditText;
+import com.example.droidtour.firebase.CatalogPage;
 import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.firebase.ReadModelSyncManager;
 import com.example.droidtour.models.Company;
+import com.example.droidtour.utils.PagingScrollListener;
+import com.example.droidtour.utils.SearchIndex;
+import com.google.firebase.firestore.DocumentSnapshot;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class CompaniesListActivity extends AppCompatActivity {
@@ -28,9 +34,20 @@ public class CompaniesListActivity extends AppCompatActivity {
     private CompaniesAdapter companiesAdapter;
     private TextInputEditText etSearch;
     private ChipGroup chipGroupFilter;
-    private List<Company> allCompanies;
     private List<Company> filteredCompanies;
+    // Empresas de las páginas cargadas e índice para el buscador
+    private final List<Company> allCompanies = new ArrayList<>();
+    private final SearchIndex<Company> searchIndex = new SearchIndex<>();
     private FirestoreManager firestoreManager;
+    private ReadModelSyncManager readModel;
+
+    // Paginación por cursor (el orden lo aplica Firestore)
+    private static final int PAGE_SIZE = FirestoreManager.CATALOG_PAGE_SIZE;
+    private String currentSort = FirestoreManager.SORT_DEFAULT;
+    private DocumentSnapshot lastCompanyDocument;
+    private boolean loadingPage;
+    private boolean hasMorePages = true;
+    private int pageRequestId;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -59,15 +76,16 @@ public class CompaniesListActivity extends AppCompatActivity {
 
         // Inicializar Firebase
         firestoreManager = FirestoreManager.getInstance();
+        readModel = ReadModelSyncManager.getInstance(this);
         
         // Inicializar listas
-        allCompanies = new ArrayList<>();
         filteredCompanies = new ArrayList<>();
 
         setupToolbar();
         initializeViews();
         setupRecyclerView();
         setupFilters();
+        bindSearch();
         
         // 🔥 Cargar empresas desde Firestore
         loadCompaniesFromFirestore();
@@ -89,25 +107,61 @@ public class CompaniesListActivity extends AppCompatActivity {
     }
 
     /**
-     * 🔥 Cargar empresas desde Firestore
+     * 🔥 Cargar empresas desde Firestore, una página a la vez en el orden elegido
      */
     private void loadCompaniesFromFirestore() {
-        firestoreManager.getCompanies(new FirestoreManager.FirestoreCallback() {
+        int requestId = ++pageRequestId;
+        lastCompanyDocument = null;
+        hasMorePages = true;
+
+        // Primera página desde SQLite mientras llega la del servidor
+        readModel.getCachedCompaniesPage(currentSort, PAGE_SIZE, new FirestoreManager.FirestoreCallback() {
             @Override
             public void onSuccess(Object result) {
-                allCompanies = (List<Company>) result;
-                filteredCompanies.clear();
-                filteredCompanies.addAll(allCompanies);
-                companiesAdapter.notifyDataSetChanged();
-                
-                if (allCompanies.isEmpty()) {
-                    Toast.makeText(CompaniesListActivity.this, 
-                        "No hay empresas registradas", Toast.LENGTH_SHORT).show();
+                List<Company> cached = (List<Company>) result;
+                if (requestId != pageRequestId || lastCompanyDocument != null || cached.isEmpty()) return;
+                replaceCompanies(cached);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // Sin caché: se espera la página del servidor
+            }
+        });
+
+        loadNextCompaniesPage(requestId);
+    }
+
+    private void loadNextCompaniesPage(int requestId) {
+        boolean firstPage = lastCompanyDocument == null;
+        loadingPage = true;
+        firestoreManager.getCompaniesPage(currentSort, PAGE_SIZE, lastCompanyDocument, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                if (requestId != pageRequestId) return;
+                loadingPage = false;
+                CatalogPage<Company> page = (CatalogPage<Company>) result;
+                if (page.getLastDocument() != null) lastCompanyDocument = page.getLastDocument();
+                hasMorePages = page.hasMore();
+                readModel.cacheCompanies(page.getItems());
+
+                if (firstPage) {
+                    replaceCompanies(page.getItems());
+
+                    if (allCompanies.isEmpty()) {
+                        Toast.makeText(CompaniesListActivity.this, 
+                            "No hay empresas registradas", Toast.LENGTH_SHORT).show();
+                    }
+                } else {
+                    appendCompanies(page.getItems());
                 }
             }
 
             @Override
             public void onFailure(Exception e) {
+                if (requestId != pageRequestId) return;
+                loadingPage = false;
+                hasMorePages = false;
                 Toast.makeText(CompaniesListActivity.this, 
                     "Error cargando empresas: " + e.getMessage(), Toast.LENGTH_LONG).show();
                 android.util.Log.e("CompaniesListActivity", "Error loading companies", e);
@@ -116,9 +170,17 @@ public class CompaniesListActivity extends AppCompatActivity {
     }
 
     private void setupRecyclerView() {
-        rvCompanies.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        rvCompanies.setLayoutManager(layoutManager);
         companiesAdapter = new CompaniesAdapter(filteredCompanies, this::onCompanyClick);
         rvCompanies.setAdapter(companiesAdapter);
+
+        // Pedir la siguiente página antes de llegar al final
+        rvCompanies.addOnScrollListener(new PagingScrollListener(layoutManager, new PagingScrollListener.PageLoader() {
+            @Override public boolean isLoading() { return loadingPage; }
+            @Override public boolean hasMore() { return hasMorePages; }
+            @Override public void loadNextPage() { loadNextCompaniesPage(pageRequestId); }
+        }));
     }
 
     private void setupFilters() {
@@ -127,55 +189,87 @@ public class CompaniesListActivity extends AppCompatActivity {
                 int checkedId = checkedIds.get(0);
                 
                 if (checkedId == R.id.chip_all) {
-                    applyFilter("all");
+                    applyFilter(FirestoreManager.SORT_DEFAULT);
                 } else if (checkedId == R.id.chip_best_rated) {
-                    applyFilter("best_rated");
+                    applyFilter(FirestoreManager.SORT_BEST_RATED);
                 } else if (checkedId == R.id.chip_most_tours) {
-                    applyFilter("most_tours");
+                    applyFilter(FirestoreManager.SORT_MOST_TOURS);
                 } else if (checkedId == R.id.chip_best_price) {
-                    applyFilter("best_price");
+                    applyFilter(FirestoreManager.SORT_BEST_PRICE);
                 }
             }
         });
     }
 
-    private void applyFilter(String filterType) {
+    /**
+     * El orden lo aplica Firestore: cambiar de criterio vuelve a la primera página
+     */
+    private void applyFilter(String sortMode) {
+        if (sortMode.equals(currentSort)) return;
+        currentSort = sortMode;
+        loadCompaniesFromFirestore();
+    }
+
+    private void bindSearch() {
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
+            @Override public void afterTextChanged(Editable s) {
+                applySearch();
+            }
+        });
+    }
+
+    private void replaceCompanies(List<Company> companies) {
+        allCompanies.clear();
+        searchIndex.clear();
+        appendToIndex(companies);
+        applySearch();
+    }
+
+    /**
+     * Agregar una página: sin búsqueda solo se insertan las filas nuevas
+     */
+    private void appendCompanies(List<Company> page) {
+        appendToIndex(page);
+        if (currentQuery().isEmpty()) {
+            int start = filteredCompanies.size();
+            filteredCompanies.addAll(page);
+            companiesAdapter.notifyItemRangeInserted(start, page.size());
+        } else {
+            applySearch();
+        }
+    }
+
+    private void appendToIndex(List<Company> companies) {
+        for (Company company : companies) {
+            allCompanies.add(company);
+            String key = company.getCompanyId() != null ? company.getCompanyId() : "@" + allCompanies.size();
+            searchIndex.put(key, company, company.getName(), company.getCity(), company.getCountry(),
+                    company.getAddress(), company.getDescription());
+        }
+    }
+
+    /**
+     * Búsqueda sobre las páginas ya cargadas; con texto, de la más a la menos relevante
+     */
+    private void applySearch() {
+        String query = currentQuery();
         filteredCompanies.clear();
-        
-        switch (filterType) {
-            case "all":
-                filteredCompanies.addAll(allCompanies);
-                break;
-            case "best_rated":
-                filteredCompanies.addAll(allCompanies);
-                Collections.sort(filteredCompanies, (c1, c2) -> {
-                    Double rating1 = c1.getAverageRating() != null ? c1.getAverageRating() : 0.0;
-                    Double rating2 = c2.getAverageRating() != null ? c2.getAverageRating() : 0.0;
-                    return Double.compare(rating2, rating1);
-                });
-                break;
-            case "most_tours":
-                filteredCompanies.addAll(allCompanies);
-                Collections.sort(filteredCompanies, (c1, c2) -> {
-                    Integer tours1 = c1.getTotalTours() != null ? c1.getTotalTours() : 0;
-                    Integer tours2 = c2.getTotalTours() != null ? c2.getTotalTours() : 0;
-                    return Integer.compare(tours2, tours1);
-                });
-                break;
-            case "best_price":
-                // Ordenar por rating como alternativa (Firebase Company no tiene priceFrom)
-                filteredCompanies.addAll(allCompanies);
-                Collections.sort(filteredCompanies, (c1, c2) -> {
-                    Double rating1 = c1.getAverageRating() != null ? c1.getAverageRating() : 0.0;
-                    Double rating2 = c2.getAverageRating() != null ? c2.getAverageRating() : 0.0;
-                    return Double.compare(rating2, rating1);
-                });
-                break;
+        if (query.isEmpty()) {
+            filteredCompanies.addAll(allCompanies);
+        } else {
+            filteredCompanies.addAll(searchIndex.search(query, allCompanies.size()));
         }
-        
         companiesAdapter.notifyDataSetChanged();
     }
 
+    /** Texto buscado, o vacío si no tiene palabras */
+    private String currentQuery() {
+        String text = etSearch.getText() != null ? etSearch.getText().toString() : "";
+        return SearchIndex.tokenize(text).isEmpty() ? "" : text;
+    }
+
     private void onCompanyClick(int position) {
         Company company = filteredCompanies.get(position);
         Intent intent = new Intent(this, ToursCatalogActivity.class);
@@ -0,0 +1,82 @@
+package com.example.droidtour;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Process;
+import android.os.StrictMode;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.droidtour.utils.PreferencesManager;
+
+/**
+ * Arranque de la app: empieza a cargar las preferencias antes de la primera pantalla, y cuando la
+ * última pantalla visible se detiene (la app pasa a segundo plano) vigila en segundo plano que
+ * terminen de escribirse.
+ *
+ * En debug activa StrictMode (lecturas/escrituras a disco en el hilo principal van al log) y
+ * registra cuánto tardó la primera pantalla en quedar visible desde que arrancó el proceso.
+ */
+public class DroidTourApplication extends Application {
+    private static final String TAG = "DroidTourApplication";
+    private static final long PREFS_FLUSH_TIMEOUT_MS = 500;
+
+    private int startedActivities;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (BuildConfig.DEBUG) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .build());
+            logStartupTime();
+        }
+        PreferencesManager.preload(this);
+        flushPreferencesInBackground();
+    }
+
+    private void flushPreferencesInBackground() {
+        registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityStarted(Activity activity) {
+                startedActivities++;
+            }
+
+            @Override
+            public void onActivityStopped(Activity activity) {
+                startedActivities--;
+                if (startedActivities == 0 && !activity.isChangingConfigurations()) {
+                    PreferencesManager.flushInBackground(PREFS_FLUSH_TIMEOUT_MS);
+                }
+            }
+
+            @Override public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+            @Override public void onActivityResumed(Activity activity) {}
+            @Override public void onActivityPaused(Activity activity) {}
+            @Override public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+            @Override public void onActivityDestroyed(Activity activity) {}
+        });
+    }
+
+    private void logStartupTime() {
+        registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityResumed(Activity activity) {
+                long elapsed = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+                Log.d(TAG, "Arranque: " + activity.getClass().getSimpleName() + " visible en " + elapsed + " ms");
+                unregisterActivityLifecycleCallbacks(this);
+            }
+
+            @Override public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+            @Override public void onActivityStarted(Activity activity) {}
+            @Override public void onActivityPaused(Activity activity) {}
+            @Override public void onActivityStopped(Activity activity) {}
+            @Override public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+            @Override public void onActivityDestroyed(Activity activity) {}
+        });
+    }
+}
@@ -255,9 +255,7 @@ public class GuideCreatePasswordActivity extends AppCompatActivity {
                 new com.example.droidtour.utils.PreferencesManager(this);
 
         String fullName = nombres + " " + apellidos;
-        prefsManager.saveUserData(userId, fullName, correo, telefono, "GUIDE");
-        prefsManager.guardarUltimoLogin(System.currentTimeMillis());
-        prefsManager.marcarPrimeraVezCompletada();
+        prefsManager.saveLogin(userId, fullName, correo, telefono, "GUIDE");
     }
 
     private void redirectToApprovalPending() {
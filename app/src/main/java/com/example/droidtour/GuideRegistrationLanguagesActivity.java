@@ -317,9 +317,7 @@ public class GuideRegistrationLanguagesActivity extends AppCompatActivity {
         com.example.droidtour.utils.PreferencesManager prefsManager =
                 new com.example.droidtour.utils.PreferencesManager(this);
 
-        prefsManager.saveUserData(userId, fullName, email, phone, userType);
-        prefsManager.guardarUltimoLogin(System.currentTimeMillis());
-        prefsManager.marcarPrimeraVezCompletada();
+        prefsManager.saveLogin(userId, fullName, email, phone, userType);
     }
 
     private void redirectToApprovalPending() {
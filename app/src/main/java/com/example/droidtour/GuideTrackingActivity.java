@@ -3,16 +3,25 @@ package com.example.droidtour;
 import android.content.Intent;
 import android.os.Bundle;
 import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.droidtour.LoginActivity;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.firebase.TourTrackingManager;
+import com.example.droidtour.tracking.LivePosition;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class GuideTrackingActivity extends AppCompatActivity {
     
     private MaterialCardView cardMap;
@@ -20,6 +29,8 @@ public class GuideTrackingActivity extends AppCompatActivity {
     private TextView tvActiveCount;
     private FloatingActionButton fabFilter;
     private com.example.droidtour.utils.PreferencesManager prefsManager;
+    private ActiveGuidesAdapter adapter;
+    private ListenerRegistration activeToursListener;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -79,13 +90,78 @@ public class GuideTrackingActivity extends AppCompatActivity {
     
     private void setupRecyclerView() {
         rvActiveGuides.setLayoutManager(new LinearLayoutManager(this));
-        // TODO: Configurar adapter para lista de guías activos
+        adapter = new ActiveGuidesAdapter(this::openInMaps);
+        rvActiveGuides.setAdapter(adapter);
     }
     
     private void loadActiveGuides() {
-        // TODO: Cargar datos de guías activos desde base de datos
-        // Por ahora mostrar datos de prueba
-        tvActiveCount.setText("3 activos");
+        tvActiveCount.setText("0 activos");
+        FirestoreManager.getInstance().getUserById(prefsManager.getUserId(), new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                com.example.droidtour.models.User user = (com.example.droidtour.models.User) result;
+                if (isFinishing() || isDestroyed()) return;
+                if (user == null || user.getCompanyId() == null) {
+                    Toast.makeText(GuideTrackingActivity.this, "No se encontró la empresa", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                listenToActiveTours(user.getCompanyId());
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                android.util.Log.e("GuideTracking", "Error obteniendo usuario", e);
+            }
+        });
+    }
+
+    /**
+     * Una sola suscripción a la última posición de cada tour en curso (no al recorrido completo)
+     */
+    private void listenToActiveTours(String companyId) {
+        if (activeToursListener != null) {
+            activeToursListener.remove();
+        }
+        activeToursListener = TourTrackingManager.getInstance().listenToActiveTours(companyId, new FirestoreManager.FirestoreCallback() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onSuccess(Object result) {
+                List<LivePosition> positions = (List<LivePosition>) result;
+                tvActiveCount.setText(positions.size() + (positions.size() == 1 ? " activo" : " activos"));
+                adapter.setPositions(positions);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Toast.makeText(GuideTrackingActivity.this, "Error cargando guías activos", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void openInMaps(LivePosition position) {
+        if (!position.hasPosition()) {
+            Toast.makeText(this, "El guía aún no comparte su ubicación", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String label = position.getGuideName() != null ? position.getGuideName() : "Guía";
+        android.net.Uri uri = android.net.Uri.parse(String.format(java.util.Locale.US, "geo:%f,%f?q=%f,%f(%s)",
+                position.getLatitude(), position.getLongitude(),
+                position.getLatitude(), position.getLongitude(), android.net.Uri.encode(label)));
+        Intent intent = new Intent(Intent.ACTION_VIEW, uri);
+        if (intent.resolveActivity(getPackageManager()) != null) {
+            startActivity(intent);
+        } else {
+            Toast.makeText(this, "No hay una app de mapas instalada", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (activeToursListener != null) {
+            activeToursListener.remove();
+            activeToursListener = null;
+        }
     }
     
     @Override
@@ -103,3 +179,74 @@ public class GuideTrackingActivity extends AppCompatActivity {
         startActivity(intent);
     }
 }
+
+class ActiveGuidesAdapter extends RecyclerView.Adapter<ActiveGuidesAdapter.ViewHolder> {
+    interface OnLocateListener { void onLocate(LivePosition position); }
+
+    // Sin posición en los últimos 5 minutos se muestra en naranja
+    private static final long STALE_AFTER_MS = 5 * 60_000;
+
+    private final List<LivePosition> positions = new ArrayList<>();
+    private final OnLocateListener onLocate;
+
+    ActiveGuidesAdapter(OnLocateListener onLocate) {
+        this.onLocate = onLocate;
+    }
+
+    void setPositions(List<LivePosition> newPositions) {
+        positions.clear();
+        positions.addAll(newPositions);
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View view = android.view.LayoutInflater.from(parent.getContext()).inflate(R.layout.item_active_guide, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        LivePosition item = positions.get(position);
+        holder.tvGuideName.setText(item.getGuideName() != null ? item.getGuideName() : "Guía");
+        holder.tvTourName.setText(item.getTourName() != null ? item.getTourName() : "Tour");
+
+        if (item.hasPosition()) {
+            long ageMs = System.currentTimeMillis() - item.getFixTime().getTime();
+            long minutes = Math.max(0, ageMs / 60_000);
+            holder.tvCurrentLocation.setText(String.format(java.util.Locale.US, "%.4f, %.4f%s",
+                    item.getLatitude(), item.getLongitude(), item.isStationary() ? " • detenido" : ""));
+            holder.tvLastUpdate.setText(minutes == 0 ? "Ahora" : "Hace " + minutes + " min");
+            holder.viewStatusIndicator.setBackgroundResource(ageMs > STALE_AFTER_MS ? R.drawable.circle_orange : R.drawable.circle_green);
+        } else {
+            holder.tvCurrentLocation.setText("Sin ubicación aún");
+            holder.tvLastUpdate.setText("--");
+            holder.viewStatusIndicator.setBackgroundResource(R.drawable.circle_light_gray);
+        }
+
+        holder.ivLocateGuide.setOnClickListener(v -> onLocate.onLocate(item));
+        holder.ivContactGuide.setOnClickListener(v ->
+                Toast.makeText(v.getContext(), "Contactar a " + holder.tvGuideName.getText(), Toast.LENGTH_SHORT).show());
+    }
+
+    @Override
+    public int getItemCount() {
+        return positions.size();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        TextView tvGuideName, tvTourName, tvCurrentLocation, tvLastUpdate;
+        View viewStatusIndicator, ivLocateGuide, ivContactGuide;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            tvGuideName = itemView.findViewById(R.id.tv_guide_name);
+            tvTourName = itemView.findViewById(R.id.tv_tour_name);
+            tvCurrentLocation = itemView.findViewById(R.id.tv_current_location);
+            tvLastUpdate = itemView.findViewById(R.id.tv_last_update);
+            viewStatusIndicator = itemView.findViewById(R.id.view_status_indicator);
+            ivLocateGuide = itemView.findViewById(R.id.iv_locate_guide);
+            ivContactGuide = itemView.findViewById(R.id.iv_contact_guide);
+        }
+    }
+}
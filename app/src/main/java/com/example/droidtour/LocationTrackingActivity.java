@@ -4,20 +4,46 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.TextView;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.droidtour.LoginActivity;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.models.Reservation;
+import com.example.droidtour.tracking.GpsFix;
+import com.example.droidtour.tracking.GuideLocationTracker;
+import com.example.droidtour.tracking.LivePosition;
+import com.example.droidtour.tracking.LocationTrackingService;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 
 public class LocationTrackingActivity extends AppCompatActivity {
 
     private RecyclerView rvLocationPoints;
-    private TextView tvTourName, tvTourProgress, tvPointsCompleted;
-    private MaterialButton btnCenterLocation;
+    private TextView tvTourName, tvTourProgress, tvPointsCompleted, tvCurrentTime, tvMapStatus;
+    private MaterialButton btnCenterLocation, btnToggleTracking;
     private com.example.droidtour.utils.PreferencesManager prefsManager;
 
+    // Seguimiento en vivo
+    private GuideLocationTracker tracker;
+    private Reservation reservation;
+    private String trackingId;
+
+    private final ActivityResultLauncher<String> locationPermissionLauncher =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
+                if (isGranted) {
+                    startTracking();
+                } else {
+                    tvMapStatus.setText("Sin permiso de ubicación: los clientes no verán tu posición");
+                    android.widget.Toast.makeText(this,
+                        "Se necesita el permiso de ubicación para compartir tu posición",
+                        android.widget.Toast.LENGTH_LONG).show();
+                }
+            });
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -54,6 +80,10 @@ public class LocationTrackingActivity extends AppCompatActivity {
         tvTourProgress = findViewById(R.id.tv_tour_progress);
         tvPointsCompleted = findViewById(R.id.tv_points_completed);
         btnCenterLocation = findViewById(R.id.btn_center_location);
+        btnToggleTracking = findViewById(R.id.btn_toggle_tracking);
+        tvCurrentTime = findViewById(R.id.tv_current_time);
+        tvMapStatus = findViewById(R.id.tv_map_status);
+        tracker = GuideLocationTracker.getInstance(this);
     }
 
     private void setupToolbar() {
@@ -78,13 +108,101 @@ public class LocationTrackingActivity extends AppCompatActivity {
         
         updateProgressCounter();
 
+        tvCurrentTime.setText(new java.text.SimpleDateFormat("hh:mm a", java.util.Locale.getDefault())
+                .format(new java.util.Date()));
+
         btnCenterLocation.setOnClickListener(v -> {
-            android.widget.Toast.makeText(this, 
-                "Centrando en tu ubicación actual", 
-                android.widget.Toast.LENGTH_SHORT).show();
+            GpsFix fix = tracker.getLastFix();
+            String message = fix != null
+                    ? "Tu ubicación: " + formatFix(fix)
+                    : "Aún no hay una ubicación disponible";
+            android.widget.Toast.makeText(this, message, android.widget.Toast.LENGTH_SHORT).show();
+        });
+
+        btnToggleTracking.setOnClickListener(v -> {
+            if (trackingId != null && tracker.isTracking(trackingId)) {
+                LocationTrackingService.stop(this);
+                updateTrackingUi(false, null, false);
+            } else {
+                requestTracking();
+            }
+        });
+
+        String reservationId = getIntent().getStringExtra("reservation_id");
+        if (reservationId != null) {
+            loadReservation(reservationId);
+        }
+    }
+
+    // ==================== SEGUIMIENTO EN VIVO ====================
+
+    private void loadReservation(String reservationId) {
+        FirestoreManager.getInstance().getReservationById(reservationId, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                reservation = (Reservation) result;
+                if (reservation.getTourId() == null || reservation.getTourDate() == null) {
+                    android.util.Log.w("LocationTracking", "Reserva sin tour o fecha: " + reservationId);
+                    return;
+                }
+                // Todas las reservas de la misma salida comparten el seguimiento
+                trackingId = LivePosition.trackingIdFor(reservation.getTourId(), reservation.getTourDate());
+                btnToggleTracking.setVisibility(View.VISIBLE);
+                requestTracking();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                android.util.Log.e("LocationTracking", "Error cargando reserva " + reservationId, e);
+            }
         });
     }
 
+    private void requestTracking() {
+        if (ContextCompat.checkSelfPermission(this, android.Manifest.permission.ACCESS_FINE_LOCATION)
+                == android.content.pm.PackageManager.PERMISSION_GRANTED) {
+            startTracking();
+        } else {
+            locationPermissionLauncher.launch(android.Manifest.permission.ACCESS_FINE_LOCATION);
+        }
+    }
+
+    private void startTracking() {
+        if (reservation == null || trackingId == null) return;
+        String guideName = reservation.getGuideName() != null ? reservation.getGuideName() : prefsManager.getUserName();
+        // El servicio en primer plano aloja el seguimiento y muestra la notificación persistente
+        LocationTrackingService.start(this, trackingId, reservation.getReservationId(),
+                reservation.getTourId(), reservation.getTourName(), reservation.getTourDate(),
+                reservation.getCompanyId(), prefsManager.getUserId(), guideName);
+        tracker.setListener((fix, stationary) -> updateTrackingUi(tracker.isTracking(trackingId), fix, stationary));
+        updateTrackingUi(true, tracker.getLastFix(), false);
+    }
+
+    private void updateTrackingUi(boolean tracking, GpsFix fix, boolean stationary) {
+        btnToggleTracking.setText(tracking ? "Dejar de compartir" : "Compartir ubicación");
+        if (!tracking) {
+            tvMapStatus.setText("Ubicación no compartida");
+        } else if (fix == null) {
+            tvMapStatus.setText("Buscando señal GPS…");
+        } else {
+            tvMapStatus.setText("📍 " + formatFix(fix) + (stationary ? " • detenido" : ""));
+        }
+    }
+
+    private String formatFix(GpsFix fix) {
+        return String.format(java.util.Locale.US, "%.5f, %.5f (±%.0f m)",
+                fix.getLatitude(), fix.getLongitude(), fix.getAccuracy());
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // El seguimiento sigue al salir de la pantalla; solo se deja de notificar a esta vista
+        if (tracker != null) {
+            tracker.setListener(null);
+        }
+    }
+
     private void updateProgressCounter() {
         RecyclerView.Adapter adapter = rvLocationPoints.getAdapter();
         if (adapter instanceof LocationPointsAdapter) {
@@ -228,15 +228,13 @@ public class LoginActivity extends AppCompatActivity {
                         Log.d(TAG, "   - Phone: " + phoneNumber);
                         Log.d(TAG, "   - UserType: " + userType);
 
-                        prefsManager.saveUserData(
+                        prefsManager.saveLogin(
                             uid, 
                             displayName != null ? displayName : user.getDisplayName(),
                             userEmail != null ? userEmail : user.getEmail(),
                             phoneNumber != null ? phoneNumber : "",
                             userType
                         );
-                        prefsManager.guardarUltimoLogin(System.currentTimeMillis());
-                        prefsManager.marcarPrimeraVezCompletada();
 
                         Log.d(TAG, "[OK] Datos guardados. Verificando...");
                         Log.d(TAG, "   - getUserId(): " + prefsManager.getUserId());
@@ -275,9 +273,7 @@ public class LoginActivity extends AppCompatActivity {
                             .addOnSuccessListener(aVoid -> {
                                 Log.d(TAG, "[OK] Usuario creado en Firestore");
                                 // Ahora guardar localmente con datos básicos
-                                prefsManager.saveUserData(uid, displayName, userEmail, "", userType);
-                                prefsManager.guardarUltimoLogin(System.currentTimeMillis());
-                                prefsManager.marcarPrimeraVezCompletada();
+                                prefsManager.saveLogin(uid, displayName, userEmail, "", userType);
                                 
                                 saveSessionToFirestore(uid, userEmail, displayName, userType);
                                 
@@ -291,9 +287,7 @@ public class LoginActivity extends AppCompatActivity {
                             .addOnFailureListener(e -> {
                                 Log.e(TAG, "[ERROR] Error creando usuario en Firestore", e);
                                 // Continuar de todos modos
-                                prefsManager.saveUserData(uid, displayName, userEmail, "", userType);
-                                prefsManager.guardarUltimoLogin(System.currentTimeMillis());
-                                prefsManager.marcarPrimeraVezCompletada();
+                                prefsManager.saveLogin(uid, displayName, userEmail, "", userType);
                                 
                                 if ("GUIDE".equals(userType)) {
                                     checkGuideApprovalStatus(uid);
@@ -313,9 +307,7 @@ public class LoginActivity extends AppCompatActivity {
                     String displayName = user.getDisplayName() != null ? user.getDisplayName() : "Usuario";
                     
                     // Guardar datos básicos pero agregar log de advertencia
-                    prefsManager.saveUserData(uid, displayName, userEmail, "", userType);
-                    prefsManager.guardarUltimoLogin(System.currentTimeMillis());
-                    prefsManager.marcarPrimeraVezCompletada();
+                    prefsManager.saveLogin(uid, displayName, userEmail, "", userType);
                     
                     Toast.makeText(LoginActivity.this, 
                         "Conexión limitada. Algunos datos pueden no estar actualizados.", 
@@ -477,9 +469,7 @@ public class LoginActivity extends AppCompatActivity {
                                             Log.w(TAG, "[WARN] No se encontro documento en Firestore para login email/password");
                                         }
 
-                                        prefsManager.saveUserData(uid, displayName, userEmail, phoneNumber, role);
-                                        prefsManager.guardarUltimoLogin(System.currentTimeMillis());
-                                        prefsManager.marcarPrimeraVezCompletada();
+                                        prefsManager.saveLogin(uid, displayName, userEmail, phoneNumber, role);
 
                                         // Guardar sesion en Firestore
                                         saveSessionToFirestore(uid, userEmail, displayName, role);
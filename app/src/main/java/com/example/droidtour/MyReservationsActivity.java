@@ -17,6 +17,7 @@ import com.example.droidtour.client.ClientQRCodesActivity;
 import com.example.droidtour.client.CompanyChatActivity;
 import com.example.droidtour.firebase.FirebaseAuthManager;
 import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.firebase.ReadModelSyncManager;
 import com.example.droidtour.models.Reservation;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
@@ -33,6 +34,7 @@ public class MyReservationsActivity extends AppCompatActivity {
     
     private FirebaseAuthManager authManager;
     private FirestoreManager firestoreManager;
+    private ReadModelSyncManager readModel;
     private String currentUserId;
     private List<Reservation> allReservations = new ArrayList<>();
     private List<Reservation> filteredReservations = new ArrayList<>();
@@ -64,6 +66,7 @@ public class MyReservationsActivity extends AppCompatActivity {
 
         authManager = FirebaseAuthManager.getInstance(this);
         firestoreManager = FirestoreManager.getInstance();
+        readModel = ReadModelSyncManager.getInstance(this);
         currentUserId = authManager.getCurrentUserId();
         
         // 🔥 TEMPORAL: Para testing sin login
@@ -90,7 +93,7 @@ public class MyReservationsActivity extends AppCompatActivity {
     }
     
     private void loadReservationsFromFirebase() {
-        firestoreManager.getReservationsByUser(currentUserId, new FirestoreManager.FirestoreCallback() {
+        readModel.getReservationsByUser(currentUserId, new FirestoreManager.FirestoreCallback() {
             @Override
             public void onSuccess(Object result) {
                 allReservations.clear();
@@ -191,7 +194,8 @@ public class MyReservationsActivity extends AppCompatActivity {
         } else if ("activas".equals(filterType)) {
             for (Reservation res : allReservations) {
                 String status = safeStatus(res.getStatus());
-                if (status.equals("CONFIRMADA") || status.equals("PENDIENTE") || status.equals("EN_CURSO")) {
+                if (status.equals("CONFIRMADA") || status.equals("PENDIENTE") || status.equals("EN_CURSO")
+                        || status.equals("EN_PROGRESO")) {
                     filteredReservations.add(res);
                 }
             }
@@ -305,7 +309,8 @@ class ReservationsAdapter extends RecyclerView.Adapter<ReservationsAdapter.ViewH
         participants.setText(reservation.getNumberOfPeople() + " personas");
         paymentMethod.setText(reservation.getPaymentMethod() != null ? reservation.getPaymentMethod() : "Visa ****1234");
         totalAmount.setText("S/. " + String.format("%.2f", reservation.getTotalPrice()));
-        reservationCode.setText("Código: " + (reservation.getQrCodeCheckIn() != null ? reservation.getQrCodeCheckIn() : "N/A"));
+        // El QR firmado es largo; el ID de reserva es lo que el guía digita en la entrada manual
+        reservationCode.setText("Código: " + (reservation.getReservationId() != null ? reservation.getReservationId() : "N/A"));
         reservationDate.setText(reservation.getTourDate());
         
         // Set status and button visibility based on status from database
@@ -356,6 +361,13 @@ class ReservationsAdapter extends RecyclerView.Adapter<ReservationsAdapter.ViewH
         });
         
         btnViewDetails.setOnClickListener(v -> {
+            // Tour en curso: ver la ubicación del guía en vivo
+            if ("EN_PROGRESO".equals(reservation.getStatus()) || "EN_CURSO".equals(reservation.getStatus())) {
+                Intent intent = new Intent(v.getContext(), RealTimeTrackingActivity.class);
+                intent.putExtra("reservation_id", reservation.getReservationId());
+                v.getContext().startActivity(intent);
+                return;
+            }
             Intent intent = new Intent(v.getContext(), TourDetailActivity.class);
             intent.putExtra("tour_id", reservation.getTourId());
             intent.putExtra("tour_name", reservation.getTourName());
@@ -1,34 +1,103 @@
 package com.example.droidtour;
 
+import android.Manifest;
 import android.content.Intent;
+import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.ImageView;
 import android.widget.TextView;
+import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.example.droidtour.LoginActivity;
+import com.example.droidtour.checkin.CheckInIndex;
+import com.example.droidtour.checkin.ScanKind;
+import com.example.droidtour.firebase.CheckInManager;
+import com.example.droidtour.firebase.FirestoreManager;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
+import com.google.zxing.BarcodeFormat;
+import com.journeyapps.barcodescanner.BarcodeCallback;
+import com.journeyapps.barcodescanner.DecoratedBarcodeView;
+import com.journeyapps.barcodescanner.DefaultDecoderFactory;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
 
 public class QRScannerActivity extends AppCompatActivity {
 
-    private TextView tvScanStatus, tvTourName;
+    // Un mismo QR frente a la cámara se decodifica varias veces por segundo
+    private static final long SAME_CODE_DEBOUNCE_MS = 2000;
+    private static final long RESULT_VISIBLE_MS = 2500;
+
+    private TextView tvScanStatus, tvTourName, tvParticipantsCount, tvScansCount;
     private MaterialButton btnManualEntry, btnContinueScanning, btnToggleFlash;
     private com.google.android.material.card.MaterialCardView cardScanResult;
+    private DecoratedBarcodeView barcodeView;
     private com.example.droidtour.utils.PreferencesManager prefsManager;
 
+    private CheckInManager checkInManager;
+    private CheckInIndex index;
+    private ScanKind scanKind;
+    private String lastPayload;
+    private long lastPayloadAt;
+    private boolean flashOn;
+
+    private final List<ScanHistoryItem> history = new ArrayList<>();
+    private ScanHistoryAdapter historyAdapter;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable hideResult = () -> cardScanResult.setVisibility(View.GONE);
+
+    private final ActivityResultLauncher<String> cameraPermissionLauncher =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), granted -> {
+                if (granted) {
+                    barcodeView.resume();
+                } else {
+                    tvScanStatus.setText("Sin permiso de cámara: usa la entrada manual");
+                    tvScanStatus.setTextColor(getColor(R.color.red));
+                }
+            });
+
+    private final BarcodeCallback barcodeCallback = result -> {
+        String payload = result.getText();
+        long now = System.currentTimeMillis();
+        if (payload == null || (payload.equals(lastPayload) && now - lastPayloadAt < SAME_CODE_DEBOUNCE_MS)) {
+            return;
+        }
+        lastPayload = payload;
+        lastPayloadAt = now;
+        onScan(payload, false);
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        
+
         // Inicializar PreferencesManager
         prefsManager = new com.example.droidtour.utils.PreferencesManager(this);
-        
+
         // Validar sesión PRIMERO
         if (!prefsManager.isLoggedIn()) {
             redirectToLogin();
             finish();
             return;
         }
-        
+
         // Validar que el usuario sea un guía
         String userType = prefsManager.getUserType();
         if (userType == null || !userType.equals("GUIDE")) {
@@ -36,80 +105,297 @@ public class QRScannerActivity extends AppCompatActivity {
             finish();
             return;
         }
-        
+
         setContentView(R.layout.activity_qr_scanner);
 
+        checkInManager = CheckInManager.getInstance(this);
+        scanKind = ScanKind.fromExtra(getIntent().getStringExtra("SCAN_TYPE"));
+
         initializeViews();
         setupToolbar();
+        setupHistory();
         setupClickListeners();
-        simulateScan();
+        setupScanner();
+        loadIndex();
     }
 
     private void initializeViews() {
         tvScanStatus = findViewById(R.id.tv_scan_status);
         tvTourName = findViewById(R.id.tv_tour_name);
+        tvParticipantsCount = findViewById(R.id.tv_participants_count);
+        tvScansCount = findViewById(R.id.tv_scans_count);
         btnManualEntry = findViewById(R.id.btn_manual_entry);
         btnContinueScanning = findViewById(R.id.btn_continue_scanning);
         btnToggleFlash = findViewById(R.id.btn_toggle_flash);
         cardScanResult = findViewById(R.id.card_scan_result);
+        barcodeView = findViewById(R.id.barcode_scanner);
+
+        String tourName = getIntent().getStringExtra("tour_name");
+        tvTourName.setText(tourName != null ? tourName : "Tour");
+        tvParticipantsCount.setText("Cargando...");
+        tvScansCount.setText("0 escaneos");
     }
 
     private void setupToolbar() {
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
+        toolbar.setTitle("Escanear " + scanKind.getLabel());
         toolbar.setNavigationOnClickListener(v -> finish());
     }
 
+    private void setupHistory() {
+        RecyclerView rvHistory = findViewById(R.id.rv_scan_history);
+        rvHistory.setLayoutManager(new LinearLayoutManager(this));
+        historyAdapter = new ScanHistoryAdapter(history);
+        rvHistory.setAdapter(historyAdapter);
+    }
+
     private void setupClickListeners() {
-        btnManualEntry.setOnClickListener(v -> {
-            // Show manual entry dialog
-            android.widget.Toast.makeText(this, 
-                "Entrada manual de código", 
-                android.widget.Toast.LENGTH_SHORT).show();
-        });
+        btnManualEntry.setOnClickListener(v -> showManualEntryDialog());
 
         btnToggleFlash.setOnClickListener(v -> {
-            // Toggle flash
-            android.widget.Toast.makeText(this, 
-                "Flash activado/desactivado", 
-                android.widget.Toast.LENGTH_SHORT).show();
+            flashOn = !flashOn;
+            if (flashOn) {
+                barcodeView.setTorchOn();
+            } else {
+                barcodeView.setTorchOff();
+            }
         });
 
         btnContinueScanning.setOnClickListener(v -> {
-            // Continue scanning more QRs
-            cardScanResult.setVisibility(android.view.View.GONE);
-            tvScanStatus.setText("Esperando QR de Check-in");
-            android.widget.Toast.makeText(this, 
-                "Listo para escanear siguiente QR", 
-                android.widget.Toast.LENGTH_SHORT).show();
+            handler.removeCallbacks(hideResult);
+            cardScanResult.setVisibility(View.GONE);
+            updateStatus();
         });
     }
 
-    private void simulateScan() {
-        // Simulate QR scan after 3 seconds
-        new android.os.Handler().postDelayed(() -> {
-            // Update status
-            tvScanStatus.setText("✓ Check-in Completado");
-            tvScanStatus.setTextColor(getColor(R.color.green));
-            
-            // Show success overlay
-            cardScanResult.setVisibility(android.view.View.VISIBLE);
-            
-            // Update history count
-            TextView tvScansCount = findViewById(R.id.tv_scans_count);
-            if (tvScansCount != null) {
-                tvScansCount.setText("4 escaneos"); // 3 + 1 nuevo
+    private void setupScanner() {
+        barcodeView.getBarcodeView().setDecoderFactory(
+                new DefaultDecoderFactory(Collections.singletonList(BarcodeFormat.QR_CODE)));
+        barcodeView.setStatusText("");
+        barcodeView.decodeContinuous(barcodeCallback);
+    }
+
+    // ==================== ÍNDICE DEL TOUR ====================
+
+    private void loadIndex() {
+        String reservationId = getIntent().getStringExtra("reservation_id");
+        if (reservationId == null) {
+            tvScanStatus.setText("Abre el escáner desde un tour activo");
+            tvScanStatus.setTextColor(getColor(R.color.red));
+            tvParticipantsCount.setText("-");
+            return;
+        }
+        tvScanStatus.setText("Preparando lista de participantes...");
+        checkInManager.preload(reservationId, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                index = (CheckInIndex) result;
+                updateStatus();
             }
-            
-            android.widget.Toast.makeText(this, 
-                "¡Check-in exitoso!", 
-                android.widget.Toast.LENGTH_SHORT).show();
-        }, 3000);
+
+            @Override
+            public void onFailure(Exception e) {
+                tvScanStatus.setText("No se pudo cargar la lista (sin conexión y sin copia guardada)");
+                tvScanStatus.setTextColor(getColor(R.color.red));
+            }
+        });
+    }
+
+    private void updateStatus() {
+        if (index == null) {
+            return;
+        }
+        int scanned = index.getScannedCount(scanKind);
+        tvParticipantsCount.setText(index.getPeopleCount() + " personas • " + scanned + "/"
+                + index.getReservationCount() + " reservas con " + scanKind.getLabel());
+        tvScanStatus.setText("Esperando QR de " + scanKind.getLabel());
+        tvScanStatus.setTextColor(getColor(R.color.orange));
+    }
+
+    // ==================== ESCANEOS ====================
+
+    private void onScan(String payload, boolean manual) {
+        if (index == null) {
+            Toast.makeText(this, "La lista de participantes aún no está lista", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        CheckInIndex.ScanResult result = manual && !payload.startsWith(com.example.droidtour.checkin.QrCodeSigner.PREFIX)
+                ? index.validateReservation(payload.trim(), scanKind, now)
+                : index.validate(payload, scanKind, now);
+
+        if (result.isAccepted()) {
+            checkInManager.record(index, result);
+        }
+        if (result.getReservation() != null) {
+            history.add(0, new ScanHistoryItem(result.getReservation().getClientName(),
+                    result.getKind() != null ? result.getKind() : scanKind, now, result.isAccepted()));
+            historyAdapter.notifyItemInserted(0);
+            tvScansCount.setText(history.size() + " escaneos");
+        }
+        showResult(result);
     }
-    
+
+    private void showResult(CheckInIndex.ScanResult result) {
+        ImageView icon = findViewById(R.id.iv_scan_result_icon);
+        TextView tvTitle = findViewById(R.id.tv_scan_result_title);
+        TextView tvMessage = findViewById(R.id.tv_scan_result_message);
+        TextView tvClientName = findViewById(R.id.tv_client_name);
+
+        CheckInIndex.Reservation reservation = result.getReservation();
+        String title;
+        String message;
+        switch (result.getStatus()) {
+            case ACCEPTED:
+                title = "¡" + scanKind.getLabel() + " Exitoso!";
+                message = reservation.getPeople() + (reservation.getPeople() == 1 ? " persona" : " personas")
+                        + (checkInManager.getPendingCount() > 0 ? " • se sincronizará al tener conexión" : "");
+                break;
+            case ALREADY_SCANNED:
+                title = scanKind.getLabel() + " ya registrado";
+                message = "Registrado a las " + formatTime(result.getPreviousScanAt());
+                break;
+            case WRONG_KIND:
+                title = "QR de " + result.getKind().getLabel();
+                message = "Este escáner está en modo " + scanKind.getLabel();
+                break;
+            case NOT_CHECKED_IN:
+                title = "Sin check-in";
+                message = "Esta reserva no registró su check-in";
+                break;
+            case INVALID_SIGNATURE:
+                title = "QR inválido";
+                message = "El código fue alterado o no es de DroidTour";
+                break;
+            default:
+                title = "No pertenece a este tour";
+                message = "La reserva no está en la lista de esta salida";
+                break;
+        }
+
+        int color = getColor(result.isAccepted() ? R.color.green : R.color.red);
+        icon.setColorFilter(color);
+        tvTitle.setText(title);
+        tvTitle.setTextColor(color);
+        tvMessage.setText(message);
+        tvClientName.setText(reservation != null && reservation.getClientName() != null ? reservation.getClientName() : "");
+        tvClientName.setVisibility(reservation != null ? View.VISIBLE : View.GONE);
+        cardScanResult.setVisibility(View.VISIBLE);
+
+        handler.removeCallbacks(hideResult);
+        handler.postDelayed(hideResult, RESULT_VISIBLE_MS);
+        updateStatus();
+    }
+
+    private void showManualEntryDialog() {
+        EditText input = new EditText(this);
+        input.setHint("Código de reserva");
+        new AlertDialog.Builder(this)
+                .setTitle("Entrada manual")
+                .setMessage("Verifica la identidad del cliente antes de registrar")
+                .setView(input)
+                .setPositiveButton("Registrar", (dialog, which) -> {
+                    String code = input.getText().toString().trim();
+                    if (!code.isEmpty()) {
+                        onScan(code, true);
+                    }
+                })
+                .setNegativeButton("Cancelar", null)
+                .show();
+    }
+
+    private static String formatTime(long time) {
+        return new SimpleDateFormat("HH:mm", Locale.getDefault()).format(new Date(time));
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (barcodeView == null) return;
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
+            barcodeView.resume();
+        } else {
+            cameraPermissionLauncher.launch(Manifest.permission.CAMERA);
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (barcodeView != null) barcodeView.pause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacksAndMessages(null);
+    }
+
     private void redirectToLogin() {
         Intent intent = new Intent(this, LoginActivity.class);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
         startActivity(intent);
     }
 }
+
+class ScanHistoryItem {
+    final String clientName;
+    final ScanKind kind;
+    final long time;
+    final boolean accepted;
+
+    ScanHistoryItem(String clientName, ScanKind kind, long time, boolean accepted) {
+        this.clientName = clientName;
+        this.kind = kind;
+        this.time = time;
+        this.accepted = accepted;
+    }
+}
+
+class ScanHistoryAdapter extends RecyclerView.Adapter<ScanHistoryAdapter.ViewHolder> {
+    private final List<ScanHistoryItem> items;
+
+    ScanHistoryAdapter(List<ScanHistoryItem> items) {
+        this.items = items;
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_scan_history, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        ScanHistoryItem item = items.get(position);
+        holder.tvClientName.setText(item.clientName != null ? item.clientName : "Cliente");
+        holder.tvScanType.setText(item.kind.getLabel());
+        holder.tvScanTime.setText("• " + new SimpleDateFormat("hh:mm a", Locale.getDefault()).format(new Date(item.time)));
+        int color = holder.itemView.getContext().getColor(item.accepted ? R.color.green : R.color.red);
+        holder.tvStatus.setText(item.accepted ? "✓" : "✗");
+        holder.tvStatus.setTextColor(color);
+        holder.viewStatus.setBackgroundResource(item.accepted ? R.drawable.circle_green : R.drawable.circle_red);
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvClientName, tvScanType, tvScanTime, tvStatus;
+        final View viewStatus;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            tvClientName = itemView.findViewById(R.id.tv_client_name);
+            tvScanType = itemView.findViewById(R.id.tv_scan_type_text);
+            tvScanTime = itemView.findViewById(R.id.tv_scan_time);
+            tvStatus = itemView.findViewById(R.id.tv_status);
+            viewStatus = itemView.findViewById(R.id.view_status_indicator);
+        }
+    }
+}
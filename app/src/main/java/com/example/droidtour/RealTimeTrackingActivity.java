@@ -10,6 +10,11 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.firebase.TourTrackingManager;
+import com.example.droidtour.models.Reservation;
+import com.example.droidtour.tracking.LivePosition;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
@@ -19,6 +24,8 @@ public class RealTimeTrackingActivity extends AppCompatActivity {
     private TextView tvCurrentLocation, tvNextDestination, tvEstimatedTime, tvParticipants;
     private RecyclerView rvTourProgress;
     private MaterialButton btnCenterMap, btnContactGuide;
+    private ListenerRegistration positionListener;
+    private LivePosition lastPosition;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -58,17 +65,106 @@ public class RealTimeTrackingActivity extends AppCompatActivity {
         // Configurar RecyclerView con progreso del tour
         rvTourProgress.setLayoutManager(new LinearLayoutManager(this));
         rvTourProgress.setAdapter(new TourProgressAdapter());
+
+        String trackingId = getIntent().getStringExtra("tracking_id");
+        String reservationId = getIntent().getStringExtra("reservation_id");
+        if (trackingId != null) {
+            listenToGuide(trackingId);
+        } else if (reservationId != null) {
+            loadReservation(reservationId);
+        }
+    }
+
+    private void loadReservation(String reservationId) {
+        tvCurrentLocation.setText("Cargando ubicación del guía…");
+        FirestoreManager.getInstance().getReservationById(reservationId, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                if (isFinishing() || isDestroyed()) return;
+                Reservation reservation = (Reservation) result;
+                if (reservation.getNumberOfPeople() != null) {
+                    tvParticipants.setText(reservation.getNumberOfPeople() + " participantes");
+                }
+                if (reservation.getTourId() == null || reservation.getTourDate() == null) {
+                    tvCurrentLocation.setText("Ubicación no disponible");
+                    return;
+                }
+                listenToGuide(LivePosition.trackingIdFor(reservation.getTourId(), reservation.getTourDate()));
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                tvCurrentLocation.setText("Ubicación no disponible");
+            }
+        });
+    }
+
+    /**
+     * Suscribirse solo a la última posición del tour (un documento), no al recorrido
+     */
+    private void listenToGuide(String trackingId) {
+        if (positionListener != null) {
+            positionListener.remove();
+        }
+        positionListener = TourTrackingManager.getInstance().listenToTour(trackingId, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                showPosition((LivePosition) result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                tvCurrentLocation.setText("Ubicación no disponible");
+            }
+        });
+    }
+
+    private void showPosition(LivePosition position) {
+        lastPosition = position;
+        if (position.getTourName() != null) {
+            getSupportActionBar().setSubtitle(position.getTourName());
+        }
+        if (!position.hasPosition()) {
+            tvCurrentLocation.setText("El guía aún no comparte su ubicación");
+            return;
+        }
+        long minutes = Math.max(0, (System.currentTimeMillis() - position.getFixTime().getTime()) / 60_000);
+        String age = minutes == 0 ? "ahora" : "hace " + minutes + " min";
+        tvCurrentLocation.setText(String.format(java.util.Locale.US, "%.5f, %.5f • %s%s",
+                position.getLatitude(), position.getLongitude(), age,
+                !position.isActive() ? " (tour finalizado)" : position.isStationary() ? " (detenido)" : ""));
     }
     
     private void setupClickListeners() {
         btnCenterMap.setOnClickListener(v -> {
-            Toast.makeText(this, "Centrando mapa en ubicación actual", Toast.LENGTH_SHORT).show();
+            if (lastPosition == null || !lastPosition.hasPosition()) {
+                Toast.makeText(this, "Centrando mapa en ubicación actual", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            android.net.Uri uri = android.net.Uri.parse(String.format(java.util.Locale.US, "geo:%f,%f?q=%f,%f",
+                    lastPosition.getLatitude(), lastPosition.getLongitude(),
+                    lastPosition.getLatitude(), lastPosition.getLongitude()));
+            android.content.Intent intent = new android.content.Intent(android.content.Intent.ACTION_VIEW, uri);
+            if (intent.resolveActivity(getPackageManager()) != null) {
+                startActivity(intent);
+            }
         });
         
         btnContactGuide.setOnClickListener(v -> {
-            Toast.makeText(this, "Contactando con guía: Carlos Mendoza", Toast.LENGTH_SHORT).show();
+            String guideName = lastPosition != null && lastPosition.getGuideName() != null
+                    ? lastPosition.getGuideName() : "Carlos Mendoza";
+            Toast.makeText(this, "Contactando con guía: " + guideName, Toast.LENGTH_SHORT).show();
         });
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (positionListener != null) {
+            positionListener.remove();
+            positionListener = null;
+        }
+    }
     
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
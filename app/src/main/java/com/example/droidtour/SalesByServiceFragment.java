@@ -15,15 +15,18 @@ import com.github.mikephil.charting.data.BarDataSet;
 import com.github.mikephil.charting.data.BarEntry;
 import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 
+import com.example.droidtour.analytics.SalesReport;
+
 import android.graphics.Color;
 import java.util.ArrayList;
 import java.util.List;
 
-public class SalesByServiceFragment extends Fragment {
+public class SalesByServiceFragment extends Fragment implements SalesReportsActivity.ReportView {
     
     private RecyclerView rvServicesSales;
     private View layoutEmptyServices;
     private BarChart barChartServices;
+    private SalesReportLinesAdapter adapter;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -31,10 +34,25 @@ public class SalesByServiceFragment extends Fragment {
         
         initializeViews(view);
         setupRecyclerView();
-        loadSalesData();
         
         return view;
     }
+
+    @Override
+    public void onViewCreated(View view, Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (getActivity() instanceof SalesReportsActivity) {
+            ((SalesReportsActivity) getActivity()).attachReportView(this);
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        if (getActivity() instanceof SalesReportsActivity) {
+            ((SalesReportsActivity) getActivity()).detachReportView(this);
+        }
+        super.onDestroyView();
+    }
     
     private void initializeViews(View view) {
         rvServicesSales = view.findViewById(R.id.rv_services_sales);
@@ -44,25 +62,25 @@ public class SalesByServiceFragment extends Fragment {
     
     private void setupRecyclerView() {
         rvServicesSales.setLayoutManager(new LinearLayoutManager(getContext()));
-        // TODO: Configurar adapter para reportes por servicio
+        adapter = new SalesReportLinesAdapter(false);
+        rvServicesSales.setAdapter(adapter);
     }
     
-    private void loadSalesData() {
-        // TODO: Cargar datos reales desde base de datos
-        // Por ahora generamos datos de ejemplo para el gráfico
-        List<String> labels = new ArrayList<>();
-        labels.add("Guía");
-        labels.add("Transporte");
-        labels.add("Entrada");
-        labels.add("Comida");
-        labels.add("Extras");
+    /**
+     * Ingresos de los tours vendidos que incluyen cada servicio (un tour suma a todos sus servicios)
+     */
+    @Override
+    public void showReport(SalesReport report) {
+        if (rvServicesSales == null) return;
+        List<SalesReport.Line> services = report.getServices();
+        adapter.setLines(services);
 
+        List<String> labels = new ArrayList<>();
         List<BarEntry> entries = new ArrayList<>();
-        entries.add(new BarEntry(0f, 1200f));
-        entries.add(new BarEntry(1f, 900f));
-        entries.add(new BarEntry(2f, 600f));
-        entries.add(new BarEntry(3f, 300f));
-        entries.add(new BarEntry(4f, 150f));
+        for (SalesReport.Line service : services) {
+            entries.add(new BarEntry(entries.size(), (float) service.getRevenue()));
+            labels.add(service.getName());
+        }
 
         if (entries.isEmpty()) {
             showEmptyState(true);
@@ -80,7 +98,6 @@ public class SalesByServiceFragment extends Fragment {
             barChartServices.setFitBars(true);
             barChartServices.getDescription().setEnabled(false);
             barChartServices.getLegend().setEnabled(false);
-            barChartServices.animateY(800);
 
             XAxis xAxis = barChartServices.getXAxis();
             xAxis.setGranularity(1f);
@@ -14,15 +14,21 @@ import com.github.mikephil.charting.data.PieDataSet;
 import com.github.mikephil.charting.data.PieEntry;
 import com.github.mikephil.charting.utils.ColorTemplate;
 
+import com.example.droidtour.analytics.SalesReport;
+
 import java.util.ArrayList;
 import java.util.List;
 import android.graphics.Color;
 
-public class SalesByTourFragment extends Fragment {
-    
+public class SalesByTourFragment extends Fragment implements SalesReportsActivity.ReportView {
+
+    // Tours con porción propia en el gráfico; el resto se agrupa en "Otros"
+    private static final int PIE_SLICES = 5;
+
     private RecyclerView rvToursSales;
     private View layoutEmptyTours;
     private PieChart pieChartTours;
+    private SalesReportLinesAdapter adapter;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -30,10 +36,25 @@ public class SalesByTourFragment extends Fragment {
         
         initializeViews(view);
         setupRecyclerView();
-        loadSalesData();
         
         return view;
     }
+
+    @Override
+    public void onViewCreated(View view, Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (getActivity() instanceof SalesReportsActivity) {
+            ((SalesReportsActivity) getActivity()).attachReportView(this);
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        if (getActivity() instanceof SalesReportsActivity) {
+            ((SalesReportsActivity) getActivity()).detachReportView(this);
+        }
+        super.onDestroyView();
+    }
     
     private void initializeViews(View view) {
         rvToursSales = view.findViewById(R.id.rv_tours_sales);
@@ -43,19 +64,32 @@ public class SalesByTourFragment extends Fragment {
     
     private void setupRecyclerView() {
         rvToursSales.setLayoutManager(new LinearLayoutManager(getContext()));
-        // TODO: Configurar adapter para reportes por tour
+        adapter = new SalesReportLinesAdapter(true);
+        rvToursSales.setAdapter(adapter);
     }
     
-    private void loadSalesData() {
-        // TODO: Cargar datos reales desde base de datos
-        // Datos de ejemplo para el pie chart
+    @Override
+    public void showReport(SalesReport report) {
+        if (rvToursSales == null) return;
+        List<SalesReport.Line> tours = report.getTours();
+        adapter.setLines(tours);
+
         List<PieEntry> entries = new ArrayList<>();
-        entries.add(new PieEntry(45f, "Cusco Tour"));
-        entries.add(new PieEntry(30f, "City Tour"));
-        entries.add(new PieEntry(15f, "Nazca"));
-        entries.add(new PieEntry(10f, "Paracas"));
+        float others = 0f;
+        for (int i = 0; i < tours.size(); i++) {
+            float revenue = (float) tours.get(i).getRevenue();
+            if (revenue <= 0f) continue;
+            if (i < PIE_SLICES) {
+                entries.add(new PieEntry(revenue, tours.get(i).getName()));
+            } else {
+                others += revenue;
+            }
+        }
+        if (others > 0f) {
+            entries.add(new PieEntry(others, "Otros"));
+        }
 
-        if (entries.isEmpty()) {
+        if (tours.isEmpty()) {
             showEmptyState(true);
         } else {
             showEmptyState(false);
@@ -68,7 +102,6 @@ public class SalesByTourFragment extends Fragment {
             pieChartTours.setData(data);
             pieChartTours.getDescription().setEnabled(false);
             pieChartTours.setUsePercentValues(false);
-            pieChartTours.animateY(800);
             pieChartTours.invalidate();
         }
     }
@@ -1,23 +1,44 @@
 package com.example.droidtour;
 
 import android.os.Bundle;
+import android.util.Log;
+import android.view.LayoutInflater;
 import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.viewpager2.widget.ViewPager2;
+import com.example.droidtour.analytics.SalesPeriod;
+import com.example.droidtour.analytics.SalesReport;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.firebase.SalesReportManager;
 import com.google.android.material.appbar.MaterialToolbar;
-import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
 
-public class SalesReportsActivity extends AppCompatActivity {
-    
+public class SalesReportsActivity extends AppCompatActivity implements SalesReportManager.ReportListener {
+    private static final String TAG = "SalesReportsActivity";
+
+    /** Fragments que muestran el reporte del período seleccionado */
+    interface ReportView {
+        void showReport(SalesReport report);
+    }
+
     private ChipGroup chipGroupPeriod;
     private TabLayout tabLayout;
     private ViewPager2 viewPager;
     private SalesReportsPagerAdapter pagerAdapter;
     private com.example.droidtour.utils.PreferencesManager prefsManager;
+    private final java.util.List<ReportView> reportViews = new java.util.ArrayList<>();
+    private String companyId;
+    private SalesPeriod selectedPeriod = SalesPeriod.DAY;
+    private SalesReport currentReport;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,6 +68,7 @@ public class SalesReportsActivity extends AppCompatActivity {
         initializeViews();
         setupPeriodFilters();
         setupViewPager();
+        loadCompany();
     }
     
     private void setupToolbar() {
@@ -62,24 +84,18 @@ public class SalesReportsActivity extends AppCompatActivity {
     }
     
     private void setupPeriodFilters() {
-        Chip chipDaily = findViewById(R.id.chip_daily);
-        Chip chipMonthly = findViewById(R.id.chip_monthly);
-        Chip chipAnnual = findViewById(R.id.chip_annual);
-        
         chipGroupPeriod.setOnCheckedChangeListener((group, checkedId) -> {
-            String selectedPeriod;
-            if (checkedId == R.id.chip_daily) {
-                selectedPeriod = "Diario";
+            SalesPeriod period;
+            if (checkedId == R.id.chip_weekly) {
+                period = SalesPeriod.WEEK;
             } else if (checkedId == R.id.chip_monthly) {
-                selectedPeriod = "Mensual";
+                period = SalesPeriod.MONTH;
             } else if (checkedId == R.id.chip_annual) {
-                selectedPeriod = "Anual";
+                period = SalesPeriod.YEAR;
             } else {
-                selectedPeriod = "Diario";
+                period = SalesPeriod.DAY;
             }
-            
-            // TODO: Actualizar datos según el período seleccionado
-            loadReportsForPeriod(selectedPeriod);
+            loadReportsForPeriod(period);
         });
     }
     
@@ -102,8 +118,85 @@ public class SalesReportsActivity extends AppCompatActivity {
         }).attach();
     }
     
-    private void loadReportsForPeriod(String period) {
-        // TODO: Cargar datos de reportes según el período seleccionado
+    /**
+     * Las ventas se leen por companyId del administrador
+     */
+    private void loadCompany() {
+        FirestoreManager.getInstance().getUserById(prefsManager.getUserId(), new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                com.example.droidtour.models.User user = (com.example.droidtour.models.User) result;
+                if (isFinishing() || isDestroyed()) return;
+                if (user == null || user.getCompanyId() == null) {
+                    Toast.makeText(SalesReportsActivity.this, "No se encontró la empresa del administrador", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                companyId = user.getCompanyId();
+                SalesReportManager.getInstance().addListener(companyId, SalesReportsActivity.this);
+                loadReportsForPeriod(selectedPeriod);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e(TAG, "Error obteniendo empresa del administrador", e);
+            }
+        });
+    }
+
+    /**
+     * Reporte del período desde SalesReportManager: al cambiar de período es un acierto de caché
+     */
+    private void loadReportsForPeriod(SalesPeriod period) {
+        selectedPeriod = period;
+        if (companyId == null) return;
+        SalesReportManager.getInstance().getReport(companyId, period, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                SalesReport report = (SalesReport) result;
+                if (isDestroyed() || report.getPeriod() != selectedPeriod) return;
+                currentReport = report;
+                for (ReportView view : new java.util.ArrayList<>(reportViews)) {
+                    view.showReport(report);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e(TAG, "Error cargando reporte de ventas", e);
+                if (!isDestroyed()) {
+                    Toast.makeText(SalesReportsActivity.this, "Error al cargar reportes", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onReportsChanged(String companyId) {
+        // Solo se rearma el reporte si el cambio cae dentro del período seleccionado
+        loadReportsForPeriod(selectedPeriod);
+    }
+
+    void attachReportView(ReportView view) {
+        reportViews.add(view);
+        if (currentReport != null) {
+            view.showReport(currentReport);
+        }
+    }
+
+    void detachReportView(ReportView view) {
+        reportViews.remove(view);
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (companyId != null) {
+            SalesReportManager.getInstance().removeListener(companyId, this);
+            // Al rotar se conserva la caché; al salir de la pantalla se dejan de escuchar las ventas
+            if (isFinishing()) {
+                SalesReportManager.getInstance().release(companyId);
+            }
+        }
+        super.onDestroy();
     }
     
     @Override
@@ -148,3 +241,61 @@ public class SalesReportsActivity extends AppCompatActivity {
         startActivity(intent);
     }
 }
+
+/**
+ * Filas de ranking (tours o servicios) de los reportes de ventas
+ */
+class SalesReportLinesAdapter extends RecyclerView.Adapter<SalesReportLinesAdapter.ViewHolder> {
+    private final boolean showRating;
+    private java.util.List<SalesReport.Line> lines = new java.util.ArrayList<>();
+
+    SalesReportLinesAdapter(boolean showRating) {
+        this.showRating = showRating;
+    }
+
+    void setLines(java.util.List<SalesReport.Line> lines) {
+        this.lines = lines;
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_sales_report, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        SalesReport.Line line = lines.get(position);
+        holder.tvRanking.setText(String.valueOf(position + 1));
+        holder.tvName.setText(line.getName());
+        StringBuilder details = new StringBuilder();
+        details.append(line.getBookings()).append(line.getBookings() == 1 ? " venta" : " ventas");
+        if (showRating && line.getRating() > 0) {
+            details.append(" • ").append(String.format(java.util.Locale.US, "%.1f★", line.getRating()));
+        }
+        details.append(" • S/. ").append(String.format("%,.0f", line.getAverageTicket())).append(" promedio");
+        holder.tvDetails.setText(details.toString());
+        holder.tvAmount.setText(String.format("S/. %,.0f", line.getRevenue()));
+        holder.tvGrowth.setVisibility(View.GONE);
+    }
+
+    @Override
+    public int getItemCount() {
+        return lines.size();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvRanking, tvName, tvDetails, tvAmount, tvGrowth;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            tvRanking = itemView.findViewById(R.id.tv_ranking);
+            tvName = itemView.findViewById(R.id.tv_item_name);
+            tvDetails = itemView.findViewById(R.id.tv_item_details);
+            tvAmount = itemView.findViewById(R.id.tv_sales_amount);
+            tvGrowth = itemView.findViewById(R.id.tv_growth_indicator);
+        }
+    }
+}
@@ -16,16 +16,22 @@ import com.github.mikephil.charting.data.LineDataSet;
 import com.github.mikephil.charting.components.XAxis;
 import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 
+import com.example.droidtour.analytics.SalesReport;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import android.graphics.Color;
 
-public class SalesSummaryFragment extends Fragment {
-    
-    private TextView tvTotalRevenue, tvTotalTours, tvAvgTicket, tvAvgRating;
+public class SalesSummaryFragment extends Fragment implements SalesReportsActivity.ReportView {
+
+    private static final int TOP_TOURS = 5;
+
+    private TextView tvTotalRevenue, tvTotalBookings, tvTotalTours, tvAvgTicket, tvAvgRating;
     private TextView tvGrossRevenue, tvPlatformFee, tvGuidePayments, tvNetRevenue;
     private RecyclerView rvTopTours;
     private LineChart lineChartTrend;
+    private SalesReportLinesAdapter topToursAdapter;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -33,13 +39,30 @@ public class SalesSummaryFragment extends Fragment {
         
         initializeViews(view);
         setupRecyclerView();
-        loadSummaryData();
+        setupTrendChart();
         
         return view;
     }
+
+    @Override
+    public void onViewCreated(View view, Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (getActivity() instanceof SalesReportsActivity) {
+            ((SalesReportsActivity) getActivity()).attachReportView(this);
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        if (getActivity() instanceof SalesReportsActivity) {
+            ((SalesReportsActivity) getActivity()).detachReportView(this);
+        }
+        super.onDestroyView();
+    }
     
     private void initializeViews(View view) {
         tvTotalRevenue = view.findViewById(R.id.tv_total_revenue);
+        tvTotalBookings = view.findViewById(R.id.tv_total_bookings);
         tvTotalTours = view.findViewById(R.id.tv_total_tours);
         tvAvgTicket = view.findViewById(R.id.tv_avg_ticket);
         tvAvgRating = view.findViewById(R.id.tv_avg_rating);
@@ -56,48 +79,67 @@ public class SalesSummaryFragment extends Fragment {
     private void setupRecyclerView() {
         rvTopTours.setLayoutManager(new LinearLayoutManager(getContext()));
         rvTopTours.setNestedScrollingEnabled(false);
-        // TODO: Configurar adapter para tours más vendidos
+        topToursAdapter = new SalesReportLinesAdapter(true);
+        rvTopTours.setAdapter(topToursAdapter);
     }
     
-    private void loadSummaryData() {
-        // TODO: Cargar datos reales desde base de datos
-        // Por ahora mostrar datos de prueba
-        tvTotalRevenue.setText("S/. 12,450");
-        tvTotalTours.setText("47");
-        tvAvgTicket.setText("S/. 265");
-        tvAvgRating.setText("4.6");
-        
-        tvGrossRevenue.setText("S/. 12,450.00");
-        tvPlatformFee.setText("S/. 1,245.00");
-        tvGuidePayments.setText("S/. 3,500.00");
-        tvNetRevenue.setText("S/. 7,705.00");
+    private void setupTrendChart() {
+        lineChartTrend.getDescription().setEnabled(false);
+        lineChartTrend.getLegend().setEnabled(false);
+        lineChartTrend.setNoDataText("Cargando ventas...");
+        XAxis xAxis = lineChartTrend.getXAxis();
+        xAxis.setGranularity(1f);
+        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+    }
+
+    @Override
+    public void showReport(SalesReport report) {
+        if (tvTotalRevenue == null) return;
+        tvTotalRevenue.setText(String.format("S/. %,.0f", report.getGrossRevenue()));
+        tvTotalBookings.setText(String.valueOf(report.getBookings()));
+        tvTotalTours.setText(String.valueOf(report.getTours().size()));
+        tvAvgTicket.setText(String.format("S/. %,.0f", report.getAverageTicket()));
+        tvAvgRating.setText(report.getAverageRating() > 0
+                ? String.format(java.util.Locale.US, "%.1f", report.getAverageRating()) : "-");
+
+        tvGrossRevenue.setText(String.format("S/. %,.2f", report.getGrossRevenue()));
+        tvPlatformFee.setText(String.format("- S/. %,.2f", report.getPlatformFee()));
+        tvGuidePayments.setText(String.format("S/. %,.2f", report.getGuidePayments()));
+        tvNetRevenue.setText(String.format("S/. %,.2f", report.getNetRevenue()));
+
+        List<SalesReport.Line> tours = report.getTours();
+        topToursAdapter.setLines(tours.subList(0, Math.min(TOP_TOURS, tours.size())));
+
+        showTrend(report);
+    }
+
+    /**
+     * Tendencia diaria de ingresos del período (solo días con ventas)
+     */
+    private void showTrend(SalesReport report) {
+        if (report.getDailyRevenue().isEmpty()) {
+            lineChartTrend.clear();
+            lineChartTrend.setNoDataText("Sin ventas en el período");
+            return;
+        }
 
-        // Datos de ejemplo para la tendencia
         List<Entry> entries = new ArrayList<>();
-        entries.add(new Entry(0f, 800f));
-        entries.add(new Entry(1f, 950f));
-        entries.add(new Entry(2f, 1200f));
-        entries.add(new Entry(3f, 1000f));
-        entries.add(new Entry(4f, 1400f));
+        List<String> labels = new ArrayList<>();
+        for (Map.Entry<String, Double> day : report.getDailyRevenue().entrySet()) {
+            entries.add(new Entry(entries.size(), day.getValue().floatValue()));
+            // "YYYY-MM-DD" -> "DD/MM"
+            labels.add(day.getKey().substring(8, 10) + "/" + day.getKey().substring(5, 7));
+        }
 
         LineDataSet set = new LineDataSet(entries, "Ingresos S/");
         set.setColor(Color.parseColor("#2196F3"));
         set.setCircleColor(Color.parseColor("#2196F3"));
         set.setLineWidth(2f);
         set.setValueTextSize(10f);
+        set.setDrawValues(entries.size() <= 10);
 
-        LineData data = new LineData(set);
-        lineChartTrend.setData(data);
-        lineChartTrend.getDescription().setEnabled(false);
-        lineChartTrend.getLegend().setEnabled(false);
-
-        String[] labels = new String[]{"Lun","Mar","Mié","Jue","Vie"};
-        XAxis xAxis = lineChartTrend.getXAxis();
-        xAxis.setValueFormatter(new IndexAxisValueFormatter(labels));
-        xAxis.setGranularity(1f);
-        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
-
-        lineChartTrend.animateY(800);
+        lineChartTrend.setData(new LineData(set));
+        lineChartTrend.getXAxis().setValueFormatter(new IndexAxisValueFormatter(labels));
         lineChartTrend.invalidate();
     }
 }
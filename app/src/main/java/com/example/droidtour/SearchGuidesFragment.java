@@ -5,29 +5,50 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
 import android.widget.Toast;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import com.bumptech.glide.Glide;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.firebase.GuideAvailabilityManager;
+import com.example.droidtour.images.ImageRequests;
+import com.example.droidtour.images.ImageSpec;
+import com.example.droidtour.models.User;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.textfield.TextInputEditText;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 
 public class SearchGuidesFragment extends Fragment {
     
+    private static final int MAX_RESULTS = 50;
+    
     private TextInputEditText etDateFrom, etDateTo;
     private MaterialButton btnSearchGuides;
     private RecyclerView rvAvailableGuides;
     private View layoutEmptyGuides;
     private List<String> selectedLanguages = new ArrayList<>();
+    private LocalDate dateFrom, dateTo;
+    private AvailableGuidesAdapter adapter;
+    private GuideAvailabilityManager availabilityManager;
+    private boolean hasSearched;
+
+    // Las ocupaciones cambian mientras se mira la lista: repetir la búsqueda es barato
+    private final GuideAvailabilityManager.AvailabilityListener availabilityListener = () -> {
+        if (hasSearched && isAdded()) runSearch(false);
+    };
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_search_guides, container, false);
         
+        availabilityManager = GuideAvailabilityManager.getInstance();
+        availabilityManager.addListener(availabilityListener);
         initializeViews(view);
         setupClickListeners(view);
         setupRecyclerView();
@@ -35,6 +56,18 @@ public class SearchGuidesFragment extends Fragment {
         return view;
     }
     
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        availabilityManager.removeListener(availabilityListener);
+    }
+    
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        availabilityManager.release();
+    }
+    
     private void initializeViews(View view) {
         etDateFrom = view.findViewById(R.id.et_date_from);
         etDateTo = view.findViewById(R.id.et_date_to);
@@ -44,8 +77,8 @@ public class SearchGuidesFragment extends Fragment {
     }
     
     private void setupClickListeners(View view) {
-        etDateFrom.setOnClickListener(v -> showDatePicker(etDateFrom));
-        etDateTo.setOnClickListener(v -> showDatePicker(etDateTo));
+        etDateFrom.setOnClickListener(v -> showDatePicker(etDateFrom, true));
+        etDateTo.setOnClickListener(v -> showDatePicker(etDateTo, false));
         
         btnSearchGuides.setOnClickListener(v -> searchGuides());
         
@@ -56,34 +89,38 @@ public class SearchGuidesFragment extends Fragment {
         Chip chipGerman = view.findViewById(R.id.chip_german);
         
         chipSpanish.setOnCheckedChangeListener((buttonView, isChecked) -> 
-            updateLanguageSelection("Español", isChecked));
+            updateLanguageSelection("es", isChecked));
         chipEnglish.setOnCheckedChangeListener((buttonView, isChecked) -> 
-            updateLanguageSelection("Inglés", isChecked));
+            updateLanguageSelection("en", isChecked));
         chipFrench.setOnCheckedChangeListener((buttonView, isChecked) -> 
-            updateLanguageSelection("Francés", isChecked));
+            updateLanguageSelection("fr", isChecked));
         chipGerman.setOnCheckedChangeListener((buttonView, isChecked) -> 
-            updateLanguageSelection("Alemán", isChecked));
+            updateLanguageSelection("de", isChecked));
     }
     
     private void setupRecyclerView() {
         rvAvailableGuides.setLayoutManager(new LinearLayoutManager(getContext()));
-        // TODO: Configurar adapter para guías disponibles
+        adapter = new AvailableGuidesAdapter(new ArrayList<>());
+        rvAvailableGuides.setAdapter(adapter);
     }
     
-    private void showDatePicker(TextInputEditText editText) {
-        Calendar calendar = Calendar.getInstance();
-        int year = calendar.get(Calendar.YEAR);
-        int month = calendar.get(Calendar.MONTH);
-        int day = calendar.get(Calendar.DAY_OF_MONTH);
+    private void showDatePicker(TextInputEditText editText, boolean isFrom) {
+        LocalDate initial = isFrom ? dateFrom : dateTo;
+        if (initial == null) initial = LocalDate.now();
         
         DatePickerDialog datePickerDialog = new DatePickerDialog(
             getContext(),
             (view, selectedYear, selectedMonth, selectedDay) -> {
-                String date = selectedDay + "/" + (selectedMonth + 1) + "/" + selectedYear;
-                editText.setText(date);
+                LocalDate date = LocalDate.of(selectedYear, selectedMonth + 1, selectedDay);
+                if (isFrom) dateFrom = date; else dateTo = date;
+                editText.setText(selectedDay + "/" + (selectedMonth + 1) + "/" + selectedYear);
             },
-            year, month, day
+            initial.getYear(), initial.getMonthValue() - 1, initial.getDayOfMonth()
         );
+        // Solo hay disponibilidad indexada para el próximo año
+        datePickerDialog.getDatePicker().setMinDate(System.currentTimeMillis() - 1000);
+        datePickerDialog.getDatePicker().setMaxDate(availabilityManager.getHorizonEnd()
+                .atStartOfDay(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
         
         datePickerDialog.show();
     }
@@ -99,10 +136,7 @@ public class SearchGuidesFragment extends Fragment {
     }
     
     private void searchGuides() {
-        String dateFrom = etDateFrom.getText().toString().trim();
-        String dateTo = etDateTo.getText().toString().trim();
-        
-        if (dateFrom.isEmpty() || dateTo.isEmpty()) {
+        if (dateFrom == null || dateTo == null) {
             Toast.makeText(getContext(), "Seleccione las fechas", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -112,9 +146,42 @@ public class SearchGuidesFragment extends Fragment {
             return;
         }
         
-        // TODO: Realizar búsqueda de guías con los filtros
-        Toast.makeText(getContext(), "Buscando guías disponibles...", Toast.LENGTH_SHORT).show();
-        showEmptyState(true);
+        if (dateTo.isBefore(dateFrom)) {
+            Toast.makeText(getContext(), "La fecha final debe ser posterior a la inicial", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        
+        if (dateFrom.isBefore(LocalDate.now()) || dateTo.isAfter(availabilityManager.getHorizonEnd())) {
+            Toast.makeText(getContext(), "Seleccione fechas dentro del próximo año", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        
+        hasSearched = true;
+        runSearch(true);
+    }
+    
+    private void runSearch(boolean showProgress) {
+        if (showProgress) {
+            Toast.makeText(getContext(), "Buscando guías disponibles...", Toast.LENGTH_SHORT).show();
+        }
+        availabilityManager.findAvailableGuides(dateFrom, dateTo, selectedLanguages, MAX_RESULTS,
+                new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                if (!isAdded()) return;
+                @SuppressWarnings("unchecked")
+                List<User> guides = (List<User>) result;
+                adapter.updateData(guides);
+                showEmptyState(guides.isEmpty());
+            }
+            
+            @Override
+            public void onFailure(Exception e) {
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), "Error al buscar guías: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                showEmptyState(true);
+            }
+        });
     }
     
     private void showEmptyState(boolean show) {
@@ -126,4 +193,85 @@ public class SearchGuidesFragment extends Fragment {
             layoutEmptyGuides.setVisibility(View.GONE);
         }
     }
+    
+    // Adapter para guías disponibles
+    private class AvailableGuidesAdapter extends RecyclerView.Adapter<AvailableGuidesAdapter.ViewHolder> {
+        
+        private List<User> guides;
+        
+        AvailableGuidesAdapter(List<User> guides) {
+            this.guides = guides;
+        }
+        
+        void updateData(List<User> newGuides) {
+            this.guides = newGuides != null ? newGuides : new ArrayList<>();
+            notifyDataSetChanged();
+        }
+        
+        @Override
+        public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_available_guide, parent, false);
+            return new ViewHolder(view);
+        }
+        
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position) {
+            User guide = guides.get(position);
+            holder.tvGuideName.setText(guide.getFullName() != null ? guide.getFullName() : "Guía");
+            
+            List<String> languages = guide.getGuideLanguages();
+            holder.tvGuideLanguages.setText(languages != null && !languages.isEmpty()
+                    ? String.join(", ", languages).toUpperCase() : "Sin idiomas registrados");
+            float rating = guide.getGuideRating() != null ? guide.getGuideRating() : 0f;
+            holder.tvGuideRating.setText(String.format(java.util.Locale.US, "%.1f", rating));
+            holder.tvGuideTours.setText("(disponible)");
+            
+            String photo = guide.getPhotoUrl();
+            if (photo != null && !photo.isEmpty()) {
+                ImageRequests.listThumbnail(Glide.with(holder.ivGuidePhoto), photo, ImageSpec.AVATAR)
+                        .into(holder.ivGuidePhoto);
+            } else {
+                Glide.with(holder.ivGuidePhoto).clear(holder.ivGuidePhoto);
+                holder.ivGuidePhoto.setImageResource(android.R.drawable.ic_menu_myplaces);
+            }
+            
+            // El envío de propuestas todavía no está disponible desde esta pantalla
+            holder.btnSendProposal.setVisibility(View.GONE);
+            holder.btnViewProfile.setOnClickListener(v -> {
+                long createdAtMillis = guide.getCreatedAt() != null ? guide.getCreatedAt().getTime() : -1;
+                com.example.droidtour.ui.UserProfileBottomSheet.newInstance(
+                        guide.getUserId() != null ? guide.getUserId() : "",
+                        guide.getFullName(),
+                        guide.getEmail(),
+                        guide.getPhoneNumber(),
+                        guide.getProfileImageUrl(),
+                        guide.getUserType(),
+                        createdAtMillis,
+                        guide.getStatus()
+                ).show(getChildFragmentManager(), "guide_profile_sheet");
+            });
+        }
+        
+        @Override
+        public int getItemCount() {
+            return guides.size();
+        }
+        
+        class ViewHolder extends RecyclerView.ViewHolder {
+            ImageView ivGuidePhoto;
+            TextView tvGuideName, tvGuideLanguages, tvGuideRating, tvGuideTours;
+            MaterialButton btnSendProposal, btnViewProfile;
+            
+            ViewHolder(View itemView) {
+                super(itemView);
+                ivGuidePhoto = itemView.findViewById(R.id.iv_guide_photo);
+                tvGuideName = itemView.findViewById(R.id.tv_guide_name);
+                tvGuideLanguages = itemView.findViewById(R.id.tv_guide_languages);
+                tvGuideRating = itemView.findViewById(R.id.tv_guide_rating);
+                tvGuideTours = itemView.findViewById(R.id.tv_guide_tours);
+                btnSendProposal = itemView.findViewById(R.id.btn_send_proposal);
+                btnViewProfile = itemView.findViewById(R.id.btn_view_profile);
+            }
+        }
+    }
 }
@@ -21,7 +21,7 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.navigation.NavigationView;
 import android.widget.TextView;
 import android.widget.Toast;
-import com.example.droidtour.managers.PrefsManager;
+import com.example.droidtour.utils.PreferencesManager;
 import com.example.droidtour.managers.FileManager;
 
 public class TourAdminMainActivity extends AppCompatActivity implements NavigationView.OnNavigationItemSelectedListener {
@@ -35,7 +35,7 @@ public class TourAdminMainActivity extends AppCompatActivity implements Navigati
     private MaterialCardView cardGuideManagement, cardGuideTracking;
 
     // Storage
-    private PrefsManager prefsManager;
+    private PreferencesManager prefsManager;
     private FileManager fileManager;
 
     @Override
@@ -44,7 +44,7 @@ public class TourAdminMainActivity extends AppCompatActivity implements Navigati
         setContentView(R.layout.activity_tour_admin_main);
 
         // Inicializar storage
-        prefsManager = new PrefsManager(this);
+        prefsManager = new PreferencesManager(this);
         fileManager = new FileManager(this);
 
         initViews();
@@ -151,7 +151,7 @@ public class TourAdminMainActivity extends AppCompatActivity implements Navigati
 
 
     private void loadUserData() {
-        // Obtener datos del usuario desde PrefsManager
+        // Obtener datos del usuario desde PreferencesManager
         String userName = prefsManager.obtenerUsuario();
         String userType = prefsManager.obtenerTipoUsuario();
 
@@ -31,7 +31,7 @@ public class TourBookingActivity extends AppCompatActivity {
     private com.example.droidtour.firebase.FirebaseAuthManager authManager;
     private com.example.droidtour.firebase.FirestoreManager firestoreManager;
     private String currentUserId;
-    private String tourId, tourName, companyId, companyName;
+    private String tourId, tourName, tourCategory, companyId, companyName;
     private double pricePerPerson;
     
     // Payment method
@@ -78,7 +78,7 @@ public class TourBookingActivity extends AppCompatActivity {
         }
 
         // Inicializar Storage Local (deprecated)
-        dbHelper = new DatabaseHelper(this);
+        dbHelper = DatabaseHelper.getInstance(this);
         notificationHelper = new NotificationHelper(this);
 
         getIntentData();
@@ -92,6 +92,7 @@ public class TourBookingActivity extends AppCompatActivity {
     private void getIntentData() {
         tourId = getIntent().getStringExtra("tour_id");
         tourName = getIntent().getStringExtra("tour_name");
+        tourCategory = getIntent().getStringExtra("tour_category");
         companyId = getIntent().getStringExtra("company_id");
         companyName = getIntent().getStringExtra("company_name");
         pricePerPerson = getIntent().getDoubleExtra("price", 85.0);
@@ -301,6 +302,7 @@ public class TourBookingActivity extends AppCompatActivity {
                 reservation.setStatus("CONFIRMADA");
                 reservation.setPaymentStatus("CONFIRMADO");
                 reservation.setSpecialRequests(comments);
+                reservation.setTourCategory(tourCategory);
                 
                 // Agregar información del método de pago
                 String last4 = selectedPaymentMethod.getCardNumber().substring(
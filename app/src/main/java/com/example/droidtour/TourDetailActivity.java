@@ -141,7 +141,7 @@ public class TourDetailActivity extends AppCompatActivity {
         android.widget.ImageView headerImage = findViewById(R.id.iv_header_image);
         if (headerImage != null) {
             Glide.with(this)
-                .load(imageUrl)
+                .load(new com.example.droidtour.images.StorageImage(imageUrl, com.example.droidtour.images.ImageSpec.TOUR_HERO))
                 .placeholder(android.R.drawable.ic_menu_gallery)
                 .centerCrop()
                 .into(headerImage);
@@ -208,6 +208,7 @@ public class TourDetailActivity extends AppCompatActivity {
         if (btnSeeAllReviews != null) {
             btnSeeAllReviews.setOnClickListener(v -> {
                 Intent intent = new Intent(this, AllReviewsActivity.class);
+                intent.putExtra("tour_id", tourId);
                 intent.putExtra("tour_name", tourName);
                 startActivity(intent);
             });
@@ -230,6 +231,7 @@ public class TourDetailActivity extends AppCompatActivity {
                 intent.putExtra("company_id", companyId);
                 intent.putExtra("company_name", companyName);
                 intent.putExtra("price", price);
+                intent.putExtra("tour_category", currentTour != null ? currentTour.getCategory() : null);
                 startActivity(intent);
             });
         }
@@ -17,10 +17,12 @@ import androidx.drawerlayout.widget.DrawerLayout;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.droidtour.database.DatabaseHelper;
+import com.example.droidtour.firebase.CountManager;
 import com.example.droidtour.firebase.FirebaseAuthManager;
 import com.example.droidtour.firebase.FirestoreManager;
-import com.example.droidtour.managers.PrefsManager;
-import com.example.droidtour.models.Notification;
+import com.example.droidtour.firebase.GuideDashboardLoader;
+import com.example.droidtour.guides.GuideDashboardState;
+import com.example.droidtour.utils.PreferencesManager;
 import com.example.droidtour.utils.NotificationHelper;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
@@ -42,7 +44,7 @@ public class TourGuideMainActivity extends AppCompatActivity {
     
     // Storage y Notificaciones
     private DatabaseHelper dbHelper;
-    private PrefsManager prefsManager;
+    private PreferencesManager prefsManager;
     private NotificationHelper notificationHelper;
     
     // Firebase
@@ -50,6 +52,10 @@ public class TourGuideMainActivity extends AppCompatActivity {
     private FirebaseAuthManager authManager;
     private String currentUserId;
     private com.example.droidtour.models.Reservation activeTourReservation;
+    private GuideDashboardLoader dashboardLoader;
+    // Listas ya pintadas, para no recrear adapters si la parte no cambió
+    private List<com.example.droidtour.models.TourOffer> renderedOffers;
+    private List<com.example.droidtour.models.Reservation> renderedUpcomingTours;
     
     // Toolbar menu elements
     private FrameLayout notificationActionLayout, avatarActionLayout;
@@ -63,13 +69,14 @@ public class TourGuideMainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_tour_guide_main);
         
         // Inicializar helpers
-        dbHelper = new DatabaseHelper(this);
-        prefsManager = new PrefsManager(this);
+        dbHelper = DatabaseHelper.getInstance(this);
+        prefsManager = new PreferencesManager(this);
         notificationHelper = new NotificationHelper(this);
         
         // Inicializar Firebase
         firestoreManager = FirestoreManager.getInstance();
         authManager = FirebaseAuthManager.getInstance(this);
+        dashboardLoader = GuideDashboardLoader.getInstance();
         currentUserId = authManager.getCurrentUserId();
         
         // Fallback a PreferencesManager
@@ -86,24 +93,14 @@ public class TourGuideMainActivity extends AppCompatActivity {
         setupRecyclerViews();
         setupClickListeners();
         
-        // Cargar datos del usuario y actualizar vistas
-        loadUserData();
-        
-        // Cargar notificaciones desde Firebase
-        loadNotificationsCount();
-        
-        // Cargar estadísticas del guía desde Firebase
-        loadGuideStats();
-        
-        // Cargar tour activo
-        loadActiveTour();
+        // Perfil, estadísticas, ofertas, tours y notificaciones se cargan en onResume
     }
     
     @Override
     protected void onResume() {
         super.onResume();
-        // ✅ RECARGAR DASHBOARD CADA VEZ QUE REGRESAS
-        setupRecyclerViews();
+        // ✅ RECARGAR DASHBOARD CADA VEZ QUE REGRESAS (lo leído hace menos de 30 s se reutiliza)
+        loadDashboard();
         // Recargar contador de notificaciones
         loadNotificationsCount();
     }
@@ -248,6 +245,7 @@ public class TourGuideMainActivity extends AppCompatActivity {
             } else if (id == R.id.nav_logout) {
                 // Handle logout - limpiar sesión correctamente
                 prefsManager.cerrarSesion();
+                dashboardLoader.clear();
 
                 // Redirigir a LoginActivity con flags para limpiar stack
                 Intent intent = new Intent(this, LoginActivity.class);
@@ -271,86 +269,8 @@ public class TourGuideMainActivity extends AppCompatActivity {
         
         LinearLayoutManager toursLayoutManager = new LinearLayoutManager(this);
         rvUpcomingTours.setLayoutManager(toursLayoutManager);
-        
-        // Cargar datos desde Firebase
-        loadPendingOffersFromFirebase();
-        loadUpcomingToursFromFirebase();
     }
     
-    /**
-     * Cargar ofertas pendientes desde Firebase
-     */
-    private void loadPendingOffersFromFirebase() {
-        if (currentUserId == null || currentUserId.isEmpty()) {
-            android.util.Log.e("TourGuideMain", "❌ Error: currentUserId es null");
-            return;
-        }
-        
-        firestoreManager.getOffersByGuide(currentUserId, new FirestoreManager.FirestoreCallback() {
-            @Override
-            public void onSuccess(Object result) {
-                List<com.example.droidtour.models.TourOffer> allOffers = 
-                    (List<com.example.droidtour.models.TourOffer>) result;
-                
-                // Filtrar solo ofertas pendientes
-                List<com.example.droidtour.models.TourOffer> pendingOffers = new java.util.ArrayList<>();
-                for (com.example.droidtour.models.TourOffer offer : allOffers) {
-                    if ("PENDIENTE".equals(offer.getStatus())) {
-                        pendingOffers.add(offer);
-                    }
-                }
-                
-                // Actualizar adapter
-                rvPendingOffers.setAdapter(new PendingOffersAdapterFirebase(pendingOffers, TourGuideMainActivity.this::onOfferClick));
-                android.util.Log.d("TourGuideMain", "✅ Ofertas pendientes cargadas: " + pendingOffers.size());
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                android.util.Log.e("TourGuideMain", "❌ Error cargando ofertas", e);
-                Toast.makeText(TourGuideMainActivity.this, 
-                    "Error al cargar ofertas", Toast.LENGTH_SHORT).show();
-            }
-        });
-    }
-    
-    /**
-     * Cargar tours programados desde Firebase
-     */
-    private void loadUpcomingToursFromFirebase() {
-        if (currentUserId == null || currentUserId.isEmpty()) {
-            android.util.Log.e("TourGuideMain", "❌ Error: currentUserId es null");
-            return;
-        }
-        
-        firestoreManager.getReservationsByGuide(currentUserId, new FirestoreManager.FirestoreCallback() {
-            @Override
-            public void onSuccess(Object result) {
-                List<com.example.droidtour.models.Reservation> allReservations = 
-                    (List<com.example.droidtour.models.Reservation>) result;
-                
-                // Filtrar solo reservas programadas/confirmadas
-                List<com.example.droidtour.models.Reservation> upcomingTours = new java.util.ArrayList<>();
-                for (com.example.droidtour.models.Reservation reservation : allReservations) {
-                    if ("CONFIRMADA".equals(reservation.getStatus()) || "PROGRAMADA".equals(reservation.getStatus())) {
-                        upcomingTours.add(reservation);
-                    }
-                }
-                
-                // Actualizar adapter
-                rvUpcomingTours.setAdapter(new UpcomingToursAdapterFirebase(upcomingTours, TourGuideMainActivity.this::onTourClick));
-                android.util.Log.d("TourGuideMain", "✅ Tours programados cargados: " + upcomingTours.size());
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                android.util.Log.e("TourGuideMain", "❌ Error cargando tours", e);
-                Toast.makeText(TourGuideMainActivity.this, 
-                    "Error al cargar tours programados", Toast.LENGTH_SHORT).show();
-            }
-        });
-    }
-
     private void setupClickListeners() {
         // Active Tour Card and Continue Button
         MaterialButton btnContinueTour = findViewById(R.id.btn_continue_tour);
@@ -454,9 +374,7 @@ public class TourGuideMainActivity extends AppCompatActivity {
                 // ✅ ACEPTAR OFERTA Y GUARDAR EN BD
                 acceptOffer(offer.getId(), offer.getTourName(), offer.getCompany(), 
                     offer.getDate(), offer.getTime(), offer.getPayment(), offer.getParticipants());
-                
-                // Recargar dashboard
-                setupRecyclerViews();
+                // acceptOffer ya recarga el dashboard
             });
 
             holder.btnReject.setOnClickListener(v -> {
@@ -563,74 +481,15 @@ public class TourGuideMainActivity extends AppCompatActivity {
     
     // ==================== STORAGE LOCAL ====================
     
-    private void loadUserData() {
-        if (currentUserId == null || currentUserId.isEmpty()) {
-            android.util.Log.e("TourGuideMain", "❌ Error: currentUserId es null");
-            return;
-        }
-        
-        // Cargar datos reales del usuario desde Firebase
-        firestoreManager.getUserById(currentUserId, new FirestoreManager.FirestoreCallback() {
-            @Override
-            public void onSuccess(Object result) {
-                com.example.droidtour.models.User user = (com.example.droidtour.models.User) result;
-                
-                // Actualizar nombre en el header del drawer
-                NavigationView navigationView = findViewById(R.id.nav_view);
-                if (navigationView != null) {
-                    View headerView = navigationView.getHeaderView(0);
-                    if (headerView != null) {
-                        TextView tvUserNameHeader = headerView.findViewById(R.id.tv_user_name_header);
-                        if (tvUserNameHeader != null) {
-                            String fullName = user.getFullName() != null ? user.getFullName() : 
-                                            (user.getFirstName() + " " + user.getLastName());
-                            // Mostrar nombre + apellido (dos primeros tokens) en el header
-                            String displayName = fullName != null ? fullName.trim() : "";
-                            String[] parts = displayName.split("\\s+");
-                            if (parts.length >= 2) {
-                                displayName = parts[0] + " " + parts[1];
-                            } else if (parts.length == 1) {
-                                displayName = parts[0];
-                            } else {
-                                displayName = "Usuario";
-                            }
-                            tvUserNameHeader.setText(displayName);
-                        }
-                    }
-                }
-
-                android.util.Log.d("TourGuideMain", "✅ Nombre del drawer actualizado desde Firebase");
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                android.util.Log.e("TourGuideMain", "❌ Error cargando usuario para drawer", e);
-                // Fallback a PreferencesManager
-                NavigationView navigationView = findViewById(R.id.nav_view);
-                if (navigationView != null) {
-                    View headerView = navigationView.getHeaderView(0);
-                    if (headerView != null) {
-                        TextView tvUserNameHeader = headerView.findViewById(R.id.tv_user_name_header);
-                        if (tvUserNameHeader != null) {
-                            String userName = prefsManager.obtenerUsuario();
-                            tvUserNameHeader.setText(userName != null && !userName.isEmpty() ? userName : "Usuario");
-                        }
-                    }
-                }
-            }
-        });
-    }
-    
     private void loadSampleDataIfNeeded() {
         // Cargar datos de ejemplo solo si la BD está vacía
-        List<DatabaseHelper.Offer> existingOffers = dbHelper.getAllOffers();
-        
-        if (existingOffers.isEmpty()) {
+        if (!dbHelper.hasOffers()) {
             // Agregar ofertas de ejemplo
-            dbHelper.addOffer("City Tour Lima Centro", "Perú Grand Travel", 
-                "25 Oct", "09:00 AM", 180.0, "PENDIENTE", 15);
-            dbHelper.addOffer("Tour Pachacamac", "Lima Explorer", 
-                "26 Oct", "08:00 AM", 200.0, "PENDIENTE", 12);
+            dbHelper.addOffers(java.util.Arrays.asList(
+                new DatabaseHelper.Offer("City Tour Lima Centro", "Perú Grand Travel",
+                    "25 Oct", "09:00 AM", 180.0, "PENDIENTE", 15),
+                new DatabaseHelper.Offer("Tour Pachacamac", "Lima Explorer",
+                    "26 Oct", "08:00 AM", 200.0, "PENDIENTE", 12)));
             
             Toast.makeText(this, "Datos de ejemplo cargados", Toast.LENGTH_SHORT).show();
             
@@ -643,8 +502,7 @@ public class TourGuideMainActivity extends AppCompatActivity {
         }
         
         // Cargar tours aceptados de ejemplo
-        List<DatabaseHelper.Tour> existingTours = dbHelper.getAllTours();
-        if (existingTours.isEmpty()) {
+        if (!dbHelper.hasTours()) {
             dbHelper.addTour("Tour Islas Palomino", "Oceanic Adventures", 
                 "27 Oct", "07:00 AM", "PROGRAMADO", 250.0, 20);
         }
@@ -669,7 +527,7 @@ public class TourGuideMainActivity extends AppCompatActivity {
             Toast.LENGTH_LONG).show();
         
         // ✅ RECARGAR DASHBOARD INMEDIATAMENTE
-        setupRecyclerViews();
+        loadDashboard();
     }
     
     // ==================== NOTIFICACIONES ====================
@@ -682,11 +540,11 @@ public class TourGuideMainActivity extends AppCompatActivity {
             return;
         }
         
-        firestoreManager.getUnreadNotifications(currentUserId, new FirestoreManager.FirestoreCallback() {
+        // Conteo por agregado en Firestore: no descarga las notificaciones
+        CountManager.getInstance(this).countUnreadNotifications(currentUserId, new FirestoreManager.FirestoreCallback() {
             @Override
             public void onSuccess(Object result) {
-                List<Notification> unreadNotifications = (List<Notification>) result;
-                notificationCount = unreadNotifications.size();
+                notificationCount = (Integer) result;
                 updateNotificationBadge();
             }
             
@@ -706,165 +564,135 @@ public class TourGuideMainActivity extends AppCompatActivity {
             350.0
         );
     }
-    
-    // ==================== ESTADÍSTICAS DEL GUÍA ====================
-    
+
+    // ==================== DASHBOARD ====================
+
     /**
-     * Cargar estadísticas del guía desde Firebase
+     * Cargar el dashboard: perfil, ofertas, próximos tours, tour activo y estadísticas llegan a un
+     * solo GuideDashboardState (lecturas compartidas y acotadas, ver GuideDashboardLoader)
      */
-    private void loadGuideStats() {
+    private void loadDashboard() {
         if (currentUserId == null || currentUserId.isEmpty()) {
             android.util.Log.e("TourGuideMain", "❌ Error: currentUserId es null");
+            cardActiveTour.setVisibility(View.GONE);
             return;
         }
-        
-        // 1. Cargar rating del guía
-        firestoreManager.getUserById(currentUserId, new FirestoreManager.FirestoreCallback() {
-            @Override
-            public void onSuccess(Object result) {
-                com.example.droidtour.models.User user = (com.example.droidtour.models.User) result;
-                Float rating = user.getGuideRating();
-                
-                if (rating != null && rating > 0) {
-                    tvGuideStatus.setText("Estado: APROBADO");
-                    // El número de tours se cargará desde las reservas
-                } else {
-                    tvGuideStatus.setText("Estado: APROBADO");
-                    tvGuideRating.setText("Calificación: ⭐ 0.0 (0 tours)");
-                }
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                android.util.Log.e("TourGuideMain", "❌ Error cargando usuario", e);
-            }
-        });
-        
-        // 2. Cargar reservas para calcular tours completados y ganancias
-        firestoreManager.getReservationsByGuide(currentUserId, new FirestoreManager.FirestoreCallback() {
-            @Override
-            public void onSuccess(Object result) {
-                List<com.example.droidtour.models.Reservation> allReservations = 
-                    (List<com.example.droidtour.models.Reservation>) result;
-                
-                final int[] completedCount = {0};
-                double totalEarnings = 0.0;
-                
-                for (com.example.droidtour.models.Reservation reservation : allReservations) {
-                    if ("COMPLETADA".equals(reservation.getStatus())) {
-                        completedCount[0]++;
-                        Double price = reservation.getTotalPrice();
-                        if (price != null) {
-                            totalEarnings += price;
-                        }
-                    }
-                }
-                
-                // Actualizar UI
-                tvCompletedTours.setText(completedCount[0] + " Tours");
-                tvMonthlyEarnings.setText(String.format("S/. %.0f", totalEarnings));
-                
-                // Actualizar rating con el número real de tours
-                firestoreManager.getUserById(currentUserId, new FirestoreManager.FirestoreCallback() {
-                    @Override
-                    public void onSuccess(Object result) {
-                        com.example.droidtour.models.User user = (com.example.droidtour.models.User) result;
-                        Float rating = user.getGuideRating();
-                        if (rating != null && rating > 0) {
-                            tvGuideRating.setText(String.format("Calificación: ⭐ %.1f (%d tours)", rating, completedCount[0]));
-                        } else {
-                            tvGuideRating.setText(String.format("Calificación: ⭐ 0.0 (%d tours)", completedCount[0]));
-                        }
-                    }
-                    
-                    @Override
-                    public void onFailure(Exception e) {
-                        tvGuideRating.setText(String.format("Calificación: ⭐ 0.0 (%d tours)", completedCount[0]));
-                    }
-                });
-                
-                android.util.Log.d("TourGuideMain", "✅ Stats: " + completedCount[0] + " tours, S/. " + totalEarnings);
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                android.util.Log.e("TourGuideMain", "❌ Error cargando reservas", e);
+        dashboardLoader.load(currentUserId, dashboardListener);
+    }
+
+    private final GuideDashboardLoader.DashboardListener dashboardListener = new GuideDashboardLoader.DashboardListener() {
+        @Override
+        public void onDashboardChanged(GuideDashboardState state) {
+            if (isFinishing() || isDestroyed()) return;
+            renderDashboard(state);
+        }
+
+        @Override
+        public void onDashboardError(String part, Exception e) {
+            if (isFinishing() || isDestroyed()) return;
+            if (GuideDashboardLoader.PART_OFFERS.equals(part)) {
+                Toast.makeText(TourGuideMainActivity.this,
+                    "Error al cargar ofertas", Toast.LENGTH_SHORT).show();
+            } else if (GuideDashboardLoader.PART_RESERVATIONS.equals(part)) {
+                Toast.makeText(TourGuideMainActivity.this,
+                    "Error al cargar tours programados", Toast.LENGTH_SHORT).show();
+                cardActiveTour.setVisibility(View.GONE);
+            } else if (GuideDashboardLoader.PART_COMPLETED.equals(part)) {
                 tvCompletedTours.setText("0 Tours");
+            } else if (GuideDashboardLoader.PART_EARNINGS.equals(part)) {
                 tvMonthlyEarnings.setText("S/. 0");
             }
-        });
+        }
+    };
+
+    /**
+     * Pintar todas las tarjetas desde el estado; las partes que aún no llegan se dejan como están
+     */
+    private void renderDashboard(GuideDashboardState state) {
+        // Header del drawer
+        String displayName = state.getDisplayName();
+        if (displayName != null) {
+            NavigationView navigationView = findViewById(R.id.nav_view);
+            View headerView = navigationView != null ? navigationView.getHeaderView(0) : null;
+            TextView tvUserNameHeader = headerView != null ? headerView.findViewById(R.id.tv_user_name_header) : null;
+            if (tvUserNameHeader != null) {
+                tvUserNameHeader.setText(displayName);
+            }
+        }
+
+        // Estadísticas
+        if (state.isProfileLoaded()) {
+            int completed = state.getCompletedTours() != null ? state.getCompletedTours() : 0;
+            tvGuideStatus.setText("Estado: APROBADO");
+            tvGuideRating.setText(String.format("Calificación: ⭐ %.1f (%d tours)", state.getRating(), completed));
+        }
+        if (state.getCompletedTours() != null) {
+            tvCompletedTours.setText(state.getCompletedTours() + " Tours");
+        }
+        if (state.getMonthEarnings() != null) {
+            tvMonthlyEarnings.setText(String.format("S/. %.0f", state.getMonthEarnings()));
+        }
+
+        // Ofertas y próximos tours: solo se cambia el adapter si llegó una lista nueva
+        List<com.example.droidtour.models.TourOffer> pendingOffers = state.getPendingOffers();
+        if (pendingOffers != null && pendingOffers != renderedOffers) {
+            renderedOffers = pendingOffers;
+            rvPendingOffers.setAdapter(new PendingOffersAdapterFirebase(pendingOffers, this::onOfferClick));
+        }
+        List<com.example.droidtour.models.Reservation> upcomingTours = state.getUpcomingTours();
+        if (upcomingTours != null && upcomingTours != renderedUpcomingTours) {
+            renderedUpcomingTours = upcomingTours;
+            rvUpcomingTours.setAdapter(new UpcomingToursAdapterFirebase(upcomingTours, this::onTourClick));
+        }
+
+        if (state.isReservationsLoaded()) {
+            renderActiveTour(state.getActiveTour(), state.getActiveTourProgress());
+        }
     }
-    
+
     /**
-     * Cargar tour activo (EN_PROGRESO) desde Firebase
+     * Tarjeta del tour EN_PROGRESO y accesos rápidos (QR, ubicación)
      */
-    private void loadActiveTour() {
-        if (currentUserId == null || currentUserId.isEmpty()) {
+    private void renderActiveTour(com.example.droidtour.models.Reservation activeTour, String progress) {
+        activeTourReservation = activeTour;
+        if (activeTour == null) {
+            // No hay tour activo, ocultar card
             cardActiveTour.setVisibility(View.GONE);
             return;
         }
-        
-        firestoreManager.getReservationsByGuide(currentUserId, new FirestoreManager.FirestoreCallback() {
-            @Override
-            public void onSuccess(Object result) {
-                List<com.example.droidtour.models.Reservation> allReservations = 
-                    (List<com.example.droidtour.models.Reservation>) result;
-                
-                // Buscar tour EN_PROGRESO
-                com.example.droidtour.models.Reservation activeTour = null;
-                for (com.example.droidtour.models.Reservation reservation : allReservations) {
-                    if ("EN_PROGRESO".equals(reservation.getStatus())) {
-                        activeTour = reservation;
-                        break;
-                    }
-                }
-                
-                final com.example.droidtour.models.Reservation finalActiveTour = activeTour;
-                
-                if (finalActiveTour != null) {
-                    activeTourReservation = finalActiveTour;
-                    cardActiveTour.setVisibility(View.VISIBLE);
-                    tvActiveTourName.setText(finalActiveTour.getTourName());
-                    tvActiveTourProgress.setText("📍 Punto 2 de 4 • Plaza de Armas"); // TODO: Dinámico
-                    
-                    btnContinueTour.setOnClickListener(v -> {
-                        // Ir a LocationTrackingActivity con el tour activo
-                        Intent intent = new Intent(TourGuideMainActivity.this, LocationTrackingActivity.class);
-                        intent.putExtra("reservation_id", finalActiveTour.getReservationId());
-                        intent.putExtra("tour_name", finalActiveTour.getTourName());
-                        startActivity(intent);
-                    });
-                    
-                    // Configurar botones de acciones rápidas
-                    cardQRScanner.setOnClickListener(v -> {
-                        Intent intent = new Intent(TourGuideMainActivity.this, QRScannerActivity.class);
-                        intent.putExtra("reservation_id", finalActiveTour.getReservationId());
-                        startActivity(intent);
-                    });
-                    
-                    cardLocationTracking.setOnClickListener(v -> {
-                        Intent intent = new Intent(TourGuideMainActivity.this, LocationTrackingActivity.class);
-                        intent.putExtra("reservation_id", finalActiveTour.getReservationId());
-                        intent.putExtra("tour_name", finalActiveTour.getTourName());
-                        startActivity(intent);
-                    });
-                    
-                    android.util.Log.d("TourGuideMain", "✅ Tour activo encontrado: " + finalActiveTour.getTourName());
-                } else {
-                    // No hay tour activo, ocultar card
-                    cardActiveTour.setVisibility(View.GONE);
-                    android.util.Log.d("TourGuideMain", "ℹ️ No hay tour activo");
-                }
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                android.util.Log.e("TourGuideMain", "❌ Error cargando tour activo", e);
-                cardActiveTour.setVisibility(View.GONE);
-            }
+
+        cardActiveTour.setVisibility(View.VISIBLE);
+        tvActiveTourName.setText(activeTour.getTourName());
+        if (progress != null) {
+            tvActiveTourProgress.setText(progress);
+            tvActiveTourProgress.setVisibility(View.VISIBLE);
+        } else {
+            tvActiveTourProgress.setVisibility(View.GONE);
+        }
+
+        btnContinueTour.setOnClickListener(v -> {
+            // Ir a LocationTrackingActivity con el tour activo
+            Intent intent = new Intent(TourGuideMainActivity.this, LocationTrackingActivity.class);
+            intent.putExtra("reservation_id", activeTour.getReservationId());
+            intent.putExtra("tour_name", activeTour.getTourName());
+            startActivity(intent);
+        });
+
+        // Configurar botones de acciones rápidas
+        cardQRScanner.setOnClickListener(v -> {
+            Intent intent = new Intent(TourGuideMainActivity.this, QRScannerActivity.class);
+            intent.putExtra("reservation_id", activeTour.getReservationId());
+            startActivity(intent);
+        });
+
+        cardLocationTracking.setOnClickListener(v -> {
+            Intent intent = new Intent(TourGuideMainActivity.this, LocationTrackingActivity.class);
+            intent.putExtra("reservation_id", activeTour.getReservationId());
+            intent.putExtra("tour_name", activeTour.getTourName());
+            startActivity(intent);
         });
     }
-    
+
     // ==================== ADAPTERS FIREBASE ====================
     
     /**
@@ -908,8 +736,8 @@ public class TourGuideMainActivity extends AppCompatActivity {
                                 Toast.makeText(TourGuideMainActivity.this, 
                                     "✅ Oferta aceptada: " + offer.getTourName(), 
                                     Toast.LENGTH_LONG).show();
-                                // Recargar ofertas
-                                loadPendingOffersFromFirebase();
+                                // Quitar la oferta y releer ofertas y tours
+                                dashboardLoader.onOfferStatusChanged(currentUserId, offer.getOfferId(), dashboardListener);
                             }
                             
                             @Override
@@ -932,8 +760,8 @@ public class TourGuideMainActivity extends AppCompatActivity {
                                 Toast.makeText(TourGuideMainActivity.this, 
                                     "Oferta rechazada", 
                                     Toast.LENGTH_SHORT).show();
-                                // Recargar ofertas
-                                loadPendingOffersFromFirebase();
+                                // Quitar la oferta y releer ofertas y tours
+                                dashboardLoader.onOfferStatusChanged(currentUserId, offer.getOfferId(), dashboardListener);
                             }
                             
                             @Override
@@ -5,14 +5,29 @@ import android.os.Bundle;
 import android.view.MenuItem;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import com.example.droidtour.admin.TourLocation;
+import com.example.droidtour.maps.ClusterMarkerLayer;
+import com.example.droidtour.maps.RouteLayer;
+import com.google.android.gms.maps.CameraUpdateFactory;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.OnMapReadyCallback;
+import com.google.android.gms.maps.SupportMapFragment;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 
-public class TourMapActivity extends AppCompatActivity {
+import java.util.ArrayList;
+
+public class TourMapActivity extends AppCompatActivity implements OnMapReadyCallback {
 
     private TextView tvTourName, tvLocationAddress, tvLocationCoordinates;
 
+    // Paradas a mostrar: la lista "locations" o un único punto (latitude/longitude)
+    private final ArrayList<TourLocation> stops = new ArrayList<>();
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -21,15 +36,16 @@ public class TourMapActivity extends AppCompatActivity {
         setupToolbar();
         initializeViews();
         loadLocationData();
+        setupMap();
     }
-    
+
     private void setupToolbar() {
         MaterialToolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
         getSupportActionBar().setDisplayHomeAsUpEnabled(true);
         getSupportActionBar().setTitle("Ubicación del Tour");
     }
-    
+
     private void initializeViews() {
         tvTourName = findViewById(R.id.tv_tour_name);
         tvLocationAddress = findViewById(R.id.tv_location_address);
@@ -40,15 +56,68 @@ public class TourMapActivity extends AppCompatActivity {
         Intent intent = getIntent();
 
         String tourName = intent.getStringExtra("TOUR_NAME");
+        if (tourName == null) tourName = intent.getStringExtra("title");
         String location = intent.getStringExtra("LOCATION");
 
         tvTourName.setText(tourName != null ? tourName : "Tour no especificado");
         tvLocationAddress.setText(location != null ? location : "Ubicación no disponible");
 
-        // Coordenadas mock - aquí se integraría con la API de Google Maps
-        tvLocationCoordinates.setText("Lat: -12.0464, Lng: -77.0428");
+        ArrayList<TourLocation> locations = intent.getParcelableArrayListExtra("locations");
+        if (locations != null) {
+            stops.addAll(locations);
+        } else if (intent.hasExtra("latitude") && intent.hasExtra("longitude")) {
+            stops.add(new TourLocation(intent.getDoubleExtra("latitude", 0), intent.getDoubleExtra("longitude", 0),
+                    tourName != null ? tourName : "Ubicación", 1));
+        }
+
+        if (stops.isEmpty()) {
+            tvLocationCoordinates.setText("Coordenadas no disponibles");
+        } else if (stops.size() == 1) {
+            tvLocationCoordinates.setText(String.format(java.util.Locale.US, "Lat: %.4f, Lng: %.4f",
+                    stops.get(0).lat, stops.get(0).lng));
+        } else {
+            tvLocationCoordinates.setText(stops.size() + " paradas");
+        }
+    }
+
+    private void setupMap() {
+        if (stops.isEmpty()) {
+            return;
+        }
+        SupportMapFragment mapFragment = new SupportMapFragment();
+        getSupportFragmentManager()
+                .beginTransaction()
+                .replace(R.id.map_container, mapFragment)
+                .commit();
+        mapFragment.getMapAsync(this);
     }
-    
+
+    @Override
+    public void onMapReady(@NonNull GoogleMap map) {
+        map.getUiSettings().setZoomControlsEnabled(true);
+
+        ClusterMarkerLayer<TourLocation> markerLayer = new ClusterMarkerLayer<>(this, map, (marker, stop) -> {
+            marker.setTitle(stop.name);
+            if (stops.size() > 1) marker.setSnippet("Orden: " + stop.order);
+        });
+        LatLngBounds.Builder bounds = new LatLngBounds.Builder();
+        for (TourLocation stop : stops) {
+            markerLayer.add(stop, stop.lat, stop.lng);
+            bounds.include(new LatLng(stop.lat, stop.lng));
+        }
+        markerLayer.setOnItemClickListener(stop ->
+                Toast.makeText(this, stop.name, Toast.LENGTH_SHORT).show());
+        map.setOnMarkerClickListener(markerLayer::onMarkerClick);
+        map.setOnCameraIdleListener(markerLayer::render);
+
+        if (stops.size() > 1) {
+            new RouteLayer<TourLocation>(map, stop -> new LatLng(stop.lat, stop.lng), 0xFF2196F3, 8).update(stops);
+            map.setOnMapLoadedCallback(() -> map.moveCamera(CameraUpdateFactory.newLatLngBounds(bounds.build(), 48)));
+        } else {
+            map.moveCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(stops.get(0).lat, stops.get(0).lng), 15));
+        }
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
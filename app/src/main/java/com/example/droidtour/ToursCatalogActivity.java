@@ -2,6 +2,8 @@ package com.example.droidtour;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.MenuItem;
 import android.view.LayoutInflater;
 import android.text.Editable;
@@ -9,28 +11,63 @@ import android.text.TextWatcher;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.textfield.TextInputEditText;
+import com.example.droidtour.catalog.CatalogQueryEngine;
 import com.example.droidtour.database.DatabaseHelper;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.images.ImageRequests;
+import com.example.droidtour.images.ImageSpec;
+import com.example.droidtour.images.ListImageStats;
+import com.example.droidtour.utils.PagingScrollListener;
+import com.google.firebase.firestore.DocumentSnapshot;
 
 public class ToursCatalogActivity extends AppCompatActivity {
     
     private RecyclerView rvTours;
     private ToursCatalogAdapter toursAdapter;
+    private ListImageStats imageStats;
     private TextInputEditText etSearch;
     private ChipGroup chipGroupFilter;
     private TextView tvCompanyName, tvCompanyRating, tvToursCount;
     
     private com.example.droidtour.firebase.FirestoreManager firestoreManager;
+    private com.example.droidtour.firebase.ReadModelSyncManager readModel;
     private String companyId, companyName;
     private java.util.List<com.example.droidtour.models.Tour> allTours = new java.util.ArrayList<>();
     private java.util.List<com.example.droidtour.models.Tour> filteredTours = new java.util.ArrayList<>();
 
+    // Búsqueda y orden local fuera del hilo principal; el motor solo se toca desde searchExecutor
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+    private final CatalogQueryEngine queryEngine = new CatalogQueryEngine();
+    private final java.util.concurrent.ExecutorService searchExecutor = java.util.concurrent.Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable debouncedSearch = this::applySearch;
+    private int queryGeneration;
+
+    // Filas cuyas imágenes se piden antes de que entren en pantalla
+    private static final int PRELOAD_ROWS = 4;
+
+    // Paginación por cursor (el orden lo aplica Firestore)
+    private static final int PAGE_SIZE = FirestoreManager.CATALOG_PAGE_SIZE;
+    private String currentSort = FirestoreManager.SORT_DEFAULT;
+    private DocumentSnapshot lastTourDocument;
+    private boolean loadingPage;
+    private boolean hasMorePages = true;
+    private int pageRequestId;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -56,6 +93,7 @@ public class ToursCatalogActivity extends AppCompatActivity {
         setContentView(R.layout.activity_tours_catalog);
 
         firestoreManager = com.example.droidtour.firebase.FirestoreManager.getInstance();
+        readModel = com.example.droidtour.firebase.ReadModelSyncManager.getInstance(this);
         
         getIntentData();
         setupToolbar();
@@ -92,19 +130,64 @@ public class ToursCatalogActivity extends AppCompatActivity {
     }
     
     private void loadToursFromFirebase() {
-        firestoreManager.getToursByCompany(companyId, new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
+        // Nuevo orden o primera carga: reiniciar cursor; las respuestas de cargas anteriores se descartan
+        int requestId = ++pageRequestId;
+        lastTourDocument = null;
+        hasMorePages = true;
+
+        // Pintar la primera página guardada en SQLite mientras llega la del servidor
+        readModel.getCachedToursPage(companyId, currentSort, PAGE_SIZE, new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
             @Override
             public void onSuccess(Object result) {
-                allTours.clear();
-                allTours.addAll((java.util.List<com.example.droidtour.models.Tour>) result);
-                filteredTours.clear();
-                filteredTours.addAll(allTours);
-                toursAdapter.notifyDataSetChanged();
+                java.util.List<com.example.droidtour.models.Tour> cached = (java.util.List<com.example.droidtour.models.Tour>) result;
+                if (requestId != pageRequestId || lastTourDocument != null || cached.isEmpty()) return;
+                replaceTours(cached);
             }
-            
+
+            @Override
+            public void onFailure(Exception e) {
+                // Sin caché: se espera la página del servidor
+            }
+        });
+
+        loadNextTourPage(requestId);
+    }
+
+    private void loadNextTourPage(int requestId) {
+        boolean firstPage = lastTourDocument == null;
+        loadingPage = true;
+        firestoreManager.getToursPage(companyId, currentSort, PAGE_SIZE, lastTourDocument, new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                if (requestId != pageRequestId) return;
+                loadingPage = false;
+                com.example.droidtour.firebase.CatalogPage<com.example.droidtour.models.Tour> page =
+                        (com.example.droidtour.firebase.CatalogPage<com.example.droidtour.models.Tour>) result;
+                if (page.getLastDocument() != null) lastTourDocument = page.getLastDocument();
+                hasMorePages = page.hasMore();
+                readModel.cacheTours(page.getItems());
+
+                if (firstPage) {
+                    // Reemplaza la página de la caché
+                    replaceTours(page.getItems());
+                } else {
+                    appendTours(page.getItems());
+                }
+
+                // Sin orden en el servidor, el orden local solo es correcto con todas las páginas
+                if (!page.isServerOrdered() && hasMorePages && lastTourDocument != null) {
+                    loadNextTourPage(requestId);
+                }
+            }
+
             @Override
             public void onFailure(Exception e) {
-                Toast.makeText(ToursCatalogActivity.this, "Error cargando tours", Toast.LENGTH_SHORT).show();
+                if (requestId != pageRequestId) return;
+                loadingPage = false;
+                hasMorePages = false;
+                if (allTours.isEmpty()) {
+                    Toast.makeText(ToursCatalogActivity.this, "Error cargando tours", Toast.LENGTH_SHORT).show();
+                }
             }
         });
     }
@@ -134,11 +217,34 @@ public class ToursCatalogActivity extends AppCompatActivity {
     }
 
     private void setupRecyclerView() {
-        rvTours.setLayoutManager(new LinearLayoutManager(this));
-        toursAdapter = new ToursCatalogAdapter(filteredTours, this::onTourClick);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        rvTours.setLayoutManager(layoutManager);
+        ViewPreloadSizeProvider<com.example.droidtour.models.Tour> preloadSizes = new ViewPreloadSizeProvider<>();
+        toursAdapter = new ToursCatalogAdapter(this::onTourClick, Glide.with(this), preloadSizes);
         rvTours.setAdapter(toursAdapter);
+        rvTours.addOnScrollListener(new RecyclerViewPreloader<>(Glide.with(this), toursAdapter, preloadSizes, PRELOAD_ROWS));
+
+        if (BuildConfig.DEBUG) {
+            imageStats = ListImageStats.attach("Catálogo", this, rvTours);
+            toursAdapter.setImageListener(imageStats.decodedBytesListener());
+        }
+
+        // Pedir la siguiente página antes de llegar al final
+        rvTours.addOnScrollListener(new PagingScrollListener(layoutManager, new PagingScrollListener.PageLoader() {
+            @Override public boolean isLoading() { return loadingPage; }
+            @Override public boolean hasMore() { return hasMorePages; }
+            @Override public void loadNextPage() { loadNextTourPage(pageRequestId); }
+        }));
     }
     
+    @Override
+    protected void onDestroy() {
+        mainHandler.removeCallbacksAndMessages(null);
+        searchExecutor.shutdownNow();
+        if (imageStats != null) imageStats.detach(rvTours);
+        super.onDestroy();
+    }
+
     // Método obsoleto - ahora se usa loadToursFromFirebase()
 
     private void bindSearch() {
@@ -146,7 +252,9 @@ public class ToursCatalogActivity extends AppCompatActivity {
             @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
             @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
             @Override public void afterTextChanged(Editable s) {
-                applySearchAndCurrentFilter();
+                // Esperar a que deje de escribir
+                mainHandler.removeCallbacks(debouncedSearch);
+                mainHandler.postDelayed(debouncedSearch, SEARCH_DEBOUNCE_MS);
             }
         });
     }
@@ -156,75 +264,100 @@ public class ToursCatalogActivity extends AppCompatActivity {
             if (!checkedIds.isEmpty()) {
                 int checkedId = checkedIds.get(0);
                 if (checkedId == R.id.chip_all) {
-                    applyFilter("all");
+                    applyFilter(FirestoreManager.SORT_DEFAULT);
                 } else if (checkedId == R.id.chip_best_price) {
-                    applyFilter("best_price");
+                    applyFilter(FirestoreManager.SORT_BEST_PRICE);
                 } else if (checkedId == R.id.chip_duration) {
-                    applyFilter("duration");
+                    applyFilter(FirestoreManager.SORT_DURATION);
                 }
             }
         });
     }
 
-    private void applySearchAndCurrentFilter() {
-        int checkedId = chipGroupFilter.getCheckedChipId();
-        if (checkedId == R.id.chip_best_price) applyFilter("best_price");
-        else if (checkedId == R.id.chip_duration) applyFilter("duration");
-        else applyFilter("all");
+    /**
+     * El orden lo resuelve Firestore: cambiar de criterio vuelve a pedir desde la primera página.
+     * Mientras llega, las páginas ya cargadas se muestran reordenadas en local.
+     */
+    private void applyFilter(String sortMode) {
+        if (sortMode.equals(currentSort)) return;
+        currentSort = sortMode;
+        applySearch();
+        loadToursFromFirebase();
     }
 
-    private void applyFilter(String filterType) {
-        String query = etSearch.getText() != null ? etSearch.getText().toString().trim().toLowerCase() : "";
-        filteredTours.clear();
-        for (com.example.droidtour.models.Tour tour : allTours) {
-            if (query.isEmpty() || tour.getName().toLowerCase().contains(query) || 
-                (tour.getDescription() != null && tour.getDescription().toLowerCase().contains(query))) {
-                filteredTours.add(tour);
-            }
-        }
+    /**
+     * Reemplazar los tours cargados (caché o primera página del servidor)
+     */
+    private void replaceTours(java.util.List<com.example.droidtour.models.Tour> tours) {
+        allTours.clear();
+        allTours.addAll(tours);
+        java.util.List<com.example.droidtour.models.Tour> copy = new java.util.ArrayList<>(tours);
+        runQuery(() -> queryEngine.setTours(copy));
+    }
 
-        if ("best_price".equals(filterType)) {
-            java.util.Collections.sort(filteredTours, (t1, t2) -> Double.compare(t1.getPricePerPerson(), t2.getPricePerPerson()));
-        } else if ("duration".equals(filterType)) {
-            java.util.Collections.sort(filteredTours, (t1, t2) -> Long.compare(parseDurationToMinutes(t1.getDuration()), parseDurationToMinutes(t2.getDuration())));
-        }
+    /**
+     * Agregar una página nueva; el diff solo inserta las filas que entran
+     */
+    private void appendTours(java.util.List<com.example.droidtour.models.Tour> page) {
+        allTours.addAll(page);
+        java.util.List<com.example.droidtour.models.Tour> copy = new java.util.ArrayList<>(page);
+        runQuery(() -> queryEngine.addTours(copy));
+    }
 
-        toursAdapter.notifyDataSetChanged();
-        updateToursCountLabel();
+    /**
+     * Búsqueda por texto sobre las páginas ya cargadas, en el orden del criterio actual
+     */
+    private void applySearch() {
+        mainHandler.removeCallbacks(debouncedSearch);
+        runQuery(null);
     }
 
-    private void updateToursCountLabel() {
-        tvToursCount.setText(filteredTours.size() + " tours");
+    /**
+     * Aplicar el cambio de datos y filtrar en searchExecutor; si mientras tanto se pidió otra
+     * búsqueda, el resultado se descarta
+     */
+    private void runQuery(Runnable update) {
+        if (isDestroyed()) return;   // searchExecutor ya está cerrado
+        int generation = ++queryGeneration;
+        String query = currentQuery();
+        int order = localOrder(currentSort);
+        searchExecutor.execute(() -> {
+            if (update != null) update.run();
+            java.util.List<com.example.droidtour.models.Tour> result = queryEngine.query(query, order);
+            mainHandler.post(() -> {
+                if (generation != queryGeneration || isDestroyed()) return;
+                filteredTours = result;
+                toursAdapter.submitList(result);
+                updateToursCountLabel();
+                fillPageIfNeeded();
+            });
+        });
     }
 
-    private long parseDurationToMinutes(String label) {
-        if (label == null) return Long.MAX_VALUE;
-        String text = label.trim().toLowerCase();
-        java.util.regex.Matcher mHours = java.util.regex.Pattern.compile("(\\d+)\\s*h(ora|oras)?").matcher(text);
-        if (mHours.find()) {
-            long hours = Long.parseLong(mHours.group(1));
-            return hours * 60L;
-        }
-        mHours = java.util.regex.Pattern.compile("(\\d+)\\s*hora(s)?").matcher(text);
-        if (mHours.find()) {
-            long hours = Long.parseLong(mHours.group(1));
-            return hours * 60L;
-        }
-        java.util.regex.Matcher mDaysNights = java.util.regex.Pattern.compile("(\\d+)d/\\d+n").matcher(text);
-        if (mDaysNights.find()) {
-            long days = Long.parseLong(mDaysNights.group(1));
-            return days * 24L * 60L;
-        }
-        java.util.regex.Matcher mDays = java.util.regex.Pattern.compile("(\\d+)\\s*d(i[aá]s?)?").matcher(text);
-        if (mDays.find()) {
-            long days = Long.parseLong(mDays.group(1));
-            return days * 24L * 60L;
+    private static int localOrder(String sortMode) {
+        if (FirestoreManager.SORT_BEST_PRICE.equals(sortMode)) return CatalogQueryEngine.ORDER_PRICE;
+        if (FirestoreManager.SORT_BEST_RATED.equals(sortMode)) return CatalogQueryEngine.ORDER_RATING;
+        if (FirestoreManager.SORT_DURATION.equals(sortMode)) return CatalogQueryEngine.ORDER_DURATION;
+        return CatalogQueryEngine.ORDER_LOADED;
+    }
+
+    /**
+     * Con una búsqueda activa puede que no haya scroll: seguir pidiendo páginas hasta llenar una
+     */
+    private void fillPageIfNeeded() {
+        if (!currentQuery().isEmpty() && filteredTours.size() < PAGE_SIZE && hasMorePages && !loadingPage
+                && lastTourDocument != null) {
+            loadNextTourPage(pageRequestId);
         }
-        if (text.contains("full day")) return 24L * 60L;
-        if (text.contains("medio dia") || text.contains("medio día") || text.contains("half day")) return 4L * 60L;
-        return Long.MAX_VALUE;
     }
 
+    private String currentQuery() {
+        return etSearch.getText() != null ? etSearch.getText().toString().trim() : "";
+    }
+
+    private void updateToursCountLabel() {
+        tvToursCount.setText(filteredTours.size() + " tours");
+    }
     private void onTourClick(com.example.droidtour.models.Tour tour) {
         Intent intent = new Intent(this, TourDetailActivity.class);
         intent.putExtra("tour_id", tour.getTourId());
@@ -253,14 +386,69 @@ public class ToursCatalogActivity extends AppCompatActivity {
 }
 
 // Adaptador para el catálogo de tours
-class ToursCatalogAdapter extends RecyclerView.Adapter<ToursCatalogAdapter.ViewHolder> {
+class ToursCatalogAdapter extends RecyclerView.Adapter<ToursCatalogAdapter.ViewHolder>
+        implements ListPreloader.PreloadModelProvider<com.example.droidtour.models.Tour> {
     interface OnTourClick { void onClick(com.example.droidtour.models.Tour tour); }
+    private static final String DEFAULT_IMAGE_URL = "https://www.dicasdeviagem.com/wp-content/uploads/2020/03/lima-costa-mar-2048x1364.jpg";
     private final OnTourClick onTourClick;
-    private final java.util.List<com.example.droidtour.models.Tour> tours;
+    private final AsyncListDiffer<com.example.droidtour.models.Tour> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final RequestManager glide;
+    private final ViewPreloadSizeProvider<com.example.droidtour.models.Tour> preloadSizes;
+    private com.bumptech.glide.request.RequestListener<android.graphics.drawable.Drawable> imageListener;
     
-    ToursCatalogAdapter(java.util.List<com.example.droidtour.models.Tour> tours, OnTourClick listener) { 
-        this.tours = tours;
+    // Mismo tour si coincide el id; se vuelve a enlazar si cambió algo de lo que muestra la fila
+    private static final DiffUtil.ItemCallback<com.example.droidtour.models.Tour> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<com.example.droidtour.models.Tour>() {
+        @Override
+        public boolean areItemsTheSame(com.example.droidtour.models.Tour oldTour, com.example.droidtour.models.Tour newTour) {
+            return oldTour.getTourId() != null ? oldTour.getTourId().equals(newTour.getTourId()) : oldTour == newTour;
+        }
+
+        @Override
+        public boolean areContentsTheSame(com.example.droidtour.models.Tour oldTour, com.example.droidtour.models.Tour newTour) {
+            return java.util.Objects.equals(oldTour.getName(), newTour.getName())
+                    && java.util.Objects.equals(oldTour.getDescription(), newTour.getDescription())
+                    && java.util.Objects.equals(oldTour.getAverageRating(), newTour.getAverageRating())
+                    && java.util.Objects.equals(oldTour.getDuration(), newTour.getDuration())
+                    && java.util.Objects.equals(oldTour.getMaxGroupSize(), newTour.getMaxGroupSize())
+                    && java.util.Objects.equals(oldTour.getLanguages(), newTour.getLanguages())
+                    && java.util.Objects.equals(oldTour.getPricePerPerson(), newTour.getPricePerPerson())
+                    && java.util.Objects.equals(oldTour.getImageUrl(), newTour.getImageUrl());
+        }
+    };
+
+    ToursCatalogAdapter(OnTourClick listener, RequestManager glide,
+                        ViewPreloadSizeProvider<com.example.droidtour.models.Tour> preloadSizes) {
         this.onTourClick = listener; 
+        this.glide = glide;
+        this.preloadSizes = preloadSizes;
+    }
+
+    /** El diff se calcula en segundo plano; una lista nueva descarta la anterior si no terminó */
+    void submitList(java.util.List<com.example.droidtour.models.Tour> tours) {
+        differ.submitList(tours);
+    }
+
+    void setImageListener(com.bumptech.glide.request.RequestListener<android.graphics.drawable.Drawable> imageListener) {
+        this.imageListener = imageListener;
+    }
+
+    // La precarga pide la misma imagen que onBindViewHolder, así la fila la encuentra en memoria
+    private RequestBuilder<android.graphics.drawable.Drawable> imageRequest(com.example.droidtour.models.Tour tour) {
+        String url = tour.getImageUrl() != null ? tour.getImageUrl() : DEFAULT_IMAGE_URL;
+        return ImageRequests.listThumbnail(glide, url, ImageSpec.TOUR_HERO);
+    }
+
+    @Override
+    public java.util.List<com.example.droidtour.models.Tour> getPreloadItems(int position) {
+        java.util.List<com.example.droidtour.models.Tour> tours = differ.getCurrentList();
+        if (position < 0 || position >= tours.size()) return java.util.Collections.emptyList();
+        return java.util.Collections.singletonList(tours.get(position));
+    }
+
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(com.example.droidtour.models.Tour tour) {
+        return imageRequest(tour);
     }
 
     @Override
@@ -272,7 +460,7 @@ class ToursCatalogAdapter extends RecyclerView.Adapter<ToursCatalogAdapter.ViewH
 
     @Override
     public void onBindViewHolder(ViewHolder holder, int position) {
-        com.example.droidtour.models.Tour tour = tours.get(position);
+        com.example.droidtour.models.Tour tour = differ.getCurrentList().get(position);
         
         android.widget.ImageView tourImage = holder.itemView.findViewById(R.id.iv_tour_image);
         TextView tourName = holder.itemView.findViewById(R.id.tv_tour_name);
@@ -293,12 +481,11 @@ class ToursCatalogAdapter extends RecyclerView.Adapter<ToursCatalogAdapter.ViewH
         price.setText("S/. " + String.format(java.util.Locale.US, "%.2f", tour.getPricePerPerson()));
 
         if (tourImage != null) {
-            String url = tour.getImageUrl() != null ? tour.getImageUrl() : "https://www.dicasdeviagem.com/wp-content/uploads/2020/03/lima-costa-mar-2048x1364.jpg";
-            Glide.with(tourImage.getContext())
-                .load(url)
+            imageRequest(tour)
                 .placeholder(android.R.drawable.ic_menu_gallery)
-                .centerCrop()
+                .listener(imageListener)
                 .into(tourImage);
+            preloadSizes.setView(tourImage);
         }
 
         btnReserve.setOnClickListener(v -> onTourClick.onClick(tour));
@@ -306,7 +493,7 @@ class ToursCatalogAdapter extends RecyclerView.Adapter<ToursCatalogAdapter.ViewH
     }
 
     @Override
-    public int getItemCount() { return tours.size(); }
+    public int getItemCount() { return differ.getCurrentList().size(); }
 
     static class ViewHolder extends RecyclerView.ViewHolder { 
         ViewHolder(android.view.View v) { super(v); } 
@@ -3,24 +3,29 @@ package com.example.droidtour.adapters;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Filter;
-import android.widget.Filterable;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.example.droidtour.R;
+import com.example.droidtour.images.ImageRequests;
+import com.example.droidtour.images.ImageSpec;
 import com.example.droidtour.models.User;
+import com.example.droidtour.utils.SearchIndex;
 import java.util.ArrayList;
 import java.util.List;
 
-public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHolder> implements Filterable {
+public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHolder> {
 
     private List<User> userList;
     private List<User> userListFull;
     private OnUserClickListener listener;
     private String currentFilter = "ALL";
+    private String currentQuery = "";
+
+    // Nombre, email y tipo indexados una vez; buscar no recorre la lista
+    private final SearchIndex<User> searchIndex = new SearchIndex<>();
 
     public interface OnUserClickListener {
         void onUserClick(User user);
@@ -33,6 +38,7 @@ public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHold
         this.userList = userList;
         this.userListFull = new ArrayList<>(userList);
         this.listener = listener;
+        indexAll();
     }
 
     @NonNull
@@ -55,10 +61,9 @@ public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHold
     }
 
     public void updateList(List<User> newList) {
-        userList = new ArrayList<>(newList);
         userListFull = new ArrayList<>(newList);
-        applyFilter(currentFilter); // Re-aplicar filtro actual
-        notifyDataSetChanged();
+        indexAll();
+        applyFilter(currentFilter); // Re-aplicar búsqueda y filtro actuales
     }
 
     public void setFilter(String filter) {
@@ -66,81 +71,77 @@ public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHold
         applyFilter(filter);
     }
 
-    private void applyFilter(String filterType) {
-        if (userListFull == null) return;
-
-        List<User> filteredList = new ArrayList<>();
+    /**
+     * Buscar por nombre, email o tipo (sin tildes ni mayúsculas; ver {@link SearchIndex})
+     */
+    public void setQuery(CharSequence query) {
+        currentQuery = query != null ? query.toString() : "";
+        applyFilter(currentFilter);
+    }
 
-        switch (filterType) {
-            case "ALL":
-                filteredList.addAll(userListFull);
-                break;
-            case "ADMIN":
-                for (User user : userListFull) {
-                    if ("ADMIN".equals(user.getUserType()) || "SUPERADMIN".equals(user.getUserType())) {
-                        filteredList.add(user);
-                    }
-                }
-                break;
-            case "GUIDE":
-                for (User user : userListFull) {
-                    if ("GUIDE".equals(user.getUserType())) {
-                        filteredList.add(user);
-                    }
-                }
-                break;
-            case "CLIENT":
-                for (User user : userListFull) {
-                    if ("CLIENT".equals(user.getUserType())) {
-                        filteredList.add(user);
-                    }
-                }
-                break;
+    /**
+     * Quitar un usuario eliminado sin recargar la lista
+     */
+    public void removeUser(User user) {
+        if (!userListFull.remove(user)) return;
+        searchIndex.remove(keyOf(user));
+        int idx = userList.indexOf(user);
+        if (idx >= 0) {
+            userList.remove(idx);
+            notifyItemRemoved(idx);
         }
+    }
 
-        userList = filteredList;
-        notifyDataSetChanged();
+    /**
+     * Volver a pintar un usuario que cambió (la posición visible no es la de la lista completa)
+     */
+    public void notifyUserChanged(User user) {
+        int idx = userList.indexOf(user);
+        if (idx >= 0) notifyItemChanged(idx);
     }
 
-    @Override
-    public Filter getFilter() {
-        return userFilter;
+    private void indexAll() {
+        searchIndex.clear();
+        for (User user : userListFull) {
+            searchIndex.put(keyOf(user), user, user.getFullName(), user.getEmail(), user.getUserType());
+        }
     }
 
-    private Filter userFilter = new Filter() {
-        @Override
-        protected FilterResults performFiltering(CharSequence constraint) {
-            List<User> filteredList = new ArrayList<>();
+    private static String keyOf(User user) {
+        return user.getUserId() != null ? user.getUserId() : "@" + System.identityHashCode(user);
+    }
 
-            if (constraint == null || constraint.length() == 0) {
-                filteredList.addAll(userListFull);
-            } else {
-                String filterPattern = constraint.toString().toLowerCase().trim();
-
-                for (User user : userListFull) {
-                    String fullName = user.getFullName() != null ? user.getFullName() : "";
-                    String email = user.getEmail() != null ? user.getEmail() : "";
-                    String type = user.getUserType() != null ? user.getUserType() : "";
-                    if (fullName.toLowerCase().contains(filterPattern) ||
-                            email.toLowerCase().contains(filterPattern) ||
-                            type.toLowerCase().contains(filterPattern)) {
-                        filteredList.add(user);
-                    }
-                }
-            }
+    private void applyFilter(String filterType) {
+        if (userListFull == null) return;
+
+        // Con búsqueda, los resultados vienen ordenados por relevancia
+        List<User> base = SearchIndex.tokenize(currentQuery).isEmpty()
+                ? userListFull
+                : searchIndex.search(currentQuery, userListFull.size());
 
-            FilterResults results = new FilterResults();
-            results.values = filteredList;
-            return results;
+        List<User> filteredList = new ArrayList<>();
+        for (User user : base) {
+            if (matchesType(user, filterType)) {
+                filteredList.add(user);
+            }
         }
 
-        @Override
-        protected void publishResults(CharSequence constraint, FilterResults results) {
-            userList.clear();
-            userList.addAll((List) results.values);
-            applyFilter(currentFilter); // Aplicar filtro de tipo después de la búsqueda
+        userList = filteredList;
+        notifyDataSetChanged();
+    }
+
+    private static boolean matchesType(User user, String filterType) {
+        switch (filterType) {
+            case "ADMIN":
+                return "ADMIN".equals(user.getUserType()) || "SUPERADMIN".equals(user.getUserType());
+            case "GUIDE":
+                return "GUIDE".equals(user.getUserType());
+            case "CLIENT":
+                return "CLIENT".equals(user.getUserType());
+            default:
+                return true;
         }
-    };
+    }
 
     static class UserViewHolder extends RecyclerView.ViewHolder {
         private TextView tvUserName, tvUserEmail, tvUserType, tvAvatarInitial;
@@ -204,8 +205,7 @@ public class UsersAdapter extends RecyclerView.Adapter<UsersAdapter.UserViewHold
             // Cargar foto si existe
             String photo = user.getPhotoUrl();
             if (photo != null && !photo.isEmpty()) {
-                Glide.with(itemView.getContext())
-                        .load(photo)
+                ImageRequests.listThumbnail(Glide.with(ivUserAvatar), photo, ImageSpec.AVATAR)
                         .into(ivUserAvatar);
                 tvAvatarInitial.setVisibility(View.GONE);
             } else {
@@ -2,23 +2,34 @@ package com.example.droidtour.admin;
 
 import android.app.DatePickerDialog;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.MenuItem;
 import android.widget.CheckBox;
 import android.widget.CompoundButton;
 import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.PickVisualMediaRequest;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.droidtour.R;
+import com.example.droidtour.firebase.FirebaseStorageManager;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.images.UploadReport;
+import com.example.droidtour.models.Company;
+import com.example.droidtour.models.Tour;
+import com.example.droidtour.models.User;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.floatingactionbutton.ExtendedFloatingActionButton;
 import com.google.android.material.textfield.TextInputEditText;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 
@@ -26,16 +37,33 @@ public class CreateTourActivity extends AppCompatActivity {
     
     private static final String TAG = "CreateTourActivity";
     private static final int REQ_LOCATIONS = 101;
+    private static final int MAX_IMAGES = 10;
 
     private TextInputEditText etTourName, etTourDescription, etTourPrice, etTourDuration;
     private TextInputEditText etStartDate, etEndDate;
-    private MaterialButton btnAddLocation;
+    private MaterialButton btnAddLocation, btnAddImages;
     private ExtendedFloatingActionButton btnSave;
-    private RecyclerView rvLocations;
+    private RecyclerView rvLocations, rvTourImages;
     private CheckBox cbBreakfast, cbLunch, cbDinner, cbTransport;
     private com.example.droidtour.utils.PreferencesManager prefsManager;
     
     private List<String> selectedLanguages = new ArrayList<>();
+    private final List<Uri> selectedImages = new ArrayList<>();
+    private final List<TourLocation> selectedLocations = new ArrayList<>();
+    private TourImagesAdapter imagesAdapter;
+    private boolean uploading;
+
+    private final ActivityResultLauncher<PickVisualMediaRequest> pickImagesLauncher =
+            registerForActivityResult(new ActivityResultContracts.PickMultipleVisualMedia(MAX_IMAGES), uris -> {
+                for (Uri uri : uris) {
+                    if (selectedImages.size() >= MAX_IMAGES) {
+                        Toast.makeText(this, "Máximo " + MAX_IMAGES + " imágenes", Toast.LENGTH_SHORT).show();
+                        break;
+                    }
+                    if (!selectedImages.contains(uri)) selectedImages.add(uri);
+                }
+                imagesAdapter.notifyDataSetChanged();
+            });
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -86,9 +114,11 @@ public class CreateTourActivity extends AppCompatActivity {
         etEndDate = findViewById(R.id.et_end_date);
         
         btnAddLocation = findViewById(R.id.btn_add_location);
+        btnAddImages = findViewById(R.id.btn_add_images);
         btnSave = findViewById(R.id.btn_save_tour);
         
         rvLocations = findViewById(R.id.rv_locations);
+        rvTourImages = findViewById(R.id.rv_tour_images);
 
         cbBreakfast = findViewById(R.id.cb_breakfast);
         cbLunch = findViewById(R.id.cb_lunch);
@@ -111,9 +141,15 @@ public class CreateTourActivity extends AppCompatActivity {
             Log.w(TAG, "btnAddLocation es null");
         }
 
+        if (btnAddImages != null) {
+            btnAddImages.setOnClickListener(v -> pickImagesLauncher.launch(new PickVisualMediaRequest.Builder()
+                    .setMediaType(ActivityResultContracts.PickVisualMedia.ImageOnly.INSTANCE)
+                    .build()));
+        }
+
         if (btnSave != null) {
             btnSave.setOnClickListener(v -> {
-                if (validateInputs()) {
+                if (!uploading && validateInputs()) {
                     saveTour();
                 }
             });
@@ -129,6 +165,15 @@ public class CreateTourActivity extends AppCompatActivity {
             Log.w(TAG, "rvLocations es null");
         }
         // TODO: Configurar adapter para lista de ubicaciones
+
+        if (rvTourImages != null) {
+            rvTourImages.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
+            imagesAdapter = new TourImagesAdapter(selectedImages, position -> {
+                selectedImages.remove(position);
+                imagesAdapter.notifyDataSetChanged();
+            });
+            rvTourImages.setAdapter(imagesAdapter);
+        }
     }
     
     private void setupLanguageChips() {
@@ -228,10 +273,161 @@ public class CreateTourActivity extends AppCompatActivity {
         return true;
     }
     
+    /**
+     * Guardar el tour: se lee la empresa del admin, se reserva el ID del tour, se suben las imágenes
+     * con ese ID y recién entonces se escribe el documento con imageUrls/mainImageUrl. Si el
+     * documento no se puede escribir, las imágenes subidas se borran.
+     */
     private void saveTour() {
-        // TODO: Implementar guardado en base de datos
-        Toast.makeText(this, "Tour creado exitosamente", Toast.LENGTH_SHORT).show();
-        finish();
+        Double price = parsePrice();
+        if (price == null) {
+            etTourPrice.setError("Ingrese un precio válido");
+            return;
+        }
+
+        setSaving(true, "Guardando…");
+        FirestoreManager firestore = FirestoreManager.getInstance();
+        firestore.getUserById(prefsManager.getUserId(), new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                User user = (User) result;
+                if (user == null || user.getCompanyId() == null) {
+                    onSaveFailed("Tu usuario no tiene una empresa asignada", null);
+                    return;
+                }
+                firestore.getCompanyById(user.getCompanyId(), new FirestoreManager.FirestoreCallback() {
+                    @Override
+                    public void onSuccess(Object company) {
+                        Tour tour = buildTour(user.getCompanyId(), ((Company) company).getCompanyName(), price);
+                        uploadImagesAndCreate(firestore.newTourId(), tour);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        onSaveFailed("No se pudo leer la empresa", e);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                onSaveFailed("No se pudo leer tu usuario", e);
+            }
+        });
+    }
+
+    private void uploadImagesAndCreate(String tourId, Tour tour) {
+        if (selectedImages.isEmpty()) {
+            createTour(tourId, tour, null);
+            return;
+        }
+
+        // Las imágenes se reducen y suben en WebP, de a 3 en paralelo
+        FirebaseStorageManager.getInstance().uploadTourImages(tourId, selectedImages.toArray(new Uri[0]),
+                new FirebaseStorageManager.MultipleStorageCallback() {
+                    @Override
+                    public void onProgress(int progress) {
+                        btnSave.setText("Subiendo imágenes " + progress + "%");
+                    }
+
+                    @Override
+                    public void onReport(UploadReport report) {
+                        Log.d(TAG, "Subida de imágenes del tour: " + report);
+                    }
+
+                    @Override
+                    public void onAllSuccess(String[] downloadUrls) {
+                        createTour(tourId, tour, downloadUrls);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        onSaveFailed("Error subiendo imágenes", e);
+                    }
+                });
+    }
+
+    private void createTour(String tourId, Tour tour, String[] imageUrls) {
+        if (imageUrls != null && imageUrls.length > 0) {
+            tour.setImageUrls(Arrays.asList(imageUrls));
+            tour.setMainImageUrl(imageUrls[0]);
+        }
+        btnSave.setText("Guardando…");
+        FirestoreManager.getInstance().createTourWithId(tourId, tour, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                Toast.makeText(CreateTourActivity.this, "Tour creado exitosamente", Toast.LENGTH_SHORT).show();
+                finish();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // Sin documento las imágenes quedarían huérfanas en Storage
+                FirebaseStorageManager.getInstance().deleteTourImages(imageUrls);
+                onSaveFailed("No se pudo guardar el tour", e);
+            }
+        });
+    }
+
+    private Tour buildTour(String companyId, String companyName, Double price) {
+        Tour tour = new Tour(etTourName.getText().toString().trim(), companyId, companyName,
+                etTourDescription.getText().toString().trim(), price,
+                etTourDuration.getText().toString().trim(), null);
+
+        List<String> languages = new ArrayList<>();
+        for (String language : selectedLanguages) {
+            languages.add(languageCode(language));
+        }
+        tour.setLanguages(languages);
+
+        List<String> included = new ArrayList<>();
+        if (cbBreakfast != null && cbBreakfast.isChecked()) included.add("Desayuno");
+        if (cbLunch != null && cbLunch.isChecked()) included.add("Almuerzo");
+        if (cbDinner != null && cbDinner.isChecked()) included.add("Cena");
+        if (cbTransport != null && cbTransport.isChecked()) included.add("Transporte");
+        tour.setIncludedServices(included);
+
+        if (!selectedLocations.isEmpty()) {
+            List<Tour.ItineraryPoint> itinerary = new ArrayList<>();
+            for (TourLocation location : selectedLocations) {
+                itinerary.add(new Tour.ItineraryPoint(null, location.name, null, null));
+            }
+            tour.setItinerary(itinerary);
+            tour.setMeetingPoint(selectedLocations.get(0).name);
+        }
+        return tour;
+    }
+
+    private Double parsePrice() {
+        try {
+            double price = Double.parseDouble(etTourPrice.getText().toString().trim().replace(',', '.'));
+            return price > 0 ? price : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Los tours guardan los idiomas como código ("ES", "EN", ...) */
+    private static String languageCode(String language) {
+        switch (language) {
+            case "Español": return "ES";
+            case "Inglés": return "EN";
+            case "Francés": return "FR";
+            case "Portugués": return "PT";
+            default: return language;
+        }
+    }
+
+    private void onSaveFailed(String message, Exception e) {
+        Log.e(TAG, message, e);
+        setSaving(false, null);
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+    }
+
+    private void setSaving(boolean saving, String label) {
+        uploading = saving;
+        btnSave.setEnabled(!saving);
+        btnSave.setText(saving ? label : "Crear Tour");
     }
     
     @Override
@@ -264,13 +460,65 @@ public class CreateTourActivity extends AppCompatActivity {
         if (requestCode == REQ_LOCATIONS && resultCode == RESULT_OK) {
             ArrayList<TourLocation> locations =
                     data.getParcelableArrayListExtra("locations");
+            selectedLocations.clear();
+            if (locations != null) selectedLocations.addAll(locations);
 
             // Actualiza UI resumen
         }
     }
+}
 
+class TourImagesAdapter extends RecyclerView.Adapter<TourImagesAdapter.ViewHolder> {
+    interface OnRemoveListener {
+        void onRemove(int position);
+    }
 
+    private final List<Uri> images;
+    private final OnRemoveListener removeListener;
 
+    TourImagesAdapter(List<Uri> images, OnRemoveListener removeListener) {
+        this.images = images;
+        this.removeListener = removeListener;
+    }
 
+    @Override
+    public ViewHolder onCreateViewHolder(android.view.ViewGroup parent, int viewType) {
+        android.view.View view = android.view.LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_tour_image, parent, false);
+        return new ViewHolder(view);
+    }
 
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        // Glide decodifica al tamaño de la vista, no a la resolución de la cámara
+        com.bumptech.glide.Glide.with(holder.ivImage).load(images.get(position)).centerCrop().into(holder.ivImage);
+        holder.placeholder.setVisibility(android.view.View.GONE);
+        holder.btnDelete.setVisibility(android.view.View.VISIBLE);
+        holder.tvIndex.setVisibility(android.view.View.VISIBLE);
+        holder.tvIndex.setText(String.valueOf(position + 1));
+        holder.btnDelete.setOnClickListener(v -> {
+            int current = holder.getBindingAdapterPosition();
+            if (current != RecyclerView.NO_POSITION) removeListener.onRemove(current);
+        });
+    }
+
+    @Override
+    public int getItemCount() {
+        return images.size();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final android.widget.ImageView ivImage;
+        final android.view.View placeholder;
+        final android.widget.ImageButton btnDelete;
+        final android.widget.TextView tvIndex;
+
+        ViewHolder(android.view.View itemView) {
+            super(itemView);
+            ivImage = itemView.findViewById(R.id.iv_tour_image);
+            placeholder = itemView.findViewById(R.id.placeholder_image);
+            btnDelete = itemView.findViewById(R.id.btn_delete_image);
+            tvIndex = itemView.findViewById(R.id.tv_image_index);
+        }
+    }
 }
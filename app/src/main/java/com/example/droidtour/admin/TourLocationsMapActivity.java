@@ -14,20 +14,18 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.droidtour.R;
+import com.example.droidtour.maps.ClusterMarkerLayer;
+import com.example.droidtour.maps.RouteLayer;
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.Marker;
-import com.google.android.gms.maps.model.MarkerOptions;
-import com.google.android.gms.maps.model.Polyline;
-import com.google.android.gms.maps.model.PolylineOptions;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.bottomsheet.BottomSheetBehavior;
 
 import java.util.ArrayList;
-import java.util.List;
 
 public class TourLocationsMapActivity extends AppCompatActivity
         implements OnMapReadyCallback, TourLocationsAdapter.OnLocationDeleteListener {
@@ -37,8 +35,9 @@ public class TourLocationsMapActivity extends AppCompatActivity
     private TourLocationsAdapter adapter;
     private BottomSheetBehavior<View> bottomSheetBehavior;
 
-    private final List<Marker> markers = new ArrayList<>();
-    private Polyline routePolyline;
+    // Marcadores por viewport (agrupados al alejar) y ruta por tramos
+    private ClusterMarkerLayer<TourLocation> markerLayer;
+    private RouteLayer<TourLocation> routeLayer;
 
     // Views del peek fijo (fuera del bottom sheet)
     private View peekViewContainer;
@@ -252,19 +251,21 @@ public class TourLocationsMapActivity extends AppCompatActivity
         LatLng initialPosition = new LatLng(-12.0464, -77.0428);
         map.moveCamera(CameraUpdateFactory.newLatLngZoom(initialPosition, 12));
 
+        markerLayer = new ClusterMarkerLayer<>(this, map, (marker, location) -> {
+            marker.setTitle(location.name);
+            marker.setSnippet("Orden: " + location.order);
+        });
+        markerLayer.setOnItemClickListener(location -> onMarkerSelected(locations.indexOf(location)));
+        routeLayer = new RouteLayer<>(map, location -> new LatLng(location.lat, location.lng), 0xFF2196F3, 8);
+
         // Listener para agregar ubicaciones
         map.setOnMapClickListener(this::addNewLocation);
 
         // Listener para clicks en marcadores
-        map.setOnMarkerClickListener(marker -> {
-            for (int i = 0; i < markers.size(); i++) {
-                if (markers.get(i).equals(marker)) {
-                    onMarkerSelected(i);
-                    return true;
-                }
-            }
-            return false;
-        });
+        map.setOnMarkerClickListener(markerLayer::onMarkerClick);
+
+        // Los marcadores se sincronizan con el viewport al terminar cada movimiento de cámara
+        map.setOnCameraIdleListener(markerLayer::render);
     }
 
     private void addNewLocation(LatLng latLng) {
@@ -279,16 +280,10 @@ public class TourLocationsMapActivity extends AppCompatActivity
         adapter.notifyItemInserted(locations.size() - 1);
 
         // Agregar marcador
-        Marker marker = googleMap.addMarker(new MarkerOptions()
-                .position(latLng)
-                .title(location.name)
-                .snippet("Orden: " + location.order));
+        markerLayer.add(location, location.lat, location.lng);
+        markerLayer.render();
 
-        if (marker != null) {
-            markers.add(marker);
-        }
-
-        drawRoute();
+        routeLayer.update(locations);
         updatePeekInfo();
         updateBottomSheetInfo();
         updateEmptyState();
@@ -333,9 +328,10 @@ public class TourLocationsMapActivity extends AppCompatActivity
             LatLng latLng = new LatLng(location.lat, location.lng);
             googleMap.animateCamera(CameraUpdateFactory.newLatLngZoom(latLng, 15));
 
-            // Mostrar info del marcador
-            if (position < markers.size()) {
-                markers.get(position).showInfoWindow();
+            // Mostrar info del marcador (si está suelto en el viewport)
+            Marker marker = markerLayer.getMarker(location);
+            if (marker != null) {
+                marker.showInfoWindow();
             }
         }
 
@@ -343,39 +339,24 @@ public class TourLocationsMapActivity extends AppCompatActivity
         adapter.setSelectedPosition(position);
     }
 
-    private void drawRoute() {
-        // Eliminar polilínea anterior
-        if (routePolyline != null) {
-            routePolyline.remove();
-        }
-
-        // Crear nueva polilínea si hay al menos 2 ubicaciones
-        if (locations.size() >= 2) {
-            PolylineOptions polylineOptions = new PolylineOptions()
-                    .width(8)
-                    .color(0xFF2196F3)
-                    .geodesic(true);
-
-            for (TourLocation location : locations) {
-                polylineOptions.add(new LatLng(location.lat, location.lng));
-            }
-
-            routePolyline = googleMap.addPolyline(polylineOptions);
-        }
-    }
-
     private void updateLocationsOrder() {
+        // Solo se renumeran las paradas que cambiaron de lugar
+        int firstChanged = -1;
+        int lastChanged = -1;
         for (int i = 0; i < locations.size(); i++) {
-            locations.get(i).order = i + 1;
-            locations.get(i).name = "Parada " + (i + 1);
-
-            if (i < markers.size()) {
-                markers.get(i).setTitle("Parada " + (i + 1));
-                markers.get(i).setSnippet("Orden: " + (i + 1));
+            TourLocation location = locations.get(i);
+            if (location.order != i + 1) {
+                location.order = i + 1;
+                location.name = "Parada " + (i + 1);
+                markerLayer.refresh(location);
+                if (firstChanged < 0) firstChanged = i;
+                lastChanged = i;
             }
         }
-        adapter.notifyDataSetChanged();
-        drawRoute();
+        if (firstChanged >= 0) {
+            adapter.notifyItemRangeChanged(firstChanged, lastChanged - firstChanged + 1);
+        }
+        routeLayer.update(locations);
         updatePeekInfo();
         updateBottomSheetInfo();
     }
@@ -454,17 +435,9 @@ public class TourLocationsMapActivity extends AppCompatActivity
         locations.clear();
         adapter.notifyDataSetChanged();
 
-        // Limpiar marcadores
-        for (Marker marker : markers) {
-            marker.remove();
-        }
-        markers.clear();
-
-        // Limpiar polilínea
-        if (routePolyline != null) {
-            routePolyline.remove();
-            routePolyline = null;
-        }
+        // Limpiar marcadores y ruta
+        markerLayer.clear();
+        routeLayer.clear();
 
         selectedPosition = -1;
         updatePeekInfo();
@@ -482,14 +455,12 @@ public class TourLocationsMapActivity extends AppCompatActivity
         }
 
         // Eliminar del array
-        locations.remove(position);
+        TourLocation removed = locations.remove(position);
         adapter.notifyItemRemoved(position);
 
         // Eliminar marcador
-        if (position < markers.size()) {
-            markers.get(position).remove();
-            markers.remove(position);
-        }
+        markerLayer.remove(removed);
+        markerLayer.render();
 
         selectedPosition = -1;
         updateLocationsOrder();
@@ -0,0 +1,415 @@
+package com.example.droidtour.analytics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+
+/**
+ * Rollup de métricas del dashboard del superadmin.
+ * Guarda buckets diarios (clave "YYYY-MM-DD" tomada de tourDate) con ingresos, reservas y
+ * personas, los mismos acumulados por categoría del tour (tourCategory de la reserva), los
+ * totales de los KPIs y el conteo de tours activos por categoría.
+ *
+ * La misma clase sirve como delta: los valores pueden ser negativos, de modo que un cambio
+ * de reserva se expresa como rollup(después) - rollup(antes) y se suma con {@link #merge}.
+ * No depende de Android ni de Firebase para poder probarse en la JVM.
+ */
+public class DashboardRollup {
+
+    // Claves del documento analytics/dashboard
+    public static final String FIELD_TOTALS = "totals";
+    public static final String FIELD_DAYS = "days";
+    public static final String FIELD_TOURS_BY_CATEGORY = "toursByCategory";
+    public static final String FIELD_CATEGORIES = "categories";
+    public static final String FIELD_REVENUE = "revenue";
+    public static final String FIELD_BOOKINGS = "bookings";
+    public static final String FIELD_PEOPLE = "people";
+
+    public static final String NO_CATEGORY = "Sin categoría";
+
+    /**
+     * Acumulado de un día (o de los totales)
+     */
+    public static class Bucket {
+        public double revenue;
+        public long bookings;
+        public long people;
+
+        public boolean isEmpty() {
+            return revenue == 0.0 && bookings == 0 && people == 0;
+        }
+
+        void add(Bucket other, int sign) {
+            revenue += sign * other.revenue;
+            bookings += sign * other.bookings;
+            people += sign * other.people;
+        }
+    }
+
+    private final TreeMap<String, Bucket> days = new TreeMap<>();
+    private final Map<String, Bucket> categories = new HashMap<>();
+    private final Map<String, Long> toursByCategory = new HashMap<>();
+    private final Bucket totals = new Bucket();
+
+    // ==================== RESERVAS ====================
+
+    /**
+     * Sumar (sign = 1) o restar (sign = -1) la contribución de una reserva.
+     * Reglas iguales a las de los gráficos originales:
+     * - Reservas (KPI): status CONFIRMADA, EN_CURSO o COMPLETADA
+     * - Ingresos, personas y buckets diarios: además paymentStatus null, CONFIRMADO o COBRADO
+     * Las reservas sin tourCategory (anteriores al campo) se acumulan en {@link #NO_CATEGORY}.
+     */
+    public void addReservation(Map<String, Object> reservation, int sign) {
+        if (reservation == null || !ReservationMetricsReducer.isCountedStatus(reservation.get("status"))) {
+            return;
+        }
+
+        Bucket category = bucket(categories, categoryOf(reservation.get("tourCategory")));
+        totals.bookings += sign;
+        category.bookings += sign;
+
+        if (!ReservationMetricsReducer.isCountedPayment(reservation.get("paymentStatus"))) {
+            return;
+        }
+
+        double price = ReservationMetricsReducer.toDouble(reservation.get("totalPrice"));
+        int people = ReservationMetricsReducer.toInt(reservation.get("numberOfPeople"));
+        totals.revenue += sign * price;
+        totals.people += sign * people;
+        category.revenue += sign * price;
+        category.people += sign * people;
+
+        String dayKey = dayKey(asString(reservation.get("tourDate")));
+        if (dayKey == null) {
+            return;
+        }
+        Bucket bucket = bucket(days, dayKey);
+        bucket.revenue += sign * price;
+        bucket.bookings += sign;
+        bucket.people += sign * people;
+    }
+
+    // ==================== TOURS ====================
+
+    /**
+     * Sumar o restar un tour al conteo por categoría (solo tours activos)
+     */
+    public void addTour(Map<String, Object> tour, int sign) {
+        if (tour == null || !Boolean.TRUE.equals(tour.get("isActive"))) {
+            return;
+        }
+        String category = categoryOf(tour.get("category"));
+        Long current = toursByCategory.get(category);
+        toursByCategory.put(category, (current != null ? current : 0L) + sign);
+    }
+
+    // ==================== DELTAS ====================
+
+    /**
+     * Delta producido al pasar una reserva de {@code before} a {@code after}.
+     * Cualquiera de los dos puede ser null (creación o eliminación).
+     */
+    public static DashboardRollup reservationDelta(Map<String, Object> before, Map<String, Object> after) {
+        DashboardRollup delta = new DashboardRollup();
+        delta.addReservation(before, -1);
+        delta.addReservation(after, 1);
+        delta.prune();
+        return delta;
+    }
+
+    /**
+     * Delta producido al pasar un tour de {@code before} a {@code after}
+     */
+    public static DashboardRollup tourDelta(Map<String, Object> before, Map<String, Object> after) {
+        DashboardRollup delta = new DashboardRollup();
+        delta.addTour(before, -1);
+        delta.addTour(after, 1);
+        delta.prune();
+        return delta;
+    }
+
+    /**
+     * Aplicar un delta sobre este rollup
+     */
+    public void merge(DashboardRollup delta) {
+        add(delta, 1);
+    }
+
+    /**
+     * Restar otro rollup (p. ej. los incrementos ya acumulados al reconstruir la base)
+     */
+    public void subtract(DashboardRollup other) {
+        add(other, -1);
+    }
+
+    private void add(DashboardRollup delta, int sign) {
+        totals.add(delta.totals, sign);
+        addBuckets(days, delta.days, sign);
+        addBuckets(categories, delta.categories, sign);
+        for (Map.Entry<String, Long> entry : delta.toursByCategory.entrySet()) {
+            Long current = toursByCategory.get(entry.getKey());
+            long updated = (current != null ? current : 0L) + sign * entry.getValue();
+            if (updated == 0L) {
+                toursByCategory.remove(entry.getKey());
+            } else {
+                toursByCategory.put(entry.getKey(), updated);
+            }
+        }
+    }
+
+    private static void addBuckets(Map<String, Bucket> target, Map<String, Bucket> delta, int sign) {
+        for (Map.Entry<String, Bucket> entry : delta.entrySet()) {
+            Bucket bucket = bucket(target, entry.getKey());
+            bucket.add(entry.getValue(), sign);
+            if (bucket.isEmpty()) {
+                target.remove(entry.getKey());
+            }
+        }
+    }
+
+    private static Bucket bucket(Map<String, Bucket> buckets, String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    public boolean isEmpty() {
+        return totals.isEmpty() && days.isEmpty() && categories.isEmpty() && toursByCategory.isEmpty();
+    }
+
+    /**
+     * Eliminar buckets y categorías que quedaron en cero
+     */
+    private void prune() {
+        days.values().removeIf(Bucket::isEmpty);
+        categories.values().removeIf(Bucket::isEmpty);
+        toursByCategory.values().removeIf(count -> count == 0L);
+    }
+
+    // ==================== CONSULTAS PARA LOS GRÁFICOS ====================
+
+    /**
+     * Ingresos por mes ("YYYY-MM") entre dos días inclusive. Los límites null no filtran.
+     */
+    public Map<String, Double> monthlyRevenue(String fromDay, String toDay) {
+        Map<String, Double> result = new HashMap<>();
+        for (Map.Entry<String, Bucket> entry : range(fromDay, toDay).entrySet()) {
+            String month = monthKey(entry.getKey());
+            Double current = result.get(month);
+            result.put(month, (current != null ? current : 0.0) + entry.getValue().revenue);
+        }
+        return result;
+    }
+
+    public Map<String, Integer> monthlyBookings(String fromDay, String toDay) {
+        Map<String, Integer> result = new HashMap<>();
+        for (Map.Entry<String, Bucket> entry : range(fromDay, toDay).entrySet()) {
+            String month = monthKey(entry.getKey());
+            Integer current = result.get(month);
+            result.put(month, (current != null ? current : 0) + (int) entry.getValue().bookings);
+        }
+        return result;
+    }
+
+    public Map<String, Integer> monthlyPeople(String fromDay, String toDay) {
+        Map<String, Integer> result = new HashMap<>();
+        for (Map.Entry<String, Bucket> entry : range(fromDay, toDay).entrySet()) {
+            String month = monthKey(entry.getKey());
+            Integer current = result.get(month);
+            result.put(month, (current != null ? current : 0) + (int) entry.getValue().people);
+        }
+        return result;
+    }
+
+    /**
+     * Precio promedio por persona y mes (ingresos / personas). Meses sin personas se omiten.
+     */
+    public Map<String, Double> monthlyAveragePrice(String fromDay, String toDay) {
+        Map<String, Double> revenue = monthlyRevenue(fromDay, toDay);
+        Map<String, Integer> people = monthlyPeople(fromDay, toDay);
+        Map<String, Double> result = new HashMap<>();
+        for (Map.Entry<String, Double> entry : revenue.entrySet()) {
+            Integer monthPeople = people.get(entry.getKey());
+            if (monthPeople != null && monthPeople > 0) {
+                result.put(entry.getKey(), entry.getValue() / monthPeople);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Integer> getToursByCategory() {
+        Map<String, Integer> result = new HashMap<>();
+        for (Map.Entry<String, Long> entry : toursByCategory.entrySet()) {
+            if (entry.getValue() > 0) {
+                result.put(entry.getKey(), entry.getValue().intValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reservas por categoría del tour (todo el histórico, como los totales)
+     */
+    public Map<String, Integer> getBookingsByCategory() {
+        Map<String, Integer> result = new HashMap<>();
+        for (Map.Entry<String, Bucket> entry : categories.entrySet()) {
+            if (entry.getValue().bookings != 0) {
+                result.put(entry.getKey(), (int) entry.getValue().bookings);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Double> getRevenueByCategory() {
+        Map<String, Double> result = new HashMap<>();
+        for (Map.Entry<String, Bucket> entry : categories.entrySet()) {
+            if (entry.getValue().revenue != 0.0) {
+                result.put(entry.getKey(), entry.getValue().revenue);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Todas las métricas del dashboard en un solo resultado, con los gráficos mensuales
+     * filtrados entre fromDay y toDay (los totales y las categorías no dependen del período)
+     */
+    public ReservationMetrics toMetrics(String fromDay, String toDay) {
+        return new ReservationMetrics(monthlyRevenue(fromDay, toDay), monthlyBookings(fromDay, toDay),
+                monthlyPeople(fromDay, toDay), monthlyAveragePrice(fromDay, toDay), getToursByCategory(),
+                getBookingsByCategory(), getRevenueByCategory(), totals.revenue, totals.bookings, totals.people);
+    }
+
+    public double getTotalRevenue() { return totals.revenue; }
+    public long getTotalBookings() { return totals.bookings; }
+    public long getTotalPeople() { return totals.people; }
+
+    public NavigableMap<String, Bucket> getDays() {
+        return Collections.unmodifiableNavigableMap(days);
+    }
+
+    private NavigableMap<String, Bucket> range(String fromDay, String toDay) {
+        if (fromDay == null && toDay == null) {
+            return days;
+        } else if (fromDay == null) {
+            return days.headMap(toDay, true);
+        } else if (toDay == null) {
+            return days.tailMap(fromDay, true);
+        }
+        return days.subMap(fromDay, true, toDay, true);
+    }
+
+    // ==================== SERIALIZACIÓN ====================
+
+    /**
+     * Convertir a la estructura anidada del documento analytics/dashboard.
+     * Con un delta, el llamador envuelve cada número en FieldValue.increment.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        if (!totals.isEmpty()) {
+            map.put(FIELD_TOTALS, bucketToMap(totals));
+        }
+        if (!days.isEmpty()) {
+            map.put(FIELD_DAYS, bucketsToMap(days));
+        }
+        if (!categories.isEmpty()) {
+            map.put(FIELD_CATEGORIES, bucketsToMap(categories));
+        }
+        if (!toursByCategory.isEmpty()) {
+            map.put(FIELD_TOURS_BY_CATEGORY, new HashMap<String, Object>(toursByCategory));
+        }
+        return map;
+    }
+
+    /**
+     * Reconstruir desde los datos de un documento analytics/dashboard
+     */
+    @SuppressWarnings("unchecked")
+    public static DashboardRollup fromMap(Map<String, Object> data) {
+        DashboardRollup rollup = new DashboardRollup();
+        if (data == null) {
+            return rollup;
+        }
+        if (data.get(FIELD_TOTALS) instanceof Map) {
+            readBucket((Map<String, Object>) data.get(FIELD_TOTALS), rollup.totals);
+        }
+        readBuckets(data.get(FIELD_DAYS), rollup.days);
+        readBuckets(data.get(FIELD_CATEGORIES), rollup.categories);
+        if (data.get(FIELD_TOURS_BY_CATEGORY) instanceof Map) {
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) data.get(FIELD_TOURS_BY_CATEGORY)).entrySet()) {
+                rollup.toursByCategory.put(entry.getKey(), (long) ReservationMetricsReducer.toInt(entry.getValue()));
+            }
+        }
+        rollup.prune();
+        return rollup;
+    }
+
+    private static Map<String, Object> bucketToMap(Bucket bucket) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(FIELD_REVENUE, bucket.revenue);
+        map.put(FIELD_BOOKINGS, bucket.bookings);
+        map.put(FIELD_PEOPLE, bucket.people);
+        return map;
+    }
+
+    private static Map<String, Object> bucketsToMap(Map<String, Bucket> buckets) {
+        Map<String, Object> map = new HashMap<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            map.put(entry.getKey(), bucketToMap(entry.getValue()));
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readBuckets(Object data, Map<String, Bucket> buckets) {
+        if (!(data instanceof Map)) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) data).entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                Bucket bucket = new Bucket();
+                readBucket((Map<String, Object>) entry.getValue(), bucket);
+                buckets.put(entry.getKey(), bucket);
+            }
+        }
+    }
+
+    private static void readBucket(Map<String, Object> map, Bucket bucket) {
+        bucket.revenue = ReservationMetricsReducer.toDouble(map.get(FIELD_REVENUE));
+        bucket.bookings = ReservationMetricsReducer.toInt(map.get(FIELD_BOOKINGS));
+        bucket.people = ReservationMetricsReducer.toInt(map.get(FIELD_PEOPLE));
+    }
+
+    // ==================== HELPERS ====================
+
+    /**
+     * tourDate "YYYY-MM-DD" -> "YYYY-MM-DD"; fechas sin día ("YYYY-MM") se conservan tal cual
+     */
+    static String dayKey(String tourDate) {
+        if (tourDate == null || tourDate.length() < 7) {
+            return null;
+        }
+        return tourDate.length() >= 10 ? tourDate.substring(0, 10) : tourDate.substring(0, 7);
+    }
+
+    static String monthKey(String dayKey) {
+        return dayKey.substring(0, 7);
+    }
+
+    /** Categoría de un tour o de la reserva; vacía o ausente = {@link #NO_CATEGORY} */
+    static String categoryOf(Object category) {
+        return category instanceof String && !((String) category).isEmpty() ? (String) category : NO_CATEGORY;
+    }
+
+    private static String asString(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.droidtour.analytics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exportación en segundo plano por pasos (PDF, una imagen por gráfico, ...).
+ *
+ * - Los pasos se ejecutan en orden en el executor de fondo; los avisos llegan por el executor de
+ *   callbacks (el hilo principal en la app).
+ * - Cada paso escribe su salida y libera sus recursos antes del siguiente, así en memoria solo hay
+ *   un gráfico a la vez.
+ * - {@link #cancel()} se revisa entre pasos y dentro de ellos ({@link Token#throwIfCancelled()});
+ *   al cancelar, o si falla un paso obligatorio, se borran las salidas ya escritas.
+ *
+ * No depende de Android para poder probarse en la JVM; ver AnalyticsReportExporter.
+ */
+public class ExportPipeline<O> {
+
+    public interface Step<O> {
+        String getLabel();
+        /** Escribir la salida del paso; null si no había nada que exportar */
+        O write(Token token) throws Exception;
+    }
+
+    /** Borrar una salida ya escrita (archivo, URI de MediaStore) */
+    public interface Cleaner<O> {
+        void delete(O output);
+    }
+
+    public interface Listener<O> {
+        void onProgress(int completed, int total, String label);
+        void onComplete(List<O> outputs, int skippedSteps);
+        void onCancelled();
+        void onError(Exception e);
+    }
+
+    public static class Token {
+        private final AtomicBoolean cancelled;
+
+        Token(AtomicBoolean cancelled) {
+            this.cancelled = cancelled;
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        public void throwIfCancelled() {
+            if (cancelled.get()) {
+                throw new CancellationException("Exportación cancelada");
+            }
+        }
+    }
+
+    private static class Entry<O> {
+        final Step<O> step;
+        final boolean required;
+
+        Entry(Step<O> step, boolean required) {
+            this.step = step;
+            this.required = required;
+        }
+    }
+
+    private final Executor background;
+    private final Executor callbacks;
+    private final Cleaner<O> cleaner;
+    private final List<Entry<O>> steps = new ArrayList<>();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    public ExportPipeline(Executor background, Executor callbacks, Cleaner<O> cleaner) {
+        this.background = background;
+        this.callbacks = callbacks;
+        this.cleaner = cleaner;
+    }
+
+    /**
+     * Paso obligatorio: si falla, la exportación completa falla
+     */
+    public ExportPipeline<O> add(Step<O> step) {
+        return add(step, true);
+    }
+
+    /**
+     * Paso opcional (p. ej. un gráfico): si falla se omite y se sigue con el resto
+     */
+    public ExportPipeline<O> addOptional(Step<O> step) {
+        return add(step, false);
+    }
+
+    private ExportPipeline<O> add(Step<O> step, boolean required) {
+        if (started.get()) {
+            throw new IllegalStateException("La exportación ya empezó");
+        }
+        steps.add(new Entry<>(step, required));
+        return this;
+    }
+
+    public int size() {
+        return steps.size();
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Iniciar la exportación (una sola vez). Vuelve de inmediato; el trabajo va en el executor de fondo.
+     */
+    public void start(Listener<O> listener) {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("Una exportación solo se puede iniciar una vez");
+        }
+        background.execute(() -> run(listener));
+    }
+
+    private void run(Listener<O> listener) {
+        Token token = new Token(cancelled);
+        List<O> outputs = new ArrayList<>();
+        int total = steps.size();
+        int skipped = 0;
+
+        for (int i = 0; i < total; i++) {
+            if (token.isCancelled()) {
+                discard(outputs);
+                callbacks.execute(listener::onCancelled);
+                return;
+            }
+
+            Entry<O> entry = steps.get(i);
+            final int index = i;
+            callbacks.execute(() -> listener.onProgress(index, total, entry.step.getLabel()));
+            try {
+                O output = entry.step.write(token);
+                if (output != null) {
+                    outputs.add(output);
+                }
+            } catch (CancellationException e) {
+                discard(outputs);
+                callbacks.execute(listener::onCancelled);
+                return;
+            } catch (Exception e) {
+                if (entry.required) {
+                    discard(outputs);
+                    callbacks.execute(() -> listener.onError(e));
+                    return;
+                }
+                skipped++;
+            }
+        }
+
+        if (token.isCancelled()) {
+            discard(outputs);
+            callbacks.execute(listener::onCancelled);
+            return;
+        }
+
+        List<O> result = Collections.unmodifiableList(outputs);
+        final int skippedSteps = skipped;
+        callbacks.execute(() -> {
+            listener.onProgress(total, total, null);
+            listener.onComplete(result, skippedSteps);
+        });
+    }
+
+    private void discard(List<O> outputs) {
+        for (O output : outputs) {
+            try {
+                cleaner.delete(output);
+            } catch (Exception ignored) {
+                // Borrar es best-effort
+            }
+        }
+        outputs.clear();
+    }
+}
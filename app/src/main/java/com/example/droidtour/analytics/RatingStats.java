@@ -0,0 +1,160 @@
+package com.example.droidtour.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estadísticas de calificación de un tour guardadas en el propio documento:
+ * suma de ratings, número de reseñas, promedio e histograma por estrellas ("1".."5").
+ *
+ * Se actualizan en la misma transacción que crea la reseña, así que leer el promedio o
+ * pintar las barras de calificación no requiere recorrer las reseñas.
+ * No depende de Android ni de Firebase para poder probarse en la JVM.
+ */
+public class RatingStats {
+
+    // Campos del documento del tour
+    public static final String FIELD_RATING_SUM = "ratingSum";
+    public static final String FIELD_TOTAL_REVIEWS = "totalReviews";
+    public static final String FIELD_AVERAGE_RATING = "averageRating";
+    public static final String FIELD_HISTOGRAM = "ratingHistogram";
+
+    public static final int MIN_STARS = 1;
+    public static final int MAX_STARS = 5;
+
+    private double ratingSum;
+    private long totalReviews;
+    private final long[] histogram = new long[MAX_STARS + 1];
+
+    public RatingStats() {}
+
+    /**
+     * Leer las estadísticas de los datos de un tour.
+     * Tours anteriores al histograma solo tienen averageRating/totalReviews: la suma se
+     * reconstruye a partir de ellos y el histograma empieza vacío (ver rebuildTourRatingStats).
+     */
+    public static RatingStats fromData(Map<String, Object> data) {
+        RatingStats stats = new RatingStats();
+        if (data == null) {
+            return stats;
+        }
+
+        stats.totalReviews = Math.max(0, ReservationMetricsReducer.toInt(data.get(FIELD_TOTAL_REVIEWS)));
+        if (data.get(FIELD_RATING_SUM) instanceof Number) {
+            stats.ratingSum = ((Number) data.get(FIELD_RATING_SUM)).doubleValue();
+        } else {
+            stats.ratingSum = ReservationMetricsReducer.toDouble(data.get(FIELD_AVERAGE_RATING)) * stats.totalReviews;
+        }
+
+        Object histogram = data.get(FIELD_HISTOGRAM);
+        if (histogram instanceof Map) {
+            for (int stars = MIN_STARS; stars <= MAX_STARS; stars++) {
+                Object value = ((Map<?, ?>) histogram).get(String.valueOf(stars));
+                if (value instanceof Number) {
+                    stats.histogram[stars] = Math.max(0, ((Number) value).longValue());
+                }
+            }
+        }
+        return stats;
+    }
+
+    public static RatingStats fromFields(Double ratingSum, Integer totalReviews, Double averageRating,
+                                         Map<String, Long> histogram) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(FIELD_RATING_SUM, ratingSum);
+        data.put(FIELD_TOTAL_REVIEWS, totalReviews);
+        data.put(FIELD_AVERAGE_RATING, averageRating);
+        data.put(FIELD_HISTOGRAM, histogram);
+        return fromData(data);
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    public void addRating(float rating) {
+        ratingSum += rating;
+        totalReviews++;
+        histogram[starsOf(rating)]++;
+    }
+
+    /**
+     * Quitar una reseña (p. ej. al eliminarla). Nunca deja valores negativos.
+     */
+    public void removeRating(float rating) {
+        if (totalReviews == 0) {
+            return;
+        }
+        totalReviews--;
+        ratingSum = totalReviews == 0 ? 0.0 : Math.max(0.0, ratingSum - rating);
+        int stars = starsOf(rating);
+        histogram[stars] = Math.max(0, histogram[stars] - 1);
+    }
+
+    /**
+     * Estrellas enteras de una calificación: 4.5 cuenta como 5 y todo queda entre 1 y 5
+     */
+    public static int starsOf(float rating) {
+        int stars = Math.round(rating);
+        return Math.max(MIN_STARS, Math.min(MAX_STARS, stars));
+    }
+
+    // ==================== LECTURA ====================
+
+    public double getRatingSum() {
+        return ratingSum;
+    }
+
+    public long getTotalReviews() {
+        return totalReviews;
+    }
+
+    public double getAverage() {
+        return totalReviews == 0 ? 0.0 : ratingSum / totalReviews;
+    }
+
+    public long getCount(int stars) {
+        return stars < MIN_STARS || stars > MAX_STARS ? 0 : histogram[stars];
+    }
+
+    /**
+     * Reseñas con al menos minStars estrellas (filtros "4+ estrellas", etc.)
+     */
+    public long getCountAtLeast(int minStars) {
+        long count = 0;
+        for (int stars = Math.max(MIN_STARS, minStars); stars <= MAX_STARS; stars++) {
+            count += histogram[stars];
+        }
+        return count;
+    }
+
+    /**
+     * Reseñas incluidas en el histograma. En tours antiguos puede ser menor que totalReviews.
+     */
+    public long getHistogramTotal() {
+        return getCountAtLeast(MIN_STARS);
+    }
+
+    /**
+     * Fracción (0..1) de reseñas con esas estrellas, para las barras de calificación
+     */
+    public double getShare(int stars) {
+        long total = getHistogramTotal();
+        return total == 0 ? 0.0 : (double) getCount(stars) / total;
+    }
+
+    /**
+     * Campos a escribir en el documento del tour
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Long> histogramMap = new HashMap<>();
+        for (int stars = MIN_STARS; stars <= MAX_STARS; stars++) {
+            histogramMap.put(String.valueOf(stars), histogram[stars]);
+        }
+
+        Map<String, Object> map = new HashMap<>();
+        map.put(FIELD_RATING_SUM, ratingSum);
+        map.put(FIELD_TOTAL_REVIEWS, totalReviews);
+        map.put(FIELD_AVERAGE_RATING, getAverage());
+        map.put(FIELD_HISTOGRAM, histogramMap);
+        return map;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.droidtour.analytics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Resultado único con todas las métricas que pinta el dashboard del superadmin.
+ * Lo producen {@link ReservationMetricsReducer} (un escaneo) o {@link DashboardRollup} (documento agregado).
+ * Las claves de los mapas mensuales son "YYYY-MM".
+ */
+public class ReservationMetrics {
+    private final Map<String, Double> monthlyRevenue;
+    private final Map<String, Integer> monthlyBookings;
+    private final Map<String, Integer> monthlyPeople;
+    private final Map<String, Double> monthlyAveragePrice;
+    private final Map<String, Integer> toursByCategory;
+    private final Map<String, Integer> bookingsByCategory;
+    private final Map<String, Double> revenueByCategory;
+    private final double totalRevenue;
+    private final long totalBookings;
+    private final long totalPeople;
+
+    public ReservationMetrics(Map<String, Double> monthlyRevenue, Map<String, Integer> monthlyBookings,
+                              Map<String, Integer> monthlyPeople, Map<String, Double> monthlyAveragePrice,
+                              Map<String, Integer> toursByCategory, Map<String, Integer> bookingsByCategory,
+                              Map<String, Double> revenueByCategory,
+                              double totalRevenue, long totalBookings, long totalPeople) {
+        this.monthlyRevenue = Collections.unmodifiableMap(monthlyRevenue);
+        this.monthlyBookings = Collections.unmodifiableMap(monthlyBookings);
+        this.monthlyPeople = Collections.unmodifiableMap(monthlyPeople);
+        this.monthlyAveragePrice = Collections.unmodifiableMap(monthlyAveragePrice);
+        this.toursByCategory = Collections.unmodifiableMap(toursByCategory);
+        this.bookingsByCategory = Collections.unmodifiableMap(bookingsByCategory);
+        this.revenueByCategory = Collections.unmodifiableMap(revenueByCategory);
+        this.totalRevenue = totalRevenue;
+        this.totalBookings = totalBookings;
+        this.totalPeople = totalPeople;
+    }
+
+    public Map<String, Double> getMonthlyRevenue() { return monthlyRevenue; }
+    public Map<String, Integer> getMonthlyBookings() { return monthlyBookings; }
+    public Map<String, Integer> getMonthlyPeople() { return monthlyPeople; }
+    public Map<String, Double> getMonthlyAveragePrice() { return monthlyAveragePrice; }
+    public Map<String, Integer> getToursByCategory() { return toursByCategory; }
+    public Map<String, Integer> getBookingsByCategory() { return bookingsByCategory; }
+    public Map<String, Double> getRevenueByCategory() { return revenueByCategory; }
+
+    public double getTotalRevenue() { return totalRevenue; }
+    public long getTotalBookings() { return totalBookings; }
+    public long getTotalPeople() { return totalPeople; }
+}
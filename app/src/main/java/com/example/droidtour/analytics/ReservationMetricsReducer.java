@@ -0,0 +1,291 @@
+package com.example.droidtour.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reductor de una sola pasada sobre un snapshot de "reservations" (y opcionalmente de "tours").
+ * Calcula de una vez ingresos, reservas, personas y precio promedio por mes, reservas e ingresos
+ * por categoría, tours por categoría y totales, en lugar de un bucle por gráfico.
+ *
+ * Para no asignar objetos por reserva, tourDate se parsea carácter a carácter y los acumulados
+ * mensuales viven en arreglos primitivos indexados por (año * 12 + mes); los mapas del
+ * {@link ReservationMetrics} se crean solo al final.
+ *
+ * También concentra la coerción de campos (totalPrice, numberOfPeople, status) que comparten
+ * los demás agregadores.
+ */
+public class ReservationMetricsReducer {
+
+    private static final int INITIAL_MONTHS = 32;
+
+    // Filtro de período como yyyymmdd (inclusive); 0 / Integer.MAX_VALUE = sin límite
+    private final int fromDay;
+    private final int toDay;
+    private final boolean hasRange;
+
+    // Acumulados mensuales: índice = monthIndex - baseMonth
+    private int baseMonth = -1;
+    private double[] revenue = new double[INITIAL_MONTHS];
+    private int[] bookings = new int[INITIAL_MONTHS];
+    private int[] people = new int[INITIAL_MONTHS];
+
+    private final Map<String, Integer> toursByCategory = new HashMap<>();
+    private final Map<String, Integer> bookingsByCategory = new HashMap<>();
+    private final Map<String, Double> revenueByCategory = new HashMap<>();
+    private double totalRevenue;
+    private long totalBookings;
+    private long totalPeople;
+
+    public ReservationMetricsReducer() {
+        this(null, null);
+    }
+
+    /**
+     * @param fromDay primer día "YYYY-MM-DD" incluido en los gráficos mensuales (null = sin límite)
+     * @param toDay   último día "YYYY-MM-DD" incluido (null = sin límite)
+     */
+    public ReservationMetricsReducer(String fromDay, String toDay) {
+        this.fromDay = fromDay != null ? packDay(fromDay) : 0;
+        this.toDay = toDay != null ? packDay(toDay) : Integer.MAX_VALUE;
+        this.hasRange = fromDay != null || toDay != null;
+    }
+
+    /**
+     * Acumular una reserva a partir de los valores crudos de sus campos.
+     * Permite usar {@code doc.get("campo")} sin crear el mapa completo del documento.
+     * tourCategory null o vacío se acumula en {@link DashboardRollup#NO_CATEGORY}.
+     */
+    public void accept(Object status, Object paymentStatus, Object tourDate, Object totalPrice, Object numberOfPeople,
+                       Object tourCategory) {
+        if (!isCountedStatus(status)) {
+            return;
+        }
+        String category = DashboardRollup.categoryOf(tourCategory);
+        totalBookings++;
+        bookingsByCategory.merge(category, 1, Integer::sum);
+
+        if (!isCountedPayment(paymentStatus)) {
+            return;
+        }
+        double price = toDouble(totalPrice);
+        int persons = toInt(numberOfPeople);
+        totalRevenue += price;
+        totalPeople += persons;
+        revenueByCategory.merge(category, price, Double::sum);
+
+        if (!(tourDate instanceof String)) {
+            return;
+        }
+        String date = (String) tourDate;
+        int monthIndex = parseMonthIndex(date);
+        if (monthIndex < 0) {
+            return;
+        }
+        if (hasRange) {
+            int day = date.length() >= 10 ? parseDayOfMonth(date) : -1;
+            if (day < 0) {
+                return;
+            }
+            int packed = (monthIndex / 12) * 10000 + (monthIndex % 12 + 1) * 100 + day;
+            if (packed < fromDay || packed > toDay) {
+                return;
+            }
+        }
+
+        int slot = slotFor(monthIndex);
+        revenue[slot] += price;
+        bookings[slot]++;
+        people[slot] += persons;
+    }
+
+    public void accept(Map<String, Object> reservation) {
+        if (reservation == null) {
+            return;
+        }
+        accept(reservation.get("status"), reservation.get("paymentStatus"), reservation.get("tourDate"),
+                reservation.get("totalPrice"), reservation.get("numberOfPeople"), reservation.get("tourCategory"));
+    }
+
+    /**
+     * Acumular un tour al conteo por categoría (solo tours activos)
+     */
+    public void acceptTour(Object isActive, Object category) {
+        if (!Boolean.TRUE.equals(isActive)) {
+            return;
+        }
+        String key = DashboardRollup.categoryOf(category);
+        Integer current = toursByCategory.get(key);
+        toursByCategory.put(key, (current != null ? current : 0) + 1);
+    }
+
+    /**
+     * Reducir colecciones completas de una vez
+     */
+    public static ReservationMetrics reduce(Iterable<? extends Map<String, Object>> reservations,
+                                            Iterable<? extends Map<String, Object>> tours,
+                                            String fromDay, String toDay) {
+        ReservationMetricsReducer reducer = new ReservationMetricsReducer(fromDay, toDay);
+        if (reservations != null) {
+            for (Map<String, Object> reservation : reservations) {
+                reducer.accept(reservation);
+            }
+        }
+        if (tours != null) {
+            for (Map<String, Object> tour : tours) {
+                reducer.acceptTour(tour.get("isActive"), tour.get("category"));
+            }
+        }
+        return reducer.result();
+    }
+
+    public ReservationMetrics result() {
+        Map<String, Double> monthlyRevenue = new HashMap<>();
+        Map<String, Integer> monthlyBookings = new HashMap<>();
+        Map<String, Integer> monthlyPeople = new HashMap<>();
+        Map<String, Double> monthlyAveragePrice = new HashMap<>();
+
+        if (baseMonth >= 0) {
+            for (int slot = 0; slot < bookings.length; slot++) {
+                if (bookings[slot] == 0) {
+                    continue;
+                }
+                String month = formatMonth(baseMonth + slot);
+                monthlyRevenue.put(month, revenue[slot]);
+                monthlyBookings.put(month, bookings[slot]);
+                monthlyPeople.put(month, people[slot]);
+                if (people[slot] > 0) {
+                    monthlyAveragePrice.put(month, revenue[slot] / people[slot]);
+                }
+            }
+        }
+
+        return new ReservationMetrics(monthlyRevenue, monthlyBookings, monthlyPeople, monthlyAveragePrice,
+                new HashMap<>(toursByCategory), new HashMap<>(bookingsByCategory), new HashMap<>(revenueByCategory),
+                totalRevenue, totalBookings, totalPeople);
+    }
+
+    // ==================== ARREGLOS MENSUALES ====================
+
+    private int slotFor(int monthIndex) {
+        if (baseMonth < 0) {
+            baseMonth = monthIndex;
+        }
+        if (monthIndex < baseMonth) {
+            int shift = baseMonth - monthIndex;
+            revenue = shifted(revenue, shift);
+            bookings = shifted(bookings, shift);
+            people = shifted(people, shift);
+            baseMonth = monthIndex;
+        }
+        int slot = monthIndex - baseMonth;
+        if (slot >= bookings.length) {
+            int capacity = Math.max(bookings.length * 2, slot + 1);
+            revenue = Arrays.copyOf(revenue, capacity);
+            bookings = Arrays.copyOf(bookings, capacity);
+            people = Arrays.copyOf(people, capacity);
+        }
+        return slot;
+    }
+
+    private static double[] shifted(double[] values, int shift) {
+        double[] result = new double[values.length + shift];
+        System.arraycopy(values, 0, result, shift, values.length);
+        return result;
+    }
+
+    private static int[] shifted(int[] values, int shift) {
+        int[] result = new int[values.length + shift];
+        System.arraycopy(values, 0, result, shift, values.length);
+        return result;
+    }
+
+    // ==================== PARSEO DE FECHAS ====================
+
+    /**
+     * "YYYY-MM..." -> año * 12 + (mes - 1), o -1 si no tiene ese formato
+     */
+    static int parseMonthIndex(String date) {
+        if (date.length() < 7 || date.charAt(4) != '-') {
+            return -1;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        if (year < 0 || month < 1 || month > 12) {
+            return -1;
+        }
+        return year * 12 + (month - 1);
+    }
+
+    private static int parseDayOfMonth(String date) {
+        if (date.charAt(7) != '-') {
+            return -1;
+        }
+        int day = digits(date, 8, 10);
+        return day >= 1 && day <= 31 ? day : -1;
+    }
+
+    private static int packDay(String day) {
+        int monthIndex = parseMonthIndex(day);
+        int dayOfMonth = day.length() >= 10 ? parseDayOfMonth(day) : 1;
+        if (monthIndex < 0 || dayOfMonth < 0) {
+            throw new IllegalArgumentException("Fecha inválida: " + day);
+        }
+        return (monthIndex / 12) * 10000 + (monthIndex % 12 + 1) * 100 + dayOfMonth;
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String formatMonth(int monthIndex) {
+        int year = monthIndex / 12;
+        int month = monthIndex % 12 + 1;
+        return year + (month < 10 ? "-0" : "-") + month;
+    }
+
+    // ==================== COERCIÓN COMPARTIDA ====================
+
+    /**
+     * Reservas que cuentan para el dashboard: CONFIRMADA, EN_CURSO o COMPLETADA
+     */
+    public static boolean isCountedStatus(Object status) {
+        return "CONFIRMADA".equals(status) || "EN_CURSO".equals(status) || "COMPLETADA".equals(status);
+    }
+
+    /**
+     * Pagos que cuentan como ingreso: sin estado (datos antiguos), CONFIRMADO o COBRADO
+     */
+    public static boolean isCountedPayment(Object paymentStatus) {
+        return paymentStatus == null || "CONFIRMADO".equals(paymentStatus) || "COBRADO".equals(paymentStatus);
+    }
+
+    /**
+     * totalPrice puede venir como Double, Long o String según quién escribió el documento
+     */
+    public static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return 0.0;
+            }
+        }
+        return 0.0;
+    }
+
+    public static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+}
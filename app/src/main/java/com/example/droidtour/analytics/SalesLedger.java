@@ -0,0 +1,358 @@
+package com.example.droidtour.analytics;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ventas de una empresa, actualizadas de forma incremental desde los cambios de sus documentos.
+ *
+ * - Cada reserva, pago a guía (tour_offers aceptadas) y tour se aplica como delta: se resta su aporte
+ *   anterior y se suma el nuevo en los acumulados de cada {@link SalesPeriod} que contienen su día.
+ * - El {@link SalesReport} de cada período se arma una sola vez y queda en caché hasta que un cambio
+ *   lo toca, así cambiar de período no recalcula nada.
+ *
+ * Los días son "YYYY-MM-DD" (tourDate), que se comparan bien como texto. No es thread-safe: se usa
+ * desde el hilo de los listeners de Firestore.
+ */
+public class SalesLedger {
+
+    /** Comisión de la plataforma sobre el ingreso bruto */
+    public static final double PLATFORM_FEE_RATE = 0.10;
+
+    private static class Sale {
+        final String day;
+        final String tourId;
+        final boolean paid;
+        final double revenue;
+        final int people;
+
+        Sale(String day, String tourId, boolean paid, double revenue, int people) {
+            this.day = day;
+            this.tourId = tourId;
+            this.paid = paid;
+            this.revenue = revenue;
+            this.people = people;
+        }
+    }
+
+    private static class GuidePayment {
+        final String day;
+        final double amount;
+
+        GuidePayment(String day, double amount) {
+            this.day = day;
+            this.amount = amount;
+        }
+    }
+
+    private static class TourInfo {
+        final List<String> services;
+        final double ratingSum;
+        final long reviews;
+
+        TourInfo(List<String> services, double ratingSum, long reviews) {
+            this.services = services;
+            this.ratingSum = ratingSum;
+            this.reviews = reviews;
+        }
+    }
+
+    /** Acumulado de reservas (de un período, un día o un tour) */
+    private static class Totals {
+        int bookings;
+        int paidBookings;
+        int people;
+        double revenue;
+
+        void apply(Sale sale, int sign) {
+            bookings += sign;
+            if (sale.paid) {
+                paidBookings += sign;
+                people += sign * sale.people;
+                revenue += sign * sale.revenue;
+            }
+            if (bookings == 0) {
+                // Evitar arrastrar residuos de punto flotante
+                paidBookings = 0;
+                people = 0;
+                revenue = 0.0;
+            }
+        }
+    }
+
+    private static class Window {
+        final SalesPeriod period;
+        final String fromDay;
+        final String toDay;
+        final Totals totals = new Totals();
+        final TreeMap<String, Totals> days = new TreeMap<>();
+        final Map<String, Totals> tours = new HashMap<>();
+        double guidePayments;
+        SalesReport snapshot;
+
+        Window(SalesPeriod period, String fromDay, String toDay) {
+            this.period = period;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        boolean contains(String day) {
+            return day.compareTo(fromDay) >= 0 && day.compareTo(toDay) <= 0;
+        }
+
+        void apply(Sale sale, int sign) {
+            totals.apply(sale, sign);
+            applyTo(days, sale.day, sale, sign);
+            applyTo(tours, sale.tourId, sale, sign);
+            snapshot = null;
+        }
+
+        private static void applyTo(Map<String, Totals> map, String key, Sale sale, int sign) {
+            Totals totals = map.get(key);
+            if (totals == null) {
+                totals = new Totals();
+                map.put(key, totals);
+            }
+            totals.apply(sale, sign);
+            if (totals.bookings == 0) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private final EnumMap<SalesPeriod, Window> windows = new EnumMap<>(SalesPeriod.class);
+    private final Window widest;
+    private final Map<String, Sale> sales = new HashMap<>();
+    private final Map<String, GuidePayment> guidePayments = new HashMap<>();
+    private final Map<String, TourInfo> tours = new HashMap<>();
+    private final Map<String, String> tourNames = new HashMap<>();
+    private int reportBuilds;
+
+    public SalesLedger(Calendar today) {
+        String toDay = SalesPeriod.formatDay(today);
+        for (SalesPeriod period : SalesPeriod.values()) {
+            windows.put(period, new Window(period, period.fromDay(today), toDay));
+        }
+        widest = windows.get(SalesPeriod.widest());
+    }
+
+    /** Primer día que hay que leer para cubrir todos los períodos */
+    public String getFromDay() {
+        return widest.fromDay;
+    }
+
+    public String getToDay() {
+        return widest.toDay;
+    }
+
+    // ==================== CAMBIOS ====================
+
+    /**
+     * Aplicar el estado actual de una reserva (alta o modificación). Las reservas que no cuentan
+     * (pendientes, canceladas, fuera de la ventana) se quitan.
+     */
+    public void putReservation(String reservationId, Map<String, Object> data) {
+        Sale sale = toSale(data);
+        Sale previous = sale != null ? sales.put(reservationId, sale) : sales.remove(reservationId);
+        if (previous != null) {
+            applySale(previous, -1);
+        }
+        if (sale != null) {
+            applySale(sale, 1);
+        }
+    }
+
+    public void removeReservation(String reservationId) {
+        putReservation(reservationId, null);
+    }
+
+    /**
+     * Aplicar una oferta de tour: cuenta como pago a guía si está ACEPTADA y su tourDate cae en la ventana
+     */
+    public void putGuidePayment(String offerId, Map<String, Object> data) {
+        GuidePayment payment = toGuidePayment(data);
+        GuidePayment previous = payment != null ? guidePayments.put(offerId, payment) : guidePayments.remove(offerId);
+        if (previous != null) {
+            applyGuidePayment(previous, -1);
+        }
+        if (payment != null) {
+            applyGuidePayment(payment, 1);
+        }
+    }
+
+    public void removeGuidePayment(String offerId) {
+        putGuidePayment(offerId, null);
+    }
+
+    /**
+     * Datos del tour que no vienen en la reserva: servicios incluidos y rating
+     */
+    public void putTour(String tourId, Map<String, Object> data) {
+        if (data == null) {
+            tours.remove(tourId);
+        } else {
+            List<String> services = new ArrayList<>();
+            Object included = data.get("includedServices");
+            if (included instanceof List) {
+                for (Object service : (List<?>) included) {
+                    if (service instanceof String && !((String) service).isEmpty()) {
+                        services.add((String) service);
+                    }
+                }
+            }
+            long reviews = ReservationMetricsReducer.toInt(data.get("totalReviews"));
+            double ratingSum = data.get("ratingSum") instanceof Number
+                    ? ReservationMetricsReducer.toDouble(data.get("ratingSum"))
+                    : ReservationMetricsReducer.toDouble(data.get("averageRating")) * reviews;
+            tours.put(tourId, new TourInfo(services, ratingSum, reviews));
+            Object name = data.get("tourName");
+            if (name instanceof String && !tourNames.containsKey(tourId)) {
+                tourNames.put(tourId, (String) name);
+            }
+        }
+        // Servicios y rating se usan al armar todos los reportes
+        for (Window window : windows.values()) {
+            window.snapshot = null;
+        }
+    }
+
+    private void applySale(Sale sale, int sign) {
+        for (Window window : windows.values()) {
+            if (window.contains(sale.day)) {
+                window.apply(sale, sign);
+            }
+        }
+    }
+
+    private void applyGuidePayment(GuidePayment payment, int sign) {
+        for (Window window : windows.values()) {
+            if (window.contains(payment.day)) {
+                window.guidePayments += sign * payment.amount;
+                window.snapshot = null;
+            }
+        }
+    }
+
+    private Sale toSale(Map<String, Object> data) {
+        if (data == null || !ReservationMetricsReducer.isCountedStatus(data.get("status"))) {
+            return null;
+        }
+        String day = dayOf(data.get("tourDate"));
+        Object tourId = data.get("tourId");
+        if (day == null || !widest.contains(day) || !(tourId instanceof String)) {
+            return null;
+        }
+        Object tourName = data.get("tourName");
+        if (tourName instanceof String) {
+            tourNames.put((String) tourId, (String) tourName);
+        }
+        return new Sale(day, (String) tourId,
+                ReservationMetricsReducer.isCountedPayment(data.get("paymentStatus")),
+                ReservationMetricsReducer.toDouble(data.get("totalPrice")),
+                ReservationMetricsReducer.toInt(data.get("numberOfPeople")));
+    }
+
+    private GuidePayment toGuidePayment(Map<String, Object> data) {
+        if (data == null || !"ACEPTADA".equals(data.get("status"))) {
+            return null;
+        }
+        String day = dayOf(data.get("tourDate"));
+        if (day == null || !widest.contains(day)) {
+            return null;
+        }
+        return new GuidePayment(day, ReservationMetricsReducer.toDouble(data.get("paymentAmount")));
+    }
+
+    /**
+     * "YYYY-MM-DD..." -> "YYYY-MM-DD", o null si tourDate no tiene ese formato
+     */
+    private static String dayOf(Object tourDate) {
+        if (!(tourDate instanceof String)) {
+            return null;
+        }
+        String date = (String) tourDate;
+        if (date.length() < 10 || ReservationMetricsReducer.parseMonthIndex(date) < 0 || date.charAt(7) != '-'
+                || !Character.isDigit(date.charAt(8)) || !Character.isDigit(date.charAt(9))) {
+            return null;
+        }
+        return date.substring(0, 10);
+    }
+
+    // ==================== REPORTES ====================
+
+    /**
+     * Reporte del período; se arma solo si algo cambió desde la última vez
+     */
+    public SalesReport report(SalesPeriod period) {
+        Window window = windows.get(period);
+        if (window.snapshot == null) {
+            window.snapshot = build(window);
+            reportBuilds++;
+        }
+        return window.snapshot;
+    }
+
+    /** Cantidad de reportes armados (el resto fueron aciertos de caché) */
+    public int getReportBuilds() {
+        return reportBuilds;
+    }
+
+    private SalesReport build(Window window) {
+        TreeMap<String, Double> dailyRevenue = new TreeMap<>();
+        for (Map.Entry<String, Totals> day : window.days.entrySet()) {
+            if (day.getValue().paidBookings > 0) {
+                dailyRevenue.put(day.getKey(), day.getValue().revenue);
+            }
+        }
+
+        List<SalesReport.Line> tourLines = new ArrayList<>();
+        Map<String, Totals> serviceTotals = new HashMap<>();
+        double ratingSum = 0.0;
+        long reviews = 0;
+        for (Map.Entry<String, Totals> entry : window.tours.entrySet()) {
+            String tourId = entry.getKey();
+            Totals totals = entry.getValue();
+            TourInfo info = tours.get(tourId);
+            double rating = info != null && info.reviews > 0 ? info.ratingSum / info.reviews : 0.0;
+            String name = tourNames.get(tourId);
+            tourLines.add(new SalesReport.Line(tourId, name != null ? name : tourId, totals.bookings,
+                    totals.people, totals.revenue, rating));
+
+            if (info == null) {
+                continue;
+            }
+            ratingSum += info.ratingSum;
+            reviews += info.reviews;
+            for (String service : info.services) {
+                Totals serviceSales = serviceTotals.get(service);
+                if (serviceSales == null) {
+                    serviceSales = new Totals();
+                    serviceTotals.put(service, serviceSales);
+                }
+                serviceSales.bookings += totals.bookings;
+                serviceSales.people += totals.people;
+                serviceSales.revenue += totals.revenue;
+            }
+        }
+
+        List<SalesReport.Line> serviceLines = new ArrayList<>();
+        for (Map.Entry<String, Totals> entry : serviceTotals.entrySet()) {
+            Totals totals = entry.getValue();
+            serviceLines.add(new SalesReport.Line(entry.getKey(), entry.getKey(), totals.bookings, totals.people,
+                    totals.revenue, 0.0));
+        }
+        tourLines.sort((a, b) -> Double.compare(b.getRevenue(), a.getRevenue()));
+        serviceLines.sort((a, b) -> Double.compare(b.getRevenue(), a.getRevenue()));
+
+        Totals totals = window.totals;
+        return new SalesReport(window.period, window.fromDay, window.toDay, totals.revenue,
+                totals.revenue * PLATFORM_FEE_RATE, Math.max(0.0, window.guidePayments), totals.bookings,
+                totals.paidBookings, totals.people, reviews > 0 ? ratingSum / reviews : 0.0,
+                dailyRevenue, tourLines, serviceLines);
+    }
+}
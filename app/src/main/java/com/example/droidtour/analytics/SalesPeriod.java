@@ -0,0 +1,61 @@
+package com.example.droidtour.analytics;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * Períodos de los reportes de ventas, siempre terminando hoy (inclusive).
+ * Mismo criterio que las pestañas del dashboard del superadmin: el día límite de semana/mes/año
+ * queda fuera.
+ */
+public enum SalesPeriod {
+    DAY("Diario"),
+    WEEK("Semanal"),
+    MONTH("Mensual"),
+    YEAR("Anual");
+
+    private final String label;
+
+    SalesPeriod(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Primer día "YYYY-MM-DD" incluido en el período que termina en today
+     */
+    public String fromDay(Calendar today) {
+        Calendar cal = (Calendar) today.clone();
+        switch (this) {
+            case WEEK:
+                cal.add(Calendar.DAY_OF_YEAR, -6);
+                break;
+            case MONTH:
+                cal.add(Calendar.MONTH, -1);
+                cal.add(Calendar.DAY_OF_YEAR, 1);
+                break;
+            case YEAR:
+                cal.add(Calendar.YEAR, -1);
+                cal.add(Calendar.DAY_OF_YEAR, 1);
+                break;
+            default:
+                break;
+        }
+        return formatDay(cal);
+    }
+
+    /**
+     * El período más largo: la ventana que hay que leer para poder responder todos los demás
+     */
+    public static SalesPeriod widest() {
+        return YEAR;
+    }
+
+    public static String formatDay(Calendar cal) {
+        return String.format(Locale.US, "%04d-%02d-%02d", cal.get(Calendar.YEAR),
+                cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH));
+    }
+}
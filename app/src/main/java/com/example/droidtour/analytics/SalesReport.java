@@ -0,0 +1,95 @@
+package com.example.droidtour.analytics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Reporte de ventas de una empresa para un período (inmutable). Lo arma {@link SalesLedger}.
+ */
+public class SalesReport {
+
+    /** Ventas de un tour, o de un servicio incluido en los tours vendidos */
+    public static class Line {
+        private final String id;
+        private final String name;
+        private final int bookings;
+        private final int people;
+        private final double revenue;
+        private final double rating;
+
+        Line(String id, String name, int bookings, int people, double revenue, double rating) {
+            this.id = id;
+            this.name = name;
+            this.bookings = bookings;
+            this.people = people;
+            this.revenue = revenue;
+            this.rating = rating;
+        }
+
+        public String getId() { return id; }
+        public String getName() { return name; }
+        public int getBookings() { return bookings; }
+        public int getPeople() { return people; }
+        public double getRevenue() { return revenue; }
+        /** Rating promedio del tour (0 si no tiene reseñas o es un servicio) */
+        public double getRating() { return rating; }
+        public double getAverageTicket() { return bookings > 0 ? revenue / bookings : 0.0; }
+    }
+
+    private final SalesPeriod period;
+    private final String fromDay;
+    private final String toDay;
+    private final double grossRevenue;
+    private final double platformFee;
+    private final double guidePayments;
+    private final int bookings;
+    private final int paidBookings;
+    private final int people;
+    private final double averageRating;
+    private final SortedMap<String, Double> dailyRevenue;
+    private final List<Line> tours;
+    private final List<Line> services;
+
+    SalesReport(SalesPeriod period, String fromDay, String toDay, double grossRevenue, double platformFee,
+                double guidePayments, int bookings, int paidBookings, int people, double averageRating,
+                SortedMap<String, Double> dailyRevenue, List<Line> tours, List<Line> services) {
+        this.period = period;
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        this.grossRevenue = grossRevenue;
+        this.platformFee = platformFee;
+        this.guidePayments = guidePayments;
+        this.bookings = bookings;
+        this.paidBookings = paidBookings;
+        this.people = people;
+        this.averageRating = averageRating;
+        this.dailyRevenue = Collections.unmodifiableSortedMap(dailyRevenue);
+        this.tours = Collections.unmodifiableList(tours);
+        this.services = Collections.unmodifiableList(services);
+    }
+
+    public SalesPeriod getPeriod() { return period; }
+    public String getFromDay() { return fromDay; }
+    public String getToDay() { return toDay; }
+    public double getGrossRevenue() { return grossRevenue; }
+    public double getPlatformFee() { return platformFee; }
+    public double getGuidePayments() { return guidePayments; }
+    public double getNetRevenue() { return grossRevenue - platformFee - guidePayments; }
+    public int getBookings() { return bookings; }
+    public int getPeople() { return people; }
+    /** Ingreso promedio por reserva pagada */
+    public double getAverageTicket() { return paidBookings > 0 ? grossRevenue / paidBookings : 0.0; }
+    /** Rating promedio ponderado por reseñas de los tours vendidos en el período */
+    public double getAverageRating() { return averageRating; }
+    /** Ingresos por día "YYYY-MM-DD", solo días con ventas, en orden */
+    public SortedMap<String, Double> getDailyRevenue() { return dailyRevenue; }
+    /** Tours vendidos, de mayor a menor ingreso */
+    public List<Line> getTours() { return tours; }
+    /** Servicios incluidos en los tours vendidos, de mayor a menor ingreso (un tour suma a todos sus servicios) */
+    public List<Line> getServices() { return services; }
+
+    public boolean isEmpty() {
+        return bookings == 0;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.droidtour.catalog;
+
+import com.example.droidtour.models.Tour;
+import com.example.droidtour.utils.SearchIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Búsqueda y orden del catálogo de tours sobre las páginas ya cargadas.
+ *
+ * - Cada tour se normaliza una sola vez al cargarlo: nombre y descripción van a un
+ *   {@link SearchIndex}; precio, rating y duración en minutos quedan como primitivos.
+ * - Por cada orden se guarda un arreglo de posiciones ya ordenado; se arma la primera vez que se
+ *   pide y se descarta al cargar más tours. Filtrar es marcar lo que devuelve el índice y recorrer
+ *   ese arreglo.
+ * - Los empates y los tours sin valor conservan el orden de carga (el del servidor); los que no
+ *   tienen precio, rating o duración van al final.
+ *
+ * No es thread-safe: ToursCatalogActivity lo usa solo desde su hilo de búsqueda.
+ */
+public class CatalogQueryEngine {
+
+    /** Orden de carga (SORT_DEFAULT de Firestore) */
+    public static final int ORDER_LOADED = 0;
+    /** Precio ascendente */
+    public static final int ORDER_PRICE = 1;
+    /** Rating descendente */
+    public static final int ORDER_RATING = 2;
+    /** Duración ascendente */
+    public static final int ORDER_DURATION = 3;
+
+    private static final int ORDER_COUNT = 4;
+
+    private final List<Tour> tours = new ArrayList<>();
+    private final SearchIndex<Integer> searchIndex = new SearchIndex<>();
+    private double[] prices = new double[64];
+    private double[] ratings = new double[64];
+    private int[] durations = new int[64];
+    private final int[][] orders = new int[ORDER_COUNT][];
+
+    public int size() { return tours.size(); }
+
+    /** Reemplazar todos los tours (primera página o cambio de orden) */
+    public void setTours(Collection<Tour> loaded) {
+        tours.clear();
+        searchIndex.clear();
+        addTours(loaded);
+    }
+
+    /** Agregar una página al final */
+    public void addTours(Collection<Tour> page) {
+        int needed = tours.size() + page.size();
+        if (needed > prices.length) {
+            int capacity = Math.max(needed, prices.length * 2);
+            prices = Arrays.copyOf(prices, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+        }
+        for (Tour tour : page) {
+            int i = tours.size();
+            tours.add(tour);
+            searchIndex.put(String.valueOf(i), i, tour.getName(), tour.getDescription());
+            Double price = tour.getPricePerPerson();
+            prices[i] = price != null ? price : Double.POSITIVE_INFINITY;
+            Double rating = tour.getAverageRating();
+            ratings[i] = rating != null ? rating : Double.NEGATIVE_INFINITY;
+            durations[i] = tour.getDurationMinutes();
+        }
+        Arrays.fill(orders, null);
+    }
+
+    /**
+     * Tours cuyo nombre o descripción tiene todas las palabras buscadas (ver {@link SearchIndex}),
+     * en el orden pedido. Texto vacío devuelve todos.
+     */
+    public List<Tour> query(String text, int order) {
+        int[] positions = order(order);
+        int count = tours.size();
+        boolean[] matches = null;
+        if (!SearchIndex.tokenize(text).isEmpty()) {
+            matches = new boolean[count];
+            for (int i : searchIndex.search(text, count)) {
+                matches[i] = true;
+            }
+        }
+        List<Tour> result = new ArrayList<>(matches == null ? count : Math.min(count, 64));
+        for (int n = 0; n < count; n++) {
+            int i = positions != null ? positions[n] : n;
+            if (matches == null || matches[i]) {
+                result.add(tours.get(i));
+            }
+        }
+        return result;
+    }
+
+    /** Posiciones ordenadas para el criterio, o null para el orden de carga */
+    private int[] order(int order) {
+        if (order <= ORDER_LOADED || order >= ORDER_COUNT) return null;
+        if (orders[order] == null) {
+            orders[order] = sortPositions(order);
+        }
+        return orders[order];
+    }
+
+    private int[] sortPositions(int order) {
+        int count = tours.size();
+        Integer[] boxed = new Integer[count];
+        for (int i = 0; i < count; i++) boxed[i] = i;
+        // Arrays.sort de objetos es estable: a igual clave queda el orden de carga
+        if (order == ORDER_PRICE) {
+            Arrays.sort(boxed, (a, b) -> Double.compare(prices[a], prices[b]));
+        } else if (order == ORDER_RATING) {
+            Arrays.sort(boxed, (a, b) -> Double.compare(ratings[b], ratings[a]));
+        } else {
+            Arrays.sort(boxed, (a, b) -> Integer.compare(durations[a], durations[b]));
+        }
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) positions[i] = boxed[i];
+        return positions;
+    }
+}
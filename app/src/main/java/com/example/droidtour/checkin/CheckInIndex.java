@@ -0,0 +1,345 @@
+package com.example.droidtour.checkin;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Índice de los códigos QR esperados en una salida (tour + fecha), para validar escaneos sin red.
+ *
+ * - Guarda huellas de 64 bits (SHA-256 truncado) de los códigos, no los códigos: la copia en el
+ *   dispositivo no sirve para fabricar un QR válido.
+ * - Tabla hash de direccionamiento abierto sobre long[]: validar es O(1) y sin objetos por código.
+ * - Lleva el estado de check-in/check-out de cada reserva, así un segundo escaneo del mismo QR o un
+ *   check-out sin check-in se detectan sin conexión.
+ *
+ * No es thread-safe: se usa desde el hilo principal.
+ */
+public class CheckInIndex {
+
+    private static final int FORMAT_VERSION = 1;
+
+    public enum Status {
+        /** Registrado ahora */
+        ACCEPTED,
+        /** Esta reserva ya había registrado ese QR */
+        ALREADY_SCANNED,
+        /** QR de check-out en el modo check-in o al revés */
+        WRONG_KIND,
+        /** Check-out de una reserva que no hizo check-in */
+        NOT_CHECKED_IN,
+        /** Firma inválida: código alterado o de otra app */
+        INVALID_SIGNATURE,
+        /** Código bien formado que no pertenece a esta salida */
+        NOT_IN_TOUR
+    }
+
+    public static class ScanResult {
+        private final Status status;
+        private final ScanKind kind;
+        private final Reservation reservation;
+        private final long previousScanAt;
+
+        ScanResult(Status status, ScanKind kind, Reservation reservation, long previousScanAt) {
+            this.status = status;
+            this.kind = kind;
+            this.reservation = reservation;
+            this.previousScanAt = previousScanAt;
+        }
+
+        public Status getStatus() { return status; }
+        public boolean isAccepted() { return status == Status.ACCEPTED; }
+        /** Tipo del QR escaneado (null si no se reconoció) */
+        public ScanKind getKind() { return kind; }
+        /** Reserva del QR (null si no se reconoció) */
+        public Reservation getReservation() { return reservation; }
+        /** Hora del escaneo anterior si status es ALREADY_SCANNED */
+        public long getPreviousScanAt() { return previousScanAt; }
+    }
+
+    /**
+     * Reserva de la salida con su estado local
+     */
+    public static class Reservation {
+        private final String reservationId;
+        private final String clientName;
+        private final int people;
+        private long checkInAt;
+        private long checkOutAt;
+
+        Reservation(String reservationId, String clientName, int people, long checkInAt, long checkOutAt) {
+            this.reservationId = reservationId;
+            this.clientName = clientName;
+            this.people = people;
+            this.checkInAt = checkInAt;
+            this.checkOutAt = checkOutAt;
+        }
+
+        public String getReservationId() { return reservationId; }
+        public String getClientName() { return clientName; }
+        public int getPeople() { return people; }
+        public boolean hasCheckedIn() { return checkInAt > 0; }
+        public boolean hasCheckedOut() { return checkOutAt > 0; }
+        public long getCheckInAt() { return checkInAt; }
+        public long getCheckOutAt() { return checkOutAt; }
+    }
+
+    public static class Builder {
+        private final String tourId;
+        private final String tourDate;
+        private final List<Reservation> reservations = new ArrayList<>();
+        private final List<String> checkInCodes = new ArrayList<>();
+        private final List<String> checkOutCodes = new ArrayList<>();
+
+        public Builder(String tourId, String tourDate) {
+            this.tourId = tourId;
+            this.tourDate = tourDate;
+        }
+
+        /**
+         * Agregar una reserva con sus dos códigos; checkInAt/checkOutAt en ms (0 si no ocurrió)
+         */
+        public Builder add(String reservationId, String clientName, int people,
+                           String checkInCode, String checkOutCode, long checkInAt, long checkOutAt) {
+            reservations.add(new Reservation(reservationId, clientName, people, checkInAt, checkOutAt));
+            checkInCodes.add(checkInCode);
+            checkOutCodes.add(checkOutCode);
+            return this;
+        }
+
+        public CheckInIndex build() {
+            CheckInIndex index = new CheckInIndex(tourId, tourDate, reservations, capacityFor(reservations.size() * 2));
+            for (int i = 0; i < reservations.size(); i++) {
+                if (checkInCodes.get(i) != null) index.put(fingerprint(checkInCodes.get(i)), i, ScanKind.CHECK_IN);
+                if (checkOutCodes.get(i) != null) index.put(fingerprint(checkOutCodes.get(i)), i, ScanKind.CHECK_OUT);
+            }
+            return index;
+        }
+    }
+
+    private final String tourId;
+    private final String tourDate;
+    private final List<Reservation> reservations;
+    // Tabla: huella (0 = libre) -> reserva * 2 + tipo
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+    private QrCodeSigner signer;
+
+    private CheckInIndex(String tourId, String tourDate, List<Reservation> reservations, int capacity) {
+        this.tourId = tourId;
+        this.tourDate = tourDate;
+        this.reservations = reservations;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /** Potencia de 2 con carga máxima del 50% */
+    private static int capacityFor(int codes) {
+        int capacity = 16;
+        while (capacity < codes * 2) capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * Verificar además la firma de los códigos DT1 (los códigos antiguos sin firma solo se buscan)
+     */
+    public void setSigner(QrCodeSigner signer) {
+        this.signer = signer;
+    }
+
+    private void put(long fingerprint, int reservation, ScanKind kind) {
+        int slot = (int) (mix(fingerprint) & mask);
+        while (keys[slot] != 0 && keys[slot] != fingerprint) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = fingerprint;
+        values[slot] = reservation * 2 + (kind == ScanKind.CHECK_OUT ? 1 : 0);
+    }
+
+    private int find(long fingerprint) {
+        int slot = (int) (mix(fingerprint) & mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == fingerprint) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // ==================== VALIDACIÓN ====================
+
+    /**
+     * Validar un QR escaneado en el modo expected; si es válido queda registrado con la hora now
+     */
+    public ScanResult validate(String payload, ScanKind expected, long now) {
+        QrCodeSigner.Parsed parsed = QrCodeSigner.parse(payload);
+        if (parsed != null && signer != null && !signer.verify(parsed)) {
+            return new ScanResult(Status.INVALID_SIGNATURE, null, null, 0);
+        }
+
+        int value = payload == null ? -1 : find(fingerprint(payload));
+        if (value < 0) {
+            return new ScanResult(Status.NOT_IN_TOUR, parsed != null ? parsed.getKind() : null, null, 0);
+        }
+        Reservation reservation = reservations.get(value / 2);
+        ScanKind kind = value % 2 == 1 ? ScanKind.CHECK_OUT : ScanKind.CHECK_IN;
+
+        if (kind != expected) {
+            return new ScanResult(Status.WRONG_KIND, kind, reservation, 0);
+        }
+        return register(reservation, kind, now);
+    }
+
+    /**
+     * Entrada manual del código de reserva (el guía verifica la identidad del cliente)
+     */
+    public ScanResult validateReservation(String reservationId, ScanKind kind, long now) {
+        Reservation reservation = findReservation(reservationId);
+        if (reservation == null) {
+            return new ScanResult(Status.NOT_IN_TOUR, kind, null, 0);
+        }
+        return register(reservation, kind, now);
+    }
+
+    private ScanResult register(Reservation reservation, ScanKind kind, long now) {
+        if (kind == ScanKind.CHECK_IN) {
+            if (reservation.hasCheckedIn()) {
+                return new ScanResult(Status.ALREADY_SCANNED, kind, reservation, reservation.checkInAt);
+            }
+            reservation.checkInAt = now;
+        } else {
+            if (reservation.hasCheckedOut()) {
+                return new ScanResult(Status.ALREADY_SCANNED, kind, reservation, reservation.checkOutAt);
+            }
+            if (!reservation.hasCheckedIn()) {
+                return new ScanResult(Status.NOT_CHECKED_IN, kind, reservation, 0);
+            }
+            reservation.checkOutAt = now;
+        }
+        return new ScanResult(Status.ACCEPTED, kind, reservation, 0);
+    }
+
+    /**
+     * Aplicar un escaneo ya registrado (p. ej. uno de la cola que aún no llegó a Firestore
+     * cuando se volvió a descargar el índice). Conserva la hora más temprana.
+     */
+    public void markScanned(String reservationId, ScanKind kind, long time) {
+        Reservation reservation = findReservation(reservationId);
+        if (reservation == null) {
+            return;
+        }
+        if (kind == ScanKind.CHECK_IN) {
+            if (!reservation.hasCheckedIn() || time < reservation.checkInAt) reservation.checkInAt = time;
+        } else {
+            if (!reservation.hasCheckedOut() || time < reservation.checkOutAt) reservation.checkOutAt = time;
+        }
+    }
+
+    private Reservation findReservation(String reservationId) {
+        for (Reservation reservation : reservations) {
+            if (reservation.reservationId.equals(reservationId)) {
+                return reservation;
+            }
+        }
+        return null;
+    }
+
+    public String getTourId() { return tourId; }
+    public String getTourDate() { return tourDate; }
+    public List<Reservation> getReservations() { return reservations; }
+
+    public int getReservationCount() {
+        return reservations.size();
+    }
+
+    public int getPeopleCount() {
+        int people = 0;
+        for (Reservation reservation : reservations) people += reservation.people;
+        return people;
+    }
+
+    public int getScannedCount(ScanKind kind) {
+        int count = 0;
+        for (Reservation reservation : reservations) {
+            if (kind == ScanKind.CHECK_IN ? reservation.hasCheckedIn() : reservation.hasCheckedOut()) count++;
+        }
+        return count;
+    }
+
+    // ==================== PERSISTENCIA ====================
+
+    /**
+     * Guardar el índice (con el estado local) para usarlo sin conexión
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(tourId);
+        out.writeUTF(tourDate);
+        out.writeInt(reservations.size());
+        for (Reservation reservation : reservations) {
+            out.writeUTF(reservation.reservationId);
+            out.writeUTF(reservation.clientName != null ? reservation.clientName : "");
+            out.writeInt(reservation.people);
+            out.writeLong(reservation.checkInAt);
+            out.writeLong(reservation.checkOutAt);
+        }
+        out.writeInt(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                out.writeLong(keys[i]);
+                out.writeInt(values[i]);
+            }
+        }
+        out.writeLong(0);
+    }
+
+    public static CheckInIndex readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Versión de índice no soportada: " + version);
+        }
+        String tourId = in.readUTF();
+        String tourDate = in.readUTF();
+        int count = in.readInt();
+        List<Reservation> reservations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reservations.add(new Reservation(in.readUTF(), in.readUTF(), in.readInt(), in.readLong(), in.readLong()));
+        }
+        CheckInIndex index = new CheckInIndex(tourId, tourDate, reservations, in.readInt());
+        long fingerprint;
+        while ((fingerprint = in.readLong()) != 0) {
+            int value = in.readInt();
+            index.put(fingerprint, value / 2, value % 2 == 1 ? ScanKind.CHECK_OUT : ScanKind.CHECK_IN);
+        }
+        return index;
+    }
+
+    // ==================== HUELLAS ====================
+
+    static long fingerprint(String code) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(code.getBytes(StandardCharsets.UTF_8));
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (digest[i] & 0xFF);
+            }
+            return value != 0 ? value : 1;   // 0 marca una celda libre
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static long mix(long value) {
+        // Las huellas ya son aleatorias; mezclar igual por si vienen de una tabla con patrones
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
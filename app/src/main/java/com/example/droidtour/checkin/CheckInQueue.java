@@ -0,0 +1,158 @@
+package com.example.droidtour.checkin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cola persistente de check-ins/check-outs validados sin conexión.
+ *
+ * - Un evento por reserva y tipo: si el mismo QR se registra dos veces queda la primera hora.
+ * - Cada cambio se guarda en el {@link Store} antes de volver, así un cierre de la app no pierde
+ *   escaneos.
+ * - {@link #flush} sube todo lo pendiente en una sola llamada; lo que se escanea mientras tanto
+ *   espera a la siguiente. Si la subida falla los eventos se conservan.
+ *
+ * No es thread-safe: se usa desde el hilo principal.
+ */
+public class CheckInQueue {
+
+    public static class Event {
+        private final String reservationId;
+        private final ScanKind kind;
+        private final long time;
+
+        public Event(String reservationId, ScanKind kind, long time) {
+            this.reservationId = reservationId;
+            this.kind = kind;
+            this.time = time;
+        }
+
+        public String getReservationId() { return reservationId; }
+        public ScanKind getKind() { return kind; }
+        public long getTime() { return time; }
+
+        String key() {
+            return reservationId + SEPARATOR + kind.getCode();
+        }
+
+        String encode() {
+            return key() + SEPARATOR + time;
+        }
+
+        static Event decode(String line) {
+            String[] parts = line.split("\\" + SEPARATOR, -1);
+            if (parts.length != 3 || parts[0].isEmpty() || parts[1].length() != 1) {
+                return null;
+            }
+            ScanKind kind = ScanKind.fromCode(parts[1].charAt(0));
+            try {
+                return kind != null ? new Event(parts[0], kind, Long.parseLong(parts[2])) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Dónde se guardan los eventos pendientes (una línea por evento)
+     */
+    public interface Store {
+        List<String> load();
+        void save(List<String> lines);
+    }
+
+    public interface FlushCallback {
+        void onFlushed();
+        void onFailed(Exception e);
+    }
+
+    public interface Flusher {
+        void flush(List<Event> events, FlushCallback callback);
+    }
+
+    private static final char SEPARATOR = '|';
+
+    private final Store store;
+    private final Map<String, Event> pending = new LinkedHashMap<>();
+    private boolean flushing;
+
+    public CheckInQueue(Store store) {
+        this.store = store;
+        for (String line : store.load()) {
+            Event event = Event.decode(line);
+            if (event != null) {
+                putEarliest(event);
+            }
+        }
+    }
+
+    /**
+     * Encolar un escaneo aceptado. Devuelve false si ya había uno para esa reserva y tipo.
+     */
+    public boolean add(Event event) {
+        boolean added = putEarliest(event);
+        persist();
+        return added;
+    }
+
+    private boolean putEarliest(Event event) {
+        Event previous = pending.get(event.key());
+        if (previous == null || event.time < previous.time) {
+            pending.put(event.key(), event);
+        }
+        return previous == null;
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public boolean isFlushing() {
+        return flushing;
+    }
+
+    public List<Event> getPending() {
+        return Collections.unmodifiableList(new ArrayList<>(pending.values()));
+    }
+
+    /**
+     * Subir lo pendiente. Devuelve false si no hay nada o ya hay una subida en curso.
+     */
+    public boolean flush(Flusher flusher) {
+        if (flushing || pending.isEmpty()) {
+            return false;
+        }
+        flushing = true;
+        List<Event> snapshot = new ArrayList<>(pending.values());
+        flusher.flush(snapshot, new FlushCallback() {
+            @Override
+            public void onFlushed() {
+                flushing = false;
+                for (Event event : snapshot) {
+                    // Solo se quita si nadie lo reemplazó durante la subida
+                    if (pending.get(event.key()) == event) {
+                        pending.remove(event.key());
+                    }
+                }
+                persist();
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                flushing = false;
+            }
+        });
+        return true;
+    }
+
+    private void persist() {
+        List<String> lines = new ArrayList<>(pending.size());
+        for (Event event : pending.values()) {
+            lines.add(event.encode());
+        }
+        store.save(lines);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.droidtour.checkin;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Códigos QR firmados de las reservas: DT1.&lt;I|O&gt;.&lt;reservationId&gt;.&lt;nonce&gt;.&lt;firma&gt;
+ *
+ * - nonce: 96 bits aleatorios (SecureRandom), así el código no se puede adivinar a partir del
+ *   usuario y la hora como los antiguos CHECKIN-&lt;userId&gt;-&lt;timestamp&gt;.
+ * - firma: HMAC-SHA256 truncado a 96 bits sobre el resto del código; se verifica sin red y detecta
+ *   códigos alterados o de otro tipo antes de buscarlos en el índice del tour.
+ */
+public class QrCodeSigner {
+
+    public static final String PREFIX = "DT1";
+    private static final char SEPARATOR = '.';
+    private static final int NONCE_BYTES = 12;
+    private static final int TAG_BYTES = 12;
+
+    /**
+     * Código ya separado en partes (sin verificar)
+     */
+    public static class Parsed {
+        private final ScanKind kind;
+        private final String reservationId;
+        private final String signedPart;
+        private final String tag;
+
+        Parsed(ScanKind kind, String reservationId, String signedPart, String tag) {
+            this.kind = kind;
+            this.reservationId = reservationId;
+            this.signedPart = signedPart;
+            this.tag = tag;
+        }
+
+        public ScanKind getKind() { return kind; }
+        public String getReservationId() { return reservationId; }
+    }
+
+    private final Mac mac;
+    private final SecureRandom random;
+
+    public QrCodeSigner(byte[] key) {
+        this(key, new SecureRandom());
+    }
+
+    QrCodeSigner(byte[] key, SecureRandom random) {
+        try {
+            this.mac = Mac.getInstance("HmacSHA256");
+            this.mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
+        this.random = random;
+    }
+
+    /**
+     * Emitir un código nuevo para la reserva
+     */
+    public synchronized String issue(ScanKind kind, String reservationId) {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        String signedPart = PREFIX + SEPARATOR + kind.getCode() + SEPARATOR + reservationId
+                + SEPARATOR + encode(nonce);
+        return signedPart + SEPARATOR + encode(sign(signedPart));
+    }
+
+    /**
+     * Separar un código; null si no tiene el formato DT1 (p. ej. un QR de otra app o un código antiguo)
+     */
+    public static Parsed parse(String payload) {
+        if (payload == null || !payload.startsWith(PREFIX + SEPARATOR)) {
+            return null;
+        }
+        String[] parts = payload.split("\\.", -1);
+        if (parts.length != 5 || parts[1].length() != 1 || parts[2].isEmpty() || parts[3].isEmpty() || parts[4].isEmpty()) {
+            return null;
+        }
+        ScanKind kind = ScanKind.fromCode(parts[1].charAt(0));
+        if (kind == null) {
+            return null;
+        }
+        int tagStart = payload.lastIndexOf(SEPARATOR);
+        return new Parsed(kind, parts[2], payload.substring(0, tagStart), parts[4]);
+    }
+
+    /**
+     * Verificar la firma (comparación en tiempo constante)
+     */
+    public synchronized boolean verify(Parsed parsed) {
+        byte[] expected = sign(parsed.signedPart);
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(parsed.tag);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private byte[] sign(String signedPart) {
+        byte[] full = mac.doFinal(signedPart.getBytes(StandardCharsets.UTF_8));
+        byte[] tag = new byte[TAG_BYTES];
+        System.arraycopy(full, 0, tag, 0, TAG_BYTES);
+        return tag;
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.droidtour.checkin;
+
+/**
+ * Tipo de QR de una reserva: el de inicio (check-in) o el de fin (check-out) del tour
+ */
+public enum ScanKind {
+    CHECK_IN('I', "Check-in"),
+    CHECK_OUT('O', "Check-out");
+
+    private final char code;
+    private final String label;
+
+    ScanKind(char code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public char getCode() { return code; }
+    public String getLabel() { return label; }
+
+    public static ScanKind fromCode(char code) {
+        for (ScanKind kind : values()) {
+            if (kind.code == code) return kind;
+        }
+        return null;
+    }
+
+    /** Valor del extra SCAN_TYPE ("CHECK_IN" / "CHECK_OUT"); check-in por defecto */
+    public static ScanKind fromExtra(String value) {
+        return "CHECK_OUT".equals(value) ? CHECK_OUT : CHECK_IN;
+    }
+}
@@ -57,6 +57,7 @@ public class ClientChatActivity extends AppCompatActivity {
         setupToolbar();
         initializeViews();
         setupRecyclerView();
+        loadConversations();
     }
     
     private void setupToolbar() {
@@ -79,6 +80,8 @@ public class ClientChatActivity extends AppCompatActivity {
              // Abrir chat con empresa específica usando el chat unificado
              Intent intent = new Intent(this, CompanyChatActivity.class);
              intent.putExtra("company_name", company.name);
+             if (company.companyId != null) intent.putExtra("company_id", company.companyId);
+             if (company.conversationId != null) intent.putExtra("conversation_id", company.conversationId);
              startActivity(intent);
         });
         rvCompanyChats.setAdapter(adapter);
@@ -104,6 +107,61 @@ public class ClientChatActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onRestart() {
+        super.onRestart();
+        // Volver de un chat: refrescar último mensaje y no leídos
+        loadConversations();
+    }
+
+    /**
+     * Una sola consulta a conversation_summaries: último mensaje y no leídos ya vienen calculados
+     */
+    private void loadConversations() {
+        com.example.droidtour.firebase.FirestoreManager.getInstance().getConversationSummaries(prefsManager.getUserId(), 50,
+                new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onSuccess(Object result) {
+                java.util.List<com.example.droidtour.utils.ConversationSummary> summaries =
+                        (java.util.List<com.example.droidtour.utils.ConversationSummary>) result;
+                if (summaries.isEmpty()) return; // Sin conversaciones todavía: se mantienen los ejemplos
+
+                java.util.List<CompanyChat> chats = new java.util.ArrayList<>();
+                for (com.example.droidtour.utils.ConversationSummary summary : summaries) {
+                    CompanyChat chat = new CompanyChat(
+                            summary.getOtherUserName() != null ? summary.getOtherUserName() : "Empresa",
+                            summary.getLastMessageText() != null ? summary.getLastMessageText() : "",
+                            formatTime(summary.getLastMessageAt()),
+                            summary.hasUnread(),
+                            (int) summary.getUnreadCount());
+                    chat.companyId = summary.getOtherUserId();
+                    chat.conversationId = summary.getConversationId();
+                    chats.add(chat);
+                }
+                String query = etSearch.getText() != null ? etSearch.getText().toString().trim() : "";
+                adapter.setChats(chats, query);
+                updateNoResultsVisibility();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                android.util.Log.e("ClientChatActivity", "Error cargando conversaciones", e);
+            }
+        });
+    }
+
+    private String formatTime(java.util.Date date) {
+        if (date == null) return "";
+        if (android.text.format.DateUtils.isToday(date.getTime())) {
+            return android.text.format.DateFormat.format("h:mm a", date).toString();
+        }
+        if (android.text.format.DateUtils.isToday(date.getTime() + android.text.format.DateUtils.DAY_IN_MILLIS)) {
+            return "Ayer";
+        }
+        return android.text.format.DateFormat.format("dd/MM", date).toString();
+    }
+
     private void updateNoResultsVisibility() {
         if (adapter == null) return;
         if (adapter.getItemCount() == 0) {
@@ -136,6 +194,8 @@ class CompanyChat {
     public String timestamp;
     public boolean hasUnreadMessages;
     public int unreadCount;
+    public String companyId;
+    public String conversationId;
 
     public CompanyChat(String name, String lastMessage, String timestamp, boolean hasUnreadMessages, int unreadCount) {
         this.name = name;
@@ -196,6 +256,13 @@ class ClientCompanyChatsAdapter extends RecyclerView.Adapter<ClientCompanyChatsA
         return filteredCompanyChats.size();
     }
 
+    // Reemplazar los chats (p. ej. al cargar los resúmenes) manteniendo el filtro actual
+    public void setChats(java.util.List<CompanyChat> chats, String query) {
+        allCompanyChats.clear();
+        allCompanyChats.addAll(chats);
+        filter(query);
+    }
+
     // Filtrar por nombre de empresa (case-insensitive)
     public void filter(String query) {
         filteredCompanyChats.clear();
@@ -256,9 +256,7 @@ public class ClientCreatePasswordActivity extends AppCompatActivity {
         PreferencesManager prefsManager = new PreferencesManager(this);
 
         String fullName = nombres + " " + apellidos;
-        prefsManager.saveUserData(userId, fullName, correo, telefono, "CLIENT");
-        prefsManager.guardarUltimoLogin(System.currentTimeMillis());
-        prefsManager.marcarPrimeraVezCompletada();
+        prefsManager.saveLogin(userId, fullName, correo, telefono, "CLIENT");
         
         // 🔥 Guardar sesión en Firestore
         saveSessionToFirestore(userId, correo, fullName);
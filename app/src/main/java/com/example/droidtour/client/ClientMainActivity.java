@@ -49,6 +49,8 @@ public class ClientMainActivity extends AppCompatActivity implements NavigationV
     // Firebase
     private com.example.droidtour.firebase.FirebaseAuthManager authManager;
     private com.example.droidtour.firebase.FirestoreManager firestoreManager;
+    private com.example.droidtour.firebase.ReadModelSyncManager readModel;
+    private com.example.droidtour.firebase.CountManager countManager;
     private String currentUserId;
     
     // Storage Local (deprecated - migrar a Firebase)
@@ -94,6 +96,8 @@ public class ClientMainActivity extends AppCompatActivity implements NavigationV
         // Inicializar Firebase
         authManager = com.example.droidtour.firebase.FirebaseAuthManager.getInstance(this);
         firestoreManager = com.example.droidtour.firebase.FirestoreManager.getInstance();
+        readModel = com.example.droidtour.firebase.ReadModelSyncManager.getInstance(this);
+        countManager = com.example.droidtour.firebase.CountManager.getInstance(this);
         currentUserId = authManager.getCurrentUserId();
         
         // 🔥 TEMPORAL: Para testing sin login
@@ -104,7 +108,7 @@ public class ClientMainActivity extends AppCompatActivity implements NavigationV
         }
         
         // Inicializar helpers locales (deprecated)
-        dbHelper = new DatabaseHelper(this);
+        dbHelper = DatabaseHelper.getInstance(this);
         notificationHelper = new NotificationHelper(this);
 
         initializeViews();
@@ -215,11 +219,28 @@ public class ClientMainActivity extends AppCompatActivity implements NavigationV
     }
 
     private void updateNotificationBadge() {
-        if (tvNotificationBadge != null && dbHelper != null) {
-            int unreadCount = dbHelper.getUnreadNotificationsCount();
-            if (unreadCount > 0) {
+        if (tvNotificationBadge == null || currentUserId == null) return;
+
+        // Una lectura de agregado (count) en Firestore; mientras tanto se muestra el último valor guardado
+        countManager.countUnreadNotifications(currentUserId, new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                notificationCount = (Integer) result;
+                renderNotificationBadge();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                android.util.Log.e("ClientMain", "Error contando notificaciones", e);
+            }
+        });
+    }
+
+    private void renderNotificationBadge() {
+        if (tvNotificationBadge != null) {
+            if (notificationCount > 0) {
                 tvNotificationBadge.setVisibility(View.VISIBLE);
-                tvNotificationBadge.setText(String.valueOf(Math.min(unreadCount, 99)));
+                tvNotificationBadge.setText(String.valueOf(Math.min(notificationCount, 99)));
             } else {
                 tvNotificationBadge.setVisibility(View.GONE);
             }
@@ -356,7 +377,8 @@ public class ClientMainActivity extends AppCompatActivity implements NavigationV
     }
     
     private void loadFeaturedToursFromFirebase() {
-        firestoreManager.getTours(new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
+        // Pinta desde SQLite y refresca con los cambios de Firestore
+        readModel.getTours(new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
             @Override
             public void onSuccess(Object result) {
                 featuredTours.clear();
@@ -372,7 +394,7 @@ public class ClientMainActivity extends AppCompatActivity implements NavigationV
     }
 
     private void loadPopularCompaniesFromFirebase() {
-        firestoreManager.getCompanies(new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
+        readModel.getCompanies(new com.example.droidtour.firebase.FirestoreManager.FirestoreCallback() {
             @Override
             public void onSuccess(Object result) {
                 popularCompanies.clear();
@@ -413,6 +435,8 @@ public class ClientMainActivity extends AppCompatActivity implements NavigationV
             drawerLayout.closeDrawers();
         } else if (id == R.id.nav_explore_tours) {
             startActivity(new Intent(this, CompaniesListActivity.class));
+        } else if (id == R.id.nav_search) {
+            startActivity(new Intent(this, LocalSearchActivity.class));
         } else if (id == R.id.nav_companies) {
             startActivity(new Intent(this, CompaniesListActivity.class));
         } else if (id == R.id.nav_my_reservations) {
@@ -431,6 +455,7 @@ public class ClientMainActivity extends AppCompatActivity implements NavigationV
         } else if (id == R.id.nav_logout) {
             //Se limpian los datos de seión
             prefsManager.cerrarSesion();
+            readModel.clear();
 
             //Limpiar el stack de activities de Login
             Intent intent= new Intent(this, LoginActivity.class);
@@ -493,31 +518,13 @@ public class ClientMainActivity extends AppCompatActivity implements NavigationV
     
     private void loadSampleReservations() {
         // Cargar reservas de ejemplo solo si la BD está vacía
-        List<DatabaseHelper.Reservation> existingReservations = dbHelper.getAllReservations();
-        
-        if (existingReservations.isEmpty()) {
+        if (!dbHelper.hasReservations()) {
             // Agregar reservas de ejemplo
-            dbHelper.addReservation(
-                "City Tour Lima Centro", 
-                "Lima Adventure Tours", 
-                "28 Oct", 
-                "09:00 AM",
-                "CONFIRMADA", 
-                150.0, 
-                2, 
-                "QR-2024-001"
-            );
-            
-            dbHelper.addReservation(
-                "Tour Machu Picchu", 
-                "Cusco Explorer", 
-                "02 Nov", 
-                "06:00 AM",
-                "CONFIRMADA", 
-                450.0, 
-                2, 
-                "QR-2024-002"
-            );
+            dbHelper.addReservations(java.util.Arrays.asList(
+                new DatabaseHelper.Reservation("City Tour Lima Centro", "Lima Adventure Tours",
+                    "28 Oct", "09:00 AM", "CONFIRMADA", 150.0, 2, "QR-2024-001"),
+                new DatabaseHelper.Reservation("Tour Machu Picchu", "Cusco Explorer",
+                    "02 Nov", "06:00 AM", "CONFIRMADA", 450.0, 2, "QR-2024-002")));
             
             Toast.makeText(this, "Reservas cargadas", Toast.LENGTH_SHORT).show();
             
@@ -534,14 +541,7 @@ public class ClientMainActivity extends AppCompatActivity implements NavigationV
     }
     
     private void updateActiveReservationsCount() {
-        List<DatabaseHelper.Reservation> allReservations = dbHelper.getAllReservations();
-        int activeCount = 0;
-        
-        for (DatabaseHelper.Reservation res : allReservations) {
-            if (res.getStatus().equals("CONFIRMADA")) {
-                activeCount++;
-            }
-        }
+        int activeCount = dbHelper.countReservationsByStatus("CONFIRMADA");
         
         tvActiveReservations.setText(activeCount + " reservas activas");
     }
@@ -622,10 +622,9 @@ class FeaturedToursAdapter extends RecyclerView.Adapter<FeaturedToursAdapter.Vie
 
         if (tourImage != null) {
             String imageUrl = tour.getImageUrl() != null ? tour.getImageUrl() : "https://www.dicasdeviagem.com/wp-content/uploads/2020/03/lima-costa-mar-2048x1364.jpg";
-            Glide.with(tourImage.getContext())
-                .load(imageUrl)
+            com.example.droidtour.images.ImageRequests.listThumbnail(Glide.with(tourImage),
+                    imageUrl, com.example.droidtour.images.ImageSpec.TOUR_HERO)
                 .placeholder(android.R.drawable.ic_menu_gallery)
-                .centerCrop()
                 .into(tourImage);
         }
 
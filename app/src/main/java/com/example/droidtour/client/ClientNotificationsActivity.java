@@ -16,6 +16,7 @@ import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.tabs.TabLayout;
 import com.example.droidtour.R;
 import com.example.droidtour.models.Notification;
+import com.example.droidtour.firebase.CountManager;
 import com.example.droidtour.firebase.FirestoreManager;
 import com.example.droidtour.firebase.FirebaseAuthManager;
 
@@ -172,6 +173,7 @@ public class ClientNotificationsActivity extends AppCompatActivity {
         firestoreManager.markAllNotificationsAsRead(currentUserId, new FirestoreManager.FirestoreCallback() {
             @Override
             public void onSuccess(Object result) {
+                CountManager.getInstance(ClientNotificationsActivity.this).onAllNotificationsRead(currentUserId);
                 Toast.makeText(ClientNotificationsActivity.this, 
                     "Todas marcadas como leídas", Toast.LENGTH_SHORT).show();
                 loadNotificationsFromFirestore(); // Recargar
@@ -285,6 +287,7 @@ public class ClientNotificationsActivity extends AppCompatActivity {
                 @Override
                 public void onSuccess(Object result) {
                         notification.setIsRead(true);
+                    CountManager.getInstance(ClientNotificationsActivity.this).onNotificationsRead(currentUserId, 1);
                     notificationsAdapter.notifyDataSetChanged();
                 }
                 
@@ -21,7 +21,7 @@ import com.example.droidtour.utils.ChatManager;
 import com.example.droidtour.models.Message;
 import com.example.droidtour.utils.PreferencesManager;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import com.google.firebase.Timestamp;
 import java.util.List;
 
@@ -71,32 +71,50 @@ public class CompanyChatActivity extends AppCompatActivity {
         loadCompanyInfo();
 
         // Preparar ChatManager
-        chatManager = new ChatManager();
+        chatManager = new ChatManager(this);
         currentUserId = prefsManager.getUserId();
+        chatAdapter.setMessages(chatManager.getMessages(), currentUserId);
 
         // conversationId: preferimos recibir company_id en el Intent, sino generar uno a partir del nombre
-        conversationId = getIntent().getStringExtra("company_id");
+        // (la lista de chats envía conversation_id del resumen)
+        conversationId = getIntent().getStringExtra("conversation_id");
+        if (conversationId == null || conversationId.isEmpty()) {
+            conversationId = getIntent().getStringExtra("company_id");
+        }
         if (conversationId == null || conversationId.isEmpty()) {
             // Sanitizar el nombre para usarlo como id
             String tmp = companyName != null ? companyName : "unknown_company";
             conversationId = tmp.trim().toLowerCase().replaceAll("\\s+", "_").replaceAll("[^a-z0-9_-]", "");
         }
 
-        // Escuchar mensajes
-        chatManager.listenForMessages(conversationId, new ChatManager.MessagesListener() {
+        // Escuchar la ventana de mensajes recientes; el historial se pide al subir
+        chatManager.openConversation(conversationId, new ChatManager.ConversationListener() {
             @Override
-            public void onNewMessages(List<Message> messages) {
-                runOnUiThread(() -> {
-                    chatAdapter.addMessages(messages);
+            public void onInserted(int position, int count) {
+                boolean atBottom = !rvChatMessages.canScrollVertically(1);
+                chatAdapter.notifyItemRangeInserted(position, count);
+                // Solo bajar al final si el mensaje es nuevo y el usuario ya estaba abajo
+                if (position + count == chatAdapter.getItemCount() && atBottom) {
                     rvChatMessages.scrollToPosition(chatAdapter.getItemCount() - 1);
-                });
+                }
+            }
+
+            @Override
+            public void onChanged(int position) {
+                chatAdapter.notifyItemChanged(position);
+            }
+
+            @Override
+            public void onRemoved(int position) {
+                chatAdapter.notifyItemRemoved(position);
             }
 
             @Override
             public void onError(Exception e) {
-                runOnUiThread(() -> Toast.makeText(CompanyChatActivity.this, "Error al recibir mensajes: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                Toast.makeText(CompanyChatActivity.this, "Error al recibir mensajes: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
+        chatManager.markAsRead(currentUserId);
     }
 
     private void setupToolbar() {
@@ -119,9 +137,36 @@ public class CompanyChatActivity extends AppCompatActivity {
     }
 
     private void setupRecyclerView() {
-        rvChatMessages.setLayoutManager(new LinearLayoutManager(this));
-        chatAdapter = new CompanyChatAdapter(currentUserId);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        layoutManager.setStackFromEnd(true);
+        rvChatMessages.setLayoutManager(layoutManager);
+        chatAdapter = new CompanyChatAdapter();
         rvChatMessages.setAdapter(chatAdapter);
+
+        // Cargar mensajes anteriores al llegar arriba
+        rvChatMessages.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= 3) {
+                    loadOlderMessages();
+                }
+            }
+        });
+    }
+
+    private void loadOlderMessages() {
+        if (chatManager == null || !chatManager.hasMoreOlder() || chatManager.isLoadingOlder()) return;
+        chatManager.loadOlderMessages(new ChatManager.PageCallback() {
+            @Override
+            public void onPageLoaded(int count, boolean hasMore) {
+                // Las filas ya se insertaron arriba vía onInserted; la posición visible se mantiene
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Toast.makeText(CompanyChatActivity.this, "Error al cargar mensajes anteriores", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void setupClickListeners() {
@@ -143,7 +188,7 @@ public class CompanyChatActivity extends AppCompatActivity {
 
         // Construir Message usando el modelo existente
         Message msg = new Message();
-        msg.setMessageId(null); // Firestore asignará id
+        msg.setMessageId(null); // ChatManager asigna el id
         msg.setSenderId(currentUserId);
         msg.setSenderName(prefsManager.getUserName());
         msg.setReceiverId(getIntent().getStringExtra("company_id") != null ? getIntent().getStringExtra("company_id") : conversationId);
@@ -154,25 +199,34 @@ public class CompanyChatActivity extends AppCompatActivity {
         msg.setRead(false);
         msg.setConversationId(conversationId);
 
-        // Enviar mediante ChatManager
+        // Enviar mediante ChatManager: el mensaje aparece al momento y el snapshot lo reemplaza (mismo ID)
+        etMessage.setText("");
         chatManager.sendMessage(conversationId, msg, new ChatManager.SendCallback() {
             @Override
             public void onSuccess() {
-                runOnUiThread(() -> {
-                    etMessage.setText("");
-                    // Opcional: añadir al adaptador inmediatamente (optimista)
-                    chatAdapter.addMessage(msg);
-                    rvChatMessages.scrollToPosition(chatAdapter.getItemCount() - 1);
-                });
             }
 
             @Override
             public void onFailure(Exception e) {
-                runOnUiThread(() -> Toast.makeText(CompanyChatActivity.this, "Error al enviar: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                // ChatManager ya quitó el mensaje de la lista: devolver el texto para reintentar
+                runOnUiThread(() -> {
+                    if (etMessage.getText() == null || etMessage.getText().length() == 0) {
+                        etMessage.setText(messageText);
+                        etMessage.setSelection(messageText.length());
+                    }
+                    Toast.makeText(CompanyChatActivity.this, "Error al enviar: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
             }
         });
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Lo recibido mientras el chat estaba abierto ya se vio
+        if (chatManager != null) chatManager.markAsRead(currentUserId);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
@@ -198,11 +252,14 @@ public class CompanyChatActivity extends AppCompatActivity {
 // Adaptador para los mensajes del chat de la empresa (dinámico)
 class CompanyChatAdapter extends RecyclerView.Adapter<CompanyChatAdapter.ViewHolder> {
 
-    private final List<Message> messages = new ArrayList<>();
-    private final String currentUserId;
+    // Lista ordenada de ChatManager: los cambios llegan con notifyItem* desde la actividad
+    private List<Message> messages = Collections.emptyList();
+    private String currentUserId;
 
-    CompanyChatAdapter(String currentUserId) {
+    void setMessages(List<Message> messages, String currentUserId) {
+        this.messages = messages;
         this.currentUserId = currentUserId;
+        notifyDataSetChanged();
     }
 
     @Override
@@ -243,17 +300,6 @@ class CompanyChatAdapter extends RecyclerView.Adapter<CompanyChatAdapter.ViewHol
         return messages.size();
     }
 
-    public void addMessage(Message m) {
-        messages.add(m);
-        notifyItemInserted(messages.size() - 1);
-    }
-
-    public void addMessages(List<Message> ms) {
-        int start = messages.size();
-        messages.addAll(ms);
-        notifyItemRangeInserted(start, ms.size());
-    }
-
     static class ViewHolder extends RecyclerView.ViewHolder {
         ViewHolder(View v) {
             super(v);
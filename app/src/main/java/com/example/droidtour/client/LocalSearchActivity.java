@@ -0,0 +1,295 @@
+package com.example.droidtour.client;
+
+import android.content.Intent;
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.TextWatcher;
+import android.text.style.StyleSpan;
+import android.view.LayoutInflater;
+import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.droidtour.LoginActivity;
+import com.example.droidtour.R;
+import com.example.droidtour.TourDetailActivity;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.firebase.ReadModelSyncManager;
+import com.example.droidtour.search.SearchHit;
+import com.google.android.material.appbar.MaterialToolbar;
+import com.google.android.material.chip.ChipGroup;
+import com.google.android.material.textfield.TextInputEditText;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Búsqueda de texto sin red sobre los tours, reseñas y mensajes guardados en el teléfono
+ * (ReadModelDatabase.search). Los resultados vienen por relevancia y con las palabras
+ * encontradas en negrita.
+ */
+public class LocalSearchActivity extends AppCompatActivity {
+
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+    private static final int RESULT_LIMIT = 50;
+
+    private TextInputEditText etSearch;
+    private ChipGroup chipGroupKind;
+    private RecyclerView rvResults;
+    private TextView tvEmpty;
+    private SearchResultsAdapter adapter;
+    private ReadModelSyncManager readModel;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::runSearch;
+    private String currentKind;
+    // Descarta respuestas de búsquedas que ya no corresponden a lo escrito
+    private int searchGeneration;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        com.example.droidtour.utils.PreferencesManager prefsManager = new com.example.droidtour.utils.PreferencesManager(this);
+
+        // Validar sesión PRIMERO
+        if (!prefsManager.isLoggedIn()) {
+            redirectToLogin();
+            finish();
+            return;
+        }
+
+        // Validar que el usuario sea CLIENT
+        String userType = prefsManager.getUserType();
+        if (userType == null || !userType.equals("CLIENT")) {
+            redirectToLogin();
+            finish();
+            return;
+        }
+
+        setContentView(R.layout.activity_local_search);
+        getWindow().setStatusBarColor(ContextCompat.getColor(this, R.color.primary));
+
+        readModel = ReadModelSyncManager.getInstance(this);
+
+        setupToolbar();
+        initializeViews();
+        setupRecyclerView();
+        setupSearch();
+    }
+
+    private void setupToolbar() {
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+    }
+
+    private void initializeViews() {
+        etSearch = findViewById(R.id.et_search);
+        chipGroupKind = findViewById(R.id.chip_group_kind);
+        rvResults = findViewById(R.id.rv_results);
+        tvEmpty = findViewById(R.id.tv_empty);
+    }
+
+    private void setupRecyclerView() {
+        rvResults.setLayoutManager(new LinearLayoutManager(this));
+        adapter = new SearchResultsAdapter(this::openResult);
+        rvResults.setAdapter(adapter);
+    }
+
+    private void setupSearch() {
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
+            @Override public void afterTextChanged(Editable s) {
+                scheduleSearch();
+            }
+        });
+
+        chipGroupKind.setOnCheckedStateChangeListener((group, checkedIds) -> {
+            int checkedId = checkedIds.isEmpty() ? R.id.chip_kind_all : checkedIds.get(0);
+            if (checkedId == R.id.chip_kind_tours) {
+                currentKind = SearchHit.KIND_TOUR;
+            } else if (checkedId == R.id.chip_kind_reviews) {
+                currentKind = SearchHit.KIND_REVIEW;
+            } else if (checkedId == R.id.chip_kind_messages) {
+                currentKind = SearchHit.KIND_MESSAGE;
+            } else {
+                currentKind = null;
+            }
+            mainHandler.removeCallbacks(searchRunnable);
+            runSearch();
+        });
+    }
+
+    // ==================== BÚSQUEDA ====================
+
+    private void scheduleSearch() {
+        mainHandler.removeCallbacks(searchRunnable);
+        mainHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+    }
+
+    private void runSearch() {
+        String query = etSearch.getText() != null ? etSearch.getText().toString() : "";
+        int generation = ++searchGeneration;
+        if (query.trim().isEmpty()) {
+            showResults(new ArrayList<>(), "Busca en los tours, reseñas y chats guardados en el teléfono");
+            return;
+        }
+
+        readModel.search(query, currentKind, RESULT_LIMIT, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                if (generation != searchGeneration || isDestroyed()) return;
+                @SuppressWarnings("unchecked")
+                List<SearchHit> hits = (List<SearchHit>) result;
+                showResults(hits, "Sin resultados para \"" + query.trim() + "\"");
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (generation != searchGeneration || isDestroyed()) return;
+                showResults(new ArrayList<>(), "No se pudo buscar");
+            }
+        });
+    }
+
+    private void showResults(List<SearchHit> hits, String emptyMessage) {
+        adapter.setHits(hits);
+        boolean empty = hits.isEmpty();
+        rvResults.setVisibility(empty ? View.GONE : View.VISIBLE);
+        tvEmpty.setVisibility(empty ? View.VISIBLE : View.GONE);
+        tvEmpty.setText(emptyMessage);
+    }
+
+    private void openResult(SearchHit hit) {
+        if (hit.getRefId() == null) return;
+        Intent intent;
+        if (SearchHit.KIND_MESSAGE.equals(hit.getKind())) {
+            intent = new Intent(this, CompanyChatActivity.class);
+            intent.putExtra("conversation_id", hit.getRefId());
+            intent.putExtra("company_name", hit.getTitle());
+        } else {
+            // Tours y reseñas llevan al tour
+            intent = new Intent(this, TourDetailActivity.class);
+            intent.putExtra("tour_id", hit.getRefId());
+            intent.putExtra("tour_name", hit.getTitle());
+        }
+        startActivity(intent);
+    }
+
+    @Override
+    protected void onDestroy() {
+        mainHandler.removeCallbacks(searchRunnable);
+        super.onDestroy();
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == android.R.id.home) {
+            onBackPressed();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void redirectToLogin() {
+        Intent intent = new Intent(this, LoginActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        startActivity(intent);
+    }
+}
+
+// Adaptador de resultados de la búsqueda local
+class SearchResultsAdapter extends RecyclerView.Adapter<SearchResultsAdapter.ViewHolder> {
+    interface OnHitClick { void onClick(SearchHit hit); }
+
+    private final List<SearchHit> hits = new ArrayList<>();
+    private final OnHitClick onHitClick;
+
+    SearchResultsAdapter(OnHitClick onHitClick) {
+        this.onHitClick = onHitClick;
+    }
+
+    void setHits(List<SearchHit> newHits) {
+        hits.clear();
+        hits.addAll(newHits);
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_search_result, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        SearchHit hit = hits.get(position);
+        holder.tvTitle.setText(hit.getTitle() != null ? hit.getTitle() : "");
+        holder.tvKind.setText(kindLabel(hit.getKind()));
+        String subtitle = hit.getSubtitle();
+        holder.tvSubtitle.setText(subtitle != null ? subtitle : "");
+        holder.tvSubtitle.setVisibility(subtitle == null || subtitle.isEmpty() ? View.GONE : View.VISIBLE);
+        holder.tvSnippet.setText(highlight(hit.getSnippet()));
+        holder.itemView.setOnClickListener(v -> onHitClick.onClick(hit));
+    }
+
+    @Override
+    public int getItemCount() { return hits.size(); }
+
+    private static String kindLabel(String kind) {
+        if (SearchHit.KIND_TOUR.equals(kind)) return "Tour";
+        if (SearchHit.KIND_REVIEW.equals(kind)) return "Reseña";
+        if (SearchHit.KIND_MESSAGE.equals(kind)) return "Mensaje";
+        return "";
+    }
+
+    /** Las marcas del snippet pasan a negritas */
+    private static CharSequence highlight(String snippet) {
+        SpannableStringBuilder text = new SpannableStringBuilder();
+        if (snippet == null) return text;
+        int start = -1;
+        for (int i = 0; i < snippet.length(); i++) {
+            char c = snippet.charAt(i);
+            if (c == SearchHit.MARK_START) {
+                start = text.length();
+            } else if (c == SearchHit.MARK_END) {
+                if (start >= 0 && start < text.length()) {
+                    text.setSpan(new StyleSpan(Typeface.BOLD), start, text.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+                start = -1;
+            } else {
+                text.append(c);
+            }
+        }
+        return text;
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvTitle, tvKind, tvSubtitle, tvSnippet;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            tvTitle = itemView.findViewById(R.id.tv_result_title);
+            tvKind = itemView.findViewById(R.id.tv_result_kind);
+            tvSubtitle = itemView.findViewById(R.id.tv_result_subtitle);
+            tvSnippet = itemView.findViewById(R.id.tv_result_snippet);
+        }
+    }
+}
@@ -3,18 +3,33 @@ package com.example.droidtour.database;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+
+/**
+ * Datos de demostración de guías y clientes (tours, ofertas, reservas y notificaciones).
+ *
+ * - Una sola instancia por proceso ({@link #getInstance}); la conexión queda abierta y en modo WAL,
+ *   así las lecturas no esperan a las escrituras.
+ * - El esquema se actualiza por versiones en {@link #migrate}, sin borrar datos.
+ * - Los INSERT y COUNT frecuentes se compilan una vez y se reutilizan; las inserciones en lote van
+ *   en una sola transacción.
+ */
 public class DatabaseHelper extends SQLiteOpenHelper {
-    
+
     private static final String DATABASE_NAME = "DroidTour.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 2;
+
+    private static DatabaseHelper instance;
 
     // ==================== TABLES ====================
-    
+
     // Table: Tours (for Guides)
     private static final String TABLE_TOURS = "tours";
     private static final String TOUR_ID = "id";
@@ -58,8 +73,52 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String NOTIF_TIMESTAMP = "timestamp";
     private static final String NOTIF_IS_READ = "is_read"; // 0 = no visto, 1 = visto
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // Columnas en el orden en que las leen readTour/readOffer/...
+    private static final String[] TOUR_COLUMNS = {TOUR_ID, TOUR_NAME, TOUR_COMPANY, TOUR_DATE,
+            TOUR_TIME, TOUR_STATUS, TOUR_PAYMENT, TOUR_PARTICIPANTS};
+    private static final String[] OFFER_COLUMNS = {OFFER_ID, OFFER_TOUR_NAME, OFFER_COMPANY, OFFER_DATE,
+            OFFER_TIME, OFFER_PAYMENT, OFFER_STATUS, OFFER_PARTICIPANTS};
+    private static final String[] RES_COLUMNS = {RES_ID, RES_TOUR_NAME, RES_COMPANY, RES_DATE,
+            RES_TIME, RES_STATUS, RES_PRICE, RES_PEOPLE, RES_QR_CODE};
+    private static final String[] NOTIF_COLUMNS = {NOTIF_ID, NOTIF_TYPE, NOTIF_TITLE, NOTIF_MESSAGE,
+            NOTIF_TIMESTAMP, NOTIF_IS_READ};
+
+    // ==================== SQL COMPILADO ====================
+
+    private static final String INSERT_TOUR = "INSERT INTO " + TABLE_TOURS + " ("
+            + TOUR_NAME + ", " + TOUR_COMPANY + ", " + TOUR_DATE + ", " + TOUR_TIME + ", "
+            + TOUR_STATUS + ", " + TOUR_PAYMENT + ", " + TOUR_PARTICIPANTS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_OFFER = "INSERT INTO " + TABLE_OFFERS + " ("
+            + OFFER_TOUR_NAME + ", " + OFFER_COMPANY + ", " + OFFER_DATE + ", " + OFFER_TIME + ", "
+            + OFFER_PAYMENT + ", " + OFFER_STATUS + ", " + OFFER_PARTICIPANTS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_RESERVATION = "INSERT INTO " + TABLE_RESERVATIONS + " ("
+            + RES_TOUR_NAME + ", " + RES_COMPANY + ", " + RES_DATE + ", " + RES_TIME + ", "
+            + RES_STATUS + ", " + RES_PRICE + ", " + RES_PEOPLE + ", " + RES_QR_CODE + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_NOTIFICATION = "INSERT INTO " + TABLE_NOTIFICATIONS + " ("
+            + NOTIF_TYPE + ", " + NOTIF_TITLE + ", " + NOTIF_MESSAGE + ", " + NOTIF_TIMESTAMP + ", "
+            + NOTIF_IS_READ + ") VALUES (?, ?, ?, ?, 0)";
+    private static final String COUNT_RESERVATIONS_BY_STATUS = "SELECT COUNT(*) FROM " + TABLE_RESERVATIONS
+            + " WHERE " + RES_STATUS + " = ?";
+    private static final String COUNT_UNREAD_NOTIFICATIONS = "SELECT COUNT(*) FROM " + TABLE_NOTIFICATIONS
+            + " WHERE " + NOTIF_IS_READ + " = 0";
+
+    /** Sentencias compiladas sobre la conexión abierta; se liberan en {@link #close} */
+    private final Map<String, SQLiteStatement> statements = new HashMap<>();
+
+    private DatabaseHelper(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new DatabaseHelper(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
     }
 
     @Override
@@ -104,65 +163,137 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + ")";
         db.execSQL(CREATE_RESERVATIONS_TABLE);
 
-        // Create Notifications table
-        String CREATE_NOTIFICATIONS_TABLE = "CREATE TABLE " + TABLE_NOTIFICATIONS + "("
-                + NOTIF_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                + NOTIF_TYPE + " TEXT,"
-                + NOTIF_TITLE + " TEXT,"
-                + NOTIF_MESSAGE + " TEXT,"
-                + NOTIF_TIMESTAMP + " TEXT,"
-                + NOTIF_IS_READ + " INTEGER DEFAULT 0"
-                + ")";
-        db.execSQL(CREATE_NOTIFICATIONS_TABLE);
+        // Esquema de la versión 1; lo demás lo agregan las migraciones
+        migrate(db, 1, DATABASE_VERSION);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Crear tabla de notificaciones si no existe (para bases de datos antiguas)
-        String CREATE_NOTIFICATIONS_TABLE = "CREATE TABLE IF NOT EXISTS " + TABLE_NOTIFICATIONS + "("
-                + NOTIF_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                + NOTIF_TYPE + " TEXT,"
-                + NOTIF_TITLE + " TEXT,"
-                + NOTIF_MESSAGE + " TEXT,"
-                + NOTIF_TIMESTAMP + " TEXT,"
-                + NOTIF_IS_READ + " INTEGER DEFAULT 0"
-                + ")";
-        db.execSQL(CREATE_NOTIFICATIONS_TABLE);
-        
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_TOURS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_OFFERS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_RESERVATIONS);
-        onCreate(db);
+        migrate(db, oldVersion, newVersion);
+    }
+
+    /**
+     * Aplica en orden cada versión posterior a {@code fromVersion}. SQLiteOpenHelper ya corre
+     * onCreate/onUpgrade dentro de una transacción: si una falla, no queda a medias.
+     */
+    private void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        for (int version = fromVersion + 1; version <= toVersion; version++) {
+            switch (version) {
+                case 2:
+                    // Las bases de la versión 1 más antiguas no tenían notificaciones
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NOTIFICATIONS + "("
+                            + NOTIF_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                            + NOTIF_TYPE + " TEXT,"
+                            + NOTIF_TITLE + " TEXT,"
+                            + NOTIF_MESSAGE + " TEXT,"
+                            + NOTIF_TIMESTAMP + " TEXT,"
+                            + NOTIF_IS_READ + " INTEGER DEFAULT 0"
+                            + ")");
+                    // Cada entrada del índice ya lleva el id, así que también sirve para
+                    // "WHERE status = ? AND id < ? ORDER BY id DESC" sin ordenar aparte
+                    db.execSQL("CREATE INDEX IF NOT EXISTS idx_tours_status ON " + TABLE_TOURS + " (" + TOUR_STATUS + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS idx_offers_status ON " + TABLE_OFFERS + " (" + OFFER_STATUS + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS idx_reservations_status ON " + TABLE_RESERVATIONS + " (" + RES_STATUS + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS idx_notifications_read ON " + TABLE_NOTIFICATIONS + " (" + NOTIF_IS_READ + ")");
+                    break;
+                default:
+                    throw new IllegalStateException("Sin migración a la versión " + version);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (SQLiteStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+        super.close();
+    }
+
+    /** Sentencia compilada una sola vez por conexión; usar solo dentro de un bloque synchronized */
+    private SQLiteStatement statement(String sql) {
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = getWritableDatabase().compileStatement(sql);
+            statements.put(sql, statement);
+        }
+        statement.clearBindings();
+        return statement;
+    }
+
+    private static void bindText(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    /** Filtro por estado con paginación por id: {@code beforeId <= 0} es la primera página */
+    private static String pageSelection(String statusColumn, String idColumn, int beforeId) {
+        return beforeId > 0 ? statusColumn + " = ? AND " + idColumn + " < ?" : statusColumn + " = ?";
+    }
+
+    private static String[] pageArgs(String status, int beforeId) {
+        return beforeId > 0 ? new String[]{status, String.valueOf(beforeId)} : new String[]{status};
     }
 
     // ==================== GUIDE: TOURS ====================
-    
-    public long addTour(String name, String company, String date, String time, 
+
+    public synchronized long addTour(String name, String company, String date, String time,
                         String status, double payment, int participants) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(TOUR_NAME, name);
-        values.put(TOUR_COMPANY, company);
-        values.put(TOUR_DATE, date);
-        values.put(TOUR_TIME, time);
-        values.put(TOUR_STATUS, status);
-        values.put(TOUR_PAYMENT, payment);
-        values.put(TOUR_PARTICIPANTS, participants);
-        
-        long id = db.insert(TABLE_TOURS, null, values);
-        db.close();
-        return id;
+        SQLiteStatement insert = statement(INSERT_TOUR);
+        bindTour(insert, name, company, date, time, status, payment, participants);
+        return insert.executeInsert();
+    }
+
+    /** Inserta todos en una transacción y les asigna el id generado */
+    public synchronized void addTours(List<Tour> tours) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement insert = statement(INSERT_TOUR);
+        db.beginTransaction();
+        try {
+            for (Tour tour : tours) {
+                bindTour(insert, tour.getName(), tour.getCompany(), tour.getDate(), tour.getTime(),
+                        tour.getStatus(), tour.getPayment(), tour.getParticipants());
+                tour.setId((int) insert.executeInsert());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void bindTour(SQLiteStatement insert, String name, String company, String date, String time,
+                                 String status, double payment, int participants) {
+        bindText(insert, 1, name);
+        bindText(insert, 2, company);
+        bindText(insert, 3, date);
+        bindText(insert, 4, time);
+        bindText(insert, 5, status);
+        insert.bindDouble(6, payment);
+        insert.bindLong(7, participants);
     }
 
     public List<Tour> getAllTours() {
+        return queryTours(null, null, null);
+    }
+
+    /** Tours con ese estado, del más nuevo al más antiguo, a partir del id anterior a {@code beforeId} */
+    public List<Tour> getToursByStatus(String status, int beforeId, int limit) {
+        return queryTours(pageSelection(TOUR_STATUS, TOUR_ID, beforeId), pageArgs(status, beforeId), String.valueOf(limit));
+    }
+
+    public boolean hasTours() {
+        return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE_TOURS) > 0;
+    }
+
+    private List<Tour> queryTours(String selection, String[] args, String limit) {
         List<Tour> tourList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_TOURS + " ORDER BY " + TOUR_ID + " DESC";
-        
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
-        
-        if (cursor.moveToFirst()) {
-            do {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_TOURS, TOUR_COLUMNS, selection, args,
+                null, null, TOUR_ID + " DESC", limit)) {
+            while (cursor.moveToNext()) {
                 Tour tour = new Tour();
                 tour.setId(cursor.getInt(0));
                 tour.setName(cursor.getString(1));
@@ -173,53 +304,73 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 tour.setPayment(cursor.getDouble(6));
                 tour.setParticipants(cursor.getInt(7));
                 tourList.add(tour);
-            } while (cursor.moveToNext());
+            }
         }
-        
-        cursor.close();
-        db.close();
         return tourList;
     }
 
     public int updateTourStatus(int id, String status) {
-        SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
         values.put(TOUR_STATUS, status);
-        
-        int rowsAffected = db.update(TABLE_TOURS, values, TOUR_ID + " = ?",
+        return getWritableDatabase().update(TABLE_TOURS, values, TOUR_ID + " = ?",
                 new String[]{String.valueOf(id)});
-        db.close();
-        return rowsAffected;
     }
 
     // ==================== GUIDE: OFFERS ====================
-    
-    public long addOffer(String tourName, String company, String date, String time, 
+
+    public synchronized long addOffer(String tourName, String company, String date, String time,
                          double payment, String status, int participants) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(OFFER_TOUR_NAME, tourName);
-        values.put(OFFER_COMPANY, company);
-        values.put(OFFER_DATE, date);
-        values.put(OFFER_TIME, time);
-        values.put(OFFER_PAYMENT, payment);
-        values.put(OFFER_STATUS, status);
-        values.put(OFFER_PARTICIPANTS, participants);
-        
-        long id = db.insert(TABLE_OFFERS, null, values);
-        db.close();
-        return id;
+        SQLiteStatement insert = statement(INSERT_OFFER);
+        bindOffer(insert, tourName, company, date, time, payment, status, participants);
+        return insert.executeInsert();
+    }
+
+    /** Inserta todas en una transacción y les asigna el id generado */
+    public synchronized void addOffers(List<Offer> offers) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement insert = statement(INSERT_OFFER);
+        db.beginTransaction();
+        try {
+            for (Offer offer : offers) {
+                bindOffer(insert, offer.getTourName(), offer.getCompany(), offer.getDate(), offer.getTime(),
+                        offer.getPayment(), offer.getStatus(), offer.getParticipants());
+                offer.setId((int) insert.executeInsert());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void bindOffer(SQLiteStatement insert, String tourName, String company, String date, String time,
+                                  double payment, String status, int participants) {
+        bindText(insert, 1, tourName);
+        bindText(insert, 2, company);
+        bindText(insert, 3, date);
+        bindText(insert, 4, time);
+        insert.bindDouble(5, payment);
+        bindText(insert, 6, status);
+        insert.bindLong(7, participants);
     }
 
     public List<Offer> getAllOffers() {
+        return queryOffers(null, null, null);
+    }
+
+    /** Ofertas con ese estado, de la más nueva a la más antigua, a partir del id anterior a {@code beforeId} */
+    public List<Offer> getOffersByStatus(String status, int beforeId, int limit) {
+        return queryOffers(pageSelection(OFFER_STATUS, OFFER_ID, beforeId), pageArgs(status, beforeId), String.valueOf(limit));
+    }
+
+    public boolean hasOffers() {
+        return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE_OFFERS) > 0;
+    }
+
+    private List<Offer> queryOffers(String selection, String[] args, String limit) {
         List<Offer> offerList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_OFFERS + " ORDER BY " + OFFER_ID + " DESC";
-        
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
-        
-        if (cursor.moveToFirst()) {
-            do {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_OFFERS, OFFER_COLUMNS, selection, args,
+                null, null, OFFER_ID + " DESC", limit)) {
+            while (cursor.moveToNext()) {
                 Offer offer = new Offer();
                 offer.setId(cursor.getInt(0));
                 offer.setTourName(cursor.getString(1));
@@ -230,54 +381,80 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 offer.setStatus(cursor.getString(6));
                 offer.setParticipants(cursor.getInt(7));
                 offerList.add(offer);
-            } while (cursor.moveToNext());
+            }
         }
-        
-        cursor.close();
-        db.close();
         return offerList;
     }
 
     public int updateOfferStatus(int id, String status) {
-        SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
         values.put(OFFER_STATUS, status);
-        
-        int rowsAffected = db.update(TABLE_OFFERS, values, OFFER_ID + " = ?",
+        return getWritableDatabase().update(TABLE_OFFERS, values, OFFER_ID + " = ?",
                 new String[]{String.valueOf(id)});
-        db.close();
-        return rowsAffected;
     }
 
     // ==================== CLIENT: RESERVATIONS ====================
-    
-    public long addReservation(String tourName, String company, String date, String time,
+
+    public synchronized long addReservation(String tourName, String company, String date, String time,
                                String status, double price, int people, String qrCode) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(RES_TOUR_NAME, tourName);
-        values.put(RES_COMPANY, company);
-        values.put(RES_DATE, date);
-        values.put(RES_TIME, time);
-        values.put(RES_STATUS, status);
-        values.put(RES_PRICE, price);
-        values.put(RES_PEOPLE, people);
-        values.put(RES_QR_CODE, qrCode);
-        
-        long id = db.insert(TABLE_RESERVATIONS, null, values);
-        db.close();
-        return id;
+        SQLiteStatement insert = statement(INSERT_RESERVATION);
+        bindReservation(insert, tourName, company, date, time, status, price, people, qrCode);
+        return insert.executeInsert();
+    }
+
+    /** Inserta todas en una transacción y les asigna el id generado */
+    public synchronized void addReservations(List<Reservation> reservations) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement insert = statement(INSERT_RESERVATION);
+        db.beginTransaction();
+        try {
+            for (Reservation res : reservations) {
+                bindReservation(insert, res.getTourName(), res.getCompany(), res.getDate(), res.getTime(),
+                        res.getStatus(), res.getPrice(), res.getPeople(), res.getQrCode());
+                res.setId((int) insert.executeInsert());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void bindReservation(SQLiteStatement insert, String tourName, String company, String date,
+                                        String time, String status, double price, int people, String qrCode) {
+        bindText(insert, 1, tourName);
+        bindText(insert, 2, company);
+        bindText(insert, 3, date);
+        bindText(insert, 4, time);
+        bindText(insert, 5, status);
+        insert.bindDouble(6, price);
+        insert.bindLong(7, people);
+        bindText(insert, 8, qrCode);
     }
 
     public List<Reservation> getAllReservations() {
+        return queryReservations(null, null, null);
+    }
+
+    /** Reservas con ese estado, de la más nueva a la más antigua, a partir del id anterior a {@code beforeId} */
+    public List<Reservation> getReservationsByStatus(String status, int beforeId, int limit) {
+        return queryReservations(pageSelection(RES_STATUS, RES_ID, beforeId), pageArgs(status, beforeId), String.valueOf(limit));
+    }
+
+    public synchronized int countReservationsByStatus(String status) {
+        SQLiteStatement count = statement(COUNT_RESERVATIONS_BY_STATUS);
+        bindText(count, 1, status);
+        return (int) count.simpleQueryForLong();
+    }
+
+    public boolean hasReservations() {
+        return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE_RESERVATIONS) > 0;
+    }
+
+    private List<Reservation> queryReservations(String selection, String[] args, String limit) {
         List<Reservation> resList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_RESERVATIONS + " ORDER BY " + RES_ID + " DESC";
-        
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
-        
-        if (cursor.moveToFirst()) {
-            do {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_RESERVATIONS, RES_COLUMNS, selection, args,
+                null, null, RES_ID + " DESC", limit)) {
+            while (cursor.moveToNext()) {
                 Reservation res = new Reservation();
                 res.setId(cursor.getInt(0));
                 res.setTourName(cursor.getString(1));
@@ -289,184 +466,90 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 res.setPeople(cursor.getInt(7));
                 res.setQrCode(cursor.getString(8));
                 resList.add(res);
-            } while (cursor.moveToNext());
+            }
         }
-        
-        cursor.close();
-        db.close();
         return resList;
     }
 
     public int updateReservationStatus(int id, String status) {
-        SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
         values.put(RES_STATUS, status);
-        
-        int rowsAffected = db.update(TABLE_RESERVATIONS, values, RES_ID + " = ?",
+        return getWritableDatabase().update(TABLE_RESERVATIONS, values, RES_ID + " = ?",
                 new String[]{String.valueOf(id)});
-        db.close();
-        return rowsAffected;
     }
 
     public void deleteReservation(int id) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_RESERVATIONS, RES_ID + " = ?",
+        getWritableDatabase().delete(TABLE_RESERVATIONS, RES_ID + " = ?",
                 new String[]{String.valueOf(id)});
-        db.close();
     }
 
     // ==================== CLIENT: NOTIFICATIONS ====================
-    
-    public long addNotification(String type, String title, String message, String timestamp) {
-        try {
-            SQLiteDatabase db = this.getWritableDatabase();
-            // Verificar si la tabla existe, si no, crearla
-            Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='" + TABLE_NOTIFICATIONS + "'", null);
-            boolean tableExists = cursor.getCount() > 0;
-            cursor.close();
-            
-            if (!tableExists) {
-                String CREATE_NOTIFICATIONS_TABLE = "CREATE TABLE " + TABLE_NOTIFICATIONS + "("
-                        + NOTIF_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                        + NOTIF_TYPE + " TEXT,"
-                        + NOTIF_TITLE + " TEXT,"
-                        + NOTIF_MESSAGE + " TEXT,"
-                        + NOTIF_TIMESTAMP + " TEXT,"
-                        + NOTIF_IS_READ + " INTEGER DEFAULT 0"
-                        + ")";
-                db.execSQL(CREATE_NOTIFICATIONS_TABLE);
-            }
-            
-            ContentValues values = new ContentValues();
-            values.put(NOTIF_TYPE, type);
-            values.put(NOTIF_TITLE, title);
-            values.put(NOTIF_MESSAGE, message);
-            values.put(NOTIF_TIMESTAMP, timestamp);
-            values.put(NOTIF_IS_READ, 0); // Por defecto no vista
-            
-            long id = db.insert(TABLE_NOTIFICATIONS, null, values);
-            db.close();
-            return id;
-        } catch (Exception e) {
-            return -1;
-        }
+
+    public synchronized long addNotification(String type, String title, String message, String timestamp) {
+        SQLiteStatement insert = statement(INSERT_NOTIFICATION);
+        bindText(insert, 1, type);
+        bindText(insert, 2, title);
+        bindText(insert, 3, message);
+        bindText(insert, 4, timestamp);
+        return insert.executeInsert();
     }
 
     public List<Notification> getAllNotifications() {
+        return queryNotifications(null, null, null);
+    }
+
+    /** Notificaciones (solo las no vistas si {@code unreadOnly}), a partir del id anterior a {@code beforeId} */
+    public List<Notification> getNotifications(boolean unreadOnly, int beforeId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        if (unreadOnly) {
+            conditions.add(NOTIF_IS_READ + " = 0");
+        }
+        if (beforeId > 0) {
+            conditions.add(NOTIF_ID + " < ?");
+            args.add(String.valueOf(beforeId));
+        }
+        String selection = conditions.isEmpty() ? null : String.join(" AND ", conditions);
+        return queryNotifications(selection, args.toArray(new String[0]), String.valueOf(limit));
+    }
+
+    private List<Notification> queryNotifications(String selection, String[] args, String limit) {
         List<Notification> notifList = new ArrayList<>();
-        try {
-            SQLiteDatabase db = this.getReadableDatabase();
-            // Verificar si la tabla existe
-            Cursor checkCursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='" + TABLE_NOTIFICATIONS + "'", null);
-            boolean tableExists = checkCursor.getCount() > 0;
-            checkCursor.close();
-            
-            if (!tableExists) {
-                db.close();
-                return notifList;
-            }
-            
-            String selectQuery = "SELECT * FROM " + TABLE_NOTIFICATIONS + " ORDER BY " + NOTIF_ID + " DESC";
-            Cursor cursor = db.rawQuery(selectQuery, null);
-            
-            if (cursor.moveToFirst()) {
-                do {
-                    Notification notif = new Notification();
-                    notif.setId(cursor.getInt(0));
-                    notif.setType(cursor.getString(1));
-                    notif.setTitle(cursor.getString(2));
-                    notif.setMessage(cursor.getString(3));
-                    notif.setTimestamp(cursor.getString(4));
-                    notif.setRead(cursor.getInt(5) == 1);
-                    notifList.add(notif);
-                } while (cursor.moveToNext());
+        try (Cursor cursor = getReadableDatabase().query(TABLE_NOTIFICATIONS, NOTIF_COLUMNS, selection, args,
+                null, null, NOTIF_ID + " DESC", limit)) {
+            while (cursor.moveToNext()) {
+                Notification notif = new Notification();
+                notif.setId(cursor.getInt(0));
+                notif.setType(cursor.getString(1));
+                notif.setTitle(cursor.getString(2));
+                notif.setMessage(cursor.getString(3));
+                notif.setTimestamp(cursor.getString(4));
+                notif.setRead(cursor.getInt(5) == 1);
+                notifList.add(notif);
             }
-            
-            cursor.close();
-            db.close();
-        } catch (Exception e) {
-            // Retornar lista vacía en caso de error
         }
         return notifList;
     }
 
-    public int getUnreadNotificationsCount() {
-        try {
-            SQLiteDatabase db = this.getReadableDatabase();
-            // Verificar si la tabla existe
-            Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='" + TABLE_NOTIFICATIONS + "'", null);
-            boolean tableExists = cursor.getCount() > 0;
-            cursor.close();
-            
-            if (!tableExists) {
-                db.close();
-                return 0;
-            }
-            
-            String selectQuery = "SELECT COUNT(*) FROM " + TABLE_NOTIFICATIONS + " WHERE " + NOTIF_IS_READ + " = 0";
-            cursor = db.rawQuery(selectQuery, null);
-            
-            int count = 0;
-            if (cursor.moveToFirst()) {
-                count = cursor.getInt(0);
-            }
-            
-            cursor.close();
-            db.close();
-            return count;
-        } catch (Exception e) {
-            return 0;
-        }
+    public synchronized int getUnreadNotificationsCount() {
+        return (int) statement(COUNT_UNREAD_NOTIFICATIONS).simpleQueryForLong();
     }
 
     public void markAllNotificationsAsRead() {
-        try {
-            SQLiteDatabase db = this.getWritableDatabase();
-            // Verificar si la tabla existe
-            Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='" + TABLE_NOTIFICATIONS + "'", null);
-            boolean tableExists = cursor.getCount() > 0;
-            cursor.close();
-            
-            if (!tableExists) {
-                db.close();
-                return;
-            }
-            
-            ContentValues values = new ContentValues();
-            values.put(NOTIF_IS_READ, 1);
-            
-            db.update(TABLE_NOTIFICATIONS, values, null, null);
-            db.close();
-        } catch (Exception e) {
-            // Ignorar errores
-        }
+        ContentValues values = new ContentValues();
+        values.put(NOTIF_IS_READ, 1);
+        getWritableDatabase().update(TABLE_NOTIFICATIONS, values, NOTIF_IS_READ + " = 0", null);
     }
-    
+
     public void deleteAllNotifications() {
-        try {
-            SQLiteDatabase db = this.getWritableDatabase();
-            // Verificar si la tabla existe
-            Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='" + TABLE_NOTIFICATIONS + "'", null);
-            boolean tableExists = cursor.getCount() > 0;
-            cursor.close();
-            
-            if (tableExists) {
-                db.delete(TABLE_NOTIFICATIONS, null, null);
-            }
-            db.close();
-        } catch (Exception e) {
-            // Ignorar errores
-        }
+        getWritableDatabase().delete(TABLE_NOTIFICATIONS, null, null);
     }
 
     public void markNotificationAsRead(int id) {
-        SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
         values.put(NOTIF_IS_READ, 1);
-        
-        db.update(TABLE_NOTIFICATIONS, values, NOTIF_ID + " = ?",
+        getWritableDatabase().update(TABLE_NOTIFICATIONS, values, NOTIF_ID + " = ?",
                 new String[]{String.valueOf(id)});
-        db.close();
     }
 
     // ==================== MODEL CLASSES ====================
@@ -620,6 +703,19 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         private double payment;
         private int participants;
 
+        public Offer() {}
+
+        public Offer(String tourName, String company, String date, String time,
+                     double payment, String status, int participants) {
+            this.tourName = tourName;
+            this.company = company;
+            this.date = date;
+            this.time = time;
+            this.payment = payment;
+            this.status = status;
+            this.participants = participants;
+        }
+
         public int getId() { return id; }
         public void setId(int id) { this.id = id; }
         public String getTourName() { return tourName; }
@@ -644,6 +740,20 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         private double price;
         private int people;
 
+        public Reservation() {}
+
+        public Reservation(String tourName, String company, String date, String time,
+                           String status, double price, int people, String qrCode) {
+            this.tourName = tourName;
+            this.company = company;
+            this.date = date;
+            this.time = time;
+            this.status = status;
+            this.price = price;
+            this.people = people;
+            this.qrCode = qrCode;
+        }
+
         public int getId() { return id; }
         public void setId(int id) { this.id = id; }
         public String getTourName() { return tourName; }
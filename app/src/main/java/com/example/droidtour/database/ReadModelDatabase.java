@@ -0,0 +1,1196 @@
+package com.example.droidtour.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.models.Company;
+import com.example.droidtour.models.Message;
+import com.example.droidtour.models.Reservation;
+import com.example.droidtour.models.Review;
+import com.example.droidtour.models.Tour;
+import com.example.droidtour.search.FtsRanking;
+import com.example.droidtour.search.SearchHit;
+import com.google.firebase.Timestamp;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Modelo de lectura local (SQLite) de tours, empresas, reservas y mensajes de chat.
+ * Las filas se identifican por el ID del documento de Firestore y las llena
+ * {@link com.example.droidtour.firebase.ReadModelSyncManager} (los mensajes, {@link com.example.droidtour.utils.ChatManager});
+ * las pantallas leen de aquí primero.
+ *
+ * Los tours, reseñas y mensajes que pasan por aquí se indexan también en una tabla FTS4 para la
+ * búsqueda de texto sin red ({@link #search}).
+ *
+ * Independiente de {@link DatabaseHelper}, que solo guarda datos de demostración.
+ */
+public class ReadModelDatabase extends SQLiteOpenHelper {
+    private static final String TAG = "ReadModelDatabase";
+    private static final String DATABASE_NAME = "DroidTourReadModel.db";
+    private static final int DATABASE_VERSION = 5;
+
+    private static ReadModelDatabase instance;
+
+    // Tablas
+    private static final String TABLE_TOURS = "tours";
+    private static final String TABLE_COMPANIES = "companies";
+    private static final String TABLE_RESERVATIONS = "reservations";
+    private static final String TABLE_SYNC_STATE = "sync_state";
+    private static final String TABLE_MESSAGES = "messages";
+    private static final String TABLE_SEARCH_DOCS = "search_docs";
+    private static final String TABLE_SEARCH_FTS = "search_fts";
+
+    // Columnas comunes
+    private static final String COL_ID = "id";
+    private static final String COL_UPDATED_AT = "updated_at";
+    private static final String COL_CREATED_AT = "created_at";
+
+    // Tours
+    private static final String COL_TOUR_NAME = "tour_name";
+    private static final String COL_COMPANY_ID = "company_id";
+    private static final String COL_COMPANY_NAME = "company_name";
+    private static final String COL_DESCRIPTION = "description";
+    private static final String COL_PRICE = "price_per_person";
+    private static final String COL_DURATION = "duration";
+    private static final String COL_DURATION_MINUTES = "duration_minutes";
+    private static final String COL_CATEGORY = "category";
+    private static final String COL_MAX_GROUP_SIZE = "max_group_size";
+    private static final String COL_LANGUAGES = "languages";
+    private static final String COL_INCLUDED = "included_services";
+    private static final String COL_NOT_INCLUDED = "not_included_services";
+    private static final String COL_MEETING_POINT = "meeting_point";
+    private static final String COL_DEPARTURE_TIME = "departure_time";
+    private static final String COL_IMAGE_URLS = "image_urls";
+    private static final String COL_MAIN_IMAGE_URL = "main_image_url";
+    private static final String COL_AVERAGE_RATING = "average_rating";
+    private static final String COL_TOTAL_REVIEWS = "total_reviews";
+    private static final String COL_TOTAL_BOOKINGS = "total_bookings";
+    private static final String COL_IS_ACTIVE = "is_active";
+    private static final String COL_IS_FEATURED = "is_featured";
+
+    // Empresas
+    private static final String COL_ADMIN_USER_ID = "admin_user_id";
+    private static final String COL_EMAIL = "email";
+    private static final String COL_PHONE = "phone_number";
+    private static final String COL_ADDRESS = "address";
+    private static final String COL_CITY = "city";
+    private static final String COL_COUNTRY = "country";
+    private static final String COL_LOGO_URL = "logo_url";
+    private static final String COL_COVER_IMAGE_URLS = "cover_image_urls";
+    private static final String COL_TOTAL_TOURS = "total_tours";
+    private static final String COL_TOTAL_CLIENTS = "total_clients";
+    private static final String COL_PRICE_FROM = "price_from";
+    private static final String COL_IS_VERIFIED = "is_verified";
+
+    // Reservas
+    private static final String COL_USER_ID = "user_id";
+    private static final String COL_USER_NAME = "user_name";
+    private static final String COL_USER_EMAIL = "user_email";
+    private static final String COL_TOUR_ID = "tour_id";
+    private static final String COL_GUIDE_ID = "guide_id";
+    private static final String COL_GUIDE_NAME = "guide_name";
+    private static final String COL_TOUR_DATE = "tour_date";
+    private static final String COL_TOUR_TIME = "tour_time";
+    private static final String COL_NUMBER_OF_PEOPLE = "number_of_people";
+    private static final String COL_TOTAL_PRICE = "total_price";
+    private static final String COL_QR_CHECK_IN = "qr_code_check_in";
+    private static final String COL_QR_CHECK_OUT = "qr_code_check_out";
+    private static final String COL_HAS_CHECKED_IN = "has_checked_in";
+    private static final String COL_HAS_CHECKED_OUT = "has_checked_out";
+    private static final String COL_CHECK_IN_TIME = "check_in_time";
+    private static final String COL_CHECK_OUT_TIME = "check_out_time";
+    private static final String COL_STATUS = "status";
+    private static final String COL_PAYMENT_STATUS = "payment_status";
+    private static final String COL_PAYMENT_METHOD = "payment_method";
+    private static final String COL_PAYMENT_METHOD_ID = "payment_method_id";
+    private static final String COL_PAYMENT_TRANSACTION_ID = "payment_transaction_id";
+    private static final String COL_SPECIAL_REQUESTS = "special_requests";
+    private static final String COL_HAS_REVIEW = "has_review";
+    private static final String COL_PAYMENT_NOTIFICATION_SENT = "payment_notification_sent";
+
+    // Mensajes
+    private static final String COL_CONVERSATION_ID = "conversation_id";
+    private static final String COL_SENDER_ID = "sender_id";
+    private static final String COL_SENDER_NAME = "sender_name";
+    private static final String COL_RECEIVER_ID = "receiver_id";
+    private static final String COL_RECEIVER_NAME = "receiver_name";
+    private static final String COL_SENDER_TYPE = "sender_type";
+    private static final String COL_MESSAGE_TEXT = "message_text";
+    private static final String COL_TIMESTAMP = "timestamp";
+    private static final String COL_IS_READ = "is_read";
+
+    // Búsqueda: search_docs guarda qué es cada fila de search_fts (docid = id)
+    private static final String COL_KIND = "kind";
+    private static final String COL_DOC_ID = "doc_id";
+    private static final String COL_REF_ID = "ref_id";
+    private static final String COL_TITLE = "title";
+    private static final String COL_SUBTITLE = "subtitle";
+    private static final String COL_BODY = "body";
+
+    /** Peso de cada columna de search_fts en el puntaje: el título pesa más que el cuerpo */
+    private static final double[] SEARCH_WEIGHTS = {3.0, 1.0};
+    /** Coincidencias que se puntúan por consulta, las más recientes primero */
+    private static final int SEARCH_MAX_CANDIDATES = 2000;
+
+    // Estado de sincronización
+    private static final String COL_SCOPE = "scope";
+    private static final String COL_HIGH_WATER_MARK = "high_water_mark";
+    private static final String COL_BOOTSTRAPPED = "bootstrapped";
+    private static final String COL_LAST_FULL_SYNC = "last_full_sync";
+
+    private static final String CREATE_TOURS = "CREATE TABLE " + TABLE_TOURS + " (" +
+            COL_ID + " TEXT PRIMARY KEY, " +
+            COL_TOUR_NAME + " TEXT, " +
+            COL_COMPANY_ID + " TEXT, " +
+            COL_COMPANY_NAME + " TEXT, " +
+            COL_DESCRIPTION + " TEXT, " +
+            COL_PRICE + " REAL, " +
+            COL_DURATION + " TEXT, " +
+            COL_DURATION_MINUTES + " INTEGER, " +
+            COL_CATEGORY + " TEXT, " +
+            COL_MAX_GROUP_SIZE + " INTEGER, " +
+            COL_LANGUAGES + " TEXT, " +
+            COL_INCLUDED + " TEXT, " +
+            COL_NOT_INCLUDED + " TEXT, " +
+            COL_MEETING_POINT + " TEXT, " +
+            COL_DEPARTURE_TIME + " TEXT, " +
+            COL_IMAGE_URLS + " TEXT, " +
+            COL_MAIN_IMAGE_URL + " TEXT, " +
+            COL_AVERAGE_RATING + " REAL, " +
+            COL_TOTAL_REVIEWS + " INTEGER, " +
+            COL_TOTAL_BOOKINGS + " INTEGER, " +
+            COL_IS_ACTIVE + " INTEGER, " +
+            COL_IS_FEATURED + " INTEGER, " +
+            COL_CREATED_AT + " INTEGER, " +
+            COL_UPDATED_AT + " INTEGER)";
+
+    private static final String CREATE_COMPANIES = "CREATE TABLE " + TABLE_COMPANIES + " (" +
+            COL_ID + " TEXT PRIMARY KEY, " +
+            COL_COMPANY_NAME + " TEXT, " +
+            COL_DESCRIPTION + " TEXT, " +
+            COL_ADMIN_USER_ID + " TEXT, " +
+            COL_EMAIL + " TEXT, " +
+            COL_PHONE + " TEXT, " +
+            COL_ADDRESS + " TEXT, " +
+            COL_CITY + " TEXT, " +
+            COL_COUNTRY + " TEXT, " +
+            COL_LOGO_URL + " TEXT, " +
+            COL_COVER_IMAGE_URLS + " TEXT, " +
+            COL_AVERAGE_RATING + " REAL, " +
+            COL_TOTAL_REVIEWS + " INTEGER, " +
+            COL_TOTAL_TOURS + " INTEGER, " +
+            COL_TOTAL_CLIENTS + " INTEGER, " +
+            COL_PRICE_FROM + " REAL, " +
+            COL_IS_ACTIVE + " INTEGER, " +
+            COL_IS_VERIFIED + " INTEGER, " +
+            COL_CREATED_AT + " INTEGER, " +
+            COL_UPDATED_AT + " INTEGER)";
+
+    private static final String CREATE_RESERVATIONS = "CREATE TABLE " + TABLE_RESERVATIONS + " (" +
+            COL_ID + " TEXT PRIMARY KEY, " +
+            COL_USER_ID + " TEXT, " +
+            COL_USER_NAME + " TEXT, " +
+            COL_USER_EMAIL + " TEXT, " +
+            COL_TOUR_ID + " TEXT, " +
+            COL_TOUR_NAME + " TEXT, " +
+            COL_COMPANY_ID + " TEXT, " +
+            COL_COMPANY_NAME + " TEXT, " +
+            COL_GUIDE_ID + " TEXT, " +
+            COL_GUIDE_NAME + " TEXT, " +
+            COL_TOUR_DATE + " TEXT, " +
+            COL_TOUR_TIME + " TEXT, " +
+            COL_NUMBER_OF_PEOPLE + " INTEGER, " +
+            COL_PRICE + " REAL, " +
+            COL_TOTAL_PRICE + " REAL, " +
+            COL_QR_CHECK_IN + " TEXT, " +
+            COL_QR_CHECK_OUT + " TEXT, " +
+            COL_HAS_CHECKED_IN + " INTEGER, " +
+            COL_HAS_CHECKED_OUT + " INTEGER, " +
+            COL_CHECK_IN_TIME + " INTEGER, " +
+            COL_CHECK_OUT_TIME + " INTEGER, " +
+            COL_STATUS + " TEXT, " +
+            COL_PAYMENT_STATUS + " TEXT, " +
+            COL_PAYMENT_METHOD + " TEXT, " +
+            COL_PAYMENT_METHOD_ID + " TEXT, " +
+            COL_PAYMENT_TRANSACTION_ID + " TEXT, " +
+            COL_SPECIAL_REQUESTS + " TEXT, " +
+            COL_HAS_REVIEW + " INTEGER, " +
+            COL_PAYMENT_NOTIFICATION_SENT + " INTEGER, " +
+            COL_CREATED_AT + " INTEGER, " +
+            COL_UPDATED_AT + " INTEGER)";
+
+    private static final String CREATE_MESSAGES = "CREATE TABLE " + TABLE_MESSAGES + " (" +
+            COL_ID + " TEXT PRIMARY KEY, " +
+            COL_CONVERSATION_ID + " TEXT NOT NULL, " +
+            COL_SENDER_ID + " TEXT, " +
+            COL_SENDER_NAME + " TEXT, " +
+            COL_RECEIVER_ID + " TEXT, " +
+            COL_RECEIVER_NAME + " TEXT, " +
+            COL_SENDER_TYPE + " TEXT, " +
+            COL_MESSAGE_TEXT + " TEXT, " +
+            COL_TIMESTAMP + " INTEGER, " +
+            COL_IS_READ + " INTEGER)";
+
+    private static final String CREATE_SEARCH_DOCS = "CREATE TABLE " + TABLE_SEARCH_DOCS + " (" +
+            COL_ID + " INTEGER PRIMARY KEY, " +
+            COL_KIND + " TEXT NOT NULL, " +
+            COL_DOC_ID + " TEXT NOT NULL, " +
+            COL_REF_ID + " TEXT, " +
+            COL_TITLE + " TEXT, " +
+            COL_SUBTITLE + " TEXT, " +
+            COL_UPDATED_AT + " INTEGER, " +
+            "UNIQUE (" + COL_KIND + ", " + COL_DOC_ID + "))";
+
+    // FTS5 no viene en el SQLite de Android: FTS4, con prefijos de 2 y 3 letras indexados
+    private static final String CREATE_SEARCH_FTS = "CREATE VIRTUAL TABLE " + TABLE_SEARCH_FTS +
+            " USING fts4(" + COL_TITLE + ", " + COL_BODY;
+
+    private static final String CREATE_SYNC_STATE = "CREATE TABLE " + TABLE_SYNC_STATE + " (" +
+            COL_SCOPE + " TEXT PRIMARY KEY, " +
+            COL_HIGH_WATER_MARK + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_BOOTSTRAPPED + " INTEGER NOT NULL DEFAULT 0, " +
+            COL_LAST_FULL_SYNC + " INTEGER NOT NULL DEFAULT 0)";
+
+    private ReadModelDatabase(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    public static synchronized ReadModelDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReadModelDatabase(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL(CREATE_TOURS);
+        db.execSQL(CREATE_COMPANIES);
+        db.execSQL(CREATE_RESERVATIONS);
+        db.execSQL(CREATE_SYNC_STATE);
+        db.execSQL(CREATE_MESSAGES);
+        db.execSQL(CREATE_SEARCH_DOCS);
+        createSearchFts(db);
+
+        // Índices para las consultas de las pantallas
+        db.execSQL("CREATE INDEX idx_tours_company ON " + TABLE_TOURS + " (" + COL_COMPANY_ID + ", " + COL_IS_ACTIVE + ")");
+        db.execSQL("CREATE INDEX idx_tours_featured ON " + TABLE_TOURS + " (" + COL_IS_ACTIVE + ", " + COL_IS_FEATURED + ", " + COL_AVERAGE_RATING + ")");
+        db.execSQL("CREATE INDEX idx_tours_price ON " + TABLE_TOURS + " (" + COL_PRICE + ")");
+        db.execSQL("CREATE INDEX idx_companies_active ON " + TABLE_COMPANIES + " (" + COL_IS_ACTIVE + ", " + COL_AVERAGE_RATING + ")");
+        db.execSQL("CREATE INDEX idx_reservations_user ON " + TABLE_RESERVATIONS + " (" + COL_USER_ID + ", " + COL_CREATED_AT + ")");
+        db.execSQL("CREATE INDEX idx_reservations_guide ON " + TABLE_RESERVATIONS + " (" + COL_GUIDE_ID + ", " + COL_CREATED_AT + ")");
+        db.execSQL("CREATE INDEX idx_messages_conversation ON " + TABLE_MESSAGES + " (" + COL_CONVERSATION_ID + ", " + COL_TIMESTAMP + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Es una caché: se reconstruye completa desde Firestore
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_TOURS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_COMPANIES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_RESERVATIONS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC_STATE);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MESSAGES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SEARCH_DOCS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SEARCH_FTS);
+        onCreate(db);
+    }
+
+    /**
+     * unicode61 ignora tildes ("condor" encuentra "Cóndor"); si el SQLite del dispositivo no lo
+     * trae, se usa el tokenizador simple
+     */
+    private static void createSearchFts(SQLiteDatabase db) {
+        try {
+            db.execSQL(CREATE_SEARCH_FTS + ", tokenize=unicode61, prefix=\"2,3\")");
+        } catch (SQLException e) {
+            Log.w(TAG, "FTS4 sin unicode61, se usa el tokenizador simple", e);
+            db.execSQL(CREATE_SEARCH_FTS + ", prefix=\"2,3\")");
+        }
+    }
+
+    // ==================== ESTADO DE SINCRONIZACIÓN ====================
+
+    /**
+     * Marca de agua (millis del mayor updatedAt recibido) de un ámbito, p. ej. "tours" o "reservations:user:ID"
+     */
+    public long getHighWaterMark(String scope) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_SYNC_STATE, new String[]{COL_HIGH_WATER_MARK},
+                COL_SCOPE + " = ?", new String[]{scope}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    /**
+     * Si el ámbito ya tuvo una carga completa (los documentos antiguos pueden no tener updatedAt)
+     */
+    public boolean isBootstrapped(String scope) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_SYNC_STATE, new String[]{COL_BOOTSTRAPPED},
+                COL_SCOPE + " = ?", new String[]{scope}, null, null, null)) {
+            return cursor.moveToFirst() && cursor.getInt(0) == 1;
+        }
+    }
+
+    /**
+     * Millis de la última carga completa del ámbito (0 si nunca). Los borrados en Firestore solo
+     * se reflejan en una carga completa: la consulta por updatedAt no devuelve lo que ya no existe.
+     */
+    public long getLastFullSync(String scope) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_SYNC_STATE, new String[]{COL_LAST_FULL_SYNC},
+                COL_SCOPE + " = ?", new String[]{scope}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    /** Un delta conserva la hora de la última carga completa; una carga completa la renueva */
+    private void saveSyncState(SQLiteDatabase db, String scope, long highWaterMark, boolean fullSync) {
+        ContentValues values = new ContentValues();
+        values.put(COL_HIGH_WATER_MARK, highWaterMark);
+        values.put(COL_BOOTSTRAPPED, 1);
+        if (fullSync) {
+            values.put(COL_LAST_FULL_SYNC, System.currentTimeMillis());
+        }
+        if (db.update(TABLE_SYNC_STATE, values, COL_SCOPE + " = ?", new String[]{scope}) == 0) {
+            values.put(COL_SCOPE, scope);
+            db.insert(TABLE_SYNC_STATE, null, values);
+        }
+    }
+
+    /**
+     * Borra todo el modelo local (p. ej. al cerrar sesión)
+     */
+    public void clear() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_TOURS, null, null);
+            db.delete(TABLE_COMPANIES, null, null);
+            db.delete(TABLE_RESERVATIONS, null, null);
+            db.delete(TABLE_SYNC_STATE, null, null);
+            db.delete(TABLE_MESSAGES, null, null);
+            db.delete(TABLE_SEARCH_DOCS, null, null);
+            db.delete(TABLE_SEARCH_FTS, null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // ==================== ESCRITURA (DELTAS) ====================
+
+    /**
+     * Insertar o reemplazar los tours recibidos y avanzar la marca de agua, en una sola transacción.
+     * Con fullSync la lista es la colección completa y se borran los tours locales que ya no están.
+     */
+    public void upsertTours(List<Tour> tours, String scope, long highWaterMark, boolean fullSync) {
+        SQLiteDatabase db = getWritableDatabase();
+        int removed = 0;
+        db.beginTransaction();
+        try {
+            writeTours(db, tours);
+            if (fullSync) {
+                Set<String> keep = new HashSet<>();
+                for (Tour tour : tours) keep.add(tour.getTourId());
+                List<String> missing = deleteMissing(db, TABLE_TOURS, null, null, keep);
+                for (String tourId : missing) {
+                    unindex(db, SearchHit.KIND_TOUR, tourId);
+                }
+                removed = missing.size();
+            }
+            saveSyncState(db, scope, highWaterMark, fullSync);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "Tours sincronizados: " + tours.size() + ", borrados: " + removed + " (" + scope + ")");
+    }
+
+    public void upsertCompanies(List<Company> companies, String scope, long highWaterMark, boolean fullSync) {
+        SQLiteDatabase db = getWritableDatabase();
+        int removed = 0;
+        db.beginTransaction();
+        try {
+            writeCompanies(db, companies);
+            if (fullSync) {
+                Set<String> keep = new HashSet<>();
+                for (Company company : companies) keep.add(company.getCompanyId());
+                removed = deleteMissing(db, TABLE_COMPANIES, null, null, keep).size();
+            }
+            saveSyncState(db, scope, highWaterMark, fullSync);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "Empresas sincronizadas: " + companies.size() + ", borradas: " + removed + " (" + scope + ")");
+    }
+
+    /**
+     * Reservas de un usuario; con fullSync se borran las suyas que ya no llegaron
+     */
+    public void upsertReservationsByUser(String userId, List<Reservation> reservations, String scope,
+                                         long highWaterMark, boolean fullSync) {
+        upsertReservations(COL_USER_ID, userId, reservations, scope, highWaterMark, fullSync);
+    }
+
+    /**
+     * Reservas asignadas a un guía; con fullSync se borran las que ya no están a su nombre
+     */
+    public void upsertReservationsByGuide(String guideId, List<Reservation> reservations, String scope,
+                                          long highWaterMark, boolean fullSync) {
+        upsertReservations(COL_GUIDE_ID, guideId, reservations, scope, highWaterMark, fullSync);
+    }
+
+    private void upsertReservations(String ownerColumn, String ownerId, List<Reservation> reservations,
+                                    String scope, long highWaterMark, boolean fullSync) {
+        SQLiteDatabase db = getWritableDatabase();
+        int removed = 0;
+        db.beginTransaction();
+        try {
+            Set<String> keep = new HashSet<>();
+            for (Reservation reservation : reservations) {
+                if (reservation.getReservationId() != null) {
+                    db.insertWithOnConflict(TABLE_RESERVATIONS, null, toValues(reservation), SQLiteDatabase.CONFLICT_REPLACE);
+                    keep.add(reservation.getReservationId());
+                }
+            }
+            if (fullSync) {
+                removed = deleteMissing(db, TABLE_RESERVATIONS, ownerColumn + " = ?", new String[]{ownerId}, keep).size();
+            }
+            saveSyncState(db, scope, highWaterMark, fullSync);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "Reservas sincronizadas: " + reservations.size() + ", borradas: " + removed + " (" + scope + ")");
+    }
+
+    /**
+     * Borrar las filas de la tabla (dentro de selection) cuyo id no está en keep; devuelve esos ids
+     */
+    private static List<String> deleteMissing(SQLiteDatabase db, String table, String selection,
+                                              String[] args, Set<String> keep) {
+        List<String> missing = new ArrayList<>();
+        try (Cursor cursor = db.query(table, new String[]{COL_ID}, selection, args, null, null, null)) {
+            while (cursor.moveToNext()) {
+                String id = cursor.getString(0);
+                if (!keep.contains(id)) missing.add(id);
+            }
+        }
+        for (String id : missing) {
+            db.delete(table, COL_ID + " = ?", new String[]{id});
+        }
+        return missing;
+    }
+
+    /**
+     * Guardar tours leídos por otra vía (páginas del catálogo) sin mover la marca de agua
+     */
+    public void putTours(List<Tour> tours) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            writeTours(db, tours);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void putCompanies(List<Company> companies) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            writeCompanies(db, companies);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void writeTours(SQLiteDatabase db, List<Tour> tours) {
+        for (Tour tour : tours) {
+            if (tour.getTourId() != null) {
+                db.insertWithOnConflict(TABLE_TOURS, null, toValues(tour), SQLiteDatabase.CONFLICT_REPLACE);
+                indexTour(db, tour);
+            }
+        }
+    }
+
+    private static void writeCompanies(SQLiteDatabase db, List<Company> companies) {
+        for (Company company : companies) {
+            if (company.getCompanyId() != null) {
+                db.insertWithOnConflict(TABLE_COMPANIES, null, toValues(company), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+        }
+    }
+
+    // ==================== VERSIONES ====================
+
+    /**
+     * updated_at local (millis, null si la fila no lo tiene) de los ids pedidos que existen.
+     * Permite saber si un delta del servidor trae algo que no esté ya guardado.
+     */
+    public Map<String, Long> getTourVersions(Collection<String> ids) {
+        return getVersions(TABLE_TOURS, ids);
+    }
+
+    public Map<String, Long> getCompanyVersions(Collection<String> ids) {
+        return getVersions(TABLE_COMPANIES, ids);
+    }
+
+    public Map<String, Long> getReservationVersions(Collection<String> ids) {
+        return getVersions(TABLE_RESERVATIONS, ids);
+    }
+
+    private Map<String, Long> getVersions(String table, Collection<String> ids) {
+        Map<String, Long> versions = new HashMap<>();
+        List<String> pending = new ArrayList<>(ids);
+        // SQLite admite como mucho 999 parámetros por sentencia
+        for (int start = 0; start < pending.size(); start += 500) {
+            List<String> chunk = pending.subList(start, Math.min(start + 500, pending.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            try (Cursor cursor = getReadableDatabase().query(table, new String[]{COL_ID, COL_UPDATED_AT},
+                    COL_ID + " IN (" + placeholders + ")", chunk.toArray(new String[0]), null, null, null)) {
+                while (cursor.moveToNext()) {
+                    versions.put(cursor.getString(0), cursor.isNull(1) ? null : cursor.getLong(1));
+                }
+            }
+        }
+        return versions;
+    }
+
+    // ==================== LECTURA ====================
+
+    public List<Tour> getTours() {
+        return queryTours(null, null, null, null);
+    }
+
+    /**
+     * Tours activos de una empresa (mismo filtro que FirestoreManager.getToursByCompany)
+     */
+    public List<Tour> getToursByCompany(String companyId) {
+        return queryTours(COL_COMPANY_ID + " = ? AND " + COL_IS_ACTIVE + " = 1", new String[]{companyId}, null, null);
+    }
+
+    /**
+     * Primera página del catálogo de una empresa con el mismo orden que FirestoreManager.getToursPage
+     */
+    public List<Tour> getToursByCompanyPage(String companyId, String sortMode, int limit) {
+        String orderBy;
+        String selection = COL_COMPANY_ID + " = ? AND " + COL_IS_ACTIVE + " = 1";
+        if (FirestoreManager.SORT_BEST_PRICE.equals(sortMode)) {
+            // Como en Firestore, por precio solo los tours con precio
+            selection += " AND " + COL_PRICE + " > 0";
+            orderBy = COL_PRICE + " ASC";
+        } else if (FirestoreManager.SORT_BEST_RATED.equals(sortMode)) {
+            orderBy = COL_AVERAGE_RATING + " DESC";
+        } else if (FirestoreManager.SORT_DURATION.equals(sortMode)) {
+            orderBy = COL_DURATION_MINUTES + " ASC";
+        } else {
+            orderBy = COL_ID + " ASC";
+        }
+        return queryTours(selection, new String[]{companyId}, orderBy + ", " + COL_ID + " ASC", String.valueOf(limit));
+    }
+
+    public List<Company> getCompanies() {
+        return queryCompanies(null, null);
+    }
+
+    /**
+     * Primera página de empresas con el mismo orden que FirestoreManager.getCompaniesPage
+     */
+    public List<Company> getCompaniesPage(String sortMode, int limit) {
+        String orderBy;
+        if (FirestoreManager.SORT_BEST_RATED.equals(sortMode) || FirestoreManager.SORT_BEST_PRICE.equals(sortMode)) {
+            orderBy = COL_AVERAGE_RATING + " DESC";
+        } else if (FirestoreManager.SORT_MOST_TOURS.equals(sortMode)) {
+            orderBy = COL_TOTAL_TOURS + " DESC";
+        } else {
+            orderBy = COL_ID + " ASC";
+        }
+        return queryCompanies(orderBy + ", " + COL_ID + " ASC", String.valueOf(limit));
+    }
+
+    private List<Company> queryCompanies(String orderBy, String limit) {
+        List<Company> companies = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_COMPANIES, null, null, null, null, null, orderBy, limit)) {
+            while (cursor.moveToNext()) {
+                companies.add(toCompany(cursor));
+            }
+        }
+        return companies;
+    }
+
+    /**
+     * Reservas de un usuario, más recientes primero
+     */
+    public List<Reservation> getReservationsByUser(String userId) {
+        return queryReservations(COL_USER_ID + " = ?", new String[]{userId});
+    }
+
+    public List<Reservation> getReservationsByGuide(String guideId) {
+        return queryReservations(COL_GUIDE_ID + " = ?", new String[]{guideId});
+    }
+
+    private List<Tour> queryTours(String selection, String[] args, String orderBy, String limit) {
+        List<Tour> tours = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_TOURS, null, selection, args, null, null, orderBy, limit)) {
+            while (cursor.moveToNext()) {
+                tours.add(toTour(cursor));
+            }
+        }
+        return tours;
+    }
+
+    private List<Reservation> queryReservations(String selection, String[] args) {
+        List<Reservation> reservations = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_RESERVATIONS, null, selection, args,
+                null, null, COL_CREATED_AT + " DESC")) {
+            while (cursor.moveToNext()) {
+                reservations.add(toReservation(cursor));
+            }
+        }
+        return reservations;
+    }
+
+    // ==================== MENSAJES ====================
+
+    /**
+     * Últimos mensajes de una conversación, en orden de lectura (más antiguo primero)
+     */
+    public List<Message> getLatestMessages(String conversationId, int limit) {
+        List<Message> messages = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_MESSAGES, null, COL_CONVERSATION_ID + " = ?",
+                new String[]{conversationId}, null, null, COL_TIMESTAMP + " DESC, " + COL_ID + " DESC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                messages.add(toMessage(cursor));
+            }
+        }
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    public void upsertMessages(List<Message> messages) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Message message : messages) {
+                if (message.getMessageId() != null && message.getConversationId() != null) {
+                    db.insertWithOnConflict(TABLE_MESSAGES, null, toValues(message), SQLiteDatabase.CONFLICT_REPLACE);
+                    indexMessage(db, message);
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void deleteMessages(List<String> messageIds) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (String messageId : messageIds) {
+                db.delete(TABLE_MESSAGES, COL_ID + " = ?", new String[]{messageId});
+                unindex(db, SearchHit.KIND_MESSAGE, messageId);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Reemplazar los mensajes guardados de una conversación por la ventana recibida del servidor
+     */
+    public void replaceMessages(String conversationId, List<Message> messages) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_MESSAGES, COL_CONVERSATION_ID + " = ?", new String[]{conversationId});
+            unindexByRef(db, SearchHit.KIND_MESSAGE, conversationId);
+            for (Message message : messages) {
+                if (message.getMessageId() != null) {
+                    db.insertWithOnConflict(TABLE_MESSAGES, null, toValues(message), SQLiteDatabase.CONFLICT_REPLACE);
+                    indexMessage(db, message);
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // ==================== BÚSQUEDA DE TEXTO ====================
+
+    /**
+     * Indexar reseñas leídas de Firestore (no tienen tabla propia: solo se buscan)
+     */
+    public void putReviews(List<Review> reviews) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Review review : reviews) {
+                if (review.getReviewId() != null) {
+                    indexReview(db, review);
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Tours, reseñas y mensajes guardados que tienen todas las palabras (como prefijo, sin
+     * importar tildes), del más al menos relevante. kind es un SearchHit.KIND_* o null para todos.
+     *
+     * Se puntúan con BM25 las {@link #SEARCH_MAX_CANDIDATES} coincidencias más recientes y solo
+     * para las primeras limit se arma el snippet.
+     */
+    public List<SearchHit> search(String text, String kind, int limit) {
+        List<SearchHit> hits = new ArrayList<>();
+        String match = FtsRanking.toMatchQuery(text);
+        if (match == null || limit <= 0) {
+            return hits;
+        }
+        SQLiteDatabase db = getReadableDatabase();
+        String join = " FROM " + TABLE_SEARCH_FTS + " CROSS JOIN " + TABLE_SEARCH_DOCS +
+                " ON " + TABLE_SEARCH_DOCS + "." + COL_ID + " = " + TABLE_SEARCH_FTS + ".docid" +
+                " WHERE " + TABLE_SEARCH_FTS + " MATCH ?" +
+                (kind != null ? " AND " + TABLE_SEARCH_DOCS + "." + COL_KIND + " = ?" : "");
+        String[] args = kind != null ? new String[]{match, kind} : new String[]{match};
+
+        // 1) Puntaje de las coincidencias, sin leer texto
+        long[] docIds = new long[64];
+        double[] scores = new double[64];
+        int count = 0;
+        try (Cursor cursor = db.rawQuery("SELECT " + TABLE_SEARCH_FTS + ".docid, matchinfo(" + TABLE_SEARCH_FTS +
+                ", '" + FtsRanking.MATCHINFO_FORMAT + "')" + join +
+                " ORDER BY " + TABLE_SEARCH_FTS + ".docid DESC LIMIT " + SEARCH_MAX_CANDIDATES, args)) {
+            while (cursor.moveToNext()) {
+                if (count == docIds.length) {
+                    docIds = Arrays.copyOf(docIds, count * 2);
+                    scores = Arrays.copyOf(scores, count * 2);
+                }
+                docIds[count] = cursor.getLong(0);
+                scores[count] = FtsRanking.bm25(FtsRanking.decodeMatchinfo(cursor.getBlob(1)), SEARCH_WEIGHTS);
+                count++;
+            }
+        }
+        if (count == 0) {
+            return hits;
+        }
+
+        // 2) Snippet y datos solo de los mejores
+        int[] top = FtsRanking.topIndices(scores, count, limit);
+        StringBuilder in = new StringBuilder();
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < top.length; i++) {
+            if (i > 0) in.append(',');
+            in.append(docIds[top[i]]);
+            rank.put(docIds[top[i]], i);
+        }
+        SearchHit[] ranked = new SearchHit[top.length];
+        String[] snippetArgs = new String[args.length + 3];
+        snippetArgs[0] = String.valueOf(SearchHit.MARK_START);
+        snippetArgs[1] = String.valueOf(SearchHit.MARK_END);
+        snippetArgs[2] = "…";
+        System.arraycopy(args, 0, snippetArgs, 3, args.length);
+        try (Cursor cursor = db.rawQuery("SELECT " + TABLE_SEARCH_FTS + ".docid, snippet(" + TABLE_SEARCH_FTS +
+                ", ?, ?, ?, -1, 12), " + TABLE_SEARCH_DOCS + "." + COL_KIND + ", " + COL_DOC_ID + ", " + COL_REF_ID +
+                ", " + TABLE_SEARCH_DOCS + "." + COL_TITLE + ", " + COL_SUBTITLE + ", " + COL_UPDATED_AT + join +
+                " AND " + TABLE_SEARCH_FTS + ".docid IN (" + in + ")", snippetArgs)) {
+            while (cursor.moveToNext()) {
+                Integer position = rank.get(cursor.getLong(0));
+                if (position == null) continue;
+                ranked[position] = new SearchHit(cursor.getString(2), cursor.getString(3), cursor.getString(4),
+                        cursor.getString(5), cursor.getString(6), cursor.getString(1),
+                        scores[top[position]], cursor.isNull(7) ? 0 : cursor.getLong(7));
+            }
+        }
+        for (SearchHit hit : ranked) {
+            if (hit != null) hits.add(hit);
+        }
+        return hits;
+    }
+
+    /** Nombre arriba; descripción, paradas del itinerario y empresa en el cuerpo */
+    private static void indexTour(SQLiteDatabase db, Tour tour) {
+        StringBuilder body = new StringBuilder();
+        appendText(body, tour.getDescription());
+        if (tour.getItinerary() != null) {
+            for (Tour.ItineraryPoint point : tour.getItinerary()) {
+                appendText(body, point.getLocationName());
+                appendText(body, point.getActivityDescription());
+            }
+        }
+        appendText(body, tour.getMeetingPoint());
+        appendText(body, tour.getCompanyName());
+        index(db, SearchHit.KIND_TOUR, tour.getTourId(), tour.getTourId(), tour.getTourName(),
+                tour.getCompanyName(), toMillis(tour.getUpdatedAt()), tour.getTourName(), body.toString());
+    }
+
+    private static void indexReview(SQLiteDatabase db, Review review) {
+        StringBuilder body = new StringBuilder();
+        appendText(body, review.getReviewText());
+        appendText(body, review.getCompanyResponse());
+        StringBuilder title = new StringBuilder();
+        appendText(title, review.getReviewTitle());
+        appendText(title, review.getTourName());
+        index(db, SearchHit.KIND_REVIEW, review.getReviewId(), review.getTourId(), review.getTourName(),
+                review.getUserName(), toMillis(review.getCreatedAt()), title.toString(), body.toString());
+    }
+
+    /** El título es la otra parte del chat (para el cliente, la empresa) */
+    private static void indexMessage(SQLiteDatabase db, Message message) {
+        String counterpart = "CLIENT".equals(message.getSenderType()) ? message.getReceiverName() : message.getSenderName();
+        Long timestamp = message.getTimestamp() != null ? message.getTimestamp().toDate().getTime() : null;
+        index(db, SearchHit.KIND_MESSAGE, message.getMessageId(), message.getConversationId(), counterpart,
+                message.getSenderName(), timestamp, message.getSenderName(), message.getMessageText());
+    }
+
+    /**
+     * Insertar o reemplazar un documento del índice. Se reutiliza su id para no dejar filas
+     * huérfanas en search_fts.
+     */
+    private static void index(SQLiteDatabase db, String kind, String docId, String refId, String title,
+                              String subtitle, Long updatedAt, String ftsTitle, String ftsBody) {
+        ContentValues doc = new ContentValues();
+        doc.put(COL_KIND, kind);
+        doc.put(COL_DOC_ID, docId);
+        doc.put(COL_REF_ID, refId);
+        doc.put(COL_TITLE, title);
+        doc.put(COL_SUBTITLE, subtitle);
+        doc.put(COL_UPDATED_AT, updatedAt);
+
+        long id = findSearchDoc(db, kind, docId);
+        if (id >= 0) {
+            db.update(TABLE_SEARCH_DOCS, doc, COL_ID + " = ?", new String[]{String.valueOf(id)});
+            db.delete(TABLE_SEARCH_FTS, "docid = ?", new String[]{String.valueOf(id)});
+        } else {
+            id = db.insert(TABLE_SEARCH_DOCS, null, doc);
+            if (id < 0) return;
+        }
+        ContentValues fts = new ContentValues();
+        fts.put("docid", id);
+        fts.put(COL_TITLE, ftsTitle != null ? ftsTitle : "");
+        fts.put(COL_BODY, ftsBody != null ? ftsBody : "");
+        db.insert(TABLE_SEARCH_FTS, null, fts);
+    }
+
+    private static void unindex(SQLiteDatabase db, String kind, String docId) {
+        long id = findSearchDoc(db, kind, docId);
+        if (id >= 0) {
+            db.delete(TABLE_SEARCH_FTS, "docid = ?", new String[]{String.valueOf(id)});
+            db.delete(TABLE_SEARCH_DOCS, COL_ID + " = ?", new String[]{String.valueOf(id)});
+        }
+    }
+
+    /** Quitar todos los documentos que llevan a refId (p. ej. los mensajes de una conversación) */
+    private static void unindexByRef(SQLiteDatabase db, String kind, String refId) {
+        String[] args = {kind, refId};
+        db.delete(TABLE_SEARCH_FTS, "docid IN (SELECT " + COL_ID + " FROM " + TABLE_SEARCH_DOCS +
+                " WHERE " + COL_KIND + " = ? AND " + COL_REF_ID + " = ?)", args);
+        db.delete(TABLE_SEARCH_DOCS, COL_KIND + " = ? AND " + COL_REF_ID + " = ?", args);
+    }
+
+    private static long findSearchDoc(SQLiteDatabase db, String kind, String docId) {
+        try (Cursor cursor = db.query(TABLE_SEARCH_DOCS, new String[]{COL_ID},
+                COL_KIND + " = ? AND " + COL_DOC_ID + " = ?", new String[]{kind, docId}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        }
+    }
+
+    private static void appendText(StringBuilder builder, String text) {
+        if (text == null || text.isEmpty()) return;
+        if (builder.length() > 0) builder.append('\n');
+        builder.append(text);
+    }
+
+    // ==================== MAPEO ====================
+
+    private static ContentValues toValues(Tour tour) {
+        ContentValues values = new ContentValues();
+        values.put(COL_ID, tour.getTourId());
+        values.put(COL_TOUR_NAME, tour.getTourName());
+        values.put(COL_COMPANY_ID, tour.getCompanyId());
+        values.put(COL_COMPANY_NAME, tour.getCompanyName());
+        values.put(COL_DESCRIPTION, tour.getDescription());
+        values.put(COL_PRICE, tour.getPricePerPerson());
+        values.put(COL_DURATION, tour.getDuration());
+        values.put(COL_DURATION_MINUTES, tour.getDurationMinutes());
+        values.put(COL_CATEGORY, tour.getCategory());
+        values.put(COL_MAX_GROUP_SIZE, tour.getMaxGroupSize());
+        values.put(COL_LANGUAGES, toJson(tour.getLanguages()));
+        values.put(COL_INCLUDED, toJson(tour.getIncludedServices()));
+        values.put(COL_NOT_INCLUDED, toJson(tour.getNotIncludedServices()));
+        values.put(COL_MEETING_POINT, tour.getMeetingPoint());
+        values.put(COL_DEPARTURE_TIME, tour.getDepartureTime());
+        values.put(COL_IMAGE_URLS, toJson(tour.getImageUrls()));
+        values.put(COL_MAIN_IMAGE_URL, tour.getMainImageUrl());
+        values.put(COL_AVERAGE_RATING, tour.getAverageRating());
+        values.put(COL_TOTAL_REVIEWS, tour.getTotalReviews());
+        values.put(COL_TOTAL_BOOKINGS, tour.getTotalBookings());
+        values.put(COL_IS_ACTIVE, toFlag(tour.getActive()));
+        values.put(COL_IS_FEATURED, toFlag(tour.getFeatured()));
+        values.put(COL_CREATED_AT, toMillis(tour.getCreatedAt()));
+        values.put(COL_UPDATED_AT, toMillis(tour.getUpdatedAt()));
+        return values;
+    }
+
+    private static Tour toTour(Cursor cursor) {
+        Tour tour = new Tour();
+        tour.setTourId(getString(cursor, COL_ID));
+        tour.setTourName(getString(cursor, COL_TOUR_NAME));
+        tour.setCompanyId(getString(cursor, COL_COMPANY_ID));
+        tour.setCompanyName(getString(cursor, COL_COMPANY_NAME));
+        tour.setDescription(getString(cursor, COL_DESCRIPTION));
+        tour.setPricePerPerson(getDouble(cursor, COL_PRICE));
+        tour.setDuration(getString(cursor, COL_DURATION));
+        tour.setDurationMinutes(getInteger(cursor, COL_DURATION_MINUTES));
+        tour.setCategory(getString(cursor, COL_CATEGORY));
+        tour.setMaxGroupSize(getInteger(cursor, COL_MAX_GROUP_SIZE));
+        tour.setLanguages(fromJson(getString(cursor, COL_LANGUAGES)));
+        tour.setIncludedServices(fromJson(getString(cursor, COL_INCLUDED)));
+        tour.setNotIncludedServices(fromJson(getString(cursor, COL_NOT_INCLUDED)));
+        tour.setMeetingPoint(getString(cursor, COL_MEETING_POINT));
+        tour.setDepartureTime(getString(cursor, COL_DEPARTURE_TIME));
+        tour.setImageUrls(fromJson(getString(cursor, COL_IMAGE_URLS)));
+        tour.setMainImageUrl(getString(cursor, COL_MAIN_IMAGE_URL));
+        tour.setAverageRating(getDouble(cursor, COL_AVERAGE_RATING));
+        tour.setTotalReviews(getInteger(cursor, COL_TOTAL_REVIEWS));
+        tour.setTotalBookings(getInteger(cursor, COL_TOTAL_BOOKINGS));
+        tour.setActive(getFlag(cursor, COL_IS_ACTIVE));
+        tour.setFeatured(getFlag(cursor, COL_IS_FEATURED));
+        tour.setCreatedAt(getDate(cursor, COL_CREATED_AT));
+        tour.setUpdatedAt(getDate(cursor, COL_UPDATED_AT));
+        return tour;
+    }
+
+    private static ContentValues toValues(Company company) {
+        ContentValues values = new ContentValues();
+        values.put(COL_ID, company.getCompanyId());
+        values.put(COL_COMPANY_NAME, company.getCompanyName());
+        values.put(COL_DESCRIPTION, company.getDescription());
+        values.put(COL_ADMIN_USER_ID, company.getAdminUserId());
+        values.put(COL_EMAIL, company.getEmail());
+        values.put(COL_PHONE, company.getPhoneNumber());
+        values.put(COL_ADDRESS, company.getAddress());
+        values.put(COL_CITY, company.getCity());
+        values.put(COL_COUNTRY, company.getCountry());
+        values.put(COL_LOGO_URL, company.getLogoUrl());
+        values.put(COL_COVER_IMAGE_URLS, toJson(company.getCoverImageUrls()));
+        values.put(COL_AVERAGE_RATING, company.getAverageRating());
+        values.put(COL_TOTAL_REVIEWS, company.getTotalReviews());
+        values.put(COL_TOTAL_TOURS, company.getTotalTours());
+        values.put(COL_TOTAL_CLIENTS, company.getTotalClients());
+        values.put(COL_PRICE_FROM, company.getPriceFrom());
+        values.put(COL_IS_ACTIVE, toFlag(company.getActive()));
+        values.put(COL_IS_VERIFIED, toFlag(company.getVerified()));
+        values.put(COL_CREATED_AT, toMillis(company.getCreatedAt()));
+        values.put(COL_UPDATED_AT, toMillis(company.getUpdatedAt()));
+        return values;
+    }
+
+    private static Company toCompany(Cursor cursor) {
+        Company company = new Company();
+        company.setCompanyId(getString(cursor, COL_ID));
+        company.setCompanyName(getString(cursor, COL_COMPANY_NAME));
+        company.setDescription(getString(cursor, COL_DESCRIPTION));
+        company.setAdminUserId(getString(cursor, COL_ADMIN_USER_ID));
+        company.setEmail(getString(cursor, COL_EMAIL));
+        company.setPhoneNumber(getString(cursor, COL_PHONE));
+        company.setAddress(getString(cursor, COL_ADDRESS));
+        company.setCity(getString(cursor, COL_CITY));
+        company.setCountry(getString(cursor, COL_COUNTRY));
+        company.setLogoUrl(getString(cursor, COL_LOGO_URL));
+        company.setCoverImageUrls(fromJson(getString(cursor, COL_COVER_IMAGE_URLS)));
+        company.setAverageRating(getDouble(cursor, COL_AVERAGE_RATING));
+        company.setTotalReviews(getInteger(cursor, COL_TOTAL_REVIEWS));
+        company.setTotalTours(getInteger(cursor, COL_TOTAL_TOURS));
+        company.setTotalClients(getInteger(cursor, COL_TOTAL_CLIENTS));
+        company.setPriceFrom(getDouble(cursor, COL_PRICE_FROM));
+        company.setActive(getFlag(cursor, COL_IS_ACTIVE));
+        company.setVerified(getFlag(cursor, COL_IS_VERIFIED));
+        company.setCreatedAt(getDate(cursor, COL_CREATED_AT));
+        company.setUpdatedAt(getDate(cursor, COL_UPDATED_AT));
+        return company;
+    }
+
+    private static ContentValues toValues(Reservation reservation) {
+        ContentValues values = new ContentValues();
+        values.put(COL_ID, reservation.getReservationId());
+        values.put(COL_USER_ID, reservation.getUserId());
+        values.put(COL_USER_NAME, reservation.getUserName());
+        values.put(COL_USER_EMAIL, reservation.getUserEmail());
+        values.put(COL_TOUR_ID, reservation.getTourId());
+        values.put(COL_TOUR_NAME, reservation.getTourName());
+        values.put(COL_COMPANY_ID, reservation.getCompanyId());
+        values.put(COL_COMPANY_NAME, reservation.getCompanyName());
+        values.put(COL_GUIDE_ID, reservation.getGuideId());
+        values.put(COL_GUIDE_NAME, reservation.getGuideName());
+        values.put(COL_TOUR_DATE, reservation.getTourDate());
+        values.put(COL_TOUR_TIME, reservation.getTourTime());
+        values.put(COL_NUMBER_OF_PEOPLE, reservation.getNumberOfPeople());
+        values.put(COL_PRICE, reservation.getPricePerPerson());
+        values.put(COL_TOTAL_PRICE, reservation.getTotalPrice());
+        values.put(COL_QR_CHECK_IN, reservation.getQrCodeCheckIn());
+        values.put(COL_QR_CHECK_OUT, reservation.getQrCodeCheckOut());
+        values.put(COL_HAS_CHECKED_IN, toFlag(reservation.getHasCheckedIn()));
+        values.put(COL_HAS_CHECKED_OUT, toFlag(reservation.getHasCheckedOut()));
+        values.put(COL_CHECK_IN_TIME, toMillis(reservation.getCheckInTime()));
+        values.put(COL_CHECK_OUT_TIME, toMillis(reservation.getCheckOutTime()));
+        values.put(COL_STATUS, reservation.getStatus());
+        values.put(COL_PAYMENT_STATUS, reservation.getPaymentStatus());
+        values.put(COL_PAYMENT_METHOD, reservation.getPaymentMethod());
+        values.put(COL_PAYMENT_METHOD_ID, reservation.getPaymentMethodId());
+        values.put(COL_PAYMENT_TRANSACTION_ID, reservation.getPaymentTransactionId());
+        values.put(COL_SPECIAL_REQUESTS, reservation.getSpecialRequests());
+        values.put(COL_HAS_REVIEW, toFlag(reservation.getHasReview()));
+        values.put(COL_PAYMENT_NOTIFICATION_SENT, toFlag(reservation.getPaymentNotificationSent()));
+        values.put(COL_CREATED_AT, toMillis(reservation.getCreatedAt()));
+        values.put(COL_UPDATED_AT, toMillis(reservation.getUpdatedAt()));
+        return values;
+    }
+
+    private static Reservation toReservation(Cursor cursor) {
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(getString(cursor, COL_ID));
+        reservation.setUserId(getString(cursor, COL_USER_ID));
+        reservation.setUserName(getString(cursor, COL_USER_NAME));
+        reservation.setUserEmail(getString(cursor, COL_USER_EMAIL));
+        reservation.setTourId(getString(cursor, COL_TOUR_ID));
+        reservation.setTourName(getString(cursor, COL_TOUR_NAME));
+        reservation.setCompanyId(getString(cursor, COL_COMPANY_ID));
+        reservation.setCompanyName(getString(cursor, COL_COMPANY_NAME));
+        reservation.setGuideId(getString(cursor, COL_GUIDE_ID));
+        reservation.setGuideName(getString(cursor, COL_GUIDE_NAME));
+        reservation.setTourDate(getString(cursor, COL_TOUR_DATE));
+        reservation.setTourTime(getString(cursor, COL_TOUR_TIME));
+        reservation.setNumberOfPeople(getInteger(cursor, COL_NUMBER_OF_PEOPLE));
+        reservation.setPricePerPerson(getDouble(cursor, COL_PRICE));
+        reservation.setTotalPrice(getDouble(cursor, COL_TOTAL_PRICE));
+        reservation.setQrCodeCheckIn(getString(cursor, COL_QR_CHECK_IN));
+        reservation.setQrCodeCheckOut(getString(cursor, COL_QR_CHECK_OUT));
+        reservation.setHasCheckedIn(getFlag(cursor, COL_HAS_CHECKED_IN));
+        reservation.setHasCheckedOut(getFlag(cursor, COL_HAS_CHECKED_OUT));
+        reservation.setCheckInTime(getDate(cursor, COL_CHECK_IN_TIME));
+        reservation.setCheckOutTime(getDate(cursor, COL_CHECK_OUT_TIME));
+        reservation.setStatus(getString(cursor, COL_STATUS));
+        reservation.setPaymentStatus(getString(cursor, COL_PAYMENT_STATUS));
+        reservation.setPaymentMethod(getString(cursor, COL_PAYMENT_METHOD));
+        reservation.setPaymentMethodId(getString(cursor, COL_PAYMENT_METHOD_ID));
+        reservation.setPaymentTransactionId(getString(cursor, COL_PAYMENT_TRANSACTION_ID));
+        reservation.setSpecialRequests(getString(cursor, COL_SPECIAL_REQUESTS));
+        reservation.setHasReview(getFlag(cursor, COL_HAS_REVIEW));
+        reservation.setPaymentNotificationSent(getFlag(cursor, COL_PAYMENT_NOTIFICATION_SENT));
+        reservation.setCreatedAt(getDate(cursor, COL_CREATED_AT));
+        reservation.setUpdatedAt(getDate(cursor, COL_UPDATED_AT));
+        return reservation;
+    }
+
+    private static ContentValues toValues(Message message) {
+        ContentValues values = new ContentValues();
+        values.put(COL_ID, message.getMessageId());
+        values.put(COL_CONVERSATION_ID, message.getConversationId());
+        values.put(COL_SENDER_ID, message.getSenderId());
+        values.put(COL_SENDER_NAME, message.getSenderName());
+        values.put(COL_RECEIVER_ID, message.getReceiverId());
+        values.put(COL_RECEIVER_NAME, message.getReceiverName());
+        values.put(COL_SENDER_TYPE, message.getSenderType());
+        values.put(COL_MESSAGE_TEXT, message.getMessageText());
+        values.put(COL_TIMESTAMP, message.getTimestamp() != null ? message.getTimestamp().toDate().getTime() : null);
+        values.put(COL_IS_READ, message.isRead() ? 1 : 0);
+        return values;
+    }
+
+    private static Message toMessage(Cursor cursor) {
+        Message message = new Message();
+        message.setMessageId(getString(cursor, COL_ID));
+        message.setConversationId(getString(cursor, COL_CONVERSATION_ID));
+        message.setSenderId(getString(cursor, COL_SENDER_ID));
+        message.setSenderName(getString(cursor, COL_SENDER_NAME));
+        message.setReceiverId(getString(cursor, COL_RECEIVER_ID));
+        message.setReceiverName(getString(cursor, COL_RECEIVER_NAME));
+        message.setSenderType(getString(cursor, COL_SENDER_TYPE));
+        message.setMessageText(getString(cursor, COL_MESSAGE_TEXT));
+        Date timestamp = getDate(cursor, COL_TIMESTAMP);
+        message.setTimestamp(timestamp != null ? new Timestamp(timestamp) : null);
+        message.setRead(Boolean.TRUE.equals(getFlag(cursor, COL_IS_READ)));
+        return message;
+    }
+
+    // ==================== HELPERS DE COLUMNAS ====================
+
+    private static String getString(Cursor cursor, String column) {
+        int index = cursor.getColumnIndexOrThrow(column);
+        return cursor.isNull(index) ? null : cursor.getString(index);
+    }
+
+    private static Double getDouble(Cursor cursor, String column) {
+        int index = cursor.getColumnIndexOrThrow(column);
+        return cursor.isNull(index) ? null : cursor.getDouble(index);
+    }
+
+    private static Integer getInteger(Cursor cursor, String column) {
+        int index = cursor.getColumnIndexOrThrow(column);
+        return cursor.isNull(index) ? null : cursor.getInt(index);
+    }
+
+    private static Boolean getFlag(Cursor cursor, String column) {
+        int index = cursor.getColumnIndexOrThrow(column);
+        return cursor.isNull(index) ? null : cursor.getInt(index) == 1;
+    }
+
+    private static Date getDate(Cursor cursor, String column) {
+        int index = cursor.getColumnIndexOrThrow(column);
+        return cursor.isNull(index) ? null : new Date(cursor.getLong(index));
+    }
+
+    private static Integer toFlag(Boolean value) {
+        return value == null ? null : (value ? 1 : 0);
+    }
+
+    private static Long toMillis(Date date) {
+        return date == null ? null : date.getTime();
+    }
+
+    private static String toJson(List<String> values) {
+        return values == null ? null : new JSONArray(values).toString();
+    }
+
+    private static List<String> fromJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        try {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                values.add(array.optString(i));
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "Lista local corrupta: " + json, e);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.droidtour.firebase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contadores con caché local frente a una fuente remota de agregados (count() de Firestore).
+ *
+ * - Entrega primero el último valor guardado (si existe) y luego el del servidor.
+ * - Si el servidor falla, el valor guardado sirve de respaldo.
+ * - Peticiones simultáneas de la misma clave comparten una sola lectura.
+ *
+ * No depende de Android: la fuente y el almacenamiento se inyectan, lo que permite probarlo con fakes.
+ */
+public class AggregateCounter {
+
+    public interface Source {
+        /** Pedir el conteo de una clave y avisar al listener una sola vez */
+        void count(String key, Listener listener);
+    }
+
+    public interface Store {
+        /** Último valor guardado o null si no hay */
+        Long get(String key);
+        void put(String key, long value);
+    }
+
+    public interface Listener {
+        void onCount(long value);
+        void onError(Exception e);
+    }
+
+    private final Source source;
+    private final Store store;
+    private final Map<String, List<Listener>> inFlight = new HashMap<>();
+
+    public AggregateCounter(Source source, Store store) {
+        this.source = source;
+        this.store = store;
+    }
+
+    /**
+     * Contar una clave. onCount puede llamarse dos veces: valor en caché y valor del servidor.
+     */
+    public void count(String key, Listener listener) {
+        Long cached = store.get(key);
+        if (cached != null) {
+            listener.onCount(cached);
+        }
+
+        synchronized (inFlight) {
+            List<Listener> waiting = inFlight.get(key);
+            if (waiting != null) {
+                // Ya hay una lectura en curso para esta clave: esperar su resultado
+                waiting.add(cachedAware(listener, cached));
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(cachedAware(listener, cached));
+            inFlight.put(key, waiting);
+        }
+
+        source.count(key, new Listener() {
+            @Override
+            public void onCount(long value) {
+                store.put(key, value);
+                for (Listener waiting : finish(key)) {
+                    waiting.onCount(value);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                for (Listener waiting : finish(key)) {
+                    waiting.onError(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Ajustar el valor guardado tras un cambio local conocido (p. ej. marcar una notificación como leída)
+     */
+    public void adjust(String key, long delta) {
+        Long cached = store.get(key);
+        if (cached != null) {
+            store.put(key, Math.max(0, cached + delta));
+        }
+    }
+
+    /**
+     * Fijar el valor guardado cuando se conoce con certeza (p. ej. 0 tras "marcar todas como leídas")
+     */
+    public void set(String key, long value) {
+        store.put(key, value);
+    }
+
+    public Long getCached(String key) {
+        return store.get(key);
+    }
+
+    private List<Listener> finish(String key) {
+        synchronized (inFlight) {
+            List<Listener> waiting = inFlight.remove(key);
+            return waiting != null ? waiting : new ArrayList<>();
+        }
+    }
+
+    /**
+     * Evitar repetir el mismo número y no reportar error si ya se entregó un valor en caché
+     */
+    private static Listener cachedAware(Listener listener, Long cached) {
+        return new Listener() {
+            @Override
+            public void onCount(long value) {
+                if (cached == null || cached != value) {
+                    listener.onCount(value);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (cached == null) {
+                    listener.onError(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.droidtour.firebase;
+
+import android.util.Log;
+
+import com.example.droidtour.analytics.DashboardRollup;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Manager de analítica del dashboard del superadmin.
+ * Mantiene los rollups de {@link DashboardRollup} en dos partes:
+ *
+ * - analytics/dashboard: base reconstruida una vez desde todas las reservas y tours (bootstrapped).
+ * - analytics/dashboard/shards/{0..SHARD_COUNT-1}: cada escritura de reserva o tour suma su delta
+ *   con FieldValue.increment en un shard al azar, dentro del mismo batch o transacción. Repartir
+ *   los incrementos evita que todas las escrituras (y los batches paralelos del seed) compitan
+ *   por un solo documento.
+ *
+ * El dashboard lee la base y los shards (SHARD_COUNT + 1 lecturas) en vez de escanear "reservations".
+ */
+public class AnalyticsManager {
+    private static final String TAG = "AnalyticsManager";
+    private static AnalyticsManager instance;
+
+    private static final String COLLECTION_ANALYTICS = "analytics";
+    private static final String DOCUMENT_DASHBOARD = "dashboard";
+    private static final String COLLECTION_SHARDS = "shards";
+    private static final int SHARD_COUNT = 10;
+    // Marca que la base fue reconstruida desde todas las reservas
+    private static final String FIELD_BOOTSTRAPPED = "bootstrapped";
+    // Reconstrucciones seguidas si los shards cambian durante el escaneo
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private enum RebuildOutcome { WRITTEN, ALREADY_BOOTSTRAPPED, SHARDS_CHANGED }
+
+    private final FirebaseFirestore db;
+
+    private AnalyticsManager() {
+        this.db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized AnalyticsManager getInstance() {
+        if (instance == null) {
+            instance = new AnalyticsManager();
+        }
+        return instance;
+    }
+
+    private DocumentReference dashboardRef() {
+        return db.collection(COLLECTION_ANALYTICS).document(DOCUMENT_DASHBOARD);
+    }
+
+    private CollectionReference shardsRef() {
+        return dashboardRef().collection(COLLECTION_SHARDS);
+    }
+
+    /** Un shard al azar por escritura */
+    private DocumentReference randomShardRef() {
+        return shardsRef().document(String.valueOf(ThreadLocalRandom.current().nextInt(SHARD_COUNT)));
+    }
+
+    // ==================== ESCRITURA INCREMENTAL ====================
+
+    /**
+     * Agregar al batch el delta de una reserva que pasa de before a after
+     */
+    public void applyReservationChange(WriteBatch batch, Map<String, Object> before, Map<String, Object> after) {
+        DashboardRollup delta = DashboardRollup.reservationDelta(before, after);
+        if (!delta.isEmpty()) {
+            batch.set(randomShardRef(), toIncrements(delta.toMap()), SetOptions.merge());
+        }
+    }
+
+    /**
+     * Agregar a la transacción el delta de una reserva que pasa de before a after
+     */
+    public void applyReservationChange(Transaction transaction, Map<String, Object> before, Map<String, Object> after) {
+        DashboardRollup delta = DashboardRollup.reservationDelta(before, after);
+        if (!delta.isEmpty()) {
+            transaction.set(randomShardRef(), toIncrements(delta.toMap()), SetOptions.merge());
+        }
+    }
+
+    /**
+     * Agregar al batch el delta de un tour (conteo de tours activos por categoría)
+     */
+    public void applyTourChange(WriteBatch batch, Map<String, Object> before, Map<String, Object> after) {
+        DashboardRollup delta = DashboardRollup.tourDelta(before, after);
+        if (!delta.isEmpty()) {
+            batch.set(randomShardRef(), toIncrements(delta.toMap()), SetOptions.merge());
+        }
+    }
+
+    public void applyTourChange(Transaction transaction, Map<String, Object> before, Map<String, Object> after) {
+        DashboardRollup delta = DashboardRollup.tourDelta(before, after);
+        if (!delta.isEmpty()) {
+            transaction.set(randomShardRef(), toIncrements(delta.toMap()), SetOptions.merge());
+        }
+    }
+
+    /**
+     * Reemplazar cada número del mapa anidado por FieldValue.increment
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toIncrements(Map<String, Object> map) {
+        Map<String, Object> result = new HashMap<>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                result.put(entry.getKey(), toIncrements((Map<String, Object>) value));
+            } else if (value instanceof Double) {
+                result.put(entry.getKey(), FieldValue.increment((Double) value));
+            } else if (value instanceof Number) {
+                result.put(entry.getKey(), FieldValue.increment(((Number) value).longValue()));
+            }
+        }
+        return result;
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Obtener el rollup del dashboard: base + suma de los shards.
+     * Si la base aún no fue reconstruida, se reconstruye una vez desde las colecciones.
+     */
+    public void getDashboardRollup(FirestoreManager.FirestoreCallback callback) {
+        dashboardRef()
+                .get()
+                .addOnSuccessListener(documentSnapshot -> {
+                    if (!documentSnapshot.exists() || !Boolean.TRUE.equals(documentSnapshot.getBoolean(FIELD_BOOTSTRAPPED))) {
+                        Log.d(TAG, "Rollup del dashboard sin reconstruir, reconstruyendo");
+                        rebuildDashboardRollup(callback);
+                        return;
+                    }
+                    DashboardRollup rollup = DashboardRollup.fromMap(documentSnapshot.getData());
+                    loadShards(new FirestoreManager.FirestoreCallback() {
+                        @Override
+                        public void onSuccess(Object result) {
+                            rollup.merge((DashboardRollup) result);
+                            callback.onSuccess(rollup);
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            callback.onFailure(e);
+                        }
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error al obtener el rollup del dashboard", e);
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Suma de los incrementos de todos los shards (onSuccess recibe un DashboardRollup)
+     */
+    private void loadShards(FirestoreManager.FirestoreCallback callback) {
+        loadShardData(new FirestoreManager.FirestoreCallback() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onSuccess(Object result) {
+                callback.onSuccess(sumShards((Map<String, Map<String, Object>>) result));
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Datos crudos de los shards por ID (onSuccess recibe un Map<String, Map<String, Object>>)
+     */
+    private void loadShardData(FirestoreManager.FirestoreCallback callback) {
+        shardsRef()
+                .get()
+                .addOnSuccessListener(shards -> {
+                    Map<String, Map<String, Object>> data = new HashMap<>();
+                    for (QueryDocumentSnapshot document : shards) {
+                        data.put(document.getId(), document.getData());
+                    }
+                    callback.onSuccess(data);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error al leer los shards del dashboard", e);
+                    callback.onFailure(e);
+                });
+    }
+
+    private static DashboardRollup sumShards(Map<String, Map<String, Object>> shards) {
+        DashboardRollup sum = new DashboardRollup();
+        for (Map<String, Object> data : shards.values()) {
+            sum.merge(DashboardRollup.fromMap(data));
+        }
+        return sum;
+    }
+
+    /**
+     * Reconstruir la base: escaneo de reservas y de tours activos.
+     *
+     * La base debe ser el escaneo menos lo que los shards tenían en ese mismo momento. Los shards
+     * se leen antes del escaneo y otra vez dentro de la transacción que graba la base: si no
+     * cambiaron, ninguna escritura que afecte al rollup ocurrió entre medio y la base es exacta;
+     * la transacción además falla si un shard cambia antes del commit. Si cambiaron, se repite
+     * la reconstrucción (hasta {@link #MAX_REBUILD_ATTEMPTS} veces; si no, se intenta en la
+     * siguiente apertura). Solo graba si la base sigue sin reconstruir, así dos superadmins a la
+     * vez no se pisan.
+     */
+    public void rebuildDashboardRollup(FirestoreManager.FirestoreCallback callback) {
+        rebuild(1, callback);
+    }
+
+    /**
+     * @param callback recibe el escaneo del primer intento; null en los reintentos
+     */
+    private void rebuild(int attempt, FirestoreManager.FirestoreCallback callback) {
+        loadShardData(new FirestoreManager.FirestoreCallback() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onSuccess(Object result) {
+                scanAndStoreBase((Map<String, Map<String, Object>>) result, attempt, callback);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (callback != null) callback.onFailure(e);
+            }
+        });
+    }
+
+    private void scanAndStoreBase(Map<String, Map<String, Object>> shardsBeforeScan, int attempt,
+                                  FirestoreManager.FirestoreCallback callback) {
+        db.collection("reservations")
+                .get()
+                .addOnSuccessListener(reservations -> {
+                    DashboardRollup scanned = new DashboardRollup();
+                    for (QueryDocumentSnapshot document : reservations) {
+                        scanned.addReservation(document.getData(), 1);
+                    }
+                    db.collection("tours")
+                            .whereEqualTo("isActive", true)
+                            .get()
+                            .addOnSuccessListener(tours -> {
+                                for (QueryDocumentSnapshot document : tours) {
+                                    scanned.addTour(document.getData(), 1);
+                                }
+                                storeBase(scanned, shardsBeforeScan, attempt, reservations.size(), tours.size());
+
+                                // El escaneo ya es el total; no esperar a que se persista
+                                if (callback != null) callback.onSuccess(scanned);
+                            })
+                            .addOnFailureListener(e -> {
+                                Log.e(TAG, "Error al reconstruir el rollup (tours)", e);
+                                if (callback != null) callback.onFailure(e);
+                            });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error al reconstruir el rollup (reservas)", e);
+                    if (callback != null) callback.onFailure(e);
+                });
+    }
+
+    private void storeBase(DashboardRollup scanned, Map<String, Map<String, Object>> shardsBeforeScan,
+                           int attempt, int reservationCount, int tourCount) {
+        db.runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(dashboardRef());
+            Map<String, Map<String, Object>> shardsNow = new HashMap<>();
+            for (int i = 0; i < SHARD_COUNT; i++) {
+                DocumentSnapshot shard = transaction.get(shardsRef().document(String.valueOf(i)));
+                if (shard.exists()) {
+                    shardsNow.put(shard.getId(), shard.getData());
+                }
+            }
+            if (current.exists() && Boolean.TRUE.equals(current.getBoolean(FIELD_BOOTSTRAPPED))) {
+                // Otro dispositivo ya reconstruyó la base
+                return RebuildOutcome.ALREADY_BOOTSTRAPPED;
+            }
+            if (!shardsNow.equals(shardsBeforeScan)) {
+                // Hubo escrituras durante el escaneo: el escaneo puede incluirlas o no
+                return RebuildOutcome.SHARDS_CHANGED;
+            }
+
+            DashboardRollup base = new DashboardRollup();
+            base.merge(scanned);
+            base.subtract(sumShards(shardsNow));
+            Map<String, Object> data = base.toMap();
+            data.put(FIELD_BOOTSTRAPPED, true);
+            data.put("updatedAt", FieldValue.serverTimestamp());
+            transaction.set(dashboardRef(), data);
+            return RebuildOutcome.WRITTEN;
+        })
+                .addOnSuccessListener(outcome -> {
+                    switch (outcome) {
+                        case WRITTEN:
+                            Log.d(TAG, "Rollup del dashboard reconstruido: " + reservationCount + " reservas, "
+                                    + tourCount + " tours");
+                            break;
+                        case ALREADY_BOOTSTRAPPED:
+                            Log.d(TAG, "El rollup del dashboard ya fue reconstruido en otro dispositivo");
+                            break;
+                        case SHARDS_CHANGED:
+                            if (attempt < MAX_REBUILD_ATTEMPTS) {
+                                Log.d(TAG, "Los shards cambiaron durante el escaneo, reintento " + (attempt + 1));
+                                rebuild(attempt + 1, null);
+                            } else {
+                                Log.w(TAG, "Los shards siguen cambiando; la base se reconstruirá en la próxima apertura");
+                            }
+                            break;
+                    }
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "No se pudo guardar el rollup del dashboard", e));
+    }
+}
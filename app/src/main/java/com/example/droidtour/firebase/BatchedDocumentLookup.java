@@ -0,0 +1,208 @@
+package com.example.droidtour.firebase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lectura de muchos documentos por ID en pocas consultas: los IDs se agrupan en bloques de hasta
+ * {@link #MAX_IDS_PER_QUERY} (límite de whereIn) que se piden en paralelo, y cada valor se guarda
+ * en caché durante un TTL. Los documentos que no existen también se recuerdan para no volver a pedirlos.
+ *
+ * No depende de Android ni de Firebase para poder probarse en la JVM; ver {@link UserRoleResolver}.
+ */
+public class BatchedDocumentLookup<V> {
+
+    /** Máximo de valores en un whereIn de Firestore */
+    public static final int MAX_IDS_PER_QUERY = 30;
+
+    /** Una consulta para un bloque de IDs */
+    public interface Fetcher {
+        void fetch(List<String> ids, FetchListener listener);
+    }
+
+    public interface FetchListener {
+        /** Documentos encontrados por ID; los que falten no existen */
+        void onFetched(Map<String, Map<String, Object>> documents);
+        void onError(Exception e);
+    }
+
+    /** Valor a guardar para un documento (puede devolver null) */
+    public interface Mapper<V> {
+        V map(Map<String, Object> document);
+    }
+
+    public interface Clock {
+        long now();
+    }
+
+    public interface Listener<V> {
+        void onResolved(Result<V> result);
+    }
+
+    public static class Result<V> {
+        private final Map<String, V> values;
+        private final int cacheHits;
+        private final int queries;
+        private final List<Exception> failures;
+
+        Result(Map<String, V> values, int cacheHits, int queries, List<Exception> failures) {
+            this.values = Collections.unmodifiableMap(values);
+            this.cacheHits = cacheHits;
+            this.queries = queries;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        /** Valores por ID; no incluye IDs sin documento o con valor null */
+        public Map<String, V> getValues() {
+            return values;
+        }
+
+        public int getCacheHits() {
+            return cacheHits;
+        }
+
+        /** Consultas (round trips) hechas para esta resolución */
+        public int getQueries() {
+            return queries;
+        }
+
+        public List<Exception> getFailures() {
+            return failures;
+        }
+
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Fetcher fetcher;
+    private final Mapper<V> mapper;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final int idsPerQuery;
+    private final Map<String, Entry<V>> cache = new HashMap<>();
+
+    public BatchedDocumentLookup(Fetcher fetcher, Mapper<V> mapper, long ttlMillis) {
+        this(fetcher, mapper, ttlMillis, System::currentTimeMillis, MAX_IDS_PER_QUERY);
+    }
+
+    public BatchedDocumentLookup(Fetcher fetcher, Mapper<V> mapper, long ttlMillis, Clock clock, int idsPerQuery) {
+        if (idsPerQuery < 1 || idsPerQuery > MAX_IDS_PER_QUERY) {
+            throw new IllegalArgumentException("idsPerQuery debe estar entre 1 y " + MAX_IDS_PER_QUERY);
+        }
+        this.fetcher = fetcher;
+        this.mapper = mapper;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.idsPerQuery = idsPerQuery;
+    }
+
+    /**
+     * Resolver los IDs: los vigentes salen de la caché y el resto se pide en bloques paralelos.
+     * El listener se llama una sola vez, cuando terminan todos los bloques (los fallidos no se cachean).
+     */
+    public void resolve(Collection<String> ids, Listener<V> listener) {
+        Map<String, V> values = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        int hits = 0;
+
+        synchronized (cache) {
+            long now = clock.now();
+            for (String id : new LinkedHashSet<>(ids)) {
+                if (id == null || id.isEmpty()) continue;
+                Entry<V> entry = cache.get(id);
+                if (entry != null && entry.expiresAt > now) {
+                    hits++;
+                    if (entry.value != null) values.put(id, entry.value);
+                } else {
+                    missing.add(id);
+                }
+            }
+        }
+
+        if (missing.isEmpty()) {
+            listener.onResolved(new Result<>(values, hits, 0, new ArrayList<>()));
+            return;
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int start = 0; start < missing.size(); start += idsPerQuery) {
+            chunks.add(missing.subList(start, Math.min(start + idsPerQuery, missing.size())));
+        }
+
+        final int cacheHits = hits;
+        AtomicInteger pending = new AtomicInteger(chunks.size());
+        List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+
+        for (List<String> chunk : chunks) {
+            fetcher.fetch(new ArrayList<>(chunk), new FetchListener() {
+                @Override
+                public void onFetched(Map<String, Map<String, Object>> documents) {
+                    synchronized (cache) {
+                        long expiresAt = clock.now() + ttlMillis;
+                        for (String id : chunk) {
+                            Map<String, Object> document = documents.get(id);
+                            V value = document != null ? mapper.map(document) : null;
+                            cache.put(id, new Entry<>(value, expiresAt));
+                            if (value != null) values.put(id, value);
+                        }
+                    }
+                    finishChunk();
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    failures.add(e);
+                    finishChunk();
+                }
+
+                private void finishChunk() {
+                    if (pending.decrementAndGet() == 0) {
+                        Map<String, V> resolved;
+                        synchronized (cache) {
+                            resolved = new HashMap<>(values);
+                        }
+                        listener.onResolved(new Result<>(resolved, cacheHits, chunks.size(), new ArrayList<>(failures)));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Olvidar un ID (p. ej. después de escribir su documento)
+     */
+    public void invalidate(String id) {
+        synchronized (cache) {
+            cache.remove(id);
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public int cachedCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.droidtour.firebase;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.Map;
+
+/**
+ * Escritura masiva en Firestore: reparte las operaciones en WriteBatch de hasta 500 escrituras
+ * y confirma como máximo {@link #DEFAULT_MAX_CONCURRENT_BATCHES} a la vez.
+ *
+ * Uso: agregar operaciones con set/update/delete y llamar a commit una sola vez.
+ * onSuccess recibe el {@link ChunkedBatchWriter.Result}; si algún batch falla, onFailure recibe
+ * una {@link BulkWriteException} con los fallos por batch (los demás batches sí se escribieron).
+ */
+public class BulkWriter {
+    private static final String TAG = "BulkWriter";
+
+    public static final int DEFAULT_MAX_CONCURRENT_BATCHES = 4;
+
+    private final FirebaseFirestore db;
+    private final ChunkedBatchWriter<WriteBatch> writer;
+
+    public BulkWriter(FirebaseFirestore db) {
+        this(db, DEFAULT_MAX_CONCURRENT_BATCHES);
+    }
+
+    public BulkWriter(FirebaseFirestore db, int maxConcurrentBatches) {
+        this.db = db;
+        this.writer = new ChunkedBatchWriter<>(new ChunkedBatchWriter.Committer<WriteBatch>() {
+            @Override
+            public WriteBatch newBatch() {
+                return BulkWriter.this.db.batch();
+            }
+
+            @Override
+            public void commit(WriteBatch batch, ChunkedBatchWriter.CommitListener listener) {
+                batch.commit()
+                        .addOnSuccessListener(aVoid -> listener.onCommitted())
+                        .addOnFailureListener(listener::onError);
+            }
+        }, ChunkedBatchWriter.MAX_OPERATIONS_PER_BATCH, maxConcurrentBatches);
+    }
+
+    // ==================== OPERACIONES ====================
+
+    public BulkWriter set(DocumentReference reference, Map<String, Object> data) {
+        writer.add(batch -> batch.set(reference, data));
+        return this;
+    }
+
+    public BulkWriter set(DocumentReference reference, Map<String, Object> data, SetOptions options) {
+        writer.add(batch -> batch.set(reference, data, options));
+        return this;
+    }
+
+    public BulkWriter update(DocumentReference reference, Map<String, Object> updates) {
+        writer.add(batch -> batch.update(reference, updates));
+        return this;
+    }
+
+    public BulkWriter delete(DocumentReference reference) {
+        writer.add(batch -> batch.delete(reference));
+        return this;
+    }
+
+    /**
+     * Operación con varias escrituras que deben ir juntas en el mismo batch
+     * (p. ej. una reserva y su delta en el rollup del dashboard)
+     */
+    public BulkWriter add(int writes, ChunkedBatchWriter.Operation<WriteBatch> operation) {
+        writer.add(writes, operation);
+        return this;
+    }
+
+    public int size() {
+        return writer.size();
+    }
+
+    // ==================== COMMIT ====================
+
+    public void commit(FirestoreManager.FirestoreCallback callback) {
+        int operations = writer.size();
+        long start = System.currentTimeMillis();
+        writer.execute(result -> {
+            long elapsed = System.currentTimeMillis() - start;
+            if (result.isSuccessful()) {
+                Log.d(TAG, operations + " operaciones en " + result.getChunks() + " batches (" + elapsed + " ms)");
+                callback.onSuccess(result);
+            } else {
+                Log.e(TAG, result.getFailures().size() + " de " + result.getChunks() + " batches fallaron ("
+                        + result.getFailedOperations() + " operaciones sin escribir)");
+                callback.onFailure(new BulkWriteException(result));
+            }
+        });
+    }
+
+    /**
+     * Fallo parcial o total de una escritura masiva
+     */
+    public static class BulkWriteException extends Exception {
+        private final ChunkedBatchWriter.Result result;
+
+        BulkWriteException(ChunkedBatchWriter.Result result) {
+            super(result.getFailures().size() + " de " + result.getChunks() + " batches fallaron",
+                    result.getFailures().get(0).getError());
+            this.result = result;
+        }
+
+        public ChunkedBatchWriter.Result getResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.droidtour.firebase;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.List;
+
+/**
+ * Página de resultados del catálogo con el cursor para pedir la siguiente (startAfter)
+ */
+public class CatalogPage<T> {
+    private final List<T> items;
+    private final DocumentSnapshot lastDocument;
+    private final boolean hasMore;
+    private final boolean serverOrdered;
+
+    public CatalogPage(List<T> items, DocumentSnapshot lastDocument, boolean hasMore) {
+        this(items, lastDocument, hasMore, true);
+    }
+
+    public CatalogPage(List<T> items, DocumentSnapshot lastDocument, boolean hasMore, boolean serverOrdered) {
+        this.items = items;
+        this.lastDocument = lastDocument;
+        this.hasMore = hasMore;
+        this.serverOrdered = serverOrdered;
+    }
+
+    public List<T> getItems() { return items; }
+
+    /**
+     * Cursor para la siguiente página; null si la página vino vacía
+     */
+    public DocumentSnapshot getLastDocument() { return lastDocument; }
+
+    public boolean hasMore() { return hasMore; }
+
+    /**
+     * false si se pidió sin el orden solicitado (p. ej. faltan campos en documentos antiguos):
+     * el orden correcto solo se obtiene ordenando en local todas las páginas
+     */
+    public boolean isServerOrdered() { return serverOrdered; }
+}
@@ -0,0 +1,277 @@
+package com.example.droidtour.firebase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.droidtour.BuildConfig;
+import com.example.droidtour.checkin.CheckInIndex;
+import com.example.droidtour.checkin.CheckInQueue;
+import com.example.droidtour.checkin.QrCodeSigner;
+import com.example.droidtour.checkin.ScanKind;
+import com.example.droidtour.models.Reservation;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Check-in/check-out de los participantes con QR, también sin conexión.
+ *
+ * - {@link #preload}: descarga las reservas de la salida (tour + fecha) y guarda un {@link CheckInIndex}
+ *   en filesDir/checkin; sin red se usa la última copia guardada.
+ * - Los escaneos aceptados van a un {@link CheckInQueue} en SharedPreferences y se suben juntos con
+ *   un {@link BulkWriter} (un solo batch hasta 500 reservas) en cuanto hay red.
+ */
+public class CheckInManager {
+    private static final String TAG = "CheckInManager";
+    private static final String COLLECTION_RESERVATIONS = "reservations";
+    private static final String PREFS_NAME = "checkin_queue";
+    private static final String KEY_EVENTS = "events";
+    private static final String KEY_DEPARTURE_PREFIX = "departure:";
+    private static final String INDEX_DIR = "checkin";
+    private static final String STATUS_CANCELLED = "CANCELADA";
+
+    private static CheckInManager instance;
+    private static QrCodeSigner signer;
+
+    private final FirebaseFirestore db;
+    private final SharedPreferences prefs;
+    private final File indexDir;
+    private final CheckInQueue queue;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private CheckInManager(Context context) {
+        Context appContext = context.getApplicationContext();
+        this.db = FirebaseFirestore.getInstance();
+        this.prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.indexDir = new File(appContext.getFilesDir(), INDEX_DIR);
+
+        this.queue = new CheckInQueue(new CheckInQueue.Store() {
+            @Override
+            public List<String> load() {
+                String events = prefs.getString(KEY_EVENTS, "");
+                return events.isEmpty() ? new ArrayList<>() : Arrays.asList(events.split("\n"));
+            }
+
+            @Override
+            public void save(List<String> lines) {
+                prefs.edit().putString(KEY_EVENTS, String.join("\n", lines)).apply();
+            }
+        });
+
+        // Subir lo pendiente en cuanto vuelve la red
+        ConnectivityManager connectivity = appContext.getSystemService(ConnectivityManager.class);
+        if (connectivity != null) {
+            connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    handler.post(() -> flush());
+                }
+            });
+        }
+    }
+
+    public static synchronized CheckInManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new CheckInManager(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Firmador de los QR de reservas (la clave viene de BuildConfig.QR_SIGNING_KEY)
+     */
+    public static synchronized QrCodeSigner getSigner() {
+        if (signer == null) {
+            signer = new QrCodeSigner(BuildConfig.QR_SIGNING_KEY.getBytes(StandardCharsets.UTF_8));
+        }
+        return signer;
+    }
+
+    // ==================== ÍNDICE ====================
+
+    /**
+     * Preparar el índice de la salida de una reserva; onSuccess recibe el {@link CheckInIndex}.
+     * Sin conexión devuelve el último índice guardado de esa salida.
+     */
+    public void preload(String reservationId, FirestoreManager.FirestoreCallback callback) {
+        db.collection(COLLECTION_RESERVATIONS).document(reservationId).get()
+                .addOnSuccessListener(snapshot -> {
+                    Reservation reservation = snapshot.exists() ? snapshot.toObject(Reservation.class) : null;
+                    if (reservation == null || reservation.getTourId() == null) {
+                        loadCached(reservationId, callback, new Exception("Reserva no encontrada: " + reservationId));
+                        return;
+                    }
+                    preloadDeparture(reservationId, reservation.getTourId(), reservation.getTourDate(), callback);
+                })
+                .addOnFailureListener(e -> loadCached(reservationId, callback, e));
+    }
+
+    private void preloadDeparture(String reservationId, String tourId, String tourDate, FirestoreManager.FirestoreCallback callback) {
+        db.collection(COLLECTION_RESERVATIONS)
+                .whereEqualTo("tourId", tourId)
+                .whereEqualTo("tourDate", tourDate)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    // Sin red Firestore responde desde su caché, que puede no tener toda la salida
+                    if (querySnapshot.getMetadata().isFromCache() && hasCachedIndex(reservationId)) {
+                        loadCached(reservationId, callback, null);
+                        return;
+                    }
+                    CheckInIndex.Builder builder = new CheckInIndex.Builder(tourId, tourDate != null ? tourDate : "");
+                    for (QueryDocumentSnapshot document : querySnapshot) {
+                        Reservation reservation = document.toObject(Reservation.class);
+                        if (STATUS_CANCELLED.equals(reservation.getStatus())) continue;
+                        builder.add(document.getId(), reservation.getUserName(),
+                                reservation.getNumberOfPeople() != null ? reservation.getNumberOfPeople() : 1,
+                                reservation.getQrCodeCheckIn(), reservation.getQrCodeCheckOut(),
+                                timeOf(reservation.getHasCheckedIn(), reservation.getCheckInTime()),
+                                timeOf(reservation.getHasCheckedOut(), reservation.getCheckOutTime()));
+                    }
+                    CheckInIndex index = builder.build();
+                    index.setSigner(getSigner());
+                    // Lo escaneado que aún no llegó a Firestore
+                    for (CheckInQueue.Event event : queue.getPending()) {
+                        index.markScanned(event.getReservationId(), event.getKind(), event.getTime());
+                    }
+
+                    String departureKey = departureKey(tourId, tourDate);
+                    prefs.edit().putString(KEY_DEPARTURE_PREFIX + reservationId, departureKey).apply();
+                    save(index);
+                    Log.d(TAG, "Índice de " + departureKey + ": " + index.getReservationCount() + " reservas");
+                    callback.onSuccess(index);
+                })
+                .addOnFailureListener(e -> loadCached(reservationId, callback, e));
+    }
+
+    private boolean hasCachedIndex(String reservationId) {
+        String departureKey = prefs.getString(KEY_DEPARTURE_PREFIX + reservationId, null);
+        return departureKey != null && new File(indexDir, departureKey + ".bin").exists();
+    }
+
+    private void loadCached(String reservationId, FirestoreManager.FirestoreCallback callback, Exception cause) {
+        String departureKey = prefs.getString(KEY_DEPARTURE_PREFIX + reservationId, null);
+        File file = departureKey != null ? new File(indexDir, departureKey + ".bin") : null;
+        if (file == null || !file.exists()) {
+            Log.e(TAG, "Sin índice guardado para " + reservationId, cause);
+            callback.onFailure(cause != null ? cause : new IOException("Sin índice guardado"));
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            CheckInIndex index = CheckInIndex.readFrom(in);
+            index.setSigner(getSigner());
+            Log.d(TAG, "Índice guardado de " + departureKey + " (sin conexión)");
+            callback.onSuccess(index);
+        } catch (IOException e) {
+            Log.e(TAG, "Error leyendo índice " + file, e);
+            callback.onFailure(e);
+        }
+    }
+
+    /**
+     * Guardar el índice con el estado local (se llama tras cada escaneo aceptado)
+     */
+    public void save(CheckInIndex index) {
+        if (!indexDir.exists() && !indexDir.mkdirs()) {
+            Log.e(TAG, "No se pudo crear " + indexDir);
+            return;
+        }
+        File file = new File(indexDir, departureKey(index.getTourId(), index.getTourDate()) + ".bin");
+        File tmp = new File(indexDir, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            index.writeTo(out);
+        } catch (IOException e) {
+            Log.e(TAG, "Error guardando índice " + file, e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "Error reemplazando índice " + file);
+        }
+    }
+
+    // ==================== ESCANEOS ====================
+
+    /**
+     * Registrar un escaneo aceptado: encolar, guardar el índice e intentar subir
+     */
+    public void record(CheckInIndex index, CheckInIndex.ScanResult result) {
+        if (!result.isAccepted()) {
+            return;
+        }
+        CheckInIndex.Reservation reservation = result.getReservation();
+        long time = result.getKind() == ScanKind.CHECK_IN ? reservation.getCheckInAt() : reservation.getCheckOutAt();
+        queue.add(new CheckInQueue.Event(reservation.getReservationId(), result.getKind(), time));
+        save(index);
+        flush();
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Subir los escaneos pendientes en un BulkWriter (si ya hay una subida en curso, espera a la siguiente)
+     */
+    public void flush() {
+        queue.flush((events, callback) -> {
+            BulkWriter writer = new BulkWriter(db);
+            for (CheckInQueue.Event event : events) {
+                DocumentReference reservationRef = db.collection(COLLECTION_RESERVATIONS).document(event.getReservationId());
+                Map<String, Object> updates = new HashMap<>();
+                if (event.getKind() == ScanKind.CHECK_IN) {
+                    updates.put("hasCheckedIn", true);
+                    updates.put("checkInTime", new Date(event.getTime()));
+                } else {
+                    updates.put("hasCheckedOut", true);
+                    updates.put("checkOutTime", new Date(event.getTime()));
+                }
+                updates.put("updatedAt", FieldValue.serverTimestamp());
+                writer.update(reservationRef, updates);
+            }
+            writer.commit(new FirestoreManager.FirestoreCallback() {
+                @Override
+                public void onSuccess(Object result) {
+                    Log.d(TAG, events.size() + " escaneos sincronizados");
+                    callback.onFlushed();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    // Las actualizaciones son idempotentes: se reintenta todo en la próxima conexión
+                    Log.w(TAG, "Escaneos pendientes sin sincronizar: " + events.size(), e);
+                    callback.onFailed(e);
+                }
+            });
+        });
+    }
+
+    private static long timeOf(Boolean done, Date time) {
+        if (done == null || !done) return 0;
+        return time != null ? time.getTime() : 1;
+    }
+
+    private static String departureKey(String tourId, String tourDate) {
+        return (tourId + "_" + tourDate).replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.droidtour.firebase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Escrituras masivas repartidas en batches de como máximo 500 operaciones (límite de Firestore),
+ * con un número acotado de commits en vuelo y una sola señal de fin con los fallos por batch.
+ *
+ * No depende de Android: el tipo de batch y el commit se inyectan ({@link Committer}),
+ * lo que permite probarlo con fakes. {@link BulkWriter} lo conecta con WriteBatch.
+ */
+public class ChunkedBatchWriter<B> {
+
+    /** Límite de operaciones por WriteBatch en Firestore */
+    public static final int MAX_OPERATIONS_PER_BATCH = 500;
+
+    public interface Operation<B> {
+        void applyTo(B batch);
+    }
+
+    public interface Committer<B> {
+        B newBatch();
+        /** Confirmar el batch y avisar al listener una sola vez */
+        void commit(B batch, CommitListener listener);
+    }
+
+    public interface CommitListener {
+        void onCommitted();
+        void onError(Exception e);
+    }
+
+    public interface Listener {
+        void onComplete(Result result);
+    }
+
+    /**
+     * Batch que no se pudo confirmar: sus operaciones no se aplicaron (un batch es atómico)
+     */
+    public static class ChunkFailure {
+        private final int chunkIndex;
+        private final int firstOperation;
+        private final int operationCount;
+        private final Exception error;
+
+        ChunkFailure(int chunkIndex, int firstOperation, int operationCount, Exception error) {
+            this.chunkIndex = chunkIndex;
+            this.firstOperation = firstOperation;
+            this.operationCount = operationCount;
+            this.error = error;
+        }
+
+        public int getChunkIndex() { return chunkIndex; }
+        /** Índice (en orden de add) de la primera operación del batch */
+        public int getFirstOperation() { return firstOperation; }
+        public int getOperationCount() { return operationCount; }
+        public Exception getError() { return error; }
+    }
+
+    public static class Result {
+        private final int operations;
+        private final int chunks;
+        private final List<ChunkFailure> failures;
+
+        Result(int operations, int chunks, List<ChunkFailure> failures) {
+            this.operations = operations;
+            this.chunks = chunks;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        public int getOperations() { return operations; }
+        public int getChunks() { return chunks; }
+        public List<ChunkFailure> getFailures() { return failures; }
+        public boolean isSuccessful() { return failures.isEmpty(); }
+
+        public int getFailedOperations() {
+            int failed = 0;
+            for (ChunkFailure failure : failures) {
+                failed += failure.getOperationCount();
+            }
+            return failed;
+        }
+
+        public int getWrittenOperations() {
+            return operations - getFailedOperations();
+        }
+    }
+
+    private static class Chunk<B> {
+        final int index;
+        final int firstOperation;
+        final List<Operation<B>> operations = new ArrayList<>();
+        int weight;
+
+        Chunk(int index, int firstOperation) {
+            this.index = index;
+            this.firstOperation = firstOperation;
+        }
+    }
+
+    private final Committer<B> committer;
+    private final int maxOperationsPerBatch;
+    private final int maxConcurrentBatches;
+    private final List<Chunk<B>> chunks = new ArrayList<>();
+    private int operationCount;
+    private boolean executed;
+
+    // Estado de la ejecución
+    private final Object lock = new Object();
+    private final List<ChunkFailure> failures = new ArrayList<>();
+    private int nextChunk;
+    private int finishedChunks;
+    private Listener listener;
+
+    public ChunkedBatchWriter(Committer<B> committer, int maxOperationsPerBatch, int maxConcurrentBatches) {
+        if (maxOperationsPerBatch < 1 || maxOperationsPerBatch > MAX_OPERATIONS_PER_BATCH) {
+            throw new IllegalArgumentException("maxOperationsPerBatch debe estar entre 1 y " + MAX_OPERATIONS_PER_BATCH);
+        }
+        if (maxConcurrentBatches < 1) {
+            throw new IllegalArgumentException("maxConcurrentBatches debe ser al menos 1");
+        }
+        this.committer = committer;
+        this.maxOperationsPerBatch = maxOperationsPerBatch;
+        this.maxConcurrentBatches = maxConcurrentBatches;
+    }
+
+    public void add(Operation<B> operation) {
+        add(1, operation);
+    }
+
+    /**
+     * Agregar una operación que ocupa varias escrituras del batch (p. ej. un set más su delta de analítica).
+     * Las escrituras de una misma operación siempre van en el mismo batch.
+     */
+    public void add(int weight, Operation<B> operation) {
+        if (executed) {
+            throw new IllegalStateException("El writer ya se ejecutó");
+        }
+        if (weight < 1 || weight > maxOperationsPerBatch) {
+            throw new IllegalArgumentException("Peso de operación fuera de rango: " + weight);
+        }
+        Chunk<B> current = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (current == null || current.weight + weight > maxOperationsPerBatch) {
+            current = new Chunk<>(chunks.size(), operationCount);
+            chunks.add(current);
+        }
+        current.operations.add(operation);
+        current.weight += weight;
+        operationCount++;
+    }
+
+    public int size() {
+        return operationCount;
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Confirmar todos los batches. El listener se llama una sola vez, cuando terminaron todos.
+     */
+    public void execute(Listener listener) {
+        if (executed) {
+            throw new IllegalStateException("El writer ya se ejecutó");
+        }
+        executed = true;
+        this.listener = listener;
+
+        if (chunks.isEmpty()) {
+            listener.onComplete(new Result(0, 0, new ArrayList<>()));
+            return;
+        }
+
+        int initial = Math.min(maxConcurrentBatches, chunks.size());
+        for (int i = 0; i < initial; i++) {
+            startNextChunk();
+        }
+    }
+
+    private void startNextChunk() {
+        Chunk<B> chunk;
+        synchronized (lock) {
+            if (nextChunk >= chunks.size()) {
+                return;
+            }
+            chunk = chunks.get(nextChunk++);
+        }
+
+        B batch;
+        try {
+            batch = committer.newBatch();
+            for (Operation<B> operation : chunk.operations) {
+                operation.applyTo(batch);
+            }
+        } catch (RuntimeException e) {
+            onChunkFinished(chunk, e);
+            return;
+        }
+
+        committer.commit(batch, new CommitListener() {
+            @Override
+            public void onCommitted() {
+                onChunkFinished(chunk, null);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                onChunkFinished(chunk, e);
+            }
+        });
+    }
+
+    private void onChunkFinished(Chunk<B> chunk, Exception error) {
+        boolean allDone;
+        synchronized (lock) {
+            if (error != null) {
+                failures.add(new ChunkFailure(chunk.index, chunk.firstOperation, chunk.operations.size(), error));
+            }
+            finishedChunks++;
+            allDone = finishedChunks == chunks.size();
+        }
+
+        if (allDone) {
+            List<ChunkFailure> sorted = new ArrayList<>(failures);
+            Collections.sort(sorted, (a, b) -> Integer.compare(a.chunkIndex, b.chunkIndex));
+            listener.onComplete(new Result(operationCount, chunks.size(), sorted));
+        } else {
+            startNextChunk();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.droidtour.firebase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conteos para badges y KPIs con agregados de Firestore (count()): una lectura de agregado
+ * en lugar de descargar todos los documentos para llamar a size().
+ * El último valor se guarda en SharedPreferences y se muestra mientras llega el del servidor.
+ */
+public class CountManager {
+    private static final String TAG = "CountManager";
+    private static final String PREFS_NAME = "DroidTourCounts";
+    private static CountManager instance;
+
+    // Claves de conteo
+    private static final String KEY_UNREAD_NOTIFICATIONS = "unread_notifications:";
+    private static final String KEY_TOTAL_USERS = "total_users";
+    private static final String KEY_ACTIVE_TOURS = "active_tours";
+
+    private final FirebaseFirestore db;
+    private final AggregateCounter counter;
+    private final Map<String, Query> queries = new ConcurrentHashMap<>();
+
+    private CountManager(Context context) {
+        this.db = FirebaseFirestore.getInstance();
+        SharedPreferences prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+
+        AggregateCounter.Source source = (key, listener) -> {
+            Query query = queries.get(key);
+            if (query == null) {
+                listener.onError(new IllegalStateException("Conteo sin consulta: " + key));
+                return;
+            }
+            query.count()
+                    .get(AggregateSource.SERVER)
+                    .addOnSuccessListener(snapshot -> listener.onCount(snapshot.getCount()))
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Error contando " + key, e);
+                        listener.onError(e);
+                    });
+        };
+
+        AggregateCounter.Store store = new AggregateCounter.Store() {
+            @Override
+            public Long get(String key) {
+                return prefs.contains(key) ? prefs.getLong(key, 0) : null;
+            }
+
+            @Override
+            public void put(String key, long value) {
+                prefs.edit().putLong(key, value).apply();
+            }
+        };
+
+        this.counter = new AggregateCounter(source, store);
+    }
+
+    public static synchronized CountManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new CountManager(context);
+        }
+        return instance;
+    }
+
+    // ==================== CONTEOS ====================
+
+    /**
+     * Notificaciones no leídas del usuario (badge de la toolbar)
+     */
+    public void countUnreadNotifications(String userId, FirestoreManager.FirestoreCallback callback) {
+        count(KEY_UNREAD_NOTIFICATIONS + userId, db.collection("notifications")
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("isRead", false), callback);
+    }
+
+    /**
+     * Descontar del valor guardado las notificaciones que se acaban de marcar como leídas
+     */
+    public void onNotificationsRead(String userId, int count) {
+        counter.adjust(KEY_UNREAD_NOTIFICATIONS + userId, -count);
+    }
+
+    public void onAllNotificationsRead(String userId) {
+        counter.set(KEY_UNREAD_NOTIFICATIONS + userId, 0);
+    }
+
+    public void countUsers(FirestoreManager.FirestoreCallback callback) {
+        count(KEY_TOTAL_USERS, db.collection("users"), callback);
+    }
+
+    public void countActiveTours(FirestoreManager.FirestoreCallback callback) {
+        count(KEY_ACTIVE_TOURS, db.collection("tours").whereEqualTo("isActive", true), callback);
+    }
+
+    /**
+     * onSuccess recibe un Integer y puede llamarse dos veces (valor guardado y valor del servidor)
+     */
+    private void count(String key, Query query, FirestoreManager.FirestoreCallback callback) {
+        queries.put(key, query);
+        counter.count(key, new AggregateCounter.Listener() {
+            @Override
+            public void onCount(long value) {
+                callback.onSuccess((int) value);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+}
@@ -338,6 +338,7 @@ public class FirebaseClientDataInitializer {
             2,
             85.0
         );
+        res1.setTourCategory("Cultural");
         res1.setStatus("CONFIRMADA");
         res1.setPaymentStatus("CONFIRMADO");
         reservations.add(res1);
@@ -356,6 +357,7 @@ public class FirebaseClientDataInitializer {
             1,
             350.0
         );
+        res2.setTourCategory("Cultural");
         res2.setStatus("CONFIRMADA");
         res2.setPaymentStatus("CONFIRMADO");
         reservations.add(res2);
@@ -374,6 +376,7 @@ public class FirebaseClientDataInitializer {
             2,
             65.0
         );
+        res3.setTourCategory("Naturaleza");
         res3.setStatus("CONFIRMADA");
         res3.setPaymentStatus("CONFIRMADO");
         reservations.add(res3);
@@ -392,41 +395,15 @@ public class FirebaseClientDataInitializer {
             2,
             180.0
         );
+        res4.setTourCategory("Aventura");
         res4.setStatus("COMPLETADA");
         res4.setPaymentStatus("COBRADO");
         res4.setHasCheckedIn(true);
         res4.setHasCheckedOut(true);
         reservations.add(res4);
         
-        // Crear todas las reservas secuencialmente
-        createReservationsSequentially(reservations, 0, callback);
-    }
-
-    /**
-     * Método auxiliar para crear reservas una por una
-     */
-    private void createReservationsSequentially(List<Reservation> reservations, int index, 
-                                               FirestoreManager.FirestoreCallback finalCallback) {
-        if (index >= reservations.size()) {
-            finalCallback.onSuccess(true);
-            return;
-        }
-        
-        Reservation reservation = reservations.get(index);
-        firestoreManager.createReservation(reservation, new FirestoreManager.FirestoreCallback() {
-            @Override
-            public void onSuccess(Object result) {
-                Log.d(TAG, "Reserva " + (index + 1) + " creada: " + reservation.getTourName());
-                createReservationsSequentially(reservations, index + 1, finalCallback);
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                Log.e(TAG, "Error creando reserva " + (index + 1), e);
-                // Continuar con la siguiente aunque falle
-                createReservationsSequentially(reservations, index + 1, finalCallback);
-            }
-        });
+        // Crear todas las reservas en un solo batch
+        firestoreManager.createReservations(reservations, seedCallback("reservas", callback));
     }
 
     /**
@@ -524,35 +501,8 @@ public class FirebaseClientDataInitializer {
         notif6.setReadAt(new Date());
         notifications.add(notif6);
         
-        // Crear todas las notificaciones secuencialmente
-        createNotificationsSequentially(notifications, 0, callback);
-    }
-
-    /**
-     * Método auxiliar para crear notificaciones una por una
-     */
-    private void createNotificationsSequentially(List<Notification> notifications, int index,
-                                                FirestoreManager.FirestoreCallback finalCallback) {
-        if (index >= notifications.size()) {
-            finalCallback.onSuccess(true);
-            return;
-        }
-        
-        Notification notification = notifications.get(index);
-        firestoreManager.createNotification(notification, new FirestoreManager.FirestoreCallback() {
-            @Override
-            public void onSuccess(Object result) {
-                Log.d(TAG, "Notificación " + (index + 1) + " creada: " + notification.getTitle());
-                createNotificationsSequentially(notifications, index + 1, finalCallback);
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                Log.e(TAG, "Error creando notificación " + (index + 1), e);
-                // Continuar con la siguiente aunque falle
-                createNotificationsSequentially(notifications, index + 1, finalCallback);
-            }
-        });
+        // Crear todas las notificaciones en un solo batch
+        firestoreManager.createNotifications(notifications, seedCallback("notificaciones", callback));
     }
 
     /**
@@ -591,53 +541,10 @@ public class FirebaseClientDataInitializer {
         comp3.setActive(true);
         companies.add(comp3);
         
-        // Crear todas las empresas secuencialmente
-        createCompaniesSequentially(companies, 0, callback);
+        // Crear todas las empresas en un solo batch, con ID fijo para que los tours las referencien
+        firestoreManager.createCompaniesWithIds(companies, seedCallback("empresas", callback));
     }
     
-    private void createCompaniesSequentially(List<Company> companies, int index, FirestoreManager.FirestoreCallback finalCallback) {
-        if (index >= companies.size()) {
-            finalCallback.onSuccess(true);
-            return;
-        }
-        
-        Company company = companies.get(index);
-        
-        // 🔥 Crear con ID específico para que los tours puedan referenciarla correctamente
-        String companyId = company.getCompanyId();
-        if (companyId != null && !companyId.isEmpty()) {
-            // Usar el ID que ya tiene asignado
-            firestoreManager.createCompanyWithId(companyId, company, new FirestoreManager.FirestoreCallback() {
-                @Override
-                public void onSuccess(Object result) {
-                    Log.d(TAG, "Empresa " + (index + 1) + " creada: " + company.getCompanyName() + " con ID: " + companyId);
-                    createCompaniesSequentially(companies, index + 1, finalCallback);
-                }
-                
-                @Override
-                public void onFailure(Exception e) {
-                    Log.e(TAG, "Error creando empresa " + (index + 1), e);
-                    createCompaniesSequentially(companies, index + 1, finalCallback);
-                }
-            });
-        } else {
-            // Si no tiene ID, usar el método normal
-            firestoreManager.createCompany(company, new FirestoreManager.FirestoreCallback() {
-                @Override
-                public void onSuccess(Object result) {
-                    Log.d(TAG, "Empresa " + (index + 1) + " creada: " + company.getCompanyName());
-                    createCompaniesSequentially(companies, index + 1, finalCallback);
-                }
-                
-                @Override
-                public void onFailure(Exception e) {
-                    Log.e(TAG, "Error creando empresa " + (index + 1), e);
-                    createCompaniesSequentially(companies, index + 1, finalCallback);
-                }
-            });
-        }
-    }
-
     /**
      * Crear tours de ejemplo
      */
@@ -895,6 +802,26 @@ public class FirebaseClientDataInitializer {
         );
     }
 
+    /**
+     * Callback de una escritura masiva de ejemplo: como antes, un fallo se registra
+     * y la inicialización continúa con el siguiente paso
+     */
+    private FirestoreManager.FirestoreCallback seedCallback(String label, FirestoreManager.FirestoreCallback next) {
+        return new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                Log.d(TAG, "Creadas " + label + ": " + ((ChunkedBatchWriter.Result) result).getOperations());
+                next.onSuccess(true);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e(TAG, "Error creando " + label, e);
+                next.onSuccess(true);
+            }
+        };
+    }
+
     // Callback para notificar cuando se complete la inicialización
     public interface ClientDataCallback {
         void onSuccess();
@@ -128,13 +128,8 @@ public class FirebaseGuideDataInitializer {
         offer3.setStatus("RECHAZADA");
         offer3.setRespondedAt(new Date());
         
-        // Crear en Firestore
-        final int[] count = {0};
-        final int total = 3;
-        
-        firestoreManager.createTourOffer(offer1, createCounterCallback(count, total, callback));
-        firestoreManager.createTourOffer(offer2, createCounterCallback(count, total, callback));
-        firestoreManager.createTourOffer(offer3, createCounterCallback(count, total, callback));
+        // Crear en Firestore (un solo batch)
+        firestoreManager.createTourOffers(Arrays.asList(offer1, offer2, offer3), callback);
     }
 
     /**
@@ -157,6 +152,7 @@ public class FirebaseGuideDataInitializer {
             6,
             180.0
         );
+        reservation1.setTourCategory("Cultural");
         reservation1.setGuideId(guideId);
         reservation1.setGuideName(guideName);
         reservation1.setStatus("EN_PROGRESO");
@@ -176,6 +172,7 @@ public class FirebaseGuideDataInitializer {
             12,
             350.0
         );
+        reservation2.setTourCategory("Cultural");
         reservation2.setGuideId(guideId);
         reservation2.setGuideName(guideName);
         reservation2.setStatus("CONFIRMADA");
@@ -195,18 +192,14 @@ public class FirebaseGuideDataInitializer {
             8,
             450.0
         );
+        reservation3.setTourCategory("Aventura");
         reservation3.setGuideId(guideId);
         reservation3.setGuideName(guideName);
         reservation3.setStatus("COMPLETADA");
         reservation3.setPaymentStatus("CONFIRMADO");
         
-        // Crear en Firestore
-        final int[] count = {0};
-        final int total = 3;
-        
-        firestoreManager.createReservation(reservation1, createCounterCallback(count, total, callback));
-        firestoreManager.createReservation(reservation2, createCounterCallback(count, total, callback));
-        firestoreManager.createReservation(reservation3, createCounterCallback(count, total, callback));
+        // Crear en Firestore (un solo batch, junto con el delta de analítica)
+        firestoreManager.createReservations(Arrays.asList(reservation1, reservation2, reservation3), callback);
     }
 
     /**
@@ -259,34 +252,8 @@ public class FirebaseGuideDataInitializer {
         notif4.setIsImportant(false);
         notif4.setCreatedAt(new Date(System.currentTimeMillis() - 172800000)); // Hace 2 días
         
-        // Crear en Firestore
-        final int[] count = {0};
-        final int total = 4;
-        
-        firestoreManager.createNotification(notif1, createCounterCallback(count, total, callback));
-        firestoreManager.createNotification(notif2, createCounterCallback(count, total, callback));
-        firestoreManager.createNotification(notif3, createCounterCallback(count, total, callback));
-        firestoreManager.createNotification(notif4, createCounterCallback(count, total, callback));
-    }
-
-    /**
-     * Crear callback que cuenta cuántas operaciones se completaron
-     */
-    private FirestoreManager.FirestoreCallback createCounterCallback(int[] count, int total, FirestoreManager.FirestoreCallback finalCallback) {
-        return new FirestoreManager.FirestoreCallback() {
-            @Override
-            public void onSuccess(Object result) {
-                count[0]++;
-                if (count[0] == total) {
-                    finalCallback.onSuccess(true);
-                }
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                finalCallback.onFailure(e);
-            }
-        };
+        // Crear en Firestore (un solo batch)
+        firestoreManager.createNotifications(Arrays.asList(notif1, notif2, notif3, notif4), callback);
     }
 
     /**
@@ -1,19 +1,37 @@
 package com.example.droidtour.firebase;
 
+import android.content.ContentResolver;
 import android.graphics.Bitmap;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
+import com.example.droidtour.images.BoundedUploadQueue;
+import com.example.droidtour.images.ImageProcessor;
+import com.example.droidtour.images.ImageSpec;
+import com.example.droidtour.images.UploadReport;
+import com.google.firebase.FirebaseApp;
 import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
 import com.google.firebase.storage.StorageReference;
 import com.google.firebase.storage.UploadTask;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Manager para Firebase Storage
  * Proporciona métodos para subir y descargar archivos (imágenes, documentos, etc.)
+ *
+ * Las imágenes no se suben tal cual: se reducen según su {@link ImageSpec}, se codifican en WebP y
+ * se sube además una miniatura en la subcarpeta thumbs/ con el mismo nombre. Las subidas de varias
+ * imágenes van de a {@link #MAX_PARALLEL_UPLOADS} con progreso total.
  */
 public class FirebaseStorageManager {
     private static final String TAG = "FirebaseStorageManager";
@@ -28,6 +46,17 @@ public class FirebaseStorageManager {
     private static final String FOLDER_COMPANY_LOGOS = "company_logos";
     private static final String FOLDER_COMPANY_COVERS = "company_covers";
     private static final String FOLDER_DOCUMENTS = "documents";
+    private static final String FOLDER_THUMBNAILS = "thumbs";
+
+    public static final int MAX_PARALLEL_UPLOADS = 3;
+    // Como mucho 2 bitmaps decodificados a la vez, sin importar cuántas imágenes se suban
+    private static final int PROCESSING_THREADS = 2;
+    private static final String CONTENT_TYPE_WEBP = "image/webp";
+    // Cada subida tiene un nombre nuevo, así que el contenido de una URL nunca cambia
+    private static final String CACHE_CONTROL = "public, max-age=31536000";
+
+    private final ExecutorService processingExecutor = Executors.newFixedThreadPool(PROCESSING_THREADS);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private FirebaseStorageManager() {
         this.storage = FirebaseStorage.getInstance();
@@ -55,29 +84,8 @@ public class FirebaseStorageManager {
             return;
         }
 
-        String fileName = userId + "_" + System.currentTimeMillis() + ".jpg";
-        StorageReference imageRef = storageRef.child(FOLDER_PROFILE_IMAGES).child(fileName);
-
-        UploadTask uploadTask = imageRef.putFile(imageUri);
-        uploadTask.addOnProgressListener(taskSnapshot -> {
-            double progress = (100.0 * taskSnapshot.getBytesTransferred()) / taskSnapshot.getTotalByteCount();
-            callback.onProgress((int) progress);
-        })
-        .addOnSuccessListener(taskSnapshot -> {
-            // Obtener URL de descarga
-            imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                String downloadUrl = uri.toString();
-                Log.d(TAG, "Profile image uploaded: " + downloadUrl);
-                callback.onSuccess(downloadUrl);
-            }).addOnFailureListener(e -> {
-                Log.e(TAG, "Error getting download URL", e);
-                callback.onFailure(e);
-            });
-        })
-        .addOnFailureListener(e -> {
-            Log.e(TAG, "Error uploading profile image", e);
-            callback.onFailure(e);
-        });
+        uploadImage(storageRef.child(FOLDER_PROFILE_IMAGES), userId + "_" + System.currentTimeMillis(),
+                fromUri(imageUri, ImageSpec.AVATAR), callback);
     }
 
     /**
@@ -89,33 +97,8 @@ public class FirebaseStorageManager {
             return;
         }
 
-        // Comprimir bitmap a JPEG
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 80, baos);
-        byte[] data = baos.toByteArray();
-
-        String fileName = userId + "_" + System.currentTimeMillis() + ".jpg";
-        StorageReference imageRef = storageRef.child(FOLDER_PROFILE_IMAGES).child(fileName);
-
-        UploadTask uploadTask = imageRef.putBytes(data);
-        uploadTask.addOnProgressListener(taskSnapshot -> {
-            double progress = (100.0 * taskSnapshot.getBytesTransferred()) / taskSnapshot.getTotalByteCount();
-            callback.onProgress((int) progress);
-        })
-        .addOnSuccessListener(taskSnapshot -> {
-            imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                String downloadUrl = uri.toString();
-                Log.d(TAG, "Profile image uploaded: " + downloadUrl);
-                callback.onSuccess(downloadUrl);
-            }).addOnFailureListener(e -> {
-                Log.e(TAG, "Error getting download URL", e);
-                callback.onFailure(e);
-            });
-        })
-        .addOnFailureListener(e -> {
-            Log.e(TAG, "Error uploading profile image", e);
-            callback.onFailure(e);
-        });
+        uploadImage(storageRef.child(FOLDER_PROFILE_IMAGES), userId + "_" + System.currentTimeMillis(),
+                () -> ImageProcessor.process(bitmap, ImageSpec.AVATAR), callback);
     }
 
     // ==================== SUBIR IMÁGENES DE TOURS ====================
@@ -132,15 +115,13 @@ public class FirebaseStorageManager {
             return;
         }
 
-        String fileName = (tourId != null ? tourId : UUID.randomUUID().toString()) 
-                        + "_" + System.currentTimeMillis() + ".jpg";
-        StorageReference imageRef = storageRef.child(FOLDER_TOUR_IMAGES).child(fileName);
-
-        uploadImageFile(imageRef, imageUri, callback);
+        uploadImage(storageRef.child(FOLDER_TOUR_IMAGES), tourImageName(tourId, 0),
+                fromUri(imageUri, ImageSpec.TOUR_HERO), callback);
     }
 
     /**
-     * Subir múltiples imágenes de tour
+     * Subir múltiples imágenes de tour, de a {@link #MAX_PARALLEL_UPLOADS}; las URLs llegan en el
+     * mismo orden que imageUris
      */
     public void uploadTourImages(String tourId, Uri[] imageUris, MultipleStorageCallback callback) {
         if (imageUris == null || imageUris.length == 0) {
@@ -148,38 +129,42 @@ public class FirebaseStorageManager {
             return;
         }
 
-        final int totalImages = imageUris.length;
-        final String[] downloadUrls = new String[totalImages];
-        final int[] uploadedCount = {0};
-        final boolean[] hasError = {false};
-
+        StorageReference folder = storageRef.child(FOLDER_TOUR_IMAGES);
+        List<BoundedUploadQueue.Task<UploadedImage>> tasks = new ArrayList<>();
         for (int i = 0; i < imageUris.length; i++) {
-            final int index = i;
-            uploadTourImage(tourId, imageUris[i], new StorageCallback() {
-                @Override
-                public void onSuccess(String downloadUrl) {
-                    downloadUrls[index] = downloadUrl;
-                    uploadedCount[0]++;
-                    
-                    if (uploadedCount[0] == totalImages) {
-                        callback.onAllSuccess(downloadUrls);
-                    }
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    if (!hasError[0]) {
-                        hasError[0] = true;
-                        callback.onFailure(e);
-                    }
-                }
+            tasks.add(imageTask(folder, tourImageName(tourId, i), fromUri(imageUris[i], ImageSpec.TOUR_HERO)));
+        }
 
-                @Override
-                public void onProgress(int progress) {
-                    // Progress individual de cada imagen
+        long start = System.currentTimeMillis();
+        new BoundedUploadQueue<UploadedImage>(MAX_PARALLEL_UPLOADS).start(tasks, new BoundedUploadQueue.Listener<UploadedImage>() {
+            @Override
+            public void onProgress(int percent, long bytesTransferred, long totalBytes) {
+                callback.onProgress(percent);
+            }
+
+            @Override
+            public void onComplete(List<UploadedImage> results) {
+                String[] downloadUrls = new String[results.size()];
+                long sourceBytes = 0;
+                long uploadedBytes = 0;
+                for (int i = 0; i < results.size(); i++) {
+                    downloadUrls[i] = results.get(i).url;
+                    sourceBytes += results.get(i).sourceBytes;
+                    uploadedBytes += results.get(i).uploadedBytes;
                 }
-            });
-        }
+                UploadReport report = new UploadReport(results.size(), sourceBytes, uploadedBytes,
+                        System.currentTimeMillis() - start);
+                Log.d(TAG, "Tour images uploaded: " + report);
+                callback.onReport(report);
+                callback.onAllSuccess(downloadUrls);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e(TAG, "Error uploading tour images", e);
+                callback.onFailure(e);
+            }
+        });
     }
 
     // ==================== SUBIR LOGOS Y COVERS DE EMPRESAS ====================
@@ -193,10 +178,8 @@ public class FirebaseStorageManager {
             return;
         }
 
-        String fileName = companyId + "_logo_" + System.currentTimeMillis() + ".jpg";
-        StorageReference imageRef = storageRef.child(FOLDER_COMPANY_LOGOS).child(fileName);
-
-        uploadImageFile(imageRef, imageUri, callback);
+        uploadImage(storageRef.child(FOLDER_COMPANY_LOGOS), companyId + "_logo_" + System.currentTimeMillis(),
+                fromUri(imageUri, ImageSpec.COMPANY_LOGO), callback);
     }
 
     /**
@@ -208,10 +191,8 @@ public class FirebaseStorageManager {
             return;
         }
 
-        String fileName = companyId + "_cover_" + System.currentTimeMillis() + ".jpg";
-        StorageReference imageRef = storageRef.child(FOLDER_COMPANY_COVERS).child(fileName);
-
-        uploadImageFile(imageRef, imageUri, callback);
+        uploadImage(storageRef.child(FOLDER_COMPANY_COVERS), companyId + "_cover_" + System.currentTimeMillis(),
+                fromUri(imageUri, ImageSpec.COMPANY_COVER), callback);
     }
 
     // ==================== SUBIR DOCUMENTOS ====================
@@ -277,6 +258,28 @@ public class FirebaseStorageManager {
         }
     }
 
+    /**
+     * Eliminar imágenes subidas con uploadTourImages y sus miniaturas (p. ej. si el tour no se pudo
+     * guardar). Es a mejor esfuerzo: los errores solo se registran.
+     */
+    public void deleteTourImages(String[] imageUrls) {
+        if (imageUrls == null) return;
+        for (String url : imageUrls) {
+            try {
+                StorageReference imageRef = storage.getReferenceFromUrl(url);
+                String thumbnailName = imageRef.getName();
+                StorageReference parent = imageRef.getParent();
+                imageRef.delete().addOnFailureListener(e -> Log.w(TAG, "No se pudo borrar " + url, e));
+                if (parent != null) {
+                    parent.child(FOLDER_THUMBNAILS).child(thumbnailName).delete()
+                            .addOnFailureListener(e -> Log.w(TAG, "No se pudo borrar la miniatura de " + url, e));
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "URL de imagen inválida: " + url, e);
+            }
+        }
+    }
+
     /**
      * Eliminar imagen de perfil anterior al subir una nueva
      */
@@ -288,31 +291,113 @@ public class FirebaseStorageManager {
         }
     }
 
-    // ==================== MÉTODO AUXILIAR ====================
+    // ==================== PIPELINE DE IMÁGENES ====================
+
+    /** Origen de una imagen; se procesa en el pool de fondo */
+    private interface ImageSource {
+        ImageProcessor.Processed process() throws IOException;
+    }
+
+    private static class UploadedImage {
+        final String url;
+        final long uploadedBytes;
+        final long sourceBytes;
+
+        UploadedImage(String url, long uploadedBytes, long sourceBytes) {
+            this.url = url;
+            this.uploadedBytes = uploadedBytes;
+            this.sourceBytes = sourceBytes;
+        }
+    }
+
+    private ImageSource fromUri(Uri imageUri, ImageSpec spec) {
+        ContentResolver resolver = FirebaseApp.getInstance().getApplicationContext().getContentResolver();
+        return () -> ImageProcessor.process(resolver, imageUri, spec);
+    }
+
+    private static String tourImageName(String tourId, int index) {
+        return (tourId != null ? tourId : UUID.randomUUID().toString()) + "_" + System.currentTimeMillis() + "_" + index;
+    }
 
     /**
-     * Método auxiliar para subir imágenes
+     * Subir una sola imagen (procesada) y devolver la URL de la versión completa
      */
-    private void uploadImageFile(StorageReference imageRef, Uri imageUri, StorageCallback callback) {
-        UploadTask uploadTask = imageRef.putFile(imageUri);
-        uploadTask.addOnProgressListener(taskSnapshot -> {
-            double progress = (100.0 * taskSnapshot.getBytesTransferred()) / taskSnapshot.getTotalByteCount();
-            callback.onProgress((int) progress);
-        })
-        .addOnSuccessListener(taskSnapshot -> {
-            imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                String downloadUrl = uri.toString();
-                Log.d(TAG, "Image uploaded: " + downloadUrl);
-                callback.onSuccess(downloadUrl);
+    private void uploadImage(StorageReference folder, String baseName, ImageSource source, StorageCallback callback) {
+        new BoundedUploadQueue<UploadedImage>(1).start(Collections.singletonList(imageTask(folder, baseName, source)),
+                new BoundedUploadQueue.Listener<UploadedImage>() {
+                    @Override
+                    public void onProgress(int percent, long bytesTransferred, long totalBytes) {
+                        callback.onProgress(percent);
+                    }
+
+                    @Override
+                    public void onComplete(List<UploadedImage> results) {
+                        Log.d(TAG, "Image uploaded: " + results.get(0).url);
+                        callback.onSuccess(results.get(0).url);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "Error uploading image", e);
+                        callback.onFailure(e);
+                    }
+                });
+    }
+
+    /**
+     * Procesar en segundo plano y subir imagen completa + miniatura (avisa en el hilo principal)
+     */
+    private BoundedUploadQueue.Task<UploadedImage> imageTask(StorageReference folder, String baseName, ImageSource source) {
+        return listener -> processingExecutor.execute(() -> {
+            ImageProcessor.Processed processed;
+            try {
+                processed = source.process();
+            } catch (IOException | RuntimeException e) {
+                mainHandler.post(() -> listener.onFailure(e));
+                return;
+            }
+            mainHandler.post(() -> uploadProcessed(folder, baseName, processed, listener));
+        });
+    }
+
+    private void uploadProcessed(StorageReference folder, String baseName, ImageProcessor.Processed processed,
+                                 BoundedUploadQueue.TaskListener<UploadedImage> listener) {
+        StorageReference imageRef = folder.child(baseName + ".webp");
+        StorageReference thumbnailRef = folder.child(FOLDER_THUMBNAILS).child(baseName + ".webp");
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(CONTENT_TYPE_WEBP)
+                .setCacheControl(CACHE_CONTROL)
+                .build();
+
+        long totalBytes = processed.getFull().length + processed.getThumbnail().length;
+        long[] transferred = new long[2];
+        boolean[] finished = new boolean[2];
+        boolean[] failed = {false};
+
+        UploadTask[] uploads = {
+                imageRef.putBytes(processed.getFull(), metadata),
+                thumbnailRef.putBytes(processed.getThumbnail(), metadata)
+        };
+        for (int i = 0; i < uploads.length; i++) {
+            int part = i;
+            uploads[i].addOnProgressListener(snapshot -> {
+                transferred[part] = snapshot.getBytesTransferred();
+                listener.onProgress(transferred[0] + transferred[1], totalBytes);
+            }).addOnSuccessListener(snapshot -> {
+                finished[part] = true;
+                if (finished[0] && finished[1] && !failed[0]) {
+                    imageRef.getDownloadUrl()
+                            .addOnSuccessListener(uri -> listener.onSuccess(
+                                    new UploadedImage(uri.toString(), totalBytes, processed.getSourceBytes())))
+                            .addOnFailureListener(listener::onFailure);
+                }
             }).addOnFailureListener(e -> {
-                Log.e(TAG, "Error getting download URL", e);
-                callback.onFailure(e);
+                if (!failed[0]) {
+                    failed[0] = true;
+                    listener.onFailure(e);
+                }
             });
-        })
-        .addOnFailureListener(e -> {
-            Log.e(TAG, "Error uploading image", e);
-            callback.onFailure(e);
-        });
+        }
     }
 
     // ==================== CALLBACKS ====================
@@ -326,6 +411,12 @@ public class FirebaseStorageManager {
     public interface MultipleStorageCallback {
         void onAllSuccess(String[] downloadUrls);
         void onFailure(Exception e);
+
+        /** Progreso total de todas las imágenes (0..100) */
+        default void onProgress(int progress) {}
+
+        /** Bytes subidos y tiempo total, justo antes de onAllSuccess */
+        default void onReport(UploadReport report) {}
     }
 
     public interface SimpleStorageCallback {
@@ -2,13 +2,21 @@ package com.example.droidtour.firebase;
 
 import android.util.Log;
 
+import com.example.droidtour.analytics.RatingStats;
+import com.example.droidtour.checkin.QrCodeSigner;
+import com.example.droidtour.checkin.ScanKind;
 import com.example.droidtour.models.*;
+import com.example.droidtour.utils.ConversationSummary;
+import com.google.firebase.firestore.AggregateSource;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
@@ -36,6 +44,7 @@ public class FirestoreManager {
     private static final String COLLECTION_NOTIFICATIONS = "notifications";
     private static final String COLLECTION_USER_PREFERENCES = "user_preferences";
     private static final String COLLECTION_MESSAGES = "messages";
+    private static final String COLLECTION_CONVERSATION_SUMMARIES = "conversation_summaries";
     private static final String COLLECTION_USER_SESSIONS = "user_sessions";
     private static final String COLLECTION_TOUR_OFFERS = "tour_offers";
 
@@ -179,7 +188,7 @@ public class FirestoreManager {
      */
     public void createCompany(Company company, FirestoreCallback callback) {
         db.collection(COLLECTION_COMPANIES)
-                .add(company.toMap())
+                .add(stampCreated(company.toMap()))
                 .addOnSuccessListener(documentReference -> {
                     String companyId = documentReference.getId();
                     Log.d(TAG, "Company created with ID: " + companyId);
@@ -197,7 +206,7 @@ public class FirestoreManager {
     public void createCompanyWithId(String companyId, Company company, FirestoreCallback callback) {
         db.collection(COLLECTION_COMPANIES)
                 .document(companyId)
-                .set(company.toMap())
+                .set(stampCreated(company.toMap()))
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Company created with custom ID: " + companyId);
                     callback.onSuccess(companyId);
@@ -263,7 +272,7 @@ public class FirestoreManager {
     public void updateCompany(String companyId, Map<String, Object> updates, FirestoreCallback callback) {
         db.collection(COLLECTION_COMPANIES)
                 .document(companyId)
-                .update(updates)
+                .update(stampUpdated(updates))
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Company updated successfully");
                     callback.onSuccess(true);
@@ -280,10 +289,16 @@ public class FirestoreManager {
      * Crear un nuevo tour
      */
     public void createTour(Tour tour, FirestoreCallback callback) {
-        db.collection(COLLECTION_TOURS)
-                .add(tour.toMap())
-                .addOnSuccessListener(documentReference -> {
-                    String tourId = documentReference.getId();
+        DocumentReference tourRef = db.collection(COLLECTION_TOURS).document();
+        Map<String, Object> data = stampCreated(tour.toMap());
+
+        WriteBatch batch = db.batch();
+        batch.set(tourRef, data);
+        AnalyticsManager.getInstance().applyTourChange(batch, null, data);
+
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    String tourId = tourRef.getId();
                     Log.d(TAG, "Tour created with ID: " + tourId);
                     callback.onSuccess(tourId);
                 })
@@ -293,13 +308,27 @@ public class FirestoreManager {
                 });
     }
     
+    /**
+     * Reservar el ID de un tour nuevo (sin escribir nada), p. ej. para subir sus imágenes antes de crearlo
+     */
+    public String newTourId() {
+        return db.collection(COLLECTION_TOURS).document().getId();
+    }
+
     /**
      * Crear un nuevo tour con un ID específico
      */
     public void createTourWithId(String tourId, Tour tour, FirestoreCallback callback) {
-        db.collection(COLLECTION_TOURS)
-                .document(tourId)
-                .set(tour.toMap())
+        DocumentReference tourRef = db.collection(COLLECTION_TOURS).document(tourId);
+        Map<String, Object> data = stampCreated(tour.toMap());
+
+        // set() puede sobrescribir un tour existente: leer el anterior para el delta por categoría
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot snapshot = transaction.get(tourRef);
+                    transaction.set(tourRef, data);
+                    AnalyticsManager.getInstance().applyTourChange(transaction, snapshot.getData(), data);
+                    return null;
+                })
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Tour created with custom ID: " + tourId);
                     callback.onSuccess(tourId);
@@ -427,10 +456,34 @@ public class FirestoreManager {
     /**
      * Actualizar tour
      */
-    public void updateTour(String tourId, Map<String, Object> updates, FirestoreCallback callback) {
-        db.collection(COLLECTION_TOURS)
-                .document(tourId)
-                .update(updates)
+    public void updateTour(String tourId, Map<String, Object> tourUpdates, FirestoreCallback callback) {
+        DocumentReference tourRef = db.collection(COLLECTION_TOURS).document(tourId);
+        Map<String, Object> updates = stampUpdated(tourUpdates);
+
+        if (!updates.containsKey("isActive") && !updates.containsKey("category")) {
+            tourRef.update(updates)
+                    .addOnSuccessListener(aVoid -> {
+                        Log.d(TAG, "Tour updated successfully");
+                        callback.onSuccess(true);
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Error updating tour", e);
+                        callback.onFailure(e);
+                    });
+            return;
+        }
+
+        // Cambia el conteo de tours activos por categoría: actualizar en transacción con el delta
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot snapshot = transaction.get(tourRef);
+                    Map<String, Object> before = snapshot.getData();
+                    Map<String, Object> after = before != null ? new HashMap<>(before) : new HashMap<>();
+                    after.putAll(updates);
+
+                    transaction.update(tourRef, updates);
+                    AnalyticsManager.getInstance().applyTourChange(transaction, before, after);
+                    return null;
+                })
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Tour updated successfully");
                     callback.onSuccess(true);
@@ -441,16 +494,215 @@ public class FirestoreManager {
                 });
     }
 
+    // ==================== CATÁLOGO PAGINADO ====================
+
+    public static final int CATALOG_PAGE_SIZE = 20;
+
+    // Criterios de orden del catálogo (cada uno es un orderBy en Firestore)
+    public static final String SORT_DEFAULT = "default";
+    public static final String SORT_BEST_PRICE = "best_price";
+    public static final String SORT_BEST_RATED = "best_rated";
+    public static final String SORT_DURATION = "duration";
+    public static final String SORT_MOST_TOURS = "most_tours";
+
+    /**
+     * Página de tours activos de una empresa ordenada en el servidor.
+     * Devuelve un {@link CatalogPage}; pasar su getLastDocument() como startAfter para la siguiente.
+     * Requiere índices compuestos companyId + isActive + (pricePerPerson | averageRating | durationMinutes).
+     *
+     * Firestore omite los documentos sin el campo del orderBy: hasta que
+     * {@link #backfillTourSortFields} completó, se pide la consulta sin orden y la página se marca
+     * como no ordenada (la pantalla ordena en local). Por precio solo entran los tours con precio
+     * (un null se ordenaría primero).
+     */
+    public void getToursPage(String companyId, String sortMode, int pageSize,
+                             DocumentSnapshot startAfter, FirestoreCallback callback) {
+        String sortField = tourSortField(sortMode);
+        if (sortField == null) {
+            loadPage(toursQuery(companyId), startAfter, pageSize, Tour.class, true, callback);
+            return;
+        }
+        checkTourSortFields(ready -> {
+            Query query = toursQuery(companyId);
+            if (ready) {
+                if (SORT_BEST_PRICE.equals(sortMode)) {
+                    query = query.whereGreaterThan(sortField, 0);
+                }
+                query = query.orderBy(sortField, SORT_BEST_PRICE.equals(sortMode) || SORT_DURATION.equals(sortMode)
+                        ? Query.Direction.ASCENDING : Query.Direction.DESCENDING);
+            }
+            loadPage(query, startAfter, pageSize, Tour.class, ready, callback);
+        });
+    }
+
+    private Query toursQuery(String companyId) {
+        return db.collection(COLLECTION_TOURS)
+                .whereEqualTo("companyId", companyId)
+                .whereEqualTo("isActive", true);
+    }
+
+    private static String tourSortField(String sortMode) {
+        if (SORT_BEST_PRICE.equals(sortMode)) return "pricePerPerson";
+        if (SORT_BEST_RATED.equals(sortMode)) return "averageRating";
+        if (SORT_DURATION.equals(sortMode)) return "durationMinutes";
+        return null;
+    }
+
+    /**
+     * Página de empresas ordenada en el servidor. Company.priceFrom no se mantiene (no refleja los
+     * precios de los tours), así que "mejor precio" ordena por rating como antes de paginar.
+     */
+    public void getCompaniesPage(String sortMode, int pageSize,
+                                 DocumentSnapshot startAfter, FirestoreCallback callback) {
+        Query query = db.collection(COLLECTION_COMPANIES);
+
+        if (SORT_BEST_RATED.equals(sortMode) || SORT_BEST_PRICE.equals(sortMode)) {
+            query = query.orderBy("averageRating", Query.Direction.DESCENDING);
+        } else if (SORT_MOST_TOURS.equals(sortMode)) {
+            query = query.orderBy("totalTours", Query.Direction.DESCENDING);
+        }
+
+        loadPage(query, startAfter, pageSize, Company.class, true, callback);
+    }
+
+    private <T> void loadPage(Query query, DocumentSnapshot startAfter, int pageSize,
+                              Class<T> type, boolean serverOrdered, FirestoreCallback callback) {
+        if (startAfter != null) {
+            query = query.startAfter(startAfter);
+        }
+        query.limit(pageSize)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    List<T> items = new ArrayList<>();
+                    for (QueryDocumentSnapshot document : querySnapshot) {
+                        items.add(document.toObject(type));
+                    }
+                    List<DocumentSnapshot> documents = querySnapshot.getDocuments();
+                    DocumentSnapshot last = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+                    // Página llena: puede haber más (como mucho cuesta una lectura vacía al final)
+                    callback.onSuccess(new CatalogPage<>(items, last, items.size() == pageSize, serverOrdered));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error loading catalog page", e);
+                    callback.onFailure(e);
+                });
+    }
+
+    // ==================== MIGRACIÓN: CAMPOS DE ORDEN DE TOURS ====================
+
+    private static final String COLLECTION_MIGRATIONS = "migrations";
+    private static final String MIGRATION_TOUR_SORT_FIELDS = "tour_sort_fields";
+    // null: aún no se leyó la marca de la migración
+    private volatile Boolean tourSortFieldsReady;
+
+    private interface ReadyCallback {
+        void onReady(boolean ready);
+    }
+
+    /**
+     * Saber si todos los tours ya tienen durationMinutes, pricePerPerson y averageRating.
+     * Se lee migrations/tour_sort_fields una vez; si falla, se responde false sin guardar.
+     */
+    private void checkTourSortFields(ReadyCallback callback) {
+        Boolean ready = tourSortFieldsReady;
+        if (ready != null) {
+            callback.onReady(ready);
+            return;
+        }
+        db.collection(COLLECTION_MIGRATIONS)
+                .document(MIGRATION_TOUR_SORT_FIELDS)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    boolean done = Boolean.TRUE.equals(snapshot.getBoolean("done"));
+                    // Un false puede cambiar cuando otro dispositivo termine la migración
+                    if (done) tourSortFieldsReady = true;
+                    callback.onReady(done);
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "No se pudo leer la migración de campos de orden", e);
+                    callback.onReady(false);
+                });
+    }
+
+    /**
+     * Migración única: escribir durationMinutes (desde duration) y averageRating (0) en los tours que
+     * no los tienen, para que el orden en el servidor no los omita. pricePerPerson no se inventa: un
+     * tour sin precio no aparece al ordenar por precio. Al terminar se marca migrations/tour_sort_fields.
+     * onSuccess recibe los tours actualizados.
+     */
+    public void backfillTourSortFields(FirestoreCallback callback) {
+        checkTourSortFields(ready -> {
+            if (ready) {
+                callback.onSuccess(0);
+                return;
+            }
+            db.collection(COLLECTION_TOURS)
+                    .get()
+                    .addOnSuccessListener(querySnapshot -> {
+                        BulkWriter writer = new BulkWriter(db);
+                        for (QueryDocumentSnapshot document : querySnapshot) {
+                            Map<String, Object> updates = new HashMap<>();
+                            if (!document.contains("durationMinutes")) {
+                                updates.put("durationMinutes", Tour.parseDurationMinutes(document.getString("duration")));
+                            }
+                            if (!document.contains("averageRating")) {
+                                updates.put("averageRating", 0.0);
+                            }
+                            if (!updates.isEmpty()) {
+                                writer.update(document.getReference(), updates);
+                            }
+                        }
+                        int updated = writer.size();
+                        writer.commit(new FirestoreCallback() {
+                            @Override
+                            public void onSuccess(Object result) {
+                                Map<String, Object> marker = new HashMap<>();
+                                marker.put("done", true);
+                                marker.put("updatedTours", updated);
+                                marker.put("completedAt", FieldValue.serverTimestamp());
+                                db.collection(COLLECTION_MIGRATIONS)
+                                        .document(MIGRATION_TOUR_SORT_FIELDS)
+                                        .set(marker)
+                                        .addOnSuccessListener(aVoid -> {
+                                            tourSortFieldsReady = true;
+                                            Log.d(TAG, "Campos de orden completados en " + updated + " tours");
+                                            callback.onSuccess(updated);
+                                        })
+                                        .addOnFailureListener(callback::onFailure);
+                            }
+
+                            @Override
+                            public void onFailure(Exception e) {
+                                callback.onFailure(e);
+                            }
+                        });
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Error leyendo tours para la migración", e);
+                        callback.onFailure(e);
+                    });
+        });
+    }
+
     // ==================== RESERVAS ====================
 
     /**
      * Crear una nueva reserva
      */
     public void createReservation(Reservation reservation, FirestoreCallback callback) {
-        db.collection(COLLECTION_RESERVATIONS)
-                .add(reservation.toMap())
-                .addOnSuccessListener(documentReference -> {
-                    String reservationId = documentReference.getId();
+        DocumentReference reservationRef = db.collection(COLLECTION_RESERVATIONS).document();
+        issueQrCodes(reservation, reservationRef.getId());
+        Map<String, Object> data = stampCreated(reservation.toMap());
+
+        // Escribir la reserva, su delta de analítica y el día ocupado del guía en el mismo batch
+        WriteBatch batch = db.batch();
+        batch.set(reservationRef, data);
+        AnalyticsManager.getInstance().applyReservationChange(batch, null, data);
+        GuideAvailabilityManager.getInstance().applyReservationChange(batch, null, data);
+
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    String reservationId = reservationRef.getId();
                     Log.d(TAG, "Reservation created with ID: " + reservationId);
                     callback.onSuccess(reservationId);
                 })
@@ -460,6 +712,15 @@ public class FirestoreManager {
                 });
     }
 
+    /**
+     * Emitir los QR firmados de check-in/check-out (necesitan el ID de la reserva)
+     */
+    private void issueQrCodes(Reservation reservation, String reservationId) {
+        QrCodeSigner signer = CheckInManager.getSigner();
+        reservation.setQrCodeCheckIn(signer.issue(ScanKind.CHECK_IN, reservationId));
+        reservation.setQrCodeCheckOut(signer.issue(ScanKind.CHECK_OUT, reservationId));
+    }
+
     /**
      * Obtener reserva por ID
      */
@@ -587,10 +848,23 @@ public class FirestoreManager {
     /**
      * Actualizar reserva
      */
-    public void updateReservation(String reservationId, Map<String, Object> updates, FirestoreCallback callback) {
-        db.collection(COLLECTION_RESERVATIONS)
-                .document(reservationId)
-                .update(updates)
+    public void updateReservation(String reservationId, Map<String, Object> reservationUpdates, FirestoreCallback callback) {
+        DocumentReference reservationRef = db.collection(COLLECTION_RESERVATIONS).document(reservationId);
+        Map<String, Object> updates = stampUpdated(reservationUpdates);
+
+        // Transacción: leer el estado previo para aplicar solo el delta al rollup de analítica
+        // y a la disponibilidad del guía
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot snapshot = transaction.get(reservationRef);
+                    Map<String, Object> before = snapshot.getData();
+                    Map<String, Object> after = before != null ? new HashMap<>(before) : new HashMap<>();
+                    after.putAll(updates);
+
+                    transaction.update(reservationRef, updates);
+                    AnalyticsManager.getInstance().applyReservationChange(transaction, before, after);
+                    GuideAvailabilityManager.getInstance().applyReservationChange(transaction, before, after);
+                    return null;
+                })
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Reservation updated successfully");
                     callback.onSuccess(true);
@@ -607,10 +881,17 @@ public class FirestoreManager {
      * Crear oferta de tour
      */
     public void createTourOffer(com.example.droidtour.models.TourOffer offer, FirestoreCallback callback) {
-        db.collection(COLLECTION_TOUR_OFFERS)
-                .add(offer.toMap())
-                .addOnSuccessListener(documentReference -> {
-                    String offerId = documentReference.getId();
+        DocumentReference offerRef = db.collection(COLLECTION_TOUR_OFFERS).document();
+        Map<String, Object> data = offer.toMap();
+
+        // Una oferta creada ya aceptada ocupa al guía ese día
+        WriteBatch batch = db.batch();
+        batch.set(offerRef, data);
+        GuideAvailabilityManager.getInstance().applyOfferChange(batch, null, data);
+
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    String offerId = offerRef.getId();
                     Log.d(TAG, "Tour offer created with ID: " + offerId);
                     callback.onSuccess(offerId);
                 })
@@ -659,10 +940,19 @@ public class FirestoreManager {
         Map<String, Object> updates = new HashMap<>();
         updates.put("status", status);
         updates.put("respondedAt", new java.util.Date());
-        
-        db.collection(COLLECTION_TOUR_OFFERS)
-                .document(offerId)
-                .update(updates)
+        DocumentReference offerRef = db.collection(COLLECTION_TOUR_OFFERS).document(offerId);
+
+        // Transacción: al aceptar (o dejar de estar aceptada) cambia el día ocupado del guía
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot snapshot = transaction.get(offerRef);
+                    Map<String, Object> before = snapshot.getData();
+                    Map<String, Object> after = before != null ? new HashMap<>(before) : new HashMap<>();
+                    after.putAll(updates);
+
+                    transaction.update(offerRef, updates);
+                    GuideAvailabilityManager.getInstance().applyOfferChange(transaction, before, after);
+                    return null;
+                })
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Offer status updated successfully: " + status);
                     callback.onSuccess(true);
@@ -722,18 +1012,32 @@ public class FirestoreManager {
     }
 
     /**
-     * Crear una nueva reseña
+     * Crear una nueva reseña.
+     * La reseña y las estadísticas del tour (suma, total, promedio e histograma) se escriben en la
+     * misma transacción: sin releer todas las reseñas y sin perder reseñas simultáneas.
      */
     public void createReview(Review review, FirestoreCallback callback) {
-        db.collection(COLLECTION_REVIEWS)
-                .add(review.toMap())
-                .addOnSuccessListener(documentReference -> {
-                    String reviewId = documentReference.getId();
+        DocumentReference reviewRef = db.collection(COLLECTION_REVIEWS).document();
+        String tourId = review.getTourId();
+        DocumentReference tourRef = tourId != null && !tourId.isEmpty()
+                ? db.collection(COLLECTION_TOURS).document(tourId)
+                : null;
+        Map<String, Object> data = review.toMap();
+
+        db.runTransaction(transaction -> {
+                    // Las lecturas de una transacción van antes que las escrituras
+                    DocumentSnapshot tourSnapshot = tourRef != null ? transaction.get(tourRef) : null;
+                    transaction.set(reviewRef, data);
+                    if (tourSnapshot != null && tourSnapshot.exists() && review.getRating() != null) {
+                        RatingStats stats = RatingStats.fromData(tourSnapshot.getData());
+                        stats.addRating(review.getRating());
+                        transaction.update(tourRef, stampUpdated(stats.toMap()));
+                    }
+                    return null;
+                })
+                .addOnSuccessListener(aVoid -> {
+                    String reviewId = reviewRef.getId();
                     Log.d(TAG, "Review created with ID: " + reviewId);
-                    
-                    // Actualizar estadísticas del tour
-                    updateTourRatingStats(review.getTourId());
-                    
                     callback.onSuccess(reviewId);
                 })
                 .addOnFailureListener(e -> {
@@ -764,46 +1068,79 @@ public class FirestoreManager {
                 });
     }
 
+    private static final int RATING_REBUILD_ATTEMPTS = 3;
+
     /**
-     * Actualizar estadísticas de rating de un tour
+     * Recalcular desde cero las estadísticas de rating de un tour (onSuccess recibe RatingStats).
+     * Solo para tours creados antes del histograma (o para reparar datos): recorre todas sus reseñas.
+     *
+     * Las reseñas no se pueden consultar dentro de una transacción: se anota totalReviews antes de
+     * recorrerlas y la transacción solo escribe si sigue igual (ninguna reseña nueva entró mientras
+     * tanto); si cambió, se vuelve a intentar.
      */
-    private void updateTourRatingStats(String tourId) {
-        getReviewsByTour(tourId, new FirestoreCallback() {
-            @Override
-            public void onSuccess(Object result) {
-                @SuppressWarnings("unchecked")
-                List<Review> reviews = (List<Review>) result;
-                
-                if (!reviews.isEmpty()) {
-                    float totalRating = 0;
-                    for (Review review : reviews) {
-                        totalRating += review.getRating();
-                    }
-                    double averageRating = totalRating / reviews.size();
-                    
-                    Map<String, Object> updates = new java.util.HashMap<>();
-                    updates.put("averageRating", averageRating);
-                    updates.put("totalReviews", reviews.size());
-                    
-                    updateTour(tourId, updates, new FirestoreCallback() {
-                        @Override
-                        public void onSuccess(Object result) {
-                            Log.d(TAG, "Tour rating stats updated");
-                        }
-
-                        @Override
-                        public void onFailure(Exception e) {
-                            Log.e(TAG, "Error updating tour rating stats", e);
-                        }
-                    });
-                }
-            }
+    public void rebuildTourRatingStats(String tourId, FirestoreCallback callback) {
+        rebuildTourRatingStats(tourId, RATING_REBUILD_ATTEMPTS, callback);
+    }
+
+    private void rebuildTourRatingStats(String tourId, int attemptsLeft, FirestoreCallback callback) {
+        DocumentReference tourRef = db.collection(COLLECTION_TOURS).document(tourId);
+        tourRef.get()
+                .addOnSuccessListener(tourBefore -> {
+                    long reviewsBefore = RatingStats.fromData(tourBefore.getData()).getTotalReviews();
+                    db.collection(COLLECTION_REVIEWS)
+                            .whereEqualTo("tourId", tourId)
+                            .get()
+                            .addOnSuccessListener(querySnapshot -> {
+                                RatingStats stats = new RatingStats();
+                                for (QueryDocumentSnapshot document : querySnapshot) {
+                                    Double rating = document.getDouble("rating");
+                                    if (rating != null) {
+                                        stats.addRating(rating.floatValue());
+                                    }
+                                }
+                                storeRebuiltRatingStats(tourRef, reviewsBefore, stats, attemptsLeft, callback);
+                            })
+                            .addOnFailureListener(e -> {
+                                Log.e(TAG, "Error getting reviews for rating rebuild", e);
+                                callback.onFailure(e);
+                            });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error getting tour for rating rebuild", e);
+                    callback.onFailure(e);
+                });
+    }
 
-            @Override
-            public void onFailure(Exception e) {
-                Log.e(TAG, "Error getting reviews for rating update", e);
-            }
-        });
+    private void storeRebuiltRatingStats(DocumentReference tourRef, long reviewsBefore, RatingStats stats,
+                                         int attemptsLeft, FirestoreCallback callback) {
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot current = transaction.get(tourRef);
+                    RatingStats currentStats = RatingStats.fromData(current.getData());
+                    if (currentStats.getHistogramTotal() == currentStats.getTotalReviews()) {
+                        // Otro dispositivo ya lo reparó
+                        return currentStats;
+                    }
+                    if (currentStats.getTotalReviews() != reviewsBefore) {
+                        throw new FirebaseFirestoreException("Nuevas reseñas durante la reconstrucción",
+                                FirebaseFirestoreException.Code.ABORTED);
+                    }
+                    transaction.update(tourRef, stampUpdated(stats.toMap()));
+                    return stats;
+                })
+                .addOnSuccessListener(result -> {
+                    Log.d(TAG, "Tour rating stats rebuilt: " + result.getTotalReviews() + " reviews");
+                    callback.onSuccess(result);
+                })
+                .addOnFailureListener(e -> {
+                    if (e instanceof FirebaseFirestoreException
+                            && ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.ABORTED
+                            && attemptsLeft > 1) {
+                        rebuildTourRatingStats(tourRef.getId(), attemptsLeft - 1, callback);
+                        return;
+                    }
+                    Log.e(TAG, "Error updating tour rating stats", e);
+                    callback.onFailure(e);
+                });
     }
 
     // ==================== MÉTODOS DE PAGO (CLIENTE) ====================
@@ -907,14 +1244,32 @@ public class FirestoreManager {
                 .whereEqualTo("userId", userId)
                 .get()
                 .addOnSuccessListener(querySnapshot -> {
+                    // Quitar el flag y marcar la nueva tarjeta en la misma escritura
+                    BulkWriter writer = new BulkWriter(db);
                     for (QueryDocumentSnapshot document : querySnapshot) {
-                        document.getReference().update("isDefault", false);
+                        if (!document.getId().equals(paymentMethodId) && Boolean.TRUE.equals(document.getBoolean("isDefault"))) {
+                            Map<String, Object> updates = new HashMap<>();
+                            updates.put("isDefault", false);
+                            writer.update(document.getReference(), updates);
+                        }
                     }
-                    
-                    // Luego, establecer la nueva tarjeta como default
-                    Map<String, Object> updates = new java.util.HashMap<>();
+                    Map<String, Object> updates = new HashMap<>();
                     updates.put("isDefault", true);
-                    updatePaymentMethod(paymentMethodId, updates, callback);
+                    writer.update(db.collection(COLLECTION_PAYMENT_METHODS).document(paymentMethodId), updates);
+
+                    writer.commit(new FirestoreCallback() {
+                        @Override
+                        public void onSuccess(Object result) {
+                            Log.d(TAG, "Default payment method set: " + paymentMethodId);
+                            callback.onSuccess(true);
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            Log.e(TAG, "Error setting default payment method", e);
+                            callback.onFailure(e);
+                        }
+                    });
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error setting default payment method", e);
@@ -1090,14 +1445,28 @@ public class FirestoreManager {
                 .whereEqualTo("isRead", false)
                 .get()
                 .addOnSuccessListener(querySnapshot -> {
+                    // Un batch por cada 500 notificaciones; el callback espera a que terminen todos
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put("isRead", true);
+                    updates.put("readAt", new java.util.Date());
+
+                    BulkWriter writer = new BulkWriter(db);
                     for (QueryDocumentSnapshot document : querySnapshot) {
-                        Map<String, Object> updates = new java.util.HashMap<>();
-                        updates.put("isRead", true);
-                        updates.put("readAt", new java.util.Date());
-                        document.getReference().update(updates);
+                        writer.update(document.getReference(), updates);
                     }
-                    Log.d(TAG, "All notifications marked as read");
-                    callback.onSuccess(true);
+                    writer.commit(new FirestoreCallback() {
+                        @Override
+                        public void onSuccess(Object result) {
+                            Log.d(TAG, "All notifications marked as read: " + writer.size());
+                            callback.onSuccess(true);
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            Log.e(TAG, "Error marking all notifications as read", e);
+                            callback.onFailure(e);
+                        }
+                    });
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error marking all notifications as read", e);
@@ -1112,9 +1481,11 @@ public class FirestoreManager {
         db.collection(COLLECTION_NOTIFICATIONS)
                 .whereEqualTo("userId", userId)
                 .whereEqualTo("isRead", false)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    int count = querySnapshot.size();
+                .count()
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(snapshot -> {
+                    // Agregado en el servidor: una lectura, sin descargar las notificaciones
+                    int count = (int) snapshot.getCount();
                     Log.d(TAG, "Unread notifications count: " + count);
                     callback.onSuccess(count);
                 })
@@ -1221,96 +1592,180 @@ public class FirestoreManager {
     // ==================== MENSAJES (CHAT) ====================
 
     /**
-     * Enviar mensaje
+     * Enviar mensaje.
+     * El mensaje y los resúmenes de ambos participantes (último mensaje, no leídos) se escriben en el
+     * mismo WriteBatch.
      */
     public void sendMessage(String senderId, String senderName, String receiverId, 
                            String receiverName, String senderType, String messageText, 
                            String conversationId, FirestoreCallback callback) {
-        String messageId = db.collection(COLLECTION_MESSAGES).document().getId();
-        Map<String, Object> message = new java.util.HashMap<>();
-        message.put("messageId", messageId);
-        message.put("senderId", senderId);
-        message.put("senderName", senderName);
-        message.put("receiverId", receiverId);
-        message.put("receiverName", receiverName);
-        message.put("senderType", senderType);
-        message.put("messageText", messageText);
-        message.put("timestamp", new java.util.Date());
-        message.put("isRead", false);
-        message.put("conversationId", conversationId);
-        
-        db.collection(COLLECTION_MESSAGES).document(messageId).set(message)
-            .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Message sent with ID: " + messageId);
-                callback.onSuccess(messageId);
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error sending message", e);
-                callback.onFailure(e);
-            });
+        DocumentReference messageRef = db.collection(COLLECTION_MESSAGES).document();
+        Message message = new Message(messageRef.getId(), senderId, senderName, receiverId, receiverName,
+                senderType, messageText, com.google.firebase.Timestamp.now(), false, conversationId);
+        sendMessage(messageRef, message, callback);
     }
 
     /**
-     * Obtener mensajes de una conversación en tiempo real
+     * Escribir un mensaje en messageRef (colección plana o conversations/{id}/messages) y actualizar
+     * conversation_summaries en el mismo WriteBatch. No lee nada, así que también funciona sin
+     * conexión: los resúmenes se escriben con merge y el no leído del receptor es un incremento
+     * (ver {@link ConversationSummary#sendWrites}). El timestamp del mensaje lo pone el servidor;
+     * message conserva su hora local mientras la escritura está pendiente.
      */
-    public void getConversationMessages(String conversationId, FirestoreCallback callback) {
-        db.collection(COLLECTION_MESSAGES)
-            .whereEqualTo("conversationId", conversationId)
-            .addSnapshotListener((value, error) -> {
-                if (error != null) {
-                    Log.e(TAG, "Error listening to messages", error);
-                    callback.onFailure(error);
-                    return;
-                }
-                List<Map<String, Object>> messages = new java.util.ArrayList<>();
-                if (value != null) {
-                    for (QueryDocumentSnapshot doc : value) {
-                        messages.add(doc.getData());
-                    }
-                }
-                
-                // Ordenar por timestamp (más antiguo primero) en el cliente
-                messages.sort((a, b) -> {
-                    Object timeA = a.get("timestamp");
-                    Object timeB = b.get("timestamp");
-                    if (timeA instanceof java.util.Date && timeB instanceof java.util.Date) {
-                        return ((java.util.Date) timeA).compareTo((java.util.Date) timeB);
-                    }
-                    return 0;
+    public void sendMessage(DocumentReference messageRef, Message message, FirestoreCallback callback) {
+        WriteBatch batch = db.batch();
+        batch.set(messageRef, message.withServerTimestamp());
+        // Hora del servidor: el último mensaje del resumen es el último confirmado
+        for (ConversationSummary.SendWrite write : ConversationSummary.sendWrites(message.getConversationId(),
+                message.getSenderId(), message.getSenderName(), message.getReceiverId(), message.getReceiverName(),
+                message.getMessageText(), FieldValue.serverTimestamp())) {
+            Map<String, Object> fields = new HashMap<>(write.fields);
+            if (write.unreadIncrement != 0) {
+                fields.put(ConversationSummary.FIELD_UNREAD_COUNT, FieldValue.increment(write.unreadIncrement));
+            }
+            batch.set(db.collection(COLLECTION_CONVERSATION_SUMMARIES).document(write.summaryId), fields,
+                    SetOptions.merge());
+        }
+
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Message sent with ID: " + messageRef.getId());
+                    callback.onSuccess(messageRef.getId());
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error sending message", e);
+                    callback.onFailure(e);
                 });
-                
-                callback.onSuccess(messages);
-            });
     }
 
     /**
-     * Marcar mensajes como leídos
+     * Marcar mensajes como leídos.
+     * El contador del resumen se limpia en una transacción; los mensajes solo se consultan si el
+     * resumen tenía no leídos, o si la conversación es anterior a los resúmenes y no tiene uno.
      */
     public void markMessagesAsRead(String conversationId, String userId, FirestoreCallback callback) {
-        db.collection(COLLECTION_MESSAGES)
-            .whereEqualTo("conversationId", conversationId)
-            .whereEqualTo("receiverId", userId)
-            .whereEqualTo("isRead", false)
-            .get()
-            .addOnSuccessListener(querySnapshot -> {
-                WriteBatch batch = db.batch();
-                for (QueryDocumentSnapshot doc : querySnapshot) {
-                    batch.update(doc.getReference(), "isRead", true);
+        markConversationRead(conversationId, userId, new FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                if (result instanceof Long && (Long) result == 0) {
+                    callback.onSuccess(null);
+                    return;
                 }
-                batch.commit()
-                    .addOnSuccessListener(aVoid -> {
-                        Log.d(TAG, "Messages marked as read");
-                        callback.onSuccess(null);
+                db.collection(COLLECTION_MESSAGES)
+                    .whereEqualTo("conversationId", conversationId)
+                    .whereEqualTo("receiverId", userId)
+                    .whereEqualTo("isRead", false)
+                    .get()
+                    .addOnSuccessListener(querySnapshot -> {
+                        Map<String, Object> read = new HashMap<>();
+                        read.put("isRead", true);
+                        BulkWriter writer = new BulkWriter(db);
+                        for (QueryDocumentSnapshot doc : querySnapshot) {
+                            writer.update(doc.getReference(), read);
+                        }
+                        writer.commit(new FirestoreCallback() {
+                            @Override
+                            public void onSuccess(Object ignored) {
+                                Log.d(TAG, "Messages marked as read");
+                                callback.onSuccess(null);
+                            }
+
+                            @Override
+                            public void onFailure(Exception e) {
+                                Log.e(TAG, "Error marking messages as read", e);
+                                callback.onFailure(e);
+                            }
+                        });
                     })
                     .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error marking messages as read", e);
+                        Log.e(TAG, "Error getting messages to mark as read", e);
                         callback.onFailure(e);
                     });
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error getting messages to mark as read", e);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
                 callback.onFailure(e);
-            });
+            }
+        });
+    }
+
+    // ==================== RESÚMENES DE CONVERSACIÓN ====================
+
+    private DocumentReference conversationSummaryRef(String conversationId, String userId) {
+        if (conversationId == null || conversationId.isEmpty() || userId == null || userId.isEmpty()) {
+            return null;
+        }
+        return db.collection(COLLECTION_CONVERSATION_SUMMARIES).document(ConversationSummary.idFor(conversationId, userId));
+    }
+
+    private static ConversationSummary toConversationSummary(DocumentSnapshot doc, String conversationId, String userId) {
+        if (doc == null || !doc.exists() || doc.getData() == null) {
+            return new ConversationSummary(conversationId, userId);
+        }
+        // Firestore devuelve Timestamp: pasarlos a Date para el modelo (estimada si el envío está pendiente)
+        Map<String, Object> data = new HashMap<>(doc.getData());
+        data.put(ConversationSummary.FIELD_LAST_MESSAGE_AT, doc.getDate(ConversationSummary.FIELD_LAST_MESSAGE_AT,
+                DocumentSnapshot.ServerTimestampBehavior.ESTIMATE));
+        data.put(ConversationSummary.FIELD_LAST_READ_AT, doc.getDate(ConversationSummary.FIELD_LAST_READ_AT));
+        return ConversationSummary.fromData(data);
+    }
+
+    /**
+     * Limpiar los no leídos de un participante. Devuelve (Long) cuántos había, o null si la
+     * conversación no tiene resumen para ese usuario (conversaciones anteriores a los resúmenes).
+     */
+    public void markConversationRead(String conversationId, String userId, FirestoreCallback callback) {
+        DocumentReference summaryRef = conversationSummaryRef(conversationId, userId);
+        if (summaryRef == null) {
+            callback.onFailure(new IllegalArgumentException("conversationId o userId inválido"));
+            return;
+        }
+
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot snapshot = transaction.get(summaryRef);
+                    if (!snapshot.exists()) {
+                        return null;
+                    }
+                    long cleared = toConversationSummary(snapshot, conversationId, userId).getUnreadCount();
+                    if (cleared > 0) {
+                        // Solo los campos de lectura: un envío confirmado mientras tanto reintenta la transacción
+                        transaction.update(summaryRef, ConversationSummary.readFields(new java.util.Date()));
+                    }
+                    return cleared;
+                })
+                .addOnSuccessListener(cleared -> {
+                    Log.d(TAG, "Conversation " + conversationId + " read, cleared " + cleared);
+                    callback.onSuccess(cleared);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error marking conversation as read", e);
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Conversaciones de un usuario, la más reciente primero.
+     * Devuelve List&lt;ConversationSummary&gt;. Índice: userId ASC + lastMessageAt DESC.
+     */
+    public void getConversationSummaries(String userId, int limit, FirestoreCallback callback) {
+        db.collection(COLLECTION_CONVERSATION_SUMMARIES)
+                .whereEqualTo(ConversationSummary.FIELD_USER_ID, userId)
+                .orderBy(ConversationSummary.FIELD_LAST_MESSAGE_AT, Query.Direction.DESCENDING)
+                .limit(limit)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    List<ConversationSummary> summaries = new ArrayList<>();
+                    for (QueryDocumentSnapshot doc : querySnapshot) {
+                        summaries.add(toConversationSummary(doc, null, userId));
+                    }
+                    Log.d(TAG, "Conversation summaries for " + userId + ": " + summaries.size());
+                    callback.onSuccess(summaries);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error getting conversation summaries", e);
+                    callback.onFailure(e);
+                });
     }
 
     // ==================== SESIONES DE USUARIO ====================
@@ -1451,6 +1906,85 @@ public class FirestoreManager {
             });
     }
 
+    // ==================== ESCRITURAS MASIVAS ====================
+
+    /**
+     * Crear varias notificaciones en batches (datos de ejemplo, avisos masivos).
+     * onSuccess recibe el ChunkedBatchWriter.Result.
+     */
+    public void createNotifications(List<Notification> notifications, FirestoreCallback callback) {
+        BulkWriter writer = new BulkWriter(db);
+        for (Notification notification : notifications) {
+            writer.set(db.collection(COLLECTION_NOTIFICATIONS).document(), notification.toMap());
+        }
+        writer.commit(callback);
+    }
+
+    /**
+     * Crear varias reservas en batches; cada reserva va en el mismo batch que su delta de analítica
+     * y el día ocupado del guía
+     */
+    public void createReservations(List<Reservation> reservations, FirestoreCallback callback) {
+        BulkWriter writer = new BulkWriter(db);
+        for (Reservation reservation : reservations) {
+            DocumentReference reservationRef = db.collection(COLLECTION_RESERVATIONS).document();
+            issueQrCodes(reservation, reservationRef.getId());
+            Map<String, Object> data = stampCreated(reservation.toMap());
+            writer.add(3, batch -> {
+                batch.set(reservationRef, data);
+                AnalyticsManager.getInstance().applyReservationChange(batch, null, data);
+                GuideAvailabilityManager.getInstance().applyReservationChange(batch, null, data);
+            });
+        }
+        writer.commit(callback);
+    }
+
+    public void createTourOffers(List<com.example.droidtour.models.TourOffer> offers, FirestoreCallback callback) {
+        BulkWriter writer = new BulkWriter(db);
+        for (com.example.droidtour.models.TourOffer offer : offers) {
+            DocumentReference offerRef = db.collection(COLLECTION_TOUR_OFFERS).document();
+            Map<String, Object> data = offer.toMap();
+            writer.add(2, batch -> {
+                batch.set(offerRef, data);
+                GuideAvailabilityManager.getInstance().applyOfferChange(batch, null, data);
+            });
+        }
+        writer.commit(callback);
+    }
+
+    /**
+     * Crear empresas con el ID que ya traen asignado (o uno nuevo si no tienen)
+     */
+    public void createCompaniesWithIds(List<Company> companies, FirestoreCallback callback) {
+        BulkWriter writer = new BulkWriter(db);
+        for (Company company : companies) {
+            String companyId = company.getCompanyId();
+            DocumentReference companyRef = companyId != null && !companyId.isEmpty()
+                    ? db.collection(COLLECTION_COMPANIES).document(companyId)
+                    : db.collection(COLLECTION_COMPANIES).document();
+            writer.set(companyRef, stampCreated(company.toMap()));
+        }
+        writer.commit(callback);
+    }
+
+    // ==================== SELLOS DE TIEMPO ====================
+
+    /**
+     * toMap() no incluye createdAt/updatedAt (el @ServerTimestamp solo aplica al serializar el modelo).
+     * ReadModelSyncManager sincroniza por updatedAt, así que toda escritura de tours, empresas y reservas lo sella.
+     */
+    private static Map<String, Object> stampCreated(Map<String, Object> data) {
+        data.put("createdAt", FieldValue.serverTimestamp());
+        data.put("updatedAt", FieldValue.serverTimestamp());
+        return data;
+    }
+
+    private static Map<String, Object> stampUpdated(Map<String, Object> updates) {
+        Map<String, Object> stamped = new HashMap<>(updates);
+        stamped.put("updatedAt", FieldValue.serverTimestamp());
+        return stamped;
+    }
+
     // ==================== CALLBACK ====================
 
     public interface FirestoreCallback {
@@ -0,0 +1,388 @@
+package com.example.droidtour.firebase;
+
+import android.util.Log;
+
+import com.example.droidtour.guides.GuideAvailabilityDelta;
+import com.example.droidtour.guides.GuideAvailabilityIndex;
+import com.example.droidtour.models.User;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Búsqueda de guías disponibles por fechas e idiomas (SearchGuidesFragment).
+ *
+ * Cada guía tiene un documento guide_availability/{guideId} con sus días ocupados (contadores por
+ * día, ver {@link GuideAvailabilityDelta}). Lo mantienen las escrituras de reservas y ofertas con
+ * applyReservationChange/applyOfferChange en el mismo batch o transacción, así la búsqueda no
+ * necesita leer reservas ni ofertas (de ninguna empresa).
+ *
+ * Mientras hay una sesión se escuchan los guías y esos documentos; cada DocumentChange actualiza un
+ * {@link GuideAvailabilityIndex} (horizonte: hoy + {@link #HORIZON_DAYS}), así buscar no lee nada
+ * de Firestore.
+ */
+public class GuideAvailabilityManager {
+    private static final String TAG = "GuideAvailability";
+    private static final String COLLECTION_USERS = "users";
+    private static final String COLLECTION_TOUR_OFFERS = "tour_offers";
+    private static final String COLLECTION_RESERVATIONS = "reservations";
+    private static final String COLLECTION_GUIDE_AVAILABILITY = "guide_availability";
+    private static final String COLLECTION_MIGRATIONS = "migrations";
+    private static final String MIGRATION_GUIDE_AVAILABILITY = "guide_availability";
+    public static final int HORIZON_DAYS = 365;
+
+    private static GuideAvailabilityManager instance;
+
+    /** Avisos de cambios de disponibilidad después de la carga inicial */
+    public interface AvailabilityListener {
+        void onAvailabilityChanged();
+    }
+
+    private static class PendingSearch {
+        final LocalDate from, to;
+        final List<String> languages;
+        final int limit;
+        final FirestoreManager.FirestoreCallback callback;
+
+        PendingSearch(LocalDate from, LocalDate to, List<String> languages, int limit,
+                      FirestoreManager.FirestoreCallback callback) {
+            this.from = from;
+            this.to = to;
+            this.languages = languages;
+            this.limit = limit;
+            this.callback = callback;
+        }
+    }
+
+    private class Session {
+        final GuideAvailabilityIndex index;
+        final Map<String, User> guides = new HashMap<>();
+        final List<PendingSearch> pending = new ArrayList<>();
+        ListenerRegistration guidesRegistration;
+        ListenerRegistration availabilityRegistration;
+        boolean guidesLoaded;
+        boolean availabilityLoaded;
+
+        Session(LocalDate today) {
+            this.index = new GuideAvailabilityIndex(today.toEpochDay(), HORIZON_DAYS);
+        }
+
+        boolean isReady() {
+            return guidesLoaded && availabilityLoaded;
+        }
+
+        boolean isCurrent() {
+            return index.getStartEpochDay() == LocalDate.now().toEpochDay();
+        }
+
+        void stop() {
+            if (guidesRegistration != null) guidesRegistration.remove();
+            if (availabilityRegistration != null) availabilityRegistration.remove();
+        }
+    }
+
+    private final FirebaseFirestore db;
+    private final Set<AvailabilityListener> listeners = new LinkedHashSet<>();
+    private Session session;
+
+    private GuideAvailabilityManager() {
+        this.db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized GuideAvailabilityManager getInstance() {
+        if (instance == null) {
+            instance = new GuideAvailabilityManager();
+        }
+        return instance;
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Guías aprobados que hablan todos los idiomas y están libres todo el rango, de mayor a menor
+     * rating; onSuccess recibe una List&lt;User&gt;. Si el índice ya está cargado responde al instante.
+     */
+    public void findAvailableGuides(LocalDate from, LocalDate to, List<String> languages, int limit,
+                                    FirestoreManager.FirestoreCallback callback) {
+        if (session != null && !session.isCurrent()) {
+            // Cambió el día: el horizonte se mueve
+            release();
+        }
+        if (session == null) {
+            session = start();
+        }
+        PendingSearch search = new PendingSearch(from, to, new ArrayList<>(languages), limit, callback);
+        if (session.isReady()) {
+            run(session, search);
+        } else {
+            session.pending.add(search);
+        }
+    }
+
+    private void run(Session session, PendingSearch search) {
+        List<String> ids;
+        try {
+            ids = session.index.findAvailable(search.from.toEpochDay(), search.to.toEpochDay(),
+                    search.languages, search.limit);
+        } catch (IllegalArgumentException e) {
+            search.callback.onFailure(e);
+            return;
+        }
+        List<User> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            result.add(session.guides.get(id));
+        }
+        search.callback.onSuccess(result);
+    }
+
+    /** Último día que se puede buscar */
+    public LocalDate getHorizonEnd() {
+        return LocalDate.now().plusDays(HORIZON_DAYS - 1);
+    }
+
+    public void addListener(AvailabilityListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(AvailabilityListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Dejar de escuchar y olvidar el índice (al cerrar la pantalla de búsqueda)
+     */
+    public void release() {
+        if (session != null) {
+            session.stop();
+            session = null;
+        }
+    }
+
+    // ==================== ESCRITURA ====================
+
+    private DocumentReference availabilityRef(String guideId) {
+        return db.collection(COLLECTION_GUIDE_AVAILABILITY).document(guideId);
+    }
+
+    /**
+     * Agregar al batch el cambio de días ocupados de una reserva que pasa de before a after
+     */
+    public void applyReservationChange(WriteBatch batch, Map<String, Object> before, Map<String, Object> after) {
+        apply(batch, GuideAvailabilityDelta.reservationDelta(before, after));
+    }
+
+    public void applyReservationChange(Transaction transaction, Map<String, Object> before, Map<String, Object> after) {
+        apply(transaction, GuideAvailabilityDelta.reservationDelta(before, after));
+    }
+
+    /**
+     * Agregar al batch el cambio de días ocupados de una oferta que pasa de before a after
+     */
+    public void applyOfferChange(WriteBatch batch, Map<String, Object> before, Map<String, Object> after) {
+        apply(batch, GuideAvailabilityDelta.offerDelta(before, after));
+    }
+
+    public void applyOfferChange(Transaction transaction, Map<String, Object> before, Map<String, Object> after) {
+        apply(transaction, GuideAvailabilityDelta.offerDelta(before, after));
+    }
+
+    private void apply(WriteBatch batch, GuideAvailabilityDelta delta) {
+        for (String guideId : delta.getGuideIds()) {
+            batch.set(availabilityRef(guideId), toIncrements(guideId, delta), SetOptions.merge());
+        }
+    }
+
+    private void apply(Transaction transaction, GuideAvailabilityDelta delta) {
+        for (String guideId : delta.getGuideIds()) {
+            transaction.set(availabilityRef(guideId), toIncrements(guideId, delta), SetOptions.merge());
+        }
+    }
+
+    /** Campos del documento del guía: los contadores de "days" se suman en el servidor */
+    private static Map<String, Object> toIncrements(String guideId, GuideAvailabilityDelta delta) {
+        Map<String, Object> days = new HashMap<>();
+        for (Map.Entry<String, Long> entry : delta.getDays(guideId).entrySet()) {
+            days.put(entry.getKey(), FieldValue.increment(entry.getValue()));
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put(GuideAvailabilityDelta.FIELD_GUIDE_ID, guideId);
+        data.put(GuideAvailabilityDelta.FIELD_DAYS, days);
+        return data;
+    }
+
+    // ==================== MIGRACIÓN ====================
+
+    /**
+     * Migración única: contar en guide_availability las reservas y ofertas aceptadas existentes
+     * (anteriores a estos documentos) y marcar migrations/guide_availability. Si ya se hizo no hace
+     * nada; onSuccess recibe cuántos guías cambiaron.
+     *
+     * Como en AnalyticsManager, primero se leen los documentos y después se recorren las colecciones;
+     * se suma la diferencia con increment, así no se pisan las escrituras que lleguen mientras tanto.
+     */
+    public void backfillAvailability(FirestoreManager.FirestoreCallback callback) {
+        DocumentReference markerRef = db.collection(COLLECTION_MIGRATIONS).document(MIGRATION_GUIDE_AVAILABILITY);
+        markerRef.get()
+                .addOnSuccessListener(marker -> {
+                    if (Boolean.TRUE.equals(marker.getBoolean("done"))) {
+                        callback.onSuccess(0);
+                        return;
+                    }
+                    db.collection(COLLECTION_GUIDE_AVAILABILITY).get()
+                            .addOnSuccessListener(stored -> scanBookings(stored, markerRef, callback))
+                            .addOnFailureListener(callback::onFailure);
+                })
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void scanBookings(Iterable<QueryDocumentSnapshot> stored, DocumentReference markerRef,
+                              FirestoreManager.FirestoreCallback callback) {
+        db.collection(COLLECTION_RESERVATIONS).get()
+                .addOnSuccessListener(reservations -> db.collection(COLLECTION_TOUR_OFFERS)
+                        .whereEqualTo("status", GuideAvailabilityDelta.OFFER_ACCEPTED)
+                        .get()
+                        .addOnSuccessListener(offers -> {
+                            GuideAvailabilityDelta totals = new GuideAvailabilityDelta();
+                            for (QueryDocumentSnapshot doc : reservations) {
+                                totals.merge(GuideAvailabilityDelta.reservationDelta(null, doc.getData()));
+                            }
+                            for (QueryDocumentSnapshot doc : offers) {
+                                totals.merge(GuideAvailabilityDelta.offerDelta(null, doc.getData()));
+                            }
+                            for (QueryDocumentSnapshot doc : stored) {
+                                Object days = doc.get(GuideAvailabilityDelta.FIELD_DAYS);
+                                totals.subtractStored(doc.getId(), days instanceof Map ? (Map<String, ?>) days : null);
+                            }
+                            writeBackfill(totals, markerRef, callback);
+                        })
+                        .addOnFailureListener(callback::onFailure))
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    private void writeBackfill(GuideAvailabilityDelta totals, DocumentReference markerRef,
+                               FirestoreManager.FirestoreCallback callback) {
+        BulkWriter writer = new BulkWriter(db);
+        for (String guideId : totals.getGuideIds()) {
+            writer.set(availabilityRef(guideId), toIncrements(guideId, totals), SetOptions.merge());
+        }
+        int guides = writer.size();
+        writer.commit(new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                Map<String, Object> marker = new HashMap<>();
+                marker.put("done", true);
+                marker.put("updatedGuides", guides);
+                marker.put("completedAt", FieldValue.serverTimestamp());
+                markerRef.set(marker)
+                        .addOnSuccessListener(aVoid -> {
+                            Log.d(TAG, "Disponibilidad migrada en " + guides + " guías");
+                            callback.onSuccess(guides);
+                        })
+                        .addOnFailureListener(callback::onFailure);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    // ==================== LISTENERS ====================
+
+    @SuppressWarnings("unchecked")
+    private Session start() {
+        LocalDate today = LocalDate.now();
+        Session session = new Session(today);
+        GuideAvailabilityIndex index = session.index;
+        Log.d(TAG, "Escuchando disponibilidad entre " + today + " y " + today.plusDays(HORIZON_DAYS - 1));
+
+        session.guidesRegistration = db.collection(COLLECTION_USERS)
+                .whereEqualTo("userType", "GUIDE")
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        fail(session, e);
+                        return;
+                    }
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        DocumentSnapshot doc = change.getDocument();
+                        User guide = change.getType() == DocumentChange.Type.REMOVED ? null : doc.toObject(User.class);
+                        if (guide == null || !Boolean.TRUE.equals(guide.getGuideApproved())) {
+                            index.removeGuide(doc.getId());
+                            session.guides.remove(doc.getId());
+                            continue;
+                        }
+                        if (guide.getUserId() == null) guide.setUserId(doc.getId());
+                        float rating = guide.getGuideRating() != null ? guide.getGuideRating() : 0f;
+                        index.putGuide(doc.getId(), guide.getGuideLanguages(), rating);
+                        session.guides.put(doc.getId(), guide);
+                    }
+                    session.guidesLoaded = true;
+                    onChanged(session);
+                });
+
+        // Los cambios hechos en este dispositivo llegan al momento (compensación de latencia)
+        session.availabilityRegistration = db.collection(COLLECTION_GUIDE_AVAILABILITY)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        fail(session, e);
+                        return;
+                    }
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        DocumentSnapshot doc = change.getDocument();
+                        Object days = change.getType() == DocumentChange.Type.REMOVED
+                                ? null : doc.get(GuideAvailabilityDelta.FIELD_DAYS);
+                        index.setBookedDays(doc.getId(), days instanceof Map ? (Map<String, ?>) days : null);
+                    }
+                    session.availabilityLoaded = true;
+                    onChanged(session);
+                });
+        return session;
+    }
+
+    private void onChanged(Session session) {
+        if (this.session != session || !session.isReady()) {
+            return;
+        }
+        if (!session.pending.isEmpty()) {
+            List<PendingSearch> pending = new ArrayList<>(session.pending);
+            session.pending.clear();
+            Log.d(TAG, "Índice listo: " + session.index.getGuideCount() + " guías");
+            for (PendingSearch search : pending) {
+                run(session, search);
+            }
+            return;
+        }
+        for (AvailabilityListener listener : new ArrayList<>(listeners)) {
+            listener.onAvailabilityChanged();
+        }
+    }
+
+    private void fail(Session session, Exception e) {
+        Log.e(TAG, "Error escuchando disponibilidad", e);
+        if (this.session == session) {
+            release();
+        }
+        List<PendingSearch> pending = new ArrayList<>(session.pending);
+        session.pending.clear();
+        for (PendingSearch search : pending) {
+            search.callback.onFailure(e);
+        }
+    }
+}
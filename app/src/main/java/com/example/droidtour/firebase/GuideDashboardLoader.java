@@ -0,0 +1,316 @@
+package com.example.droidtour.firebase;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.droidtour.guides.GuideDashboardState;
+import com.example.droidtour.models.Reservation;
+import com.example.droidtour.models.TourOffer;
+import com.example.droidtour.models.User;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carga del dashboard del guía (TourGuideMainActivity) en un solo {@link GuideDashboardState}:
+ *
+ * - Perfil: users/{guideId}, una lectura.
+ * - Ofertas: solo las tour_offers PENDIENTE del guía.
+ * - Próximos tours y tour en curso: reservations CONFIRMADA/PROGRAMADA/EN_PROGRESO con tourDate
+ *   entre hoy - {@link #ACTIVE_LOOKBACK_DAYS} y hoy + {@link #UPCOMING_DAYS}, en una consulta.
+ * - Tours completados: agregado count(), sin descargar las reservas.
+ * - Ganancias del mes: reservations COMPLETADA con tourDate desde el día 1 del mes.
+ *
+ * Cada parte pasa por un {@link RequestCoalescer}: cargas simultáneas (onCreate/onResume, otra
+ * pantalla) comparten la lectura y el resultado se reutiliza durante {@link #MAX_AGE_MS}. Se usa
+ * desde el hilo principal; cada log de carga indica el tiempo al primer render y las lecturas hechas.
+ *
+ * Índice compuesto: reservations (guideId ASC, status ASC, tourDate ASC).
+ */
+public class GuideDashboardLoader {
+    private static final String TAG = "GuideDashboard";
+    private static final String COLLECTION_USERS = "users";
+    private static final String COLLECTION_TOUR_OFFERS = "tour_offers";
+    private static final String COLLECTION_RESERVATIONS = "reservations";
+
+    public static final int UPCOMING_DAYS = 60;
+    // Tours de varios días que empezaron antes de hoy y siguen EN_PROGRESO
+    public static final int ACTIVE_LOOKBACK_DAYS = 3;
+    private static final int UPCOMING_LIMIT = 50;
+    private static final long MAX_AGE_MS = 30_000;
+
+    // Partes del dashboard (para errores y logs)
+    public static final String PART_PROFILE = "profile";
+    public static final String PART_OFFERS = "offers";
+    public static final String PART_RESERVATIONS = "reservations";
+    public static final String PART_COMPLETED = "completed";
+    public static final String PART_EARNINGS = "earnings";
+    private static final int PART_COUNT = 5;
+
+    private static GuideDashboardLoader instance;
+
+    public interface DashboardListener {
+        /** Llega una parte nueva; siempre es el mismo estado, con todo lo cargado hasta ahora */
+        void onDashboardChanged(GuideDashboardState state);
+        void onDashboardError(String part, Exception e);
+    }
+
+    private final FirebaseFirestore db;
+    private final RequestCoalescer<User> profiles;
+    private final RequestCoalescer<List<TourOffer>> offers;
+    private final RequestCoalescer<List<Reservation>> reservations;
+    private final RequestCoalescer<Integer> counts;
+    private final Map<String, GuideDashboardState> states = new HashMap<>();
+
+    private GuideDashboardLoader() {
+        this.db = FirebaseFirestore.getInstance();
+        RequestCoalescer.Clock clock = SystemClock::elapsedRealtime;
+        this.profiles = new RequestCoalescer<>(MAX_AGE_MS, clock);
+        this.offers = new RequestCoalescer<>(MAX_AGE_MS, clock);
+        this.reservations = new RequestCoalescer<>(MAX_AGE_MS, clock);
+        this.counts = new RequestCoalescer<>(MAX_AGE_MS, clock);
+    }
+
+    public static synchronized GuideDashboardLoader getInstance() {
+        if (instance == null) {
+            instance = new GuideDashboardLoader();
+        }
+        return instance;
+    }
+
+    // ==================== CARGA ====================
+
+    /**
+     * Cargar el dashboard. Si ya hay un estado en memoria se entrega de inmediato y solo se vuelven
+     * a leer las partes vencidas.
+     */
+    public void load(String guideId, DashboardListener listener) {
+        LocalDate today = LocalDate.now();
+        GuideDashboardState state = stateFor(guideId, today);
+        LoadTrace trace = new LoadTrace(state);
+
+        if (state.isProfileLoaded() || state.getPendingOffers() != null || state.isReservationsLoaded()) {
+            listener.onDashboardChanged(state);
+            trace.rendered("memoria");
+        }
+
+        profiles.get(profileKey(guideId), done -> fetchProfile(state, done),
+                part(PART_PROFILE, state, trace, listener, state::setProfile));
+
+        offers.get(offersKey(guideId), done -> fetchPendingOffers(state, done),
+                part(PART_OFFERS, state, trace, listener, state::setPendingOffers));
+
+        String from = today.minusDays(ACTIVE_LOOKBACK_DAYS).toString();
+        String to = today.plusDays(UPCOMING_DAYS).toString();
+        reservations.get(reservationsKey(guideId, from), done -> fetchReservations(state, from, to, done),
+                part(PART_RESERVATIONS, state, trace, listener, state::setReservations));
+
+        counts.get(completedKey(guideId), done -> countCompletedTours(state, done),
+                part(PART_COMPLETED, state, trace, listener, state::setCompletedTours));
+
+        String monthStart = today.withDayOfMonth(1).toString();
+        reservations.get(earningsKey(guideId, monthStart), done -> fetchMonthCompleted(state, monthStart, today.toString(), done),
+                part(PART_EARNINGS, state, trace, listener, state::setMonthCompleted));
+    }
+
+    /**
+     * La oferta se aceptó o rechazó: se quita del estado al instante y se releen ofertas y reservas
+     */
+    public void onOfferStatusChanged(String guideId, String offerId, DashboardListener listener) {
+        GuideDashboardState state = states.get(guideId);
+        if (state != null) {
+            state.removeOffer(offerId);
+            listener.onDashboardChanged(state);
+        }
+        offers.invalidate(offersKey(guideId));
+        LocalDate today = LocalDate.now();
+        reservations.invalidate(reservationsKey(guideId, today.minusDays(ACTIVE_LOOKBACK_DAYS).toString()));
+        load(guideId, listener);
+    }
+
+    /** Olvidar todo (cierre de sesión) */
+    public void clear() {
+        states.clear();
+        profiles.clear();
+        offers.clear();
+        reservations.clear();
+        counts.clear();
+    }
+
+    private GuideDashboardState stateFor(String guideId, LocalDate today) {
+        GuideDashboardState state = states.get(guideId);
+        // Con el cambio de día cambian los rangos: se empieza de cero
+        if (state == null || !state.getToday().equals(today.toString())) {
+            state = new GuideDashboardState(guideId, today.toString());
+            states.put(guideId, state);
+        }
+        return state;
+    }
+
+    private interface Apply<T> {
+        void apply(T value);
+    }
+
+    /** Aplicar el resultado de una parte al estado y avisar a la pantalla */
+    private <T> RequestCoalescer.Listener<T> part(String name, GuideDashboardState state, LoadTrace trace,
+                                                 DashboardListener listener, Apply<T> apply) {
+        return new RequestCoalescer.Listener<T>() {
+            @Override
+            public void onResult(T value) {
+                apply.apply(value);
+                listener.onDashboardChanged(state);
+                trace.rendered(name);
+                trace.partDone();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error cargando " + name + " del dashboard", e);
+                listener.onDashboardError(name, e);
+                trace.partDone();
+            }
+        };
+    }
+
+    // ==================== LECTURAS ====================
+
+    private void fetchProfile(GuideDashboardState state, RequestCoalescer.Listener<User> done) {
+        db.collection(COLLECTION_USERS)
+                .document(state.getGuideId())
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    state.addReads(1);
+                    done.onResult(snapshot.exists() ? snapshot.toObject(User.class) : null);
+                })
+                .addOnFailureListener(done::onError);
+    }
+
+    private void fetchPendingOffers(GuideDashboardState state, RequestCoalescer.Listener<List<TourOffer>> done) {
+        db.collection(COLLECTION_TOUR_OFFERS)
+                .whereEqualTo("guideId", state.getGuideId())
+                .whereEqualTo("status", GuideDashboardState.OFFER_PENDING)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    state.addReads(Math.max(1, snapshot.size()));
+                    List<TourOffer> result = new ArrayList<>();
+                    for (QueryDocumentSnapshot document : snapshot) {
+                        TourOffer offer = document.toObject(TourOffer.class);
+                        offer.setOfferId(document.getId());
+                        result.add(offer);
+                    }
+                    done.onResult(result);
+                })
+                .addOnFailureListener(done::onError);
+    }
+
+    private void fetchReservations(GuideDashboardState state, String from, String to,
+                                   RequestCoalescer.Listener<List<Reservation>> done) {
+        Query query = db.collection(COLLECTION_RESERVATIONS)
+                .whereEqualTo("guideId", state.getGuideId())
+                .whereIn("status", Arrays.asList(
+                        GuideDashboardState.RESERVATION_CONFIRMED,
+                        GuideDashboardState.RESERVATION_SCHEDULED,
+                        GuideDashboardState.RESERVATION_IN_PROGRESS))
+                .whereGreaterThanOrEqualTo("tourDate", from)
+                .whereLessThanOrEqualTo("tourDate", to)
+                .orderBy("tourDate")
+                .limit(UPCOMING_LIMIT);
+        fetchReservations(state, query, done);
+    }
+
+    private void fetchMonthCompleted(GuideDashboardState state, String from, String to,
+                                     RequestCoalescer.Listener<List<Reservation>> done) {
+        Query query = db.collection(COLLECTION_RESERVATIONS)
+                .whereEqualTo("guideId", state.getGuideId())
+                .whereEqualTo("status", GuideDashboardState.RESERVATION_COMPLETED)
+                .whereGreaterThanOrEqualTo("tourDate", from)
+                .whereLessThanOrEqualTo("tourDate", to);
+        fetchReservations(state, query, done);
+    }
+
+    private void fetchReservations(GuideDashboardState state, Query query,
+                                   RequestCoalescer.Listener<List<Reservation>> done) {
+        query.get()
+                .addOnSuccessListener(snapshot -> {
+                    state.addReads(Math.max(1, snapshot.size()));
+                    List<Reservation> result = new ArrayList<>();
+                    for (QueryDocumentSnapshot document : snapshot) {
+                        result.add(document.toObject(Reservation.class));
+                    }
+                    done.onResult(result);
+                })
+                .addOnFailureListener(done::onError);
+    }
+
+    private void countCompletedTours(GuideDashboardState state, RequestCoalescer.Listener<Integer> done) {
+        db.collection(COLLECTION_RESERVATIONS)
+                .whereEqualTo("guideId", state.getGuideId())
+                .whereEqualTo("status", GuideDashboardState.RESERVATION_COMPLETED)
+                .count()
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(snapshot -> {
+                    state.addReads(1);
+                    done.onResult((int) snapshot.getCount());
+                })
+                .addOnFailureListener(done::onError);
+    }
+
+    // ==================== CLAVES ====================
+
+    private static String profileKey(String guideId) {
+        return "profile:" + guideId;
+    }
+
+    private static String offersKey(String guideId) {
+        return "offers:" + guideId;
+    }
+
+    private static String reservationsKey(String guideId, String from) {
+        return "upcoming:" + guideId + ":" + from;
+    }
+
+    private static String earningsKey(String guideId, String monthStart) {
+        return "earnings:" + guideId + ":" + monthStart;
+    }
+
+    private static String completedKey(String guideId) {
+        return "completed:" + guideId;
+    }
+
+    // ==================== MEDICIÓN ====================
+
+    /** Tiempo al primer render y lecturas de Firestore de una carga */
+    private static class LoadTrace {
+        final GuideDashboardState state;
+        final long start = SystemClock.elapsedRealtime();
+        final int readsBefore;
+        boolean firstRendered;
+        int partsDone;
+
+        LoadTrace(GuideDashboardState state) {
+            this.state = state;
+            this.readsBefore = state.getReads();
+        }
+
+        void rendered(String source) {
+            if (firstRendered) return;
+            firstRendered = true;
+            Log.d(TAG, "Primer render en " + (SystemClock.elapsedRealtime() - start) + " ms (" + source + ")");
+        }
+
+        void partDone() {
+            if (++partsDone < PART_COUNT) return;
+            Log.d(TAG, "Dashboard completo en " + (SystemClock.elapsedRealtime() - start) + " ms, "
+                    + (state.getReads() - readsBefore) + " lecturas en esta carga ("
+                    + state.getReads() + " desde " + state.getToday() + ")");
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.droidtour.firebase;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.droidtour.database.ReadModelDatabase;
+import com.example.droidtour.models.Company;
+import com.example.droidtour.models.Reservation;
+import com.example.droidtour.models.Review;
+import com.example.droidtour.models.Tour;
+import com.example.droidtour.search.SearchHit;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Sincroniza el modelo de lectura local ({@link ReadModelDatabase}) con Firestore.
+ *
+ * Cada carga entrega primero lo que hay en SQLite y luego pide a Firestore solo los documentos
+ * con updatedAt mayor o igual a la marca de agua guardada; si llegó algo, vuelve a entregar la
+ * lista actualizada. Por eso onSuccess puede llamarse dos veces: las pantallas ya limpian y
+ * rellenan su lista en cada llamada.
+ *
+ * La primera vez de cada ámbito se hace una carga completa, porque los documentos creados antes
+ * de sellar updatedAt no aparecerían en la consulta incremental. La carga completa se repite cada
+ * {@link #FULL_SYNC_INTERVAL_MS}: es lo que quita del modelo local los documentos borrados en
+ * Firestore, que la consulta incremental nunca devuelve.
+ */
+public class ReadModelSyncManager {
+    private static final String TAG = "ReadModelSyncManager";
+    private static ReadModelSyncManager instance;
+
+    private static final String FIELD_UPDATED_AT = "updatedAt";
+    private static final long FULL_SYNC_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+
+    // Ámbitos de sincronización (uno por consulta remota)
+    private static final String SCOPE_TOURS = "tours";
+    private static final String SCOPE_COMPANIES = "companies";
+    private static final String SCOPE_RESERVATIONS_USER = "reservations:user:";
+    private static final String SCOPE_RESERVATIONS_GUIDE = "reservations:guide:";
+
+    private final FirebaseFirestore db;
+    private final ReadModelDatabase localDb;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ReadModelSyncManager(Context context) {
+        this.db = FirebaseFirestore.getInstance();
+        this.localDb = ReadModelDatabase.getInstance(context);
+    }
+
+    public static synchronized ReadModelSyncManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReadModelSyncManager(context);
+        }
+        return instance;
+    }
+
+    private interface LocalReader<T> {
+        List<T> read();
+    }
+
+    private interface LocalWriter<T> {
+        void write(List<T> items, String scope, long highWaterMark, boolean fullSync);
+    }
+
+    private interface LocalVersions {
+        Map<String, Long> read(Collection<String> ids);
+    }
+
+    private interface IdGetter<T> {
+        String get(T item);
+    }
+
+    private interface UpdatedAtGetter<T> {
+        Date get(T item);
+    }
+
+    // ==================== TOURS ====================
+
+    /**
+     * Todos los tours (equivalente local de FirestoreManager.getTours)
+     */
+    public void getTours(FirestoreManager.FirestoreCallback callback) {
+        loadLocalFirst(SCOPE_TOURS, db.collection("tours"), Tour.class, localDb::getTours,
+                localDb::upsertTours, localDb::getTourVersions, Tour::getTourId, Tour::getUpdatedAt, callback);
+    }
+
+    /**
+     * Tours activos de una empresa. Se sincroniza el ámbito global de tours, así el catálogo
+     * de cualquier empresa queda disponible sin red en la siguiente apertura.
+     */
+    public void getToursByCompany(String companyId, FirestoreManager.FirestoreCallback callback) {
+        loadLocalFirst(SCOPE_TOURS, db.collection("tours"), Tour.class, () -> localDb.getToursByCompany(companyId),
+                localDb::upsertTours, localDb::getTourVersions, Tour::getTourId, Tour::getUpdatedAt, callback);
+    }
+
+    // ==================== EMPRESAS ====================
+
+    public void getCompanies(FirestoreManager.FirestoreCallback callback) {
+        loadLocalFirst(SCOPE_COMPANIES, db.collection("companies"), Company.class, localDb::getCompanies,
+                localDb::upsertCompanies, localDb::getCompanyVersions, Company::getCompanyId,
+                Company::getUpdatedAt, callback);
+    }
+
+    // ==================== RESERVAS ====================
+
+    /**
+     * Reservas del usuario, más recientes primero.
+     * Nota: la consulta incremental (userId + updatedAt) requiere índice compuesto en Firestore.
+     */
+    public void getReservationsByUser(String userId, FirestoreManager.FirestoreCallback callback) {
+        loadLocalFirst(SCOPE_RESERVATIONS_USER + userId,
+                db.collection("reservations").whereEqualTo("userId", userId), Reservation.class,
+                () -> localDb.getReservationsByUser(userId),
+                (items, scope, mark, fullSync) -> localDb.upsertReservationsByUser(userId, items, scope, mark, fullSync),
+                localDb::getReservationVersions, Reservation::getReservationId, Reservation::getUpdatedAt, callback);
+    }
+
+    /**
+     * Reservas asignadas al guía, más recientes primero (índice compuesto guideId + updatedAt)
+     */
+    public void getReservationsByGuide(String guideId, FirestoreManager.FirestoreCallback callback) {
+        loadLocalFirst(SCOPE_RESERVATIONS_GUIDE + guideId,
+                db.collection("reservations").whereEqualTo("guideId", guideId), Reservation.class,
+                () -> localDb.getReservationsByGuide(guideId),
+                (items, scope, mark, fullSync) -> localDb.upsertReservationsByGuide(guideId, items, scope, mark, fullSync),
+                localDb::getReservationVersions, Reservation::getReservationId, Reservation::getUpdatedAt, callback);
+    }
+
+    // ==================== CATÁLOGO PAGINADO ====================
+
+    /**
+     * Primera página del catálogo desde SQLite, para pintar mientras llega la de Firestore.
+     * Entrega una lista vacía si aún no hay nada guardado.
+     */
+    public void getCachedToursPage(String companyId, String sortMode, int limit, FirestoreManager.FirestoreCallback callback) {
+        executor.execute(() -> {
+            List<Tour> tours = localDb.getToursByCompanyPage(companyId, sortMode, limit);
+            mainHandler.post(() -> callback.onSuccess(tours));
+        });
+    }
+
+    public void getCachedCompaniesPage(String sortMode, int limit, FirestoreManager.FirestoreCallback callback) {
+        executor.execute(() -> {
+            List<Company> companies = localDb.getCompaniesPage(sortMode, limit);
+            mainHandler.post(() -> callback.onSuccess(companies));
+        });
+    }
+
+    /**
+     * Guardar las páginas recibidas del servidor en el modelo local (write-through)
+     */
+    public void cacheTours(List<Tour> tours) {
+        executor.execute(() -> localDb.putTours(tours));
+    }
+
+    public void cacheCompanies(List<Company> companies) {
+        executor.execute(() -> localDb.putCompanies(companies));
+    }
+
+    /**
+     * Indexar reseñas leídas del servidor para la búsqueda local
+     */
+    public void cacheReviews(List<Review> reviews) {
+        executor.execute(() -> localDb.putReviews(reviews));
+    }
+
+    // ==================== BÚSQUEDA LOCAL ====================
+
+    /**
+     * Búsqueda de texto sobre lo guardado (tours, reseñas y mensajes), sin red. onSuccess recibe
+     * una List&lt;SearchHit&gt; ordenada por relevancia; kind es un SearchHit.KIND_* o null.
+     */
+    public void search(String text, String kind, int limit, FirestoreManager.FirestoreCallback callback) {
+        executor.execute(() -> {
+            List<SearchHit> hits;
+            try {
+                hits = localDb.search(text, kind, limit);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error en la búsqueda local", e);
+                mainHandler.post(() -> callback.onFailure(e));
+                return;
+            }
+            mainHandler.post(() -> callback.onSuccess(hits));
+        });
+    }
+
+    /**
+     * Borrar el modelo local (al cerrar sesión, para no mostrar reservas de otro usuario)
+     */
+    public void clear() {
+        executor.execute(localDb::clear);
+    }
+
+    // ==================== MOTOR DE SINCRONIZACIÓN ====================
+
+    private <T> void loadLocalFirst(String scope, Query baseQuery, Class<T> type,
+                                    LocalReader<T> reader, LocalWriter<T> writer, LocalVersions versions,
+                                    IdGetter<T> id, UpdatedAtGetter<T> updatedAt,
+                                    FirestoreManager.FirestoreCallback callback) {
+        executor.execute(() -> {
+            boolean bootstrapped = localDb.isBootstrapped(scope);
+            long highWaterMark = localDb.getHighWaterMark(scope);
+            boolean fullSync = !bootstrapped
+                    || System.currentTimeMillis() - localDb.getLastFullSync(scope) >= FULL_SYNC_INTERVAL_MS;
+            List<T> local = bootstrapped ? reader.read() : null;
+
+            mainHandler.post(() -> {
+                if (local != null) {
+                    callback.onSuccess(local);
+                }
+                sync(scope, baseQuery, type, bootstrapped, fullSync, highWaterMark,
+                        reader, writer, versions, id, updatedAt, callback);
+            });
+        });
+    }
+
+    private <T> void sync(String scope, Query baseQuery, Class<T> type, boolean bootstrapped, boolean fullSync,
+                          long highWaterMark, LocalReader<T> reader, LocalWriter<T> writer, LocalVersions versions,
+                          IdGetter<T> id, UpdatedAtGetter<T> updatedAt, FirestoreManager.FirestoreCallback callback) {
+        // >= y no >: Firestore guarda microsegundos y la marca está en milisegundos (el upsert es idempotente)
+        Query query = fullSync
+                ? baseQuery
+                : baseQuery.whereGreaterThanOrEqualTo(FIELD_UPDATED_AT, new Date(highWaterMark))
+                        .orderBy(FIELD_UPDATED_AT, Query.Direction.ASCENDING);
+
+        query.get()
+                .addOnSuccessListener(querySnapshot -> {
+                    List<T> changed = new ArrayList<>();
+                    Map<String, Long> remoteVersions = new HashMap<>();
+                    long newHighWaterMark = highWaterMark;
+                    for (QueryDocumentSnapshot document : querySnapshot) {
+                        T item = document.toObject(type);
+                        changed.add(item);
+                        Date date = updatedAt.get(item);
+                        remoteVersions.put(id.get(item), date != null ? date.getTime() : null);
+                        if (date != null && date.getTime() > newHighWaterMark) {
+                            newHighWaterMark = date.getTime();
+                        }
+                    }
+
+                    long mark = newHighWaterMark;
+                    executor.execute(() -> {
+                        // Delta que solo trae lo ya guardado (p. ej. el documento de la marca de agua):
+                        // se compara id y updatedAt con las filas locales, no el número de resultados
+                        if (!fullSync && versions.read(remoteVersions.keySet()).equals(remoteVersions)) {
+                            Log.d(TAG, "Sin cambios en " + scope);
+                            return;
+                        }
+                        writer.write(changed, scope, mark, fullSync);
+                        List<T> refreshed = reader.read();
+                        mainHandler.post(() -> callback.onSuccess(refreshed));
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error sincronizando " + scope, e);
+                    // Con datos locales la pantalla ya se pintó: solo avisar si no hay nada que mostrar
+                    if (!bootstrapped) {
+                        callback.onFailure(e);
+                    }
+                });
+    }
+}
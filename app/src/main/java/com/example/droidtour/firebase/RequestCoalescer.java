@@ -0,0 +1,148 @@
+package com.example.droidtour.firebase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Une peticiones idénticas a Firestore: mientras una clave está en vuelo, las demás peticiones de
+ * esa clave esperan el mismo resultado en lugar de repetir la lectura. El resultado se reutiliza
+ * durante maxAgeMs; los errores no se guardan.
+ *
+ * No depende de Android ni de Firebase para poder probarse en la JVM; ver {@link GuideDashboardLoader}.
+ */
+public class RequestCoalescer<T> {
+
+    /** La lectura real de una clave; debe avisar al listener una sola vez */
+    public interface Fetcher<T> {
+        void fetch(Listener<T> listener);
+    }
+
+    public interface Listener<T> {
+        void onResult(T value);
+        void onError(Exception e);
+    }
+
+    public interface Clock {
+        long now();
+    }
+
+    private static class Entry<T> {
+        T value;
+        long fetchedAt;
+        boolean hasValue;
+        // Peticiones esperando la lectura en curso (null si no hay ninguna)
+        List<Listener<T>> waiting;
+    }
+
+    private final long maxAgeMs;
+    private final Clock clock;
+    private final Map<String, Entry<T>> entries = new HashMap<>();
+    private int fetches;
+    private int shared;
+
+    public RequestCoalescer(long maxAgeMs, Clock clock) {
+        this.maxAgeMs = maxAgeMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Entregar el valor de la clave: el guardado si sigue vigente, el de la lectura en curso o uno nuevo.
+     */
+    public void get(String key, Fetcher<T> fetcher, Listener<T> listener) {
+        Entry<T> entry;
+        T cached = null;
+        boolean fetch = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry<>();
+                entries.put(key, entry);
+            }
+            if (entry.waiting != null) {
+                shared++;
+                entry.waiting.add(listener);
+                return;
+            }
+            if (entry.hasValue && clock.now() - entry.fetchedAt <= maxAgeMs) {
+                shared++;
+                cached = entry.value;
+            } else {
+                entry.waiting = new ArrayList<>();
+                entry.waiting.add(listener);
+                fetches++;
+                fetch = true;
+            }
+        }
+
+        if (!fetch) {
+            listener.onResult(cached);
+            return;
+        }
+
+        Entry<T> pending = entry;
+        fetcher.fetch(new Listener<T>() {
+            @Override
+            public void onResult(T value) {
+                for (Listener<T> waiting : finish(key, pending, value, true)) {
+                    waiting.onResult(value);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                for (Listener<T> waiting : finish(key, pending, null, false)) {
+                    waiting.onError(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Olvidar el valor de la clave (p. ej. tras aceptar una oferta): la próxima petición lee de nuevo
+     * aunque haya una lectura en curso, cuyo resultado se entrega a quienes ya esperaban pero no se guarda.
+     */
+    public void invalidate(String key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /** Lecturas reales hechas desde que se creó */
+    public int getFetchCount() {
+        synchronized (entries) {
+            return fetches;
+        }
+    }
+
+    /** Peticiones atendidas sin leer: valor vigente o lectura en curso compartida */
+    public int getSharedCount() {
+        synchronized (entries) {
+            return shared;
+        }
+    }
+
+    private List<Listener<T>> finish(String key, Entry<T> entry, T value, boolean success) {
+        synchronized (entries) {
+            List<Listener<T>> waiting = entry.waiting != null ? entry.waiting : new ArrayList<>();
+            entry.waiting = null;
+            if (entries.get(key) == entry) {
+                if (success) {
+                    entry.value = value;
+                    entry.hasValue = true;
+                    entry.fetchedAt = clock.now();
+                } else if (!entry.hasValue) {
+                    entries.remove(key);
+                }
+            }
+            return waiting;
+        }
+    }
+}
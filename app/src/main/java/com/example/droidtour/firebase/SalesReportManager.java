@@ -0,0 +1,245 @@
+package com.example.droidtour.firebase;
+
+import android.util.Log;
+
+import com.example.droidtour.analytics.SalesLedger;
+import com.example.droidtour.analytics.SalesPeriod;
+import com.example.droidtour.analytics.SalesReport;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reportes de ventas por empresa (SalesReportsActivity).
+ *
+ * Por empresa se escucha una sola ventana de reservations (companyId + rango de tourDate del período
+ * más largo) y de tour_offers aceptadas; cada DocumentChange se aplica como delta a un
+ * {@link SalesLedger}, que guarda en caché el reporte de cada período. Cambiar de período es un
+ * acierto de caché y las ventas nuevas actualizan solo los períodos que tocan.
+ *
+ * Índices compuestos: reservations (companyId ASC, tourDate ASC) y
+ * tour_offers (companyId ASC, status ASC, tourDate ASC).
+ */
+public class SalesReportManager {
+    private static final String TAG = "SalesReportManager";
+    private static final String COLLECTION_RESERVATIONS = "reservations";
+    private static final String COLLECTION_TOUR_OFFERS = "tour_offers";
+    private static final String COLLECTION_TOURS = "tours";
+
+    private static SalesReportManager instance;
+
+    /** Avisos de cambios en los reportes ya entregados de una empresa */
+    public interface ReportListener {
+        void onReportsChanged(String companyId);
+    }
+
+    private static class PendingRequest {
+        final SalesPeriod period;
+        final FirestoreManager.FirestoreCallback callback;
+
+        PendingRequest(SalesPeriod period, FirestoreManager.FirestoreCallback callback) {
+            this.period = period;
+            this.callback = callback;
+        }
+    }
+
+    private class CompanySession {
+        final String companyId;
+        final SalesLedger ledger = new SalesLedger(Calendar.getInstance());
+        final List<PendingRequest> pending = new ArrayList<>();
+        final Set<ReportListener> listeners = new LinkedHashSet<>();
+        ListenerRegistration reservationsRegistration;
+        ListenerRegistration offersRegistration;
+        boolean reservationsLoaded;
+        boolean offersLoaded;
+        boolean toursLoaded;
+
+        CompanySession(String companyId) {
+            this.companyId = companyId;
+        }
+
+        boolean isReady() {
+            return reservationsLoaded && offersLoaded && toursLoaded;
+        }
+
+        boolean isCurrent() {
+            return ledger.getToDay().equals(SalesPeriod.formatDay(Calendar.getInstance()));
+        }
+
+        void stop() {
+            if (reservationsRegistration != null) reservationsRegistration.remove();
+            if (offersRegistration != null) offersRegistration.remove();
+        }
+    }
+
+    private final FirebaseFirestore db;
+    private final Map<String, CompanySession> sessions = new HashMap<>();
+
+    private SalesReportManager() {
+        this.db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized SalesReportManager getInstance() {
+        if (instance == null) {
+            instance = new SalesReportManager();
+        }
+        return instance;
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Reporte de la empresa para el período; onSuccess recibe un {@link SalesReport}.
+     * Si la empresa ya está cargada responde al instante desde la caché.
+     */
+    public void getReport(String companyId, SalesPeriod period, FirestoreManager.FirestoreCallback callback) {
+        CompanySession session = sessions.get(companyId);
+        if (session != null && !session.isCurrent()) {
+            // Cambió el día: las ventanas de los períodos se mueven
+            Set<ReportListener> listeners = session.listeners;
+            release(companyId);
+            session = start(companyId);
+            session.listeners.addAll(listeners);
+        } else if (session == null) {
+            session = start(companyId);
+        }
+
+        if (session.isReady()) {
+            callback.onSuccess(session.ledger.report(period));
+        } else {
+            session.pending.add(new PendingRequest(period, callback));
+        }
+    }
+
+    public void addListener(String companyId, ReportListener listener) {
+        CompanySession session = sessions.get(companyId);
+        if (session == null) {
+            session = start(companyId);
+        }
+        session.listeners.add(listener);
+    }
+
+    public void removeListener(String companyId, ReportListener listener) {
+        CompanySession session = sessions.get(companyId);
+        if (session != null) {
+            session.listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Dejar de escuchar a la empresa y olvidar sus reportes (al cerrar la pantalla de reportes)
+     */
+    public void release(String companyId) {
+        CompanySession session = sessions.remove(companyId);
+        if (session != null) {
+            session.stop();
+        }
+    }
+
+    // ==================== LISTENERS ====================
+
+    private CompanySession start(String companyId) {
+        CompanySession session = new CompanySession(companyId);
+        sessions.put(companyId, session);
+        SalesLedger ledger = session.ledger;
+        Log.d(TAG, "Escuchando ventas de " + companyId + " entre " + ledger.getFromDay() + " y " + ledger.getToDay());
+
+        session.reservationsRegistration = db.collection(COLLECTION_RESERVATIONS)
+                .whereEqualTo("companyId", companyId)
+                .whereGreaterThanOrEqualTo("tourDate", ledger.getFromDay())
+                .whereLessThanOrEqualTo("tourDate", ledger.getToDay())
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        fail(session, e);
+                        return;
+                    }
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            ledger.removeReservation(change.getDocument().getId());
+                        } else {
+                            ledger.putReservation(change.getDocument().getId(), change.getDocument().getData());
+                        }
+                    }
+                    session.reservationsLoaded = true;
+                    onChanged(session);
+                });
+
+        session.offersRegistration = db.collection(COLLECTION_TOUR_OFFERS)
+                .whereEqualTo("companyId", companyId)
+                .whereEqualTo("status", "ACEPTADA")
+                .whereGreaterThanOrEqualTo("tourDate", ledger.getFromDay())
+                .whereLessThanOrEqualTo("tourDate", ledger.getToDay())
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        fail(session, e);
+                        return;
+                    }
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            ledger.removeGuidePayment(change.getDocument().getId());
+                        } else {
+                            ledger.putGuidePayment(change.getDocument().getId(), change.getDocument().getData());
+                        }
+                    }
+                    session.offersLoaded = true;
+                    onChanged(session);
+                });
+
+        // Servicios incluidos y rating de los tours: cambian poco, basta leerlos una vez por sesión
+        db.collection(COLLECTION_TOURS)
+                .whereEqualTo("companyId", companyId)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    for (QueryDocumentSnapshot doc : snapshot) {
+                        ledger.putTour(doc.getId(), doc.getData());
+                    }
+                    session.toursLoaded = true;
+                    onChanged(session);
+                })
+                .addOnFailureListener(e -> {
+                    // Sin tours se pierde el desglose por servicio, no el reporte
+                    Log.w(TAG, "Error cargando tours de " + companyId, e);
+                    session.toursLoaded = true;
+                    onChanged(session);
+                });
+        return session;
+    }
+
+    private void onChanged(CompanySession session) {
+        if (sessions.get(session.companyId) != session || !session.isReady()) {
+            return;
+        }
+        if (!session.pending.isEmpty()) {
+            List<PendingRequest> pending = new ArrayList<>(session.pending);
+            session.pending.clear();
+            for (PendingRequest request : pending) {
+                request.callback.onSuccess(session.ledger.report(request.period));
+            }
+            return;
+        }
+        for (ReportListener listener : new ArrayList<>(session.listeners)) {
+            listener.onReportsChanged(session.companyId);
+        }
+    }
+
+    private void fail(CompanySession session, Exception e) {
+        Log.e(TAG, "Error escuchando ventas de " + session.companyId, e);
+        if (sessions.get(session.companyId) == session) {
+            release(session.companyId);
+        }
+        List<PendingRequest> pending = new ArrayList<>(session.pending);
+        session.pending.clear();
+        for (PendingRequest request : pending) {
+            request.callback.onFailure(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.droidtour.firebase;
+
+import android.util.Log;
+
+import com.example.droidtour.tracking.GpsFix;
+import com.example.droidtour.tracking.LivePosition;
+import com.example.droidtour.tracking.TrackBatcher;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seguimiento en vivo de tours en Firestore.
+ *
+ * - tour_tracking/{trackingId}: última posición conocida y datos de la sesión (una suscripción barata
+ *   para clientes y administradores).
+ * - tour_tracking/{trackingId}/segments/{auto}: tramos simplificados del recorrido.
+ *
+ * Cada lote de {@link TrackBatcher} es un WriteBatch de 2 escrituras (tramo + última posición).
+ * Índice compuesto: tour_tracking (companyId ASC, active ASC).
+ */
+public class TourTrackingManager {
+    private static final String TAG = "TourTrackingManager";
+    private static final String COLLECTION_TOUR_TRACKING = "tour_tracking";
+    private static final String SUBCOLLECTION_SEGMENTS = "segments";
+
+    public static final int WRITES_PER_BATCH = 2;
+
+    private static TourTrackingManager instance;
+    private final FirebaseFirestore db;
+
+    private TourTrackingManager() {
+        this.db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized TourTrackingManager getInstance() {
+        if (instance == null) {
+            instance = new TourTrackingManager();
+        }
+        return instance;
+    }
+
+    private DocumentReference trackingRef(String trackingId) {
+        return db.collection(COLLECTION_TOUR_TRACKING).document(trackingId);
+    }
+
+    // ==================== ESCRITURA (GUÍA) ====================
+
+    /**
+     * Marcar el tour como en curso con los datos de la sesión
+     */
+    public void startSession(String trackingId, Map<String, Object> sessionFields, FirestoreManager.FirestoreCallback callback) {
+        Map<String, Object> data = new HashMap<>(sessionFields);
+        data.put("startedAt", FieldValue.serverTimestamp());
+        trackingRef(trackingId).set(data, SetOptions.merge())
+                .addOnSuccessListener(unused -> callback.onSuccess(trackingId))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error iniciando seguimiento " + trackingId, e);
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Subir un lote: tramo simplificado + última posición, en un solo WriteBatch
+     */
+    public void uploadBatch(String trackingId, TrackBatcher.Batch batch, boolean stationary,
+                            TrackBatcher.UploadCallback callback) {
+        DocumentReference tracking = trackingRef(trackingId);
+        WriteBatch writeBatch = db.batch();
+
+        if (!batch.getPoints().isEmpty()) {
+            List<Map<String, Object>> points = new ArrayList<>();
+            for (GpsFix fix : batch.getPoints()) {
+                points.add(fix.toMap());
+            }
+            Map<String, Object> segment = new HashMap<>();
+            segment.put("points", points);
+            segment.put("rawCount", batch.getRawCount());
+            segment.put("from", batch.getPoints().get(0).getTime());
+            segment.put("to", batch.getPoints().get(batch.getPoints().size() - 1).getTime());
+            segment.put("createdAt", FieldValue.serverTimestamp());
+            writeBatch.set(tracking.collection(SUBCOLLECTION_SEGMENTS).document(), segment);
+        }
+
+        Map<String, Object> position = LivePosition.positionFields(batch.getLast(), stationary);
+        position.put(LivePosition.FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        writeBatch.set(tracking, position, SetOptions.merge());
+
+        writeBatch.commit()
+                .addOnSuccessListener(unused -> callback.onUploaded())
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Error subiendo lote de " + trackingId, e);
+                    callback.onFailed(e);
+                });
+    }
+
+    public void endSession(String trackingId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(LivePosition.FIELD_ACTIVE, false);
+        updates.put("endedAt", FieldValue.serverTimestamp());
+        trackingRef(trackingId).set(updates, SetOptions.merge())
+                .addOnFailureListener(e -> Log.e(TAG, "Error cerrando seguimiento " + trackingId, e));
+    }
+
+    // ==================== LECTURA (CLIENTE / ADMIN) ====================
+
+    /**
+     * Escuchar la última posición de un tour; onSuccess recibe un {@link LivePosition} en cada cambio
+     */
+    public ListenerRegistration listenToTour(String trackingId, FirestoreManager.FirestoreCallback callback) {
+        return trackingRef(trackingId).addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Error escuchando " + trackingId, e);
+                callback.onFailure(e);
+                return;
+            }
+            callback.onSuccess(LivePosition.fromData(trackingId, snapshot != null ? snapshot.getData() : null));
+        });
+    }
+
+    /**
+     * Escuchar los tours en curso de una empresa; onSuccess recibe List&lt;LivePosition&gt;
+     */
+    public ListenerRegistration listenToActiveTours(String companyId, FirestoreManager.FirestoreCallback callback) {
+        return db.collection(COLLECTION_TOUR_TRACKING)
+                .whereEqualTo(LivePosition.FIELD_COMPANY_ID, companyId)
+                .whereEqualTo(LivePosition.FIELD_ACTIVE, true)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Error escuchando tours activos de " + companyId, e);
+                        callback.onFailure(e);
+                        return;
+                    }
+                    List<LivePosition> positions = new ArrayList<>();
+                    for (QueryDocumentSnapshot doc : snapshot) {
+                        positions.add(LivePosition.fromData(doc.getId(), doc.getData()));
+                    }
+                    callback.onSuccess(positions);
+                });
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.droidtour.firebase;
+
+import com.example.droidtour.models.User;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Convierte documentos de users en {@link User} normalizando una sola vez los campos antiguos
+ * (displayName, photoURL/photoUrl, status), para que las listas no repitan los fallbacks al pintar.
+ */
+public final class UserMapper {
+
+    private UserMapper() {}
+
+    public static User fromDocument(DocumentSnapshot document) {
+        User user = document.toObject(User.class);
+        if (user == null) {
+            user = new User();
+        }
+        Map<String, Object> data = document.getData();
+        normalize(user, document.getId(), data);
+        return user;
+    }
+
+    /**
+     * Completar los campos vacíos de user con sus equivalentes antiguos de data
+     */
+    static void normalize(User user, String documentId, Map<String, Object> data) {
+        if (data == null) {
+            data = new HashMap<>();
+        }
+
+        // Document ID -> userId si falta
+        if (isEmpty(user.getUserId())) {
+            user.setUserId(documentId);
+        }
+
+        if (isEmpty(user.getEmail())) {
+            String email = firstString(data, "email");
+            if (email != null) user.setEmail(email);
+        }
+
+        // Nombre: fullName, luego displayName (legacy), luego firstName + lastName
+        if (isEmpty(user.getFullName())) {
+            String displayName = firstString(data, "displayName");
+            if (displayName != null) {
+                user.setFullName(displayName);
+            } else if (user.getFirstName() != null || user.getLastName() != null) {
+                String fn = user.getFirstName() != null ? user.getFirstName() : "";
+                String ln = user.getLastName() != null ? user.getLastName() : "";
+                String combined = (fn + " " + ln).trim();
+                if (!combined.isEmpty()) user.setFullName(combined);
+            }
+        }
+
+        // Foto: profileImageUrl, photoURL (legacy), photoUrl
+        if (isEmpty(user.getProfileImageUrl())) {
+            String photo = firstString(data, "profileImageUrl", "photoURL", "photoUrl");
+            if (photo != null) user.setProfileImageUrl(photo);
+        }
+
+        if (isEmpty(user.getUserType())) {
+            String userType = firstString(data, "userType");
+            if (userType != null) user.setUserType(userType);
+        }
+
+        // isActive: campo booleano o inferido de status
+        if (user.getActive() == null) {
+            Object active = data.get("isActive");
+            if (active instanceof Boolean) {
+                user.setActive((Boolean) active);
+            } else {
+                String status = firstString(data, "status");
+                user.setActive(status == null || "active".equalsIgnoreCase(status));
+            }
+        }
+    }
+
+    private static String firstString(Map<String, Object> data, String... keys) {
+        for (String key : keys) {
+            Object value = data.get(key);
+            if (value != null) return String.valueOf(value);
+        }
+        return null;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.droidtour.firebase;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estado de guía (user_roles/{userId}) de muchos usuarios a la vez.
+ * Usa {@link BatchedDocumentLookup}: bloques de 30 IDs con whereIn(documentId) en paralelo y caché
+ * con TTL, en lugar de un get() por guía.
+ */
+public class UserRoleResolver {
+    private static final String TAG = "UserRoleResolver";
+    private static final String COLLECTION_USER_ROLES = "user_roles";
+
+    public static final long DEFAULT_TTL_MS = 5 * 60 * 1000L;
+
+    private static UserRoleResolver instance;
+
+    private final BatchedDocumentLookup<String> guideStatuses;
+
+    private UserRoleResolver() {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        guideStatuses = new BatchedDocumentLookup<>((ids, listener) ->
+                db.collection(COLLECTION_USER_ROLES)
+                        .whereIn(FieldPath.documentId(), ids)
+                        .get()
+                        .addOnSuccessListener(querySnapshot -> {
+                            Map<String, Map<String, Object>> documents = new HashMap<>();
+                            for (QueryDocumentSnapshot doc : querySnapshot) {
+                                documents.put(doc.getId(), doc.getData());
+                            }
+                            listener.onFetched(documents);
+                        })
+                        .addOnFailureListener(listener::onError),
+                UserRoleResolver::guideStatusOf, DEFAULT_TTL_MS);
+    }
+
+    public static synchronized UserRoleResolver getInstance() {
+        if (instance == null) {
+            instance = new UserRoleResolver();
+        }
+        return instance;
+    }
+
+    /**
+     * Estado de guía por userId ("pending", "active", ...). onSuccess recibe Map&lt;String, String&gt;
+     * sin los usuarios que no tienen rol de guía. Si algún bloque falla se devuelve lo resuelto igual.
+     */
+    public void resolveGuideStatuses(Collection<String> userIds, FirestoreManager.FirestoreCallback callback) {
+        guideStatuses.resolve(userIds, result -> {
+            Log.d(TAG, "Roles de guía: " + result.getValues().size() + " resueltos, "
+                    + result.getCacheHits() + " desde caché, " + result.getQueries() + " consultas");
+            if (!result.isSuccessful()) {
+                Log.w(TAG, "Bloques de user_roles fallidos: " + result.getFailures().size(), result.getFailures().get(0));
+            }
+            callback.onSuccess(result.getValues());
+        });
+    }
+
+    /**
+     * Olvidar el estado cacheado de un usuario después de escribir su user_roles
+     */
+    public void invalidate(String userId) {
+        guideStatuses.invalidate(userId);
+    }
+
+    /**
+     * Olvidar todos los estados cacheados (recarga manual: el próximo resolve lee user_roles)
+     */
+    public void invalidateAll() {
+        guideStatuses.clear();
+    }
+
+    /**
+     * El estado de guía puede estar en "guide.status" o en "roles.guide.status" (estructura antigua)
+     */
+    static String guideStatusOf(Map<String, Object> roleDocument) {
+        Object guide = roleDocument.get("guide");
+        if (!(guide instanceof Map)) {
+            Object roles = roleDocument.get("roles");
+            guide = roles instanceof Map ? ((Map<?, ?>) roles).get("guide") : null;
+        }
+        if (guide instanceof Map) {
+            Object status = ((Map<?, ?>) guide).get("status");
+            return status != null ? String.valueOf(status) : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.droidtour.guides;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cambio en los días ocupados de los guías cuando una reserva o una oferta pasa de before a after
+ * (null = no existía / se borró).
+ *
+ * Se guarda en guide_availability/{guideId} como contadores por día ("days" -> yyyy-MM-dd -> n):
+ * cada escritura suma su delta con FieldValue.increment en el mismo batch o transacción, así el
+ * documento no necesita leerse antes y solo dice qué días está ocupado el guía, sin datos de la
+ * reserva. {@link GuideAvailabilityIndex#setBookedDays} arma el bitmap desde esos contadores.
+ * Los contadores de "days" se convierten en FieldValue.increment al escribir.
+ *
+ * No depende de Android ni de Firebase para poder probarse en la JVM.
+ */
+public class GuideAvailabilityDelta {
+
+    public static final String FIELD_GUIDE_ID = "guideId";
+    public static final String FIELD_DAYS = "days";
+
+    public static final String OFFER_ACCEPTED = "ACEPTADA";
+    public static final String RESERVATION_CANCELLED = "CANCELADA";
+    public static final String RESERVATION_COMPLETED = "COMPLETADA";
+
+    // guideId -> fecha -> delta
+    private final Map<String, Map<String, Long>> byGuide = new LinkedHashMap<>();
+
+    /** Una reserva ocupa al guía ese día mientras no esté cancelada ni completada */
+    public static GuideAvailabilityDelta reservationDelta(Map<String, Object> before, Map<String, Object> after) {
+        GuideAvailabilityDelta delta = new GuideAvailabilityDelta();
+        if (reservationOccupies(before)) delta.add(before, -1);
+        if (reservationOccupies(after)) delta.add(after, 1);
+        return delta;
+    }
+
+    /** Una oferta ocupa al guía ese día solo si está aceptada */
+    public static GuideAvailabilityDelta offerDelta(Map<String, Object> before, Map<String, Object> after) {
+        GuideAvailabilityDelta delta = new GuideAvailabilityDelta();
+        if (offerOccupies(before)) delta.add(before, -1);
+        if (offerOccupies(after)) delta.add(after, 1);
+        return delta;
+    }
+
+    private static boolean reservationOccupies(Map<String, Object> data) {
+        if (!hasGuideAndDate(data)) return false;
+        Object status = data.get("status");
+        return !RESERVATION_CANCELLED.equals(status) && !RESERVATION_COMPLETED.equals(status);
+    }
+
+    private static boolean offerOccupies(Map<String, Object> data) {
+        return hasGuideAndDate(data) && OFFER_ACCEPTED.equals(data.get("status"));
+    }
+
+    private static boolean hasGuideAndDate(Map<String, Object> data) {
+        if (data == null) return false;
+        Object guideId = data.get(FIELD_GUIDE_ID);
+        Object tourDate = data.get("tourDate");
+        return guideId instanceof String && !((String) guideId).isEmpty()
+                && tourDate instanceof String
+                && GuideAvailabilityIndex.parseEpochDay((String) tourDate) != Long.MIN_VALUE;
+    }
+
+    private void add(Map<String, Object> data, long sign) {
+        add((String) data.get(FIELD_GUIDE_ID), ((String) data.get("tourDate")).substring(0, 10), sign);
+    }
+
+    private void add(String guideId, String date, long amount) {
+        Map<String, Long> days = byGuide.get(guideId);
+        if (days == null) {
+            days = new HashMap<>();
+            byGuide.put(guideId, days);
+        }
+        long value = days.getOrDefault(date, 0L) + amount;
+        if (value == 0) {
+            days.remove(date);
+            if (days.isEmpty()) byGuide.remove(guideId);
+        } else {
+            days.put(date, value);
+        }
+    }
+
+    public boolean isEmpty() {
+        return byGuide.isEmpty();
+    }
+
+    /** Guías cuyo documento cambia (como mucho dos: el de antes y el de después) */
+    public Set<String> getGuideIds() {
+        return byGuide.keySet();
+    }
+
+    /** Delta por día (yyyy-MM-dd) del guía; vacío si no cambia */
+    public Map<String, Long> getDays(String guideId) {
+        Map<String, Long> days = byGuide.get(guideId);
+        return days != null ? new HashMap<>(days) : new HashMap<>();
+    }
+
+    /**
+     * Sumar otro delta a este (p. ej. para contar todas las reservas existentes en la migración)
+     */
+    public void merge(GuideAvailabilityDelta other) {
+        for (Map.Entry<String, Map<String, Long>> guide : other.byGuide.entrySet()) {
+            for (Map.Entry<String, Long> day : guide.getValue().entrySet()) {
+                add(guide.getKey(), day.getKey(), day.getValue());
+            }
+        }
+    }
+
+    /**
+     * Restar los contadores que ya tiene guardados un guía (yyyy-MM-dd -> n), para que sumar el
+     * resultado deje el documento en los totales de este delta
+     */
+    public void subtractStored(String guideId, Map<String, ?> storedDays) {
+        if (storedDays == null) return;
+        for (Map.Entry<String, ?> day : storedDays.entrySet()) {
+            if (day.getValue() instanceof Number) {
+                add(guideId, day.getKey(), -((Number) day.getValue()).longValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.droidtour.guides;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de disponibilidad de guías para buscar por rango de fechas e idiomas sin recorrer sus
+ * reservas y ofertas.
+ *
+ * - Por guía: un bitmap de días ocupados sobre un horizonte fijo (un bit por día, 6 long para un
+ *   año) y un bitset de idiomas. Todo en arreglos paralelos indexados por slot.
+ * - Una búsqueda arma la máscara del rango una vez y por guía hace un AND con sus idiomas y con las
+ *   palabras del bitmap que cubre el rango; los que pasan se ordenan por rating.
+ * - Las ocupaciones se registran por origen (una oferta aceptada, una reserva) y se cuentan por día:
+ *   quitar una no libera el día si otra lo sigue ocupando. Pueden llegar antes que el guía.
+ * - {@link #setBookedDays} carga de una vez los días de un documento guide_availability/{guideId}
+ *   (ver {@link GuideAvailabilityDelta}), reemplazando lo que ese documento había registrado.
+ *
+ * No es thread-safe: se usa desde el hilo principal.
+ */
+public class GuideAvailabilityIndex {
+
+    /** Idiomas distintos que caben en el bitset; los demás no se pueden buscar */
+    public static final int MAX_LANGUAGES = 64;
+
+    private static final Map<String, String> LANGUAGE_ALIASES = new HashMap<>();
+
+    static {
+        alias("es", "español", "espanol", "spanish");
+        alias("en", "inglés", "ingles", "english");
+        alias("fr", "francés", "frances", "french");
+        alias("de", "alemán", "aleman", "german");
+        alias("pt", "portugués", "portugues", "portuguese");
+        alias("it", "italiano", "italian");
+        alias("qu", "quechua");
+        alias("zh", "chino", "chinese");
+        alias("ja", "japonés", "japones", "japanese");
+    }
+
+    private static void alias(String code, String... names) {
+        for (String name : names) {
+            LANGUAGE_ALIASES.put(name, code);
+        }
+    }
+
+    private static class Booking {
+        final String guideId;
+        final int day;
+
+        Booking(String guideId, int day) {
+            this.guideId = guideId;
+            this.day = day;
+        }
+    }
+
+    private final long startEpochDay;
+    private final int days;
+    private final int words;
+
+    // Guías, por slot
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private String[] guideIds = new String[64];
+    private long[] languageBits = new long[64];
+    private float[] ratings = new float[64];
+    private long[] booked;
+    private int slotCount;
+
+    // Ocupaciones, por origen y por guía/día
+    private final Map<String, Booking> bookings = new HashMap<>();
+    private final Map<String, Map<Integer, Integer>> dayCounts = new HashMap<>();
+    // Orígenes registrados desde el documento de disponibilidad de cada guía
+    private final Map<String, Set<String>> daySources = new HashMap<>();
+
+    private final Map<String, Integer> languageIndex = new HashMap<>();
+
+    /**
+     * @param startEpochDay primer día del horizonte ({@code LocalDate.toEpochDay()})
+     * @param days          largo del horizonte; los días fuera no se registran ni se pueden buscar
+     */
+    public GuideAvailabilityIndex(long startEpochDay, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Horizonte vacío");
+        }
+        this.startEpochDay = startEpochDay;
+        this.days = days;
+        this.words = (days + 63) >>> 6;
+        this.booked = new long[guideIds.length * words];
+    }
+
+    public long getStartEpochDay() { return startEpochDay; }
+    public int getDays() { return days; }
+    public int getGuideCount() { return slots.size(); }
+
+    // ==================== GUÍAS ====================
+
+    /** Agregar o actualizar un guía; conserva sus días ocupados */
+    public void putGuide(String guideId, Collection<String> languages, float rating) {
+        Integer slot = slots.get(guideId);
+        if (slot == null) {
+            slot = allocateSlot();
+            slots.put(guideId, slot);
+            guideIds[slot] = guideId;
+            rebuildBitmap(guideId, slot);
+        }
+        languageBits[slot] = languageMask(languages);
+        ratings[slot] = rating;
+    }
+
+    /** Quitar un guía (deja de aparecer); sus ocupaciones se conservan por si vuelve */
+    public void removeGuide(String guideId) {
+        Integer slot = slots.remove(guideId);
+        if (slot == null) return;
+        guideIds[slot] = null;
+        languageBits[slot] = 0;
+        ratings[slot] = 0;
+        Arrays.fill(booked, slot * words, (slot + 1) * words, 0L);
+        freeSlots.push(slot);
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        if (slotCount == guideIds.length) {
+            int capacity = guideIds.length * 2;
+            guideIds = Arrays.copyOf(guideIds, capacity);
+            languageBits = Arrays.copyOf(languageBits, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            booked = Arrays.copyOf(booked, capacity * words);
+        }
+        return slotCount++;
+    }
+
+    private void rebuildBitmap(String guideId, int slot) {
+        Arrays.fill(booked, slot * words, (slot + 1) * words, 0L);
+        Map<Integer, Integer> counts = dayCounts.get(guideId);
+        if (counts == null) return;
+        for (int day : counts.keySet()) {
+            setBit(slot, day);
+        }
+    }
+
+    // ==================== OCUPACIONES ====================
+
+    /**
+     * Registrar que {@code sourceId} (p. ej. "offer:ID" o "reservation:ID") ocupa al guía ese día
+     * (yyyy-MM-dd). Si el origen ya estaba registrado, se mueve. Fechas inválidas o fuera del
+     * horizonte solo quitan el registro anterior.
+     */
+    public void putBooking(String sourceId, String guideId, String date) {
+        removeBooking(sourceId);
+        if (guideId == null || guideId.isEmpty()) return;
+        long epochDay = parseEpochDay(date);
+        if (epochDay == Long.MIN_VALUE) return;
+        long day = epochDay - startEpochDay;
+        if (day < 0 || day >= days) return;
+
+        bookings.put(sourceId, new Booking(guideId, (int) day));
+        Map<Integer, Integer> counts = dayCounts.get(guideId);
+        if (counts == null) {
+            counts = new HashMap<>();
+            dayCounts.put(guideId, counts);
+        }
+        Integer previous = counts.put((int) day, counts.getOrDefault((int) day, 0) + 1);
+        Integer slot = slots.get(guideId);
+        if (previous == null && slot != null) {
+            setBit(slot, (int) day);
+        }
+    }
+
+    /**
+     * Reemplazar los días ocupados que vienen del documento de disponibilidad del guía
+     * (yyyy-MM-dd -> reservas y ofertas activas ese día). Los días con 0 o menos están libres;
+     * days null quita todo lo que ese documento había registrado.
+     */
+    public void setBookedDays(String guideId, Map<String, ?> days) {
+        Set<String> previous = daySources.remove(guideId);
+        if (previous != null) {
+            for (String sourceId : previous) {
+                removeBooking(sourceId);
+            }
+        }
+        if (days == null) return;
+        Set<String> sources = new HashSet<>();
+        for (Map.Entry<String, ?> entry : days.entrySet()) {
+            Object count = entry.getValue();
+            if (!(count instanceof Number) || ((Number) count).longValue() <= 0) continue;
+            String sourceId = "day:" + guideId + ":" + entry.getKey();
+            putBooking(sourceId, guideId, entry.getKey());
+            if (bookings.containsKey(sourceId)) sources.add(sourceId);
+        }
+        if (!sources.isEmpty()) {
+            daySources.put(guideId, sources);
+        }
+    }
+
+    public void removeBooking(String sourceId) {
+        Booking booking = bookings.remove(sourceId);
+        if (booking == null) return;
+        Map<Integer, Integer> counts = dayCounts.get(booking.guideId);
+        int remaining = counts.get(booking.day) - 1;
+        if (remaining > 0) {
+            counts.put(booking.day, remaining);
+            return;
+        }
+        counts.remove(booking.day);
+        if (counts.isEmpty()) {
+            dayCounts.remove(booking.guideId);
+        }
+        Integer slot = slots.get(booking.guideId);
+        if (slot != null) {
+            booked[slot * words + (booking.day >>> 6)] &= ~(1L << (booking.day & 63));
+        }
+    }
+
+    public boolean isBooked(String guideId, long epochDay) {
+        Integer slot = slots.get(guideId);
+        long day = epochDay - startEpochDay;
+        if (slot == null || day < 0 || day >= days) return false;
+        return (booked[slot * words + (int) (day >>> 6)] & (1L << (day & 63))) != 0;
+    }
+
+    private void setBit(int slot, int day) {
+        booked[slot * words + (day >>> 6)] |= 1L << (day & 63);
+    }
+
+    // ==================== BÚSQUEDA ====================
+
+    /**
+     * Guías que hablan todos los idiomas pedidos y no tienen ningún día ocupado en
+     * [fromEpochDay, toEpochDay], de mayor a menor rating (a igual rating, por id).
+     *
+     * @throws IllegalArgumentException si el rango está vacío o sale del horizonte
+     */
+    public List<String> findAvailable(long fromEpochDay, long toEpochDay, Collection<String> languages, int limit) {
+        long from = fromEpochDay - startEpochDay;
+        long to = toEpochDay - startEpochDay;
+        if (from < 0 || to >= days || from > to) {
+            throw new IllegalArgumentException("Rango fuera del horizonte de disponibilidad");
+        }
+        long required = 0;
+        if (languages != null) {
+            for (String language : languages) {
+                Integer bit = languageIndex.get(normalizeLanguage(language));
+                if (bit == null) {
+                    return new ArrayList<>();   // ningún guía lo habla
+                }
+                required |= 1L << bit;
+            }
+        }
+
+        int firstWord = (int) (from >>> 6);
+        int lastWord = (int) (to >>> 6);
+        long[] mask = new long[lastWord - firstWord + 1];
+        for (int w = firstWord; w <= lastWord; w++) {
+            long bits = -1L;
+            if (w == firstWord) bits &= -1L << (from & 63);
+            if (w == lastWord) bits &= -1L >>> (63 - (to & 63));
+            mask[w - firstWord] = bits;
+        }
+
+        int[] found = new int[slotCount];
+        int count = 0;
+        scan:
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (guideIds[slot] == null || (languageBits[slot] & required) != required) continue;
+            int base = slot * words + firstWord;
+            for (int w = 0; w < mask.length; w++) {
+                if ((booked[base + w] & mask[w]) != 0) continue scan;
+            }
+            found[count++] = slot;
+        }
+
+        Integer[] ranked = new Integer[count];
+        for (int i = 0; i < count; i++) ranked[i] = found[i];
+        Arrays.sort(ranked, (a, b) -> {
+            int byRating = Float.compare(ratings[b], ratings[a]);
+            return byRating != 0 ? byRating : guideIds[a].compareTo(guideIds[b]);
+        });
+        List<String> result = new ArrayList<>(Math.min(count, limit));
+        for (int i = 0; i < count && i < limit; i++) {
+            result.add(guideIds[ranked[i]]);
+        }
+        return result;
+    }
+
+    // ==================== IDIOMAS ====================
+
+    /** Código normalizado: "ES", "Español" y " es " son "es" */
+    public static String normalizeLanguage(String language) {
+        String key = language.trim().toLowerCase(Locale.ROOT);
+        String code = LANGUAGE_ALIASES.get(key);
+        return code != null ? code : key;
+    }
+
+    /** Bitset de los idiomas de un guía; los idiomas nuevos reciben el siguiente bit libre */
+    private long languageMask(Collection<String> languages) {
+        long mask = 0;
+        if (languages == null) return mask;
+        for (String language : languages) {
+            if (language == null || language.trim().isEmpty()) continue;
+            String code = normalizeLanguage(language);
+            Integer bit = languageIndex.get(code);
+            if (bit == null) {
+                if (languageIndex.size() == MAX_LANGUAGES) continue;
+                bit = languageIndex.size();
+                languageIndex.put(code, bit);
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    // ==================== FECHAS ====================
+
+    /** Día (epoch) de una fecha yyyy-MM-dd, o Long.MIN_VALUE si no es válida */
+    public static long parseEpochDay(String date) {
+        if (date == null || date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
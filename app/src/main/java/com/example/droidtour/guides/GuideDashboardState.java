@@ -0,0 +1,218 @@
+package com.example.droidtour.guides;
+
+import com.example.droidtour.models.Reservation;
+import com.example.droidtour.models.TourOffer;
+import com.example.droidtour.models.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Estado en memoria del dashboard del guía (TourGuideMainActivity): perfil, ofertas pendientes,
+ * próximos tours, tour en curso, tours completados y ganancias del mes. Cada tarjeta se pinta
+ * desde aquí; las partes llegan por separado y null indica que aún no se cargó.
+ *
+ * Las fechas (tourDate) son "yyyy-MM-dd" y se comparan como texto.
+ */
+public class GuideDashboardState {
+
+    public static final String OFFER_PENDING = "PENDIENTE";
+    public static final String RESERVATION_CONFIRMED = "CONFIRMADA";
+    public static final String RESERVATION_SCHEDULED = "PROGRAMADA";
+    public static final String RESERVATION_IN_PROGRESS = "EN_PROGRESO";
+    public static final String RESERVATION_COMPLETED = "COMPLETADA";
+
+    private static final Comparator<Reservation> BY_DATE = Comparator
+            .comparing(Reservation::getTourDate, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing(Reservation::getTourTime, Comparator.nullsLast(Comparator.<String>naturalOrder()));
+
+    private final String guideId;
+    private final String today;
+
+    private User profile;
+    private boolean profileLoaded;
+    private List<TourOffer> pendingOffers;
+    private List<Reservation> upcomingTours;
+    private Reservation activeTour;
+    private Integer completedTours;
+    private Double monthEarnings;
+    private int reads;
+
+    public GuideDashboardState(String guideId, String today) {
+        this.guideId = guideId;
+        this.today = today;
+    }
+
+    // ==================== ACTUALIZACIONES ====================
+
+    /** user puede ser null si el perfil no se pudo leer */
+    public void setProfile(User user) {
+        this.profile = user;
+        this.profileLoaded = true;
+    }
+
+    /** Ofertas pendientes, la más reciente primero */
+    public void setPendingOffers(List<TourOffer> offers) {
+        List<TourOffer> pending = new ArrayList<>();
+        for (TourOffer offer : offers) {
+            if (OFFER_PENDING.equals(offer.getStatus())) {
+                pending.add(offer);
+            }
+        }
+        pending.sort((a, b) -> {
+            if (a.getCreatedAt() != null && b.getCreatedAt() != null) {
+                return b.getCreatedAt().compareTo(a.getCreatedAt());
+            }
+            return 0;
+        });
+        this.pendingOffers = Collections.unmodifiableList(pending);
+    }
+
+    /** Quitar una oferta que se acaba de aceptar o rechazar sin esperar a la nueva lectura */
+    public void removeOffer(String offerId) {
+        if (pendingOffers == null || offerId == null) return;
+        List<TourOffer> remaining = new ArrayList<>();
+        for (TourOffer offer : pendingOffers) {
+            if (!offerId.equals(offer.getOfferId())) {
+                remaining.add(offer);
+            }
+        }
+        this.pendingOffers = Collections.unmodifiableList(remaining);
+    }
+
+    /**
+     * Reservas vigentes del guía: las confirmadas/programadas desde hoy van a "próximos tours" por
+     * fecha, y la primera EN_PROGRESO es el tour activo.
+     */
+    public void setReservations(List<Reservation> reservations) {
+        List<Reservation> sorted = new ArrayList<>(reservations);
+        sorted.sort(BY_DATE);
+
+        List<Reservation> upcoming = new ArrayList<>();
+        Reservation active = null;
+        for (Reservation reservation : sorted) {
+            String status = reservation.getStatus();
+            if (RESERVATION_IN_PROGRESS.equals(status)) {
+                if (active == null) active = reservation;
+            } else if (RESERVATION_CONFIRMED.equals(status) || RESERVATION_SCHEDULED.equals(status)) {
+                String date = reservation.getTourDate();
+                if (date == null || date.compareTo(today) >= 0) {
+                    upcoming.add(reservation);
+                }
+            }
+        }
+        this.upcomingTours = Collections.unmodifiableList(upcoming);
+        this.activeTour = active;
+    }
+
+    public void setCompletedTours(int count) {
+        this.completedTours = count;
+    }
+
+    /** Ganancias del mes: suma de totalPrice de las reservas completadas */
+    public void setMonthCompleted(List<Reservation> completed) {
+        double total = 0;
+        for (Reservation reservation : completed) {
+            if (RESERVATION_COMPLETED.equals(reservation.getStatus()) && reservation.getTotalPrice() != null) {
+                total += reservation.getTotalPrice();
+            }
+        }
+        this.monthEarnings = total;
+    }
+
+    /** Sumar lecturas de Firestore hechas para este estado (documentos + agregados) */
+    public void addReads(int count) {
+        this.reads += count;
+    }
+
+    // ==================== LECTURA ====================
+
+    public String getGuideId() {
+        return guideId;
+    }
+
+    public String getToday() {
+        return today;
+    }
+
+    public boolean isProfileLoaded() {
+        return profileLoaded;
+    }
+
+    public User getProfile() {
+        return profile;
+    }
+
+    /** Nombre + apellido (dos primeros tokens) para el header del drawer, o null sin perfil */
+    public String getDisplayName() {
+        if (profile == null) return null;
+        String fullName = profile.getFullName() != null ? profile.getFullName()
+                : (profile.getFirstName() + " " + profile.getLastName());
+        String[] parts = fullName.trim().split("\\s+");
+        if (parts.length >= 2) return parts[0] + " " + parts[1];
+        return parts[0].isEmpty() ? null : parts[0];
+    }
+
+    public float getRating() {
+        Float rating = profile != null ? profile.getGuideRating() : null;
+        return rating != null && rating > 0 ? rating : 0f;
+    }
+
+    public List<TourOffer> getPendingOffers() {
+        return pendingOffers;
+    }
+
+    public boolean isReservationsLoaded() {
+        return upcomingTours != null;
+    }
+
+    public List<Reservation> getUpcomingTours() {
+        return upcomingTours;
+    }
+
+    public Reservation getActiveTour() {
+        return activeTour;
+    }
+
+    /**
+     * Línea de la tarjeta del tour en curso con lo que trae la reserva (hora, grupo y check-in),
+     * p. ej. "🕐 08:00 • 4 personas • Check-in hecho". null si no hay tour activo o no hay datos.
+     */
+    public String getActiveTourProgress() {
+        if (activeTour == null) return null;
+        List<String> parts = new ArrayList<>();
+        if (activeTour.getTourTime() != null && !activeTour.getTourTime().isEmpty()) {
+            parts.add("🕐 " + activeTour.getTourTime());
+        }
+        Integer people = activeTour.getNumberOfPeople();
+        if (people != null && people > 0) {
+            parts.add(people + (people == 1 ? " persona" : " personas"));
+        }
+        if (Boolean.TRUE.equals(activeTour.getHasCheckedIn())) {
+            parts.add("Check-in hecho");
+        } else if (activeTour.getHasCheckedIn() != null) {
+            parts.add("Check-in pendiente");
+        }
+        return parts.isEmpty() ? null : String.join(" • ", parts);
+    }
+
+    public Integer getCompletedTours() {
+        return completedTours;
+    }
+
+    public Double getMonthEarnings() {
+        return monthEarnings;
+    }
+
+    public int getReads() {
+        return reads;
+    }
+
+    /** Todas las tarjetas tienen datos */
+    public boolean isComplete() {
+        return profileLoaded && pendingOffers != null && upcomingTours != null
+                && completedTours != null && monthEarnings != null;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.droidtour.images;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ejecuta subidas con un máximo de maxConcurrent a la vez y suma su progreso.
+ *
+ * - Lanzar todas juntas no sube más rápido (el ancho de banda es el mismo) y retiene a la vez los
+ *   bytes de todas; una a la vez desperdicia la latencia de cada petición. 2–3 en paralelo basta.
+ * - El progreso total es el promedio del avance de cada subida, así es monótono aunque el tamaño
+ *   de cada archivo solo se conozca al procesarlo.
+ * - Los resultados se entregan en el orden de las tareas. Ante el primer fallo no se lanzan más
+ *   tareas y se avisa una sola vez.
+ *
+ * No es thread-safe: las tareas deben avisar en el hilo que llamó a {@link #start}.
+ */
+public class BoundedUploadQueue<R> {
+
+    public interface TaskListener<R> {
+        void onProgress(long bytesTransferred, long totalBytes);
+        void onSuccess(R result);
+        void onFailure(Exception e);
+    }
+
+    public interface Task<R> {
+        void start(TaskListener<R> listener);
+    }
+
+    public interface Listener<R> {
+        /** percent 0..100; bytes de las subidas ya empezadas */
+        void onProgress(int percent, long bytesTransferred, long totalBytes);
+        void onComplete(List<R> results);
+        void onFailure(Exception e);
+    }
+
+    private final int maxConcurrent;
+
+    private List<Task<R>> tasks;
+    private Listener<R> listener;
+    private List<R> results;
+    private long[] transferred;
+    private long[] totals;
+    private boolean[] finished;
+    private int nextTask;
+    private int running;
+    private int completed;
+    private int peakRunning;
+    private boolean failed;
+    private int lastPercent = -1;
+
+    public BoundedUploadQueue(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent debe ser al menos 1");
+        }
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public void start(List<Task<R>> tasks, Listener<R> listener) {
+        if (this.tasks != null) {
+            throw new IllegalStateException("La cola ya se inició");
+        }
+        this.tasks = new ArrayList<>(tasks);
+        this.listener = listener;
+        this.results = new ArrayList<>(Collections.nCopies(tasks.size(), (R) null));
+        this.transferred = new long[tasks.size()];
+        this.totals = new long[tasks.size()];
+        this.finished = new boolean[tasks.size()];
+        if (tasks.isEmpty()) {
+            listener.onComplete(results);
+            return;
+        }
+        launchNext();
+    }
+
+    /** Máximo de subidas simultáneas que hubo (para verificar el límite) */
+    public int getPeakRunning() {
+        return peakRunning;
+    }
+
+    private void launchNext() {
+        while (!failed && running < maxConcurrent && nextTask < tasks.size()) {
+            int index = nextTask++;
+            running++;
+            peakRunning = Math.max(peakRunning, running);
+            tasks.get(index).start(new TaskListener<R>() {
+                private boolean done;
+
+                @Override
+                public void onProgress(long bytesTransferred, long totalBytes) {
+                    if (done || failed) return;
+                    transferred[index] = bytesTransferred;
+                    totals[index] = totalBytes;
+                    reportProgress();
+                }
+
+                @Override
+                public void onSuccess(R result) {
+                    if (done) return;
+                    done = true;
+                    running--;
+                    if (failed) return;
+                    results.set(index, result);
+                    transferred[index] = totals[index];
+                    finished[index] = true;
+                    completed++;
+                    reportProgress();
+                    if (completed == tasks.size()) {
+                        listener.onComplete(results);
+                    } else {
+                        launchNext();
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    if (done) return;
+                    done = true;
+                    running--;
+                    if (failed) return;
+                    failed = true;
+                    listener.onFailure(e);
+                }
+            });
+        }
+    }
+
+    private void reportProgress() {
+        double sum = 0;
+        long bytes = 0;
+        long total = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (finished[i]) {
+                sum += 1.0;
+            } else if (totals[i] > 0) {
+                sum += Math.min(1.0, (double) transferred[i] / totals[i]);
+            }
+            bytes += transferred[i];
+            total += totals[i];
+        }
+        int percent = (int) Math.floor(100.0 * sum / tasks.size());
+        if (percent != lastPercent || completed == tasks.size()) {
+            lastPercent = percent;
+            listener.onProgress(percent, bytes, total);
+        }
+    }
+}
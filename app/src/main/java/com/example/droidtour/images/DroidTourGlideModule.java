@@ -0,0 +1,61 @@
+package com.example.droidtour.images;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+import com.example.droidtour.BuildConfig;
+
+import java.io.InputStream;
+
+/**
+ * Configuración de Glide para toda la app: tamaños de caché explícitos ({@link ImageCachePolicy})
+ * y el cargador de {@link StorageImage} que elige miniatura o imagen completa.
+ */
+@GlideModule
+public final class DroidTourGlideModule extends AppGlideModule {
+    private static final String TAG = "DroidTourGlideModule";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClass = activityManager.getMemoryClass();
+        boolean lowRam = activityManager.isLowRamDevice();
+        long memoryCache = ImageCachePolicy.memoryCacheBytes(memoryClass, lowRam);
+        long bitmapPool = ImageCachePolicy.bitmapPoolBytes(memoryClass, lowRam);
+
+        builder.setMemoryCache(new LruResourceCache(memoryCache));
+        builder.setBitmapPool(new LruBitmapPool(bitmapPool));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context,
+                ImageCachePolicy.DISK_CACHE_FOLDER, ImageCachePolicy.DISK_CACHE_BYTES));
+        // Originales remotos y resultados ya escalados en disco: al volver a una lista no se decodifica de nuevo
+        builder.setDefaultRequestOptions(new RequestOptions().diskCacheStrategy(DiskCacheStrategy.ALL));
+        if (BuildConfig.DEBUG) {
+            builder.setLogLevel(Log.INFO);
+        }
+        Log.d(TAG, "Caché de imágenes: memoria " + memoryCache / 1048576 + " MB, pool " + bitmapPool / 1048576
+                + " MB, disco " + ImageCachePolicy.DISK_CACHE_BYTES / 1048576 + " MB");
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.prepend(StorageImage.class, InputStream.class, new StorageImageLoader.Factory());
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
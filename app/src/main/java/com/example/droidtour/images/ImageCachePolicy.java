@@ -0,0 +1,33 @@
+package com.example.droidtour.images;
+
+/**
+ * Tamaños de caché de Glide y memoria que ocupa un bitmap decodificado.
+ *
+ * La caché de memoria se mide contra el heap de la app (ActivityManager.getMemoryClass) y no contra
+ * la pantalla, así en equipos con poca RAM no se llena el heap con miniaturas.
+ */
+public final class ImageCachePolicy {
+
+    /** Caché en disco compartida por todas las pantallas */
+    public static final long DISK_CACHE_BYTES = 200L * 1024 * 1024;
+    public static final String DISK_CACHE_FOLDER = "image_cache";
+
+    private static final long MB = 1024L * 1024;
+
+    private ImageCachePolicy() {}
+
+    /** 1/8 del heap (1/12 en equipos con poca RAM) para bitmaps ya listos para mostrar */
+    public static long memoryCacheBytes(int memoryClassMb, boolean lowRamDevice) {
+        return memoryClassMb * MB / (lowRamDevice ? 12 : 8);
+    }
+
+    /** La mitad de la caché de memoria para reutilizar bitmaps al decodificar */
+    public static long bitmapPoolBytes(int memoryClassMb, boolean lowRamDevice) {
+        return memoryCacheBytes(memoryClassMb, lowRamDevice) / 2;
+    }
+
+    /** Bytes de un bitmap de width x height: 4 por píxel en ARGB_8888, 2 en RGB_565 */
+    public static long decodedBytes(int width, int height, boolean rgb565) {
+        return (long) width * height * (rgb565 ? 2 : 4);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.droidtour.images;
+
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Prepara una imagen para subirla: decodifica reducida, corrige la rotación EXIF, escala al
+ * {@link ImageSpec} y codifica en WebP junto con una miniatura.
+ *
+ * Hace E/S y decodificación: llamar fuera del hilo principal.
+ */
+public final class ImageProcessor {
+
+    /**
+     * Imagen lista para subir
+     */
+    public static class Processed {
+        private final byte[] full;
+        private final byte[] thumbnail;
+        private final int width;
+        private final int height;
+        private final long sourceBytes;
+
+        Processed(byte[] full, byte[] thumbnail, int width, int height, long sourceBytes) {
+            this.full = full;
+            this.thumbnail = thumbnail;
+            this.width = width;
+            this.height = height;
+            this.sourceBytes = sourceBytes;
+        }
+
+        public byte[] getFull() { return full; }
+        public byte[] getThumbnail() { return thumbnail; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        /** Tamaño del original (0 si no se conoce) */
+        public long getSourceBytes() { return sourceBytes; }
+    }
+
+    private ImageProcessor() {}
+
+    public static Processed process(ContentResolver resolver, Uri uri, ImageSpec spec) throws IOException {
+        // 1. Solo dimensiones, sin reservar memoria para los píxeles
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("No es una imagen: " + uri);
+        }
+
+        // 2. Decodificar ya reducida
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = ImageSizing.inSampleSizeToFit(bounds.outWidth, bounds.outHeight,
+                spec.getMaxLongEdge(), spec.getMaxShortEdge());
+        Bitmap decoded;
+        try (InputStream in = open(resolver, uri)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("No se pudo decodificar " + uri);
+        }
+
+        int orientation;
+        try (InputStream in = open(resolver, uri)) {
+            orientation = new ExifInterface(in).getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            orientation = ExifInterface.ORIENTATION_NORMAL;
+        }
+
+        Bitmap oriented = rotate(decoded, orientation);
+        Processed processed = encode(oriented, spec, sourceSize(resolver, uri));
+        oriented.recycle();
+        return processed;
+    }
+
+    public static Processed process(Bitmap bitmap, ImageSpec spec) {
+        return encode(bitmap, spec, 0);
+    }
+
+    private static Processed encode(Bitmap source, ImageSpec spec, long sourceBytes) {
+        Bitmap full = scale(source, spec.getMaxLongEdge(), spec.getMaxShortEdge());
+        Bitmap thumbnail = scale(full, spec.getThumbnailLongEdge(), spec.getThumbnailLongEdge());
+        byte[] fullBytes = compress(full, spec.getQuality());
+        byte[] thumbnailBytes = compress(thumbnail, ImageSpec.THUMBNAIL_QUALITY);
+
+        Processed processed = new Processed(fullBytes, thumbnailBytes, full.getWidth(), full.getHeight(), sourceBytes);
+        if (thumbnail != full) thumbnail.recycle();
+        if (full != source) full.recycle();
+        return processed;
+    }
+
+    private static Bitmap scale(Bitmap bitmap, int maxLongEdge, int maxShortEdge) {
+        int[] size = ImageSizing.fit(bitmap.getWidth(), bitmap.getHeight(), maxLongEdge, maxShortEdge);
+        if (size[0] == bitmap.getWidth() && size[1] == bitmap.getHeight()) {
+            return bitmap;
+        }
+        return Bitmap.createScaledBitmap(bitmap, size[0], size[1], true);
+    }
+
+    private static Bitmap rotate(Bitmap bitmap, int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90: matrix.postRotate(90); break;
+            case ExifInterface.ORIENTATION_ROTATE_180: matrix.postRotate(180); break;
+            case ExifInterface.ORIENTATION_ROTATE_270: matrix.postRotate(270); break;
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL: matrix.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL: matrix.postScale(1, -1); break;
+            default: return bitmap;
+        }
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (rotated != bitmap) bitmap.recycle();
+        return rotated;
+    }
+
+    private static byte[] compress(Bitmap bitmap, int quality) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.WEBP_LOSSY, quality, out);
+        return out.toByteArray();
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new IOException("No se pudo abrir " + uri);
+        }
+        return in;
+    }
+
+    private static long sourceSize(ContentResolver resolver, Uri uri) {
+        try (AssetFileDescriptor descriptor = resolver.openAssetFileDescriptor(uri, "r")) {
+            return descriptor != null ? Math.max(0, descriptor.getLength()) : 0;
+        } catch (IOException | SecurityException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.droidtour.images;
+
+import android.graphics.drawable.Drawable;
+
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DecodeFormat;
+
+/**
+ * Peticiones de Glide que se repiten entre pantallas.
+ *
+ * La precarga de RecyclerViewPreloader solo sirve si pide exactamente la misma imagen con las mismas
+ * opciones que el adaptador, por eso ambos arman la petición aquí.
+ */
+public final class ImageRequests {
+
+    private ImageRequests() {}
+
+    /**
+     * Imagen de una fila o tarjeta de lista: miniatura si alcanza, RGB_565 (la mitad de memoria que
+     * ARGB_8888; las fotos no tienen transparencia) y recortada al tamaño de la vista.
+     */
+    public static RequestBuilder<Drawable> listThumbnail(RequestManager glide, String url, ImageSpec spec) {
+        return glide.load(new StorageImage(url, spec))
+                .format(DecodeFormat.PREFER_RGB_565)
+                .centerCrop();
+    }
+}
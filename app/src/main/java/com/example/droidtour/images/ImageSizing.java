@@ -0,0 +1,50 @@
+package com.example.droidtour.images;
+
+/**
+ * Cálculos de tamaño para decodificar y reducir imágenes.
+ */
+public final class ImageSizing {
+
+    private ImageSizing() {}
+
+    /**
+     * Mayor potencia de 2 para BitmapFactory.Options.inSampleSize que todavía deja la imagen
+     * decodificada igual o más grande que el destino (el ajuste fino lo hace el escalado final).
+     * Una foto de 12 MP para un avatar se decodifica a 1/4 de lado: 1/16 de la memoria.
+     */
+    public static int inSampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sample = 1;
+        if (width <= 0 || height <= 0 || targetWidth <= 0 || targetHeight <= 0) {
+            return sample;
+        }
+        while (width / (sample * 2) >= targetWidth && height / (sample * 2) >= targetHeight) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    /**
+     * inSampleSize para que la imagen entre en maxLongEdge x maxShortEdge (en cualquier orientación)
+     */
+    public static int inSampleSizeToFit(int width, int height, int maxLongEdge, int maxShortEdge) {
+        int[] target = fit(width, height, maxLongEdge, maxShortEdge);
+        return inSampleSize(width, height, target[0], target[1]);
+    }
+
+    /**
+     * Dimensiones {ancho, alto} que entran en maxLongEdge x maxShortEdge conservando la proporción.
+     * Nunca agranda la imagen.
+     */
+    public static int[] fit(int width, int height, int maxLongEdge, int maxShortEdge) {
+        if (width <= 0 || height <= 0) {
+            return new int[]{Math.max(width, 0), Math.max(height, 0)};
+        }
+        int longEdge = Math.max(width, height);
+        int shortEdge = Math.min(width, height);
+        double scale = Math.min(1.0, Math.min((double) maxLongEdge / longEdge, (double) maxShortEdge / shortEdge));
+        return new int[]{
+                Math.max(1, (int) Math.round(width * scale)),
+                Math.max(1, (int) Math.round(height * scale))
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.droidtour.images;
+
+/**
+ * Tamaño y calidad de cada tipo de imagen que se sube a Storage.
+ *
+ * Los límites son por lado largo / lado corto, así una foto vertical y una horizontal terminan
+ * con la misma cantidad de píxeles sin importar la orientación EXIF. Las miniaturas de fotos
+ * (800 px) alcanzan para una fila de lista a lo ancho de la pantalla, ver {@link ThumbnailUrls}.
+ */
+public enum ImageSpec {
+    AVATAR(512, 512, 82, 128),
+    TOUR_HERO(1600, 1200, 80, 800),
+    COMPANY_LOGO(512, 512, 90, 160),
+    COMPANY_COVER(1600, 900, 80, 800);
+
+    /** Calidad WebP de las miniaturas (se ven pequeñas, los artefactos no se notan) */
+    public static final int THUMBNAIL_QUALITY = 70;
+
+    private final int maxLongEdge;
+    private final int maxShortEdge;
+    private final int quality;
+    private final int thumbnailLongEdge;
+
+    ImageSpec(int maxLongEdge, int maxShortEdge, int quality, int thumbnailLongEdge) {
+        this.maxLongEdge = maxLongEdge;
+        this.maxShortEdge = maxShortEdge;
+        this.quality = quality;
+        this.thumbnailLongEdge = thumbnailLongEdge;
+    }
+
+    public int getMaxLongEdge() { return maxLongEdge; }
+    public int getMaxShortEdge() { return maxShortEdge; }
+    public int getQuality() { return quality; }
+    public int getThumbnailLongEdge() { return thumbnailLongEdge; }
+}
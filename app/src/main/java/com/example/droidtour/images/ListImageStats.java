@@ -0,0 +1,110 @@
+package com.example.droidtour.images;
+
+import android.app.Activity;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.Locale;
+
+/**
+ * Medición para builds de depuración: mientras la lista se desplaza cuenta los frames que se pasan
+ * del presupuesto de la pantalla y los bytes de los bitmaps que se decodificaron, y al detenerse
+ * deja un resumen en el log.
+ */
+public class ListImageStats extends RecyclerView.OnScrollListener implements Window.OnFrameMetricsAvailableListener {
+    private static final String TAG = "ListImageStats";
+
+    private final String name;
+    private final Window window;
+    private final long frameBudgetNanos;
+    private boolean scrolling;
+    private int frames;
+    private int droppedFrames;
+    private long worstFrameNanos;
+    private int decodedImages;
+    private long decodedBytes;
+    private long scrollStartedAt;
+
+    private ListImageStats(String name, Activity activity) {
+        this.name = name;
+        this.window = activity.getWindow();
+        float refreshRate = activity.getDisplay() != null ? activity.getDisplay().getRefreshRate() : 60f;
+        this.frameBudgetNanos = (long) (1_000_000_000L / refreshRate);
+    }
+
+    /** Empezar a medir la lista; llamar a {@link #detach} en onDestroy */
+    public static ListImageStats attach(String name, Activity activity, RecyclerView recyclerView) {
+        ListImageStats stats = new ListImageStats(name, activity);
+        stats.window.addOnFrameMetricsAvailableListener(stats, new Handler(Looper.getMainLooper()));
+        recyclerView.addOnScrollListener(stats);
+        return stats;
+    }
+
+    public void detach(RecyclerView recyclerView) {
+        recyclerView.removeOnScrollListener(this);
+        window.removeOnFrameMetricsAvailableListener(this);
+    }
+
+    /** Listener para las peticiones de la lista: suma lo que no salió ya listo de la caché de memoria */
+    public RequestListener<Drawable> decodedBytesListener() {
+        return new RequestListener<Drawable>() {
+            @Override
+            public boolean onLoadFailed(@Nullable GlideException e, Object model, @NonNull Target<Drawable> target, boolean isFirstResource) {
+                return false;
+            }
+
+            @Override
+            public boolean onResourceReady(@NonNull Drawable resource, @NonNull Object model, Target<Drawable> target,
+                                           @NonNull DataSource dataSource, boolean isFirstResource) {
+                if (dataSource != DataSource.MEMORY_CACHE && resource instanceof BitmapDrawable) {
+                    decodedImages++;
+                    decodedBytes += ((BitmapDrawable) resource).getBitmap().getAllocationByteCount();
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState != RecyclerView.SCROLL_STATE_IDLE && !scrolling) {
+            scrolling = true;
+            scrollStartedAt = System.currentTimeMillis();
+        } else if (newState == RecyclerView.SCROLL_STATE_IDLE && scrolling) {
+            scrolling = false;
+            Log.d(TAG, String.format(Locale.US,
+                    "%s: %d frames en %d ms, %d fuera de presupuesto (%.1f%%), peor %.1f ms; %d imágenes decodificadas, %.1f MB",
+                    name, frames, System.currentTimeMillis() - scrollStartedAt, droppedFrames,
+                    frames > 0 ? 100.0 * droppedFrames / frames : 0, worstFrameNanos / 1e6,
+                    decodedImages, decodedBytes / 1048576.0));
+            frames = 0;
+            droppedFrames = 0;
+            worstFrameNanos = 0;
+            decodedImages = 0;
+            decodedBytes = 0;
+        }
+    }
+
+    @Override
+    public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+        if (!scrolling) return;
+        long total = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        frames++;
+        if (total > frameBudgetNanos) droppedFrames++;
+        worstFrameNanos = Math.max(worstFrameNanos, total);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.droidtour.images;
+
+import java.util.Objects;
+
+/**
+ * Imagen remota junto con el tipo con que se subió. Cargarla con Glide
+ * ({@code Glide.with(view).load(new StorageImage(url, spec))}) deja que {@link StorageImageLoader}
+ * elija la miniatura o la imagen completa según el tamaño de la vista.
+ */
+public final class StorageImage {
+    private final String url;
+    private final ImageSpec spec;
+
+    public StorageImage(String url, ImageSpec spec) {
+        this.url = url;
+        this.spec = spec;
+    }
+
+    public String getUrl() { return url; }
+    public ImageSpec getSpec() { return spec; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StorageImage)) return false;
+        StorageImage other = (StorageImage) o;
+        return Objects.equals(url, other.url) && spec == other.spec;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(url, spec);
+    }
+
+    @Override
+    public String toString() {
+        return "StorageImage{" + spec + ", " + url + "}";
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.droidtour.images;
+
+import android.net.Uri;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Carga un {@link StorageImage} desde su miniatura cuando la vista es chica y desde la imagen
+ * completa en otro caso. La descarga en sí la hace el cargador de URLs de Glide.
+ *
+ * La URL de la miniatura (otro token) se pide a Storage la primera vez y se recuerda; como la
+ * clave de caché es la ruta de la miniatura y no la URL, con caché en disco no se vuelve a pedir
+ * (los nombres llevan la hora de subida, una ruta nunca cambia de contenido).
+ * Si la imagen no tiene miniatura se usa la completa.
+ */
+public class StorageImageLoader implements ModelLoader<StorageImage, InputStream> {
+    private static final String TAG = "StorageImageLoader";
+    private static final long RESOLVE_TIMEOUT_SECONDS = 10;
+
+    // Compartidas por todas las cargas; LruCache es thread-safe
+    private static final LruCache<String, String> thumbnailUrls = new LruCache<>(1000);
+    private static final LruCache<String, Boolean> missingThumbnails = new LruCache<>(500);
+
+    private final ModelLoader<GlideUrl, InputStream> urlLoader;
+
+    StorageImageLoader(ModelLoader<GlideUrl, InputStream> urlLoader) {
+        this.urlLoader = urlLoader;
+    }
+
+    @Override
+    public boolean handles(@NonNull StorageImage model) {
+        return model.getUrl() != null && !model.getUrl().isEmpty();
+    }
+
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull StorageImage model, int width, int height, @NonNull Options options) {
+        String thumbnailPath = ThumbnailUrls.thumbnailPath(ThumbnailUrls.storagePath(model.getUrl()));
+        if (thumbnailPath == null || !ThumbnailUrls.thumbnailFits(width, height, model.getSpec())) {
+            return urlLoader.buildLoadData(new GlideUrl(model.getUrl()), width, height, options);
+        }
+        return new LoadData<>(new ObjectKey("thumb:" + thumbnailPath),
+                new ThumbnailFetcher(model.getUrl(), thumbnailPath, width, height, options));
+    }
+
+    private class ThumbnailFetcher implements DataFetcher<InputStream> {
+        private final String fullUrl;
+        private final String thumbnailPath;
+        private final int width;
+        private final int height;
+        private final Options options;
+        private volatile boolean cancelled;
+        private volatile DataFetcher<InputStream> delegate;
+
+        ThumbnailFetcher(String fullUrl, String thumbnailPath, int width, int height, Options options) {
+            this.fullUrl = fullUrl;
+            this.thumbnailPath = thumbnailPath;
+            this.width = width;
+            this.height = height;
+            this.options = options;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super InputStream> callback) {
+            // Glide llama a loadData en su executor de red, se puede esperar a Storage aquí
+            String url = resolveThumbnailUrl();
+            if (cancelled) return;
+            LoadData<InputStream> loadData = urlLoader.buildLoadData(new GlideUrl(url != null ? url : fullUrl), width, height, options);
+            if (loadData == null) {
+                callback.onLoadFailed(new IllegalStateException("Sin cargador para " + fullUrl));
+                return;
+            }
+            delegate = loadData.fetcher;
+            delegate.loadData(priority, callback);
+        }
+
+        private String resolveThumbnailUrl() {
+            String cached = thumbnailUrls.get(thumbnailPath);
+            if (cached != null || missingThumbnails.get(thumbnailPath) != null) {
+                return cached;
+            }
+            try {
+                Uri uri = Tasks.await(FirebaseStorage.getInstance().getReference(thumbnailPath).getDownloadUrl(),
+                        RESOLVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                thumbnailUrls.put(thumbnailPath, uri.toString());
+                return uri.toString();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof StorageException
+                        && ((StorageException) e.getCause()).getErrorCode() == StorageException.ERROR_OBJECT_NOT_FOUND) {
+                    missingThumbnails.put(thumbnailPath, Boolean.TRUE);
+                } else {
+                    Log.w(TAG, "No se pudo obtener la miniatura " + thumbnailPath, e);
+                }
+            } catch (TimeoutException e) {
+                Log.w(TAG, "Tiempo agotado al obtener la miniatura " + thumbnailPath);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+
+        @Override
+        public void cleanup() {
+            DataFetcher<InputStream> current = delegate;
+            if (current != null) current.cleanup();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            DataFetcher<InputStream> current = delegate;
+            if (current != null) current.cancel();
+        }
+
+        @NonNull
+        @Override
+        public Class<InputStream> getDataClass() {
+            return InputStream.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.REMOTE;
+        }
+    }
+
+    public static class Factory implements ModelLoaderFactory<StorageImage, InputStream> {
+        @NonNull
+        @Override
+        public ModelLoader<StorageImage, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new StorageImageLoader(multiFactory.build(GlideUrl.class, InputStream.class));
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.droidtour.images;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+
+/**
+ * Decide si una imagen de Storage se puede cargar desde su miniatura (thumbs/) según el tamaño
+ * de la vista que la va a mostrar.
+ *
+ * Las URL de descarga tienen la forma
+ * https://firebasestorage.googleapis.com/v0/b/&lt;bucket&gt;/o/&lt;ruta codificada&gt;?alt=media&amp;token=...
+ * y el token es propio de cada archivo, así que la URL de la miniatura no se puede armar: solo se
+ * obtiene su ruta y la URL se resuelve aparte.
+ */
+public final class ThumbnailUrls {
+
+    /** Cuánto se permite ampliar una miniatura antes de preferir la imagen completa */
+    static final float MAX_THUMBNAIL_UPSCALE = 1.4f;
+
+    private static final String STORAGE_HOST = "firebasestorage.googleapis.com";
+    private static final String OBJECT_MARKER = "/o/";
+    private static final String THUMBNAIL_FOLDER = "thumbs";
+    private static final String THUMBNAIL_EXTENSION = ".webp";
+
+    private ThumbnailUrls() {}
+
+    /**
+     * Ruta del archivo en Storage a partir de su URL de descarga, o null si no es de Storage
+     */
+    public static String storagePath(String url) {
+        if (url == null || !url.contains(STORAGE_HOST)) return null;
+        int start = url.indexOf(OBJECT_MARKER);
+        if (start < 0) return null;
+        start += OBJECT_MARKER.length();
+        int end = url.indexOf('?', start);
+        String encoded = end < 0 ? url.substring(start) : url.substring(start, end);
+        if (encoded.isEmpty()) return null;
+        try {
+            return URLDecoder.decode(encoded, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Ruta de la miniatura de una imagen, o null si la imagen no tiene miniatura.
+     * Solo las imágenes subidas como WebP (ver FirebaseStorageManager) la tienen; las anteriores
+     * y las que ya son miniatura se cargan tal cual.
+     */
+    public static String thumbnailPath(String storagePath) {
+        if (storagePath == null || !storagePath.endsWith(THUMBNAIL_EXTENSION)) return null;
+        int slash = storagePath.lastIndexOf('/');
+        String folder = slash < 0 ? "" : storagePath.substring(0, slash);
+        String name = storagePath.substring(slash + 1);
+        if (name.isEmpty() || folder.equals(THUMBNAIL_FOLDER) || folder.endsWith("/" + THUMBNAIL_FOLDER)) {
+            return null;
+        }
+        return folder.isEmpty() ? THUMBNAIL_FOLDER + "/" + name : folder + "/" + THUMBNAIL_FOLDER + "/" + name;
+    }
+
+    /**
+     * true si la miniatura alcanza para una vista de targetWidth x targetHeight px.
+     * Un tamaño no positivo (tamaño original) siempre pide la imagen completa.
+     */
+    public static boolean thumbnailFits(int targetWidth, int targetHeight, ImageSpec spec) {
+        if (targetWidth <= 0 || targetHeight <= 0) return false;
+        int targetLongEdge = Math.max(targetWidth, targetHeight);
+        return targetLongEdge <= spec.getThumbnailLongEdge() * MAX_THUMBNAIL_UPSCALE;
+    }
+}
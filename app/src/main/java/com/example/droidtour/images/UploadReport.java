@@ -0,0 +1,36 @@
+package com.example.droidtour.images;
+
+import java.util.Locale;
+
+/**
+ * Resumen de una subida de varias imágenes: cuánto pesaban los originales y cuánto se subió
+ */
+public class UploadReport {
+    private final int images;
+    private final long sourceBytes;
+    private final long uploadedBytes;
+    private final long elapsedMs;
+
+    public UploadReport(int images, long sourceBytes, long uploadedBytes, long elapsedMs) {
+        this.images = images;
+        this.sourceBytes = sourceBytes;
+        this.uploadedBytes = uploadedBytes;
+        this.elapsedMs = elapsedMs;
+    }
+
+    public int getImages() { return images; }
+    /** Bytes de los archivos originales (0 si el origen no informa su tamaño) */
+    public long getSourceBytes() { return sourceBytes; }
+    /** Bytes subidos, imágenes completas + miniaturas */
+    public long getUploadedBytes() { return uploadedBytes; }
+    public long getElapsedMs() { return elapsedMs; }
+
+    @Override
+    public String toString() {
+        String ratio = sourceBytes > 0
+                ? String.format(Locale.US, " (%.0f%% del original de %.1f MB)", 100.0 * uploadedBytes / sourceBytes, sourceBytes / 1048576.0)
+                : "";
+        return String.format(Locale.US, "%d imágenes: %.1f MB subidos%s en %.1f s",
+                images, uploadedBytes / 1048576.0, ratio, elapsedMs / 1000.0);
+    }
+}
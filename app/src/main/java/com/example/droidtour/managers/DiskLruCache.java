@@ -0,0 +1,330 @@
+package com.example.droidtour.managers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Caché en disco con presupuesto de bytes: al pasarse se borran las entradas usadas hace más tiempo.
+ *
+ * - Un índice en memoria (tamaño y hora de escritura de cada entrada) permite saber si una entrada
+ *   existe, si expiró y cuánto ocupa todo sin abrir ningún archivo.
+ * - El índice se reconstruye al abrir leyendo un journal de solo agregar:
+ *   "P nombre bytes hora" al escribir, "R nombre" al leer (orden LRU) y "D nombre" al borrar.
+ *   Cuando acumula muchas líneas redundantes se reescribe compactado.
+ * - Cada entrada se escribe en un .tmp y se renombra, así un corte a mitad de escritura nunca deja
+ *   una entrada a medias; los archivos que no figuran en el journal se borran al abrir.
+ *
+ * Una sola instancia por directorio (el journal no admite dos escritores). Thread-safe.
+ */
+public class DiskLruCache {
+
+    public interface Clock {
+        long now();
+    }
+
+    private static final String JOURNAL = "journal";
+    private static final String JOURNAL_TMP = "journal.tmp";
+    private static final String HEADER = "droidtour.disk-lru-cache 1";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String PUT = "P";
+    private static final String READ = "R";
+    private static final String DELETE = "D";
+    private static final int COMPACT_THRESHOLD = 2000;
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9_\\-]{1,64}");
+
+    private static class Entry {
+        final long size;
+        final long writtenAt;
+
+        Entry(long size, long writtenAt) {
+            this.size = size;
+            this.writtenAt = writtenAt;
+        }
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    private final Clock clock;
+    // En orden de uso: la primera entrada es la usada hace más tiempo (ver touch)
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>();
+    private long size;
+    private int redundantOps;
+    private Writer journal;
+
+    private DiskLruCache(File directory, long maxBytes, Clock clock) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
+
+    public static DiskLruCache open(File directory, long maxBytes) throws IOException {
+        return open(directory, maxBytes, System::currentTimeMillis);
+    }
+
+    public static DiskLruCache open(File directory, long maxBytes, Clock clock) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes debe ser positivo");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("No se pudo crear " + directory);
+        }
+        DiskLruCache cache = new DiskLruCache(directory, maxBytes, clock);
+        cache.readJournal();
+        cache.deleteOrphans();
+        cache.rebuildJournal();
+        cache.trimToSize();
+        return cache;
+    }
+
+    // ==================== API ====================
+
+    /** Escribir (o reemplazar) una entrada */
+    public synchronized void put(String key, byte[] data) throws IOException {
+        String name = fileName(key);
+        File tmp = new File(directory, name + TMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+            out.getFD().sync();
+        }
+        Files.move(tmp.toPath(), new File(directory, name).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long now = clock.now();
+        Entry previous = index.remove(name);
+        if (previous != null) {
+            size -= previous.size;
+            redundantOps++;
+        }
+        index.put(name, new Entry(data.length, now));
+        size += data.length;
+        appendJournal(PUT + " " + name + " " + data.length + " " + now);
+        trimToSize();
+        compactIfNeeded();
+    }
+
+    /** Contenido de la entrada, o null si no existe */
+    public synchronized byte[] get(String key) throws IOException {
+        String name = fileName(key);
+        if (!index.containsKey(name)) {
+            return null;
+        }
+        File file = new File(directory, name);
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            // El sistema puede vaciar getCacheDir() por falta de espacio
+            removeFromIndex(name);
+            return null;
+        }
+        touch(name);
+        redundantOps++;
+        appendJournal(READ + " " + name);
+        compactIfNeeded();
+        return data;
+    }
+
+    public synchronized boolean contains(String key) {
+        return index.containsKey(fileName(key));
+    }
+
+    /** Hora de escritura de la entrada (sin abrirla), o -1 si no existe */
+    public synchronized long getWrittenAt(String key) {
+        Entry entry = index.get(fileName(key));
+        return entry != null ? entry.writtenAt : -1;
+    }
+
+    public synchronized boolean remove(String key) throws IOException {
+        String name = fileName(key);
+        if (!index.containsKey(name)) {
+            return false;
+        }
+        removeFromIndex(name);
+        new File(directory, name).delete();
+        return true;
+    }
+
+    /** Borrar las entradas escritas hace maxAgeMs o más; devuelve cuántas */
+    public synchronized int removeOlderThan(long maxAgeMs) throws IOException {
+        long now = clock.now();
+        List<String> expired = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : index.entrySet()) {
+            if (now - e.getValue().writtenAt >= maxAgeMs) {
+                expired.add(e.getKey());
+            }
+        }
+        for (String name : expired) {
+            removeFromIndex(name);
+            new File(directory, name).delete();
+        }
+        compactIfNeeded();
+        return expired.size();
+    }
+
+    public synchronized void clear() throws IOException {
+        for (String name : new ArrayList<>(index.keySet())) {
+            new File(directory, name).delete();
+        }
+        index.clear();
+        size = 0;
+        rebuildJournal();
+    }
+
+    public synchronized long size() { return size; }
+    public synchronized int entryCount() { return index.size(); }
+    public long getMaxBytes() { return maxBytes; }
+
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    // ==================== ÍNDICE Y JOURNAL ====================
+
+    /** Pasar la entrada al final (la más reciente) */
+    private void touch(String name) {
+        Entry entry = index.remove(name);
+        if (entry != null) index.put(name, entry);
+    }
+
+    private void removeFromIndex(String name) throws IOException {
+        Entry entry = index.remove(name);
+        if (entry == null) return;
+        size -= entry.size;
+        redundantOps += 2;
+        appendJournal(DELETE + " " + name);
+    }
+
+    private void trimToSize() throws IOException {
+        Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+        while (size > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            size -= eldest.getValue().size;
+            redundantOps += 2;
+            new File(directory, eldest.getKey()).delete();
+            appendJournal(DELETE + " " + eldest.getKey());
+        }
+    }
+
+    private void readJournal() throws IOException {
+        File file = new File(directory, JOURNAL);
+        if (!file.exists()) return;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (!HEADER.equals(reader.readLine())) {
+                return;   // Formato desconocido: se empieza vacío y deleteOrphans limpia
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                try {
+                    if (PUT.equals(parts[0]) && parts.length == 4) {
+                        Entry entry = new Entry(Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+                        Entry previous = index.remove(parts[1]);
+                        if (previous != null) size -= previous.size;
+                        index.put(parts[1], entry);
+                        size += entry.size;
+                    } else if (READ.equals(parts[0]) && parts.length == 2) {
+                        touch(parts[1]);
+                    } else if (DELETE.equals(parts[0]) && parts.length == 2) {
+                        Entry previous = index.remove(parts[1]);
+                        if (previous != null) size -= previous.size;
+                    }
+                } catch (NumberFormatException e) {
+                    // Última línea cortada por un cierre abrupto: se ignora
+                }
+            }
+        }
+    }
+
+    /** Borrar .tmp, archivos sin entrada y entradas cuyo archivo ya no existe o cambió de tamaño */
+    private void deleteOrphans() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.equals(JOURNAL) || name.equals(JOURNAL_TMP)) continue;
+                if (!index.containsKey(name)) {
+                    file.delete();
+                }
+            }
+        }
+        Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            File file = new File(directory, e.getKey());
+            if (!file.isFile() || file.length() != e.getValue().size) {
+                file.delete();
+                size -= e.getValue().size;
+                it.remove();
+            }
+        }
+    }
+
+    /** Reescribir el journal con una línea por entrada, en orden LRU */
+    private void rebuildJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        File tmp = new File(directory, JOURNAL_TMP);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+            writer.write(HEADER + "\n");
+            for (Map.Entry<String, Entry> e : index.entrySet()) {
+                writer.write(PUT + " " + e.getKey() + " " + e.getValue().size + " " + e.getValue().writtenAt + "\n");
+            }
+        }
+        File file = new File(directory, JOURNAL);
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        redundantOps = 0;
+    }
+
+    private void appendJournal(String line) throws IOException {
+        journal.write(line);
+        journal.write('\n');
+        journal.flush();
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (redundantOps >= COMPACT_THRESHOLD && redundantOps >= index.size()) {
+            rebuildJournal();
+        }
+    }
+
+    /** Las claves simples se usan tal cual como nombre de archivo; las demás se resumen con SHA-256 */
+    static String fileName(String key) {
+        if (SAFE_NAME.matcher(key).matches() && !key.equals(JOURNAL)) {
+            return key;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder("h_");
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", hash[i] & 0xff));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
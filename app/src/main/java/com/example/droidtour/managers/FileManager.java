@@ -28,6 +28,11 @@ public class FileManager {
     private static final String BACKUP_DIR = "backup";
     private static final String CONFIG_DIR = "config";
     private static final String ARCHIVO_DATOS_USUARIO = "user_data.json";
+    private static final String CACHE_FOLDER = "file_cache";
+    private static final long CACHE_MAX_BYTES = 10L * 1024 * 1024;
+
+    // Una sola caché por proceso: varias pantallas crean su propio FileManager
+    private static DiskLruCache diskCache;
     
     public FileManager(Context context) {
         this.context = context;
@@ -154,30 +159,34 @@ public class FileManager {
     }
     
     // ==================== MÉTODOS DE CACHE ====================
-    
+    // Caché LRU en getCacheDir() con límite de CACHE_MAX_BYTES (ver DiskLruCache): la hora de
+    // escritura vive en el índice, validar o limpiar no abre ningún archivo.
+
     /**
      * Guardar datos de cache con timestamp
      */
     public boolean guardarCache(String clave, String datos) {
+        DiskLruCache cache = obtenerCache();
+        if (cache == null) return false;
         try {
-            JSONObject cacheData = new JSONObject();
-            cacheData.put("timestamp", System.currentTimeMillis());
-            cacheData.put("data", datos);
-            return guardarJSON("cache_" + clave + ".json", cacheData);
-        } catch (JSONException e) {
-            Log.e(TAG, "Error creando cache: " + e.getMessage());
+            cache.put(clave, datos.getBytes(StandardCharsets.UTF_8));
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Error guardando cache: " + e.getMessage());
             return false;
         }
     }
     
     /**
-     * Leer datos de cache
+     * Leer datos de cache ("" si no hay)
      */
     public String leerCache(String clave) {
-        JSONObject cacheData = leerJSON("cache_" + clave + ".json");
+        DiskLruCache cache = obtenerCache();
+        if (cache == null) return "";
         try {
-            return cacheData.getString("data");
-        } catch (JSONException e) {
+            byte[] datos = cache.get(clave);
+            return datos != null ? new String(datos, StandardCharsets.UTF_8) : "";
+        } catch (IOException e) {
             Log.e(TAG, "Error leyendo cache: " + e.getMessage());
             return "";
         }
@@ -187,38 +196,50 @@ public class FileManager {
      * Verificar si cache es válido (no expirado)
      */
     public boolean cacheValido(String clave, long tiempoExpiracionMs) {
-        JSONObject cacheData = leerJSON("cache_" + clave + ".json");
-        try {
-            long timestamp = cacheData.getLong("timestamp");
-            long tiempoActual = System.currentTimeMillis();
-            return (tiempoActual - timestamp) < tiempoExpiracionMs;
-        } catch (JSONException e) {
-            return false;
-        }
+        DiskLruCache cache = obtenerCache();
+        if (cache == null) return false;
+        long timestamp = cache.getWrittenAt(clave);
+        return timestamp >= 0 && (System.currentTimeMillis() - timestamp) < tiempoExpiracionMs;
     }
     
     /**
      * Limpiar cache expirado
      */
     public void limpiarCacheExpirado(long tiempoExpiracionMs) {
-        File directorio = context.getFilesDir();
-        File[] archivos = directorio.listFiles();
-        if (archivos != null) {
-            for (File archivo : archivos) {
-                if (archivo.getName().startsWith("cache_") && archivo.getName().endsWith(".json")) {
-                    JSONObject cacheData = leerJSON(archivo.getName());
-                    try {
-                        long timestamp = cacheData.getLong("timestamp");
-                        long tiempoActual = System.currentTimeMillis();
-                        if ((tiempoActual - timestamp) >= tiempoExpiracionMs) {
-                            eliminarArchivo(archivo.getName());
-                            Log.d(TAG, "Cache expirado eliminado: " + archivo.getName());
-                        }
-                    } catch (JSONException e) {
-                        // Si no se puede parsear, eliminar
-                        eliminarArchivo(archivo.getName());
-                    }
+        DiskLruCache cache = obtenerCache();
+        if (cache == null) return;
+        try {
+            int eliminados = cache.removeOlderThan(tiempoExpiracionMs);
+            Log.d(TAG, "Cache expirado eliminado: " + eliminados + " entradas");
+        } catch (IOException e) {
+            Log.e(TAG, "Error limpiando cache: " + e.getMessage());
+        }
+    }
+
+    private DiskLruCache obtenerCache() {
+        synchronized (FileManager.class) {
+            if (diskCache == null) {
+                try {
+                    diskCache = DiskLruCache.open(new File(context.getCacheDir(), CACHE_FOLDER), CACHE_MAX_BYTES);
+                } catch (IOException e) {
+                    Log.e(TAG, "No se pudo abrir la cache: " + e.getMessage());
+                    return null;
                 }
+                eliminarCacheAnterior();
+            }
+            return diskCache;
+        }
+    }
+
+    /**
+     * Borrar los cache_*.json que la versión anterior dejaba en getFilesDir()
+     */
+    private void eliminarCacheAnterior() {
+        File[] archivos = context.getFilesDir().listFiles();
+        if (archivos == null) return;
+        for (File archivo : archivos) {
+            if (archivo.getName().startsWith("cache_") && archivo.getName().endsWith(".json")) {
+                archivo.delete();
             }
         }
     }
@@ -363,6 +384,14 @@ public class FileManager {
      * Limpiar todos los archivos
      */
     public void limpiarTodosLosArchivos() {
+        DiskLruCache cache = obtenerCache();
+        if (cache != null) {
+            try {
+                cache.clear();
+            } catch (IOException e) {
+                Log.e(TAG, "Error limpiando cache: " + e.getMessage());
+            }
+        }
         File directorio = context.getFilesDir();
         File[] archivos = directorio.listFiles();
         if (archivos != null) {
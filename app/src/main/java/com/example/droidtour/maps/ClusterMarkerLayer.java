@@ -0,0 +1,206 @@
+package com.example.droidtour.maps;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.Log;
+
+import com.google.android.gms.maps.CameraUpdateFactory;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Capa de marcadores agrupados sobre un GoogleMap.
+ *
+ * - Solo existen marcadores para lo que está en el viewport (más un margen de una celda).
+ * - Se recalcula en {@link #render()}, que la Activity llama desde OnCameraIdleListener: durante el
+ *   desplazamiento no se agrega ni se quita nada.
+ * - Los marcadores que siguen visibles se conservan; los grupos que cambian de tamaño se actualizan
+ *   en el lugar.
+ */
+public class ClusterMarkerLayer<T> {
+    private static final String TAG = "ClusterMarkerLayer";
+
+    public interface Renderer<T> {
+        /** Título, snippet o icono del marcador de un punto suelto */
+        void bindItem(Marker marker, T item);
+    }
+
+    public interface OnItemClickListener<T> {
+        void onItemClick(T item);
+    }
+
+    private final GoogleMap map;
+    private final Renderer<T> renderer;
+    private final GridClusterIndex<T> index = new GridClusterIndex<>();
+    private final ViewportDiff<T> viewport = new ViewportDiff<>();
+    private final Map<Object, Marker> markers = new HashMap<>();
+    private final Map<Object, GridClusterIndex.Cluster<T>> clusters = new HashMap<>();
+    private final Map<String, BitmapDescriptor> clusterIcons = new HashMap<>();
+    private final float density;
+    private OnItemClickListener<T> onItemClickListener;
+
+    public ClusterMarkerLayer(Context context, GoogleMap map, Renderer<T> renderer) {
+        this.map = map;
+        this.renderer = renderer;
+        this.density = context.getResources().getDisplayMetrics().density;
+    }
+
+    public void setOnItemClickListener(OnItemClickListener<T> listener) {
+        this.onItemClickListener = listener;
+    }
+
+    // ==================== DATOS ====================
+
+    public void add(T item, double latitude, double longitude) {
+        index.add(item, latitude, longitude);
+    }
+
+    public void remove(T item) {
+        index.remove(item);
+    }
+
+    public void clear() {
+        index.clear();
+        for (Marker marker : markers.values()) {
+            marker.remove();
+        }
+        markers.clear();
+        clusters.clear();
+        viewport.clear();
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Volver a aplicar el Renderer a un punto (p. ej. cambió su nombre) si su marcador está visible
+     */
+    public void refresh(T item) {
+        Marker marker = markers.get(item);
+        if (marker != null) {
+            renderer.bindItem(marker, item);
+        }
+    }
+
+    /** Marcador del punto si está visible y suelto */
+    public Marker getMarker(T item) {
+        return markers.get(item);
+    }
+
+    // ==================== RENDER ====================
+
+    /**
+     * Sincronizar los marcadores con el viewport y el zoom actuales
+     */
+    public void render() {
+        LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
+        float zoom = map.getCameraPosition().zoom;
+        List<GridClusterIndex.Cluster<T>> visible = index.query(
+                bounds.southwest.latitude, bounds.southwest.longitude,
+                bounds.northeast.latitude, bounds.northeast.longitude, zoom);
+        ViewportDiff.Result<T> diff = viewport.update(visible);
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        for (Object key : diff.getRemoved()) {
+            Marker marker = markers.remove(key);
+            clusters.remove(key);
+            if (marker != null) {
+                marker.remove();
+            }
+        }
+        for (GridClusterIndex.Cluster<T> cluster : diff.getChanged()) {
+            Marker marker = markers.get(cluster.getKey());
+            if (marker == null) continue;
+            marker.setPosition(new LatLng(cluster.getLatitude(), cluster.getLongitude()));
+            if (!cluster.isSingle()) {
+                clusters.put(cluster.getKey(), cluster);
+                bindCluster(marker, cluster);
+            }
+        }
+        for (GridClusterIndex.Cluster<T> cluster : diff.getAdded()) {
+            Marker marker = map.addMarker(new MarkerOptions()
+                    .position(new LatLng(cluster.getLatitude(), cluster.getLongitude())));
+            if (marker == null) {
+                viewport.forget(cluster.getKey());
+                continue;
+            }
+            marker.setTag(cluster.getKey());
+            markers.put(cluster.getKey(), marker);
+            if (cluster.isSingle()) {
+                renderer.bindItem(marker, cluster.getItem());
+            } else {
+                clusters.put(cluster.getKey(), cluster);
+                bindCluster(marker, cluster);
+            }
+        }
+        Log.d(TAG, "Viewport: " + markers.size() + " marcadores de " + index.size() + " puntos (+"
+                + diff.getAdded().size() + " -" + diff.getRemoved().size() + " ~" + diff.getChanged().size() + ")");
+    }
+
+    /**
+     * Manejar el clic de un marcador de esta capa: un grupo acerca la cámara hasta que se separa,
+     * un punto suelto avisa al listener. Devuelve false si el marcador no es de esta capa.
+     */
+    public boolean onMarkerClick(Marker marker) {
+        Object key = marker.getTag();
+        if (key == null || markers.get(key) != marker) {
+            return false;
+        }
+        GridClusterIndex.Cluster<T> cluster = clusters.get(key);
+        if (cluster != null) {
+            map.animateCamera(CameraUpdateFactory.newLatLngZoom(marker.getPosition(), index.expansionZoom(cluster)));
+        } else if (onItemClickListener != null) {
+            @SuppressWarnings("unchecked")
+            T item = (T) key;
+            onItemClickListener.onItemClick(item);
+        }
+        return true;
+    }
+
+    private void bindCluster(Marker marker, GridClusterIndex.Cluster<T> cluster) {
+        marker.setTitle(cluster.getCount() + " paradas");
+        marker.setSnippet("Acerca el mapa para verlas");
+        marker.setIcon(clusterIcon(cluster.getCount()));
+    }
+
+    /**
+     * Icono circular con la cantidad; se reutiliza por etiqueta ("2".."99", "99+")
+     */
+    private BitmapDescriptor clusterIcon(int count) {
+        String label = count > 99 ? "99+" : String.valueOf(count);
+        BitmapDescriptor cached = clusterIcons.get(label);
+        if (cached != null) {
+            return cached;
+        }
+        int size = (int) ((count < 10 ? 32 : count < 100 ? 38 : 44) * density);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(0xFFFFFFFF);
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f, paint);
+        paint.setColor(0xFF2196F3);
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f - 2 * density, paint);
+        paint.setColor(0xFFFFFFFF);
+        paint.setTextSize(13 * density);
+        paint.setFakeBoldText(true);
+        paint.setTextAlign(Paint.Align.CENTER);
+        canvas.drawText(label, size / 2f, size / 2f - (paint.descent() + paint.ascent()) / 2, paint);
+        BitmapDescriptor icon = BitmapDescriptorFactory.fromBitmap(bitmap);
+        clusterIcons.put(label, icon);
+        return icon;
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.droidtour.maps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice espacial por grilla para agrupar marcadores según el zoom.
+ *
+ * - Los puntos se guardan en coordenadas Web Mercator normalizadas (0..1), las mismas que usa
+ *   Google Maps, así una celda mide siempre cellSizePx píxeles en pantalla.
+ * - Hay una grilla por nivel de zoom (0..maxClusterZoom) con la suma de coordenadas y los puntos
+ *   de cada celda: agregar o quitar un punto cuesta O(niveles), no reconstruir el índice.
+ * - Por encima de maxClusterZoom no se agrupa: cada punto es su propio marcador.
+ * - {@link #query} solo recorre las celdas del viewport (o todas, si hay menos celdas que las
+ *   que cubre el viewport).
+ *
+ * No es thread-safe: se usa desde el hilo principal.
+ */
+public class GridClusterIndex<T> {
+
+    public static final int DEFAULT_CELL_SIZE_PX = 80;
+    public static final int DEFAULT_MAX_CLUSTER_ZOOM = 16;
+
+    private static final double TILE_SIZE_PX = 256.0;
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    /**
+     * Resultado de una consulta: un grupo de puntos o un punto suelto (count == 1)
+     */
+    public static class Cluster<T> {
+        private final Object key;
+        private final double latitude;
+        private final double longitude;
+        private final int count;
+        private final T item;
+        private final Cell<T> cell;
+
+        Cluster(Object key, double latitude, double longitude, int count, T item, Cell<T> cell) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.count = count;
+            this.item = item;
+            this.cell = cell;
+        }
+
+        /**
+         * Identidad estable para el render: el propio punto si está suelto (así su marcador se
+         * conserva al cambiar de zoom) o la celda si es un grupo
+         */
+        public Object getKey() { return key; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public int getCount() { return count; }
+        public boolean isSingle() { return count == 1; }
+        /** Único punto si está suelto (null si es un grupo) */
+        public T getItem() { return item; }
+
+        /** Puntos del grupo; se copian al pedirlos (solo hace falta al tocar un grupo) */
+        public List<T> getItems() {
+            List<T> items = new ArrayList<>(count);
+            if (cell == null) {
+                items.add(item);
+            } else {
+                for (Entry<T> entry : cell.entries) {
+                    items.add(entry.item);
+                }
+            }
+            return items;
+        }
+    }
+
+    private static class Entry<T> {
+        final T item;
+        final double latitude;
+        final double longitude;
+        final double x;
+        final double y;
+
+        Entry(T item, double latitude, double longitude) {
+            this.item = item;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.x = mercatorX(longitude);
+            this.y = mercatorY(latitude);
+        }
+    }
+
+    private static class Cell<T> {
+        // Lista y no conjunto: la mayoría de las celdas tienen 1 o 2 puntos y quitar es poco frecuente
+        final List<Entry<T>> entries = new ArrayList<>(2);
+        double sumLatitude;
+        double sumLongitude;
+    }
+
+    private final int maxClusterZoom;
+    /** levels[z]: grilla del zoom z; levels[maxClusterZoom + 1]: grilla de puntos sueltos */
+    private final List<Map<Long, Cell<T>>> levels = new ArrayList<>();
+    private final long[] sides;
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+
+    public GridClusterIndex() {
+        this(DEFAULT_CELL_SIZE_PX, DEFAULT_MAX_CLUSTER_ZOOM);
+    }
+
+    public GridClusterIndex(int cellSizePx, int maxClusterZoom) {
+        this.maxClusterZoom = maxClusterZoom;
+        this.sides = new long[maxClusterZoom + 2];
+        for (int z = 0; z <= maxClusterZoom + 1; z++) {
+            levels.add(new HashMap<>());
+            sides[z] = Math.max(1L, (long) Math.ceil(TILE_SIZE_PX * (1L << z) / cellSizePx));
+        }
+    }
+
+    // ==================== ALTAS Y BAJAS ====================
+
+    /**
+     * Agregar un punto (o moverlo, si ya estaba)
+     */
+    public void add(T item, double latitude, double longitude) {
+        if (entries.containsKey(item)) {
+            remove(item);
+        }
+        Entry<T> entry = new Entry<>(item, latitude, longitude);
+        entries.put(item, entry);
+        for (int z = 0; z < levels.size(); z++) {
+            long key = cellKey(entry.x, entry.y, cellsPerSide(z));
+            Cell<T> cell = levels.get(z).get(key);
+            if (cell == null) {
+                cell = new Cell<>();
+                levels.get(z).put(key, cell);
+            }
+            cell.entries.add(entry);
+            cell.sumLatitude += latitude;
+            cell.sumLongitude += longitude;
+        }
+    }
+
+    public boolean remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        for (int z = 0; z < levels.size(); z++) {
+            long key = cellKey(entry.x, entry.y, cellsPerSide(z));
+            Cell<T> cell = levels.get(z).get(key);
+            cell.entries.remove(entry);
+            if (cell.entries.isEmpty()) {
+                levels.get(z).remove(key);
+            } else {
+                cell.sumLatitude -= entry.latitude;
+                cell.sumLongitude -= entry.longitude;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        entries.clear();
+        for (Map<Long, Cell<T>> level : levels) {
+            level.clear();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Grupos y puntos sueltos visibles en el viewport al zoom dado. Incluye un margen de una celda
+     * para que los marcadores del borde no aparezcan y desaparezcan al desplazarse un poco.
+     * Si west &gt; east el viewport cruza el antimeridiano.
+     */
+    public List<Cluster<T>> query(double south, double west, double north, double east, float zoom) {
+        List<Cluster<T>> result = new ArrayList<>();
+        if (entries.isEmpty()) {
+            return result;
+        }
+        int level = Math.max(0, Math.min((int) Math.floor(zoom), maxClusterZoom + 1));
+        long side = cellsPerSide(level);
+        double minY = mercatorY(north);
+        double maxY = mercatorY(south);
+
+        long y0 = Math.max(0, cellIndex(minY, side) - 1);
+        long y1 = Math.min(side - 1, cellIndex(maxY, side) + 1);
+        if (west <= east) {
+            collect(result, level, side, cellIndex(mercatorX(west), side) - 1, cellIndex(mercatorX(east), side) + 1, y0, y1);
+        } else {
+            collect(result, level, side, cellIndex(mercatorX(west), side) - 1, side - 1, y0, y1);
+            collect(result, level, side, 0, cellIndex(mercatorX(east), side) + 1, y0, y1);
+        }
+        return result;
+    }
+
+    private void collect(List<Cluster<T>> out, int level, long side, long x0, long x1, long y0, long y1) {
+        x0 = Math.max(0, x0);
+        x1 = Math.min(side - 1, x1);
+        if (x0 > x1 || y0 > y1) {
+            return;
+        }
+        Map<Long, Cell<T>> cells = levels.get(level);
+        long rangeCells = (x1 - x0 + 1) * (y1 - y0 + 1);
+        if (rangeCells > cells.size()) {
+            // Zoom lejano: hay menos celdas ocupadas que celdas en pantalla
+            for (Map.Entry<Long, Cell<T>> cell : cells.entrySet()) {
+                long cx = cell.getKey() >>> 32;
+                long cy = cell.getKey() & 0xFFFFFFFFL;
+                if (cx >= x0 && cx <= x1 && cy >= y0 && cy <= y1) {
+                    emit(out, level, cell.getKey(), cell.getValue());
+                }
+            }
+        } else {
+            for (long cx = x0; cx <= x1; cx++) {
+                for (long cy = y0; cy <= y1; cy++) {
+                    long key = (cx << 32) | cy;
+                    Cell<T> cell = cells.get(key);
+                    if (cell != null) {
+                        emit(out, level, key, cell);
+                    }
+                }
+            }
+        }
+    }
+
+    private void emit(List<Cluster<T>> out, int level, long key, Cell<T> cell) {
+        int count = cell.entries.size();
+        if (count == 1 || level > maxClusterZoom) {
+            for (Entry<T> entry : cell.entries) {
+                out.add(new Cluster<>(entry.item, entry.latitude, entry.longitude, 1, entry.item, null));
+            }
+            return;
+        }
+        out.add(new Cluster<>(new ClusterKey(level, key), cell.sumLatitude / count, cell.sumLongitude / count,
+                count, null, cell));
+    }
+
+    /**
+     * Zoom al que hay que acercarse para que un grupo se separe (al menos en dos celdas)
+     */
+    public int expansionZoom(Cluster<T> cluster) {
+        if (!(cluster.getKey() instanceof ClusterKey)) {
+            return maxClusterZoom + 1;
+        }
+        ClusterKey clusterKey = (ClusterKey) cluster.getKey();
+        for (int z = clusterKey.level + 1; z <= maxClusterZoom; z++) {
+            long side = cellsPerSide(z);
+            long firstKey = -1;
+            for (Entry<T> entry : cluster.cell.entries) {
+                long key = cellKey(entry.x, entry.y, side);
+                if (firstKey == -1) {
+                    firstKey = key;
+                } else if (key != firstKey) {
+                    return z;
+                }
+            }
+        }
+        return maxClusterZoom + 1;
+    }
+
+    // ==================== GEOMETRÍA ====================
+
+    /** Celdas por lado de la grilla del zoom z */
+    private long cellsPerSide(int z) {
+        return sides[z];
+    }
+
+    private static long cellIndex(double normalized, long side) {
+        return Math.max(0, Math.min(side - 1, (long) Math.floor(normalized * side)));
+    }
+
+    private static long cellKey(double x, double y, long side) {
+        return (cellIndex(x, side) << 32) | cellIndex(y, side);
+    }
+
+    static double mercatorX(double longitude) {
+        return (longitude + 180.0) / 360.0;
+    }
+
+    static double mercatorY(double latitude) {
+        double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    /** Clave de un grupo: nivel + celda (dos grupos de la misma celda y zoom son el mismo marcador) */
+    static final class ClusterKey {
+        final int level;
+        final long cell;
+
+        ClusterKey(int level, long cell) {
+            this.level = level;
+            this.cell = cell;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ClusterKey)) return false;
+            ClusterKey other = (ClusterKey) o;
+            return level == other.level && cell == other.cell;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * level + Long.hashCode(cell);
+        }
+    }
+}
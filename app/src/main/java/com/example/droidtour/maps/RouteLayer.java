@@ -0,0 +1,72 @@
+package com.example.droidtour.maps;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ruta dibujada como una polilínea por tramo: al reordenar solo se borran y agregan los tramos
+ * que cambiaron ({@link RouteLegs}) en lugar de reconstruir la ruta completa.
+ */
+public class RouteLayer<T> {
+
+    public interface PositionProvider<T> {
+        LatLng positionOf(T stop);
+    }
+
+    private final GoogleMap map;
+    private final PositionProvider<T> positions;
+    private final int color;
+    private final float width;
+    private final RouteLegs<T> legs = new RouteLegs<>();
+    private final Map<RouteLegs.Leg<T>, Deque<Polyline>> polylines = new HashMap<>();
+
+    public RouteLayer(GoogleMap map, PositionProvider<T> positions, int color, float width) {
+        this.map = map;
+        this.positions = positions;
+        this.color = color;
+        this.width = width;
+    }
+
+    /**
+     * Pasar al nuevo orden de paradas; devuelve cuántos tramos se tocaron
+     */
+    public int update(List<T> stops) {
+        RouteLegs.Diff<T> diff = legs.update(stops);
+        for (RouteLegs.Leg<T> leg : diff.getRemoved()) {
+            Deque<Polyline> drawn = polylines.get(leg);
+            if (drawn == null || drawn.isEmpty()) continue;
+            drawn.pop().remove();
+            if (drawn.isEmpty()) {
+                polylines.remove(leg);
+            }
+        }
+        for (RouteLegs.Leg<T> leg : diff.getAdded()) {
+            Polyline polyline = map.addPolyline(new PolylineOptions()
+                    .add(positions.positionOf(leg.getFrom()), positions.positionOf(leg.getTo()))
+                    .width(width)
+                    .color(color)
+                    .geodesic(true));
+            polylines.computeIfAbsent(leg, key -> new ArrayDeque<>()).push(polyline);
+        }
+        return diff.size();
+    }
+
+    public void clear() {
+        for (Deque<Polyline> drawn : polylines.values()) {
+            for (Polyline polyline : drawn) {
+                polyline.remove();
+            }
+        }
+        polylines.clear();
+        legs.update(Collections.emptyList());
+    }
+}
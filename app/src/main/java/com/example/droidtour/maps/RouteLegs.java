@@ -0,0 +1,84 @@
+package com.example.droidtour.maps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tramos de una ruta (parada i -> parada i+1) identificados por sus extremos.
+ *
+ * Al reordenar, agregar o quitar paradas solo cambian los tramos cuyos extremos cambiaron: mover
+ * una parada toca como mucho 3 tramos, sin importar cuántas paradas tenga la ruta.
+ */
+public class RouteLegs<T> {
+
+    public static final class Leg<T> {
+        private final T from;
+        private final T to;
+
+        Leg(T from, T to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public T getFrom() { return from; }
+        public T getTo() { return to; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Leg)) return false;
+            Leg<?> other = (Leg<?>) o;
+            return from == other.from && to == other.to;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(from) + System.identityHashCode(to);
+        }
+    }
+
+    public static class Diff<T> {
+        private final List<Leg<T>> added = new ArrayList<>();
+        private final List<Leg<T>> removed = new ArrayList<>();
+
+        public List<Leg<T>> getAdded() { return added; }
+        public List<Leg<T>> getRemoved() { return removed; }
+
+        public int size() {
+            return added.size() + removed.size();
+        }
+    }
+
+    // Tramo -> cuántas veces aparece (una ruta puede repetir el mismo tramo)
+    private Map<Leg<T>, Integer> current = new HashMap<>();
+
+    /**
+     * Pasar al nuevo orden de paradas y devolver los tramos a dibujar y a borrar
+     */
+    public Diff<T> update(List<T> stops) {
+        Map<Leg<T>, Integer> next = new HashMap<>();
+        for (int i = 0; i + 1 < stops.size(); i++) {
+            next.merge(new Leg<>(stops.get(i), stops.get(i + 1)), 1, Integer::sum);
+        }
+
+        Diff<T> diff = new Diff<>();
+        for (Map.Entry<Leg<T>, Integer> entry : next.entrySet()) {
+            int before = current.getOrDefault(entry.getKey(), 0);
+            for (int i = before; i < entry.getValue(); i++) diff.added.add(entry.getKey());
+        }
+        for (Map.Entry<Leg<T>, Integer> entry : current.entrySet()) {
+            int after = next.getOrDefault(entry.getKey(), 0);
+            for (int i = after; i < entry.getValue(); i++) diff.removed.add(entry.getKey());
+        }
+        current = next;
+        return diff;
+    }
+
+    public int getLegCount() {
+        int count = 0;
+        for (int value : current.values()) count += value;
+        return count;
+    }
+}
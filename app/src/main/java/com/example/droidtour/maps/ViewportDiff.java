@@ -0,0 +1,68 @@
+package com.example.droidtour.maps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lleva la cuenta de los grupos que están dibujados y calcula qué agregar, quitar o actualizar al
+ * cambiar el viewport o el zoom. Los marcadores que siguen visibles no se tocan.
+ */
+public class ViewportDiff<T> {
+
+    public static class Result<T> {
+        private final List<GridClusterIndex.Cluster<T>> added = new ArrayList<>();
+        private final List<Object> removed = new ArrayList<>();
+        private final List<GridClusterIndex.Cluster<T>> changed = new ArrayList<>();
+
+        /** Grupos nuevos en pantalla */
+        public List<GridClusterIndex.Cluster<T>> getAdded() { return added; }
+        /** Claves de los grupos que ya no están visibles */
+        public List<Object> getRemoved() { return removed; }
+        /** Grupos que siguen visibles pero cambiaron de tamaño o posición */
+        public List<GridClusterIndex.Cluster<T>> getChanged() { return changed; }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+    }
+
+    private Map<Object, GridClusterIndex.Cluster<T>> rendered = new HashMap<>();
+
+    public Result<T> update(List<GridClusterIndex.Cluster<T>> visible) {
+        Result<T> result = new Result<>();
+        Map<Object, GridClusterIndex.Cluster<T>> next = new HashMap<>(visible.size() * 2);
+        for (GridClusterIndex.Cluster<T> cluster : visible) {
+            next.put(cluster.getKey(), cluster);
+            GridClusterIndex.Cluster<T> previous = rendered.get(cluster.getKey());
+            if (previous == null) {
+                result.added.add(cluster);
+            } else if (previous.getCount() != cluster.getCount()
+                    || previous.getLatitude() != cluster.getLatitude()
+                    || previous.getLongitude() != cluster.getLongitude()) {
+                result.changed.add(cluster);
+            }
+        }
+        for (Object key : rendered.keySet()) {
+            if (!next.containsKey(key)) {
+                result.removed.add(key);
+            }
+        }
+        rendered = next;
+        return result;
+    }
+
+    /** Olvidar un grupo (p. ej. para forzar que se vuelva a dibujar) */
+    public void forget(Object key) {
+        rendered.remove(key);
+    }
+
+    public void clear() {
+        rendered.clear();
+    }
+
+    public int getRenderedCount() {
+        return rendered.size();
+    }
+}
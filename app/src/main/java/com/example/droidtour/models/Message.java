@@ -1,6 +1,7 @@
 package com.example.droidtour.models;
 
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.ServerTimestamp;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,7 +13,8 @@ public class Message {
     private String receiverName;
     private String senderType; // "CLIENT", "COMPANY", "GUIDE", "ADMIN"
     private String messageText;
-    private Timestamp timestamp;
+    @ServerTimestamp
+    private Timestamp timestamp; // null al escribir: lo pone el servidor
     private boolean isRead;
     private String conversationId; // Para agrupar mensajes
 
@@ -48,6 +50,15 @@ public class Message {
         return map;
     }
 
+    /**
+     * Copia para escribir en Firestore con la hora del servidor (las horas de los dispositivos
+     * no coinciden y los chats se ordenan y paginan por timestamp)
+     */
+    public Message withServerTimestamp() {
+        return new Message(messageId, senderId, senderName, receiverId, receiverName, senderType,
+                messageText, null, isRead, conversationId);
+    }
+
     // Getters
     public String getMessageId() { return messageId; }
     public String getSenderId() { return senderId; }
@@ -19,6 +19,7 @@ public class Reservation {
     private String userEmail;
     private String tourId;
     private String tourName;
+    private String tourCategory; // Copia de la categoría del tour, para la analítica por categoría
     private String companyId;
     private String companyName;
     private String guideId;
@@ -82,19 +83,10 @@ public class Reservation {
         this.hasCheckedOut = false;
         this.paymentNotificationSent = false;
         
-        // Generar QR codes únicos
-        generateQRCodes();
+        // Los códigos QR se emiten firmados al guardar (FirestoreManager.createReservation),
+        // porque incluyen el ID de la reserva
     }
     
-    /**
-     * Generar códigos QR únicos para check-in y check-out
-     */
-    private void generateQRCodes() {
-        long timestamp = System.currentTimeMillis();
-        this.qrCodeCheckIn = "CHECKIN-" + userId + "-" + timestamp;
-        this.qrCodeCheckOut = "CHECKOUT-" + userId + "-" + (timestamp + 1);
-    }
-
     // Convertir a Map para guardar en Firestore
     public Map<String, Object> toMap() {
         Map<String, Object> map = new HashMap<>();
@@ -103,6 +95,7 @@ public class Reservation {
         map.put("userEmail", userEmail);
         map.put("tourId", tourId);
         map.put("tourName", tourName);
+        map.put("tourCategory", tourCategory);
         map.put("companyId", companyId);
         map.put("companyName", companyName);
         map.put("guideId", guideId);
@@ -148,6 +141,9 @@ public class Reservation {
     public String getTourName() { return tourName; }
     public void setTourName(String tourName) { this.tourName = tourName; }
 
+    public String getTourCategory() { return tourCategory; }
+    public void setTourCategory(String tourCategory) { this.tourCategory = tourCategory; }
+
     public String getCompanyId() { return companyId; }
     public void setCompanyId(String companyId) { this.companyId = companyId; }
 
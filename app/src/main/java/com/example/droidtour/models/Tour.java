@@ -6,6 +6,8 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Modelo de Tour para Firebase Firestore
@@ -21,6 +23,7 @@ public class Tour {
     private String description;
     private Double pricePerPerson;
     private String duration; // "4 horas", "Full Day", "2D/1N"
+    private Integer durationMinutes; // Derivado de duration, para ordenar en Firestore
     private String category; // "Cultural", "Aventura", "Naturaleza", etc.
     private Integer maxGroupSize;
     private List<String> languages; // ["ES", "EN", "FR"]
@@ -37,6 +40,8 @@ public class Tour {
     // Campos para estadísticas
     private Double averageRating;
     private Integer totalReviews;
+    private Double ratingSum; // Suma de ratings, se actualiza junto con cada reseña
+    private Map<String, Long> ratingHistogram; // Reseñas por estrellas: "1".."5"
     private Integer totalBookings;
     
     // Campos de estado
@@ -47,6 +52,13 @@ public class Tour {
     @ServerTimestamp
     private Date updatedAt;
 
+    // Duración desconocida: se ordena al final en el catálogo
+    public static final int DURATION_UNKNOWN = Integer.MAX_VALUE;
+
+    private static final Pattern HOURS_PATTERN = Pattern.compile("(\\d+)\\s*h(ora|oras)?");
+    private static final Pattern DAYS_NIGHTS_PATTERN = Pattern.compile("(\\d+)d/\\d+n");
+    private static final Pattern DAYS_PATTERN = Pattern.compile("(\\d+)\\s*d(i[aá]s?)?");
+
     // Constructor vacío requerido por Firestore
     public Tour() {}
 
@@ -103,6 +115,7 @@ public class Tour {
         map.put("description", description);
         map.put("pricePerPerson", pricePerPerson);
         map.put("duration", duration);
+        map.put("durationMinutes", getDurationMinutes());
         map.put("category", category);
         map.put("maxGroupSize", maxGroupSize);
         map.put("languages", languages);
@@ -115,6 +128,8 @@ public class Tour {
         map.put("itinerary", itinerary);
         map.put("averageRating", averageRating);
         map.put("totalReviews", totalReviews);
+        map.put("ratingSum", ratingSum);
+        map.put("ratingHistogram", ratingHistogram);
         map.put("totalBookings", totalBookings);
         map.put("isActive", isActive);
         map.put("isFeatured", isFeatured);
@@ -145,7 +160,16 @@ public class Tour {
     public void setPricePerPerson(Double pricePerPerson) { this.pricePerPerson = pricePerPerson; }
 
     public String getDuration() { return duration; }
-    public void setDuration(String duration) { this.duration = duration; }
+    public void setDuration(String duration) {
+        this.duration = duration;
+        this.durationMinutes = null;
+    }
+
+    // Documentos antiguos no tienen durationMinutes: se calcula desde duration
+    public Integer getDurationMinutes() {
+        return durationMinutes != null ? durationMinutes : parseDurationMinutes(duration);
+    }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
 
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
@@ -183,6 +207,12 @@ public class Tour {
     public Integer getTotalReviews() { return totalReviews; }
     public void setTotalReviews(Integer totalReviews) { this.totalReviews = totalReviews; }
 
+    public Double getRatingSum() { return ratingSum; }
+    public void setRatingSum(Double ratingSum) { this.ratingSum = ratingSum; }
+
+    public Map<String, Long> getRatingHistogram() { return ratingHistogram; }
+    public void setRatingHistogram(Map<String, Long> ratingHistogram) { this.ratingHistogram = ratingHistogram; }
+
     public Integer getTotalBookings() { return totalBookings; }
     public void setTotalBookings(Integer totalBookings) { this.totalBookings = totalBookings; }
 
@@ -197,5 +227,28 @@ public class Tour {
 
     public Date getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(Date updatedAt) { this.updatedAt = updatedAt; }
+
+    /**
+     * Convertir etiquetas como "4 horas", "2D/1N" o "Full Day" a minutos
+     */
+    public static int parseDurationMinutes(String label) {
+        if (label == null) return DURATION_UNKNOWN;
+        String text = label.trim().toLowerCase();
+        Matcher hours = HOURS_PATTERN.matcher(text);
+        if (hours.find()) {
+            return Integer.parseInt(hours.group(1)) * 60;
+        }
+        Matcher daysNights = DAYS_NIGHTS_PATTERN.matcher(text);
+        if (daysNights.find()) {
+            return Integer.parseInt(daysNights.group(1)) * 24 * 60;
+        }
+        Matcher days = DAYS_PATTERN.matcher(text);
+        if (days.find()) {
+            return Integer.parseInt(days.group(1)) * 24 * 60;
+        }
+        if (text.contains("full day")) return 24 * 60;
+        if (text.contains("medio dia") || text.contains("medio día") || text.contains("half day")) return 4 * 60;
+        return DURATION_UNKNOWN;
+    }
 }
 
@@ -0,0 +1,95 @@
+package com.example.droidtour.search;
+
+import com.example.droidtour.utils.SearchIndex;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consulta y puntaje de la búsqueda de texto en SQLite (tabla FTS4 de ReadModelDatabase).
+ *
+ * - {@link #toMatchQuery} arma la expresión MATCH: cada palabra normalizada como prefijo
+ *   ("cond" encuentra "cóndor"), todas obligatorias.
+ * - FTS4 no ordena por relevancia: {@link #bm25} calcula BM25 (k1 = 1.2, b = 0.75) desde
+ *   matchinfo(tabla, 'pcnalx'), con un peso por columna.
+ */
+public final class FtsRanking {
+
+    /** Formato de matchinfo que espera {@link #bm25} */
+    public static final String MATCHINFO_FORMAT = "pcnalx";
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private FtsRanking() {}
+
+    /**
+     * Expresión MATCH para lo escrito, o null si no tiene palabras. Las palabras ya vienen sin
+     * tildes ni signos (SearchIndex.tokenize), así que no hay operadores que escapar.
+     */
+    public static String toMatchQuery(String text) {
+        List<String> words = SearchIndex.tokenize(text);
+        if (words.isEmpty()) return null;
+        StringBuilder query = new StringBuilder();
+        for (String word : words) {
+            if (query.length() > 0) query.append(' ');
+            query.append(word).append('*');
+        }
+        return query.toString();
+    }
+
+    /** El blob de matchinfo son enteros de 32 bits en el orden de bytes del dispositivo */
+    public static int[] decodeMatchinfo(byte[] blob) {
+        ByteBuffer buffer = ByteBuffer.wrap(blob).order(ByteOrder.nativeOrder());
+        int[] values = new int[blob.length / 4];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    /**
+     * BM25 de la fila a partir de matchinfo 'pcnalx'; weights tiene un peso por columna (las que
+     * faltan valen 1). Mayor es más relevante.
+     */
+    public static double bm25(int[] info, double[] weights) {
+        int phrases = info[0];
+        int columns = info[1];
+        int rows = info[2];
+        int averageBase = 3;
+        int lengthBase = averageBase + columns;
+        int hitsBase = lengthBase + columns;
+
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int x = hitsBase + 3 * (column + phrase * columns);
+                int hits = info[x];
+                if (hits == 0) continue;
+                int docsWithHits = info[x + 2];
+                double idf = Math.log(1 + (rows - docsWithHits + 0.5) / (docsWithHits + 0.5));
+                double average = Math.max(1, info[averageBase + column]);
+                double length = info[lengthBase + column];
+                double tf = hits * (K1 + 1) / (hits + K1 * (1 - B + B * length / average));
+                double weight = column < weights.length ? weights[column] : 1;
+                score += weight * idf * tf;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Posiciones de los limit puntajes más altos, de mayor a menor; los empates conservan el orden
+     * de entrada (la consulta entrega primero lo más reciente).
+     */
+    public static int[] topIndices(double[] scores, int count, int limit) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        int[] top = new int[Math.min(count, Math.max(0, limit))];
+        for (int i = 0; i < top.length; i++) top[i] = order[i];
+        return top;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.droidtour.search;
+
+/**
+ * Un resultado de la búsqueda local (ver ReadModelDatabase.search).
+ *
+ * El snippet marca las palabras encontradas entre {@link #MARK_START} y {@link #MARK_END};
+ * la pantalla las cambia por negritas.
+ */
+public class SearchHit {
+
+    public static final String KIND_TOUR = "TOUR";
+    public static final String KIND_REVIEW = "REVIEW";
+    public static final String KIND_MESSAGE = "MESSAGE";
+
+    public static final char MARK_START = '\u0002';
+    public static final char MARK_END = '\u0003';
+
+    private final String kind;
+    private final String docId;
+    private final String refId;
+    private final String title;
+    private final String subtitle;
+    private final String snippet;
+    private final double score;
+    private final long timestamp;
+
+    public SearchHit(String kind, String docId, String refId, String title, String subtitle,
+                     String snippet, double score, long timestamp) {
+        this.kind = kind;
+        this.docId = docId;
+        this.refId = refId;
+        this.title = title;
+        this.subtitle = subtitle;
+        this.snippet = snippet;
+        this.score = score;
+        this.timestamp = timestamp;
+    }
+
+    public String getKind() { return kind; }
+
+    /** ID del documento de Firestore (tour, reseña o mensaje) */
+    public String getDocId() { return docId; }
+
+    /** A dónde lleva: el tour (tours y reseñas) o la conversación (mensajes) */
+    public String getRefId() { return refId; }
+
+    public String getTitle() { return title; }
+    public String getSubtitle() { return subtitle; }
+    public String getSnippet() { return snippet; }
+    public double getScore() { return score; }
+
+    /** Millis de la última actualización (0 si no se conoce) */
+    public long getTimestamp() { return timestamp; }
+}
@@ -0,0 +1,381 @@
+package com.example.droidtour.superadmin;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.pdf.PdfDocument;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.droidtour.R;
+import com.example.droidtour.analytics.ExportPipeline;
+import com.example.droidtour.analytics.ReservationMetrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exporta el reporte de analítica del superadmin (1 PDF + 1 PNG por gráfico) fuera del hilo principal.
+ *
+ * Los gráficos se dibujan offscreen desde {@link ReservationMetrics} (no desde las vistas del
+ * dashboard) con {@link ReportChartRenderer}: se construyen en el hilo principal y cada uno se
+ * dibuja en un único bitmap con título que se comprime directo al stream de MediaStore y se recicla
+ * antes del siguiente. Ver {@link ExportPipeline} para progreso y cancelación.
+ */
+public class AnalyticsReportExporter {
+    private static final String TAG = "AnalyticsExporter";
+
+    public static final int EXPORT_MONTHS = 12;
+
+    private static final String EXPORT_FOLDER = "DroidTour";
+
+    // Un solo hilo: nunca hay dos exportaciones renderizando a la vez
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final ReservationMetrics metrics;
+    private final Map<String, String> kpis;
+    private final String timestamp;
+    private final String generatedAt;
+    private final ExportPipeline<String> pipeline;
+    private final ReportChartRenderer charts;
+
+    /**
+     * @param kpis indicadores ya formateados, en el orden en que se escriben en el PDF
+     */
+    public AnalyticsReportExporter(Context context, ReservationMetrics metrics, Map<String, String> kpis) {
+        this.context = context.getApplicationContext();
+        this.metrics = metrics;
+        this.kpis = kpis;
+        Date now = new Date();
+        this.timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(now);
+        this.generatedAt = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault()).format(now);
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        pipeline = new ExportPipeline<>(executor, mainHandler::post, this::deleteOutput);
+        charts = new ReportChartRenderer(this.context, mainHandler::post);
+        buildSteps();
+    }
+
+    public void start(ExportPipeline.Listener<String> listener) {
+        pipeline.start(listener);
+    }
+
+    public void cancel() {
+        pipeline.cancel();
+    }
+
+    public int getStepCount() {
+        return pipeline.size();
+    }
+
+    private void buildSteps() {
+        pipeline.add(step("Reporte PDF", token -> writePdf(token)));
+
+        // Las fábricas corren en el hilo principal (ver ReportChartRenderer)
+        pipeline.addOptional(step("Ingresos Mensuales", token -> writeChart(token, "Ingresos Mensuales",
+                "Ingresos_Mensuales_", r -> r.lineChart(metrics.getMonthlyRevenue(), "Ingresos (S/)", R.color.green))));
+        pipeline.addOptional(step("Precio Promedio por Persona", token -> writeChart(token, "Precio Promedio por Persona",
+                "Precio_Promedio_Persona_", r -> r.lineChart(metrics.getMonthlyAveragePrice(), "Precio Promedio (S/)", R.color.primary))));
+        pipeline.addOptional(step("Tours por Categoría", token -> writeChart(token, "Tours por Categoría",
+                "Tours_por_Categoria_", r -> r.pieChart(metrics.getToursByCategory()))));
+        pipeline.addOptional(step("Reservas por Mes", token -> writeChart(token, "Reservas por Mes",
+                "Reservas_por_Mes_", r -> r.barChart(metrics.getMonthlyBookings(), "Reservas", R.color.green))));
+        pipeline.addOptional(step("Personas por Mes", token -> writeChart(token, "Personas por Mes",
+                "Personas_por_Mes_", r -> r.barChart(metrics.getMonthlyPeople(), "Personas", R.color.primary))));
+    }
+
+    private interface Writer {
+        String write(ExportPipeline.Token token) throws Exception;
+    }
+
+    private static ExportPipeline.Step<String> step(String label, Writer writer) {
+        return new ExportPipeline.Step<String>() {
+            @Override
+            public String getLabel() {
+                return label;
+            }
+
+            @Override
+            public String write(ExportPipeline.Token token) throws Exception {
+                try {
+                    return writer.write(token);
+                } catch (CancellationException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // Los gráficos son opcionales: el pipeline sigue, pero queda el motivo en el log
+                    Log.w(TAG, "Falló el paso " + label, e);
+                    throw e;
+                }
+            }
+        };
+    }
+
+    // ==================== PDF ====================
+
+    /**
+     * Cada página se termina apenas se dibuja y el documento se escribe directo al stream de salida
+     */
+    private String writePdf(ExportPipeline.Token token) throws IOException {
+        PdfDocument document = new PdfDocument();
+        try {
+            drawSummaryPage(document);
+            token.throwIfCancelled();
+            drawMonthlyPage(document);
+            token.throwIfCancelled();
+
+            Output output = open("Reporte_Analytics_" + timestamp + ".pdf", "application/pdf");
+            try (OutputStream stream = output.stream) {
+                document.writeTo(stream);
+            } catch (IOException | RuntimeException e) {
+                deleteOutput(output.location);
+                throw e;
+            }
+            return output.location;
+        } finally {
+            document.close();
+        }
+    }
+
+    private void drawSummaryPage(PdfDocument document) {
+        PdfDocument.Page page = document.startPage(new PdfDocument.PageInfo.Builder(595, 842, 1).create());
+        Canvas canvas = page.getCanvas();
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+
+        paint.setTextSize(24);
+        paint.setColor(color(R.color.primary));
+        paint.setFakeBoldText(true);
+        canvas.drawText("Reporte Analytics - DroidTour", 50, 80, paint);
+
+        paint.setTextSize(14);
+        paint.setColor(Color.BLACK);
+        paint.setFakeBoldText(false);
+        canvas.drawText("Generado: " + generatedAt, 50, 110, paint);
+
+        paint.setTextSize(16);
+        paint.setFakeBoldText(true);
+        canvas.drawText("Indicadores Clave de Rendimiento", 50, 160, paint);
+
+        paint.setTextSize(12);
+        paint.setFakeBoldText(false);
+        int y = 190;
+        for (Map.Entry<String, String> kpi : kpis.entrySet()) {
+            canvas.drawText("• " + kpi.getKey() + ": " + kpi.getValue(), 70, y, paint);
+            y += 20;
+        }
+
+        paint.setTextSize(16);
+        paint.setFakeBoldText(true);
+        canvas.drawText("Análisis de Tendencias", 50, 300, paint);
+
+        paint.setTextSize(12);
+        paint.setFakeBoldText(false);
+        canvas.drawText("• Datos actualizados al " + generatedAt, 70, 330, paint);
+
+        String topCategory = null;
+        int topCount = 0;
+        int totalTours = 0;
+        for (Map.Entry<String, Integer> entry : metrics.getToursByCategory().entrySet()) {
+            totalTours += entry.getValue();
+            if (entry.getValue() > topCount) {
+                topCount = entry.getValue();
+                topCategory = entry.getKey();
+            }
+        }
+        if (topCategory != null && totalTours > 0) {
+            canvas.drawText("• Categoría más popular: " + topCategory + " ("
+                    + String.format(Locale.getDefault(), "%.1f", topCount * 100f / totalTours) + "%)", 70, 350, paint);
+        } else {
+            canvas.drawText("• Información de categorías disponible en gráficos", 70, 350, paint);
+        }
+        canvas.drawText("• Reporte generado desde el dashboard de SuperAdmin", 70, 370, paint);
+        canvas.drawText("• Todos los datos provienen de Firebase Firestore", 70, 390, paint);
+
+        drawFooter(canvas, paint);
+        document.finishPage(page);
+    }
+
+    /**
+     * Tabla de los últimos EXPORT_MONTHS meses
+     */
+    private void drawMonthlyPage(PdfDocument document) {
+        PdfDocument.Page page = document.startPage(new PdfDocument.PageInfo.Builder(595, 842, 2).create());
+        Canvas canvas = page.getCanvas();
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+
+        paint.setTextSize(16);
+        paint.setColor(color(R.color.primary));
+        paint.setFakeBoldText(true);
+        canvas.drawText("Detalle Mensual (últimos " + EXPORT_MONTHS + " meses)", 50, 80, paint);
+
+        int[] columns = {50, 170, 260, 350, 460};
+        paint.setTextSize(12);
+        paint.setColor(Color.BLACK);
+        String[] headers = {"Mes", "Reservas", "Personas", "Ingresos", "Precio prom."};
+        for (int i = 0; i < headers.length; i++) {
+            canvas.drawText(headers[i], columns[i], 120, paint);
+        }
+
+        paint.setFakeBoldText(false);
+        int y = 145;
+        for (String month : lastMonths(metrics.getMonthlyRevenue(), metrics.getMonthlyBookings())) {
+            Integer bookings = metrics.getMonthlyBookings().get(month);
+            Integer people = metrics.getMonthlyPeople().get(month);
+            Double revenue = metrics.getMonthlyRevenue().get(month);
+            Double average = metrics.getMonthlyAveragePrice().get(month);
+            canvas.drawText(formatMonthLabel(month), columns[0], y, paint);
+            canvas.drawText(String.valueOf(bookings != null ? bookings : 0), columns[1], y, paint);
+            canvas.drawText(String.valueOf(people != null ? people : 0), columns[2], y, paint);
+            canvas.drawText(String.format("S/ %,.0f", revenue != null ? revenue : 0.0), columns[3], y, paint);
+            canvas.drawText(String.format("S/ %,.2f", average != null ? average : 0.0), columns[4], y, paint);
+            y += 22;
+        }
+
+        drawFooter(canvas, paint);
+        document.finishPage(page);
+    }
+
+    private void drawFooter(Canvas canvas, Paint paint) {
+        paint.setTextSize(10);
+        paint.setFakeBoldText(false);
+        paint.setColor(Color.GRAY);
+        canvas.drawText("DroidTour SuperAdmin Dashboard - Confidencial", 50, 800, paint);
+    }
+
+    // ==================== GRÁFICOS ====================
+
+    /**
+     * Dibujar el gráfico y su título en un solo bitmap, comprimirlo al stream y reciclarlo
+     */
+    private String writeChart(ExportPipeline.Token token, String title, String filePrefix,
+                              ReportChartRenderer.Factory factory) throws Exception {
+        Bitmap bitmap = charts.render(title, "Generado: " + generatedAt, factory);
+        try {
+            token.throwIfCancelled();
+
+            Output output = open(filePrefix + timestamp + ".png", "image/png");
+            try (OutputStream stream = output.stream) {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
+            } catch (IOException | RuntimeException e) {
+                deleteOutput(output.location);
+                throw e;
+            }
+            return output.location;
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    // ==================== SALIDA ====================
+
+    private static class Output {
+        final OutputStream stream;
+        final String location;
+
+        Output(OutputStream stream, String location) {
+            this.stream = stream;
+            this.location = location;
+        }
+    }
+
+    /**
+     * Abrir la salida en Descargas/DroidTour: MediaStore en Android 10+, archivo en versiones anteriores
+     */
+    private Output open(String fileName, String mimeType) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.Downloads.DISPLAY_NAME, fileName);
+            values.put(MediaStore.Downloads.MIME_TYPE, mimeType);
+            values.put(MediaStore.Downloads.RELATIVE_PATH, Environment.DIRECTORY_DOWNLOADS + "/" + EXPORT_FOLDER);
+            Uri uri = context.getContentResolver().insert(MediaStore.Downloads.EXTERNAL_CONTENT_URI, values);
+            if (uri == null) {
+                throw new IOException("No se pudo crear " + fileName + " en Descargas");
+            }
+            OutputStream stream = context.getContentResolver().openOutputStream(uri);
+            if (stream == null) {
+                context.getContentResolver().delete(uri, null, null);
+                throw new IOException("No se pudo abrir " + fileName);
+            }
+            return new Output(stream, uri.toString());
+        }
+
+        File directory = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS), EXPORT_FOLDER);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("No se pudo crear el directorio: " + directory.getAbsolutePath());
+        }
+        File file = new File(directory, fileName);
+        return new Output(new FileOutputStream(file), file.getAbsolutePath());
+    }
+
+    private void deleteOutput(String location) {
+        try {
+            if (location.startsWith("content://")) {
+                context.getContentResolver().delete(Uri.parse(location), null, null);
+            } else if (!new File(location).delete()) {
+                Log.w(TAG, "No se pudo borrar " + location);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "No se pudo borrar " + location, e);
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    private int color(int colorRes) {
+        return ContextCompat.getColor(context, colorRes);
+    }
+
+    /**
+     * Claves "YYYY-MM" de los últimos EXPORT_MONTHS meses con datos en alguno de los mapas, en orden
+     */
+    @SafeVarargs
+    static List<String> lastMonths(Map<String, ? extends Number>... monthly) {
+        TreeMap<String, Boolean> months = new TreeMap<>();
+        for (Map<String, ? extends Number> map : monthly) {
+            for (String month : map.keySet()) months.put(month, true);
+        }
+        List<String> keys = new ArrayList<>(months.keySet());
+        return keys.subList(Math.max(0, keys.size() - EXPORT_MONTHS), keys.size());
+    }
+
+    static String formatMonthLabel(String yearMonth) {
+        try {
+            String[] parts = yearMonth.split("-");
+            if (parts.length == 2) {
+                Calendar cal = Calendar.getInstance();
+                cal.set(Calendar.DAY_OF_MONTH, 1);
+                cal.set(Calendar.YEAR, Integer.parseInt(parts[0]));
+                cal.set(Calendar.MONTH, Integer.parseInt(parts[1]) - 1);
+                return new SimpleDateFormat("MMM yyyy", Locale.getDefault()).format(cal.getTime());
+            }
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Mes inválido: " + yearMonth);
+        }
+        return yearMonth;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.droidtour.superadmin;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.view.View;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.droidtour.R;
+import com.github.mikephil.charting.charts.BarChart;
+import com.github.mikephil.charting.charts.Chart;
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.charts.PieChart;
+import com.github.mikephil.charting.components.Legend;
+import com.github.mikephil.charting.components.XAxis;
+import com.github.mikephil.charting.data.BarData;
+import com.github.mikephil.charting.data.BarDataSet;
+import com.github.mikephil.charting.data.BarEntry;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.data.PieData;
+import com.github.mikephil.charting.data.PieDataSet;
+import com.github.mikephil.charting.data.PieEntry;
+import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
+import com.github.mikephil.charting.formatter.PercentFormatter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Gráficos offscreen del reporte de analítica (ver {@link AnalyticsReportExporter}).
+ *
+ * Los Chart de MPAndroidChart crean un GestureDetector (y con él un Handler) al construirse, así que
+ * crearlos en un hilo sin Looper falla. {@link #render} construye, mide y hace el layout en el hilo
+ * principal, y en el hilo que llama (el de la exportación) solo dibuja el bitmap.
+ */
+class ReportChartRenderer {
+
+    static final int CHART_WIDTH = 1200;
+    static final int CHART_HEIGHT = 800;
+    static final int PADDING = 40;
+    static final int TITLE_HEIGHT = 100;
+
+    /** Construye el gráfico; se llama en el hilo principal */
+    interface Factory {
+        Chart<?> create(ReportChartRenderer renderer);
+    }
+
+    private final Context context;
+    private final Executor mainThread;
+
+    ReportChartRenderer(Context context, Executor mainThread) {
+        this.context = context;
+        this.mainThread = mainThread;
+    }
+
+    /**
+     * Gráfico con título y subtítulo en un único bitmap; el llamador lo comprime y lo recicla.
+     * No llamar desde el hilo principal (espera a que este construya el gráfico).
+     */
+    Bitmap render(String title, String subtitle, Factory factory) throws Exception {
+        Chart<?> chart = onMainThread(() -> {
+            Chart<?> created = factory.create(this);
+            created.measure(View.MeasureSpec.makeMeasureSpec(CHART_WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(CHART_HEIGHT, View.MeasureSpec.EXACTLY));
+            created.layout(0, 0, CHART_WIDTH, CHART_HEIGHT);
+            return created;
+        });
+
+        Bitmap bitmap = Bitmap.createBitmap(CHART_WIDTH + PADDING * 2, CHART_HEIGHT + TITLE_HEIGHT + PADDING * 2,
+                Bitmap.Config.ARGB_8888);
+        try {
+            Canvas canvas = new Canvas(bitmap);
+            canvas.drawColor(Color.WHITE);
+
+            Paint paint = new Paint();
+            paint.setAntiAlias(true);
+            paint.setTextSize(36);
+            paint.setColor(color(R.color.primary));
+            paint.setFakeBoldText(true);
+            canvas.drawText(title, PADDING, PADDING + 50, paint);
+
+            paint.setTextSize(16);
+            paint.setFakeBoldText(false);
+            paint.setColor(Color.GRAY);
+            canvas.drawText(subtitle, PADDING, PADDING + 80, paint);
+
+            canvas.save();
+            canvas.translate(PADDING, TITLE_HEIGHT + PADDING);
+            chart.draw(canvas);
+            canvas.restore();
+            return bitmap;
+        } catch (RuntimeException e) {
+            bitmap.recycle();
+            throw e;
+        }
+    }
+
+    private <T> T onMainThread(Callable<T> callable) throws Exception {
+        FutureTask<T> task = new FutureTask<>(callable);
+        mainThread.execute(task);
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    // ==================== GRÁFICOS ====================
+
+    LineChart lineChart(Map<String, Double> monthly, String label, int colorRes) {
+        List<String> months = AnalyticsReportExporter.lastMonths(monthly);
+        List<Entry> entries = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < months.size(); i++) {
+            Double value = monthly.get(months.get(i));
+            entries.add(new Entry(i, value != null ? value.floatValue() : 0f));
+            labels.add(AnalyticsReportExporter.formatMonthLabel(months.get(i)));
+        }
+
+        LineDataSet dataSet = new LineDataSet(entries, label);
+        dataSet.setColor(color(colorRes));
+        dataSet.setCircleColor(color(colorRes));
+        dataSet.setLineWidth(3f);
+        dataSet.setCircleRadius(6f);
+        dataSet.setDrawFilled(true);
+        dataSet.setFillColor(color(colorRes));
+        dataSet.setFillAlpha(30);
+        dataSet.setValueTextSize(12f);
+        dataSet.setValueTextColor(color(R.color.black));
+
+        LineChart chart = new LineChart(context);
+        chart.setData(new LineData(dataSet));
+        styleAxes(chart.getXAxis(), labels);
+        chart.getAxisLeft().setTextColor(color(R.color.gray));
+        chart.getAxisRight().setEnabled(false);
+        chart.getDescription().setEnabled(false);
+        chart.getLegend().setEnabled(false);
+        return chart;
+    }
+
+    BarChart barChart(Map<String, Integer> monthly, String label, int colorRes) {
+        List<String> months = AnalyticsReportExporter.lastMonths(monthly);
+        List<BarEntry> entries = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < months.size(); i++) {
+            Integer value = monthly.get(months.get(i));
+            entries.add(new BarEntry(i, value != null ? value : 0));
+            labels.add(AnalyticsReportExporter.formatMonthLabel(months.get(i)));
+        }
+
+        BarDataSet dataSet = new BarDataSet(entries, label);
+        dataSet.setColor(color(colorRes));
+        dataSet.setValueTextSize(12f);
+        dataSet.setValueTextColor(color(R.color.black));
+        BarData barData = new BarData(dataSet);
+        barData.setBarWidth(0.8f);
+
+        BarChart chart = new BarChart(context);
+        chart.setData(barData);
+        chart.setFitBars(true);
+        styleAxes(chart.getXAxis(), labels);
+        chart.getAxisLeft().setTextColor(color(R.color.gray));
+        chart.getAxisRight().setEnabled(false);
+        chart.getDescription().setEnabled(false);
+        chart.getLegend().setEnabled(false);
+        return chart;
+    }
+
+    PieChart pieChart(Map<String, Integer> toursByCategory) {
+        List<PieEntry> entries = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : toursByCategory.entrySet()) {
+            entries.add(new PieEntry(entry.getValue().floatValue(), entry.getKey()));
+        }
+        entries.sort((a, b) -> Float.compare(b.getValue(), a.getValue()));
+
+        PieDataSet dataSet = new PieDataSet(entries, "");
+        dataSet.setColors(color(R.color.primary), color(R.color.green), color(R.color.orange), color(R.color.gray),
+                Color.parseColor("#9C27B0"), Color.parseColor("#FF5722"), Color.parseColor("#00BCD4"),
+                Color.parseColor("#795548"), Color.parseColor("#607D8B"), Color.parseColor("#E91E63"));
+        dataSet.setValueTextSize(12f);
+        dataSet.setValueTextColor(Color.WHITE);
+        dataSet.setSliceSpace(2f);
+
+        PieChart chart = new PieChart(context);
+        PieData pieData = new PieData(dataSet);
+        pieData.setValueFormatter(new PercentFormatter(chart));
+        chart.setUsePercentValues(true);
+        chart.setData(pieData);
+        chart.getDescription().setEnabled(false);
+        chart.setDrawHoleEnabled(true);
+        chart.setHoleColor(Color.TRANSPARENT);
+        chart.setHoleRadius(35f);
+        chart.setTransparentCircleRadius(40f);
+
+        Legend legend = chart.getLegend();
+        legend.setVerticalAlignment(Legend.LegendVerticalAlignment.CENTER);
+        legend.setHorizontalAlignment(Legend.LegendHorizontalAlignment.RIGHT);
+        legend.setOrientation(Legend.LegendOrientation.VERTICAL);
+        legend.setDrawInside(false);
+        legend.setTextSize(10f);
+        legend.setTextColor(color(R.color.black));
+        return chart;
+    }
+
+    private void styleAxes(XAxis xAxis, List<String> labels) {
+        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+        xAxis.setGranularity(1f);
+        xAxis.setTextColor(color(R.color.gray));
+        xAxis.setLabelCount(Math.max(1, labels.size()));
+        xAxis.setValueFormatter(new IndexAxisValueFormatter(labels));
+    }
+
+    private int color(int colorRes) {
+        return ContextCompat.getColor(context, colorRes);
+    }
+}
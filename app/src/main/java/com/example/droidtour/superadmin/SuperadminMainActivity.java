@@ -2,19 +2,12 @@ package com.example.droidtour.superadmin;
 
 import android.Manifest;
 import android.app.PendingIntent;
-import android.content.ContentValues;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.pdf.PdfDocument;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Environment;
-import android.provider.MediaStore;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -36,6 +29,15 @@ import androidx.core.view.WindowInsetsCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
 
 import com.example.droidtour.R;
+import com.example.droidtour.analytics.DashboardRollup;
+import com.example.droidtour.analytics.ExportPipeline;
+import com.example.droidtour.analytics.ReservationMetrics;
+import com.example.droidtour.analytics.ReservationMetricsReducer;
+import com.example.droidtour.firebase.AnalyticsManager;
+import com.example.droidtour.firebase.CountManager;
+import com.example.droidtour.firebase.FirebaseAuthManager;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.firebase.GuideAvailabilityManager;
 import com.github.mikephil.charting.charts.BarChart;
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.charts.PieChart;
@@ -63,14 +65,11 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QuerySnapshot;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -99,9 +98,13 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
     private TextView tvNotificationBadge;
     private ImageView ivAvatarAction;
     private FrameLayout notificationActionLayout, avatarActionLayout;
-    private int notificationCount = 3;
+    private int notificationCount = 0;
     private PreferencesManager prefsManager;
     private FirebaseFirestore db;
+    private CountManager countManager;
+    private DashboardRollup dashboardRollup;
+    private QuerySnapshot reservationsSnapshot, toursSnapshot;
+    private AnalyticsReportExporter activeExport;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -112,6 +115,7 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         
         // Inicializar Firestore
         db = FirebaseFirestore.getInstance();
+        countManager = CountManager.getInstance(this);
         
         // Validar sesión PRIMERO
         if (!prefsManager.isLoggedIn()) {
@@ -143,7 +147,47 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         setupCharts();
         setupFAB();
         updateKPIs();
+        loadDashboardAnalytics();
+        loadNotificationsCount();
         loadUserDataInDrawer();
+        migrateTourSortFields();
+        migrateGuideAvailability();
+    }
+
+    /**
+     * Migración única de los tours antiguos para que el catálogo pueda ordenar en el servidor
+     * (no hace nada si ya se completó)
+     */
+    private void migrateTourSortFields() {
+        FirestoreManager.getInstance().backfillTourSortFields(new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                android.util.Log.d("SuperadminMain", "Migración de campos de orden: " + result + " tours actualizados");
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                android.util.Log.e("SuperadminMain", "Error en la migración de campos de orden", e);
+            }
+        });
+    }
+
+    /**
+     * Migración única de la disponibilidad de guías: cuenta las reservas y ofertas aceptadas
+     * anteriores a guide_availability (no hace nada si ya se completó)
+     */
+    private void migrateGuideAvailability() {
+        GuideAvailabilityManager.getInstance().backfillAvailability(new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                android.util.Log.d("SuperadminMain", "Migración de disponibilidad: " + result + " guías actualizados");
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                android.util.Log.e("SuperadminMain", "Error en la migración de disponibilidad", e);
+            }
+        });
     }
 
     @Override
@@ -269,23 +313,125 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
     private void setupCharts() {
         if (lineChartRevenue != null) {
             setupLineChart();
-            loadMonthlyRevenue(); // Cargar datos reales desde Firestore
         }
         if (pieChartTours != null) {
             setupPieChart();
-            loadToursByCategory(); // Cargar datos reales desde Firestore
         }
         if (barChartBookings != null) {
             setupBarChart();
-            loadMonthlyBookings(); // Cargar datos reales desde Firestore
         }
         if (barChartPeople != null) {
             setupBarChartPeople();
-            loadMonthlyPeople(); // Cargar datos reales desde Firestore
         }
         if (lineChartAveragePrice != null) {
             setupLineChartAveragePrice();
-            loadMonthlyAveragePrice(); // Cargar datos reales desde Firestore
+        }
+    }
+
+    /**
+     * Cargar el rollup de analítica (un solo documento) y pintar gráficos y KPIs desde él
+     */
+    private void loadDashboardAnalytics() {
+        if (tvRevenue != null) tvRevenue.setText("Cargando...");
+        if (tvBookings != null) tvBookings.setText("Cargando...");
+
+        AnalyticsManager.getInstance().getDashboardRollup(new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                dashboardRollup = (DashboardRollup) result;
+                renderMetrics(dashboardRollup.toMetrics(null, null), true);
+                android.util.Log.d("SuperadminMain", "Rollup de analítica cargado: " + dashboardRollup.getDays().size() + " días");
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // Sin rollup (p. ej. reglas de seguridad): un solo escaneo para todos los gráficos
+                android.util.Log.w("SuperadminMain", "Rollup no disponible, calculando con un escaneo", e);
+                loadDashboardMetricsFromSnapshot();
+            }
+        });
+    }
+
+    /**
+     * Alternativa sin rollup: una consulta de reservas y una de tours activos, reducidas en una pasada
+     */
+    private void loadDashboardMetricsFromSnapshot() {
+        db.collection("reservations")
+                .whereIn("status", Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
+                .get()
+                .addOnSuccessListener(reservations -> db.collection("tours")
+                        .whereEqualTo("isActive", true)
+                        .get()
+                        .addOnSuccessListener(tours -> {
+                            reservationsSnapshot = reservations;
+                            toursSnapshot = tours;
+                            renderMetrics(reduceSnapshots(null, null), true);
+                        })
+                        .addOnFailureListener(this::showAnalyticsError))
+                .addOnFailureListener(this::showAnalyticsError);
+    }
+
+    private ReservationMetrics reduceSnapshots(String fromDay, String toDay) {
+        ReservationMetricsReducer reducer = new ReservationMetricsReducer(fromDay, toDay);
+        for (com.google.firebase.firestore.QueryDocumentSnapshot doc : reservationsSnapshot) {
+            reducer.accept(doc.get("status"), doc.get("paymentStatus"), doc.get("tourDate"),
+                    doc.get("totalPrice"), doc.get("numberOfPeople"), doc.get("tourCategory"));
+        }
+        for (com.google.firebase.firestore.QueryDocumentSnapshot doc : toursSnapshot) {
+            reducer.acceptTour(doc.get("isActive"), doc.get("category"));
+        }
+        return reducer.result();
+    }
+
+    private void showAnalyticsError(Exception e) {
+        android.util.Log.e("SuperadminMain", "Error cargando analítica", e);
+        updateLineChartWithEmptyData();
+        updateLineChartAveragePriceWithEmptyData();
+        updatePieChartWithEmptyData();
+        updateBarChartWithEmptyData();
+        updateBarChartPeopleWithEmptyData();
+        if (tvRevenue != null) tvRevenue.setText("--");
+        if (tvBookings != null) tvBookings.setText("--");
+    }
+
+    /**
+     * Pintar los gráficos mensuales filtrando por tourDate entre fromDay y toDay
+     * ("YYYY-MM-DD", inclusive; null = sin límite), desde los datos ya cargados
+     */
+    private void renderCharts(String fromDay, String toDay) {
+        if (dashboardRollup != null) {
+            renderMetrics(dashboardRollup.toMetrics(fromDay, toDay), false);
+        } else if (reservationsSnapshot != null && toursSnapshot != null) {
+            renderMetrics(reduceSnapshots(fromDay, toDay), false);
+        }
+    }
+
+    /**
+     * Pintar todos los gráficos (y opcionalmente los KPIs y el pie de categorías) desde un solo resultado
+     */
+    private void renderMetrics(ReservationMetrics metrics, boolean includeTotals) {
+        if (lineChartRevenue != null) {
+            updateLineChartWithData(metrics.getMonthlyRevenue());
+        }
+        if (barChartBookings != null) {
+            updateBarChartWithData(metrics.getMonthlyBookings());
+        }
+        if (barChartPeople != null) {
+            updateBarChartPeopleWithData(metrics.getMonthlyPeople());
+        }
+        if (lineChartAveragePrice != null) {
+            updateLineChartAveragePriceWithData(metrics.getMonthlyAveragePrice());
+        }
+        if (!includeTotals) return;
+
+        if (pieChartTours != null) {
+            updatePieChartWithData(metrics.getToursByCategory());
+        }
+        if (tvRevenue != null) {
+            tvRevenue.setText(formatCurrency(metrics.getTotalRevenue()));
+        }
+        if (tvBookings != null) {
+            tvBookings.setText(String.valueOf(metrics.getTotalBookings()));
         }
     }
 
@@ -320,148 +466,6 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         lineChartRevenue.invalidate();
     }
 
-    private void loadMonthlyRevenue() {
-        if (lineChartRevenue == null || db == null) {
-            android.util.Log.w("SuperadminMain", "loadMonthlyRevenue: lineChartRevenue o db es null");
-            return;
-        }
-
-        android.util.Log.d("SuperadminMain", "Iniciando carga de ingresos mensuales desde Firestore");
-
-        // Consultar todas las reservas con status válido
-        db.collection("reservations")
-                .whereIn("status", Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            // Agrupar ingresos por mes usando tourDate
-                            Map<String, Double> monthlyRevenue = new HashMap<>();
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                // Verificar paymentStatus
-                                String paymentStatus = doc.getString("paymentStatus");
-                                if (paymentStatus == null || 
-                                    paymentStatus.equals("CONFIRMADO") || 
-                                    paymentStatus.equals("COBRADO")) {
-                                    
-                                    // Obtener tourDate (formato: "YYYY-MM-DD")
-                                    String tourDate = doc.getString("tourDate");
-                                    if (tourDate != null && !tourDate.isEmpty()) {
-                                        // Extraer año-mes (YYYY-MM) de tourDate
-                                        String yearMonth = extractYearMonth(tourDate);
-                                        
-                                        // Obtener totalPrice
-                                        Object priceObj = doc.get("totalPrice");
-                                        if (priceObj != null) {
-                                            double price = 0.0;
-                                            if (priceObj instanceof Double) {
-                                                price = (Double) priceObj;
-                                            } else if (priceObj instanceof Long) {
-                                                price = ((Long) priceObj).doubleValue();
-                                            } else if (priceObj instanceof Number) {
-                                                price = ((Number) priceObj).doubleValue();
-                                            } else if (priceObj instanceof String) {
-                                                try {
-                                                    price = Double.parseDouble((String) priceObj);
-                                                } catch (NumberFormatException e) {
-                                                    android.util.Log.w("SuperadminMain", "No se pudo parsear totalPrice: " + priceObj);
-                                                }
-                                            }
-                                            
-                                            // Sumar al mes correspondiente
-                                            monthlyRevenue.put(yearMonth, monthlyRevenue.getOrDefault(yearMonth, 0.0) + price);
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            // Actualizar gráfico con datos reales
-                            updateLineChartWithData(monthlyRevenue);
-                            
-                            android.util.Log.d("SuperadminMain", "Ingresos mensuales cargados: " + monthlyRevenue.size() + " meses");
-                        } else {
-                            android.util.Log.w("SuperadminMain", "QuerySnapshot de ingresos mensuales es null");
-                            updateLineChartWithEmptyData();
-                        }
-                    } else {
-                        // Si falla con whereIn, intentar sin filtro
-                        android.util.Log.w("SuperadminMain", "Error con whereIn, intentando sin filtro", task.getException());
-                        loadMonthlyRevenueWithoutFilter();
-                    }
-                });
-    }
-
-    private void loadMonthlyRevenueWithoutFilter() {
-        db.collection("reservations")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            Map<String, Double> monthlyRevenue = new HashMap<>();
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String status = doc.getString("status");
-                                String paymentStatus = doc.getString("paymentStatus");
-                                
-                                if (status != null && 
-                                    (status.equals("CONFIRMADA") || 
-                                     status.equals("EN_CURSO") || 
-                                     status.equals("COMPLETADA"))) {
-                                    
-                                    if (paymentStatus == null || 
-                                        paymentStatus.equals("CONFIRMADO") || 
-                                        paymentStatus.equals("COBRADO")) {
-                                        
-                                        String tourDate = doc.getString("tourDate");
-                                        if (tourDate != null && !tourDate.isEmpty()) {
-                                            String yearMonth = extractYearMonth(tourDate);
-                                            
-                                            Object priceObj = doc.get("totalPrice");
-                                            if (priceObj != null) {
-                                                double price = 0.0;
-                                                if (priceObj instanceof Double) {
-                                                    price = (Double) priceObj;
-                                                } else if (priceObj instanceof Long) {
-                                                    price = ((Long) priceObj).doubleValue();
-                                                } else if (priceObj instanceof Number) {
-                                                    price = ((Number) priceObj).doubleValue();
-                                                } else if (priceObj instanceof String) {
-                                                    try {
-                                                        price = Double.parseDouble((String) priceObj);
-                                                    } catch (NumberFormatException e) {
-                                                        // Ignorar
-                                                    }
-                                                }
-                                                
-                                                monthlyRevenue.put(yearMonth, monthlyRevenue.getOrDefault(yearMonth, 0.0) + price);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            updateLineChartWithData(monthlyRevenue);
-                        } else {
-                            updateLineChartWithEmptyData();
-                        }
-                    } else {
-                        android.util.Log.e("SuperadminMain", "Error cargando ingresos mensuales", task.getException());
-                        updateLineChartWithEmptyData();
-                    }
-                });
-    }
-
-    private String extractYearMonth(String tourDate) {
-        // tourDate formato: "YYYY-MM-DD" -> extraer "YYYY-MM"
-        if (tourDate != null && tourDate.length() >= 7) {
-            return tourDate.substring(0, 7); // "YYYY-MM"
-        }
-        return "";
-    }
-
     private void updateLineChartWithData(Map<String, Double> monthlyRevenue) {
         if (lineChartRevenue == null) return;
 
@@ -585,202 +589,6 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         lineChartAveragePrice.invalidate();
     }
 
-    private void loadMonthlyAveragePrice() {
-        if (lineChartAveragePrice == null || db == null) {
-            android.util.Log.w("SuperadminMain", "loadMonthlyAveragePrice: lineChartAveragePrice o db es null");
-            return;
-        }
-
-        android.util.Log.d("SuperadminMain", "Iniciando carga de precio promedio mensual desde Firestore");
-
-        // Consultar todas las reservas con status válido
-        db.collection("reservations")
-                .whereIn("status", Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            // Agrupar ingresos y personas por mes
-                            Map<String, Double> monthlyRevenue = new HashMap<>();
-                            Map<String, Integer> monthlyPeople = new HashMap<>();
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                // Verificar paymentStatus
-                                String paymentStatus = doc.getString("paymentStatus");
-                                if (paymentStatus == null || 
-                                    paymentStatus.equals("CONFIRMADO") || 
-                                    paymentStatus.equals("COBRADO")) {
-                                    
-                                    // Obtener tourDate (formato: "YYYY-MM-DD")
-                                    String tourDate = doc.getString("tourDate");
-                                    if (tourDate != null && !tourDate.isEmpty()) {
-                                        // Extraer año-mes (YYYY-MM) de tourDate
-                                        String yearMonth = extractYearMonth(tourDate);
-                                        
-                                        // Obtener totalPrice
-                                        Object priceObj = doc.get("totalPrice");
-                                        if (priceObj != null) {
-                                            double price = 0.0;
-                                            if (priceObj instanceof Double) {
-                                                price = (Double) priceObj;
-                                            } else if (priceObj instanceof Long) {
-                                                price = ((Long) priceObj).doubleValue();
-                                            } else if (priceObj instanceof Number) {
-                                                price = ((Number) priceObj).doubleValue();
-                                            } else if (priceObj instanceof String) {
-                                                try {
-                                                    price = Double.parseDouble((String) priceObj);
-                                                } catch (NumberFormatException e) {
-                                                    android.util.Log.w("SuperadminMain", "No se pudo parsear totalPrice: " + priceObj);
-                                                }
-                                            }
-                                            
-                                            // Sumar ingresos por mes
-                                            monthlyRevenue.put(yearMonth, 
-                                                monthlyRevenue.getOrDefault(yearMonth, 0.0) + price);
-                                        }
-                                        
-                                        // Obtener numberOfPeople
-                                        Object peopleObj = doc.get("numberOfPeople");
-                                        if (peopleObj != null) {
-                                            int people = 0;
-                                            if (peopleObj instanceof Integer) {
-                                                people = (Integer) peopleObj;
-                                            } else if (peopleObj instanceof Long) {
-                                                people = ((Long) peopleObj).intValue();
-                                            } else if (peopleObj instanceof Number) {
-                                                people = ((Number) peopleObj).intValue();
-                                            }
-                                            
-                                            // Sumar personas por mes
-                                            monthlyPeople.put(yearMonth, 
-                                                monthlyPeople.getOrDefault(yearMonth, 0) + people);
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            // Calcular precio promedio por mes (ingresos / personas)
-                            Map<String, Double> monthlyAveragePrice = new HashMap<>();
-                            for (String yearMonth : monthlyRevenue.keySet()) {
-                                Double revenue = monthlyRevenue.get(yearMonth);
-                                Integer people = monthlyPeople.get(yearMonth);
-                                
-                                if (revenue != null && people != null && people > 0) {
-                                    double averagePrice = revenue / people;
-                                    monthlyAveragePrice.put(yearMonth, averagePrice);
-                                }
-                            }
-                            
-                            // Actualizar gráfico con datos reales
-                            updateLineChartAveragePriceWithData(monthlyAveragePrice);
-                            
-                            android.util.Log.d("SuperadminMain", "Precio promedio mensual cargado: " + monthlyAveragePrice.size() + " meses");
-                        } else {
-                            android.util.Log.w("SuperadminMain", "QuerySnapshot de precio promedio mensual es null");
-                            updateLineChartAveragePriceWithEmptyData();
-                        }
-                    } else {
-                        // Si falla con whereIn, intentar sin filtro
-                        android.util.Log.w("SuperadminMain", "Error con whereIn, intentando sin filtro", task.getException());
-                        loadMonthlyAveragePriceWithoutFilter();
-                    }
-                });
-    }
-
-    private void loadMonthlyAveragePriceWithoutFilter() {
-        db.collection("reservations")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            Map<String, Double> monthlyRevenue = new HashMap<>();
-                            Map<String, Integer> monthlyPeople = new HashMap<>();
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String status = doc.getString("status");
-                                String paymentStatus = doc.getString("paymentStatus");
-                                
-                                if (status != null && 
-                                    (status.equals("CONFIRMADA") || 
-                                     status.equals("EN_CURSO") || 
-                                     status.equals("COMPLETADA"))) {
-                                    
-                                    if (paymentStatus == null || 
-                                        paymentStatus.equals("CONFIRMADO") || 
-                                        paymentStatus.equals("COBRADO")) {
-                                        
-                                        String tourDate = doc.getString("tourDate");
-                                        if (tourDate != null && !tourDate.isEmpty()) {
-                                            String yearMonth = extractYearMonth(tourDate);
-                                            
-                                            // Obtener totalPrice
-                                            Object priceObj = doc.get("totalPrice");
-                                            if (priceObj != null) {
-                                                double price = 0.0;
-                                                if (priceObj instanceof Double) {
-                                                    price = (Double) priceObj;
-                                                } else if (priceObj instanceof Long) {
-                                                    price = ((Long) priceObj).doubleValue();
-                                                } else if (priceObj instanceof Number) {
-                                                    price = ((Number) priceObj).doubleValue();
-                                                } else if (priceObj instanceof String) {
-                                                    try {
-                                                        price = Double.parseDouble((String) priceObj);
-                                                    } catch (NumberFormatException e) {
-                                                        // Ignorar
-                                                    }
-                                                }
-                                                
-                                                monthlyRevenue.put(yearMonth, 
-                                                    monthlyRevenue.getOrDefault(yearMonth, 0.0) + price);
-                                            }
-                                            
-                                            // Obtener numberOfPeople
-                                            Object peopleObj = doc.get("numberOfPeople");
-                                            if (peopleObj != null) {
-                                                int people = 0;
-                                                if (peopleObj instanceof Integer) {
-                                                    people = (Integer) peopleObj;
-                                                } else if (peopleObj instanceof Long) {
-                                                    people = ((Long) peopleObj).intValue();
-                                                } else if (peopleObj instanceof Number) {
-                                                    people = ((Number) peopleObj).intValue();
-                                                }
-                                                
-                                                monthlyPeople.put(yearMonth, 
-                                                    monthlyPeople.getOrDefault(yearMonth, 0) + people);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            // Calcular precio promedio por mes
-                            Map<String, Double> monthlyAveragePrice = new HashMap<>();
-                            for (String yearMonth : monthlyRevenue.keySet()) {
-                                Double revenue = monthlyRevenue.get(yearMonth);
-                                Integer people = monthlyPeople.get(yearMonth);
-                                
-                                if (revenue != null && people != null && people > 0) {
-                                    double averagePrice = revenue / people;
-                                    monthlyAveragePrice.put(yearMonth, averagePrice);
-                                }
-                            }
-                            
-                            updateLineChartAveragePriceWithData(monthlyAveragePrice);
-                        } else {
-                            updateLineChartAveragePriceWithEmptyData();
-                        }
-                    } else {
-                        android.util.Log.e("SuperadminMain", "Error cargando precio promedio mensual", task.getException());
-                        updateLineChartAveragePriceWithEmptyData();
-                    }
-                });
-    }
-
     private void updateLineChartAveragePriceWithData(Map<String, Double> monthlyAveragePrice) {
         if (lineChartAveragePrice == null) return;
 
@@ -852,142 +660,6 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         lineChartAveragePrice.invalidate();
     }
 
-    private void loadMonthlyAveragePriceForPeriod(int periodPosition) {
-        if (lineChartAveragePrice == null || db == null) {
-            return;
-        }
-
-        // Calcular rango de fechas según el período
-        Calendar cal = Calendar.getInstance();
-        Date endDate = cal.getTime();
-        Date startDate;
-        
-        switch (periodPosition) {
-            case 0: // Hoy
-                cal.set(Calendar.HOUR_OF_DAY, 0);
-                cal.set(Calendar.MINUTE, 0);
-                cal.set(Calendar.SECOND, 0);
-                cal.set(Calendar.MILLISECOND, 0);
-                startDate = cal.getTime();
-                break;
-            case 1: // Semana (últimos 7 días)
-                cal.add(Calendar.DAY_OF_YEAR, -7);
-                startDate = cal.getTime();
-                break;
-            case 2: // Mes (último mes)
-                cal.add(Calendar.MONTH, -1);
-                startDate = cal.getTime();
-                break;
-            case 3: // Año (último año)
-                cal.add(Calendar.YEAR, -1);
-                startDate = cal.getTime();
-                break;
-            default:
-                startDate = null;
-        }
-
-        android.util.Log.d("SuperadminMain", "Cargando precio promedio para período: " + periodPosition + 
-                          " desde " + startDate + " hasta " + endDate);
-
-        // Consultar reservas con filtro de fecha
-        db.collection("reservations")
-                .whereIn("status", Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            Map<String, Double> monthlyRevenue = new HashMap<>();
-                            Map<String, Integer> monthlyPeople = new HashMap<>();
-                            
-                            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String paymentStatus = doc.getString("paymentStatus");
-                                if (paymentStatus == null || 
-                                    paymentStatus.equals("CONFIRMADO") || 
-                                    paymentStatus.equals("COBRADO")) {
-                                    
-                                    String tourDate = doc.getString("tourDate");
-                                    if (tourDate != null && !tourDate.isEmpty()) {
-                                        try {
-                                            // Parsear tourDate y verificar si está en el rango
-                                            Date tourDateObj = sdf.parse(tourDate);
-                                            if (tourDateObj != null && startDate != null) {
-                                                if (tourDateObj.compareTo(startDate) >= 0 && 
-                                                    tourDateObj.compareTo(endDate) <= 0) {
-                                                    
-                                                    String yearMonth = extractYearMonth(tourDate);
-                                                    
-                                                    // Obtener totalPrice
-                                                    Object priceObj = doc.get("totalPrice");
-                                                    if (priceObj != null) {
-                                                        double price = 0.0;
-                                                        if (priceObj instanceof Double) {
-                                                            price = (Double) priceObj;
-                                                        } else if (priceObj instanceof Long) {
-                                                            price = ((Long) priceObj).doubleValue();
-                                                        } else if (priceObj instanceof Number) {
-                                                            price = ((Number) priceObj).doubleValue();
-                                                        } else if (priceObj instanceof String) {
-                                                            try {
-                                                                price = Double.parseDouble((String) priceObj);
-                                                            } catch (NumberFormatException e) {
-                                                                // Ignorar
-                                                            }
-                                                        }
-                                                        
-                                                        monthlyRevenue.put(yearMonth, 
-                                                            monthlyRevenue.getOrDefault(yearMonth, 0.0) + price);
-                                                    }
-                                                    
-                                                    // Obtener numberOfPeople
-                                                    Object peopleObj = doc.get("numberOfPeople");
-                                                    if (peopleObj != null) {
-                                                        int people = 0;
-                                                        if (peopleObj instanceof Integer) {
-                                                            people = (Integer) peopleObj;
-                                                        } else if (peopleObj instanceof Long) {
-                                                            people = ((Long) peopleObj).intValue();
-                                                        } else if (peopleObj instanceof Number) {
-                                                            people = ((Number) peopleObj).intValue();
-                                                        }
-                                                        
-                                                        monthlyPeople.put(yearMonth, 
-                                                            monthlyPeople.getOrDefault(yearMonth, 0) + people);
-                                                    }
-                                                }
-                                            }
-                                        } catch (Exception e) {
-                                            android.util.Log.w("SuperadminMain", "Error parseando fecha: " + tourDate, e);
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            // Calcular precio promedio por mes
-                            Map<String, Double> monthlyAveragePrice = new HashMap<>();
-                            for (String yearMonth : monthlyRevenue.keySet()) {
-                                Double revenue = monthlyRevenue.get(yearMonth);
-                                Integer people = monthlyPeople.get(yearMonth);
-                                
-                                if (revenue != null && people != null && people > 0) {
-                                    double averagePrice = revenue / people;
-                                    monthlyAveragePrice.put(yearMonth, averagePrice);
-                                }
-                            }
-                            
-                            updateLineChartAveragePriceWithData(monthlyAveragePrice);
-                        } else {
-                            updateLineChartAveragePriceWithEmptyData();
-                        }
-                    } else {
-                        android.util.Log.e("SuperadminMain", "Error cargando precio promedio por período", task.getException());
-                        updateLineChartAveragePriceWithEmptyData();
-                    }
-                });
-    }
-
     private void setupPieChart() {
         // Configuración inicial del gráfico (se actualizará con datos reales)
         PieDataSet dataSet = new PieDataSet(new ArrayList<>(), "");
@@ -1023,89 +695,6 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         pieChartTours.invalidate();
     }
 
-    private void loadToursByCategory() {
-        if (pieChartTours == null || db == null) {
-            android.util.Log.w("SuperadminMain", "loadToursByCategory: pieChartTours o db es null");
-            return;
-        }
-
-        android.util.Log.d("SuperadminMain", "Iniciando carga de tours por categoría desde Firestore");
-
-        // Consultar todos los tours activos
-        db.collection("tours")
-                .whereEqualTo("isActive", true)
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            // Agrupar tours por categoría
-                            Map<String, Integer> toursByCategory = new HashMap<>();
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String category = doc.getString("category");
-                                
-                                // Si no tiene categoría, usar "Sin categoría"
-                                if (category == null || category.isEmpty()) {
-                                    category = "Sin categoría";
-                                }
-                                
-                                // Contar tours por categoría
-                                toursByCategory.put(category, 
-                                    toursByCategory.getOrDefault(category, 0) + 1);
-                            }
-                            
-                            // Actualizar gráfico con datos reales
-                            updatePieChartWithData(toursByCategory);
-                            
-                            android.util.Log.d("SuperadminMain", "Tours por categoría cargados: " + toursByCategory.size() + " categorías");
-                        } else {
-                            android.util.Log.w("SuperadminMain", "QuerySnapshot de tours por categoría es null");
-                            updatePieChartWithEmptyData();
-                        }
-                    } else {
-                        // Si falla con whereEqualTo, intentar sin filtro
-                        android.util.Log.w("SuperadminMain", "Error con whereEqualTo, intentando sin filtro", task.getException());
-                        loadToursByCategoryWithoutFilter();
-                    }
-                });
-    }
-
-    private void loadToursByCategoryWithoutFilter() {
-        db.collection("tours")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            Map<String, Integer> toursByCategory = new HashMap<>();
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                // Verificar isActive
-                                Boolean isActive = doc.getBoolean("isActive");
-                                if (isActive == null || isActive) {
-                                    String category = doc.getString("category");
-                                    
-                                    if (category == null || category.isEmpty()) {
-                                        category = "Sin categoría";
-                                    }
-                                    
-                                    toursByCategory.put(category, 
-                                        toursByCategory.getOrDefault(category, 0) + 1);
-                                }
-                            }
-                            
-                            updatePieChartWithData(toursByCategory);
-                        } else {
-                            updatePieChartWithEmptyData();
-                        }
-                    } else {
-                        android.util.Log.e("SuperadminMain", "Error cargando tours por categoría", task.getException());
-                        updatePieChartWithEmptyData();
-                    }
-                });
-    }
-
     private void updatePieChartWithData(Map<String, Integer> toursByCategory) {
         if (pieChartTours == null) return;
 
@@ -1191,104 +780,6 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         barChartBookings.invalidate();
     }
 
-    private void loadMonthlyBookings() {
-        if (barChartBookings == null || db == null) {
-            android.util.Log.w("SuperadminMain", "loadMonthlyBookings: barChartBookings o db es null");
-            return;
-        }
-
-        android.util.Log.d("SuperadminMain", "Iniciando carga de reservas mensuales desde Firestore");
-
-        // Consultar todas las reservas con status válido
-        db.collection("reservations")
-                .whereIn("status", Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            // Agrupar reservas por mes usando tourDate
-                            Map<String, Integer> monthlyBookings = new HashMap<>();
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                // Verificar paymentStatus
-                                String paymentStatus = doc.getString("paymentStatus");
-                                if (paymentStatus == null || 
-                                    paymentStatus.equals("CONFIRMADO") || 
-                                    paymentStatus.equals("COBRADO")) {
-                                    
-                                    // Obtener tourDate (formato: "YYYY-MM-DD")
-                                    String tourDate = doc.getString("tourDate");
-                                    if (tourDate != null && !tourDate.isEmpty()) {
-                                        // Extraer año-mes (YYYY-MM) de tourDate
-                                        String yearMonth = extractYearMonth(tourDate);
-                                        
-                                        // Contar reservas por mes
-                                        monthlyBookings.put(yearMonth, 
-                                            monthlyBookings.getOrDefault(yearMonth, 0) + 1);
-                                    }
-                                }
-                            }
-                            
-                            // Actualizar gráfico con datos reales
-                            updateBarChartWithData(monthlyBookings);
-                            
-                            android.util.Log.d("SuperadminMain", "Reservas mensuales cargadas: " + monthlyBookings.size() + " meses");
-                        } else {
-                            android.util.Log.w("SuperadminMain", "QuerySnapshot de reservas mensuales es null");
-                            updateBarChartWithEmptyData();
-                        }
-                    } else {
-                        // Si falla con whereIn, intentar sin filtro
-                        android.util.Log.w("SuperadminMain", "Error con whereIn, intentando sin filtro", task.getException());
-                        loadMonthlyBookingsWithoutFilter();
-                    }
-                });
-    }
-
-    private void loadMonthlyBookingsWithoutFilter() {
-        db.collection("reservations")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            Map<String, Integer> monthlyBookings = new HashMap<>();
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String status = doc.getString("status");
-                                String paymentStatus = doc.getString("paymentStatus");
-                                
-                                if (status != null && 
-                                    (status.equals("CONFIRMADA") || 
-                                     status.equals("EN_CURSO") || 
-                                     status.equals("COMPLETADA"))) {
-                                    
-                                    if (paymentStatus == null || 
-                                        paymentStatus.equals("CONFIRMADO") || 
-                                        paymentStatus.equals("COBRADO")) {
-                                        
-                                        String tourDate = doc.getString("tourDate");
-                                        if (tourDate != null && !tourDate.isEmpty()) {
-                                            String yearMonth = extractYearMonth(tourDate);
-                                            monthlyBookings.put(yearMonth, 
-                                                monthlyBookings.getOrDefault(yearMonth, 0) + 1);
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            updateBarChartWithData(monthlyBookings);
-                        } else {
-                            updateBarChartWithEmptyData();
-                        }
-                    } else {
-                        android.util.Log.e("SuperadminMain", "Error cargando reservas mensuales", task.getException());
-                        updateBarChartWithEmptyData();
-                    }
-                });
-    }
-
     private void updateBarChartWithData(Map<String, Integer> monthlyBookings) {
         if (barChartBookings == null) return;
 
@@ -1381,130 +872,6 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         barChartPeople.invalidate();
     }
 
-    private void loadMonthlyPeople() {
-        if (barChartPeople == null || db == null) {
-            android.util.Log.w("SuperadminMain", "loadMonthlyPeople: barChartPeople o db es null");
-            return;
-        }
-
-        android.util.Log.d("SuperadminMain", "Iniciando carga de personas mensuales desde Firestore");
-
-        // Consultar todas las reservas con status válido
-        db.collection("reservations")
-                .whereIn("status", Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            // Agrupar personas por mes usando tourDate
-                            Map<String, Integer> monthlyPeople = new HashMap<>();
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                // Verificar paymentStatus
-                                String paymentStatus = doc.getString("paymentStatus");
-                                if (paymentStatus == null || 
-                                    paymentStatus.equals("CONFIRMADO") || 
-                                    paymentStatus.equals("COBRADO")) {
-                                    
-                                    // Obtener tourDate (formato: "YYYY-MM-DD")
-                                    String tourDate = doc.getString("tourDate");
-                                    if (tourDate != null && !tourDate.isEmpty()) {
-                                        // Extraer año-mes (YYYY-MM) de tourDate
-                                        String yearMonth = extractYearMonth(tourDate);
-                                        
-                                        // Obtener numberOfPeople
-                                        Object peopleObj = doc.get("numberOfPeople");
-                                        if (peopleObj != null) {
-                                            int people = 0;
-                                            if (peopleObj instanceof Integer) {
-                                                people = (Integer) peopleObj;
-                                            } else if (peopleObj instanceof Long) {
-                                                people = ((Long) peopleObj).intValue();
-                                            } else if (peopleObj instanceof Number) {
-                                                people = ((Number) peopleObj).intValue();
-                                            }
-                                            
-                                            // Sumar personas por mes
-                                            monthlyPeople.put(yearMonth, 
-                                                monthlyPeople.getOrDefault(yearMonth, 0) + people);
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            // Actualizar gráfico con datos reales
-                            updateBarChartPeopleWithData(monthlyPeople);
-                            
-                            android.util.Log.d("SuperadminMain", "Personas mensuales cargadas: " + monthlyPeople.size() + " meses");
-                        } else {
-                            android.util.Log.w("SuperadminMain", "QuerySnapshot de personas mensuales es null");
-                            updateBarChartPeopleWithEmptyData();
-                        }
-                    } else {
-                        // Si falla con whereIn, intentar sin filtro
-                        android.util.Log.w("SuperadminMain", "Error con whereIn, intentando sin filtro", task.getException());
-                        loadMonthlyPeopleWithoutFilter();
-                    }
-                });
-    }
-
-    private void loadMonthlyPeopleWithoutFilter() {
-        db.collection("reservations")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            Map<String, Integer> monthlyPeople = new HashMap<>();
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String status = doc.getString("status");
-                                String paymentStatus = doc.getString("paymentStatus");
-                                
-                                if (status != null && 
-                                    (status.equals("CONFIRMADA") || 
-                                     status.equals("EN_CURSO") || 
-                                     status.equals("COMPLETADA"))) {
-                                    
-                                    if (paymentStatus == null || 
-                                        paymentStatus.equals("CONFIRMADO") || 
-                                        paymentStatus.equals("COBRADO")) {
-                                        
-                                        String tourDate = doc.getString("tourDate");
-                                        if (tourDate != null && !tourDate.isEmpty()) {
-                                            String yearMonth = extractYearMonth(tourDate);
-                                            
-                                            Object peopleObj = doc.get("numberOfPeople");
-                                            if (peopleObj != null) {
-                                                int people = 0;
-                                                if (peopleObj instanceof Integer) {
-                                                    people = (Integer) peopleObj;
-                                                } else if (peopleObj instanceof Long) {
-                                                    people = ((Long) peopleObj).intValue();
-                                                } else if (peopleObj instanceof Number) {
-                                                    people = ((Number) peopleObj).intValue();
-                                                }
-                                                
-                                                monthlyPeople.put(yearMonth, 
-                                                    monthlyPeople.getOrDefault(yearMonth, 0) + people);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            updateBarChartPeopleWithData(monthlyPeople);
-                        } else {
-                            updateBarChartPeopleWithEmptyData();
-                        }
-                    } else {
-                        android.util.Log.e("SuperadminMain", "Error cargando personas mensuales", task.getException());
-                        updateBarChartPeopleWithEmptyData();
-                    }
-                });
-    }
-
     private void updateBarChartPeopleWithData(Map<String, Integer> monthlyPeople) {
         if (barChartPeople == null) return;
 
@@ -1572,446 +939,87 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         barChartPeople.invalidate();
     }
 
-    private void loadMonthlyPeopleForPeriod(int periodPosition) {
-        if (barChartPeople == null || db == null) {
-            return;
-        }
-
-        // Calcular rango de fechas según el período
-        Calendar cal = Calendar.getInstance();
-        Date endDate = cal.getTime();
-        Date startDate;
-        
-        switch (periodPosition) {
-            case 0: // Hoy
-                cal.set(Calendar.HOUR_OF_DAY, 0);
-                cal.set(Calendar.MINUTE, 0);
-                cal.set(Calendar.SECOND, 0);
-                cal.set(Calendar.MILLISECOND, 0);
-                startDate = cal.getTime();
-                break;
-            case 1: // Semana (últimos 7 días)
-                cal.add(Calendar.DAY_OF_YEAR, -7);
-                startDate = cal.getTime();
-                break;
-            case 2: // Mes (último mes)
-                cal.add(Calendar.MONTH, -1);
-                startDate = cal.getTime();
-                break;
-            case 3: // Año (último año)
-                cal.add(Calendar.YEAR, -1);
-                startDate = cal.getTime();
-                break;
-            default:
-                startDate = null;
-        }
-
-        android.util.Log.d("SuperadminMain", "Cargando personas para período: " + periodPosition + 
-                          " desde " + startDate + " hasta " + endDate);
-
-        // Consultar reservas con filtro de fecha
-        db.collection("reservations")
-                .whereIn("status", Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            Map<String, Integer> monthlyPeople = new HashMap<>();
-                            
-                            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String paymentStatus = doc.getString("paymentStatus");
-                                if (paymentStatus == null || 
-                                    paymentStatus.equals("CONFIRMADO") || 
-                                    paymentStatus.equals("COBRADO")) {
-                                    
-                                    String tourDate = doc.getString("tourDate");
-                                    if (tourDate != null && !tourDate.isEmpty()) {
-                                        try {
-                                            // Parsear tourDate y verificar si está en el rango
-                                            Date tourDateObj = sdf.parse(tourDate);
-                                            if (tourDateObj != null && startDate != null) {
-                                                if (tourDateObj.compareTo(startDate) >= 0 && 
-                                                    tourDateObj.compareTo(endDate) <= 0) {
-                                                    
-                                                    String yearMonth = extractYearMonth(tourDate);
-                                                    
-                                                    // Obtener numberOfPeople
-                                                    Object peopleObj = doc.get("numberOfPeople");
-                                                    if (peopleObj != null) {
-                                                        int people = 0;
-                                                        if (peopleObj instanceof Integer) {
-                                                            people = (Integer) peopleObj;
-                                                        } else if (peopleObj instanceof Long) {
-                                                            people = ((Long) peopleObj).intValue();
-                                                        } else if (peopleObj instanceof Number) {
-                                                            people = ((Number) peopleObj).intValue();
-                                                        }
-                                                        
-                                                        // Sumar personas por mes
-                                                        monthlyPeople.put(yearMonth, 
-                                                            monthlyPeople.getOrDefault(yearMonth, 0) + people);
-                                                    }
-                                                }
-                                            }
-                                        } catch (Exception e) {
-                                            android.util.Log.w("SuperadminMain", "Error parseando fecha: " + tourDate, e);
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            updateBarChartPeopleWithData(monthlyPeople);
-                        } else {
-                            updateBarChartPeopleWithEmptyData();
-                        }
-                    } else {
-                        android.util.Log.e("SuperadminMain", "Error cargando personas por período", task.getException());
-                        updateBarChartPeopleWithEmptyData();
-                    }
-                });
-    }
-
     private void updateKPIs() {
         // Cargar total de usuarios desde Firestore
         loadTotalUsers();
         
         // Cargar tours activos desde Firestore
         loadActiveTours();
-        
-        // Cargar total de reservas desde Firestore
-        loadTotalBookings();
-        
-        // Cargar ingresos totales desde Firestore
-        loadTotalRevenue();
+
+        // Reservas e ingresos totales se leen del rollup en loadDashboardAnalytics()
     }
 
     private void loadTotalUsers() {
-        if (tvTotalUsers == null || db == null) {
-            android.util.Log.w("SuperadminMain", "loadTotalUsers: tvTotalUsers o db es null");
+        if (tvTotalUsers == null) {
+            android.util.Log.w("SuperadminMain", "loadTotalUsers: tvTotalUsers es null");
             return;
         }
 
-        // Mostrar indicador de carga
+        // Mostrar indicador de carga (se reemplaza de inmediato si hay un valor guardado)
         tvTotalUsers.setText("Cargando...");
-        
-        android.util.Log.d("SuperadminMain", "Iniciando consulta a colección 'users'");
 
-        // Consultar todos los usuarios en la colección
-        db.collection("users")
-                .get()
-                .addOnCompleteListener(task -> {
-                    android.util.Log.d("SuperadminMain", "Consulta completada. Éxito: " + task.isSuccessful());
-                    
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        android.util.Log.d("SuperadminMain", "QuerySnapshot: " + (querySnapshot != null ? "no null" : "null"));
-                        
-                        if (querySnapshot != null) {
-                            int totalUsers = querySnapshot.size();
-                            android.util.Log.d("SuperadminMain", "Total de documentos obtenidos: " + totalUsers);
-                            
-                            // Log adicional: listar IDs de documentos obtenidos
-                            if (!querySnapshot.isEmpty()) {
-                                android.util.Log.d("SuperadminMain", "Documentos encontrados:");
-                                for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                    android.util.Log.d("SuperadminMain", "  - ID: " + doc.getId() + ", Email: " + doc.getString("email"));
-                                }
-                            } else {
-                                android.util.Log.w("SuperadminMain", "QuerySnapshot está vacío");
-                            }
-                            
-                            // Verificar si hay más documentos (paginación)
-                            if (querySnapshot.getMetadata().hasPendingWrites()) {
-                                android.util.Log.w("SuperadminMain", "Hay escrituras pendientes que podrían afectar el conteo");
-                            }
-                            
-                            // Formatear número con separador de miles
-                            String formattedCount = formatNumber(totalUsers);
-                            tvTotalUsers.setText(formattedCount);
-                            android.util.Log.d("SuperadminMain", "Total de usuarios mostrado: " + formattedCount);
-                        } else {
-                            android.util.Log.w("SuperadminMain", "QuerySnapshot es null");
-                            tvTotalUsers.setText("0");
-                        }
-                    } else {
-                        // Error al cargar, mostrar valor por defecto
-                        Exception exception = task.getException();
-                        android.util.Log.e("SuperadminMain", "Error cargando total de usuarios", exception);
-                        if (exception != null) {
-                            android.util.Log.e("SuperadminMain", "Mensaje de error: " + exception.getMessage());
-                            android.util.Log.e("SuperadminMain", "Causa: " + (exception.getCause() != null ? exception.getCause().getMessage() : "null"));
-                        }
-                        tvTotalUsers.setText("--");
-                    }
-                });
+        // count() en el servidor: una lectura de agregado en lugar de descargar todos los usuarios
+        countManager.countUsers(new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                int totalUsers = (Integer) result;
+                tvTotalUsers.setText(formatNumber(totalUsers));
+                android.util.Log.d("SuperadminMain", "Total de usuarios mostrado: " + totalUsers);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                android.util.Log.e("SuperadminMain", "Error cargando total de usuarios", e);
+                tvTotalUsers.setText("--");
+            }
+        });
     }
 
     private void loadActiveTours() {
-        if (tvActiveTours == null || db == null) {
-            android.util.Log.w("SuperadminMain", "loadActiveTours: tvActiveTours o db es null");
+        if (tvActiveTours == null) {
+            android.util.Log.w("SuperadminMain", "loadActiveTours: tvActiveTours es null");
             return;
         }
 
         // Mostrar indicador de carga
         tvActiveTours.setText("Cargando...");
-        
-        android.util.Log.d("SuperadminMain", "Iniciando consulta a colección 'tours' con filtro isActive=true");
 
-        // Consultar tours activos (isActive == true)
-        db.collection("tours")
-                .whereEqualTo("isActive", true)
-                .get()
-                .addOnCompleteListener(task -> {
-                    android.util.Log.d("SuperadminMain", "Consulta de tours completada. Éxito: " + task.isSuccessful());
-                    
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        android.util.Log.d("SuperadminMain", "QuerySnapshot tours: " + (querySnapshot != null ? "no null" : "null"));
-                        
-                        if (querySnapshot != null) {
-                            int activeTours = querySnapshot.size();
-                            android.util.Log.d("SuperadminMain", "Total de tours activos obtenidos: " + activeTours);
-                            
-                            // Log adicional: listar IDs de tours activos
-                            if (!querySnapshot.isEmpty()) {
-                                android.util.Log.d("SuperadminMain", "Tours activos encontrados:");
-                                for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                    String tourName = doc.getString("name");
-                                    if (tourName == null || tourName.isEmpty()) {
-                                        tourName = doc.getId();
-                                    }
-                                    android.util.Log.d("SuperadminMain", "  - ID: " + doc.getId() + ", Nombre: " + tourName);
-                                }
-                            } else {
-                                android.util.Log.w("SuperadminMain", "No se encontraron tours activos");
-                            }
-                            
-                            // Actualizar UI con el número de tours activos
-                            tvActiveTours.setText(String.valueOf(activeTours));
-                            android.util.Log.d("SuperadminMain", "Total de tours activos mostrado: " + activeTours);
-                        } else {
-                            android.util.Log.w("SuperadminMain", "QuerySnapshot de tours es null");
-                            tvActiveTours.setText("0");
-                        }
-                    } else {
-                        // Error al cargar, mostrar valor por defecto
-                        Exception exception = task.getException();
-                        android.util.Log.e("SuperadminMain", "Error cargando tours activos", exception);
-                        if (exception != null) {
-                            android.util.Log.e("SuperadminMain", "Mensaje de error: " + exception.getMessage());
-                        }
-                        tvActiveTours.setText("--");
-                    }
-                });
-    }
-
-    private void loadTotalBookings() {
-        if (tvBookings == null || db == null) {
-            android.util.Log.w("SuperadminMain", "loadTotalBookings: tvBookings o db es null");
-            return;
-        }
-
-        // Mostrar indicador de carga
-        tvBookings.setText("Cargando...");
-        
-        android.util.Log.d("SuperadminMain", "Iniciando consulta a colección 'reservations' para contar reservas");
-
-        // Consultar todas las reservas (o solo las confirmadas/completadas)
-        // Filtrar por status: CONFIRMADA, EN_CURSO, COMPLETADA (excluir PENDIENTE y CANCELADA)
-        db.collection("reservations")
-                .whereIn("status", java.util.Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
-                .get()
-                .addOnCompleteListener(task -> {
-                    android.util.Log.d("SuperadminMain", "Consulta de reservas completada. Éxito: " + task.isSuccessful());
-                    
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        android.util.Log.d("SuperadminMain", "QuerySnapshot reservas: " + (querySnapshot != null ? "no null" : "null"));
-                        
-                        if (querySnapshot != null) {
-                            int totalBookings = querySnapshot.size();
-                            android.util.Log.d("SuperadminMain", "Total de reservas obtenidas: " + totalBookings);
-                            
-                            // Actualizar UI con el número de reservas
-                            tvBookings.setText(String.valueOf(totalBookings));
-                            android.util.Log.d("SuperadminMain", "Total de reservas mostrado: " + totalBookings);
-                        } else {
-                            android.util.Log.w("SuperadminMain", "QuerySnapshot de reservas es null");
-                            tvBookings.setText("0");
-                        }
-                    } else {
-                        // Si falla con whereIn, intentar sin filtro y contar en el cliente
-                        android.util.Log.w("SuperadminMain", "Error con whereIn, intentando sin filtro", task.getException());
-                        loadTotalBookingsWithoutFilter();
-                    }
-                });
-    }
+        // Tours activos (isActive == true) contados en el servidor
+        countManager.countActiveTours(new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                int activeTours = (Integer) result;
+                tvActiveTours.setText(String.valueOf(activeTours));
+                android.util.Log.d("SuperadminMain", "Total de tours activos mostrado: " + activeTours);
+            }
 
-    private void loadTotalBookingsWithoutFilter() {
-        db.collection("reservations")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            int totalBookings = 0;
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String status = doc.getString("status");
-                                if (status != null && 
-                                    (status.equals("CONFIRMADA") || 
-                                     status.equals("EN_CURSO") || 
-                                     status.equals("COMPLETADA"))) {
-                                    totalBookings++;
-                                }
-                            }
-                            android.util.Log.d("SuperadminMain", "Total de reservas (filtrado en cliente): " + totalBookings);
-                            tvBookings.setText(String.valueOf(totalBookings));
-                        } else {
-                            tvBookings.setText("0");
-                        }
-                    } else {
-                        Exception exception = task.getException();
-                        android.util.Log.e("SuperadminMain", "Error cargando reservas", exception);
-                        tvBookings.setText("--");
-                    }
-                });
+            @Override
+            public void onFailure(Exception e) {
+                android.util.Log.e("SuperadminMain", "Error cargando tours activos", e);
+                tvActiveTours.setText("--");
+            }
+        });
     }
 
-    private void loadTotalRevenue() {
-        if (tvRevenue == null || db == null) {
-            android.util.Log.w("SuperadminMain", "loadTotalRevenue: tvRevenue o db es null");
-            return;
-        }
-
-        // Mostrar indicador de carga
-        tvRevenue.setText("Cargando...");
-        
-        android.util.Log.d("SuperadminMain", "Iniciando consulta a colección 'reservations' para calcular ingresos");
-
-        // Consultar todas las reservas confirmadas/completadas para calcular ingresos
-        // Filtrar por status: CONFIRMADA, EN_CURSO, COMPLETADA
-        // Y por paymentStatus: CONFIRMADO, COBRADO
-        db.collection("reservations")
-                .whereIn("status", java.util.Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
-                .get()
-                .addOnCompleteListener(task -> {
-                    android.util.Log.d("SuperadminMain", "Consulta de ingresos completada. Éxito: " + task.isSuccessful());
-                    
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        android.util.Log.d("SuperadminMain", "QuerySnapshot ingresos: " + (querySnapshot != null ? "no null" : "null"));
-                        
-                        if (querySnapshot != null) {
-                            double totalRevenue = 0.0;
-                            int count = 0;
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                // Obtener totalPrice (puede ser Double, Long, o String)
-                                Object priceObj = doc.get("totalPrice");
-                                if (priceObj != null) {
-                                    double price = 0.0;
-                                    if (priceObj instanceof Double) {
-                                        price = (Double) priceObj;
-                                    } else if (priceObj instanceof Long) {
-                                        price = ((Long) priceObj).doubleValue();
-                                    } else if (priceObj instanceof Number) {
-                                        price = ((Number) priceObj).doubleValue();
-                                    } else if (priceObj instanceof String) {
-                                        try {
-                                            price = Double.parseDouble((String) priceObj);
-                                        } catch (NumberFormatException e) {
-                                            android.util.Log.w("SuperadminMain", "No se pudo parsear totalPrice: " + priceObj);
-                                        }
-                                    }
-                                    
-                                    // Verificar también paymentStatus si está disponible
-                                    String paymentStatus = doc.getString("paymentStatus");
-                                    if (paymentStatus == null || 
-                                        paymentStatus.equals("CONFIRMADO") || 
-                                        paymentStatus.equals("COBRADO")) {
-                                        totalRevenue += price;
-                                        count++;
-                                    }
-                                }
-                            }
-                            
-                            android.util.Log.d("SuperadminMain", "Total de ingresos calculados: S/ " + totalRevenue + " (de " + count + " reservas)");
-                            
-                            // Formatear como moneda peruana
-                            String formattedRevenue = formatCurrency(totalRevenue);
-                            tvRevenue.setText(formattedRevenue);
-                            android.util.Log.d("SuperadminMain", "Ingresos mostrados: " + formattedRevenue);
-                        } else {
-                            android.util.Log.w("SuperadminMain", "QuerySnapshot de ingresos es null");
-                            tvRevenue.setText("S/ 0");
-                        }
-                    } else {
-                        // Si falla con whereIn, intentar sin filtro y calcular en el cliente
-                        android.util.Log.w("SuperadminMain", "Error con whereIn, intentando sin filtro", task.getException());
-                        loadTotalRevenueWithoutFilter();
-                    }
-                });
-    }
+    /**
+     * Notificaciones no leídas del superadmin para el badge (una lectura de agregado)
+     */
+    private void loadNotificationsCount() {
+        String userId = FirebaseAuthManager.getInstance(this).getCurrentUserId();
+        if (userId == null) return;
+
+        countManager.countUnreadNotifications(userId, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                notificationCount = (Integer) result;
+                updateNotificationBadge();
+            }
 
-    private void loadTotalRevenueWithoutFilter() {
-        db.collection("reservations")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            double totalRevenue = 0.0;
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String status = doc.getString("status");
-                                String paymentStatus = doc.getString("paymentStatus");
-                                
-                                // Solo contar reservas confirmadas/completadas con pago confirmado
-                                if (status != null && 
-                                    (status.equals("CONFIRMADA") || 
-                                     status.equals("EN_CURSO") || 
-                                     status.equals("COMPLETADA"))) {
-                                    
-                                    if (paymentStatus == null || 
-                                        paymentStatus.equals("CONFIRMADO") || 
-                                        paymentStatus.equals("COBRADO")) {
-                                        
-                                        Object priceObj = doc.get("totalPrice");
-                                        if (priceObj != null) {
-                                            double price = 0.0;
-                                            if (priceObj instanceof Double) {
-                                                price = (Double) priceObj;
-                                            } else if (priceObj instanceof Long) {
-                                                price = ((Long) priceObj).doubleValue();
-                                            } else if (priceObj instanceof Number) {
-                                                price = ((Number) priceObj).doubleValue();
-                                            } else if (priceObj instanceof String) {
-                                                try {
-                                                    price = Double.parseDouble((String) priceObj);
-                                                } catch (NumberFormatException e) {
-                                                    // Ignorar si no se puede parsear
-                                                }
-                                            }
-                                            totalRevenue += price;
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            android.util.Log.d("SuperadminMain", "Total de ingresos (filtrado en cliente): S/ " + totalRevenue);
-                            tvRevenue.setText(formatCurrency(totalRevenue));
-                        } else {
-                            tvRevenue.setText("S/ 0");
-                        }
-                    } else {
-                        Exception exception = task.getException();
-                        android.util.Log.e("SuperadminMain", "Error cargando ingresos", exception);
-                        tvRevenue.setText("--");
-                    }
-                });
+            @Override
+            public void onFailure(Exception e) {
+                android.util.Log.e("SuperadminMain", "Error contando notificaciones", e);
+            }
+        });
     }
 
     private String formatNumber(int number) {
@@ -2027,6 +1035,11 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
     private void setupFAB() {
         if (fabExport != null) {
             fabExport.setOnClickListener(v -> {
+                if (activeExport != null) {
+                    activeExport.cancel();
+                    Toast.makeText(this, "Cancelando exportación...", Toast.LENGTH_SHORT).show();
+                    return;
+                }
                 Toast.makeText(this, "Iniciando exportación...", Toast.LENGTH_SHORT).show();
                 exportAnalyticsReport();
                 // ✨ Incrementar badge cuando se usa FAB
@@ -2036,6 +1049,10 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         }
     }
 
+    /**
+     * Exportar PDF + gráficos en segundo plano con AnalyticsReportExporter; el FAB pasa a cancelar
+     * mientras dura y el progreso se muestra en una notificación.
+     */
     private void exportAnalyticsReport() {
         // En Android 10+ (API 29+), no necesitamos WRITE_EXTERNAL_STORAGE para escribir en Downloads
         // Pero verificamos si estamos en una versión anterior
@@ -2048,651 +1065,124 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
             return;
             }
         }
-
-        try {
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-            
-            // Exportar archivos
-            String pdfPath;
-            List<String> imagePaths = new ArrayList<>();
-            
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                // Android 10+ usar MediaStore para que aparezcan en Descargas del sistema
-                pdfPath = exportToPDFWithMediaStore(timestamp);
-                imagePaths = exportChartsToImagesWithMediaStore(timestamp);
-            } else {
-                // Android 9 y anteriores usar directorio tradicional
-            File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
-            File droidTourDir = new File(downloadsDir, "DroidTour");
-            if (!droidTourDir.exists()) {
-                    boolean created = droidTourDir.mkdirs();
-                    if (!created) {
-                        android.util.Log.e("SuperadminMain", "No se pudo crear el directorio: " + droidTourDir.getAbsolutePath());
-                        Toast.makeText(this, "❌ Error: No se pudo crear el directorio de descarga", Toast.LENGTH_LONG).show();
-                        return;
-                    }
-                }
-                pdfPath = exportToPDF(droidTourDir, timestamp);
-                imagePaths = exportChartsToImages(droidTourDir, timestamp);
-            }
-
-            showExportSuccessNotification(pdfPath, imagePaths);
-            String message = "✅ Exportación completada\n" + 
-                           "1 PDF y " + imagePaths.size() + " imágenes guardadas\n" +
-                           "Archivos en Descargas/DroidTour";
-            Toast.makeText(this, message, Toast.LENGTH_LONG).show();
-
-        } catch (Exception e) {
-            android.util.Log.e("SuperadminMain", "Error en exportación", e);
-            showExportErrorNotification();
-            Toast.makeText(this, "❌ Error al exportar: " + e.getMessage(), Toast.LENGTH_LONG).show();
-        }
-    }
-
-    @Override
-    public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
-        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
-        if (requestCode == PERMISSION_REQUEST_CODE) {
-            if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
-                // Permiso concedido, intentar exportar nuevamente
-                exportAnalyticsReport();
-            } else {
-                Toast.makeText(this, "❌ Permiso denegado. No se puede exportar sin permisos de almacenamiento.", Toast.LENGTH_LONG).show();
-            }
-        }
-    }
-
-    private String exportToPDF(File directory, String timestamp) throws IOException {
-        PdfDocument document = new PdfDocument();
-        PdfDocument.PageInfo pageInfo = new PdfDocument.PageInfo.Builder(595, 842, 1).create();
-        PdfDocument.Page page = document.startPage(pageInfo);
-
-        Canvas canvas = page.getCanvas();
-        Paint paint = new Paint();
-        paint.setAntiAlias(true);
-
-        paint.setTextSize(24);
-        paint.setColor(getResources().getColor(R.color.primary));
-        paint.setFakeBoldText(true);
-        canvas.drawText("Reporte Analytics - DroidTour", 50, 80, paint);
-
-        paint.setTextSize(14);
-        paint.setColor(Color.BLACK);
-        paint.setFakeBoldText(false);
-        String currentDate = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault()).format(new Date());
-        canvas.drawText("Generado: " + currentDate, 50, 110, paint);
-
-        paint.setTextSize(16);
-        paint.setFakeBoldText(true);
-        canvas.drawText("Indicadores Clave de Rendimiento", 50, 160, paint);
-
-        paint.setTextSize(12);
-        paint.setFakeBoldText(false);
-        
-        // Obtener valores reales de los KPIs
-        String totalUsers = tvTotalUsers != null ? tvTotalUsers.getText().toString() : "N/A";
-        String activeTours = tvActiveTours != null ? tvActiveTours.getText().toString() : "N/A";
-        String revenue = tvRevenue != null ? tvRevenue.getText().toString() : "N/A";
-        String bookings = tvBookings != null ? tvBookings.getText().toString() : "N/A";
-        
-        canvas.drawText("• Total Usuarios: " + totalUsers, 70, 190, paint);
-        canvas.drawText("• Tours Activos: " + activeTours, 70, 210, paint);
-        canvas.drawText("• Ingresos: " + revenue, 70, 230, paint);
-        canvas.drawText("• Reservas: " + bookings, 70, 250, paint);
-
-        paint.setTextSize(16);
-        paint.setFakeBoldText(true);
-        canvas.drawText("Análisis de Tendencias", 50, 300, paint);
-
-        paint.setTextSize(12);
-        paint.setFakeBoldText(false);
-        
-        // Análisis basado en datos reales (si están disponibles)
-        String trendText = "• Datos actualizados al " + currentDate;
-        canvas.drawText(trendText, 70, 330, paint);
-        
-        // Información sobre categorías de tours (si el gráfico tiene datos)
-        if (pieChartTours != null && pieChartTours.getData() != null && 
-            pieChartTours.getData().getDataSet() != null) {
-            PieDataSet dataSet = (PieDataSet) pieChartTours.getData().getDataSet();
-            if (dataSet.getEntryCount() > 0) {
-                PieEntry largestEntry = dataSet.getEntryForIndex(0);
-                if (largestEntry != null) {
-                    String categoryName = largestEntry.getLabel();
-                    float percentage = largestEntry.getValue();
-                    canvas.drawText("• Categoría más popular: " + categoryName + " (" + 
-                                  String.format(Locale.getDefault(), "%.1f", percentage) + "%)", 70, 350, paint);
-                }
-            }
-        } else {
-            canvas.drawText("• Información de categorías disponible en gráficos", 70, 350, paint);
-        }
-        
-        canvas.drawText("• Reporte generado desde el dashboard de SuperAdmin", 70, 370, paint);
-        canvas.drawText("• Todos los datos provienen de Firebase Firestore", 70, 390, paint);
-
-        paint.setTextSize(10);
-        paint.setColor(Color.GRAY);
-        canvas.drawText("DroidTour SuperAdmin Dashboard - Confidencial", 50, 800, paint);
-
-        document.finishPage(page);
-
-        String fileName = "Reporte_Analytics_" + timestamp + ".pdf";
-        File file = new File(directory, fileName);
-        FileOutputStream fos = new FileOutputStream(file);
-        document.writeTo(fos);
-        document.close();
-        fos.close();
-
-        return file.getAbsolutePath();
-    }
-
-    /**
-     * Exportar PDF usando MediaStore para Android 10+ (aparece en Descargas del sistema)
-     */
-    private String exportToPDFWithMediaStore(String timestamp) throws IOException {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
-            throw new UnsupportedOperationException("Este método solo funciona en Android 10+");
+        if (activeExport != null) {
+            return;
         }
 
-        PdfDocument document = new PdfDocument();
-        PdfDocument.PageInfo pageInfo = new PdfDocument.PageInfo.Builder(595, 842, 1).create();
-        PdfDocument.Page page = document.startPage(pageInfo);
-
-        Canvas canvas = page.getCanvas();
-        Paint paint = new Paint();
-        paint.setAntiAlias(true);
-
-        paint.setTextSize(24);
-        paint.setColor(getResources().getColor(R.color.primary));
-        paint.setFakeBoldText(true);
-        canvas.drawText("Reporte Analytics - DroidTour", 50, 80, paint);
-
-        paint.setTextSize(14);
-        paint.setColor(Color.BLACK);
-        paint.setFakeBoldText(false);
-        String currentDate = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault()).format(new Date());
-        canvas.drawText("Generado: " + currentDate, 50, 110, paint);
-
-        paint.setTextSize(16);
-        paint.setFakeBoldText(true);
-        canvas.drawText("Indicadores Clave de Rendimiento", 50, 160, paint);
-
-        paint.setTextSize(12);
-        paint.setFakeBoldText(false);
-        
-        // Obtener valores reales de los KPIs
-        String totalUsers = tvTotalUsers != null ? tvTotalUsers.getText().toString() : "N/A";
-        String activeTours = tvActiveTours != null ? tvActiveTours.getText().toString() : "N/A";
-        String revenue = tvRevenue != null ? tvRevenue.getText().toString() : "N/A";
-        String bookings = tvBookings != null ? tvBookings.getText().toString() : "N/A";
-        
-        canvas.drawText("• Total Usuarios: " + totalUsers, 70, 190, paint);
-        canvas.drawText("• Tours Activos: " + activeTours, 70, 210, paint);
-        canvas.drawText("• Ingresos: " + revenue, 70, 230, paint);
-        canvas.drawText("• Reservas: " + bookings, 70, 250, paint);
-
-        paint.setTextSize(16);
-        paint.setFakeBoldText(true);
-        canvas.drawText("Análisis de Tendencias", 50, 300, paint);
-
-        paint.setTextSize(12);
-        paint.setFakeBoldText(false);
-        
-        String trendText = "• Datos actualizados al " + currentDate;
-        canvas.drawText(trendText, 70, 330, paint);
-        
-        if (pieChartTours != null && pieChartTours.getData() != null && 
-            pieChartTours.getData().getDataSet() != null) {
-            PieDataSet dataSet = (PieDataSet) pieChartTours.getData().getDataSet();
-            if (dataSet.getEntryCount() > 0) {
-                PieEntry largestEntry = dataSet.getEntryForIndex(0);
-                if (largestEntry != null) {
-                    String categoryName = largestEntry.getLabel();
-                    float percentage = largestEntry.getValue();
-                    canvas.drawText("• Categoría más popular: " + categoryName + " (" + 
-                                  String.format(Locale.getDefault(), "%.1f", percentage) + "%)", 70, 350, paint);
-                }
-            }
+        // Los gráficos se generan desde los datos agregados, no desde las vistas del dashboard
+        ReservationMetrics metrics;
+        if (dashboardRollup != null) {
+            metrics = dashboardRollup.toMetrics(null, null);
+        } else if (reservationsSnapshot != null && toursSnapshot != null) {
+            metrics = reduceSnapshots(null, null);
         } else {
-            canvas.drawText("• Información de categorías disponible en gráficos", 70, 350, paint);
-        }
-        
-        canvas.drawText("• Reporte generado desde el dashboard de SuperAdmin", 70, 370, paint);
-        canvas.drawText("• Todos los datos provienen de Firebase Firestore", 70, 390, paint);
-
-        paint.setTextSize(10);
-        paint.setColor(Color.GRAY);
-        canvas.drawText("DroidTour SuperAdmin Dashboard - Confidencial", 50, 800, paint);
-
-        document.finishPage(page);
-
-        // Guardar usando MediaStore
-        String fileName = "Reporte_Analytics_" + timestamp + ".pdf";
-        ContentValues contentValues = new ContentValues();
-        contentValues.put(MediaStore.Downloads.DISPLAY_NAME, fileName);
-        contentValues.put(MediaStore.Downloads.MIME_TYPE, "application/pdf");
-        contentValues.put(MediaStore.Downloads.RELATIVE_PATH, Environment.DIRECTORY_DOWNLOADS + "/DroidTour");
-
-        Uri uri = getContentResolver().insert(MediaStore.Downloads.EXTERNAL_CONTENT_URI, contentValues);
-        if (uri != null) {
-            FileOutputStream fos = (FileOutputStream) getContentResolver().openOutputStream(uri);
-            if (fos != null) {
-                document.writeTo(fos);
-                fos.close();
-            }
+            Toast.makeText(this, "Los datos de analítica aún se están cargando", Toast.LENGTH_SHORT).show();
+            return;
         }
-        document.close();
 
-        return uri != null ? uri.toString() : fileName;
-    }
-
-    /**
-     * Exportar cada gráfico como imagen separada usando MediaStore para Android 10+
-     * (aparece en Descargas del sistema)
-     */
-    private List<String> exportChartsToImagesWithMediaStore(String timestamp) throws IOException {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
-            throw new UnsupportedOperationException("Este método solo funciona en Android 10+");
-        }
+        Map<String, String> kpis = new java.util.LinkedHashMap<>();
+        kpis.put("Total Usuarios", tvTotalUsers != null ? tvTotalUsers.getText().toString() : "N/A");
+        kpis.put("Tours Activos", tvActiveTours != null ? tvActiveTours.getText().toString() : "N/A");
+        kpis.put("Ingresos Totales", tvRevenue != null ? tvRevenue.getText().toString() : "N/A");
+        kpis.put("Reservas Totales", tvBookings != null ? tvBookings.getText().toString() : "N/A");
 
-        List<String> imagePaths = new ArrayList<>();
-        int chartWidth = 1200;  // Ancho mayor para mejor calidad
-        int chartHeight = 800;  // Alto mayor para mejor calidad
-        String currentDate = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault()).format(new Date());
+        createExportChannel();
+        activeExport = new AnalyticsReportExporter(this, metrics, kpis);
+        if (fabExport != null) fabExport.setText("Cancelar exportación");
 
-        // Exportar gráfico de Ingresos Mensuales
-        if (lineChartRevenue != null && lineChartRevenue.getData() != null) {
-            try {
-                Bitmap chartBitmap = captureChartAsBitmap(lineChartRevenue, chartWidth, chartHeight);
-                if (chartBitmap != null) {
-                    String fileName = "Ingresos_Mensuales_" + timestamp + ".png";
-                    String path = saveChartBitmapWithMediaStore(chartBitmap, fileName, "Ingresos Mensuales", currentDate);
-                    if (path != null) {
-                        imagePaths.add(path);
-                    }
-                    chartBitmap.recycle();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error exportando gráfico de ingresos", e);
+        activeExport.start(new ExportPipeline.Listener<String>() {
+            @Override
+            public void onProgress(int completed, int total, String label) {
+                showExportProgressNotification(completed, total, label);
             }
-        }
 
-        // Exportar gráfico de Precio Promedio por Persona
-        if (lineChartAveragePrice != null && lineChartAveragePrice.getData() != null) {
-            try {
-                Bitmap chartBitmap = captureChartAsBitmap(lineChartAveragePrice, chartWidth, chartHeight);
-                if (chartBitmap != null) {
-                    String fileName = "Precio_Promedio_Persona_" + timestamp + ".png";
-                    String path = saveChartBitmapWithMediaStore(chartBitmap, fileName, "Precio Promedio por Persona", currentDate);
-                    if (path != null) {
-                        imagePaths.add(path);
-                    }
-                    chartBitmap.recycle();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error exportando gráfico de precio promedio", e);
+            @Override
+            public void onComplete(List<String> outputs, int skippedSteps) {
+                finishExport();
+                List<String> imagePaths = outputs.subList(1, outputs.size());
+                showExportSuccessNotification(outputs.get(0), imagePaths, skippedSteps);
+                String message = "✅ Exportación completada\n" +
+                               "1 PDF y " + imagePaths.size() + " imágenes guardadas\n" +
+                               (skippedSteps > 0 ? "⚠️ " + skippedSteps + " gráficos no se pudieron generar\n" : "") +
+                               "Archivos en Descargas/DroidTour";
+                Toast.makeText(SuperadminMainActivity.this, message, Toast.LENGTH_LONG).show();
             }
-        }
 
-        // Exportar gráfico de Tours por Categoría
-        if (pieChartTours != null && pieChartTours.getData() != null) {
-            try {
-                Bitmap chartBitmap = captureChartAsBitmap(pieChartTours, chartWidth, chartHeight);
-                if (chartBitmap != null) {
-                    String fileName = "Tours_por_Categoria_" + timestamp + ".png";
-                    String path = saveChartBitmapWithMediaStore(chartBitmap, fileName, "Tours por Categoría", currentDate);
-                    if (path != null) {
-                        imagePaths.add(path);
-                    }
-                    chartBitmap.recycle();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error exportando gráfico de categorías", e);
+            @Override
+            public void onCancelled() {
+                finishExport();
+                Toast.makeText(SuperadminMainActivity.this, "Exportación cancelada", Toast.LENGTH_SHORT).show();
             }
-        }
 
-        // Exportar gráfico de Reservas por Mes
-        if (barChartBookings != null && barChartBookings.getData() != null) {
-            try {
-                Bitmap chartBitmap = captureChartAsBitmap(barChartBookings, chartWidth, chartHeight);
-                if (chartBitmap != null) {
-                    String fileName = "Reservas_por_Mes_" + timestamp + ".png";
-                    String path = saveChartBitmapWithMediaStore(chartBitmap, fileName, "Reservas por Mes", currentDate);
-                    if (path != null) {
-                        imagePaths.add(path);
-                    }
-                    chartBitmap.recycle();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error exportando gráfico de reservas", e);
+            @Override
+            public void onError(Exception e) {
+                android.util.Log.e("SuperadminMain", "Error en exportación", e);
+                finishExport();
+                showExportErrorNotification();
+                Toast.makeText(SuperadminMainActivity.this, "❌ Error al exportar: " + e.getMessage(), Toast.LENGTH_LONG).show();
             }
-        }
-
-        // Exportar gráfico de Personas por Mes
-        if (barChartPeople != null && barChartPeople.getData() != null) {
-            try {
-                Bitmap chartBitmap = captureChartAsBitmap(barChartPeople, chartWidth, chartHeight);
-                if (chartBitmap != null) {
-                    String fileName = "Personas_por_Mes_" + timestamp + ".png";
-                    String path = saveChartBitmapWithMediaStore(chartBitmap, fileName, "Personas por Mes", currentDate);
-                    if (path != null) {
-                        imagePaths.add(path);
-                    }
-                    chartBitmap.recycle();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error exportando gráfico de personas", e);
-            }
-        }
-
-        return imagePaths;
+        });
     }
 
-    /**
-     * Guardar un bitmap de gráfico como imagen usando MediaStore
-     */
-    private String saveChartBitmapWithMediaStore(Bitmap chartBitmap, String fileName, String chartTitle, String currentDate) {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
-            return null;
-        }
-
-        try {
-            // Crear bitmap con título y gráfico
-            int padding = 40;
-            int titleHeight = 100;
-            int width = chartBitmap.getWidth() + (padding * 2);
-            int height = chartBitmap.getHeight() + titleHeight + (padding * 2);
-
-            Bitmap finalBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-            Canvas canvas = new Canvas(finalBitmap);
-            canvas.drawColor(Color.WHITE);
-
-            Paint paint = new Paint();
-            paint.setAntiAlias(true);
-
-            // Dibujar título
-            paint.setTextSize(36);
-        paint.setColor(getResources().getColor(R.color.primary));
-            paint.setFakeBoldText(true);
-            float titleX = padding;
-            float titleY = padding + 50;
-            canvas.drawText(chartTitle, titleX, titleY, paint);
-
-            // Dibujar fecha
-        paint.setTextSize(16);
-            paint.setFakeBoldText(false);
-            paint.setColor(Color.GRAY);
-            canvas.drawText("Generado: " + currentDate, titleX, titleY + 30, paint);
-
-            // Dibujar el gráfico
-            canvas.drawBitmap(chartBitmap, padding, titleHeight + padding, null);
-
-            // Guardar usando MediaStore
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(MediaStore.Downloads.DISPLAY_NAME, fileName);
-            contentValues.put(MediaStore.Downloads.MIME_TYPE, "image/png");
-            contentValues.put(MediaStore.Downloads.RELATIVE_PATH, Environment.DIRECTORY_DOWNLOADS + "/DroidTour");
-
-            Uri uri = getContentResolver().insert(MediaStore.Downloads.EXTERNAL_CONTENT_URI, contentValues);
-            if (uri != null) {
-                FileOutputStream fos = (FileOutputStream) getContentResolver().openOutputStream(uri);
-                if (fos != null) {
-                    finalBitmap.compress(Bitmap.CompressFormat.PNG, 100, fos);
-                    fos.close();
-                    finalBitmap.recycle();
-                    return uri.toString();
-                }
-            }
-            finalBitmap.recycle();
-        } catch (Exception e) {
-            android.util.Log.e("SuperadminMain", "Error guardando gráfico con MediaStore: " + chartTitle, e);
+    @Override
+    protected void onDestroy() {
+        // La exportación borra lo que llevaba escrito al cancelarse
+        if (activeExport != null) {
+            activeExport.cancel();
+            activeExport = null;
         }
-        return null;
+        super.onDestroy();
     }
 
-    /**
-     * Exportar cada gráfico como imagen separada (Android 9 y anteriores)
-     */
-    private List<String> exportChartsToImages(File directory, String timestamp) throws IOException {
-        List<String> imagePaths = new ArrayList<>();
-        int chartWidth = 1200;  // Ancho mayor para mejor calidad
-        int chartHeight = 800;  // Alto mayor para mejor calidad
-        String currentDate = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault()).format(new Date());
-
-        // Exportar gráfico de Ingresos Mensuales
-        if (lineChartRevenue != null && lineChartRevenue.getData() != null) {
-            try {
-                Bitmap chartBitmap = captureChartAsBitmap(lineChartRevenue, chartWidth, chartHeight);
-                if (chartBitmap != null) {
-                    String fileName = "Ingresos_Mensuales_" + timestamp + ".png";
-                    String path = saveChartBitmap(chartBitmap, directory, fileName, "Ingresos Mensuales", currentDate);
-                    if (path != null) {
-                        imagePaths.add(path);
-                    }
-                    chartBitmap.recycle();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error exportando gráfico de ingresos", e);
-            }
-        }
-
-        // Exportar gráfico de Precio Promedio por Persona
-        if (lineChartAveragePrice != null && lineChartAveragePrice.getData() != null) {
-            try {
-                Bitmap chartBitmap = captureChartAsBitmap(lineChartAveragePrice, chartWidth, chartHeight);
-                if (chartBitmap != null) {
-                    String fileName = "Precio_Promedio_Persona_" + timestamp + ".png";
-                    String path = saveChartBitmap(chartBitmap, directory, fileName, "Precio Promedio por Persona", currentDate);
-                    if (path != null) {
-                        imagePaths.add(path);
-                    }
-                    chartBitmap.recycle();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error exportando gráfico de precio promedio", e);
-            }
-        }
-
-        // Exportar gráfico de Tours por Categoría
-        if (pieChartTours != null && pieChartTours.getData() != null) {
-            try {
-                Bitmap chartBitmap = captureChartAsBitmap(pieChartTours, chartWidth, chartHeight);
-                if (chartBitmap != null) {
-                    String fileName = "Tours_por_Categoria_" + timestamp + ".png";
-                    String path = saveChartBitmap(chartBitmap, directory, fileName, "Tours por Categoría", currentDate);
-                    if (path != null) {
-                        imagePaths.add(path);
-                    }
-                    chartBitmap.recycle();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error exportando gráfico de categorías", e);
-            }
-        }
-
-        // Exportar gráfico de Reservas por Mes
-        if (barChartBookings != null && barChartBookings.getData() != null) {
-            try {
-                Bitmap chartBitmap = captureChartAsBitmap(barChartBookings, chartWidth, chartHeight);
-                if (chartBitmap != null) {
-                    String fileName = "Reservas_por_Mes_" + timestamp + ".png";
-                    String path = saveChartBitmap(chartBitmap, directory, fileName, "Reservas por Mes", currentDate);
-                    if (path != null) {
-                        imagePaths.add(path);
-                    }
-                    chartBitmap.recycle();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error exportando gráfico de reservas", e);
-            }
-        }
+    private void finishExport() {
+        activeExport = null;
+        NotificationManagerCompat.from(this).cancel(NOTIFICATION_ID + 2);
+        if (fabExport != null) fabExport.setText("Exportar");
+    }
 
-        // Exportar gráfico de Personas por Mes
-        if (barChartPeople != null && barChartPeople.getData() != null) {
-            try {
-                Bitmap chartBitmap = captureChartAsBitmap(barChartPeople, chartWidth, chartHeight);
-                if (chartBitmap != null) {
-                    String fileName = "Personas_por_Mes_" + timestamp + ".png";
-                    String path = saveChartBitmap(chartBitmap, directory, fileName, "Personas por Mes", currentDate);
-                    if (path != null) {
-                        imagePaths.add(path);
-                    }
-                    chartBitmap.recycle();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error exportando gráfico de personas", e);
+    @Override
+    public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        if (requestCode == PERMISSION_REQUEST_CODE) {
+            if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
+                // Permiso concedido, intentar exportar nuevamente
+                exportAnalyticsReport();
+            } else {
+                Toast.makeText(this, "❌ Permiso denegado. No se puede exportar sin permisos de almacenamiento.", Toast.LENGTH_LONG).show();
             }
         }
-
-        return imagePaths;
     }
 
     /**
-     * Guardar un bitmap de gráfico como imagen (Android 9 y anteriores)
+     * Canal de las notificaciones de exportación (Android 8+ descarta las notificaciones sin canal)
      */
-    private String saveChartBitmap(Bitmap chartBitmap, File directory, String fileName, String chartTitle, String currentDate) {
-        try {
-            // Crear bitmap con título y gráfico
-            int padding = 40;
-            int titleHeight = 100;
-            int width = chartBitmap.getWidth() + (padding * 2);
-            int height = chartBitmap.getHeight() + titleHeight + (padding * 2);
-
-            Bitmap finalBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-            Canvas canvas = new Canvas(finalBitmap);
-            canvas.drawColor(Color.WHITE);
-
-            Paint paint = new Paint();
-            paint.setAntiAlias(true);
-
-            // Dibujar título
-            paint.setTextSize(36);
-            paint.setColor(getResources().getColor(R.color.primary));
-            paint.setFakeBoldText(true);
-            float titleX = padding;
-            float titleY = padding + 50;
-            canvas.drawText(chartTitle, titleX, titleY, paint);
-
-            // Dibujar fecha
-            paint.setTextSize(16);
-            paint.setFakeBoldText(false);
-            paint.setColor(Color.GRAY);
-            canvas.drawText("Generado: " + currentDate, titleX, titleY + 30, paint);
-
-            // Dibujar el gráfico
-            canvas.drawBitmap(chartBitmap, padding, titleHeight + padding, null);
-
-            // Guardar archivo
-        File file = new File(directory, fileName);
-        FileOutputStream fos = new FileOutputStream(file);
-            finalBitmap.compress(Bitmap.CompressFormat.PNG, 100, fos);
-        fos.close();
-            finalBitmap.recycle();
-
-        return file.getAbsolutePath();
-        } catch (Exception e) {
-            android.util.Log.e("SuperadminMain", "Error guardando gráfico: " + chartTitle, e);
-            return null;
+    private void createExportChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            android.app.NotificationChannel channel = new android.app.NotificationChannel(CHANNEL_ID,
+                    "Exportaciones", android.app.NotificationManager.IMPORTANCE_LOW);
+            channel.setDescription("Progreso y resultado de las exportaciones de analítica");
+            getSystemService(android.app.NotificationManager.class).createNotificationChannel(channel);
         }
     }
 
-    /**
-     * Captura un gráfico como Bitmap usando View.draw()
-     * Compatible con todas las versiones de MPAndroidChart
-     * Deshabilita gestos durante la captura para evitar que el gráfico cambie de tamaño
-     */
-    private Bitmap captureChartAsBitmap(View chartView, int width, int height) {
-        if (chartView == null) {
-            android.util.Log.w("SuperadminMain", "chartView es null");
-            return null;
-        }
-
-        try {
-            // Deshabilitar gestos temporalmente según el tipo de gráfico
-            if (chartView instanceof LineChart) {
-                LineChart chart = (LineChart) chartView;
-                chart.setTouchEnabled(false);
-                chart.setDragEnabled(false);
-                chart.setScaleEnabled(false);
-            } else if (chartView instanceof BarChart) {
-                BarChart chart = (BarChart) chartView;
-                chart.setTouchEnabled(false);
-                chart.setDragEnabled(false);
-                chart.setScaleEnabled(false);
-            } else if (chartView instanceof PieChart) {
-                PieChart chart = (PieChart) chartView;
-                chart.setTouchEnabled(false);
-                chart.setRotationEnabled(false);
-            }
-            
-            // Usar las dimensiones actuales del view en lugar de forzar nuevas
-            int viewWidth = chartView.getWidth() > 0 ? chartView.getWidth() : width;
-            int viewHeight = chartView.getHeight() > 0 ? chartView.getHeight() : height;
-            
-            // Si el view no tiene dimensiones, medirlo
-            if (viewWidth == 0 || viewHeight == 0) {
-                chartView.measure(
-                        View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
-                        View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY)
-                );
-                viewWidth = chartView.getMeasuredWidth();
-                viewHeight = chartView.getMeasuredHeight();
-                chartView.layout(0, 0, viewWidth, viewHeight);
-            }
-
-            // Crear bitmap y canvas
-            Bitmap bitmap = Bitmap.createBitmap(viewWidth, viewHeight, Bitmap.Config.ARGB_8888);
-            Canvas canvas = new Canvas(bitmap);
-            
-            // Dibujar el fondo blanco
-            canvas.drawColor(Color.WHITE);
-            
-            // Dibujar el gráfico
-            chartView.draw(canvas);
+    private void showExportProgressNotification(int completed, int total, String label) {
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_download_24)
+                .setContentTitle("Exportando reporte")
+                .setContentText(label != null ? label + " (" + (completed + 1) + "/" + total + ")" : "Finalizando...")
+                .setProgress(total, completed, false)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .setColor(getResources().getColor(R.color.primary));
 
-            return bitmap;
-        } catch (Exception e) {
-            android.util.Log.e("SuperadminMain", "Error capturando gráfico como bitmap", e);
-            return null;
-        } finally {
-            // Restaurar estado original del gráfico (valores por defecto)
-            try {
-                if (chartView instanceof LineChart) {
-                    LineChart chart = (LineChart) chartView;
-                    chart.setTouchEnabled(true);
-                    chart.setDragEnabled(true);
-                    chart.setScaleEnabled(true);
-                    try {
-                        chart.fitScreen();
-                    } catch (Exception e) {
-                        // Ignorar si el método no existe
-                    }
-                    chart.invalidate();
-                } else if (chartView instanceof BarChart) {
-                    BarChart chart = (BarChart) chartView;
-                    chart.setTouchEnabled(true);
-                    chart.setDragEnabled(true);
-                    chart.setScaleEnabled(true);
-                    try {
-                        chart.fitScreen();
-                    } catch (Exception e) {
-                        // Ignorar si el método no existe
-                    }
-                    chart.invalidate();
-                } else if (chartView instanceof PieChart) {
-                    PieChart chart = (PieChart) chartView;
-                    chart.setTouchEnabled(true);
-                    chart.setRotationEnabled(true);
-                    chart.invalidate();
-                }
-            } catch (Exception e) {
-                android.util.Log.e("SuperadminMain", "Error restaurando estado del gráfico", e);
-            }
+        NotificationManagerCompat notificationManager = NotificationManagerCompat.from(this);
+        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS) == PackageManager.PERMISSION_GRANTED) {
+            notificationManager.notify(NOTIFICATION_ID + 2, builder.build());
         }
     }
 
-    private void showExportSuccessNotification(String pdfPath, List<String> imagePaths) {
+    private void showExportSuccessNotification(String pdfPath, List<String> imagePaths, int skippedSteps) {
         Intent intent = new Intent(Intent.ACTION_VIEW);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
         PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, intent,
@@ -2730,6 +1220,9 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         if (imagePaths.size() > 3) {
             imagesText.append("\n  ... y ").append(imagePaths.size() - 3).append(" más");
         }
+        if (skippedSteps > 0) {
+            imagesText.append("\n⚠️ No se pudieron generar ").append(skippedSteps).append(" gráficos");
+        }
         imagesText.append("\n📁 Ubicación: Descargas/DroidTour");
 
         NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
@@ -2764,223 +1257,47 @@ public class SuperadminMainActivity extends AppCompatActivity implements Navigat
         }
     }
 
-    private void updateDataForPeriod(int position) {
-        String period = "";
-        switch (position) {
-            case 0: period = "Hoy"; break;
-            case 1: period = "Semana"; break;
-            case 2: period = "Mes"; break;
-            case 3: period = "Año"; break;
-        }
-        
-        // Recargar ingresos mensuales con el filtro de período seleccionado
-        loadMonthlyRevenueForPeriod(position);
-        
-        // Recargar reservas mensuales con el filtro de período seleccionado
-        loadMonthlyBookingsForPeriod(position);
-        
-        // Recargar personas mensuales con el filtro de período seleccionado
-        loadMonthlyPeopleForPeriod(position);
-        
-        // Recargar precio promedio mensual con el filtro de período seleccionado
-        loadMonthlyAveragePriceForPeriod(position);
-        
-        Toast.makeText(this, "Mostrando datos de: " + period, Toast.LENGTH_SHORT).show();
-    }
-
-    private void loadMonthlyRevenueForPeriod(int periodPosition) {
-        if (lineChartRevenue == null || db == null) {
-            return;
-        }
-
-        // Calcular rango de fechas según el período
+    /**
+     * Primer día ("YYYY-MM-DD") incluido en el período de la pestaña seleccionada.
+     * Para semana/mes/año el día límite queda fuera, igual que al comparar su medianoche con "ahora - período".
+     */
+    private String periodStartDay(int periodPosition) {
         Calendar cal = Calendar.getInstance();
-        Date endDate = cal.getTime();
-        Date startDate;
-        
         switch (periodPosition) {
             case 0: // Hoy
-                cal.set(Calendar.HOUR_OF_DAY, 0);
-                cal.set(Calendar.MINUTE, 0);
-                cal.set(Calendar.SECOND, 0);
-                cal.set(Calendar.MILLISECOND, 0);
-                startDate = cal.getTime();
                 break;
             case 1: // Semana (últimos 7 días)
                 cal.add(Calendar.DAY_OF_YEAR, -7);
-                startDate = cal.getTime();
+                cal.add(Calendar.DAY_OF_YEAR, 1);
                 break;
             case 2: // Mes (último mes)
                 cal.add(Calendar.MONTH, -1);
-                startDate = cal.getTime();
+                cal.add(Calendar.DAY_OF_YEAR, 1);
                 break;
             case 3: // Año (último año)
                 cal.add(Calendar.YEAR, -1);
-                startDate = cal.getTime();
+                cal.add(Calendar.DAY_OF_YEAR, 1);
                 break;
             default:
-                startDate = null;
+                return null;
         }
-
-        android.util.Log.d("SuperadminMain", "Cargando ingresos para período: " + periodPosition + 
-                          " desde " + startDate + " hasta " + endDate);
-
-        // Consultar reservas con filtro de fecha
-        db.collection("reservations")
-                .whereIn("status", Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            Map<String, Double> monthlyRevenue = new HashMap<>();
-                            
-                            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String paymentStatus = doc.getString("paymentStatus");
-                                if (paymentStatus == null || 
-                                    paymentStatus.equals("CONFIRMADO") || 
-                                    paymentStatus.equals("COBRADO")) {
-                                    
-                                    String tourDate = doc.getString("tourDate");
-                                    if (tourDate != null && !tourDate.isEmpty()) {
-                                        try {
-                                            // Parsear tourDate y verificar si está en el rango
-                                            Date tourDateObj = sdf.parse(tourDate);
-                                            if (tourDateObj != null && startDate != null) {
-                                                if (tourDateObj.compareTo(startDate) >= 0 && 
-                                                    tourDateObj.compareTo(endDate) <= 0) {
-                                                    
-                                                    String yearMonth = extractYearMonth(tourDate);
-                                                    
-                                                    Object priceObj = doc.get("totalPrice");
-                                                    if (priceObj != null) {
-                                                        double price = 0.0;
-                                                        if (priceObj instanceof Double) {
-                                                            price = (Double) priceObj;
-                                                        } else if (priceObj instanceof Long) {
-                                                            price = ((Long) priceObj).doubleValue();
-                                                        } else if (priceObj instanceof Number) {
-                                                            price = ((Number) priceObj).doubleValue();
-                                                        } else if (priceObj instanceof String) {
-                                                            try {
-                                                                price = Double.parseDouble((String) priceObj);
-                                                            } catch (NumberFormatException e) {
-                                                                // Ignorar
-                                                            }
-                                                        }
-                                                        
-                                                        monthlyRevenue.put(yearMonth, 
-                                                            monthlyRevenue.getOrDefault(yearMonth, 0.0) + price);
-                                                    }
-                                                }
-                                            }
-                                        } catch (Exception e) {
-                                            android.util.Log.w("SuperadminMain", "Error parseando fecha: " + tourDate, e);
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            updateLineChartWithData(monthlyRevenue);
-                        } else {
-                            updateLineChartWithEmptyData();
-                        }
-                    } else {
-                        android.util.Log.e("SuperadminMain", "Error cargando ingresos por período", task.getException());
-                        updateLineChartWithEmptyData();
-                    }
-                });
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(cal.getTime());
     }
 
-    private void loadMonthlyBookingsForPeriod(int periodPosition) {
-        if (barChartBookings == null || db == null) {
-            return;
+    private void updateDataForPeriod(int position) {
+        String period = "";
+        switch (position) {
+            case 0: period = "Hoy"; break;
+            case 1: period = "Semana"; break;
+            case 2: period = "Mes"; break;
+            case 3: period = "Año"; break;
         }
-
-        // Calcular rango de fechas según el período
-        Calendar cal = Calendar.getInstance();
-        Date endDate = cal.getTime();
-        Date startDate;
         
-        switch (periodPosition) {
-            case 0: // Hoy
-                cal.set(Calendar.HOUR_OF_DAY, 0);
-                cal.set(Calendar.MINUTE, 0);
-                cal.set(Calendar.SECOND, 0);
-                cal.set(Calendar.MILLISECOND, 0);
-                startDate = cal.getTime();
-                break;
-            case 1: // Semana (últimos 7 días)
-                cal.add(Calendar.DAY_OF_YEAR, -7);
-                startDate = cal.getTime();
-                break;
-            case 2: // Mes (último mes)
-                cal.add(Calendar.MONTH, -1);
-                startDate = cal.getTime();
-                break;
-            case 3: // Año (último año)
-                cal.add(Calendar.YEAR, -1);
-                startDate = cal.getTime();
-                break;
-            default:
-                startDate = null;
-        }
-
-        android.util.Log.d("SuperadminMain", "Cargando reservas para período: " + periodPosition + 
-                          " desde " + startDate + " hasta " + endDate);
-
-        // Consultar reservas con filtro de fecha
-        db.collection("reservations")
-                .whereIn("status", Arrays.asList("CONFIRMADA", "EN_CURSO", "COMPLETADA"))
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null) {
-                            Map<String, Integer> monthlyBookings = new HashMap<>();
-                            
-                            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-                            
-                            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                                String paymentStatus = doc.getString("paymentStatus");
-                                if (paymentStatus == null || 
-                                    paymentStatus.equals("CONFIRMADO") || 
-                                    paymentStatus.equals("COBRADO")) {
-                                    
-                                    String tourDate = doc.getString("tourDate");
-                                    if (tourDate != null && !tourDate.isEmpty()) {
-                                        try {
-                                            // Parsear tourDate y verificar si está en el rango
-                                            Date tourDateObj = sdf.parse(tourDate);
-                                            if (tourDateObj != null && startDate != null) {
-                                                if (tourDateObj.compareTo(startDate) >= 0 && 
-                                                    tourDateObj.compareTo(endDate) <= 0) {
-                                                    
-                                                    String yearMonth = extractYearMonth(tourDate);
-                                                    
-                                                    // Contar reservas por mes
-                                                    monthlyBookings.put(yearMonth, 
-                                                        monthlyBookings.getOrDefault(yearMonth, 0) + 1);
-                                                }
-                                            }
-                                        } catch (Exception e) {
-                                            android.util.Log.w("SuperadminMain", "Error parseando fecha: " + tourDate, e);
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            updateBarChartWithData(monthlyBookings);
-                        } else {
-                            updateBarChartWithEmptyData();
-                        }
-                    } else {
-                        android.util.Log.e("SuperadminMain", "Error cargando reservas por período", task.getException());
-                        updateBarChartWithEmptyData();
-                    }
-                });
+        // Re-pintar los gráficos desde el rollup ya cargado (sin volver a consultar Firestore)
+        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+        renderCharts(periodStartDay(position), today);
+        
+        Toast.makeText(this, "Mostrando datos de: " + period, Toast.LENGTH_SHORT).show();
     }
 
     @Override
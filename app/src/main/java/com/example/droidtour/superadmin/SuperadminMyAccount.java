@@ -18,6 +18,8 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.bitmap.CircleCrop;
 import com.example.droidtour.LoginActivity;
 import com.example.droidtour.R;
+import com.example.droidtour.images.ImageSpec;
+import com.example.droidtour.images.StorageImage;
 import com.example.droidtour.utils.PreferencesManager;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -199,7 +201,7 @@ public class SuperadminMyAccount extends AppCompatActivity {
         if (profileImage != null) {
             if (profileImageUrl != null && !profileImageUrl.isEmpty()) {
                 Glide.with(this)
-                        .load(profileImageUrl)
+                        .load(new StorageImage(profileImageUrl, ImageSpec.AVATAR))
                         .transform(new CircleCrop())
                         .placeholder(R.drawable.ic_avatar_24)
                         .error(R.drawable.ic_avatar_24)
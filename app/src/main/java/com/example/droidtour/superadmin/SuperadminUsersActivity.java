@@ -23,6 +23,9 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.droidtour.LoginActivity;
 import com.example.droidtour.R;
 import com.example.droidtour.adapters.UsersAdapter;
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.firebase.UserMapper;
+import com.example.droidtour.firebase.UserRoleResolver;
 import com.example.droidtour.models.User;
 import com.example.droidtour.ui.UserProfileBottomSheet;
 import com.example.droidtour.utils.PreferencesManager;
@@ -124,7 +127,8 @@ public class SuperadminUsersActivity extends AppCompatActivity implements UsersA
 
         // Configurar comportamiento del SwipeRefreshLayout
         swipeRefresh.setOnRefreshListener(() -> {
-            // Cuando el usuario hace pull-to-refresh, recargar usuarios
+            // Cuando el usuario hace pull-to-refresh, recargar usuarios sin la caché de roles
+            UserRoleResolver.getInstance().invalidateAll();
             loadUsersFromFirestore();
         });
     }
@@ -143,7 +147,7 @@ public class SuperadminUsersActivity extends AppCompatActivity implements UsersA
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                usersAdapter.getFilter().filter(s);
+                usersAdapter.setQuery(s);
             }
 
             @Override
@@ -215,75 +219,14 @@ public class SuperadminUsersActivity extends AppCompatActivity implements UsersA
                  .addOnCompleteListener(task -> {
                      if (task.isSuccessful()) {
                          userList.clear();
+                         List<String> guideIds = new ArrayList<>();
                          for (QueryDocumentSnapshot document : task.getResult()) {
-                             // Intentamos mapear al modelo User, pero normalizamos campos legacy/alternativos
-                             User user = document.toObject(User.class);
-
-                             // Always ensure user is not null
-                             if (user == null) {
-                                 user = new User();
-                             }
-
-                             // Document ID -> userId si falta
-                             if (user.getUserId() == null || user.getUserId().isEmpty()) {
-                                 user.setUserId(document.getId());
-                             }
-
-                             Map<String, Object> data = document.getData();
-
-                             // Email fallback
-                             if (user.getEmail() == null || user.getEmail().isEmpty()) {
-                                 Object e = data.get("email");
-                                 if (e != null) user.setEmail(String.valueOf(e));
-                             }
-
-                             // Full name: prefer fullName, luego displayName (legacy), luego firstName+lastName
-                             if (user.getFullName() == null || user.getFullName().isEmpty()) {
-                                 Object dn = data.get("displayName");
-                                 if (dn != null) {
-                                     user.setFullName(String.valueOf(dn));
-                                 } else if (user.getFirstName() != null || user.getLastName() != null) {
-                                     String fn = (user.getFirstName() != null ? user.getFirstName() : "");
-                                     String ln = (user.getLastName() != null ? user.getLastName() : "");
-                                     String combined = (fn + " " + ln).trim();
-                                     if (!combined.isEmpty()) user.setFullName(combined);
-                                 }
-                             }
-
-                             // Profile image: try profileImageUrl, photoURL (legacy), photoUrl
-                             if (user.getProfileImageUrl() == null || user.getProfileImageUrl().isEmpty()) {
-                                 Object p1 = data.get("profileImageUrl");
-                                 Object p2 = data.get("photoURL");
-                                 Object p3 = data.get("photoUrl");
-                                 if (p1 != null) user.setProfileImageUrl(String.valueOf(p1));
-                                 else if (p2 != null) user.setProfileImageUrl(String.valueOf(p2));
-                                 else if (p3 != null) user.setProfileImageUrl(String.valueOf(p3));
-                             }
-
-                             // userType fallback
-                             if (user.getUserType() == null || user.getUserType().isEmpty()) {
-                                 Object ut = data.get("userType");
-                                 if (ut != null) user.setUserType(String.valueOf(ut));
-                             }
-
-                             // isActive boolean: try isActive or infer from status field
-                             if (user.getActive() == null) {
-                                 Object activeObj = data.get("isActive");
-                                 if (activeObj instanceof Boolean) {
-                                     user.setActive((Boolean) activeObj);
-                                 } else {
-                                     Object statusObj = data.get("status");
-                                     if (statusObj != null) {
-                                         String statusStr = String.valueOf(statusObj);
-                                         user.setActive("active".equalsIgnoreCase(statusStr));
-                                     } else {
-                                         user.setActive(true); // default safe assumption
-                                     }
-                                 }
-                             }
-
-                             // Añadir user a la lista
+                             // Campos legacy (displayName, photoURL, status) normalizados una vez
+                             User user = UserMapper.fromDocument(document);
                              userList.add(user);
+                             if ("GUIDE".equals(user.getUserType())) {
+                                 guideIds.add(user.getUserId());
+                             }
                          }
                          usersAdapter.updateList(userList);
                          checkEmptyState();
@@ -292,63 +235,9 @@ public class SuperadminUsersActivity extends AppCompatActivity implements UsersA
                          // ocultar indicadores
                          hideLoading();
 
-                         // Ahora, para cada GUIDE, obtener su estado desde la colección user_roles
-                         List<User> guidesToCheck = new ArrayList<>();
-                         for (User u : userList) {
-                             if ("GUIDE".equals(u.getUserType())) {
-                                 guidesToCheck.add(u);
-                             }
-                         }
-
-                         if (!guidesToCheck.isEmpty()) {
-                             final int total = guidesToCheck.size();
-                             final int[] completed = {0};
-
-                             for (User guide : guidesToCheck) {
-                                 String uid = guide.getUserId();
-                                 if (uid == null || uid.isEmpty()) {
-                                     completed[0]++;
-                                     continue;
-                                 }
-
-                                 db.collection("user_roles").document(uid).get()
-                                         .addOnSuccessListener(doc -> {
-                                             if (doc != null && doc.exists()) {
-                                                 // Manejar varias estructuras: doc puede tener directamente 'guide' o 'guide' dentro de 'roles'
-                                                 if (doc.contains("guide")) {
-                                                     Object guideObj = doc.get("guide");
-                                                     if (guideObj instanceof Map) {
-                                                         Map<String, Object> guideMap = (Map<String, Object>) guideObj;
-                                                         Object statusObj = guideMap.get("status");
-                                                         if (statusObj != null) {
-                                                             guide.setStatus(String.valueOf(statusObj));
-                                                         }
-                                                     }
-                                                 } else if (doc.contains("roles")) {
-                                                     Object rolesObj = doc.get("roles");
-                                                     if (rolesObj instanceof Map) {
-                                                         Map<String, Object> rolesMap = (Map<String, Object>) rolesObj;
-                                                         Object guideRole = rolesMap.get("guide");
-                                                         if (guideRole instanceof Map) {
-                                                             Map<String, Object> guideMap = (Map<String, Object>) guideRole;
-                                                             Object statusObj = guideMap.get("status");
-                                                             if (statusObj != null) guide.setStatus(String.valueOf(statusObj));
-                                                         }
-                                                     }
-                                                 }
-                                             }
-                                         })
-                                         .addOnFailureListener(e -> {
-                                             Log.w(TAG, "No se pudo obtener user_roles para " + uid + ": " + e.getMessage());
-                                         })
-                                         .addOnCompleteListener(roleTask -> {
-                                             completed[0]++;
-                                             if (completed[0] >= total) {
-                                                 // Todas las peticiones completadas - actualizar adapter
-                                                 usersAdapter.updateList(userList);
-                                             }
-                                         });
-                             }
+                         // Estado de los guías desde user_roles: pocas consultas whereIn en paralelo (y caché)
+                         if (!guideIds.isEmpty()) {
+                             loadGuideStatuses(guideIds);
                          }
                      } else {
                          Log.e(TAG, "Error cargando usuarios", task.getException());
@@ -358,6 +247,26 @@ public class SuperadminUsersActivity extends AppCompatActivity implements UsersA
                  });
     }
 
+    private void loadGuideStatuses(List<String> guideIds) {
+        UserRoleResolver.getInstance().resolveGuideStatuses(guideIds, new FirestoreManager.FirestoreCallback() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onSuccess(Object result) {
+                Map<String, String> statuses = (Map<String, String>) result;
+                for (User user : userList) {
+                    String status = statuses.get(user.getUserId());
+                    if (status != null) user.setStatus(status);
+                }
+                usersAdapter.updateList(userList);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.w(TAG, "No se pudo obtener user_roles: " + e.getMessage());
+            }
+        });
+    }
+
     private void checkEmptyState() {
         if (usersAdapter.getItemCount() == 0) {
             rvUsers.setVisibility(View.GONE);
@@ -443,12 +352,10 @@ public class SuperadminUsersActivity extends AppCompatActivity implements UsersA
                 })
                 .setNegativeButton("Cancelar", (dialog, which) -> {
                     // Revertir el cambio en la UI
-                    int idx = userList.indexOf(user);
-                    if (idx >= 0) usersAdapter.notifyItemChanged(idx);
+                    usersAdapter.notifyUserChanged(user);
                 })
                 .setOnCancelListener(dialog -> {
-                    int idx = userList.indexOf(user);
-                    if (idx >= 0) usersAdapter.notifyItemChanged(idx);
+                    usersAdapter.notifyUserChanged(user);
                 })
                 .show();
     }
@@ -462,8 +369,7 @@ public class SuperadminUsersActivity extends AppCompatActivity implements UsersA
     private void performUserStatusUpdate(User user, boolean isActive, boolean approveGuide) {
         if (user.getUserId() == null || user.getUserId().isEmpty()) {
             Toast.makeText(this, "Error: ID de usuario no válido", Toast.LENGTH_SHORT).show();
-            int idx = userList.indexOf(user);
-            if (idx >= 0) usersAdapter.notifyItemChanged(idx);
+            usersAdapter.notifyUserChanged(user);
             return;
         }
 
@@ -486,16 +392,15 @@ public class SuperadminUsersActivity extends AppCompatActivity implements UsersA
                         db.collection("user_roles").document(user.getUserId())
                                 .set(roleUpdate, SetOptions.merge())
                                 .addOnSuccessListener(aVoid2 -> {
+                                    UserRoleResolver.getInstance().invalidate(user.getUserId());
                                     user.setStatus("active");
                                     user.setGuideApproved(true);
                                     Toast.makeText(this, "Usuario activado y guía aprobado", Toast.LENGTH_SHORT).show();
-                                    int idx = userList.indexOf(user);
-                                    if (idx >= 0) usersAdapter.notifyItemChanged(idx);
+                                    usersAdapter.notifyUserChanged(user);
                                 })
                                 .addOnFailureListener(e -> {
                                     Toast.makeText(this, "Usuario activado pero no se pudo actualizar user_roles: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                                    int idx = userList.indexOf(user);
-                                    if (idx >= 0) usersAdapter.notifyItemChanged(idx);
+                                    usersAdapter.notifyUserChanged(user);
                                 });
 
                     } else {
@@ -511,30 +416,27 @@ public class SuperadminUsersActivity extends AppCompatActivity implements UsersA
                             db.collection("user_roles").document(user.getUserId())
                                     .set(roleUpdate, SetOptions.merge())
                                     .addOnSuccessListener(aVoid2 -> {
+                                        UserRoleResolver.getInstance().invalidate(user.getUserId());
                                         user.setStatus("inactive");
                                         user.setGuideApproved(false);
                                         Toast.makeText(this, "Usuario desactivado", Toast.LENGTH_SHORT).show();
-                                        int idx = userList.indexOf(user);
-                                        if (idx >= 0) usersAdapter.notifyItemChanged(idx);
+                                        usersAdapter.notifyUserChanged(user);
                                     })
                                     .addOnFailureListener(e -> {
                                         Toast.makeText(this, "Usuario desactivado pero no se pudo actualizar user_roles: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                                        int idx = userList.indexOf(user);
-                                        if (idx >= 0) usersAdapter.notifyItemChanged(idx);
+                                        usersAdapter.notifyUserChanged(user);
                                     });
                         } else {
                             String statusMsg = isActive ? "Usuario activado" : "Usuario desactivado";
                             Toast.makeText(this, statusMsg, Toast.LENGTH_SHORT).show();
-                            int idx = userList.indexOf(user);
-                            if (idx >= 0) usersAdapter.notifyItemChanged(idx);
+                            usersAdapter.notifyUserChanged(user);
                         }
                     }
                 })
                 .addOnFailureListener(e -> {
                     Toast.makeText(this, "Error actualizando estado: " + e.getMessage(), Toast.LENGTH_LONG).show();
                     // Revertir switch en UI
-                    int idx = userList.indexOf(user);
-                    if (idx >= 0) usersAdapter.notifyItemChanged(idx);
+                    usersAdapter.notifyUserChanged(user);
                 });
     }
 
@@ -548,7 +450,9 @@ public class SuperadminUsersActivity extends AppCompatActivity implements UsersA
                 .delete()
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this, "Usuario eliminado", Toast.LENGTH_SHORT).show();
-                    loadUsersFromFirestore(); // Recargar lista
+                    userList.remove(user);
+                    usersAdapter.removeUser(user);
+                    checkEmptyState();
                 })
                 .addOnFailureListener(e -> {
                     Toast.makeText(this, "Error eliminando usuario: " + e.getMessage(), Toast.LENGTH_LONG).show();
@@ -0,0 +1,83 @@
+package com.example.droidtour.tracking;
+
+/**
+ * Decide cada cuánto pedir ubicación y qué posiciones vale la pena guardar.
+ *
+ * - En vehículo (> 4 m/s) cada 5 s, caminando cada 15 s y detenido (el guía no sale de un radio de
+ *   20 m durante 2 minutos) cada 60 s.
+ * - Detenido, las posiciones dentro del radio no se guardan: solo el jitter del GPS.
+ * - Con batería baja todos los intervalos se duplican.
+ * - Se descartan posiciones con precisión peor que 50 m.
+ */
+public class AdaptiveSampler {
+
+    public static final long VEHICLE_INTERVAL_MS = 5_000;
+    public static final long WALKING_INTERVAL_MS = 15_000;
+    public static final long STATIONARY_INTERVAL_MS = 60_000;
+
+    static final float VEHICLE_SPEED_MPS = 4f;
+    static final double STATIONARY_RADIUS_M = 20.0;
+    static final long STATIONARY_AFTER_MS = 2 * 60_000;
+    static final float MAX_ACCURACY_M = 50f;
+
+    private GpsFix anchor;        // Centro del radio en el que el guía sigue "quieto"
+    private GpsFix lastAccepted;
+    private boolean stationary;
+    private boolean lowBattery;
+    private long intervalMs = WALKING_INTERVAL_MS;
+
+    /**
+     * Registrar una posición nueva; devuelve true si hay que guardarla en el recorrido
+     */
+    public boolean accept(GpsFix fix) {
+        if (fix.getAccuracy() > MAX_ACCURACY_M) {
+            return false;
+        }
+        if (anchor == null) {
+            anchor = fix;
+            lastAccepted = fix;
+            return true;
+        }
+
+        boolean insideAnchor = GpsFix.distanceMeters(anchor, fix) <= STATIONARY_RADIUS_M;
+        if (!insideAnchor) {
+            anchor = fix;
+            stationary = false;
+        } else if (!stationary && fix.getTime() - anchor.getTime() >= STATIONARY_AFTER_MS) {
+            stationary = true;
+        }
+
+        float speed = fix.getSpeed() > 0 ? fix.getSpeed() : estimatedSpeed(fix);
+        if (stationary) {
+            intervalMs = STATIONARY_INTERVAL_MS;
+        } else if (speed > VEHICLE_SPEED_MPS) {
+            intervalMs = VEHICLE_INTERVAL_MS;
+        } else {
+            intervalMs = WALKING_INTERVAL_MS;
+        }
+
+        if (stationary && GpsFix.distanceMeters(lastAccepted, fix) <= STATIONARY_RADIUS_M) {
+            return false;
+        }
+        lastAccepted = fix;
+        return true;
+    }
+
+    private float estimatedSpeed(GpsFix fix) {
+        long elapsed = fix.getTime() - lastAccepted.getTime();
+        return elapsed > 0 ? (float) (GpsFix.distanceMeters(lastAccepted, fix) * 1000.0 / elapsed) : 0f;
+    }
+
+    /** Intervalo sugerido para la siguiente solicitud de ubicación */
+    public long getIntervalMs() {
+        return lowBattery ? intervalMs * 2 : intervalMs;
+    }
+
+    public boolean isStationary() {
+        return stationary;
+    }
+
+    public void setLowBattery(boolean lowBattery) {
+        this.lowBattery = lowBattery;
+    }
+}
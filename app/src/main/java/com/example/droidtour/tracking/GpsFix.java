@@ -0,0 +1,59 @@
+package com.example.droidtour.tracking;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Una posición GPS del guía. Se guarda en Firestore con claves cortas porque viaja en arreglos
+ * de cientos de puntos.
+ */
+public class GpsFix {
+    private static final double EARTH_RADIUS_M = 6_371_000.0;
+
+    private final double latitude;
+    private final double longitude;
+    private final float accuracy; // metros
+    private final float speed;    // m/s, 0 si el proveedor no la da
+    private final long time;      // epoch ms
+
+    public GpsFix(double latitude, double longitude, float accuracy, float speed, long time) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.accuracy = accuracy;
+        this.speed = speed;
+        this.time = time;
+    }
+
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+    public float getAccuracy() { return accuracy; }
+    public float getSpeed() { return speed; }
+    public long getTime() { return time; }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("lat", latitude);
+        map.put("lng", longitude);
+        map.put("acc", accuracy);
+        map.put("spd", speed);
+        map.put("t", time);
+        return map;
+    }
+
+    /**
+     * Distancia en metros (haversine)
+     */
+    public static double distanceMeters(GpsFix a, GpsFix b) {
+        double dLat = Math.toRadians(b.latitude - a.latitude);
+        double dLng = Math.toRadians(b.longitude - a.longitude);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(a.latitude)) * Math.cos(Math.toRadians(b.latitude))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+
+    /** Metros por grado de latitud, para proyecciones locales */
+    static double metersPerDegree() {
+        return Math.PI * EARTH_RADIUS_M / 180.0;
+    }
+}
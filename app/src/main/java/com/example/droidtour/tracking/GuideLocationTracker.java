@@ -0,0 +1,200 @@
+package com.example.droidtour.tracking;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.location.Location;
+import android.os.BatteryManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.droidtour.firebase.FirestoreManager;
+import com.example.droidtour.firebase.TourTrackingManager;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import java.util.Map;
+
+/**
+ * Seguimiento GPS del guía durante un tour.
+ *
+ * - {@link AdaptiveSampler} decide el intervalo y la prioridad de las solicitudes de ubicación.
+ * - {@link TrackBatcher} acumula y sube un lote cada {@link #FLUSH_INTERVAL_MS}: como mucho
+ *   120 lotes (240 escrituras) por hora, sin importar cuántas posiciones entregue el GPS.
+ * - Lo arranca y lo detiene {@link LocationTrackingService} (servicio en primer plano de tipo
+ *   location), así sigue con la app en segundo plano; las pantallas solo leen el estado y escuchan.
+ */
+public class GuideLocationTracker {
+    private static final String TAG = "GuideLocationTracker";
+
+    public static final long FLUSH_INTERVAL_MS = 30_000;
+    static final double TOLERANCE_METERS = 10.0;
+    static final int MAX_BUFFERED_FIXES = 600;
+    private static final int LOW_BATTERY_PERCENT = 20;
+
+    public interface Listener {
+        void onFix(GpsFix fix, boolean stationary);
+    }
+
+    private static GuideLocationTracker instance;
+
+    private final Context appContext;
+    private final FusedLocationProviderClient locationClient;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private String trackingId;
+    private AdaptiveSampler sampler;
+    private TrackBatcher batcher;
+    private long requestedIntervalMs;
+    private Listener listener;
+    private GpsFix lastFix;
+
+    private final LocationCallback locationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult result) {
+            for (Location location : result.getLocations()) {
+                onLocation(location);
+            }
+        }
+    };
+
+    private final Runnable flushTick = new Runnable() {
+        @Override
+        public void run() {
+            if (batcher == null) return;
+            batcher.flushIfDue(System.currentTimeMillis());
+            handler.postDelayed(this, FLUSH_INTERVAL_MS);
+        }
+    };
+
+    private GuideLocationTracker(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.locationClient = LocationServices.getFusedLocationProviderClient(appContext);
+    }
+
+    public static synchronized GuideLocationTracker getInstance(Context context) {
+        if (instance == null) {
+            instance = new GuideLocationTracker(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Empezar a seguir el tour (sessionFields de {@link LivePosition#sessionFields}); el permiso de
+     * ubicación debe estar concedido. Si ya se está siguiendo el mismo tour no hace nada.
+     */
+    void start(String trackingId, Map<String, Object> sessionFields) {
+        if (trackingId.equals(this.trackingId)) {
+            return;
+        }
+        if (this.trackingId != null) {
+            stop();
+        }
+        this.trackingId = trackingId;
+        this.sampler = new AdaptiveSampler();
+        this.batcher = new TrackBatcher(
+                (batch, callback) -> TourTrackingManager.getInstance()
+                        .uploadBatch(trackingId, batch, sampler.isStationary(), callback),
+                FLUSH_INTERVAL_MS, TOLERANCE_METERS, MAX_BUFFERED_FIXES);
+        this.lastFix = null;
+
+        TourTrackingManager.getInstance().startSession(trackingId, sessionFields, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                Log.d(TAG, "Sesión publicada: " + trackingId);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // Los lotes escriben con merge, así que la posición igual se publica
+                Log.w(TAG, "No se pudo publicar la sesión " + trackingId, e);
+            }
+        });
+        requestUpdates(sampler.getIntervalMs(), false);
+        handler.postDelayed(flushTick, FLUSH_INTERVAL_MS);
+        Log.d(TAG, "Seguimiento iniciado: " + trackingId);
+    }
+
+    /**
+     * Terminar el tour: subir lo pendiente y marcar la sesión como inactiva
+     */
+    void stop() {
+        if (trackingId == null) {
+            return;
+        }
+        locationClient.removeLocationUpdates(locationCallback);
+        handler.removeCallbacks(flushTick);
+        batcher.flush(System.currentTimeMillis());
+        TourTrackingManager.getInstance().endSession(trackingId);
+        Log.d(TAG, "Seguimiento terminado: " + trackingId + " • " + batcher.getReceivedFixes()
+                + " posiciones, " + batcher.getUploads() + " lotes (" + batcher.getUploads() * TourTrackingManager.WRITES_PER_BATCH
+                + " escrituras), " + batcher.getFailedUploads() + " fallidos");
+        trackingId = null;
+        batcher = null;
+        sampler = null;
+        requestedIntervalMs = 0;
+    }
+
+    public boolean isTracking(String trackingId) {
+        return trackingId != null && trackingId.equals(this.trackingId);
+    }
+
+    public GpsFix getLastFix() {
+        return lastFix;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    private void onLocation(Location location) {
+        if (batcher == null) return;
+        GpsFix fix = new GpsFix(location.getLatitude(), location.getLongitude(),
+                location.getAccuracy(), location.hasSpeed() ? location.getSpeed() : 0f, location.getTime());
+
+        sampler.setLowBattery(isBatteryLow());
+        if (sampler.accept(fix)) {
+            batcher.add(fix);
+        }
+        lastFix = fix;
+        if (listener != null) {
+            listener.onFix(fix, sampler.isStationary());
+        }
+
+        long interval = sampler.getIntervalMs();
+        if (interval != requestedIntervalMs) {
+            requestUpdates(interval, sampler.isStationary());
+        }
+    }
+
+    @SuppressLint("MissingPermission")
+    private void requestUpdates(long intervalMs, boolean stationary) {
+        requestedIntervalMs = intervalMs;
+        int priority = stationary ? Priority.PRIORITY_BALANCED_POWER_ACCURACY : Priority.PRIORITY_HIGH_ACCURACY;
+        LocationRequest request = new LocationRequest.Builder(priority, intervalMs)
+                .setMinUpdateIntervalMillis(intervalMs / 2)
+                .build();
+        try {
+            locationClient.removeLocationUpdates(locationCallback);
+            locationClient.requestLocationUpdates(request, locationCallback, Looper.getMainLooper());
+        } catch (SecurityException e) {
+            Log.e(TAG, "Sin permiso de ubicación", e);
+        }
+    }
+
+    private boolean isBatteryLow() {
+        Intent battery = appContext.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        if (battery == null) return false;
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, 100);
+        int status = battery.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        boolean charging = status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL;
+        return !charging && level >= 0 && level * 100 / scale <= LOW_BATTERY_PERCENT;
+    }
+}
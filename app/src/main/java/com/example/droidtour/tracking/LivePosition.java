@@ -0,0 +1,133 @@
+package com.example.droidtour.tracking;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Última posición conocida de un tour en curso: documento tour_tracking/{trackingId}.
+ * Es lo único a lo que se suscriben clientes y administradores; el recorrido completo va en la
+ * subcolección de lotes.
+ */
+public class LivePosition {
+    public static final String FIELD_TOUR_ID = "tourId";
+    public static final String FIELD_TOUR_NAME = "tourName";
+    public static final String FIELD_TOUR_DATE = "tourDate";
+    public static final String FIELD_COMPANY_ID = "companyId";
+    public static final String FIELD_GUIDE_ID = "guideId";
+    public static final String FIELD_GUIDE_NAME = "guideName";
+    public static final String FIELD_ACTIVE = "active";
+    public static final String FIELD_LATITUDE = "latitude";
+    public static final String FIELD_LONGITUDE = "longitude";
+    public static final String FIELD_ACCURACY = "accuracy";
+    public static final String FIELD_SPEED = "speed";
+    public static final String FIELD_STATIONARY = "stationary";
+    public static final String FIELD_FIX_TIME = "fixTime";
+    public static final String FIELD_UPDATED_AT = "updatedAt";
+
+    private String trackingId;
+    private String tourId;
+    private String tourName;
+    private String tourDate;
+    private String companyId;
+    private String guideId;
+    private String guideName;
+    private boolean active;
+    private double latitude;
+    private double longitude;
+    private float accuracy;
+    private float speed;
+    private boolean stationary;
+    private Date fixTime;
+
+    /**
+     * Un tour en curso se identifica por tour y fecha (varias reservas comparten la misma salida)
+     */
+    public static String trackingIdFor(String tourId, String tourDate) {
+        return tourId + "_" + tourDate;
+    }
+
+    public static LivePosition fromData(String trackingId, Map<String, Object> data) {
+        LivePosition position = new LivePosition();
+        position.trackingId = trackingId;
+        if (data == null) {
+            return position;
+        }
+        position.tourId = stringOf(data.get(FIELD_TOUR_ID));
+        position.tourName = stringOf(data.get(FIELD_TOUR_NAME));
+        position.tourDate = stringOf(data.get(FIELD_TOUR_DATE));
+        position.companyId = stringOf(data.get(FIELD_COMPANY_ID));
+        position.guideId = stringOf(data.get(FIELD_GUIDE_ID));
+        position.guideName = stringOf(data.get(FIELD_GUIDE_NAME));
+        position.active = Boolean.TRUE.equals(data.get(FIELD_ACTIVE));
+        position.latitude = doubleOf(data.get(FIELD_LATITUDE));
+        position.longitude = doubleOf(data.get(FIELD_LONGITUDE));
+        position.accuracy = (float) doubleOf(data.get(FIELD_ACCURACY));
+        position.speed = (float) doubleOf(data.get(FIELD_SPEED));
+        position.stationary = Boolean.TRUE.equals(data.get(FIELD_STATIONARY));
+        Object fixTime = data.get(FIELD_FIX_TIME);
+        if (fixTime instanceof Date) {
+            position.fixTime = (Date) fixTime;
+        } else if (fixTime instanceof Number) {
+            position.fixTime = new Date(((Number) fixTime).longValue());
+        }
+        return position;
+    }
+
+    /**
+     * Campos de la sesión (se escriben al empezar el tour)
+     */
+    public static Map<String, Object> sessionFields(String tourId, String tourName, String tourDate,
+                                                    String companyId, String guideId, String guideName) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(FIELD_TOUR_ID, tourId);
+        map.put(FIELD_TOUR_NAME, tourName);
+        map.put(FIELD_TOUR_DATE, tourDate);
+        map.put(FIELD_COMPANY_ID, companyId);
+        map.put(FIELD_GUIDE_ID, guideId);
+        map.put(FIELD_GUIDE_NAME, guideName);
+        map.put(FIELD_ACTIVE, true);
+        return map;
+    }
+
+    /**
+     * Campos de posición de un lote (sin updatedAt, que pone el servidor)
+     */
+    public static Map<String, Object> positionFields(GpsFix fix, boolean stationary) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(FIELD_LATITUDE, fix.getLatitude());
+        map.put(FIELD_LONGITUDE, fix.getLongitude());
+        map.put(FIELD_ACCURACY, fix.getAccuracy());
+        map.put(FIELD_SPEED, fix.getSpeed());
+        map.put(FIELD_STATIONARY, stationary);
+        map.put(FIELD_FIX_TIME, new Date(fix.getTime()));
+        return map;
+    }
+
+    private static String stringOf(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static double doubleOf(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    public boolean hasPosition() {
+        return fixTime != null;
+    }
+
+    public String getTrackingId() { return trackingId; }
+    public String getTourId() { return tourId; }
+    public String getTourName() { return tourName; }
+    public String getTourDate() { return tourDate; }
+    public String getCompanyId() { return companyId; }
+    public String getGuideId() { return guideId; }
+    public String getGuideName() { return guideName; }
+    public boolean isActive() { return active; }
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+    public float getAccuracy() { return accuracy; }
+    public float getSpeed() { return speed; }
+    public boolean isStationary() { return stationary; }
+    public Date getFixTime() { return fixTime; }
+}
@@ -0,0 +1,141 @@
+package com.example.droidtour.tracking;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.IBinder;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import com.example.droidtour.LocationTrackingActivity;
+import com.example.droidtour.R;
+
+/**
+ * Servicio en primer plano (tipo location) que aloja a {@link GuideLocationTracker} mientras el guía
+ * comparte su ubicación. La notificación persistente mantiene vivo el proceso con la pantalla
+ * apagada o la app en segundo plano; al tocarla se vuelve a LocationTrackingActivity.
+ */
+public class LocationTrackingService extends Service {
+    private static final String TAG = "LocationTrackingSvc";
+
+    private static final String ACTION_START = "com.example.droidtour.tracking.START";
+    private static final String ACTION_STOP = "com.example.droidtour.tracking.STOP";
+
+    private static final String CHANNEL_ID = "guide_tracking";
+    private static final int NOTIFICATION_ID = 4201;
+
+    private static final String EXTRA_TRACKING_ID = "tracking_id";
+    private static final String EXTRA_RESERVATION_ID = "reservation_id";
+    private static final String EXTRA_TOUR_ID = "tour_id";
+    private static final String EXTRA_TOUR_NAME = "tour_name";
+    private static final String EXTRA_TOUR_DATE = "tour_date";
+    private static final String EXTRA_COMPANY_ID = "company_id";
+    private static final String EXTRA_GUIDE_ID = "guide_id";
+    private static final String EXTRA_GUIDE_NAME = "guide_name";
+
+    /**
+     * Empezar a compartir la ubicación del tour; el permiso de ubicación debe estar concedido
+     */
+    public static void start(Context context, String trackingId, String reservationId, String tourId,
+                             String tourName, String tourDate, String companyId,
+                             String guideId, String guideName) {
+        Intent intent = new Intent(context, LocationTrackingService.class)
+                .setAction(ACTION_START)
+                .putExtra(EXTRA_TRACKING_ID, trackingId)
+                .putExtra(EXTRA_RESERVATION_ID, reservationId)
+                .putExtra(EXTRA_TOUR_ID, tourId)
+                .putExtra(EXTRA_TOUR_NAME, tourName)
+                .putExtra(EXTRA_TOUR_DATE, tourDate)
+                .putExtra(EXTRA_COMPANY_ID, companyId)
+                .putExtra(EXTRA_GUIDE_ID, guideId)
+                .putExtra(EXTRA_GUIDE_NAME, guideName);
+        ContextCompat.startForegroundService(context, intent);
+    }
+
+    /**
+     * Dejar de compartir: sube lo pendiente, cierra la sesión y quita la notificación
+     */
+    public static void stop(Context context) {
+        context.startService(new Intent(context, LocationTrackingService.class).setAction(ACTION_STOP));
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        String action = intent != null ? intent.getAction() : null;
+        if (!ACTION_START.equals(action)) {
+            stopTracking();
+            return START_NOT_STICKY;
+        }
+
+        String trackingId = intent.getStringExtra(EXTRA_TRACKING_ID);
+        String tourName = intent.getStringExtra(EXTRA_TOUR_NAME);
+        // startForeground debe llamarse pronto después de startForegroundService
+        startForeground(NOTIFICATION_ID, buildNotification(intent.getStringExtra(EXTRA_RESERVATION_ID), tourName),
+                ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION);
+        if (trackingId == null) {
+            Log.w(TAG, "START sin trackingId");
+            stopTracking();
+            return START_NOT_STICKY;
+        }
+
+        GuideLocationTracker.getInstance(this).start(trackingId, LivePosition.sessionFields(
+                intent.getStringExtra(EXTRA_TOUR_ID), tourName, intent.getStringExtra(EXTRA_TOUR_DATE),
+                intent.getStringExtra(EXTRA_COMPANY_ID), intent.getStringExtra(EXTRA_GUIDE_ID),
+                intent.getStringExtra(EXTRA_GUIDE_NAME)));
+        // Si el sistema mata el proceso no se reinicia solo: el guía vuelve a compartir desde la app
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        GuideLocationTracker.getInstance(this).stop();
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private void stopTracking() {
+        GuideLocationTracker.getInstance(this).stop();
+        stopForeground(STOP_FOREGROUND_REMOVE);
+        stopSelf();
+    }
+
+    private Notification buildNotification(String reservationId, String tourName) {
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Ubicación en tour",
+                NotificationManager.IMPORTANCE_LOW);
+        channel.setDescription("Aviso mientras compartes tu ubicación con los clientes del tour");
+        getSystemService(NotificationManager.class).createNotificationChannel(channel);
+
+        Intent open = new Intent(this, LocationTrackingActivity.class)
+                .putExtra("reservation_id", reservationId)
+                .putExtra("tour_name", tourName)
+                .addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        PendingIntent contentIntent = PendingIntent.getActivity(this, 0, open,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        PendingIntent stopIntent = PendingIntent.getService(this, 1,
+                new Intent(this, LocationTrackingService.class).setAction(ACTION_STOP),
+                PendingIntent.FLAG_IMMUTABLE);
+
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_location)
+                .setContentTitle("Compartiendo tu ubicación")
+                .setContentText(tourName != null ? tourName : "Tour en curso")
+                .setContentIntent(contentIntent)
+                .addAction(0, "Dejar de compartir", stopIntent)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setCategory(NotificationCompat.CATEGORY_SERVICE)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.droidtour.tracking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Acumula posiciones y las sube en lotes simplificados como máximo una vez cada flushIntervalMs.
+ *
+ * - Cada subida es un lote con el tramo simplificado ({@link TrackSimplifier}) y la última posición,
+ *   así la cantidad de escrituras por hora queda acotada por el intervalo y no por el GPS.
+ * - El tramo se simplifica junto con el último punto ya subido para que los lotes empalmen.
+ * - Si la subida falla, las posiciones vuelven al buffer (hasta maxBufferedFixes, descartando las
+ *   más antiguas) y se reintentan en el siguiente intervalo.
+ *
+ * No es thread-safe: se usa desde el hilo principal.
+ */
+public class TrackBatcher {
+
+    public static class Batch {
+        private final List<GpsFix> points;
+        private final GpsFix last;
+        private final int rawCount;
+
+        Batch(List<GpsFix> points, GpsFix last, int rawCount) {
+            this.points = Collections.unmodifiableList(points);
+            this.last = last;
+            this.rawCount = rawCount;
+        }
+
+        /** Tramo simplificado (sin el punto de empalme con el lote anterior) */
+        public List<GpsFix> getPoints() { return points; }
+        /** Última posición conocida */
+        public GpsFix getLast() { return last; }
+        /** Posiciones acumuladas antes de simplificar */
+        public int getRawCount() { return rawCount; }
+    }
+
+    public interface UploadCallback {
+        void onUploaded();
+        void onFailed(Exception e);
+    }
+
+    public interface Uploader {
+        void upload(Batch batch, UploadCallback callback);
+    }
+
+    private final Uploader uploader;
+    private final long flushIntervalMs;
+    private final double toleranceMeters;
+    private final int maxBufferedFixes;
+
+    private List<GpsFix> buffer = new ArrayList<>();
+    private GpsFix lastUploaded;
+    private long lastFlushAt = Long.MIN_VALUE;
+    private boolean uploading;
+
+    private int uploads;
+    private int failedUploads;
+    private int uploadedPoints;
+    private int receivedFixes;
+
+    public TrackBatcher(Uploader uploader, long flushIntervalMs, double toleranceMeters, int maxBufferedFixes) {
+        this.uploader = uploader;
+        this.flushIntervalMs = flushIntervalMs;
+        this.toleranceMeters = toleranceMeters;
+        this.maxBufferedFixes = maxBufferedFixes;
+    }
+
+    public void add(GpsFix fix) {
+        receivedFixes++;
+        buffer.add(fix);
+        trimBuffer();
+    }
+
+    /**
+     * Subir lo acumulado si ya pasó el intervalo desde la última subida. Devuelve true si subió.
+     */
+    public boolean flushIfDue(long now) {
+        if (lastFlushAt != Long.MIN_VALUE && now - lastFlushAt < flushIntervalMs) {
+            return false;
+        }
+        return flush(now);
+    }
+
+    /**
+     * Subir ya lo acumulado (al terminar el tour), salvo que haya otra subida en curso
+     */
+    public boolean flush(long now) {
+        if (buffer.isEmpty() || uploading) {
+            return false;
+        }
+        lastFlushAt = now;
+
+        List<GpsFix> pending = buffer;
+        buffer = new ArrayList<>();
+
+        List<GpsFix> track = new ArrayList<>(pending.size() + 1);
+        if (lastUploaded != null) {
+            track.add(lastUploaded);
+        }
+        track.addAll(pending);
+        List<GpsFix> simplified = TrackSimplifier.simplify(track, toleranceMeters);
+        if (lastUploaded != null) {
+            simplified.remove(0);
+        }
+
+        GpsFix last = pending.get(pending.size() - 1);
+        Batch batch = new Batch(simplified, last, pending.size());
+        uploading = true;
+        uploader.upload(batch, new UploadCallback() {
+            @Override
+            public void onUploaded() {
+                uploading = false;
+                uploads++;
+                uploadedPoints += batch.getPoints().size();
+                lastUploaded = last;
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                uploading = false;
+                failedUploads++;
+                // Reintentar en el próximo intervalo junto con lo nuevo
+                List<GpsFix> retry = new ArrayList<>(pending);
+                retry.addAll(buffer);
+                buffer = retry;
+                trimBuffer();
+            }
+        });
+        return true;
+    }
+
+    private void trimBuffer() {
+        if (buffer.size() > maxBufferedFixes) {
+            buffer = new ArrayList<>(buffer.subList(buffer.size() - maxBufferedFixes, buffer.size()));
+        }
+    }
+
+    public int getBufferedCount() { return buffer.size(); }
+    public int getUploads() { return uploads; }
+    public int getFailedUploads() { return failedUploads; }
+    public int getUploadedPoints() { return uploadedPoints; }
+    public int getReceivedFixes() { return receivedFixes; }
+
+    /**
+     * Máximo de subidas por hora con este intervalo (cada subida = un lote)
+     */
+    public long maxUploadsPerHour() {
+        return (60 * 60 * 1000L + flushIntervalMs - 1) / flushIntervalMs;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.droidtour.tracking;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Simplificación Douglas-Peucker de un recorrido: conserva los puntos que se alejan más de
+ * toleranceMeters del segmento entre los puntos que se mantienen. El primero y el último siempre
+ * quedan.
+ *
+ * Las distancias se miden en una proyección equirectangular local (suficiente para los pocos
+ * kilómetros de un tour) y contra el segmento, no la recta infinita, para no borrar idas y vueltas.
+ * Iterativo con pila propia para no depender de la profundidad de recursión.
+ */
+public final class TrackSimplifier {
+
+    private TrackSimplifier() {}
+
+    public static List<GpsFix> simplify(List<GpsFix> points, double toleranceMeters) {
+        int n = points.size();
+        if (n <= 2) {
+            return new ArrayList<>(points);
+        }
+
+        // Proyección local en metros respecto al primer punto
+        double lat0 = points.get(0).getLatitude();
+        double lng0 = points.get(0).getLongitude();
+        double metersPerDegree = GpsFix.metersPerDegree();
+        double metersPerDegreeLng = metersPerDegree * Math.cos(Math.toRadians(lat0));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = (points.get(i).getLongitude() - lng0) * metersPerDegreeLng;
+            y[i] = (points.get(i).getLatitude() - lat0) * metersPerDegree;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        double toleranceSquared = toleranceMeters * toleranceMeters;
+
+        Deque<int[]> stack = new ArrayDeque<>();
+        stack.push(new int[]{0, n - 1});
+        while (!stack.isEmpty()) {
+            int[] range = stack.pop();
+            int start = range[0];
+            int end = range[1];
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = segmentDistanceSquared(x[i], y[i], x[start], y[start], x[end], y[end]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0 && maxDistance > toleranceSquared) {
+                keep[farthest] = true;
+                stack.push(new int[]{start, farthest});
+                stack.push(new int[]{farthest, end});
+            }
+        }
+
+        List<GpsFix> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                result.add(points.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Máxima distancia en metros de los puntos de original al recorrido simplificado
+     * (para verificar la tolerancia)
+     */
+    public static double maxDeviationMeters(List<GpsFix> original, List<GpsFix> simplified) {
+        if (original.isEmpty() || simplified.size() < 2) {
+            return 0.0;
+        }
+        double lat0 = original.get(0).getLatitude();
+        double lng0 = original.get(0).getLongitude();
+        double metersPerDegree = GpsFix.metersPerDegree();
+        double metersPerDegreeLng = metersPerDegree * Math.cos(Math.toRadians(lat0));
+
+        double max = 0.0;
+        int segment = 0;
+        for (GpsFix point : original) {
+            // Los puntos originales se recorren en orden; avanzar al segmento que cubre su tiempo
+            while (segment < simplified.size() - 2 && point.getTime() > simplified.get(segment + 1).getTime()) {
+                segment++;
+            }
+            GpsFix a = simplified.get(segment);
+            GpsFix b = simplified.get(segment + 1);
+            double distance = segmentDistanceSquared(
+                    (point.getLongitude() - lng0) * metersPerDegreeLng, (point.getLatitude() - lat0) * metersPerDegree,
+                    (a.getLongitude() - lng0) * metersPerDegreeLng, (a.getLatitude() - lat0) * metersPerDegree,
+                    (b.getLongitude() - lng0) * metersPerDegreeLng, (b.getLatitude() - lat0) * metersPerDegree);
+            max = Math.max(max, Math.sqrt(distance));
+        }
+        return max;
+    }
+
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared > 0 ? ((px - ax) * dx + (py - ay) * dy) / lengthSquared : 0.0;
+        t = Math.max(0.0, Math.min(1.0, t));
+        double cx = ax + t * dx - px;
+        double cy = ay + t * dy - py;
+        return cx * cx + cy * cy;
+    }
+}
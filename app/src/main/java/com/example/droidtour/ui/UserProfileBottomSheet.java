@@ -15,6 +15,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.bumptech.glide.Glide;
 import com.example.droidtour.R;
+import com.example.droidtour.images.ImageSpec;
+import com.example.droidtour.images.StorageImage;
 import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
@@ -122,7 +124,7 @@ public class UserProfileBottomSheet extends BottomSheetDialogFragment {
         // Avatar
         if (avatar != null && !avatar.isEmpty()) {
             Glide.with(requireContext())
-                    .load(avatar)
+                    .load(new StorageImage(avatar, ImageSpec.AVATAR))
                     .placeholder(R.drawable.ic_avatar_24)
                     .error(R.drawable.ic_avatar_24)
                     .centerCrop()
@@ -1,32 +1,74 @@
 package com.example.droidtour.utils;
 
-import androidx.annotation.Nullable;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import com.example.droidtour.database.ReadModelDatabase;
+import com.example.droidtour.firebase.FirestoreManager;
 import com.example.droidtour.models.Message;
+import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentChange;
-import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * ChatManager: encapsula lógica de chat sobre Firestore.
  * Guarda mensajes en: conversations/{conversationId}/messages/{messageId}
- * Escucha nuevos mensajes ordenados por timestamp.
+ *
+ * - Solo escucha los {@link #LIVE_WINDOW} mensajes más recientes; el historial anterior se pide
+ *   por páginas con {@link #loadOlderMessages}.
+ * - Aplica únicamente los DocumentChange de cada snapshot sobre un {@link ChatTimeline} ordenado.
+ * - Guarda la ventana en SQLite ({@link ReadModelDatabase}): al reabrir el chat se pinta al instante.
  */
 public class ChatManager {
+    private static final String TAG = "ChatManager";
+
+    public static final int LIVE_WINDOW = 50;
+    public static final int PAGE_SIZE = 30;
+
+    // Un solo hilo para SQLite, compartido por todos los chats
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
 
     private final FirebaseFirestore db;
+    private final ReadModelDatabase localDb;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ChatTimeline<Message> timeline = new ChatTimeline<>(new ChatTimeline.KeyExtractor<Message>() {
+        @Override
+        public String idOf(Message message) {
+            return message.getMessageId();
+        }
+
+        @Override
+        public long timeOf(Message message) {
+            return message.getTimestamp() != null ? message.getTimestamp().toDate().getTime() : Long.MAX_VALUE;
+        }
+    });
+
     private ListenerRegistration currentListener;
+    private String conversationId;
+    private ConversationListener listener;
+    private boolean firstSnapshot;
+    private boolean loadingOlder;
+    private boolean hasMoreOlder;
 
-    public ChatManager() {
+    public ChatManager(Context context) {
         db = FirebaseFirestore.getInstance();
+        localDb = ReadModelDatabase.getInstance(context);
     }
 
     public interface SendCallback {
@@ -34,13 +76,28 @@ public class ChatManager {
         void onFailure(Exception e);
     }
 
-    public interface MessagesListener {
-        void onNewMessages(List<Message> messages);
+    /**
+     * Cambios de la conversación con posiciones sobre {@link #getMessages()}
+     */
+    public interface ConversationListener extends ChatTimeline.Listener {
         void onError(Exception e);
     }
 
+    public interface PageCallback {
+        void onPageLoaded(int count, boolean hasMore);
+        void onFailure(Exception e);
+    }
+
+    private CollectionReference messagesRef(String conversationId) {
+        return db.collection("conversations").document(conversationId).collection("messages");
+    }
+
     /**
      * Envía un mensaje a una conversación (conversationId). Si conversationId es null o vacío, falla.
+     * El ID se asigna antes de escribir, así el mensaje se agrega a la lista al momento y el
+     * snapshot posterior solo lo reemplaza. Los resúmenes de la conversación se actualizan en el
+     * mismo WriteBatch (ver FirestoreManager.sendMessage). Si el servidor rechaza la escritura, el
+     * mensaje se quita de la lista antes de avisar al callback.
      */
     public void sendMessage(String conversationId, Message message, SendCallback callback) {
         if (conversationId == null || conversationId.isEmpty() || message == null) {
@@ -48,63 +105,193 @@ public class ChatManager {
             return;
         }
 
-        CollectionReference messagesRef = db.collection("conversations").document(conversationId).collection("messages");
+        DocumentReference docRef = messagesRef(conversationId).document();
+        message.setMessageId(docRef.getId());
+        message.setConversationId(conversationId);
+        // Hora local solo para mostrarlo mientras está pendiente; en Firestore se guarda la del servidor
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(Timestamp.now());
+        }
+        if (conversationId.equals(this.conversationId)) {
+            timeline.upsert(message);
+        }
 
-        // Añadir el mensaje; Firestore asignará un id
-        messagesRef.add(message)
-                .addOnSuccessListener(docRef -> {
-                    // opcional: establecer el messageId dentro del documento
-                    String id = docRef.getId();
-                    docRef.update("messageId", id);
-                    if (callback != null) callback.onSuccess();
-                })
-                .addOnFailureListener(e -> {
-                    if (callback != null) callback.onFailure(e);
-                });
+        FirestoreManager.getInstance().sendMessage(docRef, message, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                if (callback != null) callback.onSuccess();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (conversationId.equals(ChatManager.this.conversationId)) {
+                    timeline.remove(message.getMessageId());
+                }
+                List<String> rejected = new ArrayList<>();
+                rejected.add(message.getMessageId());
+                persist(new ArrayList<>(), rejected);
+                if (callback != null) callback.onFailure(e);
+            }
+        });
     }
 
     /**
-     * Inicia el listener de nuevos mensajes para una conversación. Llama a listener.onNewMessages
-     * con los mensajes añadidos desde la última snapshot.
+     * Limpiar los no leídos de userId en la conversación abierta
      */
-    public void listenForMessages(String conversationId, final MessagesListener listener) {
+    public void markAsRead(String userId) {
+        if (conversationId == null || userId == null) return;
+        FirestoreManager.getInstance().markConversationRead(conversationId, userId, new FirestoreManager.FirestoreCallback() {
+            @Override
+            public void onSuccess(Object result) {
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.w(TAG, "No se pudo marcar la conversación como leída", e);
+            }
+        });
+    }
+
+    // ==================== CONVERSACIÓN ====================
+
+    /**
+     * Mensajes cargados, más antiguo primero. Es una vista de solo lectura que el adapter puede
+     * usar directamente: cambia junto con los avisos del listener (siempre en el hilo principal).
+     */
+    public List<Message> getMessages() {
+        return timeline.asList();
+    }
+
+    public boolean hasMoreOlder() {
+        return hasMoreOlder;
+    }
+
+    public boolean isLoadingOlder() {
+        return loadingOlder;
+    }
+
+    /**
+     * Abre una conversación: primero los mensajes guardados en SQLite y luego la ventana en vivo
+     */
+    public void openConversation(String conversationId, ConversationListener listener) {
         if (conversationId == null || conversationId.isEmpty()) return;
 
-        CollectionReference messagesRef = db.collection("conversations").document(conversationId).collection("messages");
-        Query q = messagesRef.orderBy("timestamp", Query.Direction.ASCENDING);
+        stopListening();
+        this.conversationId = conversationId;
+        this.listener = listener;
+        timeline.setListener(listener);
 
-        // Remover listener anterior si existe
-        if (currentListener != null) {
-            currentListener.remove();
-            currentListener = null;
-        }
+        executor.execute(() -> {
+            List<Message> local = localDb.getLatestMessages(conversationId, LIVE_WINDOW);
+            mainHandler.post(() -> {
+                if (!conversationId.equals(this.conversationId)) return;
+                timeline.upsertAll(local);
+                Log.d(TAG, "Mensajes locales: " + local.size() + " (" + conversationId + ")");
+                listenToLiveWindow(conversationId);
+            });
+        });
+    }
 
-        currentListener = q.addSnapshotListener(new EventListener<QuerySnapshot>() {
-            @Override
-            public void onEvent(@Nullable QuerySnapshot snapshots, @Nullable FirebaseFirestoreException e) {
-                if (e != null) {
-                    if (listener != null) listener.onError(e);
-                    return;
-                }
+    private void listenToLiveWindow(String conversationId) {
+        firstSnapshot = true;
+        Query window = messagesRef(conversationId)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                .limit(LIVE_WINDOW);
 
-                if (snapshots == null) return;
+        currentListener = window.addSnapshotListener((snapshots, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Error escuchando mensajes", e);
+                if (listener != null) listener.onError(e);
+                return;
+            }
+            if (snapshots == null) return;
 
-                List<Message> newMessages = new ArrayList<>();
-                for (DocumentChange dc : snapshots.getDocumentChanges()) {
-                    if (dc.getType() == DocumentChange.Type.ADDED) {
-                        Message m = dc.getDocument().toObject(Message.class);
-                        // Firestore rellenará campos por setters/getters si existen
-                        newMessages.add(m);
-                    }
-                }
+            if (firstSnapshot) {
+                firstSnapshot = false;
+                applyFirstWindow(conversationId, snapshots.getDocuments());
+                return;
+            }
+
+            List<Message> changed = new ArrayList<>();
+            List<String> deleted = new ArrayList<>();
+            long windowOldest = oldestTime(snapshots.getDocuments());
+            boolean windowFull = snapshots.size() >= LIVE_WINDOW;
 
-                if (!newMessages.isEmpty() && listener != null) {
-                    listener.onNewMessages(newMessages);
+            for (DocumentChange dc : snapshots.getDocumentChanges()) {
+                Message message = toMessage(dc.getDocument(), conversationId);
+                if (dc.getType() == DocumentChange.Type.REMOVED) {
+                    // Salir de la ventana por un mensaje más nuevo no es un borrado: se conserva
+                    if (windowFull && timeOf(message) <= windowOldest) continue;
+                    timeline.remove(message.getMessageId());
+                    deleted.add(message.getMessageId());
+                } else {
+                    timeline.upsert(message);
+                    changed.add(message);
                 }
             }
+            persist(changed, deleted);
         });
     }
 
+    /**
+     * La primera respuesta es la fuente de verdad de los últimos mensajes: lo local que no esté en
+     * ella se quita (borrados, o un hueco si llegaron más de LIVE_WINDOW mensajes mientras no estaba abierto).
+     */
+    private void applyFirstWindow(String conversationId, List<DocumentSnapshot> documents) {
+        List<Message> window = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (DocumentSnapshot document : documents) {
+            Message message = toMessage(document, conversationId);
+            window.add(message);
+            ids.add(message.getMessageId());
+        }
+
+        timeline.retainOnly(ids);
+        timeline.upsertAll(window);
+        hasMoreOlder = documents.size() >= LIVE_WINDOW;
+
+        executor.execute(() -> localDb.replaceMessages(conversationId, window));
+    }
+
+    /**
+     * Pedir la página anterior al mensaje más antiguo cargado. El cursor es (timestamp, id) en el
+     * mismo orden que la ventana en vivo, así no se saltan mensajes con el mismo timestamp.
+     */
+    public void loadOlderMessages(PageCallback callback) {
+        Message oldest = timeline.oldest();
+        if (conversationId == null || loadingOlder || !hasMoreOlder || oldest == null
+                || oldest.getTimestamp() == null || oldest.getMessageId() == null) {
+            return;
+        }
+        loadingOlder = true;
+        String requestedConversation = conversationId;
+
+        messagesRef(requestedConversation)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                .startAfter(oldest.getTimestamp(), oldest.getMessageId())
+                .limit(PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    loadingOlder = false;
+                    if (!requestedConversation.equals(conversationId)) return;
+
+                    List<Message> page = new ArrayList<>();
+                    for (QueryDocumentSnapshot document : querySnapshot) {
+                        page.add(toMessage(document, requestedConversation));
+                    }
+                    hasMoreOlder = page.size() >= PAGE_SIZE;
+                    timeline.upsertAll(page);
+                    callback.onPageLoaded(page.size(), hasMoreOlder);
+                })
+                .addOnFailureListener(e -> {
+                    loadingOlder = false;
+                    Log.e(TAG, "Error cargando mensajes anteriores", e);
+                    callback.onFailure(e);
+                });
+    }
+
     /**
      * Detiene el listener activo (si existe). Llamar en onDestroy para evitar fugas.
      */
@@ -114,5 +301,43 @@ public class ChatManager {
             currentListener = null;
         }
     }
-}
 
+    // ==================== HELPERS ====================
+
+    private void persist(List<Message> changed, List<String> deleted) {
+        if (changed.isEmpty() && deleted.isEmpty()) return;
+        executor.execute(() -> {
+            if (!changed.isEmpty()) localDb.upsertMessages(changed);
+            if (!deleted.isEmpty()) localDb.deleteMessages(deleted);
+        });
+    }
+
+    private static Message toMessage(DocumentSnapshot document, String conversationId) {
+        // Un envío pendiente aún no tiene la hora del servidor: usar la estimada
+        Message message = document.toObject(Message.class, DocumentSnapshot.ServerTimestampBehavior.ESTIMATE);
+        if (message == null) {
+            message = new Message();
+        }
+        // Mensajes antiguos guardaban el ID en un update posterior
+        message.setMessageId(document.getId());
+        if (message.getConversationId() == null) {
+            message.setConversationId(conversationId);
+        }
+        return message;
+    }
+
+    private static long timeOf(Message message) {
+        return message.getTimestamp() != null ? message.getTimestamp().toDate().getTime() : Long.MAX_VALUE;
+    }
+
+    private static long oldestTime(List<DocumentSnapshot> documents) {
+        long oldest = Long.MAX_VALUE;
+        for (DocumentSnapshot document : documents) {
+            Timestamp timestamp = document.getTimestamp("timestamp");
+            if (timestamp != null) {
+                oldest = Math.min(oldest, timestamp.toDate().getTime());
+            }
+        }
+        return oldest;
+    }
+}
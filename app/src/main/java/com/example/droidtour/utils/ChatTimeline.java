@@ -0,0 +1,195 @@
+package com.example.droidtour.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lista de mensajes de una conversación, siempre ordenada (más antiguo primero) e indexada por ID.
+ *
+ * Recibe solo los cambios (DocumentChange de Firestore, páginas antiguas, filas locales) y avisa
+ * al listener con posiciones exactas, así el adapter usa notifyItemInserted/Changed/Removed en
+ * lugar de reconstruir y reordenar toda la lista en cada mensaje.
+ * No depende de Android ni de Firebase para poder probarse en la JVM.
+ */
+public class ChatTimeline<T> {
+
+    public interface KeyExtractor<T> {
+        String idOf(T item);
+        /** Millis del mensaje; los que aún no tienen hora van al final */
+        long timeOf(T item);
+    }
+
+    public interface Listener {
+        void onInserted(int position, int count);
+        void onChanged(int position);
+        void onRemoved(int position);
+    }
+
+    private final KeyExtractor<T> keys;
+    private final Comparator<T> order;
+    private final List<T> items = new ArrayList<>();
+    private final Map<String, T> byId = new HashMap<>();
+    private Listener listener;
+
+    public ChatTimeline(KeyExtractor<T> keys) {
+        this.keys = keys;
+        this.order = (a, b) -> {
+            int byTime = Long.compare(keys.timeOf(a), keys.timeOf(b));
+            return byTime != 0 ? byTime : keys.idOf(a).compareTo(keys.idOf(b));
+        };
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // ==================== CAMBIOS ====================
+
+    /**
+     * Insertar un mensaje nuevo o reemplazar uno existente (mismo ID)
+     */
+    public void upsert(T item) {
+        String id = keys.idOf(item);
+        if (id == null) {
+            return;
+        }
+
+        T existing = byId.get(id);
+        if (existing == null) {
+            int position = insertionPoint(item);
+            items.add(position, item);
+            byId.put(id, item);
+            if (listener != null) listener.onInserted(position, 1);
+            return;
+        }
+
+        int oldPosition = indexOf(existing);
+        byId.put(id, item);
+        if (order.compare(existing, item) == 0) {
+            items.set(oldPosition, item);
+            if (listener != null) listener.onChanged(oldPosition);
+            return;
+        }
+
+        // Cambió la hora (p. ej. llegó el timestamp del servidor): moverlo a su sitio
+        items.remove(oldPosition);
+        int newPosition = insertionPoint(item);
+        items.add(newPosition, item);
+        if (newPosition == oldPosition) {
+            if (listener != null) listener.onChanged(oldPosition);
+        } else if (listener != null) {
+            listener.onRemoved(oldPosition);
+            listener.onInserted(newPosition, 1);
+        }
+    }
+
+    /**
+     * Aplicar varios mensajes. Si todos los nuevos caen antes del primero (página antigua) o después
+     * del último (carga inicial, mensajes recientes) se insertan como un solo bloque y un solo aviso.
+     */
+    public void upsertAll(Collection<T> incoming) {
+        List<T> fresh = new ArrayList<>();
+        List<T> known = new ArrayList<>();
+        Map<String, T> seen = new HashMap<>();
+        for (T item : incoming) {
+            String id = keys.idOf(item);
+            if (id == null) continue;
+            if (byId.containsKey(id)) {
+                known.add(item);
+            } else {
+                seen.put(id, item); // si el mismo ID viene dos veces, gana el último
+            }
+        }
+        fresh.addAll(seen.values());
+        Collections.sort(fresh, order);
+
+        for (T item : known) {
+            upsert(item);
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        boolean allBefore = items.isEmpty() || order.compare(fresh.get(fresh.size() - 1), items.get(0)) < 0;
+        boolean allAfter = !items.isEmpty() && order.compare(fresh.get(0), items.get(items.size() - 1)) > 0;
+        if (allBefore || allAfter) {
+            int position = allBefore ? 0 : items.size();
+            items.addAll(position, fresh);
+            for (T item : fresh) {
+                byId.put(keys.idOf(item), item);
+            }
+            if (listener != null) listener.onInserted(position, fresh.size());
+            return;
+        }
+
+        for (T item : fresh) {
+            upsert(item);
+        }
+    }
+
+    public boolean remove(String id) {
+        T existing = id != null ? byId.remove(id) : null;
+        if (existing == null) {
+            return false;
+        }
+        int position = indexOf(existing);
+        items.remove(position);
+        if (listener != null) listener.onRemoved(position);
+        return true;
+    }
+
+    /**
+     * Quitar todos los mensajes cuyo ID no esté en keep (reconciliar con la primera respuesta del servidor)
+     */
+    public void retainOnly(Collection<String> keep) {
+        for (int i = items.size() - 1; i >= 0; i--) {
+            String id = keys.idOf(items.get(i));
+            if (!keep.contains(id)) {
+                byId.remove(id);
+                items.remove(i);
+                if (listener != null) listener.onRemoved(i);
+            }
+        }
+    }
+
+    // ==================== LECTURA ====================
+
+    /** Vista de solo lectura para el adapter */
+    public List<T> asList() {
+        return Collections.unmodifiableList(items);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public T get(int position) {
+        return items.get(position);
+    }
+
+    public boolean contains(String id) {
+        return byId.containsKey(id);
+    }
+
+    public T oldest() {
+        return items.isEmpty() ? null : items.get(0);
+    }
+
+    public T newest() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+
+    private int indexOf(T item) {
+        return Collections.binarySearch(items, item, order);
+    }
+
+    private int insertionPoint(T item) {
+        int index = Collections.binarySearch(items, item, order);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.droidtour.utils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumen de una conversación para uno de sus participantes, guardado en
+ * conversation_summaries/{conversationId}_{userId}: último mensaje, fecha y no leídos.
+ *
+ * Lo mantienen el envío ({@link #sendWrites}: un WriteBatch con merge e incremento, funciona sin
+ * conexión) y la transacción de lectura de FirestoreManager ({@link #readFields}), así las listas de
+ * chats se cargan con una sola consulta por userId sin recorrer mensajes.
+ * No depende de Android ni de Firebase para poder probarse en la JVM.
+ */
+public class ConversationSummary {
+
+    // Campos del documento
+    public static final String FIELD_CONVERSATION_ID = "conversationId";
+    public static final String FIELD_USER_ID = "userId";
+    public static final String FIELD_OTHER_USER_ID = "otherUserId";
+    public static final String FIELD_OTHER_USER_NAME = "otherUserName";
+    public static final String FIELD_LAST_MESSAGE_TEXT = "lastMessageText";
+    public static final String FIELD_LAST_SENDER_ID = "lastSenderId";
+    public static final String FIELD_LAST_MESSAGE_AT = "lastMessageAt";
+    public static final String FIELD_UNREAD_COUNT = "unreadCount";
+    public static final String FIELD_LAST_READ_AT = "lastReadAt";
+
+    private String conversationId;
+    private String userId;
+    private String otherUserId;
+    private String otherUserName;
+    private String lastMessageText;
+    private String lastSenderId;
+    private Date lastMessageAt;
+    private long unreadCount;
+    private Date lastReadAt;
+
+    public ConversationSummary(String conversationId, String userId) {
+        this.conversationId = conversationId;
+        this.userId = userId;
+    }
+
+    /**
+     * ID del documento de resumen de un participante
+     */
+    public static String idFor(String conversationId, String userId) {
+        return conversationId + "_" + userId;
+    }
+
+    /**
+     * Leer un resumen de los datos del documento. Las fechas deben venir como Date.
+     */
+    public static ConversationSummary fromData(Map<String, Object> data) {
+        ConversationSummary summary = new ConversationSummary(null, null);
+        if (data == null) {
+            return summary;
+        }
+        summary.conversationId = asString(data.get(FIELD_CONVERSATION_ID));
+        summary.userId = asString(data.get(FIELD_USER_ID));
+        summary.otherUserId = asString(data.get(FIELD_OTHER_USER_ID));
+        summary.otherUserName = asString(data.get(FIELD_OTHER_USER_NAME));
+        summary.lastMessageText = asString(data.get(FIELD_LAST_MESSAGE_TEXT));
+        summary.lastSenderId = asString(data.get(FIELD_LAST_SENDER_ID));
+        summary.lastMessageAt = asDate(data.get(FIELD_LAST_MESSAGE_AT));
+        summary.lastReadAt = asDate(data.get(FIELD_LAST_READ_AT));
+        Object unread = data.get(FIELD_UNREAD_COUNT);
+        summary.unreadCount = unread instanceof Number ? Math.max(0, ((Number) unread).longValue()) : 0;
+        return summary;
+    }
+
+    // ==================== ESCRITURA ====================
+
+    /**
+     * Escritura de un resumen al enviar: fields va con merge y unreadIncrement se suma en el
+     * servidor (FieldValue.increment) sobre unreadCount.
+     */
+    public static class SendWrite {
+        public final String summaryId;
+        public final Map<String, Object> fields;
+        public final long unreadIncrement;
+
+        SendWrite(String summaryId, Map<String, Object> fields, long unreadIncrement) {
+            this.summaryId = summaryId;
+            this.fields = fields;
+            this.unreadIncrement = unreadIncrement;
+        }
+    }
+
+    /**
+     * Escrituras de los dos resúmenes al enviar un mensaje (se omite el de un ID vacío). Solo el del
+     * receptor suma un no leído.
+     *
+     * Son escrituras ciegas (sin leer antes, para que funcionen sin conexión), así que el último
+     * mensaje es el último que se confirma. sentAt debe ser la hora del servidor
+     * (FieldValue.serverTimestamp()): así lastMessageAt sigue el mismo orden que los commits.
+     */
+    public static List<SendWrite> sendWrites(String conversationId, String senderId, String senderName,
+                                             String receiverId, String receiverName,
+                                             String messageText, Object sentAt) {
+        List<SendWrite> writes = new ArrayList<>(2);
+        if (isEmpty(conversationId)) {
+            return writes;
+        }
+        if (!isEmpty(senderId)) {
+            writes.add(new SendWrite(idFor(conversationId, senderId), messageFields(conversationId, senderId,
+                    senderId, receiverId, receiverName, messageText, sentAt), 0));
+        }
+        if (!isEmpty(receiverId)) {
+            writes.add(new SendWrite(idFor(conversationId, receiverId), messageFields(conversationId, receiverId,
+                    senderId, senderId, senderName, messageText, sentAt), 1));
+        }
+        return writes;
+    }
+
+    /**
+     * Campos del último mensaje para el resumen de userId. No incluye unreadCount (ver SendWrite).
+     */
+    static Map<String, Object> messageFields(String conversationId, String userId, String senderId,
+                                             String otherUserId, String otherUserName,
+                                             String messageText, Object sentAt) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(FIELD_CONVERSATION_ID, conversationId);
+        map.put(FIELD_USER_ID, userId);
+        if (otherUserId != null) map.put(FIELD_OTHER_USER_ID, otherUserId);
+        if (otherUserName != null) map.put(FIELD_OTHER_USER_NAME, otherUserName);
+        map.put(FIELD_LAST_MESSAGE_TEXT, messageText);
+        map.put(FIELD_LAST_SENDER_ID, senderId);
+        map.put(FIELD_LAST_MESSAGE_AT, sentAt);
+        return map;
+    }
+
+    /**
+     * Campos a actualizar cuando el participante lee la conversación (dentro de la transacción que
+     * leyó el resumen); no toca el último mensaje.
+     */
+    public static Map<String, Object> readFields(Date readAt) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(FIELD_UNREAD_COUNT, 0L);
+        map.put(FIELD_LAST_READ_AT, readAt);
+        return map;
+    }
+
+    // ==================== LECTURA ====================
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getOtherUserId() {
+        return otherUserId;
+    }
+
+    public String getOtherUserName() {
+        return otherUserName;
+    }
+
+    public String getLastMessageText() {
+        return lastMessageText;
+    }
+
+    public String getLastSenderId() {
+        return lastSenderId;
+    }
+
+    public Date getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public long getUnreadCount() {
+        return unreadCount;
+    }
+
+    public boolean hasUnread() {
+        return unreadCount > 0;
+    }
+
+    public Date getLastReadAt() {
+        return lastReadAt;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static String asString(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static Date asDate(Object value) {
+        if (value instanceof Date) return (Date) value;
+        if (value instanceof Number) return new Date(((Number) value).longValue());
+        return null;
+    }
+}
@@ -28,7 +28,7 @@ public class NotificationHelper {
         this.context = context;
         this.notificationManager = (NotificationManager) 
                 context.getSystemService(Context.NOTIFICATION_SERVICE);
-        this.dbHelper = new DatabaseHelper(context);
+        this.dbHelper = DatabaseHelper.getInstance(context);
         createNotificationChannels();
     }
 
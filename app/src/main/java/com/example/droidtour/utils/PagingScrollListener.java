@@ -0,0 +1,45 @@
+package com.example.droidtour.utils;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Pide la siguiente página cuando el scroll se acerca al final de la lista,
+ * para que llegue antes de que el usuario vea el último ítem.
+ */
+public class PagingScrollListener extends RecyclerView.OnScrollListener {
+
+    public interface PageLoader {
+        boolean isLoading();
+        boolean hasMore();
+        void loadNextPage();
+    }
+
+    private static final int DEFAULT_PREFETCH_DISTANCE = 5;
+
+    private final LinearLayoutManager layoutManager;
+    private final PageLoader loader;
+    private final int prefetchDistance;
+
+    public PagingScrollListener(LinearLayoutManager layoutManager, PageLoader loader) {
+        this(layoutManager, loader, DEFAULT_PREFETCH_DISTANCE);
+    }
+
+    public PagingScrollListener(LinearLayoutManager layoutManager, PageLoader loader, int prefetchDistance) {
+        this.layoutManager = layoutManager;
+        this.loader = loader;
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy <= 0 || loader.isLoading() || !loader.hasMore()) {
+            return;
+        }
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible >= layoutManager.getItemCount() - 1 - prefetchDistance) {
+            loader.loadNextPage();
+        }
+    }
+}
@@ -2,10 +2,33 @@ package com.example.droidtour.utils;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Preferencias de usuario, sesión y configuración de toda la app.
+ *
+ * Todas las instancias comparten un {@link SettingsStore}: se carga una vez en segundo plano
+ * (ver {@link #preload}), las lecturas no tocan disco y cada método de escritura es una sola
+ * transacción que se guarda fuera del hilo principal. Ningún método espera al disco: todos se
+ * llaman desde el hilo principal, y el valor nuevo ya se lee de memoria al volver (también tras
+ * login, logout o guardar tokens). La escritura empieza al instante en el executor del store;
+ * {@link #flushInBackground} solo vigila que termine cuando la app pasa a segundo plano.
+ * Reemplaza a las SharedPreferences
+ * "DroidTourPreferences" y "DroidTourApp" (el antiguo PrefsManager), que se migran la primera vez.
+ */
 public class PreferencesManager {
-    private static final String PREF_NAME = "DroidTourPreferences";
+    private static final String TAG = "PreferencesManager";
+    private static final String SETTINGS_FILE = "settings.bin";
+    private static final String[] LEGACY_PREF_NAMES = {"DroidTourApp", "DroidTourPreferences"};
+
     private static final String KEY_USER_ID = "user_id";
     private static final String KEY_USER_NAME = "user_name";
     private static final String KEY_USER_EMAIL = "user_email";
@@ -24,25 +47,95 @@ public class PreferencesManager {
     private static final String KEY_ACCESS_TOKEN = "access_token";
     private static final String KEY_REFRESH_TOKEN = "refresh_token";
 
-    private SharedPreferences prefs;
-    private SharedPreferences.Editor editor;
+    private static SettingsStore store;
+    // Espera el vaciado al pasar a segundo plano, para no bloquear onStop
+    private static final ExecutorService flushExecutor = Executors.newSingleThreadExecutor();
+
+    private final SettingsStore settings;
 
     public PreferencesManager(Context context) {
-        prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        editor = prefs.edit();
+        settings = getStore(context);
+    }
+
+    /**
+     * Empezar a cargar las preferencias en segundo plano; llamar lo antes posible (Application.onCreate)
+     */
+    public static void preload(Context context) {
+        getStore(context);
+    }
+
+    public static synchronized SettingsStore getStore(Context context) {
+        if (store == null) {
+            Context app = context.getApplicationContext();
+            store = new SettingsStore(new LazyFileBackend(app), Executors.newSingleThreadExecutor(),
+                    new Handler(Looper.getMainLooper())::post);
+        }
+        return store;
+    }
+
+    /**
+     * La app pasó a segundo plano: esperar en otro hilo, como mucho timeoutMs, a que se escriba lo
+     * pendiente, y dejar en el log si algo quedó sin escribir. No bloquea al llamador.
+     */
+    public static void flushInBackground(long timeoutMs) {
+        SettingsStore current;
+        synchronized (PreferencesManager.class) {
+            current = store;
+        }
+        if (current == null) return;
+        flushExecutor.execute(() -> {
+            try {
+                if (!current.flush(timeoutMs)) {
+                    Log.w(TAG, "Preferencias sin escribir tras " + timeoutMs + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private SettingsStore.Snapshot prefs() {
+        return settings.snapshot();
+    }
+
+    /** Varios cambios en una sola escritura */
+    public SettingsStore.Editor edit() {
+        return settings.edit();
+    }
+
+    public void addListener(SettingsStore.Listener listener) {
+        settings.addListener(listener);
+    }
+
+    public void removeListener(SettingsStore.Listener listener) {
+        settings.removeListener(listener);
     }
 
     // ==================== USER DATA ====================
     
     public void saveUserData(String userId, String name, String email, String phone, String userType) {
-        editor.putString(KEY_USER_ID, userId);
-        editor.putString(KEY_USER_NAME, name);
-        editor.putString(KEY_USER_EMAIL, email);
-        editor.putString(KEY_USER_PHONE, phone);
-        editor.putString(KEY_USER_TYPE, userType);
-        editor.putBoolean(KEY_IS_LOGGED_IN, true);
-        editor.putBoolean(KEY_SESSION_ACTIVE, true); // Compatibilidad
-        editor.apply();
+        putUserData(edit(), userId, name, email, phone, userType).commit();
+    }
+
+    /**
+     * Datos de usuario + último login + primera vez completada, en una sola escritura
+     */
+    public void saveLogin(String userId, String name, String email, String phone, String userType) {
+        putUserData(edit(), userId, name, email, phone, userType)
+                .putLong(KEY_LAST_LOGIN, System.currentTimeMillis())
+                .putBoolean(KEY_FIRST_TIME, false)
+                .commit();
+    }
+
+    private static SettingsStore.Editor putUserData(SettingsStore.Editor editor, String userId, String name,
+                                                    String email, String phone, String userType) {
+        return editor.putString(KEY_USER_ID, userId)
+                .putString(KEY_USER_NAME, name)
+                .putString(KEY_USER_EMAIL, email)
+                .putString(KEY_USER_PHONE, phone)
+                .putString(KEY_USER_TYPE, userType)
+                .putBoolean(KEY_IS_LOGGED_IN, true)
+                .putBoolean(KEY_SESSION_ACTIVE, true); // Compatibilidad
     }
     
     // Método compatible con PrefsManager (sin phone)
@@ -51,27 +144,28 @@ public class PreferencesManager {
     }
 
     public String getUserId() {
-        return prefs.getString(KEY_USER_ID, "");
+        return prefs().getString(KEY_USER_ID, "");
     }
 
     public String getUserName() {
-        return prefs.getString(KEY_USER_NAME, "Usuario");
+        return prefs().getString(KEY_USER_NAME, "Usuario");
     }
 
     public String getUserEmail() {
-        return prefs.getString(KEY_USER_EMAIL, "");
+        return prefs().getString(KEY_USER_EMAIL, "");
     }
 
     public String getUserPhone() {
-        return prefs.getString(KEY_USER_PHONE, "");
+        return prefs().getString(KEY_USER_PHONE, "");
     }
 
     public String getUserType() {
-        return prefs.getString(KEY_USER_TYPE, "");
+        return prefs().getString(KEY_USER_TYPE, "");
     }
 
     public boolean isLoggedIn() {
         // Verificar ambas claves para compatibilidad
+        SettingsStore.Snapshot prefs = prefs();
         return prefs.getBoolean(KEY_IS_LOGGED_IN, false) || prefs.getBoolean(KEY_SESSION_ACTIVE, false);
     }
     
@@ -81,8 +175,7 @@ public class PreferencesManager {
     }
 
     public void logout() {
-        editor.clear();
-        editor.apply();
+        edit().clear().commit();
     }
     
     // Método compatible con PrefsManager
@@ -93,32 +186,29 @@ public class PreferencesManager {
     // ==================== GUIDE DATA ====================
     
     public void setGuideApproved(boolean approved) {
-        editor.putBoolean(KEY_GUIDE_APPROVED, approved);
-        editor.apply();
+        edit().putBoolean(KEY_GUIDE_APPROVED, approved).commit();
     }
 
     public boolean isGuideApproved() {
-        return prefs.getBoolean(KEY_GUIDE_APPROVED, false);
+        return prefs().getBoolean(KEY_GUIDE_APPROVED, false);
     }
 
     public void setGuideRating(float rating) {
-        editor.putFloat(KEY_GUIDE_RATING, rating);
-        editor.apply();
+        edit().putFloat(KEY_GUIDE_RATING, rating).commit();
     }
 
     public float getGuideRating() {
-        return prefs.getFloat(KEY_GUIDE_RATING, 0.0f);
+        return prefs().getFloat(KEY_GUIDE_RATING, 0.0f);
     }
 
     // ==================== NOTIFICATIONS ====================
     
     public void setNotificationsEnabled(boolean enabled) {
-        editor.putBoolean(KEY_NOTIFICATIONS_ENABLED, enabled);
-        editor.apply();
+        edit().putBoolean(KEY_NOTIFICATIONS_ENABLED, enabled).commit();
     }
 
     public boolean areNotificationsEnabled() {
-        return prefs.getBoolean(KEY_NOTIFICATIONS_ENABLED, true);
+        return prefs().getBoolean(KEY_NOTIFICATIONS_ENABLED, true);
     }
     
     // ==================== MÉTODOS COMPATIBLES CON PrefsManager ====================
@@ -142,26 +232,23 @@ public class PreferencesManager {
     
     // Métodos de configuración
     public boolean esPrimeraVez() {
-        return prefs.getBoolean(KEY_FIRST_TIME, true);
+        return prefs().getBoolean(KEY_FIRST_TIME, true);
     }
     
     public void marcarPrimeraVezCompletada() {
-        editor.putBoolean(KEY_FIRST_TIME, false);
-        editor.apply();
+        edit().putBoolean(KEY_FIRST_TIME, false).commit();
     }
     
     public void guardarTemaOscuro(boolean activo) {
-        editor.putBoolean(KEY_DARK_THEME, activo);
-        editor.apply();
+        edit().putBoolean(KEY_DARK_THEME, activo).commit();
     }
     
     public boolean esTemaOscuro() {
-        return prefs.getBoolean(KEY_DARK_THEME, false);
+        return prefs().getBoolean(KEY_DARK_THEME, false);
     }
     
     public void guardarNotificaciones(boolean activas) {
-        editor.putBoolean(KEY_NOTIFICATIONS_ENABLED, activas);
-        editor.apply();
+        edit().putBoolean(KEY_NOTIFICATIONS_ENABLED, activas).commit();
     }
     
     public boolean notificacionesActivas() {
@@ -169,101 +256,89 @@ public class PreferencesManager {
     }
     
     public void guardarSonidos(boolean activos) {
-        editor.putBoolean(KEY_SOUNDS, activos);
-        editor.apply();
+        edit().putBoolean(KEY_SOUNDS, activos).commit();
     }
     
     public boolean sonidosActivos() {
-        return prefs.getBoolean(KEY_SOUNDS, true);
+        return prefs().getBoolean(KEY_SOUNDS, true);
     }
     
     public void guardarIdioma(String idioma) {
-        editor.putString(KEY_LANGUAGE, idioma);
-        editor.apply();
+        edit().putString(KEY_LANGUAGE, idioma).commit();
     }
     
     public String obtenerIdioma() {
-        return prefs.getString(KEY_LANGUAGE, "es");
+        return prefs().getString(KEY_LANGUAGE, "es");
     }
     
     public void guardarUltimoLogin(long timestamp) {
-        editor.putLong(KEY_LAST_LOGIN, timestamp);
-        editor.apply();
+        edit().putLong(KEY_LAST_LOGIN, timestamp).commit();
     }
     
     public long obtenerUltimoLogin() {
-        return prefs.getLong(KEY_LAST_LOGIN, 0);
+        return prefs().getLong(KEY_LAST_LOGIN, 0);
     }
     
     // Métodos de tokens
     public void guardarAccessToken(String token) {
-        editor.putString(KEY_ACCESS_TOKEN, token);
-        editor.apply();
+        edit().putString(KEY_ACCESS_TOKEN, token).commit();
     }
     
     public String obtenerAccessToken() {
-        return prefs.getString(KEY_ACCESS_TOKEN, "");
+        return prefs().getString(KEY_ACCESS_TOKEN, "");
     }
     
     public void guardarRefreshToken(String token) {
-        editor.putString(KEY_REFRESH_TOKEN, token);
-        editor.apply();
+        edit().putString(KEY_REFRESH_TOKEN, token).commit();
     }
     
     public String obtenerRefreshToken() {
-        return prefs.getString(KEY_REFRESH_TOKEN, "");
+        return prefs().getString(KEY_REFRESH_TOKEN, "");
     }
     
     // Métodos genéricos
     public void guardar(String clave, String valor) {
-        editor.putString(clave, valor);
-        editor.apply();
+        edit().putString(clave, valor).commit();
     }
     
     public String leer(String clave, String defecto) {
-        return prefs.getString(clave, defecto);
+        return prefs().getString(clave, defecto);
     }
     
     public void guardarBool(String clave, boolean valor) {
-        editor.putBoolean(clave, valor);
-        editor.apply();
+        edit().putBoolean(clave, valor).commit();
     }
     
     public boolean leerBool(String clave, boolean defecto) {
-        return prefs.getBoolean(clave, defecto);
+        return prefs().getBoolean(clave, defecto);
     }
     
     public void guardarInt(String clave, int valor) {
-        editor.putInt(clave, valor);
-        editor.apply();
+        edit().putInt(clave, valor).commit();
     }
     
     public int leerInt(String clave, int defecto) {
-        return prefs.getInt(clave, defecto);
+        return prefs().getInt(clave, defecto);
     }
     
     public void guardarFloat(String clave, float valor) {
-        editor.putFloat(clave, valor);
-        editor.apply();
+        edit().putFloat(clave, valor).commit();
     }
     
     public float leerFloat(String clave, float defecto) {
-        return prefs.getFloat(clave, defecto);
+        return prefs().getFloat(clave, defecto);
     }
     
     public void limpiarTodo() {
-        editor.clear();
-        editor.apply();
+        edit().clear().commit();
     }
     
     public void eliminar(String clave) {
-        editor.remove(clave);
-        editor.apply();
+        edit().remove(clave).commit();
     }
 
     public void saveUserPhone(String phone) {
-        editor.putString(KEY_USER_PHONE, phone);
-        editor.apply();
+        edit().putString(KEY_USER_PHONE, phone).commit();
     }
 
     public void guardarTelefono(String telefono) {
@@ -271,25 +346,74 @@ public class PreferencesManager {
     }
     
     public boolean existeClave(String clave) {
-        return prefs.contains(clave);
+        return prefs().contains(clave);
     }
     
     public Map<String, ?> obtenerTodasLasClaves() {
-        return prefs.getAll();
+        return prefs().asMap();
     }
 
 
     public void clearUserData() {
-        editor.remove(KEY_USER_ID);
-        editor.remove(KEY_USER_NAME);
-        editor.remove(KEY_USER_EMAIL);
-        editor.remove(KEY_USER_PHONE);
-        editor.remove(KEY_USER_TYPE);
-        editor.remove(KEY_IS_LOGGED_IN);
-        editor.remove(KEY_SESSION_ACTIVE);
-        editor.remove(KEY_GUIDE_APPROVED);
-        editor.remove(KEY_GUIDE_RATING);
-        editor.apply();
+        edit().remove(KEY_USER_ID)
+                .remove(KEY_USER_NAME)
+                .remove(KEY_USER_EMAIL)
+                .remove(KEY_USER_PHONE)
+                .remove(KEY_USER_TYPE)
+                .remove(KEY_IS_LOGGED_IN)
+                .remove(KEY_SESSION_ACTIVE)
+                .remove(KEY_GUIDE_APPROVED)
+                .remove(KEY_GUIDE_RATING)
+                .commit();
     }
-}
 
+    // ==================== ALMACENAMIENTO ====================
+
+    /**
+     * Resuelve el archivo y migra las SharedPreferences anteriores recién en la primera carga,
+     * que corre en el executor de escritura: nada de esto toca disco en el hilo principal.
+     */
+    private static class LazyFileBackend implements SettingsStore.Backend {
+        private final Context app;
+        private SettingsFile file;
+
+        LazyFileBackend(Context app) {
+            this.app = app;
+        }
+
+        private SettingsFile file() {
+            if (file == null) {
+                file = new SettingsFile(new File(app.getFilesDir(), SETTINGS_FILE), new SettingsFile.Migration() {
+                    @Override
+                    public Map<String, ?> read() {
+                        // DroidTourPreferences va último: era la que usaba la mayoría de las pantallas
+                        Map<String, Object> values = new HashMap<>();
+                        for (String name : LEGACY_PREF_NAMES) {
+                            SharedPreferences legacy = app.getSharedPreferences(name, Context.MODE_PRIVATE);
+                            values.putAll(legacy.getAll());
+                        }
+                        return values;
+                    }
+
+                    @Override
+                    public void onMigrated() {
+                        for (String name : LEGACY_PREF_NAMES) {
+                            app.deleteSharedPreferences(name);
+                        }
+                    }
+                });
+            }
+            return file;
+        }
+
+        @Override
+        public Map<String, Object> load() throws IOException {
+            return file().load();
+        }
+
+        @Override
+        public void save(Map<String, Object> values) throws IOException {
+            file().save(values);
+        }
+    }
+}
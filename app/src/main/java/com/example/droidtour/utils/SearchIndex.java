@@ -0,0 +1,313 @@
+package com.example.droidtour.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Índice de búsqueda en memoria para listas (usuarios, tours, empresas) sin recorrerlas en cada tecla.
+ *
+ * - El texto se normaliza una vez al agregar: minúsculas, sin tildes ("José" es "jose") y partido en
+ *   palabras por cualquier carácter que no sea letra o dígito.
+ * - Cada palabra del vocabulario guarda sus apariciones (elemento, campo, posición). Las palabras van
+ *   en un TreeMap para encontrar por prefijo y en un índice de trigramas para encontrar dentro de la
+ *   palabra ("ubi" encuentra "rubio"); un término de 1 o 2 letras solo busca por prefijo.
+ * - Todos los términos de la consulta tienen que aparecer. Puntaje por término: palabra exacta, luego
+ *   prefijo, luego dentro; a igualdad, el campo anterior y la palabra más al inicio. Los empates
+ *   conservan el orden en que se agregaron.
+ *
+ * Agregar, reemplazar y quitar son incrementales. No es thread-safe.
+ */
+public class SearchIndex<T> {
+
+    private static final int KIND_INFIX = 1;
+    private static final int KIND_PREFIX = 2;
+    private static final int KIND_EXACT = 3;
+    private static final int MAX_FIELDS = 8;
+    private static final int MAX_POSITION = 15;
+
+    /** Palabra del vocabulario: apariciones como pares (slot, campo << 8 | posición) */
+    private static final class Token {
+        final String text;
+        int[] postings = new int[4];
+        int size;
+
+        Token(String text) {
+            this.text = text;
+        }
+
+        void add(int slot, int meta) {
+            if (size + 2 > postings.length) {
+                postings = Arrays.copyOf(postings, postings.length * 2);
+            }
+            postings[size++] = slot;
+            postings[size++] = meta;
+        }
+
+        void removeSlot(int slot) {
+            int write = 0;
+            for (int read = 0; read < size; read += 2) {
+                if (postings[read] != slot) {
+                    postings[write++] = postings[read];
+                    postings[write++] = postings[read + 1];
+                }
+            }
+            size = write;
+        }
+    }
+
+    private final TreeMap<String, Token> vocabulary = new TreeMap<>();
+    private final Map<String, List<Token>> trigrams = new HashMap<>();
+
+    // Elementos, por slot
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private Object[] items = new Object[64];
+    private String[][] tokensBySlot = new String[64][];
+    private long[] sequence = new long[64];
+    private int slotCount;
+    private long nextSequence;
+
+    // Acumuladores de la búsqueda, reutilizados entre consultas
+    private int[] scores = new int[64];
+    private int[] termScores = new int[64];
+    private int[] matchedTerms = new int[64];
+
+    public int size() { return slots.size(); }
+
+    public boolean contains(String key) { return slots.containsKey(key); }
+
+    // ==================== ELEMENTOS ====================
+
+    /**
+     * Agregar o reemplazar un elemento. Los campos van de más a menos importantes (p. ej. nombre,
+     * email, tipo); los null se ignoran. Reemplazar lo deja en su lugar del orden de empate.
+     */
+    public void put(String key, T item, String... fields) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            unindex(slot);
+        } else {
+            slot = allocateSlot();
+            slots.put(key, slot);
+            sequence[slot] = nextSequence++;
+        }
+        items[slot] = item;
+
+        List<String> indexed = new ArrayList<>();
+        for (int field = 0; field < fields.length && field < MAX_FIELDS; field++) {
+            List<String> words = tokenize(fields[field]);
+            for (int position = 0; position < words.size(); position++) {
+                String word = words.get(position);
+                Token token = vocabulary.get(word);
+                if (token == null) {
+                    token = new Token(word);
+                    vocabulary.put(word, token);
+                    for (String trigram : trigramsOf(word)) {
+                        List<Token> list = trigrams.get(trigram);
+                        if (list == null) {
+                            list = new ArrayList<>();
+                            trigrams.put(trigram, list);
+                        }
+                        list.add(token);
+                    }
+                }
+                if (token.size == 0 || token.postings[token.size - 2] != slot) {
+                    indexed.add(word);
+                }
+                token.add(slot, field << 8 | Math.min(position, MAX_POSITION));
+            }
+        }
+        tokensBySlot[slot] = indexed.toArray(new String[0]);
+    }
+
+    public void remove(String key) {
+        Integer slot = slots.remove(key);
+        if (slot == null) return;
+        unindex(slot);
+        items[slot] = null;
+        freeSlots.push(slot);
+    }
+
+    public void clear() {
+        vocabulary.clear();
+        trigrams.clear();
+        slots.clear();
+        freeSlots.clear();
+        Arrays.fill(items, 0, slotCount, null);
+        Arrays.fill(tokensBySlot, 0, slotCount, null);
+        slotCount = 0;
+    }
+
+    private void unindex(int slot) {
+        String[] words = tokensBySlot[slot];
+        if (words == null) return;
+        for (String word : words) {
+            Token token = vocabulary.get(word);
+            if (token == null) continue;
+            token.removeSlot(slot);
+            if (token.size == 0) {
+                vocabulary.remove(word);
+                for (String trigram : trigramsOf(word)) {
+                    List<Token> list = trigrams.get(trigram);
+                    list.remove(token);
+                    if (list.isEmpty()) trigrams.remove(trigram);
+                }
+            }
+        }
+        tokensBySlot[slot] = null;
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        if (slotCount == items.length) {
+            int capacity = items.length * 2;
+            items = Arrays.copyOf(items, capacity);
+            tokensBySlot = Arrays.copyOf(tokensBySlot, capacity);
+            sequence = Arrays.copyOf(sequence, capacity);
+            scores = new int[capacity];
+            termScores = new int[capacity];
+            matchedTerms = new int[capacity];
+        }
+        return slotCount++;
+    }
+
+    // ==================== BÚSQUEDA ====================
+
+    /**
+     * Elementos que contienen todos los términos de la consulta, del más al menos relevante.
+     * Una consulta sin palabras no devuelve nada (la pantalla muestra la lista completa).
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) return new ArrayList<>();
+        // El término más largo suele ser el más selectivo: define los candidatos
+        terms.sort((a, b) -> b.length() - a.length());
+
+        List<Integer> candidates = new ArrayList<>();
+        for (int t = 0; t < terms.size(); t++) {
+            List<Integer> touched = new ArrayList<>();
+            String term = terms.get(t);
+            for (Token token : vocabulary.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                collect(token, term.length() == token.text.length() ? KIND_EXACT : KIND_PREFIX, t, touched);
+            }
+            if (term.length() >= 3) {
+                for (Token token : infixMatches(term)) {
+                    collect(token, KIND_INFIX, t, touched);
+                }
+            }
+            // touched: los que tienen todos los términos hasta t; los demás candidatos quedan fuera
+            for (int slot : touched) {
+                scores[slot] = (t == 0 ? 0 : scores[slot]) + termScores[slot];
+                termScores[slot] = 0;
+            }
+            for (int slot : candidates) {
+                if (matchedTerms[slot] != t + 1) matchedTerms[slot] = 0;
+            }
+            candidates = touched;
+            if (candidates.isEmpty()) break;
+        }
+        for (int slot : candidates) matchedTerms[slot] = 0;
+
+        Integer[] ranked = candidates.toArray(new Integer[0]);
+        Arrays.sort(ranked, (a, b) -> {
+            int byScore = Integer.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : Long.compare(sequence[a], sequence[b]);
+        });
+        List<T> result = new ArrayList<>(Math.min(limit, ranked.length));
+        for (int i = 0; i < ranked.length && i < limit; i++) {
+            result.add((T) items[ranked[i]]);
+        }
+        return result;
+    }
+
+    /** Anotar el mejor puntaje del término t en cada elemento donde aparece la palabra */
+    private void collect(Token token, int kind, int t, List<Integer> touched) {
+        for (int i = 0; i < token.size; i += 2) {
+            int slot = token.postings[i];
+            // matchedTerms == t: tenía los anteriores; t + 1: ya lo encontró otra palabra de este término
+            if (matchedTerms[slot] != t && matchedTerms[slot] != t + 1) continue;
+            int meta = token.postings[i + 1];
+            int score = kind * 1000 + (MAX_FIELDS - (meta >>> 8)) * 100 + (MAX_POSITION - (meta & 0xFF));
+            if (matchedTerms[slot] == t) {
+                matchedTerms[slot] = t + 1;
+                touched.add(slot);
+            }
+            if (score > termScores[slot]) termScores[slot] = score;
+        }
+    }
+
+    /** Palabras que contienen el término sin empezar por él, vía el trigrama menos frecuente */
+    private List<Token> infixMatches(String term) {
+        List<Token> rarest = null;
+        for (String trigram : trigramsOf(term)) {
+            List<Token> list = trigrams.get(trigram);
+            if (list == null) return new ArrayList<>();
+            if (rarest == null || list.size() < rarest.size()) rarest = list;
+        }
+        List<Token> matches = new ArrayList<>();
+        for (Token token : rarest) {
+            if (!token.text.startsWith(term) && token.text.contains(term)) {
+                matches.add(token);
+            }
+        }
+        return matches;
+    }
+
+    // ==================== TEXTO ====================
+
+    /** Palabras normalizadas de un texto, en orden */
+    public static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /** Minúsculas y sin tildes: "Cañón del Colca" es "canon del colca" */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) return "";
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (ascii) return text.toLowerCase(Locale.ROOT);
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> trigramsOf(String word) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            String trigram = word.substring(i, i + 3);
+            if (!result.contains(trigram)) result.add(trigram);
+        }
+        return result;
+    }
+}
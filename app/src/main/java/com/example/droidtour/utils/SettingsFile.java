@@ -0,0 +1,129 @@
+package com.example.droidtour.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link SettingsStore.Backend} en un solo archivo binario, reemplazado de forma atómica en cada
+ * escritura (tmp + sync + rename).
+ *
+ * La primera vez, si el archivo no existe, se arma con los valores de {@link Migration} (las
+ * SharedPreferences anteriores) y recién después de guardarlo se avisa para borrarlas.
+ */
+public class SettingsFile implements SettingsStore.Backend {
+
+    public interface Migration {
+        /** Valores a importar (String, Boolean, Integer, Long o Float; el resto se ignora) */
+        Map<String, ?> read();
+        /** Los valores ya quedaron guardados en el archivo nuevo */
+        void onMigrated();
+    }
+
+    private static final int MAGIC = 0x44545331;   // "DTS1"
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+
+    private final File file;
+    private final Migration migration;
+
+    public SettingsFile(File file, Migration migration) {
+        this.file = file;
+        this.migration = migration;
+    }
+
+    @Override
+    public Map<String, Object> load() throws IOException {
+        if (!file.exists()) {
+            return migrate();
+        }
+        Map<String, Object> values = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Formato de preferencias desconocido");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                byte type = in.readByte();
+                switch (type) {
+                    case TYPE_STRING: values.put(key, in.readUTF()); break;
+                    case TYPE_BOOLEAN: values.put(key, in.readBoolean()); break;
+                    case TYPE_INT: values.put(key, in.readInt()); break;
+                    case TYPE_LONG: values.put(key, in.readLong()); break;
+                    case TYPE_FLOAT: values.put(key, in.readFloat()); break;
+                    default: throw new IOException("Tipo desconocido " + type + " en " + key);
+                }
+            }
+        }
+        return values;
+    }
+
+    private Map<String, Object> migrate() throws IOException {
+        Map<String, Object> values = new HashMap<>();
+        if (migration == null) {
+            return values;
+        }
+        for (Map.Entry<String, ?> e : migration.read().entrySet()) {
+            Object value = e.getValue();
+            if (value instanceof String || value instanceof Boolean || value instanceof Integer
+                    || value instanceof Long || value instanceof Float) {
+                values.put(e.getKey(), value);
+            }
+        }
+        save(values);
+        migration.onMigrated();
+        return values;
+    }
+
+    @Override
+    public void save(Map<String, Object> values) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("No se pudo crear " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            out.writeInt(MAGIC);
+            out.writeInt(values.size());
+            for (Map.Entry<String, Object> e : values.entrySet()) {
+                out.writeUTF(e.getKey());
+                Object value = e.getValue();
+                if (value instanceof String) {
+                    out.writeByte(TYPE_STRING);
+                    out.writeUTF((String) value);
+                } else if (value instanceof Boolean) {
+                    out.writeByte(TYPE_BOOLEAN);
+                    out.writeBoolean((Boolean) value);
+                } else if (value instanceof Integer) {
+                    out.writeByte(TYPE_INT);
+                    out.writeInt((Integer) value);
+                } else if (value instanceof Long) {
+                    out.writeByte(TYPE_LONG);
+                    out.writeLong((Long) value);
+                } else if (value instanceof Float) {
+                    out.writeByte(TYPE_FLOAT);
+                    out.writeFloat((Float) value);
+                } else {
+                    throw new IOException("Tipo no soportado para " + e.getKey());
+                }
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
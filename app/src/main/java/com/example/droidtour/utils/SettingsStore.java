@@ -0,0 +1,281 @@
+package com.example.droidtour.utils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+/**
+ * Preferencias tipadas en memoria con escritura en segundo plano.
+ *
+ * - Se cargan una vez (en el executor de escritura, fuera del hilo principal) a un {@link Snapshot}
+ *   inmutable; leer es solo consultar un mapa.
+ * - Un {@link Editor} agrupa varios cambios y los publica juntos: el nuevo snapshot se ve al instante
+ *   y el archivo se escribe una sola vez en el executor. Si llegan varios commits antes de que se
+ *   escriba, se guarda solo el último estado.
+ * - {@link Editor#commitNow} y {@link #flush} esperan a que el archivo quede escrito: bloquean, así
+ *   que no se llaman desde el hilo principal ({@link PreferencesManager} usa siempre commit).
+ * - Los listeners reciben las claves que cambiaron en el executor de callbacks.
+ */
+public class SettingsStore {
+
+    /** Dónde se guardan las preferencias; se llama siempre desde el executor de escritura */
+    public interface Backend {
+        Map<String, Object> load() throws IOException;
+        void save(Map<String, Object> values) throws IOException;
+    }
+
+    public interface Listener {
+        void onChanged(Set<String> keys);
+    }
+
+    /**
+     * Estado de las preferencias en un momento dado; no cambia
+     */
+    public static final class Snapshot {
+        private final Map<String, Object> values;
+
+        Snapshot(Map<String, Object> values) {
+            this.values = Collections.unmodifiableMap(values);
+        }
+
+        public String getString(String key, String defaultValue) {
+            Object value = values.get(key);
+            return value instanceof String ? (String) value : defaultValue;
+        }
+
+        public boolean getBoolean(String key, boolean defaultValue) {
+            Object value = values.get(key);
+            return value instanceof Boolean ? (Boolean) value : defaultValue;
+        }
+
+        public int getInt(String key, int defaultValue) {
+            Object value = values.get(key);
+            return value instanceof Integer ? (Integer) value : defaultValue;
+        }
+
+        public long getLong(String key, long defaultValue) {
+            Object value = values.get(key);
+            return value instanceof Long ? (Long) value : defaultValue;
+        }
+
+        public float getFloat(String key, float defaultValue) {
+            Object value = values.get(key);
+            return value instanceof Float ? (Float) value : defaultValue;
+        }
+
+        public boolean contains(String key) {
+            return values.containsKey(key);
+        }
+
+        public Map<String, Object> asMap() {
+            return values;
+        }
+    }
+
+    /**
+     * Cambios agrupados; no se ve nada hasta {@link #commit}
+     */
+    public final class Editor {
+        private final Map<String, Object> puts = new LinkedHashMap<>();
+        private final Set<String> removals = new LinkedHashSet<>();
+        private boolean clear;
+
+        private Editor() {}
+
+        public Editor putString(String key, String value) {
+            if (value == null) return remove(key);
+            return put(key, value);
+        }
+
+        public Editor putBoolean(String key, boolean value) { return put(key, value); }
+        public Editor putInt(String key, int value) { return put(key, value); }
+        public Editor putLong(String key, long value) { return put(key, value); }
+        public Editor putFloat(String key, float value) { return put(key, value); }
+
+        public Editor remove(String key) {
+            puts.remove(key);
+            removals.add(key);
+            return this;
+        }
+
+        /** Borrar todo lo anterior; los put de este mismo editor se aplican después */
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        private Editor put(String key, Object value) {
+            removals.remove(key);
+            puts.put(key, value);
+            return this;
+        }
+
+        public void commit() {
+            apply(this);
+        }
+
+        /** Como commit, pero vuelve recién cuando el archivo quedó escrito; no usar en el hilo principal */
+        public void commitNow() {
+            apply(this);
+            try {
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final Backend backend;
+    private final Executor writer;
+    private final Executor callbacks;
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot(new HashMap<>());
+    private volatile IOException loadError;
+    private boolean writeScheduled;
+    private int pendingWrites;
+    private long writes;
+
+    public SettingsStore(Backend backend, Executor writer, Executor callbacks) {
+        this.backend = backend;
+        this.writer = writer;
+        this.callbacks = callbacks;
+        writer.execute(this::load);
+    }
+
+    private void load() {
+        try {
+            snapshot = new Snapshot(new HashMap<>(backend.load()));
+        } catch (IOException e) {
+            loadError = e;
+        } finally {
+            loaded.countDown();
+        }
+    }
+
+    /**
+     * Estado actual. Solo la primera llamada puede esperar, si la carga aún no terminó
+     */
+    public Snapshot snapshot() {
+        awaitLoaded();
+        return snapshot;
+    }
+
+    public Editor edit() {
+        return new Editor();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Error al cargar (se empezó con preferencias vacías), o null */
+    public IOException getLoadError() {
+        awaitLoaded();
+        return loadError;
+    }
+
+    /** Cantidad de veces que se escribió el archivo */
+    public long getWriteCount() {
+        synchronized (writeLock) {
+            return writes;
+        }
+    }
+
+    /** Esperar a que se escriban los commits hechos hasta ahora */
+    public void flush() throws InterruptedException {
+        synchronized (writeLock) {
+            while (pendingWrites > 0) {
+                writeLock.wait();
+            }
+        }
+    }
+
+    /** Como flush, pero espera como mucho timeoutMs; devuelve false si quedó algo sin escribir */
+    public boolean flush(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (writeLock) {
+            while (pendingWrites > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                writeLock.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    private void apply(Editor editor) {
+        awaitLoaded();
+        Set<String> changed = new LinkedHashSet<>();
+        synchronized (this) {
+            Map<String, Object> current = snapshot.asMap();
+            Map<String, Object> next = editor.clear ? new HashMap<>() : new HashMap<>(current);
+            if (editor.clear) changed.addAll(current.keySet());
+            for (String key : editor.removals) {
+                if (next.remove(key) != null) changed.add(key);
+            }
+            for (Map.Entry<String, Object> e : editor.puts.entrySet()) {
+                Object previous = next.put(e.getKey(), e.getValue());
+                if (!e.getValue().equals(previous)) changed.add(e.getKey());
+            }
+            // clear + volver a poner el mismo valor no es un cambio
+            changed.removeIf(key -> current.containsKey(key) && current.get(key).equals(next.get(key)));
+            if (changed.isEmpty()) return;
+            snapshot = new Snapshot(next);
+        }
+        scheduleWrite();
+        if (!listeners.isEmpty()) {
+            Set<String> keys = Collections.unmodifiableSet(changed);
+            callbacks.execute(() -> {
+                for (Listener listener : listeners) {
+                    listener.onChanged(keys);
+                }
+            });
+        }
+    }
+
+    private void scheduleWrite() {
+        synchronized (writeLock) {
+            pendingWrites++;
+            if (writeScheduled) return;
+            writeScheduled = true;
+        }
+        writer.execute(() -> {
+            int covered;
+            synchronized (writeLock) {
+                writeScheduled = false;
+                covered = pendingWrites;
+            }
+            try {
+                backend.save(snapshot.asMap());
+            } catch (IOException e) {
+                // Los valores siguen en memoria; el próximo commit vuelve a intentar
+            }
+            synchronized (writeLock) {
+                writes++;
+                pendingWrites -= covered;
+                writeLock.notifyAll();
+            }
+        });
+    }
+
+    private void awaitLoaded() {
+        try {
+            loaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
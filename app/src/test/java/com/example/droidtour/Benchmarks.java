@@ -0,0 +1,25 @@
+package com.example.droidtour;
+
+import org.junit.Assume;
+
+import java.util.Locale;
+
+/**
+ * Mediciones de tiempo de las pruebas. No son parte de la suite: solo corren con
+ * {@code ./gradlew test -Pbenchmarks} y nunca fallan por un tiempo; los resultados van a la salida
+ * de Gradle. Las pruebas normales comprueban conteos (batches, consultas, candidatos) en su lugar.
+ */
+public final class Benchmarks {
+    public static final String PROPERTY = "droidtour.benchmarks";
+
+    private Benchmarks() {}
+
+    /** Saltar la prueba si no se pidieron benchmarks */
+    public static void assumeEnabled() {
+        Assume.assumeTrue("Benchmark desactivado (usar -Pbenchmarks)", Boolean.getBoolean(PROPERTY));
+    }
+
+    public static void report(String format, Object... args) {
+        System.out.println(String.format(Locale.ROOT, format, args));
+    }
+}
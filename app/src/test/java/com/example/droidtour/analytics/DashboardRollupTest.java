@@ -0,0 +1,204 @@
+package com.example.droidtour.analytics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del núcleo de agregación del dashboard (sin Firebase).
+ */
+public class DashboardRollupTest {
+
+    private static Map<String, Object> reservation(String status, String paymentStatus, String tourDate,
+                                                   Object totalPrice, Object people) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("status", status);
+        map.put("paymentStatus", paymentStatus);
+        map.put("tourDate", tourDate);
+        map.put("totalPrice", totalPrice);
+        map.put("numberOfPeople", people);
+        return map;
+    }
+
+    @Test
+    public void countsOnlyConfirmedAndPaidReservations() {
+        DashboardRollup rollup = new DashboardRollup();
+        rollup.addReservation(reservation("CONFIRMADA", "COBRADO", "2024-10-05", 100.0, 2L), 1);
+        rollup.addReservation(reservation("COMPLETADA", null, "2024-10-20", "50", 1L), 1);
+        rollup.addReservation(reservation("PENDIENTE", "PENDIENTE", "2024-10-21", 999.0, 9L), 1);
+        // Cuenta como reserva (KPI) pero no como ingreso
+        rollup.addReservation(reservation("EN_CURSO", "RECHAZADO", "2024-11-02", 70.0, 1L), 1);
+
+        assertEquals(3, rollup.getTotalBookings());
+        assertEquals(150.0, rollup.getTotalRevenue(), 0.001);
+        assertEquals(150.0, rollup.monthlyRevenue(null, null).get("2024-10"), 0.001);
+        assertEquals(Integer.valueOf(2), rollup.monthlyBookings(null, null).get("2024-10"));
+        assertEquals(50.0, rollup.monthlyAveragePrice(null, null).get("2024-10"), 0.001);
+        assertNull(rollup.monthlyRevenue(null, null).get("2024-11"));
+        assertEquals(50.0, rollup.monthlyRevenue("2024-10-06", "2024-10-31").get("2024-10"), 0.001);
+    }
+
+    @Test
+    public void statusTransitionsProduceMatchingDeltas() {
+        Map<String, Object> pending = reservation("PENDIENTE", "PENDIENTE", "2024-10-05", 80.0, 2L);
+        Map<String, Object> confirmed = new HashMap<>(pending);
+        confirmed.put("status", "CONFIRMADA");
+        confirmed.put("paymentStatus", "CONFIRMADO");
+        Map<String, Object> cancelled = new HashMap<>(confirmed);
+        cancelled.put("status", "CANCELADA");
+
+        DashboardRollup rollup = new DashboardRollup();
+        rollup.merge(DashboardRollup.reservationDelta(null, pending));
+        assertTrue(rollup.isEmpty());
+
+        rollup.merge(DashboardRollup.reservationDelta(pending, confirmed));
+        assertEquals(1, rollup.getTotalBookings());
+        assertEquals(2, rollup.getTotalPeople());
+
+        rollup.merge(DashboardRollup.reservationDelta(confirmed, cancelled));
+        assertEquals(0, rollup.getTotalBookings());
+        assertTrue(rollup.getDays().isEmpty());
+    }
+
+    @Test
+    public void subtractLeavesBaseThatShardsCompleteToTotal() {
+        Map<String, Object> early = reservation("CONFIRMADA", "COBRADO", "2024-10-05", 120.0, 3L);
+        Map<String, Object> late = reservation("CONFIRMADA", "COBRADO", "2024-10-07", 80.0, 1L);
+        Map<String, Object> tour = new HashMap<>();
+        tour.put("category", "Cultural");
+        tour.put("isActive", true);
+
+        // Shards antes del escaneo: una reserva y un tour ya incrementados
+        DashboardRollup shards = new DashboardRollup();
+        shards.merge(DashboardRollup.reservationDelta(null, early));
+        shards.merge(DashboardRollup.tourDelta(null, tour));
+
+        DashboardRollup scanned = new DashboardRollup();
+        scanned.addReservation(early, 1);
+        scanned.addReservation(late, 1);
+        scanned.addTour(tour, 1);
+
+        DashboardRollup base = new DashboardRollup();
+        base.merge(scanned);
+        base.subtract(shards);
+        assertEquals(1, base.getTotalBookings());
+        assertEquals(80.0, base.getTotalRevenue(), 0.001);
+        assertNull(base.getToursByCategory().get("Cultural"));
+        assertEquals(1, base.getDays().size());
+
+        // Base + shards = escaneo
+        base.merge(shards);
+        assertEquals(scanned.toMap(), base.toMap());
+    }
+
+    @Test
+    public void tourCategoriesFollowActiveFlag() {
+        Map<String, Object> tour = new HashMap<>();
+        tour.put("category", "Cultural");
+        tour.put("isActive", true);
+        Map<String, Object> inactive = new HashMap<>(tour);
+        inactive.put("isActive", false);
+
+        DashboardRollup rollup = new DashboardRollup();
+        rollup.merge(DashboardRollup.tourDelta(null, tour));
+        rollup.merge(DashboardRollup.tourDelta(null, new HashMap<>(tour)));
+        assertEquals(Integer.valueOf(2), rollup.getToursByCategory().get("Cultural"));
+
+        rollup.merge(DashboardRollup.tourDelta(tour, inactive));
+        assertEquals(Integer.valueOf(1), rollup.getToursByCategory().get("Cultural"));
+    }
+
+    @Test
+    public void keepsBookingsAndRevenuePerTourCategory() {
+        Map<String, Object> cultural = reservation("CONFIRMADA", "COBRADO", "2024-10-05", 100.0, 2L);
+        cultural.put("tourCategory", "Cultural");
+        Map<String, Object> adventure = reservation("COMPLETADA", null, "2024-10-06", 300.0, 3L);
+        adventure.put("tourCategory", "Aventura");
+        // Reserva anterior al campo y una cobrada que no cuenta como ingreso
+        Map<String, Object> legacy = reservation("CONFIRMADA", "CONFIRMADO", "2024-10-07", 50.0, 1L);
+        Map<String, Object> rejected = reservation("EN_CURSO", "RECHAZADO", "2024-10-08", 70.0, 1L);
+        rejected.put("tourCategory", "Cultural");
+
+        DashboardRollup rollup = new DashboardRollup();
+        for (Map<String, Object> reservation : Arrays.asList(cultural, adventure, legacy, rejected)) {
+            rollup.merge(DashboardRollup.reservationDelta(null, reservation));
+        }
+        assertEquals(Integer.valueOf(2), rollup.getBookingsByCategory().get("Cultural"));
+        assertEquals(Integer.valueOf(1), rollup.getBookingsByCategory().get("Aventura"));
+        assertEquals(Integer.valueOf(1), rollup.getBookingsByCategory().get(DashboardRollup.NO_CATEGORY));
+        assertEquals(100.0, rollup.getRevenueByCategory().get("Cultural"), 0.001);
+        assertEquals(300.0, rollup.getRevenueByCategory().get("Aventura"), 0.001);
+        assertEquals(50.0, rollup.getRevenueByCategory().get(DashboardRollup.NO_CATEGORY), 0.001);
+
+        // Cancelar la reserva de aventura la saca de su categoría
+        Map<String, Object> cancelled = new HashMap<>(adventure);
+        cancelled.put("status", "CANCELADA");
+        rollup.merge(DashboardRollup.reservationDelta(adventure, cancelled));
+        assertNull(rollup.getBookingsByCategory().get("Aventura"));
+        assertNull(rollup.getRevenueByCategory().get("Aventura"));
+
+        DashboardRollup copy = DashboardRollup.fromMap(rollup.toMap());
+        assertEquals(rollup.getBookingsByCategory(), copy.getBookingsByCategory());
+        assertEquals(rollup.getRevenueByCategory(), copy.getRevenueByCategory());
+        assertEquals(rollup.getBookingsByCategory(), rollup.toMetrics(null, null).getBookingsByCategory());
+    }
+
+    @Test
+    public void roundTripsThroughDocumentMap() {
+        DashboardRollup rollup = new DashboardRollup();
+        rollup.addReservation(reservation("CONFIRMADA", "COBRADO", "2024-10-05", 120.0, 3L), 1);
+
+        DashboardRollup copy = DashboardRollup.fromMap(rollup.toMap());
+        assertEquals(rollup.getTotalRevenue(), copy.getTotalRevenue(), 0.001);
+        assertEquals(rollup.monthlyPeople(null, null), copy.monthlyPeople(null, null));
+    }
+
+    /**
+     * Fixture de 50k reservas: el rollup incremental (deltas de creación + confirmación)
+     * debe coincidir con la reconstrucción completa, y leerlo no depende del tamaño de la colección.
+     */
+    @Test
+    public void incrementalRollupMatchesRebuildOn50kFixture() {
+        Random random = new Random(42);
+        String[] statuses = {"PENDIENTE", "CONFIRMADA", "EN_CURSO", "COMPLETADA", "CANCELADA"};
+        List<Map<String, Object>> created = new ArrayList<>();
+        List<Map<String, Object>> finalState = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            String date = String.format("20%02d-%02d-%02d", 23 + random.nextInt(3), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            Map<String, Object> pending = reservation("PENDIENTE", "PENDIENTE", date, 20.0 + random.nextInt(500), (long) (1 + random.nextInt(6)));
+            Map<String, Object> updated = new HashMap<>(pending);
+            updated.put("status", statuses[random.nextInt(statuses.length)]);
+            updated.put("paymentStatus", random.nextBoolean() ? "COBRADO" : "CONFIRMADO");
+            created.add(pending);
+            finalState.add(updated);
+        }
+
+        DashboardRollup rebuilt = new DashboardRollup();
+        for (Map<String, Object> reservation : finalState) {
+            rebuilt.addReservation(reservation, 1);
+        }
+
+        DashboardRollup incremental = new DashboardRollup();
+        for (int i = 0; i < created.size(); i++) {
+            incremental.merge(DashboardRollup.reservationDelta(null, created.get(i)));
+            incremental.merge(DashboardRollup.reservationDelta(created.get(i), finalState.get(i)));
+        }
+
+        Map<String, Double> revenue = DashboardRollup.fromMap(rebuilt.toMap()).monthlyRevenue(null, null);
+
+        assertEquals(rebuilt.getTotalBookings(), incremental.getTotalBookings());
+        assertEquals(rebuilt.getTotalRevenue(), incremental.getTotalRevenue(), 0.01);
+        assertEquals(rebuilt.monthlyPeople(null, null), incremental.monthlyPeople(null, null));
+        assertEquals(36, revenue.size());
+        // El documento guarda un bucket por día con reservas (3 años x 12 meses x 28 días como máximo),
+        // no uno por reserva
+        assertTrue(rebuilt.getDays().size() <= 3 * 12 * 28);
+    }
+}
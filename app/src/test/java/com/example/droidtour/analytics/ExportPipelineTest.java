@@ -0,0 +1,286 @@
+package com.example.droidtour.analytics;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ExportPipelineTest {
+
+    private static final int CHART_BYTES = 1200 * 800 * 4;
+    private static final int FINAL_BYTES = (1200 + 80) * (800 + 100 + 80) * 4;
+
+    /** Registra los avisos en orden y permite esperar al final */
+    private static class RecordingListener implements ExportPipeline.Listener<String> {
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile List<String> outputs;
+        volatile int skipped = -1;
+
+        @Override
+        public void onProgress(int completed, int total, String label) {
+            events.add(completed + "/" + total + (label != null ? " " + label : ""));
+        }
+
+        @Override
+        public void onComplete(List<String> outputs, int skippedSteps) {
+            this.outputs = outputs;
+            this.skipped = skippedSteps;
+            events.add("complete");
+            done.countDown();
+        }
+
+        @Override
+        public void onCancelled() {
+            events.add("cancelled");
+            done.countDown();
+        }
+
+        @Override
+        public void onError(Exception e) {
+            events.add("error " + e.getMessage());
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    /** Paso que "escribe" un archivo con nombre fijo en written */
+    private ExportPipeline.Step<String> step(String name) {
+        return step(name, token -> {
+            written.add(name);
+            return name;
+        });
+    }
+
+    private interface Body {
+        String write(ExportPipeline.Token token) throws Exception;
+    }
+
+    private static ExportPipeline.Step<String> step(String name, Body body) {
+        return new ExportPipeline.Step<String>() {
+            @Override
+            public String getLabel() {
+                return name;
+            }
+
+            @Override
+            public String write(ExportPipeline.Token token) throws Exception {
+                return body.write(token);
+            }
+        };
+    }
+
+    private ExecutorService background;
+    private List<String> written;
+    private ExportPipeline<String> pipeline;
+
+    @Before
+    public void setUp() {
+        background = Executors.newSingleThreadExecutor();
+        written = Collections.synchronizedList(new ArrayList<>());
+        pipeline = new ExportPipeline<>(background, Runnable::run, written::remove);
+    }
+
+    @After
+    public void tearDown() {
+        background.shutdownNow();
+    }
+
+    @Test
+    public void reportsProgressInOrderAndReturnsOutputs() throws InterruptedException {
+        pipeline.add(step("pdf")).addOptional(step("ingresos")).addOptional(step("reservas"));
+        RecordingListener listener = new RecordingListener();
+
+        pipeline.start(listener);
+        listener.await();
+
+        assertEquals(List.of("0/3 pdf", "1/3 ingresos", "2/3 reservas", "3/3", "complete"), listener.events);
+        assertEquals(List.of("pdf", "ingresos", "reservas"), listener.outputs);
+        assertEquals(0, listener.skipped);
+    }
+
+    @Test
+    public void startDoesNotBlockTheCallingThread() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline.add(step("pdf", token -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "pdf";
+        }));
+        RecordingListener listener = new RecordingListener();
+
+        // Si start() corriera el paso en este hilo volvería con la exportación ya completa
+        pipeline.start(listener);
+        assertTrue(listener.events.size() <= 1);
+        assertFalse(listener.events.contains("complete"));
+
+        release.countDown();
+        listener.await();
+        assertEquals("complete", listener.events.get(listener.events.size() - 1));
+    }
+
+    @Test
+    public void failedOptionalChartIsSkipped() throws InterruptedException {
+        pipeline.add(step("pdf"))
+                .addOptional(step("pie", token -> {
+                    throw new IllegalStateException("sin categorías");
+                }))
+                .addOptional(step("barras"));
+        RecordingListener listener = new RecordingListener();
+
+        pipeline.start(listener);
+        listener.await();
+
+        assertEquals(List.of("pdf", "barras"), listener.outputs);
+        assertEquals(1, listener.skipped);
+    }
+
+    @Test
+    public void failedRequiredStepDeletesWrittenOutputs() throws InterruptedException {
+        pipeline.add(step("portada")).add(step("pdf", token -> {
+            throw new java.io.IOException("disco lleno");
+        })).addOptional(step("barras"));
+        RecordingListener listener = new RecordingListener();
+
+        pipeline.start(listener);
+        listener.await();
+
+        assertEquals("error disco lleno", listener.events.get(listener.events.size() - 1));
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    public void cancelInsideStepDeletesOutputsAndStops() throws InterruptedException {
+        CountDownLatch inChart = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        pipeline.add(step("pdf"))
+                .addOptional(step("ingresos", token -> {
+                    inChart.countDown();
+                    cancelled.await();
+                    token.throwIfCancelled();
+                    return "ingresos";
+                }))
+                .addOptional(step("reservas"));
+        RecordingListener listener = new RecordingListener();
+
+        pipeline.start(listener);
+        assertTrue(inChart.await(5, TimeUnit.SECONDS));
+        pipeline.cancel();
+        cancelled.countDown();
+        listener.await();
+
+        assertEquals("cancelled", listener.events.get(listener.events.size() - 1));
+        assertFalse(listener.events.contains("2/3 reservas"));
+        assertTrue(written.isEmpty());
+    }
+
+    /**
+     * Exportación de 12 meses con 5 gráficos, contando los bytes de bitmap vivos:
+     * antes se capturaba el gráfico en un bitmap y se copiaba a otro con título (ambos vivos a la vez,
+     * en el hilo principal); ahora cada paso dibuja en un solo bitmap y lo libera antes del siguiente.
+     */
+    @Test
+    public void twelveMonthExportKeepsOneChartBufferAlive() throws InterruptedException {
+        AtomicLong live = new AtomicLong();
+        AtomicLong peak = new AtomicLong();
+        Thread caller = Thread.currentThread();
+        List<Thread> stepThreads = Collections.synchronizedList(new ArrayList<>());
+
+        // Antes: captura + copia con título por gráfico
+        for (int chart = 0; chart < 5; chart++) {
+            allocate(live, peak, CHART_BYTES);
+            allocate(live, peak, FINAL_BYTES);
+            live.addAndGet(-CHART_BYTES - FINAL_BYTES);
+        }
+        long oldPeak = peak.get();
+
+        live.set(0);
+        peak.set(0);
+        addTwelveMonthSteps(live, peak, 0, stepThreads);
+        RecordingListener listener = new RecordingListener();
+        pipeline.start(listener);
+        listener.await();
+
+        assertEquals(6, listener.outputs.size());
+        assertEquals(0, listener.skipped);
+        assertEquals(FINAL_BYTES, peak.get());
+        assertEquals(0, live.get());
+        assertEquals(CHART_BYTES + FINAL_BYTES, oldPeak);
+        assertEquals(6, stepThreads.size());
+        assertFalse(stepThreads.contains(caller));
+    }
+
+    @Test
+    public void benchmarkTwelveMonthExport() throws InterruptedException {
+        Benchmarks.assumeEnabled();
+        AtomicLong live = new AtomicLong();
+        AtomicLong peak = new AtomicLong();
+        int months = 12;
+
+        long start = System.nanoTime();
+        for (int chart = 0; chart < 5; chart++) {
+            allocate(live, peak, CHART_BYTES);
+            allocate(live, peak, FINAL_BYTES);
+            render(months);
+            live.addAndGet(-CHART_BYTES - FINAL_BYTES);
+        }
+        long oldMs = (System.nanoTime() - start) / 1_000_000;
+
+        addTwelveMonthSteps(new AtomicLong(), new AtomicLong(), months, Collections.synchronizedList(new ArrayList<>()));
+        RecordingListener listener = new RecordingListener();
+        start = System.nanoTime();
+        pipeline.start(listener);
+        long callerMs = (System.nanoTime() - start) / 1_000_000;
+        listener.await();
+        long newMs = (System.nanoTime() - start) / 1_000_000;
+
+        Benchmarks.report("Exportación 12 meses: hilo principal %d ms -> %d ms (total en segundo plano %d ms)",
+                oldMs, callerMs, newMs);
+    }
+
+    /** PDF y 5 gráficos opcionales que reservan un solo bitmap final cada uno */
+    private void addTwelveMonthSteps(AtomicLong live, AtomicLong peak, int months, List<Thread> threads) {
+        pipeline.add(step("pdf", token -> {
+            threads.add(Thread.currentThread());
+            render(months);
+            return "pdf";
+        }));
+        for (int chart = 0; chart < 5; chart++) {
+            final String name = "grafico" + chart;
+            pipeline.addOptional(step(name, token -> {
+                threads.add(Thread.currentThread());
+                allocate(live, peak, FINAL_BYTES);
+                try {
+                    render(months);
+                    token.throwIfCancelled();
+                    return name;
+                } finally {
+                    live.addAndGet(-FINAL_BYTES);
+                }
+            }));
+        }
+    }
+
+    private static void allocate(AtomicLong live, AtomicLong peak, long bytes) {
+        peak.accumulateAndGet(live.addAndGet(bytes), Math::max);
+    }
+
+    /** Trabajo de dibujo simulado proporcional a los meses */
+    private static void render(int months) throws InterruptedException {
+        Thread.sleep(2L * months);
+    }
+}
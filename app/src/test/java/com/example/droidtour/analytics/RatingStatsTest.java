@@ -0,0 +1,164 @@
+package com.example.droidtour.analytics;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RatingStatsTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void addRatingUpdatesSumCountAverageAndHistogram() {
+        RatingStats stats = new RatingStats();
+        stats.addRating(5.0f);
+        stats.addRating(4.0f);
+        stats.addRating(4.5f);
+        stats.addRating(1.0f);
+
+        assertEquals(4, stats.getTotalReviews());
+        assertEquals(14.5, stats.getRatingSum(), EPSILON);
+        assertEquals(3.625, stats.getAverage(), EPSILON);
+        assertEquals(2, stats.getCount(5));
+        assertEquals(1, stats.getCount(4));
+        assertEquals(1, stats.getCount(1));
+        assertEquals(3, stats.getCountAtLeast(4));
+        assertEquals(0.5, stats.getShare(5), EPSILON);
+    }
+
+    @Test
+    public void starsAreClampedToOneToFive() {
+        assertEquals(1, RatingStats.starsOf(0.0f));
+        assertEquals(1, RatingStats.starsOf(1.2f));
+        assertEquals(3, RatingStats.starsOf(2.5f));
+        assertEquals(5, RatingStats.starsOf(7.0f));
+    }
+
+    @Test
+    public void roundTripThroughDocumentMap() {
+        RatingStats stats = new RatingStats();
+        stats.addRating(5.0f);
+        stats.addRating(3.0f);
+
+        Map<String, Object> map = stats.toMap();
+        assertEquals(4.0, (Double) map.get(RatingStats.FIELD_AVERAGE_RATING), EPSILON);
+
+        RatingStats read = RatingStats.fromData(map);
+        assertEquals(2, read.getTotalReviews());
+        assertEquals(8.0, read.getRatingSum(), EPSILON);
+        assertEquals(1, read.getCount(5));
+        assertEquals(1, read.getCount(3));
+    }
+
+    @Test
+    public void legacyTourDerivesSumFromAverage() {
+        // Tour sembrado antes del histograma: solo promedio y total
+        Map<String, Object> data = new HashMap<>();
+        data.put("averageRating", 4.5);
+        data.put("totalReviews", 10L);
+
+        RatingStats stats = RatingStats.fromData(data);
+        assertEquals(45.0, stats.getRatingSum(), EPSILON);
+        assertEquals(0, stats.getHistogramTotal());
+
+        stats.addRating(1.0f);
+        assertEquals(11, stats.getTotalReviews());
+        assertEquals(46.0 / 11, stats.getAverage(), EPSILON);
+        assertEquals(1.0, stats.getShare(1), EPSILON);
+    }
+
+    @Test
+    public void removeRatingNeverGoesNegative() {
+        RatingStats stats = new RatingStats();
+        stats.addRating(4.0f);
+        stats.removeRating(4.0f);
+        stats.removeRating(4.0f);
+
+        assertEquals(0, stats.getTotalReviews());
+        assertEquals(0.0, stats.getRatingSum(), EPSILON);
+        assertEquals(0, stats.getCount(4));
+        assertEquals(0.0, stats.getAverage(), EPSILON);
+    }
+
+    /**
+     * Documento con control optimista de versión, como una transacción de Firestore:
+     * el commit falla si otro escritor cambió el documento después de leerlo.
+     */
+    private static class VersionedDocument {
+        private Map<String, Object> data = new HashMap<>();
+        private long version;
+
+        synchronized Object[] read() {
+            return new Object[] {new HashMap<>(data), version};
+        }
+
+        synchronized boolean commit(Map<String, Object> newData, long readVersion) {
+            if (readVersion != version) {
+                return false;
+            }
+            data = newData;
+            version++;
+            return true;
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            return new HashMap<>(data);
+        }
+    }
+
+    /**
+     * 400 reseñas enviadas desde 16 hilos a la vez: con lectura-modificación-escritura transaccional
+     * (la misma que hace FirestoreManager.createReview) no se pierde ninguna.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void concurrentReviewSubmissionsKeepAggregatesConsistent() throws InterruptedException {
+        VersionedDocument tour = new VersionedDocument();
+        int reviews = 400;
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(reviews);
+
+        for (int i = 0; i < reviews; i++) {
+            float rating = 1 + (i % 5);
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    while (true) {
+                        Object[] read = tour.read();
+                        RatingStats stats = RatingStats.fromData((Map<String, Object>) read[0]);
+                        stats.addRating(rating);
+                        if (tour.commit(stats.toMap(), (Long) read[1])) {
+                            break;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        RatingStats result = RatingStats.fromData(tour.snapshot());
+        assertEquals(reviews, result.getTotalReviews());
+        assertEquals(80 * (1 + 2 + 3 + 4 + 5), result.getRatingSum(), EPSILON);
+        assertEquals(3.0, result.getAverage(), EPSILON);
+        for (int stars = 1; stars <= 5; stars++) {
+            assertEquals(80, result.getCount(stars));
+        }
+        assertEquals(reviews, result.getHistogramTotal());
+        // Un commit por reseña: los reintentos no escriben
+        assertEquals((long) reviews, tour.read()[1]);
+    }
+}
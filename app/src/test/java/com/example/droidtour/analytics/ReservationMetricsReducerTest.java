@@ -0,0 +1,237 @@
+package com.example.droidtour.analytics;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas y microbenchmark del reductor de una pasada frente a los bucles por gráfico
+ * que tenía SuperadminMainActivity.
+ */
+public class ReservationMetricsReducerTest {
+
+    private static final String[] STATUSES = {"PENDIENTE", "CONFIRMADA", "EN_CURSO", "COMPLETADA", "CANCELADA"};
+    private static final String[] PAYMENTS = {null, "PENDIENTE", "CONFIRMADO", "COBRADO"};
+    private static final String[] CATEGORIES = {"Cultural", "Aventura", "Naturaleza"};
+
+    private static List<Map<String, Object>> fixture(int size) {
+        Random random = new Random(7);
+        List<Map<String, Object>> reservations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("status", STATUSES[random.nextInt(STATUSES.length)]);
+            map.put("paymentStatus", PAYMENTS[random.nextInt(PAYMENTS.length)]);
+            map.put("tourDate", String.format("20%02d-%02d-%02d", 23 + random.nextInt(3), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+            // Mismos tipos mixtos que se encuentran en Firestore
+            Object price = random.nextInt(3) == 0 ? (Object) String.valueOf(50 + random.nextInt(400))
+                    : random.nextBoolean() ? (Object) (double) (50 + random.nextInt(400)) : (Object) (long) (50 + random.nextInt(400));
+            map.put("totalPrice", price);
+            map.put("numberOfPeople", (long) (1 + random.nextInt(6)));
+            if (random.nextInt(4) != 0) {
+                map.put("tourCategory", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            }
+            reservations.add(map);
+        }
+        return reservations;
+    }
+
+    @Test
+    public void matchesLegacyPerChartLoops() {
+        List<Map<String, Object>> reservations = fixture(5_000);
+        ReservationMetrics metrics = ReservationMetricsReducer.reduce(reservations, null, null, null);
+        LegacyResult legacy = legacyLoops(reservations);
+
+        assertEquals(legacy.monthlyBookings, metrics.getMonthlyBookings());
+        assertEquals(legacy.monthlyPeople, metrics.getMonthlyPeople());
+        assertEquals(legacy.totalBookings, metrics.getTotalBookings());
+        assertEquals(legacy.totalRevenue, metrics.getTotalRevenue(), 0.01);
+        for (Map.Entry<String, Double> entry : legacy.monthlyRevenue.entrySet()) {
+            assertEquals(entry.getValue(), metrics.getMonthlyRevenue().get(entry.getKey()), 0.01);
+            assertEquals(legacy.monthlyAveragePrice.get(entry.getKey()),
+                    metrics.getMonthlyAveragePrice().get(entry.getKey()), 0.01);
+        }
+    }
+
+    @Test
+    public void filtersByDayRangeAndMatchesRollup() {
+        List<Map<String, Object>> reservations = fixture(2_000);
+        DashboardRollup rollup = new DashboardRollup();
+        for (Map<String, Object> reservation : reservations) {
+            rollup.addReservation(reservation, 1);
+        }
+        ReservationMetrics fromReducer = ReservationMetricsReducer.reduce(reservations, null, "2024-03-10", "2024-06-20");
+        ReservationMetrics fromRollup = rollup.toMetrics("2024-03-10", "2024-06-20");
+
+        assertEquals(4, fromReducer.getMonthlyBookings().size());
+        assertEquals(fromRollup.getMonthlyBookings(), fromReducer.getMonthlyBookings());
+        assertEquals(fromRollup.getMonthlyPeople(), fromReducer.getMonthlyPeople());
+        // Las categorías, como los totales, no dependen del período
+        assertEquals(4, fromReducer.getBookingsByCategory().size());
+        assertEquals(fromRollup.getBookingsByCategory(), fromReducer.getBookingsByCategory());
+        for (Map.Entry<String, Double> entry : fromRollup.getRevenueByCategory().entrySet()) {
+            assertEquals(entry.getValue(), fromReducer.getRevenueByCategory().get(entry.getKey()), 0.01);
+        }
+    }
+
+    @Test
+    public void countsActiveToursByCategory() {
+        ReservationMetricsReducer reducer = new ReservationMetricsReducer();
+        reducer.acceptTour(true, "Aventura");
+        reducer.acceptTour(true, "");
+        reducer.acceptTour(false, "Aventura");
+        reducer.acceptTour(null, "Cultural");
+
+        Map<String, Integer> categories = reducer.result().getToursByCategory();
+        assertEquals(Integer.valueOf(1), categories.get("Aventura"));
+        assertEquals(Integer.valueOf(1), categories.get(DashboardRollup.NO_CATEGORY));
+        assertEquals(2, categories.size());
+    }
+
+    /**
+     * Pasadas por segundo y bytes asignados por reserva: reductor vs. seis bucles por gráfico
+     */
+    @Test
+    public void benchmarkAgainstLegacyLoops() {
+        Benchmarks.assumeEnabled();
+        List<Map<String, Object>> reservations = fixture(50_000);
+        int rounds = 10;
+
+        // Calentamiento
+        for (int i = 0; i < 3; i++) {
+            ReservationMetricsReducer.reduce(reservations, null, null, null);
+            legacyLoops(reservations);
+        }
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            ReservationMetricsReducer.reduce(reservations, null, null, null);
+        }
+        long reducerNanos = System.nanoTime() - start;
+        long reducerBytes = allocatedBytes() - bytesBefore;
+
+        bytesBefore = allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            legacyLoops(reservations);
+        }
+        long legacyNanos = System.nanoTime() - start;
+        long legacyBytes = allocatedBytes() - bytesBefore;
+
+        double perReservation = (double) rounds * reservations.size();
+        Benchmarks.report("Reducer: %.1f passes/s, %.1f B/reservation | Legacy loops: %.1f passes/s, %.1f B/reservation",
+                rounds / (reducerNanos / 1e9), reducerBytes / perReservation,
+                rounds / (legacyNanos / 1e9), legacyBytes / perReservation);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    // ==================== BUCLES ORIGINALES (REFERENCIA) ====================
+
+    private static class LegacyResult {
+        Map<String, Double> monthlyRevenue = new HashMap<>();
+        Map<String, Integer> monthlyBookings = new HashMap<>();
+        Map<String, Integer> monthlyPeople = new HashMap<>();
+        Map<String, Double> monthlyAveragePrice = new HashMap<>();
+        double totalRevenue;
+        long totalBookings;
+    }
+
+    /**
+     * Réplica de loadMonthlyRevenue, loadMonthlyAveragePrice, loadMonthlyBookings,
+     * loadMonthlyPeople, loadTotalRevenue y loadTotalBookings: una pasada por gráfico
+     */
+    private static LegacyResult legacyLoops(List<Map<String, Object>> reservations) {
+        LegacyResult result = new LegacyResult();
+
+        for (Map<String, Object> doc : reservations) {
+            if (legacyCounted(doc)) {
+                String yearMonth = ((String) doc.get("tourDate")).substring(0, 7);
+                result.monthlyRevenue.put(yearMonth, result.monthlyRevenue.getOrDefault(yearMonth, 0.0) + legacyPrice(doc.get("totalPrice")));
+            }
+        }
+
+        Map<String, Double> revenue = new HashMap<>();
+        Map<String, Integer> people = new HashMap<>();
+        for (Map<String, Object> doc : reservations) {
+            if (legacyCounted(doc)) {
+                String yearMonth = ((String) doc.get("tourDate")).substring(0, 7);
+                revenue.put(yearMonth, revenue.getOrDefault(yearMonth, 0.0) + legacyPrice(doc.get("totalPrice")));
+                people.put(yearMonth, people.getOrDefault(yearMonth, 0) + ((Number) doc.get("numberOfPeople")).intValue());
+            }
+        }
+        for (String yearMonth : revenue.keySet()) {
+            Integer count = people.get(yearMonth);
+            if (count != null && count > 0) {
+                result.monthlyAveragePrice.put(yearMonth, revenue.get(yearMonth) / count);
+            }
+        }
+
+        for (Map<String, Object> doc : reservations) {
+            if (legacyCounted(doc)) {
+                String yearMonth = ((String) doc.get("tourDate")).substring(0, 7);
+                result.monthlyBookings.put(yearMonth, result.monthlyBookings.getOrDefault(yearMonth, 0) + 1);
+            }
+        }
+
+        for (Map<String, Object> doc : reservations) {
+            if (legacyCounted(doc)) {
+                String yearMonth = ((String) doc.get("tourDate")).substring(0, 7);
+                result.monthlyPeople.put(yearMonth, result.monthlyPeople.getOrDefault(yearMonth, 0) + ((Number) doc.get("numberOfPeople")).intValue());
+            }
+        }
+
+        for (Map<String, Object> doc : reservations) {
+            if (legacyCounted(doc)) {
+                result.totalRevenue += legacyPrice(doc.get("totalPrice"));
+            }
+        }
+
+        for (Map<String, Object> doc : reservations) {
+            if (ReservationMetricsReducer.isCountedStatus(doc.get("status"))) {
+                result.totalBookings++;
+            }
+        }
+        return result;
+    }
+
+    private static boolean legacyCounted(Map<String, Object> doc) {
+        String status = (String) doc.get("status");
+        String paymentStatus = (String) doc.get("paymentStatus");
+        return status != null && (status.equals("CONFIRMADA") || status.equals("EN_CURSO") || status.equals("COMPLETADA"))
+                && (paymentStatus == null || paymentStatus.equals("CONFIRMADO") || paymentStatus.equals("COBRADO"));
+    }
+
+    private static double legacyPrice(Object priceObj) {
+        double price = 0.0;
+        if (priceObj instanceof Double) {
+            price = (Double) priceObj;
+        } else if (priceObj instanceof Long) {
+            price = ((Long) priceObj).doubleValue();
+        } else if (priceObj instanceof Number) {
+            price = ((Number) priceObj).doubleValue();
+        } else if (priceObj instanceof String) {
+            try {
+                price = Double.parseDouble((String) priceObj);
+            } catch (NumberFormatException e) {
+                // Ignorar
+            }
+        }
+        return price;
+    }
+}
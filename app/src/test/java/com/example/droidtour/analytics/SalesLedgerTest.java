@@ -0,0 +1,236 @@
+package com.example.droidtour.analytics;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SalesLedgerTest {
+
+    private static final double DELTA = 1e-6;
+
+    private SalesLedger ledger;
+
+    @Before
+    public void setUp() {
+        Calendar today = Calendar.getInstance();
+        today.clear();
+        today.set(2025, Calendar.MARCH, 15);
+        ledger = new SalesLedger(today);
+    }
+
+    private static Map<String, Object> reservation(String tourId, String tourDate, double totalPrice, int people,
+                                                   String status, String paymentStatus) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("tourId", tourId);
+        data.put("tourName", "Tour " + tourId);
+        data.put("tourDate", tourDate);
+        data.put("totalPrice", totalPrice);
+        data.put("numberOfPeople", (long) people);
+        data.put("status", status);
+        data.put("paymentStatus", paymentStatus);
+        return data;
+    }
+
+    private static Map<String, Object> paid(String tourId, String tourDate, double totalPrice) {
+        return reservation(tourId, tourDate, totalPrice, 2, "CONFIRMADA", "COBRADO");
+    }
+
+    @Test
+    public void windowsEndTodayAndCoverTheYear() {
+        assertEquals("2024-03-16", ledger.getFromDay());
+        assertEquals("2025-03-15", ledger.getToDay());
+        assertEquals("2025-03-09", ledger.report(SalesPeriod.WEEK).getFromDay());
+        assertEquals("2025-02-16", ledger.report(SalesPeriod.MONTH).getFromDay());
+    }
+
+    @Test
+    public void computesTotalsPerPeriod() {
+        ledger.putReservation("r1", paid("cusco", "2025-03-15", 300));
+        ledger.putReservation("r2", paid("lima", "2025-03-10", 100));
+        ledger.putReservation("r3", paid("cusco", "2024-12-01", 500));
+        ledger.putReservation("pendiente", reservation("lima", "2025-03-15", 80, 1, "PENDIENTE", null));
+        ledger.putReservation("sinCobrar", reservation("lima", "2025-03-15", 80, 1, "CONFIRMADA", "PENDIENTE"));
+        ledger.putReservation("fuera", paid("lima", "2024-01-01", 999));
+
+        Map<String, Object> offer = new HashMap<>();
+        offer.put("status", "ACEPTADA");
+        offer.put("tourDate", "2025-03-15");
+        offer.put("paymentAmount", 50.0);
+        ledger.putGuidePayment("o1", offer);
+
+        SalesReport day = ledger.report(SalesPeriod.DAY);
+        assertEquals(300, day.getGrossRevenue(), DELTA);
+        assertEquals(2, day.getBookings());
+        assertEquals(300, day.getAverageTicket(), DELTA);
+        assertEquals(30, day.getPlatformFee(), DELTA);
+        assertEquals(50, day.getGuidePayments(), DELTA);
+        assertEquals(220, day.getNetRevenue(), DELTA);
+
+        SalesReport week = ledger.report(SalesPeriod.WEEK);
+        assertEquals(400, week.getGrossRevenue(), DELTA);
+        assertEquals(2, week.getDailyRevenue().size());
+
+        SalesReport year = ledger.report(SalesPeriod.YEAR);
+        assertEquals(900, year.getGrossRevenue(), DELTA);
+        assertEquals("cusco", year.getTours().get(0).getId());
+        assertEquals(800, year.getTours().get(0).getRevenue(), DELTA);
+        assertEquals("Tour cusco", year.getTours().get(0).getName());
+    }
+
+    @Test
+    public void changesApplyAsDeltas() {
+        ledger.putReservation("r1", paid("cusco", "2025-03-15", 300));
+        ledger.putReservation("r2", paid("lima", "2025-03-14", 100));
+
+        // Reprogramada a otro día, luego cancelada, luego borrada
+        ledger.putReservation("r1", paid("cusco", "2025-03-01", 300));
+        assertEquals(0, ledger.report(SalesPeriod.DAY).getGrossRevenue(), DELTA);
+        assertEquals(400, ledger.report(SalesPeriod.MONTH).getGrossRevenue(), DELTA);
+
+        ledger.putReservation("r1", reservation("cusco", "2025-03-01", 300, 2, "CANCELADA", "COBRADO"));
+        SalesReport month = ledger.report(SalesPeriod.MONTH);
+        assertEquals(100, month.getGrossRevenue(), DELTA);
+        assertEquals(1, month.getTours().size());
+
+        ledger.removeReservation("r2");
+        month = ledger.report(SalesPeriod.MONTH);
+        assertTrue(month.isEmpty());
+        assertEquals(0, month.getGrossRevenue(), 0.0);
+        assertTrue(month.getDailyRevenue().isEmpty());
+    }
+
+    @Test
+    public void switchingPeriodsIsACacheHit() {
+        ledger.putReservation("r1", paid("cusco", "2025-03-15", 300));
+        for (SalesPeriod period : SalesPeriod.values()) {
+            ledger.report(period);
+        }
+        assertEquals(4, ledger.getReportBuilds());
+
+        SalesReport day = ledger.report(SalesPeriod.DAY);
+        for (int i = 0; i < 10; i++) {
+            for (SalesPeriod period : SalesPeriod.values()) {
+                ledger.report(period);
+            }
+        }
+        assertEquals(4, ledger.getReportBuilds());
+
+        // Una venta de diciembre solo invalida el reporte anual
+        ledger.putReservation("r2", paid("lima", "2024-12-20", 100));
+        assertSame(day, ledger.report(SalesPeriod.DAY));
+        ledger.report(SalesPeriod.WEEK);
+        ledger.report(SalesPeriod.MONTH);
+        assertEquals(4, ledger.getReportBuilds());
+        assertEquals(400, ledger.report(SalesPeriod.YEAR).getGrossRevenue(), DELTA);
+        assertEquals(5, ledger.getReportBuilds());
+    }
+
+    @Test
+    public void servicesAndRatingComeFromTours() {
+        Map<String, Object> cusco = new HashMap<>();
+        cusco.put("includedServices", Arrays.asList("Guía", "Transporte"));
+        cusco.put("ratingSum", 45.0);
+        cusco.put("totalReviews", 10L);
+        Map<String, Object> lima = new HashMap<>();
+        lima.put("includedServices", Arrays.asList("Guía"));
+        lima.put("averageRating", 4.0);
+        lima.put("totalReviews", 5L);
+        ledger.putTour("cusco", cusco);
+        ledger.putTour("lima", lima);
+
+        ledger.putReservation("r1", paid("cusco", "2025-03-15", 300));
+        ledger.putReservation("r2", paid("lima", "2025-03-15", 100));
+
+        SalesReport report = ledger.report(SalesPeriod.DAY);
+        assertEquals("Guía", report.getServices().get(0).getName());
+        assertEquals(400, report.getServices().get(0).getRevenue(), DELTA);
+        assertEquals(300, report.getServices().get(1).getRevenue(), DELTA);
+        assertEquals(4.5, report.getTours().get(0).getRating(), DELTA);
+        assertEquals(65.0 / 15, report.getAverageRating(), DELTA);
+    }
+
+    /** 20 000 reservas del año, una por día hacia atrás desde el 15 de marzo de 2025 */
+    private Map<String, Map<String, Object>> loadYear(Calendar day) {
+        Map<String, Map<String, Object>> reservations = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            Calendar date = (Calendar) day.clone();
+            date.add(Calendar.DAY_OF_YEAR, -(i % 365));
+            Map<String, Object> data = paid("tour" + (i % 40), SalesPeriod.formatDay(date), 50 + i % 200);
+            reservations.put("r" + i, data);
+            ledger.putReservation("r" + i, data);
+        }
+        return reservations;
+    }
+
+    private static Calendar march15() {
+        Calendar day = Calendar.getInstance();
+        day.clear();
+        day.set(2025, Calendar.MARCH, 15);
+        return day;
+    }
+
+    /**
+     * Cambiar entre los 4 períodos arma cada reporte una sola vez; una venta nueva invalida solo lo
+     * que toca y entra como delta.
+     */
+    @Test
+    public void periodSwitchesReuseReports() {
+        loadYear(march15());
+
+        int dayBookings = ledger.report(SalesPeriod.DAY).getBookings();
+        for (int round = 0; round < 25; round++) {
+            for (SalesPeriod period : SalesPeriod.values()) {
+                ledger.report(period);
+            }
+        }
+        assertEquals(SalesPeriod.values().length, ledger.getReportBuilds());
+
+        ledger.putReservation("nueva", paid("tour1", "2025-03-15", 120));
+        assertEquals(dayBookings + 1, ledger.report(SalesPeriod.DAY).getBookings());
+        assertEquals(SalesPeriod.values().length + 1, ledger.getReportBuilds());
+    }
+
+    /**
+     * Cambiar de período con el ledger contra volver a reducir la colección completa por cada cambio
+     * de pestaña, y una venta nueva como delta.
+     */
+    @Test
+    public void benchmarkPeriodSwitch() {
+        Benchmarks.assumeEnabled();
+        Calendar day = march15();
+        Map<String, Map<String, Object>> reservations = loadYear(day);
+
+        long start = System.nanoTime();
+        for (int round = 0; round < 25; round++) {
+            for (SalesPeriod period : SalesPeriod.values()) {
+                String from = period.fromDay(day);
+                ReservationMetricsReducer.reduce(reservations.values(), null, from, ledger.getToDay());
+            }
+        }
+        double recomputeMs = (System.nanoTime() - start) / 1e6 / 100;
+
+        start = System.nanoTime();
+        for (int round = 0; round < 25; round++) {
+            for (SalesPeriod period : SalesPeriod.values()) {
+                ledger.report(period);
+            }
+        }
+        double cachedMs = (System.nanoTime() - start) / 1e6 / 100;
+
+        start = System.nanoTime();
+        ledger.putReservation("nueva", paid("tour1", "2025-03-15", 120));
+        ledger.report(SalesPeriod.DAY);
+        double deltaMs = (System.nanoTime() - start) / 1e6;
+
+        Benchmarks.report("20k reservas: recalcular %.3f ms por cambio de período, caché %.4f ms, venta nueva %.3f ms",
+                recomputeMs, cachedMs, deltaMs);
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.droidtour.catalog;
+
+import com.example.droidtour.Benchmarks;
+import com.example.droidtour.models.Tour;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de CatalogQueryEngine: búsqueda sin tildes, orden estable con valores faltantes y
+ * comparación con filtrar y ordenar la lista en cada tecla.
+ */
+public class CatalogQueryEngineTest {
+
+    private static Tour tour(String id, String name, String description, Double price, Double rating, String duration) {
+        Tour tour = new Tour();
+        tour.setTourId(id);
+        tour.setTourName(name);
+        tour.setDescription(description);
+        tour.setPricePerPerson(price);
+        tour.setAverageRating(rating);
+        tour.setDuration(duration);
+        return tour;
+    }
+
+    private static List<String> ids(List<Tour> tours) {
+        List<String> ids = new ArrayList<>();
+        for (Tour tour : tours) ids.add(tour.getTourId());
+        return ids;
+    }
+
+    @Test
+    public void searchIgnoresCaseAndAccents() {
+        CatalogQueryEngine engine = new CatalogQueryEngine();
+        engine.setTours(Arrays.asList(
+                tour("a", "Cañón del Colca", "Vuelo del cóndor", 120.0, 4.5, "2D/1N"),
+                tour("b", "City Tour Lima", "Plaza de Armas y Catedral", 60.0, 4.8, "4 horas"),
+                tour("c", "Paracas", null, 90.0, 4.1, "Full Day")));
+
+        assertEquals(Collections.singletonList("a"), ids(engine.query("CANON", CatalogQueryEngine.ORDER_LOADED)));
+        assertEquals(Collections.singletonList("a"), ids(engine.query(" cóndor ", CatalogQueryEngine.ORDER_LOADED)));
+        assertEquals(Collections.singletonList("b"), ids(engine.query("catedral", CatalogQueryEngine.ORDER_LOADED)));
+        assertEquals(Arrays.asList("a", "b", "c"), ids(engine.query("", CatalogQueryEngine.ORDER_LOADED)));
+        // El nombre y la descripción no se juntan en una sola palabra
+        assertTrue(engine.query("colcavuelo", CatalogQueryEngine.ORDER_LOADED).isEmpty());
+    }
+
+    @Test
+    public void ordersAreStableAndMissingValuesGoLast() {
+        CatalogQueryEngine engine = new CatalogQueryEngine();
+        engine.setTours(Arrays.asList(
+                tour("a", "A", "", 90.0, 4.5, "Full Day"),
+                tour("b", "B", "", null, null, null),
+                tour("c", "C", "", 60.0, 4.5, "4 horas")));
+        engine.addTours(Collections.singletonList(tour("d", "D", "", 60.0, 4.9, "2D/1N")));
+
+        assertEquals(Arrays.asList("c", "d", "a", "b"), ids(engine.query("", CatalogQueryEngine.ORDER_PRICE)));
+        assertEquals(Arrays.asList("d", "a", "c", "b"), ids(engine.query("", CatalogQueryEngine.ORDER_RATING)));
+        assertEquals(Arrays.asList("c", "a", "d", "b"), ids(engine.query("", CatalogQueryEngine.ORDER_DURATION)));
+
+        // Una página nueva invalida los órdenes ya armados
+        engine.addTours(Collections.singletonList(tour("e", "E", "", 10.0, 1.0, "1 hora")));
+        assertEquals("e", engine.query("", CatalogQueryEngine.ORDER_PRICE).get(0).getTourId());
+        assertEquals("e", engine.query("", CatalogQueryEngine.ORDER_DURATION).get(0).getTourId());
+
+        engine.setTours(Collections.singletonList(tour("f", "F", "", 1.0, 1.0, "1 hora")));
+        assertEquals(Collections.singletonList("f"), ids(engine.query("", CatalogQueryEngine.ORDER_PRICE)));
+    }
+
+    // ==================== BENCHMARK ====================
+
+    /** Lo que hacía la pantalla por cada tecla: pasar a minúsculas nombre y descripción de todos */
+    private static List<Tour> legacyFilter(List<Tour> tours, String query) {
+        List<Tour> result = new ArrayList<>();
+        for (Tour tour : tours) {
+            if (query.isEmpty() || (tour.getName() != null && tour.getName().toLowerCase().contains(query))
+                    || (tour.getDescription() != null && tour.getDescription().toLowerCase().contains(query))) {
+                result.add(tour);
+            }
+        }
+        return result;
+    }
+
+    /** Y por cada cambio de orden: Collections.sort interpretando la duración en el comparador */
+    private static List<Tour> legacySort(List<Tour> tours, int order) {
+        List<Tour> sorted = new ArrayList<>(tours);
+        Comparator<Tour> comparator;
+        if (order == CatalogQueryEngine.ORDER_PRICE) {
+            comparator = (a, b) -> Double.compare(a.getPricePerPerson(), b.getPricePerPerson());
+        } else if (order == CatalogQueryEngine.ORDER_RATING) {
+            comparator = (a, b) -> Double.compare(b.getAverageRating(), a.getAverageRating());
+        } else {
+            comparator = (a, b) -> Integer.compare(Tour.parseDurationMinutes(a.getDuration()),
+                    Tour.parseDurationMinutes(b.getDuration()));
+        }
+        Collections.sort(sorted, comparator);
+        return sorted;
+    }
+
+    private static List<Tour> fiveThousandTours() {
+        String[] places = {"Lima", "Cusco", "Arequipa", "Paracas", "Puno", "Iquitos", "Huaraz", "Nazca"};
+        String[] kinds = {"City Tour", "Trekking", "Gastronomico", "Aventura", "Cultural", "Islas"};
+        String[] durations = {"2 horas", "4 horas", "Full Day", "medio dia", "2D/1N", "3D/2N", "6 horas"};
+        Random random = new Random(7);
+        List<Tour> tours = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String name = kinds[random.nextInt(kinds.length)] + " " + places[random.nextInt(places.length)] + " " + i;
+            String description = "Recorrido por " + places[random.nextInt(places.length)]
+                    + " con guia bilingue, transporte y entradas incluidas. Salida desde el hotel " + random.nextInt(500);
+            tours.add(tour("t" + i, name, description, Math.round(30 + random.nextDouble() * 500) * 1.0,
+                    Math.round(30 + random.nextDouble() * 20) / 10.0, durations[random.nextInt(durations.length)]));
+        }
+        return tours;
+    }
+
+    // Palabras de 3+ letras: ahí "contiene" y el índice coinciden (con 1-2 letras el índice solo
+    // busca por prefijo)
+    private static final String[] KEYSTROKES = {"cus", "cusc", "cusco", "tre", "trek", "trekking", "ota", "hotel"};
+    private static final int[] ORDERS = {CatalogQueryEngine.ORDER_PRICE, CatalogQueryEngine.ORDER_RATING,
+            CatalogQueryEngine.ORDER_DURATION};
+
+    @Test
+    public void fiveThousandToursMatchFilterAndSortForEveryKeystroke() {
+        List<Tour> tours = fiveThousandTours();
+        CatalogQueryEngine engine = new CatalogQueryEngine();
+        engine.setTours(tours);
+
+        int nonEmpty = 0;
+        for (int order : ORDERS) {
+            List<Tour> sorted = legacySort(tours, order);
+            assertEquals(ids(sorted), ids(engine.query("", order)));
+            for (String query : KEYSTROKES) {
+                List<String> expected = ids(legacyFilter(sorted, query));
+                assertEquals(expected, ids(engine.query(query, order)));
+                if (!expected.isEmpty()) nonEmpty++;
+            }
+        }
+        assertTrue(nonEmpty > 0);
+    }
+
+    @Test
+    public void benchmarkFiveThousandTours() {
+        Benchmarks.assumeEnabled();
+        List<Tour> tours = fiveThousandTours();
+        int rounds = 20;
+
+        // Antes: ordenar toda la lista al cambiar de criterio y filtrar en cada tecla
+        long sortNs = 0, filterNs = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int order : ORDERS) {
+                long start = System.nanoTime();
+                List<Tour> sorted = legacySort(tours, order);
+                sortNs += System.nanoTime() - start;
+                start = System.nanoTime();
+                for (String query : KEYSTROKES) {
+                    legacyFilter(sorted, query);
+                }
+                filterNs += System.nanoTime() - start;
+            }
+        }
+
+        // Ahora: normalizar una vez al cargar; los órdenes se arman una vez y se reutilizan
+        long start = System.nanoTime();
+        CatalogQueryEngine engine = new CatalogQueryEngine();
+        engine.setTours(tours);
+        long loadNs = System.nanoTime() - start;
+        long engineSortNs = 0, engineFilterNs = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int order : ORDERS) {
+                start = System.nanoTime();
+                engine.query("", order);
+                engineSortNs += System.nanoTime() - start;
+                start = System.nanoTime();
+                for (String query : KEYSTROKES) {
+                    engine.query(query, order);
+                }
+                engineFilterNs += System.nanoTime() - start;
+            }
+        }
+
+        int changes = rounds * ORDERS.length;
+        int filters = changes * KEYSTROKES.length;
+        Benchmarks.report("Catálogo de %d tours:%n"
+                        + "  normalizar al cargar: %.1f ms%n"
+                        + "  cambiar de orden: antes %.2f ms, ahora %.3f ms (promedio; el primero arma el índice)%n"
+                        + "  filtrar por tecla: antes %.2f ms, ahora %.2f ms",
+                tours.size(), loadNs / 1e6, sortNs / 1e6 / changes, engineSortNs / 1e6 / changes,
+                filterNs / 1e6 / filters, engineFilterNs / 1e6 / filters);
+    }
+}
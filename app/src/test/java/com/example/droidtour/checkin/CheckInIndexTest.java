@@ -0,0 +1,201 @@
+package com.example.droidtour.checkin;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de los QR firmados y de la validación sin red con CheckInIndex.
+ */
+public class CheckInIndexTest {
+
+    private static final byte[] KEY = "clave-de-prueba".getBytes(StandardCharsets.UTF_8);
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final QrCodeSigner signer = new QrCodeSigner(KEY, new SecureRandom(new byte[]{7}));
+
+    /** Salida con n reservas; codes[i][0] = check-in, codes[i][1] = check-out */
+    private CheckInIndex departure(int n, String[][] codes) {
+        CheckInIndex.Builder builder = new CheckInIndex.Builder("tour1", "2025-05-10");
+        for (int i = 0; i < n; i++) {
+            String id = "res" + i;
+            codes[i][0] = signer.issue(ScanKind.CHECK_IN, id);
+            codes[i][1] = signer.issue(ScanKind.CHECK_OUT, id);
+            builder.add(id, "Cliente " + i, 1 + i % 4, codes[i][0], codes[i][1], 0, 0);
+        }
+        CheckInIndex index = builder.build();
+        index.setSigner(signer);
+        return index;
+    }
+
+    @Test
+    public void signedCodesRoundTripAndRejectTampering() {
+        String code = signer.issue(ScanKind.CHECK_IN, "abc123");
+        QrCodeSigner.Parsed parsed = QrCodeSigner.parse(code);
+        assertNotNull(parsed);
+        assertEquals(ScanKind.CHECK_IN, parsed.getKind());
+        assertEquals("abc123", parsed.getReservationId());
+        assertTrue(signer.verify(parsed));
+
+        // Cambiar el tipo o la reserva invalida la firma
+        assertFalse(signer.verify(QrCodeSigner.parse(code.replace("DT1.I.", "DT1.O."))));
+        assertFalse(signer.verify(QrCodeSigner.parse(code.replace("abc123", "abc124"))));
+        // Otra clave tampoco verifica
+        QrCodeSigner other = new QrCodeSigner("otra".getBytes(StandardCharsets.UTF_8));
+        assertFalse(other.verify(parsed));
+
+        assertNull(QrCodeSigner.parse("CHECKIN-user1-1700000000000"));
+        assertNull(QrCodeSigner.parse("DT1.X.abc.def.ghi"));
+        assertFalse(code.equals(signer.issue(ScanKind.CHECK_IN, "abc123")));
+    }
+
+    @Test
+    public void checkInThenCheckOutLifecycle() {
+        String[][] codes = new String[3][2];
+        CheckInIndex index = departure(3, codes);
+
+        CheckInIndex.ScanResult first = index.validate(codes[1][0], ScanKind.CHECK_IN, NOW);
+        assertEquals(CheckInIndex.Status.ACCEPTED, first.getStatus());
+        assertEquals("res1", first.getReservation().getReservationId());
+
+        CheckInIndex.ScanResult again = index.validate(codes[1][0], ScanKind.CHECK_IN, NOW + 5000);
+        assertEquals(CheckInIndex.Status.ALREADY_SCANNED, again.getStatus());
+        assertEquals(NOW, again.getPreviousScanAt());
+
+        assertEquals(CheckInIndex.Status.WRONG_KIND, index.validate(codes[1][1], ScanKind.CHECK_IN, NOW).getStatus());
+        assertEquals(CheckInIndex.Status.NOT_CHECKED_IN, index.validate(codes[2][1], ScanKind.CHECK_OUT, NOW).getStatus());
+        assertEquals(CheckInIndex.Status.ACCEPTED, index.validate(codes[1][1], ScanKind.CHECK_OUT, NOW + 1000).getStatus());
+        assertEquals(1, index.getScannedCount(ScanKind.CHECK_IN));
+        assertEquals(1, index.getScannedCount(ScanKind.CHECK_OUT));
+    }
+
+    @Test
+    public void rejectsForgedAndForeignCodes() {
+        String[][] codes = new String[2][2];
+        CheckInIndex index = departure(2, codes);
+
+        // Código bien firmado de otra salida
+        String foreign = signer.issue(ScanKind.CHECK_IN, "res0");
+        assertEquals(CheckInIndex.Status.NOT_IN_TOUR, index.validate(foreign, ScanKind.CHECK_IN, NOW).getStatus());
+
+        // Código alterado
+        String tampered = codes[0][0].substring(0, codes[0][0].length() - 2) + "AA";
+        assertEquals(CheckInIndex.Status.INVALID_SIGNATURE, index.validate(tampered, ScanKind.CHECK_IN, NOW).getStatus());
+
+        // Código antiguo que no está en la lista y QR cualquiera
+        assertEquals(CheckInIndex.Status.NOT_IN_TOUR, index.validate("CHECKIN-u1-1", ScanKind.CHECK_IN, NOW).getStatus());
+        assertEquals(CheckInIndex.Status.NOT_IN_TOUR, index.validate("https://example.com", ScanKind.CHECK_IN, NOW).getStatus());
+        assertEquals(0, index.getScannedCount(ScanKind.CHECK_IN));
+    }
+
+    @Test
+    public void legacyCodesAreStillAccepted() {
+        CheckInIndex index = new CheckInIndex.Builder("tour1", "2025-05-10")
+                .add("old1", "Ana", 2, "CHECKIN-user1-1700000000000", "CHECKOUT-user1-1700000000001", 0, 0)
+                .build();
+        index.setSigner(signer);
+        assertTrue(index.validate("CHECKIN-user1-1700000000000", ScanKind.CHECK_IN, NOW).isAccepted());
+    }
+
+    @Test
+    public void manualEntryUsesReservationId() {
+        String[][] codes = new String[2][2];
+        CheckInIndex index = departure(2, codes);
+        assertTrue(index.validateReservation("res0", ScanKind.CHECK_IN, NOW).isAccepted());
+        assertEquals(CheckInIndex.Status.ALREADY_SCANNED, index.validate(codes[0][0], ScanKind.CHECK_IN, NOW).getStatus());
+        assertEquals(CheckInIndex.Status.NOT_IN_TOUR, index.validateReservation("nope", ScanKind.CHECK_IN, NOW).getStatus());
+    }
+
+    @Test
+    public void persistsStateAcrossRestart() throws IOException {
+        String[][] codes = new String[5][2];
+        CheckInIndex index = departure(5, codes);
+        index.validate(codes[3][0], ScanKind.CHECK_IN, NOW);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        CheckInIndex restored = CheckInIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        restored.setSigner(signer);
+
+        assertEquals("tour1", restored.getTourId());
+        assertEquals(5, restored.getReservationCount());
+        assertEquals(index.getPeopleCount(), restored.getPeopleCount());
+        // Los códigos no se guardan en el archivo, solo sus huellas
+        assertFalse(new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1).contains(codes[0][0]));
+        assertEquals(CheckInIndex.Status.ALREADY_SCANNED, restored.validate(codes[3][0], ScanKind.CHECK_IN, NOW).getStatus());
+        assertTrue(restored.validate(codes[4][0], ScanKind.CHECK_IN, NOW).isAccepted());
+    }
+
+    /** Un punto de encuentro típico: 60 reservas, cada QR pasa 3 veces frente a la cámara */
+    private List<String> meetingPointScans(String[][] small) {
+        List<String> scans = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (String[] code : small) scans.add(code[0]);
+        }
+        return scans;
+    }
+
+    @Test
+    public void repeatedScansAreAcceptedOnce() {
+        String[][] small = new String[60][2];
+        CheckInIndex meetingPoint = departure(60, small);
+        int accepted = 0;
+        int repeated = 0;
+        for (String scan : meetingPointScans(small)) {
+            CheckInIndex.ScanResult result = meetingPoint.validate(scan, ScanKind.CHECK_IN, NOW);
+            if (result.isAccepted()) accepted++;
+            else if (result.getStatus() == CheckInIndex.Status.ALREADY_SCANNED) repeated++;
+        }
+        assertEquals(60, accepted);
+        assertEquals(120, repeated);
+
+        int reservations = 10_000;
+        String[][] codes = new String[reservations][2];
+        CheckInIndex index = departure(reservations, codes);
+        assertEquals(reservations, index.getReservationCount());
+        for (String[] code : codes) {
+            assertTrue(index.validate(code[0], ScanKind.CHECK_IN, NOW).isAccepted());
+        }
+    }
+
+    @Test
+    public void benchmarkValidationThroughput() {
+        Benchmarks.assumeEnabled();
+        int reservations = 10_000;
+        String[][] codes = new String[reservations][2];
+        long buildStart = System.nanoTime();
+        CheckInIndex index = departure(reservations, codes);
+        double buildMs = (System.nanoTime() - buildStart) / 1e6;
+
+        String[][] small = new String[60][2];
+        CheckInIndex meetingPoint = departure(60, small);
+        List<String> scans = meetingPointScans(small);
+        long start = System.nanoTime();
+        for (String scan : scans) {
+            meetingPoint.validate(scan, ScanKind.CHECK_IN, NOW);
+        }
+        double meetingMs = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        for (String[] code : codes) {
+            index.validate(code[0], ScanKind.CHECK_IN, NOW);
+        }
+        double perScanUs = (System.nanoTime() - start) / 1e3 / reservations;
+
+        // Comparar con lo que tarda la cámara en decodificar un QR (~100 ms)
+        Benchmarks.report("Índice de %d reservas en %.1f ms; 180 escaneos de 60 reservas en %.2f ms; %.1f µs por escaneo",
+                reservations, buildMs, meetingMs, perScanUs);
+    }
+}
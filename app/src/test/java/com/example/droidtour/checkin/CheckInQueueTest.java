@@ -0,0 +1,136 @@
+package com.example.droidtour.checkin;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la cola de check-ins sin conexión: persistencia, deduplicación y reintentos.
+ */
+public class CheckInQueueTest {
+
+    /** Store en memoria que sobrevive a "reinicios" (nuevas colas sobre el mismo store) */
+    private static class MemoryStore implements CheckInQueue.Store {
+        List<String> lines = new ArrayList<>();
+        int saves;
+
+        @Override
+        public List<String> load() {
+            return new ArrayList<>(lines);
+        }
+
+        @Override
+        public void save(List<String> lines) {
+            this.lines = new ArrayList<>(lines);
+            saves++;
+        }
+    }
+
+    /** Flusher falso: sin conexión falla, con conexión registra las subidas o las deja pendientes */
+    private static class FakeFlusher implements CheckInQueue.Flusher {
+        final List<List<CheckInQueue.Event>> flushed = new ArrayList<>();
+        boolean online;
+        boolean manual;
+        CheckInQueue.FlushCallback pending;
+
+        @Override
+        public void flush(List<CheckInQueue.Event> events, CheckInQueue.FlushCallback callback) {
+            if (!online) {
+                callback.onFailed(new Exception("sin conexión"));
+                return;
+            }
+            flushed.add(events);
+            if (manual) {
+                pending = callback;
+            } else {
+                callback.onFlushed();
+            }
+        }
+    }
+
+    private static CheckInQueue.Event checkIn(String reservationId, long time) {
+        return new CheckInQueue.Event(reservationId, ScanKind.CHECK_IN, time);
+    }
+
+    @Test
+    public void replaysOfflineScansAfterRestart() {
+        MemoryStore store = new MemoryStore();
+        FakeFlusher flusher = new FakeFlusher();
+        CheckInQueue queue = new CheckInQueue(store);
+
+        // 40 escaneos sin señal: cada intento de subida falla y nada se pierde
+        for (int i = 0; i < 40; i++) {
+            queue.add(checkIn("res" + i, 1000 + i));
+            assertTrue(queue.flush(flusher));
+        }
+        assertEquals(40, queue.size());
+        assertEquals(40, store.lines.size());
+        assertTrue(flusher.flushed.isEmpty());
+
+        // La app se cierra; al volver la red se reconstruye la cola y sube todo en una sola llamada
+        CheckInQueue restarted = new CheckInQueue(store);
+        assertEquals(40, restarted.size());
+        flusher.online = true;
+        assertTrue(restarted.flush(flusher));
+
+        assertEquals(1, flusher.flushed.size());
+        assertEquals(40, flusher.flushed.get(0).size());
+        assertEquals("res0", flusher.flushed.get(0).get(0).getReservationId());
+        assertEquals(1000, flusher.flushed.get(0).get(0).getTime());
+        assertEquals(0, restarted.size());
+        assertTrue(store.lines.isEmpty());
+        assertFalse(restarted.flush(flusher));
+    }
+
+    @Test
+    public void deduplicatesByReservationAndKindKeepingEarliest() {
+        CheckInQueue queue = new CheckInQueue(new MemoryStore());
+        assertTrue(queue.add(checkIn("res1", 2000)));
+        assertFalse(queue.add(checkIn("res1", 3000)));
+        assertFalse(queue.add(checkIn("res1", 1500)));
+        assertTrue(queue.add(new CheckInQueue.Event("res1", ScanKind.CHECK_OUT, 9000)));
+
+        assertEquals(2, queue.size());
+        assertEquals(1500, queue.getPending().get(0).getTime());
+    }
+
+    @Test
+    public void scansDuringFlushWaitForNextFlush() {
+        MemoryStore store = new MemoryStore();
+        FakeFlusher flusher = new FakeFlusher();
+        flusher.online = true;
+        flusher.manual = true;
+        CheckInQueue queue = new CheckInQueue(store);
+
+        queue.add(checkIn("res1", 1000));
+        assertTrue(queue.flush(flusher));
+        assertTrue(queue.isFlushing());
+        queue.add(checkIn("res2", 2000));
+        assertFalse("Solo una subida a la vez", queue.flush(flusher));
+
+        flusher.pending.onFlushed();
+        assertEquals(1, queue.size());
+        assertEquals("res2", queue.getPending().get(0).getReservationId());
+        assertEquals(1, store.lines.size());
+
+        assertTrue(queue.flush(flusher));
+        assertEquals(1, flusher.flushed.get(1).size());
+    }
+
+    @Test
+    public void ignoresCorruptStoredLines() {
+        MemoryStore store = new MemoryStore();
+        store.lines.add("res1|I|1000");
+        store.lines.add("basura");
+        store.lines.add("res2|X|1000");
+        store.lines.add("res3|O|no-es-numero");
+        store.lines.add("res4|O|4000");
+
+        CheckInQueue queue = new CheckInQueue(store);
+        assertEquals(2, queue.size());
+        assertEquals(ScanKind.CHECK_OUT, queue.getPending().get(1).getKind());
+    }
+}
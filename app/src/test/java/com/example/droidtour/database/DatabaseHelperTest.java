@@ -0,0 +1,211 @@
+package com.example.droidtour.database;
+
+import android.app.Application;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de DatabaseHelper sobre SQLite nativo (Robolectric): migración desde la versión 1,
+ * consultas paginadas por estado e inserciones en lote.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class DatabaseHelperTest {
+
+    private static final String[] STATUSES = {"CONFIRMADA", "COMPLETADA", "PENDIENTE", "CANCELADA"};
+
+    private Context context;
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.getApplication();
+        resetInstance();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DatabaseHelper.getInstance(context).close();
+        resetInstance();
+    }
+
+    /** La instancia estática sobrevive entre pruebas; cada una empieza con una base nueva */
+    private static void resetInstance() throws Exception {
+        Field field = DatabaseHelper.class.getDeclaredField("instance");
+        field.setAccessible(true);
+        field.set(null, null);
+    }
+
+    private static List<DatabaseHelper.Reservation> reservations(int count) {
+        List<DatabaseHelper.Reservation> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(new DatabaseHelper.Reservation("Tour " + i, "Empresa " + (i % 20), "28 Oct", "09:00 AM",
+                    STATUSES[i % STATUSES.length], 150.0, 2, "QR-" + i));
+        }
+        return list;
+    }
+
+    @Test
+    public void upgradesVersionOneWithoutLosingData() {
+        // Base como la dejaba la versión 1 más antigua: sin notificaciones ni índices
+        File path = context.getDatabasePath("DroidTour.db");
+        path.getParentFile().mkdirs();
+        SQLiteDatabase v1 = SQLiteDatabase.openOrCreateDatabase(path, null);
+        v1.execSQL("CREATE TABLE tours(id INTEGER PRIMARY KEY AUTOINCREMENT,name TEXT,company TEXT,date TEXT,time TEXT,status TEXT,payment REAL,participants INTEGER)");
+        v1.execSQL("CREATE TABLE offers(id INTEGER PRIMARY KEY AUTOINCREMENT,tour_name TEXT,company TEXT,date TEXT,time TEXT,payment REAL,status TEXT,participants INTEGER)");
+        v1.execSQL("CREATE TABLE reservations(id INTEGER PRIMARY KEY AUTOINCREMENT,tour_name TEXT,company TEXT,date TEXT,time TEXT,status TEXT,price REAL,people INTEGER,qr_code TEXT)");
+        ContentValues values = new ContentValues();
+        values.put("tour_name", "City Tour Lima Centro");
+        values.put("status", "CONFIRMADA");
+        values.put("qr_code", "QR-2024-001");
+        v1.insert("reservations", null, values);
+        v1.setVersion(1);
+        v1.close();
+
+        DatabaseHelper db = DatabaseHelper.getInstance(context);
+        assertEquals(1, db.countReservationsByStatus("CONFIRMADA"));
+        assertEquals("QR-2024-001", db.getReservationsByStatus("CONFIRMADA", 0, 10).get(0).getQrCode());
+
+        assertTrue(db.addNotification("TOUR_REMINDER", "Recordatorio", "Mañana", "hoy") > 0);
+        assertEquals(1, db.getUnreadNotificationsCount());
+        db.markAllNotificationsAsRead();
+        assertEquals(0, db.getUnreadNotificationsCount());
+        assertTrue(db.getNotifications(true, 0, 10).isEmpty());
+
+        try (Cursor cursor = db.getReadableDatabase().rawQuery("PRAGMA journal_mode", null)) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("wal", cursor.getString(0).toLowerCase());
+        }
+    }
+
+    @Test
+    public void pagesByStatusNewestFirst() {
+        DatabaseHelper db = DatabaseHelper.getInstance(context);
+        db.addReservations(reservations(103));
+
+        List<Integer> ids = new ArrayList<>();
+        int beforeId = 0;
+        while (true) {
+            List<DatabaseHelper.Reservation> page = db.getReservationsByStatus("CONFIRMADA", beforeId, 10);
+            if (page.isEmpty()) break;
+            for (DatabaseHelper.Reservation res : page) {
+                assertEquals("CONFIRMADA", res.getStatus());
+                if (!ids.isEmpty()) assertTrue(res.getId() < ids.get(ids.size() - 1));
+                ids.add(res.getId());
+            }
+            beforeId = page.get(page.size() - 1).getId();
+        }
+        assertEquals(26, ids.size());
+        assertEquals(26, db.countReservationsByStatus("CONFIRMADA"));
+
+        // La consulta paginada sale del índice, sin recorrer la tabla ni ordenar aparte
+        try (Cursor cursor = db.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN SELECT id FROM reservations"
+                + " WHERE status = ? AND id < ? ORDER BY id DESC LIMIT 10", new String[]{"CONFIRMADA", "50"})) {
+            StringBuilder plan = new StringBuilder();
+            while (cursor.moveToNext()) plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+            assertTrue(plan.toString(), plan.toString().contains("idx_reservations_status"));
+            assertFalse(plan.toString(), plan.toString().contains("TEMP B-TREE"));
+        }
+    }
+
+    @Test
+    public void tenThousandInsertsInOneBatchAndCountsFromTheIndex() {
+        DatabaseHelper db = DatabaseHelper.getInstance(context);
+        int rows = 10_000;
+        List<DatabaseHelper.Reservation> batch = reservations(rows);
+        db.addReservations(batch);
+
+        for (DatabaseHelper.Reservation res : batch) {
+            assertTrue(res.getId() > 0);
+        }
+        int legacyCount = 0;
+        for (DatabaseHelper.Reservation res : db.getAllReservations()) {
+            if ("CONFIRMADA".equals(res.getStatus())) legacyCount++;
+        }
+        assertEquals(rows / STATUSES.length, legacyCount);
+        assertEquals(legacyCount, db.countReservationsByStatus("CONFIRMADA"));
+        assertEquals(20, db.getReservationsByStatus("PENDIENTE", 0, 20).size());
+
+        // El conteo sale del índice en vez de leer todas las filas
+        try (Cursor cursor = db.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN SELECT COUNT(*) FROM reservations"
+                + " WHERE status = ?", new String[]{"CONFIRMADA"})) {
+            StringBuilder plan = new StringBuilder();
+            while (cursor.moveToNext()) plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+            assertTrue(plan.toString(), plan.toString().contains("idx_reservations_status"));
+        }
+    }
+
+    @Test
+    public void benchmarkTenThousandInsertsAndFilteredReads() {
+        Benchmarks.assumeEnabled();
+        DatabaseHelper db = DatabaseHelper.getInstance(context);
+        SQLiteDatabase raw = db.getWritableDatabase();
+
+        // Antes: ContentValues + insert sin transacción, un commit por fila (se mide con 1000 y se escala)
+        int legacyRows = 1000;
+        long start = System.nanoTime();
+        for (DatabaseHelper.Reservation res : reservations(legacyRows)) {
+            ContentValues values = new ContentValues();
+            values.put("tour_name", res.getTourName());
+            values.put("company", res.getCompany());
+            values.put("date", res.getDate());
+            values.put("time", res.getTime());
+            values.put("status", res.getStatus());
+            values.put("price", res.getPrice());
+            values.put("people", res.getPeople());
+            values.put("qr_code", res.getQrCode());
+            raw.insert("reservations", null, values);
+        }
+        double legacyPerRowUs = (System.nanoTime() - start) / 1e3 / legacyRows;
+        db.getWritableDatabase().delete("reservations", null, null);
+
+        int rows = 10_000;
+        start = System.nanoTime();
+        db.addReservations(reservations(rows));
+        long batchNs = System.nanoTime() - start;
+        double batchPerRowUs = batchNs / 1e3 / rows;
+
+        // Antes: leer todas y contar en Java (updateActiveReservationsCount)
+        start = System.nanoTime();
+        int legacyCount = 0;
+        for (DatabaseHelper.Reservation res : db.getAllReservations()) {
+            if ("CONFIRMADA".equals(res.getStatus())) legacyCount++;
+        }
+        long legacyCountNs = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        db.countReservationsByStatus("CONFIRMADA");
+        long countNs = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        db.getReservationsByStatus("PENDIENTE", 0, 20);
+        long pageNs = System.nanoTime() - start;
+
+        Benchmarks.report("Reservas (%d filas):%n"
+                        + "  insertar: antes %.1f us/fila (una transacción por fila), ahora %.1f us/fila (lote, %.0f ms)%n"
+                        + "  contar CONFIRMADA: antes %.1f ms (leer todo, %d), ahora %.2f ms (índice)%n"
+                        + "  primera página de PENDIENTE (20): %.2f ms",
+                rows, legacyPerRowUs, batchPerRowUs, batchNs / 1e6,
+                legacyCountNs / 1e6, legacyCount, countNs / 1e6, pageNs / 1e6);
+    }
+}
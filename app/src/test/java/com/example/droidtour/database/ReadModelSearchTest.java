@@ -0,0 +1,280 @@
+package com.example.droidtour.database;
+
+import android.app.Application;
+import android.content.Context;
+
+import com.example.droidtour.Benchmarks;
+import com.example.droidtour.models.Message;
+import com.example.droidtour.models.Review;
+import com.example.droidtour.models.Tour;
+import com.example.droidtour.search.SearchHit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la búsqueda de texto de ReadModelDatabase sobre SQLite nativo (Robolectric):
+ * tildes y prefijos, orden, snippets, actualización incremental y muchas filas (la latencia con
+ * 100k filas es un benchmark aparte).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class ReadModelSearchTest {
+
+    private Context context;
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.getApplication();
+        resetInstance();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ReadModelDatabase.getInstance(context).close();
+        resetInstance();
+    }
+
+    /** La instancia estática sobrevive entre pruebas; cada una empieza con una base nueva */
+    private static void resetInstance() throws Exception {
+        Field field = ReadModelDatabase.class.getDeclaredField("instance");
+        field.setAccessible(true);
+        field.set(null, null);
+    }
+
+    private static Tour tour(String id, String name, String description, String... stops) {
+        Tour tour = new Tour();
+        tour.setTourId(id);
+        tour.setTourName(name);
+        tour.setDescription(description);
+        tour.setCompanyName("Andes Travel");
+        List<Tour.ItineraryPoint> itinerary = new ArrayList<>();
+        for (String stop : stops) {
+            itinerary.add(new Tour.ItineraryPoint("09:00", stop, "Visita guiada en " + stop, "1h"));
+        }
+        tour.setItinerary(itinerary);
+        return tour;
+    }
+
+    private static Review review(String id, String tourId, String tourName, String text) {
+        Review review = new Review();
+        review.setReviewId(id);
+        review.setTourId(tourId);
+        review.setTourName(tourName);
+        review.setUserName("Ana García");
+        review.setReviewText(text);
+        return review;
+    }
+
+    private static Message message(String id, String conversationId, String text) {
+        Message message = new Message();
+        message.setMessageId(id);
+        message.setConversationId(conversationId);
+        message.setSenderType("CLIENT");
+        message.setSenderName("Ana García");
+        message.setReceiverName("Andes Travel");
+        message.setMessageText(text);
+        return message;
+    }
+
+    private static List<String> docIds(List<SearchHit> hits) {
+        List<String> ids = new ArrayList<>();
+        for (SearchHit hit : hits) ids.add(hit.getDocId());
+        return ids;
+    }
+
+    @Test
+    public void findsToursReviewsAndMessagesWithoutAccents() {
+        ReadModelDatabase db = ReadModelDatabase.getInstance(context);
+        db.putTours(Arrays.asList(
+                tour("t1", "Cañón del Colca", "Dos días en Arequipa", "Mirador Cruz del Cóndor", "Chivay"),
+                tour("t2", "City Tour Lima", "Plaza de Armas y Catedral", "Barranco")));
+        db.putReviews(Collections.singletonList(review("r1", "t2", "City Tour Lima", "El guía nos llevó a Barranco, increíble")));
+        db.upsertMessages(Collections.singletonList(message("m1", "c1", "¿El tour al Colca incluye desayuno?")));
+
+        // Parada del itinerario, sin tilde y por prefijo
+        List<SearchHit> condor = db.search("condo", null, 10);
+        assertEquals(Collections.singletonList("t1"), docIds(condor));
+        assertEquals(SearchHit.KIND_TOUR, condor.get(0).getKind());
+        assertEquals("Cañón del Colca", condor.get(0).getTitle());
+        assertTrue(condor.get(0).getSnippet(), condor.get(0).getSnippet().contains(SearchHit.MARK_START + "Cóndor" + SearchHit.MARK_END));
+
+        // El nombre pesa más que el cuerpo: el tour antes que el mensaje
+        assertEquals(Arrays.asList("t1", "m1"), docIds(db.search("colca", null, 10)));
+        assertEquals(Collections.singletonList("m1"), docIds(db.search("colca", SearchHit.KIND_MESSAGE, 10)));
+        SearchHit chat = db.search("desayuno", null, 10).get(0);
+        assertEquals("c1", chat.getRefId());
+        assertEquals("Andes Travel", chat.getTitle());
+
+        // Todas las palabras tienen que estar
+        assertEquals(Collections.singletonList("r1"), docIds(db.search("barranco increible", null, 10)));
+        assertEquals(Arrays.asList("t2", "r1"), docIds(db.search("barranco", null, 10)));
+        assertEquals("t2", db.search("barranco", SearchHit.KIND_REVIEW, 10).get(0).getRefId());
+        assertTrue(db.search("barranco colca", null, 10).isEmpty());
+        assertTrue(db.search("  ", null, 10).isEmpty());
+        assertEquals(1, db.search("barranco", null, 1).size());
+    }
+
+    @Test
+    public void indexFollowsUpdatesAndDeletes() {
+        ReadModelDatabase db = ReadModelDatabase.getInstance(context);
+        db.putTours(Collections.singletonList(tour("t1", "Islas Ballestas", "Lobos marinos")));
+        db.putTours(Collections.singletonList(tour("t1", "Islas Ballestas", "Pingüinos de Humboldt")));
+        assertTrue(db.search("lobos", null, 10).isEmpty());
+        assertEquals(Collections.singletonList("t1"), docIds(db.search("pinguinos", null, 10)));
+
+        db.upsertMessages(Arrays.asList(message("m1", "c1", "hola paracas"), message("m2", "c1", "paracas otra vez"),
+                message("m3", "c2", "paracas en la otra conversación")));
+        db.deleteMessages(Collections.singletonList("m2"));
+        assertEquals(2, db.search("paracas", SearchHit.KIND_MESSAGE, 10).size());
+
+        // La ventana nueva reemplaza lo indexado de esa conversación
+        db.replaceMessages("c1", Collections.singletonList(message("m4", "c1", "nos vemos en paracas")));
+        assertEquals(Arrays.asList("m4", "m3"), docIds(db.search("paracas", SearchHit.KIND_MESSAGE, 10)));
+
+        db.clear();
+        assertTrue(db.search("paracas", null, 10).isEmpty());
+        assertTrue(db.search("pinguinos", null, 10).isEmpty());
+    }
+
+    // ==================== BENCHMARK ====================
+
+    private static final String[] PLACES = {"Lima", "Cusco", "Arequipa", "Paracas", "Puno", "Iquitos", "Huaraz",
+            "Nazca", "Chachapoyas", "Trujillo", "Máncora", "Ayacucho"};
+    private static final String[] WORDS = {"recorrido", "guía", "bilingüe", "transporte", "entradas", "almuerzo",
+            "mirador", "laguna", "templo", "museo", "caminata", "excelente", "puntual", "hotel", "recojo",
+            "paisaje", "comida", "historia", "fotos", "clima", "altura", "nevado", "playa", "selva", "río"};
+
+    /** Texto con palabras comunes y una palabra rara ("kw" + n) que sirve de consulta selectiva */
+    private static String text(Random random, int words, int rareWord) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) text.append(' ');
+            text.append(i == words / 2 ? "kw" + rareWord : random.nextInt(4) == 0
+                    ? PLACES[random.nextInt(PLACES.length)] : WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    /** Cargar tours, reseñas y mensajes en bloques de 1000, como llegan del servidor */
+    private static void fill(ReadModelDatabase db, Random random, int tours, int reviews, int messages, int rareWords) {
+        List<Tour> tourBatch = new ArrayList<>();
+        for (int i = 0; i < tours; i++) {
+            Tour tour = tour("t" + i, "Tour " + PLACES[random.nextInt(PLACES.length)] + " " + i,
+                    text(random, 30, random.nextInt(rareWords)),
+                    PLACES[random.nextInt(PLACES.length)], PLACES[random.nextInt(PLACES.length)]);
+            tourBatch.add(tour);
+            if (tourBatch.size() == 1000 || i == tours - 1) {
+                db.putTours(tourBatch);
+                tourBatch = new ArrayList<>();
+            }
+        }
+        List<Review> reviewBatch = new ArrayList<>();
+        for (int i = 0; i < reviews; i++) {
+            reviewBatch.add(review("r" + i, "t" + random.nextInt(tours), "Tour " + i, text(random, 20, random.nextInt(rareWords))));
+            if (reviewBatch.size() == 1000 || i == reviews - 1) {
+                db.putReviews(reviewBatch);
+                reviewBatch = new ArrayList<>();
+            }
+        }
+        List<Message> messageBatch = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            messageBatch.add(message("m" + i, "c" + (i % 300), text(random, 12, random.nextInt(rareWords))));
+            if (messageBatch.size() == 1000 || i == messages - 1) {
+                db.upsertMessages(messageBatch);
+                messageBatch = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Consultas como las escribe el usuario: palabra rara (completa o prefijo) y rara + común
+     */
+    private static List<String> queries(Random random, int rareWords) {
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String word = "kw" + random.nextInt(rareWords);
+            queries.add(word);
+            queries.add(word.substring(0, Math.min(4, word.length())));
+            queries.add(word + " " + WORDS[random.nextInt(WORDS.length)]);
+        }
+        return queries;
+    }
+
+    private static final String[] KINDS = {null, SearchHit.KIND_TOUR, SearchHit.KIND_REVIEW, SearchHit.KIND_MESSAGE};
+
+    @Test
+    public void selectiveAndBroadQueriesOverManyRows() {
+        ReadModelDatabase db = ReadModelDatabase.getInstance(context);
+        Random random = new Random(24);
+        int rareWords = 500;   // ~20 filas por palabra rara
+        fill(db, random, 4_000, 3_000, 3_000, rareWords);
+
+        List<String> queries = queries(random, rareWords);
+        int found = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            List<SearchHit> hits = db.search(queries.get(i), KINDS[i % KINDS.length], 20);
+            assertTrue(hits.size() <= 20);
+            if (!hits.isEmpty()) found++;
+            for (SearchHit hit : hits) {
+                assertNotNull(hit.getSnippet());
+                if (KINDS[i % KINDS.length] != null) assertEquals(KINDS[i % KINDS.length], hit.getKind());
+            }
+        }
+        assertTrue(found > queries.size() / 2);
+
+        // Consulta amplia: miles de coincidencias, se devuelven solo las 20 pedidas
+        assertEquals(20, db.search("lima", null, 20).size());
+    }
+
+    @Test
+    public void benchmarkHundredThousandRows() {
+        Benchmarks.assumeEnabled();
+        ReadModelDatabase db = ReadModelDatabase.getInstance(context);
+        Random random = new Random(24);
+        int tours = 40_000, reviews = 30_000, messages = 30_000;
+        int rareWords = 5_000;   // ~20 filas por palabra rara
+
+        long start = System.nanoTime();
+        fill(db, random, tours, reviews, messages, rareWords);
+        long indexMs = (System.nanoTime() - start) / 1_000_000;
+
+        List<String> queries = queries(random, rareWords);
+        db.search("calentar", null, 20);
+        long[] latencies = new long[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            start = System.nanoTime();
+            db.search(queries.get(i), KINDS[i % KINDS.length], 20);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        double medianMs = latencies[latencies.length / 2] / 1e6;
+        double p95Ms = latencies[(int) (latencies.length * 0.95)] / 1e6;
+
+        start = System.nanoTime();
+        db.search("lima", null, 20);
+        double broadMs = (System.nanoTime() - start) / 1e6;
+
+        Benchmarks.report("Búsqueda local sobre %d filas (tours, reseñas, mensajes):%n"
+                        + "  indexar: %d ms%n"
+                        + "  consulta selectiva: mediana %.2f ms, p95 %.2f ms%n"
+                        + "  consulta amplia (\"lima\"): %.2f ms",
+                tours + reviews + messages, indexMs, medianMs, p95Ms, broadMs);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.droidtour.database;
+
+import android.app.Application;
+import android.content.Context;
+
+import com.example.droidtour.models.Reservation;
+import com.example.droidtour.models.Tour;
+import com.example.droidtour.search.SearchHit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del estado de sincronización de ReadModelDatabase (Robolectric): versiones locales para
+ * descartar deltas sin cambios y borrado de lo que falta en una carga completa.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class ReadModelSyncStateTest {
+
+    private Context context;
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.getApplication();
+        resetInstance();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ReadModelDatabase.getInstance(context).close();
+        resetInstance();
+    }
+
+    private static void resetInstance() throws Exception {
+        Field field = ReadModelDatabase.class.getDeclaredField("instance");
+        field.setAccessible(true);
+        field.set(null, null);
+    }
+
+    private static Tour tour(String id, long updatedAt) {
+        Tour tour = new Tour();
+        tour.setTourId(id);
+        tour.setTourName("Tour " + id);
+        tour.setUpdatedAt(new Date(updatedAt));
+        return tour;
+    }
+
+    private static Reservation reservation(String id, String userId, String guideId, long updatedAt) {
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(id);
+        reservation.setUserId(userId);
+        reservation.setGuideId(guideId);
+        reservation.setCreatedAt(new Date(updatedAt));
+        reservation.setUpdatedAt(new Date(updatedAt));
+        return reservation;
+    }
+
+    private static List<String> tourIds(List<Tour> tours) {
+        List<String> ids = new ArrayList<>();
+        for (Tour tour : tours) ids.add(tour.getTourId());
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static List<String> reservationIds(List<Reservation> reservations) {
+        List<String> ids = new ArrayList<>();
+        for (Reservation reservation : reservations) ids.add(reservation.getReservationId());
+        Collections.sort(ids);
+        return ids;
+    }
+
+    @Test
+    public void versionsMatchOnlyWhatIsStored() {
+        ReadModelDatabase db = ReadModelDatabase.getInstance(context);
+        db.upsertTours(Arrays.asList(tour("t1", 1000), tour("t2", 2000)), "tours", 2000, true);
+
+        Map<String, Long> delta = new HashMap<>();
+        delta.put("t2", 2000L);
+        assertEquals(delta, db.getTourVersions(delta.keySet()));
+
+        // Mismo número de resultados, pero otro documento o una versión nueva: hay cambios
+        Map<String, Long> otherDoc = new HashMap<>();
+        otherDoc.put("t3", 2000L);
+        assertNotEquals(otherDoc, db.getTourVersions(otherDoc.keySet()));
+        Map<String, Long> newer = new HashMap<>();
+        newer.put("t2", 2500L);
+        assertNotEquals(newer, db.getTourVersions(newer.keySet()));
+
+        assertTrue(db.getTourVersions(Collections.emptyList()).isEmpty());
+        assertTrue(db.getCompanyVersions(delta.keySet()).isEmpty());
+    }
+
+    @Test
+    public void versionsAreReadInChunks() {
+        ReadModelDatabase db = ReadModelDatabase.getInstance(context);
+        List<Tour> tours = new ArrayList<>();
+        Map<String, Long> expected = new HashMap<>();
+        for (int i = 0; i < 1200; i++) {
+            tours.add(tour("t" + i, i));
+            expected.put("t" + i, (long) i);
+        }
+        db.upsertTours(tours, "tours", 1199, true);
+        assertEquals(expected, db.getTourVersions(expected.keySet()));
+    }
+
+    @Test
+    public void fullSyncRemovesToursDeletedRemotely() {
+        ReadModelDatabase db = ReadModelDatabase.getInstance(context);
+        db.upsertTours(Arrays.asList(tour("t1", 1000), tour("t2", 2000), tour("t3", 3000)), "tours", 3000, true);
+        long firstFullSync = db.getLastFullSync("tours");
+        assertTrue(firstFullSync > 0);
+
+        // Un delta no borra nada ni renueva la carga completa
+        db.upsertTours(Collections.singletonList(tour("t2", 4000)), "tours", 4000, false);
+        assertEquals(Arrays.asList("t1", "t2", "t3"), tourIds(db.getTours()));
+        assertEquals(firstFullSync, db.getLastFullSync("tours"));
+        assertEquals(4000, db.getHighWaterMark("tours"));
+
+        // t1 se borró en Firestore: la carga completa ya no lo trae
+        db.upsertTours(Arrays.asList(tour("t2", 4000), tour("t3", 3000)), "tours", 4000, true);
+        assertEquals(Arrays.asList("t2", "t3"), tourIds(db.getTours()));
+        assertTrue(db.search("tour t1", SearchHit.KIND_TOUR, 10).isEmpty());
+        assertTrue(db.isBootstrapped("tours"));
+        assertEquals(0, db.getLastFullSync("companies"));
+    }
+
+    @Test
+    public void fullSyncOnlyRemovesRowsOfItsScope() {
+        ReadModelDatabase db = ReadModelDatabase.getInstance(context);
+        db.upsertReservationsByUser("u1", Arrays.asList(reservation("r1", "u1", "g1", 1000),
+                reservation("r2", "u1", "g2", 2000)), "reservations:user:u1", 2000, true);
+        db.upsertReservationsByUser("u2", Collections.singletonList(reservation("r3", "u2", "g1", 3000)),
+                "reservations:user:u2", 3000, true);
+
+        // r1 se canceló y borró: la carga completa de u1 no toca las reservas de u2
+        db.upsertReservationsByUser("u1", Collections.singletonList(reservation("r2", "u1", "g2", 2000)),
+                "reservations:user:u1", 2000, true);
+        assertEquals(Collections.singletonList("r2"), reservationIds(db.getReservationsByUser("u1")));
+        assertEquals(Collections.singletonList("r3"), reservationIds(db.getReservationsByUser("u2")));
+
+        // r3 pasó a otro guía: deja de estar en la lista de g1
+        db.upsertReservationsByGuide("g1", Collections.emptyList(), "reservations:guide:g1", 3000, true);
+        assertTrue(db.getReservationsByGuide("g1").isEmpty());
+        assertEquals(Collections.singletonList("r2"), reservationIds(db.getReservationsByGuide("g2")));
+    }
+}
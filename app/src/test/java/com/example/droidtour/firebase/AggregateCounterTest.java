@@ -0,0 +1,187 @@
+package com.example.droidtour.firebase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de AggregateCounter con una fuente de agregados en memoria (sin Firestore).
+ */
+public class AggregateCounterTest {
+
+    /** Fuente falsa: guarda las peticiones para completarlas a mano y cuenta las lecturas */
+    private static class FakeSource implements AggregateCounter.Source {
+        final Map<String, Long> values = new HashMap<>();
+        final List<AggregateCounter.Listener> pending = new ArrayList<>();
+        final List<String> pendingKeys = new ArrayList<>();
+        int reads;
+
+        @Override
+        public void count(String key, AggregateCounter.Listener listener) {
+            reads++;
+            pending.add(listener);
+            pendingKeys.add(key);
+        }
+
+        void completeAll() {
+            for (int i = 0; i < pending.size(); i++) {
+                pending.get(i).onCount(values.getOrDefault(pendingKeys.get(i), 0L));
+            }
+            pending.clear();
+            pendingKeys.clear();
+        }
+
+        void failAll(Exception e) {
+            for (AggregateCounter.Listener listener : pending) {
+                listener.onError(e);
+            }
+            pending.clear();
+            pendingKeys.clear();
+        }
+    }
+
+    private static class MemoryStore implements AggregateCounter.Store {
+        final Map<String, Long> values = new HashMap<>();
+
+        @Override public Long get(String key) { return values.get(key); }
+        @Override public void put(String key, long value) { values.put(key, value); }
+    }
+
+    /** Listener que registra lo recibido */
+    private static class Recorder implements AggregateCounter.Listener {
+        final List<Long> counts = new ArrayList<>();
+        final List<Exception> errors = new ArrayList<>();
+
+        @Override public void onCount(long value) { counts.add(value); }
+        @Override public void onError(Exception e) { errors.add(e); }
+    }
+
+    private FakeSource source;
+    private MemoryStore store;
+    private AggregateCounter counter;
+
+    @Before
+    public void setUp() {
+        source = new FakeSource();
+        store = new MemoryStore();
+        counter = new AggregateCounter(source, store);
+    }
+
+    @Test
+    public void firstCountComesFromServerAndIsCached() {
+        source.values.put("unread:u1", 7L);
+        Recorder recorder = new Recorder();
+
+        counter.count("unread:u1", recorder);
+        assertTrue(recorder.counts.isEmpty());
+        source.completeAll();
+
+        assertEquals(List.of(7L), recorder.counts);
+        assertEquals(Long.valueOf(7), store.get("unread:u1"));
+    }
+
+    @Test
+    public void cachedValueIsDeliveredBeforeServerValue() {
+        store.put("users", 100);
+        source.values.put("users", 105L);
+        Recorder recorder = new Recorder();
+
+        counter.count("users", recorder);
+        assertEquals(List.of(100L), recorder.counts);
+        source.completeAll();
+
+        assertEquals(List.of(100L, 105L), recorder.counts);
+    }
+
+    @Test
+    public void unchangedServerValueIsNotDeliveredTwice() {
+        store.put("users", 42);
+        source.values.put("users", 42L);
+        Recorder recorder = new Recorder();
+
+        counter.count("users", recorder);
+        source.completeAll();
+
+        assertEquals(List.of(42L), recorder.counts);
+    }
+
+    @Test
+    public void serverFailureFallsBackToCachedValue() {
+        store.put("tours", 12);
+        Recorder cached = new Recorder();
+        counter.count("tours", cached);
+        source.failAll(new Exception("offline"));
+
+        assertEquals(List.of(12L), cached.counts);
+        assertTrue(cached.errors.isEmpty());
+
+        // Sin valor guardado el error sí llega a la pantalla
+        Recorder uncached = new Recorder();
+        counter.count("other", uncached);
+        source.failAll(new Exception("offline"));
+        assertEquals(1, uncached.errors.size());
+    }
+
+    @Test
+    public void concurrentRequestsForSameKeyShareOneRead() {
+        source.values.put("unread:u1", 3L);
+        Recorder badge = new Recorder();
+        Recorder menu = new Recorder();
+
+        counter.count("unread:u1", badge);
+        counter.count("unread:u1", menu);
+        counter.count("unread:u2", new Recorder());
+        assertEquals(2, source.reads);
+
+        source.completeAll();
+        assertEquals(List.of(3L), badge.counts);
+        assertEquals(List.of(3L), menu.counts);
+
+        // Terminada la lectura, la siguiente petición vuelve al servidor
+        counter.count("unread:u1", new Recorder());
+        assertEquals(3, source.reads);
+    }
+
+    @Test
+    public void localAdjustmentsNeverGoNegative() {
+        store.put("unread:u1", 2);
+        counter.adjust("unread:u1", -1);
+        assertEquals(Long.valueOf(1), counter.getCached("unread:u1"));
+        counter.adjust("unread:u1", -5);
+        assertEquals(Long.valueOf(0), counter.getCached("unread:u1"));
+
+        // Sin valor previo no se inventa uno
+        counter.adjust("unread:u2", -1);
+        assertNull(counter.getCached("unread:u2"));
+
+        counter.set("unread:u2", 0);
+        assertEquals(Long.valueOf(0), counter.getCached("unread:u2"));
+    }
+
+    /**
+     * 200 badges abiertos a la vez para 5,000 notificaciones sin leer: una sola lectura de agregado
+     * en lugar de descargar 5,000 documentos por badge.
+     */
+    @Test
+    public void manyBadgesCostOneAggregateRead() {
+        source.values.put("unread:u1", 5_000L);
+        List<Recorder> badges = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Recorder badge = new Recorder();
+            badges.add(badge);
+            counter.count("unread:u1", badge);
+        }
+        source.completeAll();
+
+        assertEquals(1, source.reads);
+        for (Recorder badge : badges) {
+            assertEquals(List.of(5_000L), badge.counts);
+        }
+    }
+}
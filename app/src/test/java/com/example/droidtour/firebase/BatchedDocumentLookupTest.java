@@ -0,0 +1,231 @@
+package com.example.droidtour.firebase;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class BatchedDocumentLookupTest {
+
+    private static final long LATENCY_MS = 20;
+
+    /**
+     * user_roles falso: cada consulta tarda LATENCY_MS y como máximo 8 van a la vez (conexión compartida)
+     */
+    private static class FakeRoles implements BatchedDocumentLookup.Fetcher {
+        final Map<String, Map<String, Object>> documents = new HashMap<>();
+        final AtomicInteger roundTrips = new AtomicInteger();
+        final ExecutorService network = Executors.newFixedThreadPool(8);
+        volatile boolean fail;
+
+        void addGuide(String id, String status) {
+            Map<String, Object> guide = new HashMap<>();
+            guide.put("status", status);
+            Map<String, Object> doc = new HashMap<>();
+            doc.put("guide", guide);
+            documents.put(id, doc);
+        }
+
+        @Override
+        public void fetch(List<String> ids, BatchedDocumentLookup.FetchListener listener) {
+            assertTrue(ids.size() <= BatchedDocumentLookup.MAX_IDS_PER_QUERY);
+            roundTrips.incrementAndGet();
+            network.execute(() -> {
+                try {
+                    Thread.sleep(LATENCY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (fail) {
+                    listener.onError(new RuntimeException("sin conexión"));
+                    return;
+                }
+                Map<String, Map<String, Object>> found = new HashMap<>();
+                for (String id : ids) {
+                    if (documents.containsKey(id)) found.put(id, documents.get(id));
+                }
+                listener.onFetched(found);
+            });
+        }
+    }
+
+    private FakeRoles roles;
+    private long now;
+    private BatchedDocumentLookup<String> lookup;
+
+    @Before
+    public void setUp() {
+        roles = new FakeRoles();
+        now = 1_000_000;
+        lookup = new BatchedDocumentLookup<>(roles, BatchedDocumentLookupTest::guideStatusOf, 60_000, () -> now,
+                BatchedDocumentLookup.MAX_IDS_PER_QUERY);
+    }
+
+    @After
+    public void tearDown() {
+        roles.network.shutdownNow();
+    }
+
+    /** Mismo criterio que UserRoleResolver.guideStatusOf para documentos con "guide" */
+    private static String guideStatusOf(Map<String, Object> doc) {
+        Object guide = doc.get("guide");
+        return guide instanceof Map ? (String) ((Map<?, ?>) guide).get("status") : null;
+    }
+
+    private BatchedDocumentLookup.Result<String> resolve(List<String> ids) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<BatchedDocumentLookup.Result<String>> result = new AtomicReference<>();
+        AtomicInteger calls = new AtomicInteger();
+        lookup.resolve(ids, r -> {
+            calls.incrementAndGet();
+            result.set(r);
+            done.countDown();
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        Thread.sleep(5);
+        assertEquals("el listener se llama una sola vez", 1, calls.get());
+        return result.get();
+    }
+
+    private List<String> guides(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String id = "guide" + i;
+            ids.add(id);
+            roles.addGuide(id, i % 4 == 0 ? "pending" : "active");
+        }
+        return ids;
+    }
+
+    @Test
+    public void resolvesInChunksOfThirty() throws InterruptedException {
+        List<String> ids = guides(95);
+
+        BatchedDocumentLookup.Result<String> result = resolve(ids);
+
+        assertEquals(4, result.getQueries());
+        assertEquals(4, roles.roundTrips.get());
+        assertEquals(95, result.getValues().size());
+        assertEquals("pending", result.getValues().get("guide0"));
+        assertEquals("active", result.getValues().get("guide1"));
+    }
+
+    @Test
+    public void cachedValuesAndMissingDocumentsAreNotRefetchedUntilTtl() throws InterruptedException {
+        List<String> ids = new ArrayList<>(guides(10));
+        ids.add("sinRol");
+        ids.add("guide3"); // duplicado
+
+        resolve(ids);
+        BatchedDocumentLookup.Result<String> second = resolve(ids);
+        assertEquals(1, roles.roundTrips.get());
+        assertEquals(0, second.getQueries());
+        assertEquals(11, second.getCacheHits());
+        assertFalse(second.getValues().containsKey("sinRol"));
+
+        now += 60_001;
+        resolve(ids);
+        assertEquals(2, roles.roundTrips.get());
+    }
+
+    @Test
+    public void invalidateRefetchesOnlyThatId() throws InterruptedException {
+        resolve(guides(40));
+        roles.addGuide("guide5", "inactive");
+        lookup.invalidate("guide5");
+
+        BatchedDocumentLookup.Result<String> result = resolve(Arrays.asList("guide5", "guide6"));
+        assertEquals(1, result.getQueries());
+        assertEquals(1, result.getCacheHits());
+        assertEquals("inactive", result.getValues().get("guide5"));
+    }
+
+    @Test
+    public void failedChunksAreReportedAndNotCached() throws InterruptedException {
+        List<String> ids = guides(5);
+        roles.fail = true;
+
+        BatchedDocumentLookup.Result<String> failed = resolve(ids);
+        assertFalse(failed.isSuccessful());
+        assertTrue(failed.getValues().isEmpty());
+        assertEquals(0, lookup.cachedCount());
+
+        roles.fail = false;
+        assertEquals(5, resolve(ids).getValues().size());
+    }
+
+    /**
+     * 500 guías: un get() por guía (como antes) contra bloques whereIn de 30; se cuentan los round trips.
+     */
+    @Test
+    public void fiveHundredGuidesNeedSeventeenQueries() throws InterruptedException {
+        List<String> ids = guides(500);
+
+        assertEquals(500, fetchOneByOne(ids));
+
+        BatchedDocumentLookup.Result<String> result = resolve(ids);
+        assertEquals(17, result.getQueries());
+        assertEquals(17, roles.roundTrips.getAndSet(0));
+        assertEquals(500, result.getValues().size());
+
+        BatchedDocumentLookup.Result<String> cached = resolve(ids);
+        assertEquals(0, cached.getQueries());
+        assertEquals(500, cached.getCacheHits());
+        assertEquals(0, roles.roundTrips.get());
+    }
+
+    @Test
+    public void benchmarkFiveHundredGuides() throws InterruptedException {
+        Benchmarks.assumeEnabled();
+        List<String> ids = guides(500);
+
+        long start = System.nanoTime();
+        fetchOneByOne(ids);
+        long perGuideMs = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        resolve(ids);
+        long batchedMs = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        resolve(ids);
+        long cachedMs = (System.nanoTime() - start) / 1_000_000;
+
+        Benchmarks.report("500 guías: get() por guía %d ms, whereIn %d ms, caché %d ms", perGuideMs, batchedMs, cachedMs);
+    }
+
+    /** Antes: un round trip por guía, contador manual hasta completar. Devuelve los round trips */
+    private int fetchOneByOne(List<String> ids) throws InterruptedException {
+        CountDownLatch perGuide = new CountDownLatch(ids.size());
+        for (String id : ids) {
+            roles.fetch(java.util.Collections.singletonList(id), new BatchedDocumentLookup.FetchListener() {
+                @Override
+                public void onFetched(Map<String, Map<String, Object>> documents) {
+                    perGuide.countDown();
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    perGuide.countDown();
+                }
+            });
+        }
+        assertTrue(perGuide.await(30, TimeUnit.SECONDS));
+        return roles.roundTrips.getAndSet(0);
+    }
+}
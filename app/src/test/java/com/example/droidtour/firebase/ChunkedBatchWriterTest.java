@@ -0,0 +1,249 @@
+package com.example.droidtour.firebase;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de ChunkedBatchWriter con un "Firestore" en memoria: cada batch es una lista de
+ * escrituras que se aplican todas juntas al confirmar (o ninguna si el commit falla).
+ */
+public class ChunkedBatchWriterTest {
+
+    /** Colección de notificaciones en memoria: id -> isRead */
+    private final Map<String, Boolean> notifications = new ConcurrentHashMap<>();
+    private final ExecutorService network = Executors.newFixedThreadPool(16);
+
+    @After
+    public void tearDown() {
+        network.shutdownNow();
+    }
+
+    /** Committer falso: aplica el batch tras una latencia simulada y mide los commits en vuelo */
+    private class FakeCommitter implements ChunkedBatchWriter.Committer<List<Runnable>> {
+        final long latencyMs;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final AtomicInteger commits = new AtomicInteger();
+        final List<Integer> batchSizes = new ArrayList<>();
+        int failingCommit = -1;
+
+        FakeCommitter(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public List<Runnable> newBatch() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void commit(List<Runnable> batch, ChunkedBatchWriter.CommitListener listener) {
+            int commit = commits.getAndIncrement();
+            synchronized (batchSizes) {
+                batchSizes.add(batch.size());
+            }
+            assertTrue("Batch por encima del límite", batch.size() <= ChunkedBatchWriter.MAX_OPERATIONS_PER_BATCH);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            network.execute(() -> {
+                sleep(latencyMs);
+                inFlight.decrementAndGet();
+                if (commit == failingCommit) {
+                    listener.onError(new Exception("commit " + commit + " rechazado"));
+                    return;
+                }
+                for (Runnable write : batch) {
+                    write.run();
+                }
+                listener.onCommitted();
+            });
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void seedUnread(int count) {
+        for (int i = 0; i < count; i++) {
+            notifications.put("n" + i, false);
+        }
+    }
+
+    private ChunkedBatchWriter<List<Runnable>> markAllRead(FakeCommitter committer, int maxConcurrent) {
+        ChunkedBatchWriter<List<Runnable>> writer =
+                new ChunkedBatchWriter<>(committer, ChunkedBatchWriter.MAX_OPERATIONS_PER_BATCH, maxConcurrent);
+        for (String id : notifications.keySet()) {
+            writer.add(batch -> batch.add(() -> notifications.put(id, true)));
+        }
+        return writer;
+    }
+
+    private static ChunkedBatchWriter.Result await(ChunkedBatchWriter<List<Runnable>> writer) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<ChunkedBatchWriter.Result> result = new AtomicReference<>();
+        AtomicInteger completions = new AtomicInteger();
+        writer.execute(r -> {
+            completions.incrementAndGet();
+            result.set(r);
+            done.countDown();
+        });
+        assertTrue("El writer no terminó", done.await(30, TimeUnit.SECONDS));
+        sleep(20);
+        assertEquals("Una sola señal de fin", 1, completions.get());
+        return result.get();
+    }
+
+    private long unread() {
+        long count = 0;
+        for (Boolean read : notifications.values()) {
+            if (!read) count++;
+        }
+        return count;
+    }
+
+    /**
+     * 5,000 notificaciones: 10 batches de 500 (10 viajes en vez de 5,000 update() de uno en uno)
+     * y como máximo 4 commits a la vez.
+     */
+    @Test
+    public void marksFiveThousandNotificationsReadInChunkedBatches() throws InterruptedException {
+        seedUnread(5_000);
+        FakeCommitter committer = new FakeCommitter(50);
+        ChunkedBatchWriter<List<Runnable>> writer = markAllRead(committer, 4);
+        assertEquals(10, writer.getChunkCount());
+
+        ChunkedBatchWriter.Result result = await(writer);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(5_000, result.getOperations());
+        assertEquals(5_000, result.getWrittenOperations());
+        assertEquals(10, result.getChunks());
+        assertEquals(0, unread());
+        assertEquals(10, committer.commits.get());
+        for (int size : committer.batchSizes) {
+            assertEquals(500, size);
+        }
+        assertTrue("Concurrencia acotada", committer.maxInFlight.get() <= 4);
+        assertTrue("Los batches deben solaparse", committer.maxInFlight.get() > 1);
+    }
+
+    @Test
+    public void benchmarkFiveThousandNotifications() throws InterruptedException {
+        Benchmarks.assumeEnabled();
+        seedUnread(5_000);
+        FakeCommitter committer = new FakeCommitter(50);
+        ChunkedBatchWriter<List<Runnable>> writer = markAllRead(committer, 4);
+
+        long start = System.nanoTime();
+        ChunkedBatchWriter.Result result = await(writer);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 10 commits de 50 ms en grupos de 4 son ~150 ms; en serie serían 500 ms
+        Benchmarks.report("5,000 notificaciones en %d ms, %d batches, máx. %d en vuelo",
+                elapsedMs, result.getChunks(), committer.maxInFlight.get());
+    }
+
+    @Test
+    public void failedChunkIsReportedAndOthersStillCommit() throws InterruptedException {
+        seedUnread(1_200);
+        FakeCommitter committer = new FakeCommitter(5);
+        committer.failingCommit = 1;
+        ChunkedBatchWriter<List<Runnable>> writer = markAllRead(committer, 1);
+
+        ChunkedBatchWriter.Result result = await(writer);
+
+        assertFalse(result.isSuccessful());
+        assertEquals(3, result.getChunks());
+        assertEquals(1, result.getFailures().size());
+        ChunkedBatchWriter.ChunkFailure failure = result.getFailures().get(0);
+        assertEquals(1, failure.getChunkIndex());
+        assertEquals(500, failure.getFirstOperation());
+        assertEquals(500, failure.getOperationCount());
+        assertEquals("commit 1 rechazado", failure.getError().getMessage());
+        assertEquals(700, result.getWrittenOperations());
+        // El batch fallido es atómico: sus 500 notificaciones siguen sin leer
+        assertEquals(500, unread());
+    }
+
+    @Test
+    public void weightedOperationsNeverSplitAcrossBatches() {
+        FakeCommitter committer = new FakeCommitter(0);
+        ChunkedBatchWriter<List<Runnable>> writer = new ChunkedBatchWriter<>(committer, 5, 2);
+        writer.add(2, batch -> { batch.add(() -> {}); batch.add(() -> {}); });
+        writer.add(2, batch -> { batch.add(() -> {}); batch.add(() -> {}); });
+        // No cabe en el primer batch (4 + 2 > 5): abre otro
+        writer.add(2, batch -> { batch.add(() -> {}); batch.add(() -> {}); });
+        writer.add(batch -> batch.add(() -> {}));
+
+        assertEquals(4, writer.size());
+        assertEquals(2, writer.getChunkCount());
+    }
+
+    @Test
+    public void emptyWriterCompletesImmediately() {
+        ChunkedBatchWriter<List<Runnable>> writer = new ChunkedBatchWriter<>(new FakeCommitter(0), 500, 4);
+        List<ChunkedBatchWriter.Result> results = new ArrayList<>();
+        writer.execute(results::add);
+
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).isSuccessful());
+        assertEquals(0, results.get(0).getChunks());
+    }
+
+    @Test
+    public void synchronousCommitsStillCompleteOnce() {
+        // Committer que confirma en el mismo hilo (p. ej. caché local sin red)
+        List<Integer> sizes = new ArrayList<>();
+        ChunkedBatchWriter<List<Runnable>> writer = new ChunkedBatchWriter<>(new ChunkedBatchWriter.Committer<List<Runnable>>() {
+            @Override
+            public List<Runnable> newBatch() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public void commit(List<Runnable> batch, ChunkedBatchWriter.CommitListener listener) {
+                sizes.add(batch.size());
+                listener.onCommitted();
+            }
+        }, 500, 3);
+        for (int i = 0; i < 1_001; i++) {
+            writer.add(batch -> batch.add(() -> {}));
+        }
+        List<ChunkedBatchWriter.Result> results = new ArrayList<>();
+        writer.execute(results::add);
+
+        assertEquals(1, results.size());
+        assertEquals(List.of(500, 500, 1), sizes);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void writerCannotBeReused() {
+        ChunkedBatchWriter<List<Runnable>> writer = new ChunkedBatchWriter<>(new FakeCommitter(0), 500, 4);
+        writer.execute(result -> {});
+        writer.add(batch -> {});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchSizeAboveFirestoreLimitIsRejected() {
+        new ChunkedBatchWriter<>(new FakeCommitter(0), 501, 4);
+    }
+}
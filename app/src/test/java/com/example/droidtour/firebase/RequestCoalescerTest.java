@@ -0,0 +1,174 @@
+package com.example.droidtour.firebase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de RequestCoalescer con lecturas completadas a mano y un reloj falso.
+ */
+public class RequestCoalescerTest {
+
+    private static final long MAX_AGE_MS = 30_000;
+
+    /** Lectura falsa: guarda los listeners para completarlos a mano y cuenta las lecturas */
+    private static class FakeFetcher implements RequestCoalescer.Fetcher<String> {
+        final List<RequestCoalescer.Listener<String>> pending = new ArrayList<>();
+        int reads;
+
+        @Override
+        public void fetch(RequestCoalescer.Listener<String> listener) {
+            reads++;
+            pending.add(listener);
+        }
+
+        void complete(String value) {
+            List<RequestCoalescer.Listener<String>> listeners = new ArrayList<>(pending);
+            pending.clear();
+            for (RequestCoalescer.Listener<String> listener : listeners) listener.onResult(value);
+        }
+
+        void fail(Exception e) {
+            List<RequestCoalescer.Listener<String>> listeners = new ArrayList<>(pending);
+            pending.clear();
+            for (RequestCoalescer.Listener<String> listener : listeners) listener.onError(e);
+        }
+    }
+
+    /** Guarda lo recibido */
+    private static class Recorder implements RequestCoalescer.Listener<String> {
+        final List<String> values = new ArrayList<>();
+        final List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onResult(String value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            errors.add(e);
+        }
+    }
+
+    private long now;
+    private FakeFetcher fetcher;
+    private RequestCoalescer<String> coalescer;
+
+    @Before
+    public void setUp() {
+        now = 1_000;
+        fetcher = new FakeFetcher();
+        coalescer = new RequestCoalescer<>(MAX_AGE_MS, () -> now);
+    }
+
+    @Test
+    public void concurrentRequestsShareOneRead() {
+        List<Recorder> recorders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            coalescer.get("profile:g1", fetcher, recorder);
+        }
+        assertEquals(1, fetcher.reads);
+
+        fetcher.complete("Ana");
+        for (Recorder recorder : recorders) {
+            assertEquals(1, recorder.values.size());
+            assertEquals("Ana", recorder.values.get(0));
+        }
+        assertEquals(1, coalescer.getFetchCount());
+        assertEquals(4, coalescer.getSharedCount());
+
+        // Otra clave lee por su cuenta
+        coalescer.get("profile:g2", fetcher, new Recorder());
+        assertEquals(2, fetcher.reads);
+    }
+
+    @Test
+    public void resultIsReusedUntilMaxAge() {
+        coalescer.get("k", fetcher, new Recorder());
+        fetcher.complete("v1");
+
+        now += MAX_AGE_MS;
+        Recorder fresh = new Recorder();
+        coalescer.get("k", fetcher, fresh);
+        assertEquals(1, fetcher.reads);
+        assertEquals("v1", fresh.values.get(0));
+
+        now += 1;
+        Recorder expired = new Recorder();
+        coalescer.get("k", fetcher, expired);
+        assertEquals(2, fetcher.reads);
+        assertTrue(expired.values.isEmpty());
+        fetcher.complete("v2");
+        assertEquals("v2", expired.values.get(0));
+    }
+
+    @Test
+    public void errorsReachEveryWaiterAndAreNotCached() {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        coalescer.get("k", fetcher, first);
+        coalescer.get("k", fetcher, second);
+        IllegalStateException error = new IllegalStateException("sin red");
+        fetcher.fail(error);
+        assertSame(error, first.errors.get(0));
+        assertSame(error, second.errors.get(0));
+
+        Recorder retry = new Recorder();
+        coalescer.get("k", fetcher, retry);
+        assertEquals(2, fetcher.reads);
+        fetcher.complete("ok");
+        assertEquals("ok", retry.values.get(0));
+    }
+
+    @Test
+    public void invalidateForcesNewReadEvenWhileInFlight() {
+        coalescer.get("k", fetcher, new Recorder());
+        fetcher.complete("antes");
+        coalescer.invalidate("k");
+        coalescer.get("k", fetcher, new Recorder());
+        assertEquals(2, fetcher.reads);
+
+        // Invalidada en vuelo: quien ya esperaba recibe la lectura vieja, pero no se guarda
+        Recorder old = new Recorder();
+        coalescer.get("k", fetcher, old);
+        coalescer.invalidate("k");
+        Recorder after = new Recorder();
+        coalescer.get("k", fetcher, after);
+        assertEquals(3, fetcher.reads);
+
+        RequestCoalescer.Listener<String> oldRead = fetcher.pending.remove(0);
+        oldRead.onResult("vieja");
+        assertEquals("vieja", old.values.get(0));
+        assertTrue(after.values.isEmpty());
+        fetcher.complete("nueva");
+        assertEquals("nueva", after.values.get(0));
+
+        Recorder cached = new Recorder();
+        coalescer.get("k", fetcher, cached);
+        assertEquals(3, fetcher.reads);
+        assertEquals("nueva", cached.values.get(0));
+    }
+
+    @Test
+    public void clearDropsValuesButKeepsWaiters() {
+        coalescer.get("a", fetcher, new Recorder());
+        fetcher.complete("1");
+        Recorder waiting = new Recorder();
+        coalescer.get("b", fetcher, waiting);
+
+        coalescer.clear();
+        fetcher.complete("2");
+        assertEquals("2", waiting.values.get(0));
+
+        coalescer.get("a", fetcher, new Recorder());
+        coalescer.get("b", fetcher, new Recorder());
+        assertEquals(4, fetcher.reads);
+    }
+}
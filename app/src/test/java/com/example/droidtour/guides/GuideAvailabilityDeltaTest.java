@@ -0,0 +1,95 @@
+package com.example.droidtour.guides;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de GuideAvailabilityDelta: qué cambios de reservas y ofertas ocupan o liberan días del
+ * guía, y los totales de la migración.
+ */
+public class GuideAvailabilityDeltaTest {
+
+    private static Map<String, Object> doc(String guideId, String tourDate, String status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("guideId", guideId);
+        data.put("tourDate", tourDate);
+        data.put("status", status);
+        return data;
+    }
+
+    private static Map<String, Long> days(String date, long count) {
+        Map<String, Long> days = new HashMap<>();
+        days.put(date, count);
+        return days;
+    }
+
+    @Test
+    public void reservationOccupiesUntilCancelledOrCompleted() {
+        Map<String, Object> created = doc("g1", "2025-03-10", "CONFIRMADA");
+        GuideAvailabilityDelta delta = GuideAvailabilityDelta.reservationDelta(null, created);
+        assertEquals(Collections.singleton("g1"), delta.getGuideIds());
+        assertEquals(days("2025-03-10", 1), delta.getDays("g1"));
+
+        // Otro estado activo no cambia nada
+        assertTrue(GuideAvailabilityDelta.reservationDelta(created, doc("g1", "2025-03-10", "EN_PROGRESO")).isEmpty());
+
+        delta = GuideAvailabilityDelta.reservationDelta(created, doc("g1", "2025-03-10", "CANCELADA"));
+        assertEquals(days("2025-03-10", -1), delta.getDays("g1"));
+        delta = GuideAvailabilityDelta.reservationDelta(created, doc("g1", "2025-03-10", "COMPLETADA"));
+        assertEquals(days("2025-03-10", -1), delta.getDays("g1"));
+        assertTrue(delta.getDays("g2").isEmpty());
+    }
+
+    @Test
+    public void movingAReservationTouchesBothGuides() {
+        GuideAvailabilityDelta delta = GuideAvailabilityDelta.reservationDelta(
+                doc("g1", "2025-03-10", "CONFIRMADA"), doc("g2", "2025-03-12T09:00", "CONFIRMADA"));
+        assertEquals(2, delta.getGuideIds().size());
+        assertEquals(days("2025-03-10", -1), delta.getDays("g1"));
+        assertEquals(days("2025-03-12", 1), delta.getDays("g2"));
+
+        // Sin guía o con fecha inválida no ocupa nada
+        assertTrue(GuideAvailabilityDelta.reservationDelta(null, doc(null, "2025-03-10", "CONFIRMADA")).isEmpty());
+        assertTrue(GuideAvailabilityDelta.reservationDelta(null, doc("g1", "10/03/2025", "CONFIRMADA")).isEmpty());
+    }
+
+    @Test
+    public void offerOccupiesOnlyWhileAccepted() {
+        Map<String, Object> pending = doc("g1", "2025-04-01", "PENDIENTE");
+        Map<String, Object> accepted = doc("g1", "2025-04-01", GuideAvailabilityDelta.OFFER_ACCEPTED);
+        assertTrue(GuideAvailabilityDelta.offerDelta(null, pending).isEmpty());
+        assertTrue(GuideAvailabilityDelta.offerDelta(pending, doc("g1", "2025-04-01", "RECHAZADA")).isEmpty());
+        assertEquals(days("2025-04-01", 1), GuideAvailabilityDelta.offerDelta(pending, accepted).getDays("g1"));
+        assertEquals(days("2025-04-01", -1), GuideAvailabilityDelta.offerDelta(accepted, null).getDays("g1"));
+    }
+
+    @Test
+    public void backfillTotalsSubtractWhatIsAlreadyStored() {
+        GuideAvailabilityDelta totals = new GuideAvailabilityDelta();
+        totals.merge(GuideAvailabilityDelta.reservationDelta(null, doc("g1", "2025-05-01", "CONFIRMADA")));
+        totals.merge(GuideAvailabilityDelta.reservationDelta(null, doc("g1", "2025-05-01", "PROGRAMADA")));
+        totals.merge(GuideAvailabilityDelta.offerDelta(null, doc("g1", "2025-05-02", "ACEPTADA")));
+        totals.merge(GuideAvailabilityDelta.offerDelta(null, doc("g2", "2025-05-03", "ACEPTADA")));
+
+        Map<String, Object> g1Stored = new HashMap<>();
+        g1Stored.put("2025-05-01", 2L);   // ya contado por una escritura nueva
+        g1Stored.put("2025-05-02", 0L);
+        g1Stored.put("2025-05-09", 1L);   // escritura que llegó durante la migración
+        totals.subtractStored("g1", g1Stored);
+
+        Map<String, Long> g1 = totals.getDays("g1");
+        assertEquals(2, g1.size());
+        assertEquals(Long.valueOf(1), g1.get("2025-05-02"));
+        assertEquals(Long.valueOf(-1), g1.get("2025-05-09"));
+        assertEquals(days("2025-05-03", 1), totals.getDays("g2"));
+
+        // Si todo ya estaba contado el guía no se escribe
+        totals.subtractStored("g2", Collections.singletonMap("2025-05-03", 1));
+        assertFalse(totals.getGuideIds().contains("g2"));
+    }
+}
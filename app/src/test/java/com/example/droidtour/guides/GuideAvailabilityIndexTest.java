@@ -0,0 +1,254 @@
+package com.example.droidtour.guides;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de GuideAvailabilityIndex: rangos que cruzan palabras del bitmap, ocupaciones repetidas,
+ * idiomas y comparación con recorrer las reservas de cada guía.
+ */
+public class GuideAvailabilityIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    private static long day(int offset) {
+        return START.toEpochDay() + offset;
+    }
+
+    private static String date(int offset) {
+        return START.plusDays(offset).toString();
+    }
+
+    @Test
+    public void rangesAcrossWordBoundaries() {
+        GuideAvailabilityIndex index = new GuideAvailabilityIndex(START.toEpochDay(), 365);
+        index.putGuide("g1", Arrays.asList("es", "en"), 4.5f);
+        index.putBooking("offer:1", "g1", date(64));    // primer bit de la segunda palabra
+        index.putBooking("offer:2", "g1", date(364));   // último día del horizonte
+
+        List<String> es = Collections.singletonList("es");
+        assertTrue(index.findAvailable(day(0), day(63), es, 10).contains("g1"));
+        assertTrue(index.findAvailable(day(65), day(363), es, 10).contains("g1"));
+        assertTrue(index.findAvailable(day(60), day(64), es, 10).isEmpty());
+        assertTrue(index.findAvailable(day(64), day(64), es, 10).isEmpty());
+        assertTrue(index.findAvailable(day(0), day(364), es, 10).isEmpty());
+
+        try {
+            index.findAvailable(day(300), day(365), es, 10);
+            fail("fuera del horizonte");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void dayStaysBookedWhileAnySourceHoldsIt() {
+        GuideAvailabilityIndex index = new GuideAvailabilityIndex(START.toEpochDay(), 365);
+        // La reserva llega antes que el guía
+        index.putBooking("reservation:a", "g1", date(10));
+        index.putBooking("offer:b", "g1", date(10));
+        index.putGuide("g1", Collections.singletonList("es"), 4f);
+        assertTrue(index.isBooked("g1", day(10)));
+
+        index.removeBooking("offer:b");
+        assertTrue(index.isBooked("g1", day(10)));
+        // Cambio de fecha de la reserva: se mueve
+        index.putBooking("reservation:a", "g1", date(12));
+        assertFalse(index.isBooked("g1", day(10)));
+        assertTrue(index.isBooked("g1", day(12)));
+        // Fecha inválida: solo quita la anterior
+        index.putBooking("reservation:a", "g1", "28 Oct");
+        assertFalse(index.isBooked("g1", day(12)));
+    }
+
+    @Test
+    public void bookedDaysReplaceWhatTheDocumentHadBefore() {
+        GuideAvailabilityIndex index = new GuideAvailabilityIndex(START.toEpochDay(), 365);
+        index.putGuide("g1", Collections.singletonList("es"), 4f);
+
+        Map<String, Object> days = new HashMap<>();
+        days.put(date(3), 2L);
+        days.put(date(4), 0L);         // contador que volvió a cero
+        days.put(date(400), 1L);       // fuera del horizonte
+        index.setBookedDays("g1", days);
+        assertTrue(index.isBooked("g1", day(3)));
+        assertFalse(index.isBooked("g1", day(4)));
+
+        days.clear();
+        days.put(date(5), 1L);
+        index.setBookedDays("g1", days);
+        assertFalse(index.isBooked("g1", day(3)));
+        assertTrue(index.isBooked("g1", day(5)));
+
+        List<String> es = Collections.singletonList("es");
+        assertEquals(Collections.singletonList("g1"), index.findAvailable(day(0), day(4), es, 10));
+        index.setBookedDays("g1", null);
+        assertEquals(Collections.singletonList("g1"), index.findAvailable(day(0), day(10), es, 10));
+    }
+
+    @Test
+    public void requiresAllLanguagesAndRanksByRating() {
+        GuideAvailabilityIndex index = new GuideAvailabilityIndex(START.toEpochDay(), 365);
+        index.putGuide("ana", Arrays.asList("ES", "EN"), 4.2f);
+        index.putGuide("luis", Arrays.asList("Español", "Inglés", "fr"), 4.9f);
+        index.putGuide("rosa", Collections.singletonList("es"), 5f);
+        index.putGuide("juan", Arrays.asList("es", "en"), 4.2f);
+
+        assertEquals(Arrays.asList("luis", "ana", "juan"),
+                index.findAvailable(day(0), day(1), Arrays.asList("es", "Inglés"), 10));
+        assertEquals(Collections.singletonList("luis"),
+                index.findAvailable(day(0), day(1), Arrays.asList("es", "en"), 1));
+        assertTrue(index.findAvailable(day(0), day(1), Collections.singletonList("ko"), 10).isEmpty());
+
+        index.removeGuide("luis");
+        index.putGuide("eva", Collections.singletonList("en"), 3f);   // reutiliza el slot
+        assertEquals(Arrays.asList("ana", "juan", "eva"),
+                index.findAvailable(day(0), day(1), Collections.singletonList("en"), 10));
+    }
+
+    /** Lo que haría la pantalla sin índice: revisar cada reserva/oferta de cada guía */
+    private static List<String> scan(Map<String, List<String>> bookingsByGuide, Map<String, List<String>> languagesByGuide,
+                                     Map<String, Float> ratings, LocalDate from, LocalDate to, List<String> languages, int limit) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, List<String>> guide : languagesByGuide.entrySet()) {
+            if (!guide.getValue().containsAll(languages)) continue;
+            boolean free = true;
+            for (String booking : bookingsByGuide.get(guide.getKey())) {
+                LocalDate day = LocalDate.parse(booking);
+                if (!day.isBefore(from) && !day.isAfter(to)) {
+                    free = false;
+                    break;
+                }
+            }
+            if (free) result.add(guide.getKey());
+        }
+        result.sort((a, b) -> {
+            int byRating = Float.compare(ratings.get(b), ratings.get(a));
+            return byRating != 0 ? byRating : a.compareTo(b);
+        });
+        return result.subList(0, Math.min(limit, result.size()));
+    }
+
+    /**
+     * 2000 guías con entre 20 y 120 días ocupados en un año, el índice ya construido y 200 búsquedas
+     * (rango de 2-14 días, 1-2 idiomas, top 50)
+     */
+    private static class Workload {
+        static final int GUIDES = 2000;
+        static final int HORIZON = 365;
+        static final int QUERIES = 200;
+
+        final Map<String, List<String>> bookingsByGuide = new HashMap<>();
+        final Map<String, List<String>> languagesByGuide = new HashMap<>();
+        final Map<String, Float> ratings = new HashMap<>();
+        final int[][] ranges = new int[QUERIES][];
+        final List<List<String>> languageQueries = new ArrayList<>();
+        int totalBookings;
+
+        Workload() {
+            String[] codes = {"es", "en", "fr", "de", "pt", "it", "qu", "zh"};
+            Random random = new Random(42);
+            for (int g = 0; g < GUIDES; g++) {
+                String guideId = "guide_" + g;
+                List<String> languages = new ArrayList<>(Collections.singletonList("es"));
+                for (int l = 1; l < codes.length; l++) {
+                    if (random.nextInt(4) == 0) languages.add(codes[l]);
+                }
+                languagesByGuide.put(guideId, languages);
+                ratings.put(guideId, Math.round((3f + random.nextFloat() * 2f) * 10f) / 10f);
+
+                List<String> dates = new ArrayList<>();
+                int count = 20 + random.nextInt(100);
+                for (int b = 0; b < count; b++) {
+                    dates.add(date(random.nextInt(HORIZON)));
+                }
+                bookingsByGuide.put(guideId, dates);
+                totalBookings += count;
+            }
+            for (int q = 0; q < QUERIES; q++) {
+                int from = random.nextInt(HORIZON - 14);
+                ranges[q] = new int[]{from, from + 1 + random.nextInt(13)};
+                languageQueries.add(q % 2 == 0 ? Collections.singletonList("en") : Arrays.asList("en", "fr"));
+            }
+        }
+
+        GuideAvailabilityIndex buildIndex() {
+            GuideAvailabilityIndex index = new GuideAvailabilityIndex(START.toEpochDay(), HORIZON);
+            for (int g = 0; g < GUIDES; g++) {
+                String guideId = "guide_" + g;
+                index.putGuide(guideId, languagesByGuide.get(guideId), ratings.get(guideId));
+                List<String> dates = bookingsByGuide.get(guideId);
+                for (int b = 0; b < dates.size(); b++) {
+                    index.putBooking("reservation:" + g + "_" + b, guideId, dates.get(b));
+                }
+            }
+            return index;
+        }
+
+        List<String> scan(int q) {
+            return GuideAvailabilityIndexTest.scan(bookingsByGuide, languagesByGuide, ratings,
+                    START.plusDays(ranges[q][0]), START.plusDays(ranges[q][1]), languageQueries.get(q), 50);
+        }
+
+        List<String> find(GuideAvailabilityIndex index, int q) {
+            return index.findAvailable(day(ranges[q][0]), day(ranges[q][1]), languageQueries.get(q), 50);
+        }
+    }
+
+    @Test
+    public void indexMatchesScanForTwoThousandGuidesOverOneYear() {
+        Workload workload = new Workload();
+        GuideAvailabilityIndex index = workload.buildIndex();
+
+        int found = 0;
+        for (int q = 0; q < Workload.QUERIES; q++) {
+            List<String> actual = workload.find(index, q);
+            assertEquals(workload.scan(q), actual);
+            found += actual.size();
+        }
+        assertTrue(found > 0);
+    }
+
+    @Test
+    public void benchmarkTwoThousandGuidesOverOneYear() {
+        Benchmarks.assumeEnabled();
+        Workload workload = new Workload();
+
+        long start = System.nanoTime();
+        GuideAvailabilityIndex index = workload.buildIndex();
+        long buildNs = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int scanned = 0;
+        for (int q = 0; q < Workload.QUERIES; q++) {
+            scanned += workload.scan(q).size();
+        }
+        long scanNs = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int found = 0;
+        for (int q = 0; q < Workload.QUERIES; q++) {
+            found += workload.find(index, q).size();
+        }
+        long indexNs = System.nanoTime() - start;
+
+        Benchmarks.report("Disponibilidad de %d guías, %d días, %d ocupaciones:%n"
+                        + "  construir índice: %.1f ms (bitmaps: %d KB)%n"
+                        + "  búsqueda (rango de 2-14 días, 1-2 idiomas, top 50): antes %.2f ms, ahora %.3f ms%n"
+                        + "  resultados: %d / %d",
+                Workload.GUIDES, Workload.HORIZON, workload.totalBookings, buildNs / 1e6,
+                Workload.GUIDES * ((Workload.HORIZON + 63) / 64) * 8 / 1024,
+                scanNs / 1e6 / Workload.QUERIES, indexNs / 1e6 / Workload.QUERIES, found, scanned);
+    }
+}
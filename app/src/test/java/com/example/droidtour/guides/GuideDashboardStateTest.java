@@ -0,0 +1,137 @@
+package com.example.droidtour.guides;
+
+import com.example.droidtour.models.Reservation;
+import com.example.droidtour.models.TourOffer;
+import com.example.droidtour.models.User;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de GuideDashboardState: reparto de reservas entre tarjetas, ofertas y totales.
+ */
+public class GuideDashboardStateTest {
+
+    private static final String TODAY = "2025-11-10";
+
+    private static Reservation reservation(String id, String status, String date, String time, Double price) {
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(id);
+        reservation.setStatus(status);
+        reservation.setTourDate(date);
+        reservation.setTourTime(time);
+        reservation.setTotalPrice(price);
+        return reservation;
+    }
+
+    private static TourOffer offer(String id, String status, long createdAt) {
+        TourOffer offer = new TourOffer();
+        offer.setOfferId(id);
+        offer.setStatus(status);
+        offer.setCreatedAt(new Date(createdAt));
+        return offer;
+    }
+
+    private static List<String> ids(List<Reservation> reservations) {
+        List<String> ids = new ArrayList<>();
+        for (Reservation reservation : reservations) ids.add(reservation.getReservationId());
+        return ids;
+    }
+
+    @Test
+    public void splitsUpcomingAndActiveTours() {
+        GuideDashboardState state = new GuideDashboardState("g1", TODAY);
+        assertFalse(state.isReservationsLoaded());
+
+        state.setReservations(Arrays.asList(
+                reservation("r1", "CONFIRMADA", "2025-11-20", "09:00", 100.0),
+                reservation("r2", "PROGRAMADA", "2025-11-10", "14:00", 100.0),
+                reservation("r3", "EN_PROGRESO", "2025-11-09", "08:00", 100.0),
+                reservation("r4", "CONFIRMADA", "2025-11-08", "09:00", 100.0),   // ya pasó
+                reservation("r5", "PROGRAMADA", "2025-11-10", "07:00", 100.0),
+                reservation("r6", "CANCELADA", "2025-11-12", "09:00", 100.0)));
+
+        assertTrue(state.isReservationsLoaded());
+        assertEquals(Arrays.asList("r5", "r2", "r1"), ids(state.getUpcomingTours()));
+        assertEquals("r3", state.getActiveTour().getReservationId());
+
+        state.setReservations(Collections.emptyList());
+        assertTrue(state.getUpcomingTours().isEmpty());
+        assertNull(state.getActiveTour());
+    }
+
+    @Test
+    public void activeTourProgressComesFromTheReservation() {
+        GuideDashboardState state = new GuideDashboardState("guide1", TODAY);
+        assertNull(state.getActiveTourProgress());
+
+        Reservation active = reservation("r1", "EN_PROGRESO", TODAY, "08:00", 100.0);
+        active.setNumberOfPeople(4);
+        active.setHasCheckedIn(true);
+        state.setReservations(Collections.singletonList(active));
+        assertEquals("🕐 08:00 • 4 personas • Check-in hecho", state.getActiveTourProgress());
+
+        active.setNumberOfPeople(1);
+        active.setHasCheckedIn(false);
+        assertEquals("🕐 08:00 • 1 persona • Check-in pendiente", state.getActiveTourProgress());
+
+        // Sin datos en la reserva no hay línea que mostrar
+        state.setReservations(Collections.singletonList(reservation("r2", "EN_PROGRESO", TODAY, null, null)));
+        assertNull(state.getActiveTourProgress());
+
+        state.setReservations(Collections.singletonList(reservation("r3", "CONFIRMADA", TODAY, "08:00", 100.0)));
+        assertNull(state.getActiveTourProgress());
+    }
+
+    @Test
+    public void keepsPendingOffersNewestFirstAndRemovesHandledOnes() {
+        GuideDashboardState state = new GuideDashboardState("g1", TODAY);
+        state.setPendingOffers(Arrays.asList(
+                offer("o1", "PENDIENTE", 1_000),
+                offer("o2", "ACEPTADA", 3_000),
+                offer("o3", "PENDIENTE", 2_000)));
+        assertEquals(2, state.getPendingOffers().size());
+        assertEquals("o3", state.getPendingOffers().get(0).getOfferId());
+
+        state.removeOffer("o3");
+        assertEquals(1, state.getPendingOffers().size());
+        assertEquals("o1", state.getPendingOffers().get(0).getOfferId());
+    }
+
+    @Test
+    public void profileEarningsAndCompleteness() {
+        GuideDashboardState state = new GuideDashboardState("g1", TODAY);
+        assertNull(state.getDisplayName());
+        assertEquals(0f, state.getRating(), 0);
+
+        User user = new User();
+        user.setFullName("  María José Quispe Rojas ");
+        user.setGuideRating(4.6f);
+        state.setProfile(user);
+        assertEquals("María José", state.getDisplayName());
+        assertEquals(4.6f, state.getRating(), 0.001);
+
+        state.setPendingOffers(Collections.emptyList());
+        state.setReservations(Collections.emptyList());
+        state.setCompletedTours(12);
+        assertFalse(state.isComplete());
+
+        state.setMonthCompleted(Arrays.asList(
+                reservation("c1", "COMPLETADA", "2025-11-02", null, 180.0),
+                reservation("c2", "COMPLETADA", "2025-11-05", null, null),
+                reservation("c3", "COMPLETADA", "2025-11-07", null, 220.5)));
+        assertEquals(400.5, state.getMonthEarnings(), 0.001);
+        assertTrue(state.isComplete());
+
+        state.addReads(3);
+        state.addReads(1);
+        assertEquals(4, state.getReads());
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.droidtour.images;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de BoundedUploadQueue y del tamaño de las imágenes, con una red simulada para comparar
+ * la creación de un tour con 10 fotos.
+ */
+public class BoundedUploadQueueTest {
+
+    /**
+     * Red simulada: cada subida espera latencyMs (petición + sesión de subida) y luego comparte el
+     * ancho de banda por igual con las demás subidas activas.
+     */
+    private static class SimulatedNetwork {
+        final double bytesPerMs;
+        final long latencyMs;
+        final List<Transfer> active = new ArrayList<>();
+        double now;
+
+        SimulatedNetwork(double bytesPerSecond, long latencyMs) {
+            this.bytesPerMs = bytesPerSecond / 1000.0;
+            this.latencyMs = latencyMs;
+        }
+
+        class Transfer {
+            final long size;
+            final BoundedUploadQueue.TaskListener<String> listener;
+            final String name;
+            final double readyAt;
+            double sent;
+
+            Transfer(long size, BoundedUploadQueue.TaskListener<String> listener, String name) {
+                this.size = size;
+                this.listener = listener;
+                this.name = name;
+                this.readyAt = now + latencyMs;
+            }
+        }
+
+        BoundedUploadQueue.Task<String> upload(String name, long size) {
+            return listener -> active.add(new Transfer(size, listener, name));
+        }
+
+        /** Avanzar hasta que no queden subidas; devuelve el tiempo total en ms */
+        double run() {
+            while (!active.isEmpty()) {
+                List<Transfer> sending = new ArrayList<>();
+                double next = Double.MAX_VALUE;
+                for (Transfer t : active) {
+                    if (t.readyAt <= now) sending.add(t);
+                    else next = Math.min(next, t.readyAt);
+                }
+                double rate = sending.isEmpty() ? 0 : bytesPerMs / sending.size();
+                for (Transfer t : sending) {
+                    next = Math.min(next, now + (t.size - t.sent) / rate);
+                }
+                double step = next - now;
+                now = next;
+                List<Transfer> done = new ArrayList<>();
+                for (Transfer t : sending) {
+                    t.sent = Math.min(t.size, t.sent + rate * step);
+                    t.listener.onProgress((long) t.sent, t.size);
+                    if (t.size - t.sent < 1e-6) done.add(t);
+                }
+                active.removeAll(done);
+                for (Transfer t : done) {
+                    t.listener.onSuccess(t.name);
+                }
+            }
+            return now;
+        }
+    }
+
+    private static class RecordingListener implements BoundedUploadQueue.Listener<String> {
+        final List<Integer> percents = new ArrayList<>();
+        List<String> results;
+        Exception failure;
+        int failures;
+
+        @Override
+        public void onProgress(int percent, long bytesTransferred, long totalBytes) {
+            percents.add(percent);
+        }
+
+        @Override
+        public void onComplete(List<String> results) {
+            this.results = results;
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            failure = e;
+            failures++;
+        }
+    }
+
+    private static double uploadTour(int parallel, long[] sizes, RecordingListener listener, int[] peak) {
+        SimulatedNetwork network = new SimulatedNetwork(2_000_000 / 8.0, 400);   // 2 Mbit/s móvil, 400 ms por petición
+        List<BoundedUploadQueue.Task<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < sizes.length; i++) {
+            tasks.add(network.upload("foto" + i, sizes[i]));
+        }
+        BoundedUploadQueue<String> queue = new BoundedUploadQueue<>(parallel);
+        queue.start(tasks, listener);
+        double ms = network.run();
+        peak[0] = queue.getPeakRunning();
+        return ms;
+    }
+
+    @Test
+    public void respectsConcurrencyLimitAndKeepsOrder() {
+        long[] sizes = new long[10];
+        for (int i = 0; i < sizes.length; i++) sizes[i] = 100_000 + (9 - i) * 30_000L;
+        RecordingListener listener = new RecordingListener();
+        int[] peak = new int[1];
+        uploadTour(3, sizes, listener, peak);
+
+        assertEquals(3, peak[0]);
+        assertNotNull(listener.results);
+        for (int i = 0; i < sizes.length; i++) {
+            assertEquals("foto" + i, listener.results.get(i));
+        }
+        // Progreso total monótono y termina en 100
+        for (int i = 1; i < listener.percents.size(); i++) {
+            assertTrue(listener.percents.get(i) >= listener.percents.get(i - 1));
+        }
+        assertEquals(100, (int) listener.percents.get(listener.percents.size() - 1));
+    }
+
+    @Test
+    public void stopsLaunchingAfterFirstFailure() {
+        List<BoundedUploadQueue.TaskListener<String>> started = new ArrayList<>();
+        List<BoundedUploadQueue.Task<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            tasks.add(started::add);
+        }
+        RecordingListener listener = new RecordingListener();
+        new BoundedUploadQueue<String>(2).start(tasks, listener);
+        assertEquals(2, started.size());
+
+        started.get(0).onFailure(new Exception("sin red"));
+        started.get(1).onFailure(new Exception("sin red"));
+        started.get(1).onSuccess("tarde");
+
+        assertEquals(1, listener.failures);
+        assertEquals(2, started.size());
+        assertNull(listener.results);
+    }
+
+    @Test
+    public void emptyQueueCompletesImmediately() {
+        RecordingListener listener = new RecordingListener();
+        new BoundedUploadQueue<String>(3).start(new ArrayList<>(), listener);
+        assertNotNull(listener.results);
+        assertTrue(listener.results.isEmpty());
+    }
+
+    @Test
+    public void sizesFitSpecWithoutUpscaling() {
+        // Foto de 12 MP vertical y horizontal → 1600x1200 / 1200x1600
+        assertArrayEquals(new int[]{1600, 1200}, ImageSizing.fit(4032, 3024, 1600, 1200));
+        assertArrayEquals(new int[]{1200, 1600}, ImageSizing.fit(3024, 4032, 1600, 1200));
+        // Panorámica: manda el lado largo
+        assertArrayEquals(new int[]{1600, 400}, ImageSizing.fit(8000, 2000, 1600, 1200));
+        // Más chica que el destino: igual
+        assertArrayEquals(new int[]{640, 480}, ImageSizing.fit(640, 480, 1600, 1200));
+
+        // inSampleSize: decodificar a 2016x1512 (≥ 1600x1200), no a 1008x756
+        assertEquals(2, ImageSizing.inSampleSizeToFit(4032, 3024, 1600, 1200));
+        // Avatar (512x384): 1/4 da 1008x756; 1/8 daría 504 de ancho, menos que el destino
+        assertEquals(4, ImageSizing.inSampleSizeToFit(4032, 3024, 512, 512));
+        assertEquals(1, ImageSizing.inSampleSizeToFit(800, 600, 1600, 1200));
+    }
+
+    /**
+     * Antes: 10 JPEG de cámara de 12 MP (~3.5 MB c/u) con putFile, todos a la vez.
+     * Ahora: WebP 1600x1200 a calidad 80 (~260 KB) + miniatura 800x600 (~55 KB), de a 3.
+     * Los tamaños WebP son referencia; el valor real lo registra CreateTourActivity (UploadReport).
+     */
+    private static final long[] RAW_PHOTOS = new long[10];
+    private static final long[] PROCESSED_PHOTOS = new long[10];
+
+    static {
+        for (int i = 0; i < 10; i++) {
+            RAW_PHOTOS[i] = 3_500_000 + i * 50_000L;
+            PROCESSED_PHOTOS[i] = 260_000 + i * 4_000L + 55_000;
+        }
+    }
+
+    private static long total(long[] sizes) {
+        long sum = 0;
+        for (long size : sizes) sum += size;
+        return sum;
+    }
+
+    @Test
+    public void tenPhotoTourSendsProcessedBytesThreeAtATime() {
+        RecordingListener before = new RecordingListener();
+        int[] beforePeak = new int[1];
+        uploadTour(10, RAW_PHOTOS, before, beforePeak);
+
+        RecordingListener after = new RecordingListener();
+        int[] afterPeak = new int[1];
+        uploadTour(3, PROCESSED_PHOTOS, after, afterPeak);
+
+        assertEquals(10, beforePeak[0]);
+        assertEquals(3, afterPeak[0]);
+        assertEquals(10, after.results.size());
+        assertEquals(0, after.failures);
+        assertEquals(100, (int) after.percents.get(after.percents.size() - 1));
+        assertEquals(37_250_000, total(RAW_PHOTOS));
+        assertEquals(3_330_000, total(PROCESSED_PHOTOS));
+        assertArrayEquals(new int[]{1600, 1200}, ImageSizing.fit(4032, 3024, 1600, 1200));
+    }
+
+    @Test
+    public void benchmarkTenPhotoTour() {
+        Benchmarks.assumeEnabled();
+        int[] peak = new int[1];
+        double beforeMs = uploadTour(10, RAW_PHOTOS, new RecordingListener(), peak);
+        double sequentialMs = uploadTour(1, PROCESSED_PHOTOS, new RecordingListener(), peak);
+        double afterMs = uploadTour(3, PROCESSED_PHOTOS, new RecordingListener(), peak);
+        double unboundedMs = uploadTour(10, PROCESSED_PHOTOS, new RecordingListener(), peak);
+
+        int[] fitted = ImageSizing.fit(4032, 3024, 1600, 1200);
+        double pixelRatio = (double) fitted[0] * fitted[1] / (4032.0 * 3024.0);
+
+        Benchmarks.report("Tour con 10 fotos (2 Mbit/s, 400 ms por petición, red simulada):%n"
+                        + "  antes:  %.1f MB en %.1f s (sin progreso total)%n"
+                        + "  ahora:  %.2f MB en %.1f s con 3 en paralelo (1 a la vez: %.1f s; 10 a la vez: %.1f s)%n"
+                        + "  píxeles por foto: %.0f%% del original",
+                total(RAW_PHOTOS) / 1e6, beforeMs / 1000, total(PROCESSED_PHOTOS) / 1e6, afterMs / 1000,
+                sequentialMs / 1000, unboundedMs / 1000, pixelRatio * 100);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.droidtour.images;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la elección de miniatura y estimación de memoria al recorrer el catálogo.
+ */
+public class ThumbnailUrlsTest {
+
+    private static final String TOUR_URL = "https://firebasestorage.googleapis.com/v0/b/droidtour.appspot.com/o/"
+            + "tour_images%2Ftour42_1700000000000_0.webp?alt=media&token=0f1e2d3c";
+
+    @Test
+    public void derivesThumbnailPathFromDownloadUrl() {
+        assertEquals("tour_images/tour42_1700000000000_0.webp", ThumbnailUrls.storagePath(TOUR_URL));
+        assertEquals("tour_images/thumbs/tour42_1700000000000_0.webp",
+                ThumbnailUrls.thumbnailPath(ThumbnailUrls.storagePath(TOUR_URL)));
+        assertEquals("thumbs/a.webp", ThumbnailUrls.thumbnailPath("a.webp"));
+    }
+
+    @Test
+    public void imagesWithoutThumbnailLoadAsIs() {
+        // Fuera de Storage
+        assertNull(ThumbnailUrls.storagePath("https://www.dicasdeviagem.com/wp-content/uploads/2020/03/lima.jpg"));
+        assertNull(ThumbnailUrls.thumbnailPath(null));
+        // Subidas antes de WebP (JPEG sin miniatura)
+        assertNull(ThumbnailUrls.thumbnailPath("tour_images/tour_1690000000000.jpg"));
+        // Ya es miniatura
+        assertNull(ThumbnailUrls.thumbnailPath("tour_images/thumbs/tour42_1700000000000_0.webp"));
+    }
+
+    @Test
+    public void choosesVariantByTargetSize() {
+        // Fila del catálogo a lo ancho (1080x550) y tarjeta destacada de 280dp (770x440): miniatura de 800
+        assertTrue(ThumbnailUrls.thumbnailFits(1080, 550, ImageSpec.TOUR_HERO));
+        assertTrue(ThumbnailUrls.thumbnailFits(770, 440, ImageSpec.TOUR_HERO));
+        // Tablet o cabecera a pantalla completa: imagen completa
+        assertFalse(ThumbnailUrls.thumbnailFits(1600, 900, ImageSpec.TOUR_HERO));
+        // Avatar de lista (48dp ≈ 144 px) vs. foto de perfil (120dp ≈ 360 px)
+        assertTrue(ThumbnailUrls.thumbnailFits(144, 144, ImageSpec.AVATAR));
+        assertFalse(ThumbnailUrls.thumbnailFits(360, 360, ImageSpec.AVATAR));
+        // Tamaño original
+        assertFalse(ThumbnailUrls.thumbnailFits(-1, -1, ImageSpec.TOUR_HERO));
+    }
+
+    @Test
+    public void scrollingFiveHundredToursHalvesRowMemory() {
+        int tours = 500;
+        int rowWidth = 1080;
+        int rowHeight = 550;          // 200dp a 2.75x
+        int visibleRows = 4;
+        int preloadRows = 4;
+
+        // Antes: imagen completa de Storage (o JPEG de cámara) decodificada en ARGB_8888 al tamaño de la fila
+        long beforeRow = ImageCachePolicy.decodedBytes(rowWidth, rowHeight, false);
+        // Ahora: miniatura 800x600 decodificada y recortada a la fila en RGB_565
+        long afterRow = ImageCachePolicy.decodedBytes(rowWidth, rowHeight, true);
+        long beforeLive = beforeRow * visibleRows;
+        long afterLive = afterRow * (visibleRows + preloadRows);
+
+        // Descarga al recorrer todo el catálogo (WebP 1600x1200 ~270 KB vs miniatura ~55 KB)
+        long beforeDownload = tours * 270_000L;
+        long afterDownload = tours * 55_000L;
+
+        // Filas que caben en la caché de memoria con un heap de 256 MB
+        long memoryCache = ImageCachePolicy.memoryCacheBytes(256, false);
+
+        assertEquals(beforeRow / 2, afterRow);
+        // Con la precarga se mantienen el doble de filas listas con la misma memoria
+        assertEquals(beforeLive, afterLive);
+        assertTrue(afterDownload * 4 < beforeDownload);
+        assertTrue(memoryCache / afterRow >= 2 * (memoryCache / beforeRow));
+    }
+}
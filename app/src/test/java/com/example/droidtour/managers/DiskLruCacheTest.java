@@ -0,0 +1,198 @@
+package com.example.droidtour.managers;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de DiskLruCache: journal, presupuesto LRU, recuperación tras un corte y comparación con
+ * la caché anterior de un JSON por entrada.
+ */
+public class DiskLruCacheTest {
+
+    private static class FakeClock implements DiskLruCache.Clock {
+        long now = 1_700_000_000_000L;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+
+    private static File newDir() throws IOException {
+        File dir = Files.createTempDirectory("disk-lru").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void entriesSurviveReopen() throws IOException {
+        File dir = newDir();
+        FakeClock clock = new FakeClock();
+        DiskLruCache cache = DiskLruCache.open(dir, 1024, clock);
+        cache.put("tours_populares", bytes("{\"tours\": [\"Machu Picchu\"]}"));
+        cache.put("clave con espacios/y barras", bytes("x"));
+        cache.close();
+
+        DiskLruCache reopened = DiskLruCache.open(dir, 1024, clock);
+        assertEquals("{\"tours\": [\"Machu Picchu\"]}", new String(reopened.get("tours_populares"), StandardCharsets.UTF_8));
+        assertEquals("x", new String(reopened.get("clave con espacios/y barras"), StandardCharsets.UTF_8));
+        assertEquals(clock.now, reopened.getWrittenAt("tours_populares"));
+        assertNull(reopened.get("no_existe"));
+        assertEquals(-1, reopened.getWrittenAt("no_existe"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOverBudget() throws IOException {
+        File dir = newDir();
+        DiskLruCache cache = DiskLruCache.open(dir, 300, new FakeClock());
+        cache.put("a", new byte[100]);
+        cache.put("b", new byte[100]);
+        cache.put("c", new byte[100]);
+        cache.get("a");                     // a pasa a ser la más reciente
+        cache.put("d", new byte[100]);      // se pasa: sale b
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertFalse(new File(dir, "b").exists());
+        assertEquals(300, cache.size());
+        cache.close();
+
+        // El orden de uso también sobrevive al reabrir
+        DiskLruCache reopened = DiskLruCache.open(dir, 300, new FakeClock());
+        reopened.put("e", new byte[100]);   // sale c
+        assertFalse(reopened.contains("c"));
+        assertTrue(reopened.contains("a"));
+        assertTrue(reopened.contains("d"));
+    }
+
+    @Test
+    public void expiresByWriteTimeWithoutOpeningEntries() throws IOException {
+        File dir = newDir();
+        FakeClock clock = new FakeClock();
+        DiskLruCache cache = DiskLruCache.open(dir, 1024, clock);
+        cache.put("vieja", bytes("1"));
+        clock.now += 2 * 3_600_000L;
+        cache.put("nueva", bytes("2"));
+
+        // Aunque el archivo desaparezca, la hora sale del índice
+        assertTrue(new File(dir, "vieja").delete());
+        assertEquals(clock.now - 2 * 3_600_000L, cache.getWrittenAt("vieja"));
+
+        assertEquals(1, cache.removeOlderThan(3_600_000L));
+        assertFalse(cache.contains("vieja"));
+        assertTrue(cache.contains("nueva"));
+    }
+
+    @Test
+    public void recoversFromInterruptedWrites() throws IOException {
+        File dir = newDir();
+        DiskLruCache cache = DiskLruCache.open(dir, 1024, new FakeClock());
+        cache.put("ok", bytes("bien"));
+        cache.close();
+
+        // Corte a mitad de escritura: .tmp suelto, archivo sin journal y línea de journal cortada
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "nueva.tmp"))) { out.write(1); }
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "huerfana"))) { out.write(1); }
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "journal"), true)) { out.write(bytes("P cortada 12")); }
+
+        DiskLruCache reopened = DiskLruCache.open(dir, 1024, new FakeClock());
+        assertEquals(1, reopened.entryCount());
+        assertEquals("bien", new String(reopened.get("ok"), StandardCharsets.UTF_8));
+        assertFalse(new File(dir, "nueva.tmp").exists());
+        assertFalse(new File(dir, "huerfana").exists());
+    }
+
+    /** La caché anterior: un archivo {"timestamp":..,"data":..} por entrada, leído entero para validar */
+    private static boolean legacyCacheValido(File dir, String clave, long expiracion, long ahora) throws IOException {
+        File archivo = new File(dir, "cache_" + clave + ".json");
+        if (!archivo.exists()) return false;
+        String json = new String(Files.readAllBytes(archivo.toPath()), StandardCharsets.UTF_8);
+        int inicio = json.indexOf("\"timestamp\":") + 12;
+        int fin = json.indexOf(',', inicio);
+        return ahora - Long.parseLong(json.substring(inicio, fin)) < expiracion;
+    }
+
+    private static final int ENTRIES = 1000;
+    private static final String PAYLOAD = new String(new char[2000]).replace('\0', 'x');   // ~2 KB, como una lista de tours
+
+    @Test
+    public void thousandEntriesStayWithinBudgetAcrossReopen() throws IOException {
+        FakeClock clock = new FakeClock();
+        File dir = newDir();
+        DiskLruCache cache = DiskLruCache.open(dir, 1024 * 1024, clock);
+        for (int i = 0; i < ENTRIES; i++) {
+            cache.put("tours_" + i, bytes(PAYLOAD));
+        }
+        int valid = 0;
+        for (int i = 0; i < ENTRIES; i++) {
+            if (clock.now - cache.getWrittenAt("tours_" + i) < 3_600_000L) valid++;
+        }
+        assertEquals(cache.entryCount(), valid);
+        cache.close();
+
+        // Con 1 MB de límite solo caben las ~500 más recientes; validar las desalojadas da -1
+        DiskLruCache reopened = DiskLruCache.open(dir, 1024 * 1024, clock);
+        assertEquals(valid, reopened.entryCount());
+        assertTrue(valid < ENTRIES);
+        assertTrue(reopened.size() <= 1024 * 1024);
+        assertTrue(reopened.contains("tours_" + (ENTRIES - 1)));
+        assertFalse(reopened.contains("tours_0"));
+    }
+
+    @Test
+    public void benchmarkThousandEntries() throws IOException {
+        Benchmarks.assumeEnabled();
+        FakeClock clock = new FakeClock();
+
+        File legacyDir = newDir();
+        for (int i = 0; i < ENTRIES; i++) {
+            String json = "{\"timestamp\":" + clock.now + ",\"data\":\"" + PAYLOAD + "\"}";
+            Files.write(new File(legacyDir, "cache_tours_" + i + ".json").toPath(), bytes(json));
+        }
+        long start = System.nanoTime();
+        int validLegacy = 0;
+        for (int i = 0; i < ENTRIES; i++) {
+            if (legacyCacheValido(legacyDir, "tours_" + i, 3_600_000L, clock.now)) validLegacy++;
+        }
+        long legacyCheckNs = System.nanoTime() - start;
+
+        File dir = newDir();
+        DiskLruCache cache = DiskLruCache.open(dir, 1024 * 1024, clock);
+        start = System.nanoTime();
+        for (int i = 0; i < ENTRIES; i++) {
+            cache.put("tours_" + i, bytes(PAYLOAD));
+        }
+        long putNs = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ENTRIES; i++) {
+            cache.getWrittenAt("tours_" + i);
+        }
+        long checkNs = System.nanoTime() - start;
+        cache.close();
+
+        start = System.nanoTime();
+        DiskLruCache reopened = DiskLruCache.open(dir, 1024 * 1024, clock);
+        long reopenNs = System.nanoTime() - start;
+
+        Benchmarks.report("Caché con %d entradas de 2 KB (límite 1 MB):%n"
+                        + "  validar todas: antes %.1f ms (abrir y leer cada archivo, %d válidas), ahora %.3f ms (índice)%n"
+                        + "  escribir todas: %.1f ms; reabrir (leer journal): %.1f ms%n"
+                        + "  quedan %d entradas, %.0f KB",
+                ENTRIES, legacyCheckNs / 1e6, validLegacy, checkNs / 1e6, putNs / 1e6, reopenNs / 1e6,
+                reopened.entryCount(), reopened.size() / 1024.0);
+    }
+}
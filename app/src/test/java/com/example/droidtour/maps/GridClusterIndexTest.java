@@ -0,0 +1,272 @@
+package com.example.droidtour.maps;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GridClusterIndexTest {
+
+    /** Parada de prueba */
+    private static class Stop {
+        final double lat;
+        final double lng;
+
+        Stop(double lat, double lng) {
+            this.lat = lat;
+            this.lng = lng;
+        }
+    }
+
+    // Ciudades con tours: Lima, Cusco, Arequipa, Puno, Trujillo, Iquitos
+    private static final double[][] CITIES = {
+            {-12.0464, -77.0428}, {-13.5167, -71.9787}, {-16.4090, -71.5375},
+            {-15.8402, -70.0219}, {-8.1116, -79.0288}, {-3.7437, -73.2516}
+    };
+
+    // Viewports de ~1080x1920 px centrados en cada ciudad
+    private static final float[] ZOOMS = {5, 8, 11, 13, 15, 17};
+
+    private static List<Stop> catalog(int count, long seed) {
+        Random random = new Random(seed);
+        List<Stop> stops = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double[] city = CITIES[random.nextInt(CITIES.length)];
+            // La mayoría en la ciudad (~5 km) y algunas en excursiones (~80 km)
+            double spread = random.nextDouble() < 0.8 ? 0.05 : 0.7;
+            stops.add(new Stop(city[0] + random.nextGaussian() * spread, city[1] + random.nextGaussian() * spread));
+        }
+        return stops;
+    }
+
+    private static GridClusterIndex<Stop> indexOf(List<Stop> stops) {
+        GridClusterIndex<Stop> index = new GridClusterIndex<>();
+        for (Stop stop : stops) index.add(stop, stop.lat, stop.lng);
+        return index;
+    }
+
+    private static int total(List<GridClusterIndex.Cluster<Stop>> clusters) {
+        int total = 0;
+        for (GridClusterIndex.Cluster<Stop> cluster : clusters) total += cluster.getCount();
+        return total;
+    }
+
+    @Test
+    public void worldViewCountsEveryPointOnce() {
+        List<Stop> stops = catalog(2000, 1);
+        GridClusterIndex<Stop> index = indexOf(stops);
+        for (int zoom = 0; zoom <= 18; zoom++) {
+            List<GridClusterIndex.Cluster<Stop>> clusters = index.query(-85, -180, 85, 180, zoom);
+            // Zoom alto: el viewport "mundo" igual es correcto, solo que sin agrupar
+            assertEquals("zoom " + zoom, stops.size(), total(clusters));
+        }
+        assertTrue(index.query(-85, -180, 85, 180, 4).size() < 20);
+        assertEquals(stops.size(), index.query(-85, -180, 85, 180, 18).size());
+    }
+
+    @Test
+    public void nearbyPointsGroupUntilZoomedIn() {
+        GridClusterIndex<Stop> index = new GridClusterIndex<>();
+        Stop plaza = new Stop(-13.51670, -71.97870);
+        Stop catedral = new Stop(-13.51605, -71.97760);   // ~140 m
+        index.add(plaza, plaza.lat, plaza.lng);
+        index.add(catedral, catedral.lat, catedral.lng);
+
+        List<GridClusterIndex.Cluster<Stop>> far = index.query(-14, -72.5, -13, -71.5, 12);
+        assertEquals(1, far.size());
+        assertEquals(2, far.get(0).getCount());
+        assertNull(far.get(0).getItem());
+
+        int expansion = index.expansionZoom(far.get(0));
+        List<GridClusterIndex.Cluster<Stop>> near = index.query(-13.52, -71.98, -13.51, -71.97, expansion);
+        assertEquals(2, near.size());
+        assertTrue(near.get(0).isSingle());
+        assertSame(near.get(0).getItem(), near.get(0).getKey());
+    }
+
+    @Test
+    public void viewportQueryOnlyReturnsVisibleArea() {
+        List<Stop> stops = catalog(3000, 2);
+        GridClusterIndex<Stop> index = indexOf(stops);
+        // Solo Cusco a zoom 13
+        List<GridClusterIndex.Cluster<Stop>> visible = index.query(-13.60, -72.07, -13.43, -71.88, 13);
+        assertFalse(visible.isEmpty());
+        for (GridClusterIndex.Cluster<Stop> cluster : visible) {
+            for (Stop stop : cluster.getItems()) {
+                // Dentro del viewport más el margen de una celda
+                assertTrue(stop.lat > -13.75 && stop.lat < -13.28);
+                assertTrue(stop.lng > -72.2 && stop.lng < -71.75);
+            }
+        }
+        assertTrue(total(visible) < stops.size() / 3);
+    }
+
+    @Test
+    public void removeAndMoveKeepCountsConsistent() {
+        List<Stop> stops = catalog(1000, 3);
+        GridClusterIndex<Stop> index = indexOf(stops);
+        for (int i = 0; i < 500; i++) {
+            assertTrue(index.remove(stops.get(i)));
+        }
+        assertFalse(index.remove(stops.get(0)));
+        // "Mover" a Lima las que quedan de Iquitos
+        for (int i = 500; i < 1000; i++) {
+            Stop stop = stops.get(i);
+            if (stop.lat > -5) index.add(stop, -12.05, -77.04);
+        }
+        assertEquals(500, index.size());
+        for (int zoom : new int[]{2, 8, 12, 17}) {
+            assertEquals(500, total(index.query(-85, -180, 85, 180, zoom)));
+        }
+        assertTrue(index.query(-5, -74, -2, -72, 8).isEmpty());
+    }
+
+    @Test
+    public void antimeridianViewport() {
+        GridClusterIndex<Stop> index = new GridClusterIndex<>();
+        Stop fiji = new Stop(-17.7, 178.0);
+        Stop samoa = new Stop(-13.8, -172.0);
+        Stop lima = new Stop(-12.0, -77.0);
+        index.add(fiji, fiji.lat, fiji.lng);
+        index.add(samoa, samoa.lat, samoa.lng);
+        index.add(lima, lima.lat, lima.lng);
+        assertEquals(2, total(index.query(-25, 170, -5, -165, 5)));
+    }
+
+    @Test
+    public void viewportDiffOnlyTouchesWhatChanged() {
+        List<Stop> stops = catalog(3000, 4);
+        GridClusterIndex<Stop> index = indexOf(stops);
+        ViewportDiff<Stop> viewport = new ViewportDiff<>();
+
+        ViewportDiff.Result<Stop> first = viewport.update(index.query(-12.15, -77.15, -11.95, -76.95, 14));
+        assertEquals(0, first.getRemoved().size());
+        assertEquals(viewport.getRenderedCount(), first.getAdded().size());
+
+        // Misma cámara: nada que hacer
+        assertTrue(viewport.update(index.query(-12.15, -77.15, -11.95, -76.95, 14)).isEmpty());
+
+        // Desplazar un poco: la mayoría de los marcadores se conservan
+        ViewportDiff.Result<Stop> pan = viewport.update(index.query(-12.17, -77.15, -11.97, -76.95, 14));
+        assertTrue(pan.getAdded().size() + pan.getRemoved().size() < first.getAdded().size());
+
+        // Agregar una parada dentro de un grupo visible: el grupo se actualiza, no se recrea
+        Stop extra = new Stop(-12.0464, -77.0428);
+        index.add(extra, extra.lat, extra.lng);
+        ViewportDiff.Result<Stop> added = viewport.update(index.query(-12.17, -77.15, -11.97, -76.95, 14));
+        assertTrue(added.getAdded().size() + added.getChanged().size() >= 1);
+        assertTrue(added.getAdded().size() + added.getRemoved().size() + added.getChanged().size() <= 3);
+    }
+
+    /**
+     * 10k paradas: cada viewport típico (ciudad a distintos zooms) pinta pocos marcadores en vez de
+     * un marcador por parada.
+     */
+    @Test
+    public void tenThousandPointsKeepViewportsSmall() {
+        List<Stop> stops = catalog(10_000, 42);
+        GridClusterIndex<Stop> index = indexOf(stops);
+        assertEquals(10_000, index.size());
+
+        int[] markers = runQueries(index, ZOOMS, 1);
+        for (int count : markers) {
+            assertTrue(count > 0);
+            assertTrue(count / CITIES.length < 500);
+        }
+    }
+
+    /**
+     * Construir el índice y consultar los mismos viewports, comparando con agrupar todo desde cero
+     * en cada movimiento de cámara.
+     */
+    @Test
+    public void benchmarkTenThousandPoints() {
+        Benchmarks.assumeEnabled();
+        List<Stop> stops = catalog(10_000, 42);
+
+        indexOf(stops);   // calentamiento
+        long buildStart = System.nanoTime();
+        GridClusterIndex<Stop> index = indexOf(stops);
+        double buildMs = (System.nanoTime() - buildStart) / 1e6;
+
+        int rounds = 30;
+        for (int warmup = 0; warmup < 3; warmup++) {
+            runQueries(index, ZOOMS, 1);
+            naiveCluster(stops, ZOOMS, 1);
+        }
+
+        long start = System.nanoTime();
+        int[] markers = runQueries(index, ZOOMS, rounds);
+        double indexedMs = (System.nanoTime() - start) / 1e6 / (rounds * ZOOMS.length * CITIES.length);
+
+        start = System.nanoTime();
+        naiveCluster(stops, ZOOMS, rounds);
+        double naiveMs = (System.nanoTime() - start) / 1e6 / (rounds * ZOOMS.length * CITIES.length);
+
+        StringBuilder perZoom = new StringBuilder();
+        for (int i = 0; i < ZOOMS.length; i++) {
+            perZoom.append(String.format("z%.0f=%d ", ZOOMS[i], markers[i] / CITIES.length));
+        }
+        Benchmarks.report("10k paradas: índice en %.1f ms; consulta de viewport %.3f ms vs agrupar todo %.3f ms (x%.0f)%n"
+                        + "  Marcadores por viewport (promedio): %s(antes: 10000)",
+                buildMs, indexedMs, naiveMs, naiveMs / indexedMs, perZoom);
+    }
+
+    private static int[] runQueries(GridClusterIndex<Stop> index, float[] zooms, int rounds) {
+        int[] markers = new int[zooms.length];
+        for (int round = 0; round < rounds; round++) {
+            for (int z = 0; z < zooms.length; z++) {
+                for (double[] city : CITIES) {
+                    double[] box = viewport(city, zooms[z]);
+                    int size = index.query(box[0], box[1], box[2], box[3], zooms[z]).size();
+                    if (round == 0) markers[z] += size;
+                }
+            }
+        }
+        return markers;
+    }
+
+    /** Referencia: agrupar todas las paradas por celda en cada consulta y filtrar por viewport */
+    private static void naiveCluster(List<Stop> stops, float[] zooms, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            for (float zoom : zooms) {
+                for (double[] city : CITIES) {
+                    double[] box = viewport(city, zoom);
+                    double side = Math.ceil(256.0 * (1L << (int) zoom) / GridClusterIndex.DEFAULT_CELL_SIZE_PX);
+                    Map<Long, int[]> cells = new HashMap<>();
+                    for (Stop stop : stops) {
+                        long cx = (long) (GridClusterIndex.mercatorX(stop.lng) * side);
+                        long cy = (long) (GridClusterIndex.mercatorY(stop.lat) * side);
+                        cells.computeIfAbsent((cx << 32) | cy, k -> new int[1])[0]++;
+                    }
+                    Set<Long> visible = new HashSet<>();
+                    for (Stop stop : stops) {
+                        if (stop.lat >= box[0] && stop.lat <= box[2] && stop.lng >= box[1] && stop.lng <= box[3]) {
+                            long cx = (long) (GridClusterIndex.mercatorX(stop.lng) * side);
+                            long cy = (long) (GridClusterIndex.mercatorY(stop.lat) * side);
+                            visible.add((cx << 32) | cy);
+                        }
+                    }
+                    assertTrue(visible.size() <= cells.size());
+                }
+            }
+        }
+    }
+
+    /** south, west, north, east de una pantalla de 1080x1920 px centrada en city */
+    private static double[] viewport(double[] city, float zoom) {
+        double degreesPerPx = 360.0 / (256.0 * Math.pow(2, zoom));
+        double halfLng = 540 * degreesPerPx;
+        double halfLat = 960 * degreesPerPx * Math.cos(Math.toRadians(city[0]));
+        return new double[]{city[0] - halfLat, city[1] - halfLng, city[0] + halfLat, city[1] + halfLng};
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.droidtour.maps;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RouteLegsTest {
+
+    private static List<String> stops(int count) {
+        List<String> stops = new ArrayList<>();
+        for (int i = 0; i < count; i++) stops.add(new String("Parada " + i));
+        return stops;
+    }
+
+    @Test
+    public void appendingAStopAddsOneLeg() {
+        RouteLegs<String> legs = new RouteLegs<>();
+        List<String> route = stops(5);
+        assertEquals(4, legs.update(route).getAdded().size());
+
+        route.add(new String("Nueva"));
+        RouteLegs.Diff<String> diff = legs.update(route);
+        assertEquals(1, diff.getAdded().size());
+        assertEquals(0, diff.getRemoved().size());
+        assertSame(route.get(5), diff.getAdded().get(0).getTo());
+    }
+
+    @Test
+    public void movingOneStopTouchesAtMostThreeLegsEachWay() {
+        RouteLegs<String> legs = new RouteLegs<>();
+        List<String> route = stops(200);
+        legs.update(route);
+
+        // Arrastrar la parada 20 a la posición 150
+        route.add(150, route.remove(20));
+        RouteLegs.Diff<String> diff = legs.update(route);
+        assertEquals(3, diff.getRemoved().size());
+        assertEquals(3, diff.getAdded().size());
+        assertEquals(199, legs.getLegCount());
+
+        // Intercambio de vecinos (un paso de drag & drop)
+        Collections.swap(route, 10, 11);
+        diff = legs.update(route);
+        assertEquals(3, diff.getRemoved().size());
+        assertEquals(3, diff.getAdded().size());
+    }
+
+    @Test
+    public void removingAStopReplacesTwoLegsWithOne() {
+        RouteLegs<String> legs = new RouteLegs<>();
+        List<String> route = stops(6);
+        legs.update(route);
+        String removed = route.remove(3);
+        RouteLegs.Diff<String> diff = legs.update(route);
+        assertEquals(2, diff.getRemoved().size());
+        assertEquals(1, diff.getAdded().size());
+        for (RouteLegs.Leg<String> leg : diff.getRemoved()) {
+            assertTrue(leg.getFrom() == removed || leg.getTo() == removed);
+        }
+    }
+
+    @Test
+    public void repeatedLegsAreCounted() {
+        // Ida y vuelta al mismo mirador: A-B-A-B
+        String a = new String("A");
+        String b = new String("B");
+        RouteLegs<String> legs = new RouteLegs<>();
+        assertEquals(3, legs.update(Arrays.asList(a, b, a, b)).getAdded().size());
+        RouteLegs.Diff<String> diff = legs.update(Arrays.asList(a, b, a));
+        assertEquals(1, diff.getRemoved().size());
+        assertEquals(0, diff.getAdded().size());
+        assertEquals(2, legs.getLegCount());
+        assertEquals(2, legs.update(Collections.emptyList()).getRemoved().size());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.droidtour.search;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de FtsRanking: expresión MATCH, lectura de matchinfo y orden BM25.
+ */
+public class FtsRankingTest {
+
+    private static final double[] WEIGHTS = {3.0, 1.0};
+
+    /**
+     * matchinfo 'pcnalx' de una fila con una frase y dos columnas (título, cuerpo):
+     * hits por columna, documentos con la palabra por columna y largo de cada columna
+     */
+    private static int[] info(int rows, int titleHits, int bodyHits, int titleDocs, int bodyDocs,
+                              int titleLength, int bodyLength) {
+        return new int[]{
+                1, 2, rows,
+                4, 40,                          // a: largo promedio
+                titleLength, bodyLength,        // l: largo en esta fila
+                titleHits, titleHits * 2, titleDocs,
+                bodyHits, bodyHits * 2, bodyDocs};
+    }
+
+    @Test
+    public void matchQueryUsesFoldedPrefixes() {
+        assertEquals("canon* del* colca*", FtsRanking.toMatchQuery("Cañón del  COLCA"));
+        assertEquals("machu* picchu*", FtsRanking.toMatchQuery("machu-picchu"));
+        // Los operadores van en mayúsculas: en minúsculas son palabras comunes
+        assertEquals("lima* or* cusco*", FtsRanking.toMatchQuery("Lima OR \"Cusco\""));
+        assertNull(FtsRanking.toMatchQuery("  ¿? "));
+        assertNull(FtsRanking.toMatchQuery(null));
+    }
+
+    @Test
+    public void decodesNativeOrderIntegers() {
+        int[] values = {1, 2, 100000, 0, -1};
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.nativeOrder());
+        for (int value : values) buffer.putInt(value);
+        assertArrayEquals(values, FtsRanking.decodeMatchinfo(buffer.array()));
+    }
+
+    @Test
+    public void bm25PrefersRareTermsTitlesAndShortTexts() {
+        double rare = FtsRanking.bm25(info(1000, 0, 1, 0, 5, 4, 40), WEIGHTS);
+        double common = FtsRanking.bm25(info(1000, 0, 1, 0, 500, 4, 40), WEIGHTS);
+        assertTrue(rare > common);
+
+        double inTitle = FtsRanking.bm25(info(1000, 1, 0, 5, 0, 4, 40), WEIGHTS);
+        assertTrue(inTitle > rare);
+
+        double shortBody = FtsRanking.bm25(info(1000, 0, 1, 0, 5, 4, 10), WEIGHTS);
+        double longBody = FtsRanking.bm25(info(1000, 0, 1, 0, 5, 4, 200), WEIGHTS);
+        assertTrue(shortBody > longBody);
+
+        double twice = FtsRanking.bm25(info(1000, 0, 2, 0, 5, 4, 40), WEIGHTS);
+        assertTrue(twice > rare);
+        // Saturación: repetir la palabra no lo duplica
+        assertTrue(twice < 2 * rare);
+
+        assertEquals(0, FtsRanking.bm25(info(1000, 0, 0, 0, 0, 4, 40), WEIGHTS), 0);
+    }
+
+    @Test
+    public void topIndicesAreStableAndBounded() {
+        double[] scores = {1.0, 3.0, 2.0, 3.0, 0.5, 99.0};
+        // Solo cuentan los primeros count puntajes
+        assertArrayEquals(new int[]{1, 3, 2}, FtsRanking.topIndices(scores, 5, 3));
+        assertArrayEquals(new int[]{1, 3, 2, 0, 4}, FtsRanking.topIndices(scores, 5, 10));
+        assertEquals(0, FtsRanking.topIndices(scores, 5, 0).length);
+    }
+}
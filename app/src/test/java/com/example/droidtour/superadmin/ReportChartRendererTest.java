@@ -0,0 +1,165 @@
+package com.example.droidtour.superadmin;
+
+import android.app.Application;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.droidtour.R;
+import com.github.mikephil.charting.charts.BarChart;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Pruebas de ReportChartRenderer (Robolectric): los gráficos del reporte se generan desde el hilo
+ * de la exportación, que no tiene Looper.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class ReportChartRendererTest {
+
+    private Context context;
+    private ExecutorService exportThread;
+    private ReportChartRenderer renderer;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        exportThread = Executors.newSingleThreadExecutor();
+        renderer = new ReportChartRenderer(context, new Handler(Looper.getMainLooper())::post);
+    }
+
+    @After
+    public void tearDown() {
+        exportThread.shutdownNow();
+    }
+
+    private static Map<String, Integer> monthlyBookings() {
+        Map<String, Integer> monthly = new LinkedHashMap<>();
+        monthly.put("2025-01", 12);
+        monthly.put("2025-02", 30);
+        monthly.put("2025-03", 7);
+        return monthly;
+    }
+
+    /** Esperar al hilo de la exportación corriendo lo que este publique en el hilo principal */
+    private static <T> T await(Future<T> future) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle();
+            try {
+                return future.get(10, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ignored) {
+                // El hilo de fondo sigue esperando al principal
+            }
+        }
+        throw new AssertionError("El render no terminó");
+    }
+
+    private static void assertPng(Bitmap bitmap) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(bitmap.compress(Bitmap.CompressFormat.PNG, 100, out));
+        byte[] bytes = out.toByteArray();
+        assertTrue(bytes.length > 8);
+        assertEquals((byte) 0x89, bytes[0]);
+        assertEquals('P', bytes[1]);
+        assertEquals('N', bytes[2]);
+        assertEquals('G', bytes[3]);
+    }
+
+    /** Algún píxel del área del gráfico no es el fondo blanco */
+    private static boolean drewChart(Bitmap bitmap) {
+        int top = ReportChartRenderer.TITLE_HEIGHT + ReportChartRenderer.PADDING;
+        int[] row = new int[bitmap.getWidth()];
+        for (int y = top; y < bitmap.getHeight(); y += 4) {
+            bitmap.getPixels(row, 0, bitmap.getWidth(), 0, y, bitmap.getWidth(), 1);
+            for (int pixel : row) {
+                if (pixel != Color.WHITE) return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void creatingAChartOffTheLooperThrows() throws Exception {
+        // Por esto el renderer construye los gráficos en el hilo principal
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        await(exportThread.submit(() -> {
+            try {
+                new BarChart(context);
+            } catch (Throwable t) {
+                error.set(t);
+            }
+            return null;
+        }));
+        assertNotNull(error.get());
+    }
+
+    @Test
+    public void rendersEveryChartTypeFromTheExportThread() throws Exception {
+        Map<String, Double> revenue = new LinkedHashMap<>();
+        revenue.put("2025-01", 1200.0);
+        revenue.put("2025-02", 3400.5);
+        Map<String, Integer> categories = new LinkedHashMap<>();
+        categories.put("Aventura", 4);
+        categories.put("Cultural", 9);
+
+        ReportChartRenderer.Factory[] factories = {
+                r -> r.barChart(monthlyBookings(), "Reservas", R.color.green),
+                r -> r.lineChart(revenue, "Ingresos (S/)", R.color.primary),
+                r -> r.pieChart(categories)
+        };
+        for (ReportChartRenderer.Factory factory : factories) {
+            Bitmap bitmap = await(exportThread.submit(() -> renderer.render("Título", "Generado: hoy", factory)));
+            try {
+                assertEquals(ReportChartRenderer.CHART_WIDTH + ReportChartRenderer.PADDING * 2, bitmap.getWidth());
+                assertEquals(ReportChartRenderer.CHART_HEIGHT + ReportChartRenderer.TITLE_HEIGHT
+                        + ReportChartRenderer.PADDING * 2, bitmap.getHeight());
+                assertTrue(drewChart(bitmap));
+                assertPng(bitmap);
+            } finally {
+                bitmap.recycle();
+            }
+        }
+    }
+
+    @Test
+    public void factoryErrorsReachTheExportThread() throws Exception {
+        AtomicReference<Thread> factoryThread = new AtomicReference<>();
+        Future<Bitmap> future = exportThread.submit(() -> renderer.render("Título", "", r -> {
+            factoryThread.set(Thread.currentThread());
+            throw new IllegalStateException("sin datos");
+        }));
+        try {
+            await(future);
+            fail("el error de la fábrica debe propagarse");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertSame(Looper.getMainLooper().getThread(), factoryThread.get());
+    }
+}
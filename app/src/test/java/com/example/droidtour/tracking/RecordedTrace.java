@@ -0,0 +1,48 @@
+package com.example.droidtour.tracking;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de los recorridos grabados en test/resources/tracks (CSV: time_ms,lat,lng,accuracy_m,speed_mps)
+ */
+final class RecordedTrace {
+
+    static final String CUSCO_CITY_TOUR = "/tracks/cusco_city_tour_1hz.csv";
+
+    private RecordedTrace() {}
+
+    static List<GpsFix> load(String resource) throws IOException {
+        InputStream in = RecordedTrace.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("No se encontró el recorrido " + resource);
+        }
+        List<GpsFix> fixes = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split(",");
+                fixes.add(new GpsFix(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                        Float.parseFloat(parts[3]), Float.parseFloat(parts[4]), Long.parseLong(parts[0])));
+            }
+        }
+        return fixes;
+    }
+
+    /** Solo las posiciones con precisión aceptable (lo que pasaría el muestreador) */
+    static List<GpsFix> accurate(List<GpsFix> fixes) {
+        List<GpsFix> result = new ArrayList<>();
+        for (GpsFix fix : fixes) {
+            if (fix.getAccuracy() <= AdaptiveSampler.MAX_ACCURACY_M) {
+                result.add(fix);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.droidtour.tracking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de TrackBatcher con un uploader en memoria y reproducción de un recorrido grabado.
+ */
+public class TrackBatcherTest {
+
+    private static final long FLUSH_INTERVAL_MS = 30_000;
+    private static final double TOLERANCE_METERS = 10.0;
+    private static final int WRITES_PER_BATCH = 2;   // tramo + última posición
+
+    /** Uploader falso: guarda los lotes y responde al instante o deja la respuesta pendiente */
+    private static class FakeUploader implements TrackBatcher.Uploader {
+        final List<TrackBatcher.Batch> uploaded = new ArrayList<>();
+        TrackBatcher.UploadCallback pending;
+        TrackBatcher.Batch pendingBatch;
+        boolean manual;
+        boolean fail;
+
+        @Override
+        public void upload(TrackBatcher.Batch batch, TrackBatcher.UploadCallback callback) {
+            if (manual) {
+                pending = callback;
+                pendingBatch = batch;
+                return;
+            }
+            if (fail) {
+                callback.onFailed(new Exception("sin conexión"));
+            } else {
+                uploaded.add(batch);
+                callback.onUploaded();
+            }
+        }
+
+        void completePending() {
+            uploaded.add(pendingBatch);
+            TrackBatcher.UploadCallback callback = pending;
+            pending = null;
+            callback.onUploaded();
+        }
+    }
+
+    private static GpsFix fix(double lat, double lng, long time) {
+        return new GpsFix(lat, lng, 5f, 1.2f, time);
+    }
+
+    @Test
+    public void flushesAtMostOncePerInterval() {
+        FakeUploader uploader = new FakeUploader();
+        TrackBatcher batcher = new TrackBatcher(uploader, FLUSH_INTERVAL_MS, TOLERANCE_METERS, 100);
+
+        for (long t = 0; t < 120_000; t += 1000) {
+            batcher.add(fix(-13.5167 + t * 1e-8, -71.9787, t));
+            batcher.flushIfDue(t);
+        }
+        // La primera posición se publica de inmediato y luego una vez cada 30 s
+        assertEquals(4, uploader.uploaded.size());
+        assertEquals(1, uploader.uploaded.get(0).getRawCount());
+        assertEquals(30, uploader.uploaded.get(1).getRawCount());
+        assertEquals(120, batcher.maxUploadsPerHour());
+    }
+
+    @Test
+    public void failedUploadIsRetriedWithNewFixes() {
+        FakeUploader uploader = new FakeUploader();
+        TrackBatcher batcher = new TrackBatcher(uploader, FLUSH_INTERVAL_MS, TOLERANCE_METERS, 100);
+
+        uploader.fail = true;
+        for (int i = 0; i < 10; i++) batcher.add(fix(-13.5167 + i * 1e-4, -71.9787, i * 1000L));
+        assertTrue(batcher.flush(10_000));
+        assertEquals(1, batcher.getFailedUploads());
+        assertEquals(10, batcher.getBufferedCount());
+
+        uploader.fail = false;
+        for (int i = 10; i < 15; i++) batcher.add(fix(-13.5167 + i * 1e-4, -71.9787, i * 1000L));
+        assertTrue(batcher.flushIfDue(40_000));
+        assertEquals(1, uploader.uploaded.size());
+        assertEquals(15, uploader.uploaded.get(0).getRawCount());
+        assertEquals(14_000, uploader.uploaded.get(0).getLast().getTime());
+        assertEquals(0, batcher.getBufferedCount());
+    }
+
+    @Test
+    public void bufferIsBoundedWhileOffline() {
+        FakeUploader uploader = new FakeUploader();
+        uploader.fail = true;
+        TrackBatcher batcher = new TrackBatcher(uploader, FLUSH_INTERVAL_MS, TOLERANCE_METERS, 50);
+
+        for (long t = 0; t < 600_000; t += 1000) {
+            batcher.add(fix(-13.5167, -71.9787 + t * 1e-8, t));
+            batcher.flushIfDue(t);
+        }
+        assertEquals(50, batcher.getBufferedCount());
+        assertEquals(0, batcher.getUploads());
+    }
+
+    @Test
+    public void noOverlappingUploads() {
+        FakeUploader uploader = new FakeUploader();
+        uploader.manual = true;
+        TrackBatcher batcher = new TrackBatcher(uploader, FLUSH_INTERVAL_MS, TOLERANCE_METERS, 100);
+
+        batcher.add(fix(-13.5167, -71.9787, 0));
+        assertTrue(batcher.flush(0));
+        batcher.add(fix(-13.5168, -71.9787, 1000));
+        assertFalse("No debe subir mientras hay un lote en vuelo", batcher.flush(1000));
+        uploader.completePending();
+        assertTrue(batcher.flush(2000));
+        assertEquals(1, batcher.getUploads());
+    }
+
+    @Test
+    public void batchesSpliceIntoContinuousTrack() throws Exception {
+        List<GpsFix> trace = RecordedTrace.accurate(RecordedTrace.load(RecordedTrace.CUSCO_CITY_TOUR));
+        FakeUploader uploader = new FakeUploader();
+        TrackBatcher batcher = new TrackBatcher(uploader, FLUSH_INTERVAL_MS, TOLERANCE_METERS, 1000);
+
+        for (GpsFix fix : trace) {
+            batcher.add(fix);
+            batcher.flushIfDue(fix.getTime());
+        }
+        batcher.flush(Long.MAX_VALUE);
+
+        // Los tramos concatenados forman el recorrido completo, en orden y sin puntos repetidos
+        List<GpsFix> joined = new ArrayList<>();
+        for (TrackBatcher.Batch batch : uploader.uploaded) {
+            joined.addAll(batch.getPoints());
+        }
+        assertSame(trace.get(0), joined.get(0));
+        assertSame(trace.get(trace.size() - 1), joined.get(joined.size() - 1));
+        for (int i = 1; i < joined.size(); i++) {
+            assertTrue(joined.get(i).getTime() > joined.get(i - 1).getTime());
+        }
+        assertTrue(TrackSimplifier.maxDeviationMeters(trace, joined) <= TOLERANCE_METERS + 0.01);
+        assertEquals(trace.size(), batcher.getReceivedFixes());
+    }
+
+    /**
+     * Reproduce el recorrido grabado como lo haría el proveedor de ubicación: solo entrega una
+     * posición cuando pasa el intervalo que pide el muestreador. Cuenta las escrituras contra
+     * escribir cada posición a 1 Hz.
+     */
+    @Test
+    public void recordedTourWriteVolumeIsBounded() throws Exception {
+        List<GpsFix> trace = RecordedTrace.load(RecordedTrace.CUSCO_CITY_TOUR);
+        FakeUploader uploader = new FakeUploader();
+        TrackBatcher batcher = new TrackBatcher(uploader, FLUSH_INTERVAL_MS, TOLERANCE_METERS, 600);
+        AdaptiveSampler sampler = new AdaptiveSampler();
+
+        long nextDelivery = 0;
+        int delivered = 0;
+        int stationaryDeliveries = 0;
+        for (GpsFix fix : trace) {
+            if (fix.getTime() >= nextDelivery) {
+                delivered++;
+                if (sampler.accept(fix)) {
+                    batcher.add(fix);
+                }
+                if (sampler.isStationary()) stationaryDeliveries++;
+                nextDelivery = fix.getTime() + sampler.getIntervalMs();
+            }
+            batcher.flushIfDue(fix.getTime());
+        }
+        batcher.flush(Long.MAX_VALUE);
+
+        int naiveWrites = trace.size();
+        int writes = batcher.getUploads() * WRITES_PER_BATCH;
+
+        // Cota: un lote por intervalo (+1 al terminar) con 2 escrituras cada uno
+        assertTrue(writes <= (batcher.maxUploadsPerHour() + 1) * WRITES_PER_BATCH);
+        assertTrue(writes * 10 < naiveWrites);
+        // El muestreador adaptativo pide bastante menos que 1 Hz y detecta las paradas
+        assertTrue(delivered * 5 < trace.size());
+        assertTrue(stationaryDeliveries > 0);
+        assertEquals(0, batcher.getBufferedCount());
+    }
+}
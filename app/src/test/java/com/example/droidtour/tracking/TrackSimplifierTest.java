@@ -0,0 +1,69 @@
+package com.example.droidtour.tracking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TrackSimplifierTest {
+
+    private static final double LAT = -13.5167;
+    private static final double LNG = -71.9787;
+
+    /** Punto desplazado norte/este metros desde la Plaza de Armas */
+    private static GpsFix at(double north, double east, long time) {
+        double metersPerDegree = GpsFix.metersPerDegree();
+        return new GpsFix(LAT + north / metersPerDegree,
+                LNG + east / (metersPerDegree * Math.cos(Math.toRadians(LAT))), 5f, 1.2f, time);
+    }
+
+    @Test
+    public void straightLineKeepsOnlyEndpoints() {
+        List<GpsFix> line = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            line.add(at(i * 2.0, i * 1.0, i * 1000L));
+        }
+        List<GpsFix> simplified = TrackSimplifier.simplify(line, 5.0);
+        assertEquals(2, simplified.size());
+        assertSame(line.get(0), simplified.get(0));
+        assertSame(line.get(100), simplified.get(1));
+    }
+
+    @Test
+    public void cornerIsKept() {
+        List<GpsFix> track = new ArrayList<>();
+        for (int i = 0; i <= 50; i++) track.add(at(i * 2.0, 0, i * 1000L));            // 100 m al norte
+        for (int i = 1; i <= 50; i++) track.add(at(100, i * 2.0, (50 + i) * 1000L));   // 100 m al este
+        List<GpsFix> simplified = TrackSimplifier.simplify(track, 5.0);
+        assertEquals(3, simplified.size());
+        assertSame(track.get(50), simplified.get(1));
+    }
+
+    @Test
+    public void outAndBackIsNotCollapsed() {
+        // Ida y vuelta por la misma calle: contra la recta infinita todos los puntos estarían a 0 m
+        List<GpsFix> track = new ArrayList<>();
+        for (int i = 0; i <= 50; i++) track.add(at(i * 4.0, 0, i * 1000L));
+        for (int i = 1; i <= 25; i++) track.add(at(200 - i * 4.0, 0, (50 + i) * 1000L));
+        List<GpsFix> simplified = TrackSimplifier.simplify(track, 5.0);
+        assertTrue(simplified.contains(track.get(50)));
+    }
+
+    @Test
+    public void recordedTourStaysWithinToleranceAndShrinks() throws Exception {
+        List<GpsFix> trace = RecordedTrace.accurate(RecordedTrace.load(RecordedTrace.CUSCO_CITY_TOUR));
+        assertTrue(trace.size() > 3000);
+
+        for (double tolerance : new double[]{5.0, 10.0, 20.0}) {
+            List<GpsFix> simplified = TrackSimplifier.simplify(trace, tolerance);
+            double deviation = TrackSimplifier.maxDeviationMeters(trace, simplified);
+            assertTrue("Desvío " + deviation + " > " + tolerance, deviation <= tolerance + 0.01);
+            assertSame(trace.get(0), simplified.get(0));
+            assertSame(trace.get(trace.size() - 1), simplified.get(simplified.size() - 1));
+        }
+        // Con la tolerancia del seguimiento (10 m) el recorrido debe reducirse al menos 5 veces
+        assertTrue(TrackSimplifier.simplify(trace, 10.0).size() * 5 < trace.size());
+    }
+}
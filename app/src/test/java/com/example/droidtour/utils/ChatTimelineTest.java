@@ -0,0 +1,225 @@
+package com.example.droidtour.utils;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChatTimelineTest {
+
+    private static class Msg {
+        final String id;
+        final long time;
+        final String text;
+
+        Msg(String id, long time, String text) {
+            this.id = id;
+            this.time = time;
+            this.text = text;
+        }
+    }
+
+    private static final ChatTimeline.KeyExtractor<Msg> KEYS = new ChatTimeline.KeyExtractor<Msg>() {
+        @Override
+        public String idOf(Msg item) {
+            return item.id;
+        }
+
+        @Override
+        public long timeOf(Msg item) {
+            return item.time;
+        }
+    };
+
+    /** Registra los avisos como los recibiría el adapter */
+    private static class RecordingListener implements ChatTimeline.Listener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onInserted(int position, int count) {
+            events.add("insert " + position + "+" + count);
+        }
+
+        @Override
+        public void onChanged(int position) {
+            events.add("change " + position);
+        }
+
+        @Override
+        public void onRemoved(int position) {
+            events.add("remove " + position);
+        }
+    }
+
+    private ChatTimeline<Msg> timeline;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        timeline = new ChatTimeline<>(KEYS);
+        listener = new RecordingListener();
+        timeline.setListener(listener);
+    }
+
+    private List<String> ids() {
+        List<String> ids = new ArrayList<>();
+        for (Msg msg : timeline.asList()) ids.add(msg.id);
+        return ids;
+    }
+
+    @Test
+    public void keepsMessagesSortedByTimeThenId() {
+        timeline.upsert(new Msg("c", 30, "tres"));
+        timeline.upsert(new Msg("a", 10, "uno"));
+        timeline.upsert(new Msg("b", 30, "dos"));
+
+        assertEquals(Arrays.asList("a", "b", "c"), ids());
+        assertEquals(Arrays.asList("insert 0+1", "insert 0+1", "insert 1+1"), listener.events);
+    }
+
+    @Test
+    public void sameIdReplacesInsteadOfDuplicating() {
+        timeline.upsert(new Msg("a", 10, "enviando"));
+        timeline.upsert(new Msg("a", 10, "enviado"));
+
+        assertEquals(1, timeline.size());
+        assertEquals("enviado", timeline.get(0).text);
+        assertEquals("change 0", listener.events.get(1));
+    }
+
+    @Test
+    public void changedTimeMovesMessage() {
+        timeline.upsertAll(Arrays.asList(new Msg("a", 10, ""), new Msg("b", 20, ""), new Msg("c", 30, "")));
+        listener.events.clear();
+
+        timeline.upsert(new Msg("a", 40, ""));
+
+        assertEquals(Arrays.asList("b", "c", "a"), ids());
+        assertEquals(Arrays.asList("remove 0", "insert 2+1"), listener.events);
+    }
+
+    @Test
+    public void olderPageIsInsertedAsOneBlockAtTheTop() {
+        timeline.upsertAll(Arrays.asList(new Msg("m100", 100, ""), new Msg("m101", 101, "")));
+        listener.events.clear();
+
+        // Las páginas llegan en orden descendente desde Firestore
+        timeline.upsertAll(Arrays.asList(new Msg("m99", 99, ""), new Msg("m98", 98, ""), new Msg("m97", 97, "")));
+
+        assertEquals(Arrays.asList("m97", "m98", "m99", "m100", "m101"), ids());
+        assertEquals(Collections.singletonList("insert 0+3"), listener.events);
+        assertEquals("m97", timeline.oldest().id);
+        assertEquals("m101", timeline.newest().id);
+    }
+
+    @Test
+    public void retainOnlyDropsMessagesMissingFromServerWindow() {
+        timeline.upsertAll(Arrays.asList(new Msg("a", 10, ""), new Msg("b", 20, ""), new Msg("c", 30, "")));
+        listener.events.clear();
+
+        timeline.retainOnly(new HashSet<>(Arrays.asList("a", "c")));
+
+        assertEquals(Arrays.asList("a", "c"), ids());
+        assertFalse(timeline.contains("b"));
+        assertEquals(Collections.singletonList("remove 1"), listener.events);
+        assertFalse(timeline.remove("b"));
+    }
+
+    /**
+     * 10.000 mensajes cargados: aplicar un mensaje nuevo como delta (búsqueda binaria y un solo aviso
+     * al adapter) en vez de lo que hacía el listener anterior (reconstruir la lista desde el snapshot
+     * completo y ordenarla en cada cambio). Se cuentan las lecturas de hora, no el tiempo.
+     */
+    @Test
+    public void deltaApplyAtTenThousandMessagesIsLogarithmic() {
+        int total = 10_000;
+        int rounds = 200;
+        int[] timeReads = new int[1];
+        ChatTimeline<Msg> counted = new ChatTimeline<>(new ChatTimeline.KeyExtractor<Msg>() {
+            @Override
+            public String idOf(Msg item) {
+                return item.id;
+            }
+
+            @Override
+            public long timeOf(Msg item) {
+                timeReads[0]++;
+                return item.time;
+            }
+        });
+        counted.upsertAll(shuffledHistory(total));
+        assertEquals(total, counted.size());
+        counted.setListener(listener);
+
+        timeReads[0] = 0;
+        for (int i = 0; i < rounds; i++) {
+            counted.upsert(new Msg("n" + i, (total + i) * 1000L, "nuevo"));
+        }
+
+        assertEquals(total + rounds, counted.size());
+        assertEquals("n" + (rounds - 1), counted.newest().id);
+        assertEquals(rounds, listener.events.size());
+        assertEquals("insert " + total + "+1", listener.events.get(0));
+        assertEquals("insert " + (total + rounds - 1) + "+1", listener.events.get(rounds - 1));
+        // Dos lecturas por comparación y ~14 comparaciones (log2 de 10.000) por mensaje
+        assertTrue("lecturas de hora: " + timeReads[0], timeReads[0] <= rounds * 2 * 16);
+    }
+
+    @Test
+    public void benchmarkDeltaApplyAgainstRebuild() {
+        Benchmarks.assumeEnabled();
+        int total = 10_000;
+        int rounds = 200;
+        List<Msg> history = shuffledHistory(total);
+        timeline.setListener(null);
+        timeline.upsertAll(history);
+
+        // Calentamiento
+        for (int i = 0; i < rounds; i++) {
+            rebuildAndSort(history);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            timeline.upsert(new Msg("n" + i, (total + i) * 1000L, "nuevo"));
+        }
+        long deltaNanos = System.nanoTime() - start;
+
+        List<Msg> snapshot = new ArrayList<>(history);
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            snapshot.add(new Msg("r" + i, (total + i) * 1000L, "nuevo"));
+            rebuildAndSort(snapshot);
+        }
+        long rebuildNanos = System.nanoTime() - start;
+
+        Benchmarks.report("%d mensajes: delta %.1f µs/cambio, reconstrucción %.1f µs/cambio",
+                total, deltaNanos / 1000.0 / rounds, rebuildNanos / 1000.0 / rounds);
+    }
+
+    private static List<Msg> shuffledHistory(int total) {
+        List<Msg> history = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            history.add(new Msg("m" + i, i * 1000L, "mensaje " + i));
+        }
+        Collections.shuffle(history, new java.util.Random(7));
+        return history;
+    }
+
+    private static List<Msg> rebuildAndSort(List<Msg> snapshot) {
+        List<Msg> rebuilt = new ArrayList<>(snapshot);
+        Collections.sort(rebuilt, (a, b) -> {
+            int byTime = Long.compare(a.time, b.time);
+            return byTime != 0 ? byTime : a.id.compareTo(b.id);
+        });
+        return rebuilt;
+    }
+}
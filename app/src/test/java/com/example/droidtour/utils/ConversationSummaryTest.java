@@ -0,0 +1,217 @@
+package com.example.droidtour.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de ConversationSummary con la misma forma de escritura que FirestoreManager: envíos con
+ * merge + incremento sin leer, y lecturas en una transacción que solo actualiza los campos de lectura.
+ */
+public class ConversationSummaryTest {
+
+    private static final String CONVERSATION = "CLI1_COMP001";
+    private static final String CLIENT = "CLI1";
+    private static final String COMPANY = "COMP001";
+    private static final String CLIENT_SUMMARY = ConversationSummary.idFor(CONVERSATION, CLIENT);
+    private static final String COMPANY_SUMMARY = ConversationSummary.idFor(CONVERSATION, COMPANY);
+
+    /**
+     * Colección de resúmenes con la semántica de Firestore: set con merge pisa solo los campos
+     * enviados, el incremento suma sobre el valor guardado (0 si no hay) y update falla si el
+     * documento cambió desde que la transacción lo leyó.
+     */
+    private static class SummaryStore {
+        private final Map<String, Map<String, Object>> docs = new HashMap<>();
+        private final Map<String, Long> versions = new HashMap<>();
+        // Orden de los commits sobre el resumen del cliente
+        final List<String> clientCommits = new ArrayList<>();
+
+        synchronized void send(List<ConversationSummary.SendWrite> writes, String operation) {
+            for (ConversationSummary.SendWrite write : writes) {
+                Map<String, Object> doc = docs.computeIfAbsent(write.summaryId, id -> new HashMap<>());
+                doc.putAll(write.fields);
+                if (write.unreadIncrement != 0) {
+                    Object unread = doc.get(ConversationSummary.FIELD_UNREAD_COUNT);
+                    long current = unread instanceof Number ? ((Number) unread).longValue() : 0;
+                    doc.put(ConversationSummary.FIELD_UNREAD_COUNT, current + write.unreadIncrement);
+                }
+                versions.merge(write.summaryId, 1L, Long::sum);
+                if (write.summaryId.equals(CLIENT_SUMMARY)) clientCommits.add(operation);
+            }
+        }
+
+        synchronized Map<String, Object> get(String id) {
+            Map<String, Object> doc = docs.get(id);
+            return doc != null ? new HashMap<>(doc) : null;
+        }
+
+        synchronized long version(String id) {
+            return versions.getOrDefault(id, 0L);
+        }
+
+        synchronized boolean update(String id, long readVersion, Map<String, Object> fields) {
+            if (version(id) != readVersion || !docs.containsKey(id)) return false;
+            docs.get(id).putAll(fields);
+            versions.merge(id, 1L, Long::sum);
+            clientCommits.add("read");
+            return true;
+        }
+
+        /** Como FirestoreManager.markConversationRead: devuelve los no leídos que limpió */
+        long markRead(String id, Date readAt) {
+            while (true) {
+                long version = version(id);
+                Map<String, Object> data = get(id);
+                if (data == null) return 0;
+                long cleared = ConversationSummary.fromData(data).getUnreadCount();
+                if (cleared == 0) return 0;
+                if (update(id, version, ConversationSummary.readFields(readAt))) return cleared;
+            }
+        }
+    }
+
+    private static List<ConversationSummary.SendWrite> send(String sender, String text, Object sentAt) {
+        boolean fromCompany = COMPANY.equals(sender);
+        return ConversationSummary.sendWrites(CONVERSATION, sender,
+                fromCompany ? "Lima Adventure Tours" : "Ana",
+                fromCompany ? CLIENT : COMPANY, fromCompany ? "Ana" : "Lima Adventure Tours", text, sentAt);
+    }
+
+    @Test
+    public void sendWritesBothSummariesAndCountsOnlyForTheReceiver() {
+        List<ConversationSummary.SendWrite> writes = send(COMPANY, "Hola", new Date(1000));
+        assertEquals(2, writes.size());
+        assertEquals(COMPANY_SUMMARY, writes.get(0).summaryId);
+        assertEquals(0, writes.get(0).unreadIncrement);
+        assertEquals(CLIENT_SUMMARY, writes.get(1).summaryId);
+        assertEquals(1, writes.get(1).unreadIncrement);
+        for (ConversationSummary.SendWrite write : writes) {
+            assertFalse(write.fields.containsKey(ConversationSummary.FIELD_UNREAD_COUNT));
+        }
+
+        SummaryStore store = new SummaryStore();
+        store.send(writes, "in");
+        store.send(send(CLIENT, "Buenas", new Date(2000)), "out");
+        store.send(send(COMPANY, "¿En qué ayudamos?", new Date(3000)), "in");
+
+        ConversationSummary client = ConversationSummary.fromData(store.get(CLIENT_SUMMARY));
+        assertEquals(2, client.getUnreadCount());
+        assertEquals("¿En qué ayudamos?", client.getLastMessageText());
+        assertEquals(COMPANY, client.getLastSenderId());
+        assertEquals(COMPANY, client.getOtherUserId());
+        assertEquals("Lima Adventure Tours", client.getOtherUserName());
+        assertEquals(1, ConversationSummary.fromData(store.get(COMPANY_SUMMARY)).getUnreadCount());
+
+        assertTrue(ConversationSummary.sendWrites("", COMPANY, null, CLIENT, null, "x", new Date()).isEmpty());
+        assertEquals(1, ConversationSummary.sendWrites(CONVERSATION, COMPANY, null, null, null, "x", new Date()).size());
+    }
+
+    @Test
+    public void lastCommittedMessageWins() {
+        // Escrituras ciegas: sin la hora del servidor un mensaje viejo confirmado tarde queda como
+        // último; por eso FirestoreManager usa serverTimestamp y lastMessageAt sigue a los commits
+        SummaryStore store = new SummaryStore();
+        store.send(send(COMPANY, "segundo", new Date(2000)), "in");
+        store.send(send(COMPANY, "primero", new Date(1000)), "in");
+
+        ConversationSummary summary = ConversationSummary.fromData(store.get(CLIENT_SUMMARY));
+        assertEquals("primero", summary.getLastMessageText());
+        assertEquals(2, summary.getUnreadCount());
+    }
+
+    @Test
+    public void markReadClearsUnreadAndKeepsTheLastMessage() {
+        SummaryStore store = new SummaryStore();
+        assertEquals(0, store.markRead(CLIENT_SUMMARY, new Date(500)));   // sin resumen
+
+        store.send(send(COMPANY, "a", new Date(1000)), "in");
+        store.send(send(COMPANY, "b", new Date(2000)), "in");
+        assertEquals(2, store.markRead(CLIENT_SUMMARY, new Date(3000)));
+        assertEquals(0, store.markRead(CLIENT_SUMMARY, new Date(4000)));
+
+        ConversationSummary summary = ConversationSummary.fromData(store.get(CLIENT_SUMMARY));
+        assertEquals(0, summary.getUnreadCount());
+        assertFalse(summary.hasUnread());
+        assertEquals(new Date(3000), summary.getLastReadAt());
+        assertEquals("b", summary.getLastMessageText());
+        assertEquals(new Date(2000), summary.getLastMessageAt());
+
+        store.send(send(COMPANY, "c", new Date(5000)), "in");
+        assertEquals(1, ConversationSummary.fromData(store.get(CLIENT_SUMMARY)).getUnreadCount());
+    }
+
+    @Test
+    public void readFieldsTouchOnlyUnreadAndReadTime() {
+        Map<String, Object> fields = ConversationSummary.readFields(new Date(1000));
+        assertEquals(2, fields.size());
+        assertEquals(0L, fields.get(ConversationSummary.FIELD_UNREAD_COUNT));
+        assertEquals(new Date(1000), fields.get(ConversationSummary.FIELD_LAST_READ_AT));
+        assertEquals("CLI1_COMP001_CLI1", CLIENT_SUMMARY);
+    }
+
+    /**
+     * 600 envíos (de la empresa y del propio cliente) y 150 lecturas intercaladas desde 12 hilos:
+     * los no leídos finales son exactamente los mensajes recibidos confirmados después de la última
+     * lectura que limpió algo, y el último mensaje es el último envío confirmado.
+     */
+    @Test
+    public void interleavedSendsAndReadsKeepUnreadCountExact() throws InterruptedException {
+        SummaryStore store = new SummaryStore();
+        int sends = 600;
+        int reads = 150;
+        ExecutorService pool = Executors.newFixedThreadPool(12);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(sends + reads);
+
+        for (int i = 0; i < sends + reads; i++) {
+            final int n = i;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    if (n % 5 == 4) {
+                        store.markRead(CLIENT_SUMMARY, new Date());
+                    } else {
+                        boolean incoming = n % 3 != 0;
+                        store.send(send(incoming ? COMPANY : CLIENT, "m" + n, new Date()), (incoming ? "in:" : "out:") + n);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        long expectedUnread = 0;
+        int committedSends = 0;
+        String lastSend = null;
+        for (String operation : store.clientCommits) {
+            if (operation.equals("read")) {
+                expectedUnread = 0;
+            } else {
+                committedSends++;
+                lastSend = "m" + operation.substring(operation.indexOf(':') + 1);
+                if (operation.startsWith("in:")) expectedUnread++;
+            }
+        }
+
+        ConversationSummary result = ConversationSummary.fromData(store.get(CLIENT_SUMMARY));
+        assertEquals(sends, committedSends);
+        assertEquals(expectedUnread, result.getUnreadCount());
+        assertEquals(lastSend, result.getLastMessageText());
+    }
+}
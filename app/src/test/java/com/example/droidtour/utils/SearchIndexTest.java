@@ -0,0 +1,188 @@
+package com.example.droidtour.utils;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de SearchIndex: tildes, prefijos y trigramas, orden por relevancia, cambios incrementales
+ * y comparación con recorrer la lista con contains (50k usuarios).
+ */
+public class SearchIndexTest {
+
+    @Test
+    public void matchesWithoutAccentsByPrefixAndInfix() {
+        SearchIndex<String> index = new SearchIndex<>();
+        index.put("1", "jose", "José Pérez", "jose.perez@gmail.com", "CLIENT");
+        index.put("2", "canon", "Cañón del Colca", "Vuelo del cóndor");
+        index.put("3", "maria", "María Ramírez", "mramirez@droidtour.pe", "GUIDE");
+
+        assertEquals(Collections.singletonList("jose"), index.search("JOSE", 10));
+        assertEquals(Collections.singletonList("jose"), index.search("pérez", 10));
+        assertEquals(Collections.singletonList("canon"), index.search("cañon", 10));
+        assertEquals(Collections.singletonList("canon"), index.search("condor", 10));
+        // Dentro de la palabra: desde 3 letras
+        assertEquals(Collections.singletonList("maria"), index.search("amir", 10));
+        assertTrue(index.search("ri", 10).isEmpty());
+        assertEquals(Collections.singletonList("maria"), index.search("ra", 10));
+        // Varias palabras en cualquier campo, en cualquier orden
+        assertEquals(Collections.singletonList("jose"), index.search("gmail jos", 10));
+        assertEquals(Collections.singletonList("jose"), index.search("jose.p", 10));
+        assertTrue(index.search("jose guide", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void ranksExactThenPrefixThenInfixAndEarlierFields() {
+        SearchIndex<String> index = new SearchIndex<>();
+        index.put("a", "infix", "Ana Barrosa", "ana@x.com");
+        index.put("b", "prefix", "Rosalia Torres", "r@x.com");
+        index.put("c", "exact", "Rosa Quispe", "q@x.com");
+        index.put("d", "email", "Luis Lopez", "rosa@x.com");
+        index.put("e", "second", "Luisa Rosa", "l@x.com");
+
+        assertEquals(Arrays.asList("exact", "second", "email", "prefix", "infix"), index.search("rosa", 10));
+        // Sin palabra exacta: los prefijos empatan por campo y posición y quedan en orden de carga
+        assertEquals(Arrays.asList("prefix", "exact", "second", "email", "infix"), index.search("ros", 10));
+        assertEquals(Arrays.asList("prefix", "exact"), index.search("ros", 2));
+    }
+
+    @Test
+    public void putReplacesAndRemoveForgets() {
+        SearchIndex<String> index = new SearchIndex<>();
+        index.put("1", "v1", "Carlos Mendoza");
+        index.put("2", "otro", "Carla Mendoza");
+        index.put("1", "v2", "Carlos Quispe");
+
+        assertEquals(Collections.singletonList("v2"), index.search("quispe", 10));
+        assertEquals(Collections.singletonList("otro"), index.search("mendoza", 10));
+        // Reemplazar conserva el orden de empate
+        assertEquals(Arrays.asList("v2", "otro"), index.search("carl", 10));
+
+        index.remove("1");
+        assertFalse(index.contains("1"));
+        assertTrue(index.search("quispe", 10).isEmpty());
+        assertTrue(index.search("ispe", 10).isEmpty());
+        index.put("3", "nuevo", "Carlos Quispe");   // reutiliza el slot
+        assertEquals(Arrays.asList("otro", "nuevo"), index.search("carl", 10));
+        assertEquals(2, index.size());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.search("carl", 10).isEmpty());
+    }
+
+    // ==================== BENCHMARK ====================
+
+    private static final String[] FIRST = {"José", "María", "Luis", "Ana", "Carlos", "Lucía", "Jorge", "Rosa",
+            "Miguel", "Sofía", "Andrés", "Valeria", "Diego", "Camila", "Raúl", "Elena", "Iván", "Noemí"};
+    private static final String[] LAST = {"Pérez", "Quispe", "Ramírez", "Mamani", "Torres", "García", "Huamán",
+            "Flores", "Rojas", "Díaz", "Vargas", "Castillo", "Gutiérrez", "Chávez", "Mendoza", "Núñez"};
+    private static final String[] TYPES = {"CLIENT", "CLIENT", "CLIENT", "GUIDE", "ADMIN"};
+
+    /** Lo que hacía UsersAdapter.performFiltering: toLowerCase().contains() por campo y usuario */
+    private static List<String> legacySearch(List<String[]> users, String query) {
+        String pattern = query.toLowerCase().trim();
+        List<String> result = new ArrayList<>();
+        for (String[] user : users) {
+            if (user[1].toLowerCase().contains(pattern) || user[2].toLowerCase().contains(pattern)
+                    || user[3].toLowerCase().contains(pattern)) {
+                result.add(user[0]);
+            }
+        }
+        return result;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static List<String[]> fiftyThousandUsers() {
+        Random random = new Random(11);
+        List<String[]> users = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            String email = SearchIndex.fold(first + "." + last).replace(' ', '.') + i + "@mail.com";
+            users.add(new String[]{"u" + i, first + " " + last + " " + LAST[random.nextInt(LAST.length)],
+                    email, TYPES[random.nextInt(TYPES.length)]});
+        }
+        return users;
+    }
+
+    private static SearchIndex<String> indexOf(List<String[]> users) {
+        SearchIndex<String> index = new SearchIndex<>();
+        for (String[] user : users) {
+            index.put(user[0], user[0], user[1], user[2], user[3]);
+        }
+        return index;
+    }
+
+    // Lo que se escribe en el buscador, tecla por tecla; apellidos sin tilde para poder comparar
+    // con contains, que no encuentra "Ramírez" buscando "ramirez"
+    private static final String[] KEYSTROKES = {"qui", "quis", "quisp", "quispe", "mam", "maman", "mamani", "torres",
+            "castillo", "mendoza", "rojas", "vargas1", "vargas12", "vargas123"};
+
+    @Test
+    public void fiftyThousandUsersMatchContainsForEveryKeystroke() {
+        List<String[]> users = fiftyThousandUsers();
+        SearchIndex<String> index = indexOf(users);
+
+        for (String query : KEYSTROKES) {
+            // Mismo conjunto (el índice además ordena por relevancia)
+            assertEquals(query, new HashSet<>(legacySearch(users, query)), new HashSet<>(index.search(query, users.size())));
+            assertTrue(index.search(query, 50).size() <= 50);
+        }
+        // Las búsquedas con tildes ahora encuentran a los mismos
+        assertEquals(new HashSet<>(index.search("ramirez", users.size())), new HashSet<>(index.search("Ramírez", users.size())));
+    }
+
+    @Test
+    public void benchmarkFiftyThousandUsers() {
+        Benchmarks.assumeEnabled();
+        List<String[]> users = fiftyThousandUsers();
+
+        long before = usedMemory();
+        long start = System.nanoTime();
+        SearchIndex<String> index = indexOf(users);
+        long buildNs = System.nanoTime() - start;
+        long indexBytes = usedMemory() - before;
+
+        int rounds = 20;
+        long legacyNs = 0, indexNs = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (String query : KEYSTROKES) {
+                start = System.nanoTime();
+                legacySearch(users, query);
+                legacyNs += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                index.search(query, users.size());
+                indexNs += System.nanoTime() - start;
+            }
+        }
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String query : KEYSTROKES) index.search(query, 50);
+        }
+        long topNs = System.nanoTime() - start;
+
+        int queries = rounds * KEYSTROKES.length;
+        Benchmarks.report("Búsqueda de %d usuarios (nombre, email, tipo):%n"
+                        + "  construir índice: %.0f ms, memoria ~%.1f MB%n"
+                        + "  por tecla: antes %.2f ms (contains), ahora %.3f ms (todos) / %.3f ms (top 50)",
+                users.size(), buildNs / 1e6, indexBytes / 1024.0 / 1024.0,
+                legacyNs / 1e6 / queries, indexNs / 1e6 / queries, topNs / 1e6 / queries);
+    }
+}
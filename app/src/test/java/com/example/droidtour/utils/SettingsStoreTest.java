@@ -0,0 +1,263 @@
+package com.example.droidtour.utils;
+
+import com.example.droidtour.Benchmarks;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de SettingsStore y SettingsFile: migración, escrituras agrupadas y listeners.
+ */
+public class SettingsStoreTest {
+
+    /** Executor que corre las tareas solo cuando se le pide, para ver cuántas escrituras hay */
+    private static class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) tasks.poll().run();
+        }
+    }
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private static class CountingBackend implements SettingsStore.Backend {
+        Map<String, Object> stored = new HashMap<>();
+        int loads;
+        int saves;
+
+        @Override
+        public Map<String, Object> load() {
+            loads++;
+            return new HashMap<>(stored);
+        }
+
+        @Override
+        public void save(Map<String, Object> values) {
+            stored = new HashMap<>(values);
+            saves++;
+        }
+    }
+
+    private static File newFile() throws IOException {
+        File dir = Files.createTempDirectory("settings").toFile();
+        dir.deleteOnExit();
+        return new File(dir, "settings.bin");
+    }
+
+    @Test
+    public void migratesLegacyPreferencesOnce() throws IOException {
+        File file = newFile();
+        int[] migrated = {0};
+        SettingsFile.Migration migration = new SettingsFile.Migration() {
+            @Override
+            public Map<String, ?> read() {
+                Map<String, Object> legacy = new HashMap<>();
+                legacy.put("user_id", "u1");
+                legacy.put("is_logged_in", true);
+                legacy.put("guide_rating", 4.5f);
+                legacy.put("last_login", 1_700_000_000_000L);
+                legacy.put("visits", 3);
+                legacy.put("tags", new HashSet<>());   // tipo no soportado: se ignora
+                return legacy;
+            }
+
+            @Override
+            public void onMigrated() {
+                migrated[0]++;
+            }
+        };
+
+        Map<String, Object> first = new SettingsFile(file, migration).load();
+        assertEquals(1, migrated[0]);
+        assertTrue(file.exists());
+        assertFalse(first.containsKey("tags"));
+
+        SettingsStore store = new SettingsStore(new SettingsFile(file, migration), DIRECT, DIRECT);
+        SettingsStore.Snapshot snapshot = store.snapshot();
+        assertEquals(1, migrated[0]);
+        assertEquals("u1", snapshot.getString("user_id", ""));
+        assertTrue(snapshot.getBoolean("is_logged_in", false));
+        assertEquals(4.5f, snapshot.getFloat("guide_rating", 0f), 0f);
+        assertEquals(1_700_000_000_000L, snapshot.getLong("last_login", 0));
+        assertEquals(3, snapshot.getInt("visits", 0));
+        // Tipo equivocado: valor por defecto
+        assertEquals("x", snapshot.getString("visits", "x"));
+    }
+
+    @Test
+    public void groupedCommitsAreVisibleAtOnceAndWrittenOnce() throws IOException {
+        CountingBackend backend = new CountingBackend();
+        ManualExecutor writer = new ManualExecutor();
+        SettingsStore store = new SettingsStore(backend, writer, DIRECT);
+        writer.runAll();   // carga
+
+        SettingsStore.Snapshot before = store.snapshot();
+        store.edit().putString("user_id", "u1").putString("user_type", "CLIENT").putBoolean("is_logged_in", true).commit();
+        store.edit().putLong("last_login", 42L).commit();
+        store.edit().putBoolean("first_time", false).commit();
+
+        // Visible enseguida, el snapshot anterior no cambia
+        assertEquals("CLIENT", store.snapshot().getString("user_type", ""));
+        assertFalse(before.contains("user_id"));
+        assertEquals(0, backend.saves);
+
+        writer.runAll();
+        assertEquals(1, backend.saves);
+        assertEquals(42L, backend.stored.get("last_login"));
+        assertEquals(false, backend.stored.get("first_time"));
+
+        // Sin cambios reales no se escribe
+        store.edit().putString("user_id", "u1").commit();
+        writer.runAll();
+        assertEquals(1, backend.saves);
+
+        // clear + put de este mismo editor
+        store.edit().clear().putBoolean("first_time", false).commit();
+        writer.runAll();
+        assertEquals(1, backend.stored.size());
+    }
+
+    @Test
+    public void commitNowReturnsOnceWrittenAndFlushWaitsForPending() throws Exception {
+        CountingBackend backend = new CountingBackend();
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            SettingsStore store = new SettingsStore(backend, writer, DIRECT);
+            store.edit().putString("user_id", "u1").putBoolean("is_logged_in", true).commitNow();
+            assertEquals("u1", backend.stored.get("user_id"));
+
+            // El archivo ya no tiene la sesión cuando commitNow vuelve (solo desde hilos de fondo)
+            store.edit().clear().commitNow();
+            assertTrue(backend.stored.isEmpty());
+
+            store.edit().putString("language", "en").commit();
+            assertTrue(store.flush(5_000));
+            assertEquals("en", backend.stored.get("language"));
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void flushWithTimeoutReportsUnwrittenCommits() throws Exception {
+        CountingBackend backend = new CountingBackend();
+        ManualExecutor writer = new ManualExecutor();
+        SettingsStore store = new SettingsStore(backend, writer, DIRECT);
+        writer.runAll();   // carga
+
+        store.edit().putBoolean("dark_theme", true).commit();
+        assertFalse(store.flush(10));
+        writer.runAll();
+        assertTrue(store.flush(10));
+        assertEquals(true, backend.stored.get("dark_theme"));
+    }
+
+    @Test
+    public void listenersReceiveChangedKeys() {
+        CountingBackend backend = new CountingBackend();
+        backend.stored.put("language", "es");
+        backend.stored.put("dark_theme", false);
+        SettingsStore store = new SettingsStore(backend, DIRECT, DIRECT);
+        List<Set<String>> events = new ArrayList<>();
+        SettingsStore.Listener listener = events::add;
+        store.addListener(listener);
+
+        store.edit().putString("language", "es").putBoolean("dark_theme", true).commit();
+        store.edit().clear().putString("language", "es").commit();
+        store.removeListener(listener);
+        store.edit().putString("language", "en").commit();
+
+        assertEquals(2, events.size());
+        assertEquals(1, events.get(0).size());
+        assertTrue(events.get(0).contains("dark_theme"));
+        assertTrue(events.get(1).contains("dark_theme"));
+        assertFalse(events.get(1).contains("language"));
+    }
+
+    /** Login: antes saveUserData + guardarUltimoLogin + marcarPrimeraVezCompletada = 3 apply() */
+    private static void saveLogin(SettingsStore store) {
+        store.edit().putString("user_id", "u1").putString("user_name", "Ana").putString("user_email", "a@x.pe")
+                .putString("user_phone", "").putString("user_type", "CLIENT").putBoolean("is_logged_in", true)
+                .putBoolean("session_active", true).putLong("last_login", 1L).putBoolean("first_time", false).commit();
+    }
+
+    @Test
+    public void startupChecksReadOnceAndLoginWritesOnce() {
+        CountingBackend backend = new CountingBackend();
+        for (int i = 0; i < 40; i++) backend.stored.put("clave_" + i, "valor " + i);
+        backend.stored.put("is_logged_in", true);
+        backend.stored.put("user_type", "CLIENT");
+        ManualExecutor writer = new ManualExecutor();
+        SettingsStore store = new SettingsStore(backend, writer, DIRECT);
+        writer.runAll();
+
+        // Cada onCreate: isLoggedIn() + getUserType()
+        int checks = 1000;
+        int ok = 0;
+        for (int i = 0; i < checks; i++) {
+            SettingsStore.Snapshot s = store.snapshot();
+            if (s.getBoolean("is_logged_in", false) && "CLIENT".equals(s.getString("user_type", ""))) ok++;
+        }
+        assertEquals(checks, ok);
+        assertEquals(1, backend.loads);
+        assertEquals(0, backend.saves);
+
+        // Cada apply() reescribía el archivo entero; saveLogin es un solo commit
+        saveLogin(store);
+        writer.runAll();
+        assertEquals(1, backend.loads);
+        assertEquals(1, backend.saves);
+        assertEquals("Ana", backend.stored.get("user_name"));
+    }
+
+    @Test
+    public void benchmarkStartupReads() throws Exception {
+        Benchmarks.assumeEnabled();
+        File file = newFile();
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < 40; i++) values.put("clave_" + i, "valor " + i);
+        values.put("is_logged_in", true);
+        values.put("user_type", "CLIENT");
+        new SettingsFile(file, null).save(values);
+
+        long start = System.nanoTime();
+        SettingsStore store = new SettingsStore(new SettingsFile(file, null), DIRECT, DIRECT);
+        store.snapshot();
+        long loadNs = System.nanoTime() - start;
+
+        int checks = 100_000;
+        start = System.nanoTime();
+        for (int i = 0; i < checks; i++) {
+            SettingsStore.Snapshot s = store.snapshot();
+            s.getBoolean("is_logged_in", false);
+            s.getString("user_type", "");
+        }
+        long checkNs = System.nanoTime() - start;
+
+        Benchmarks.report("Preferencias (%d claves):%n"
+                        + "  carga en segundo plano: %.2f ms (una vez por proceso)%n"
+                        + "  isLoggedIn + getUserType: %.0f ns por pantalla, sin disco",
+                values.size(), loadNs / 1e6, (double) checkNs / checks);
+    }
+}